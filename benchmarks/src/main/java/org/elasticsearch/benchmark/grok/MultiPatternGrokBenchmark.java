@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.grok;
+
+import org.elasticsearch.grok.Grok;
+import org.elasticsearch.grok.MatcherWatchdog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches lines against a list of grok patterns, like the fallback patterns of a grok processor that parses heterogeneous logs. Compares
+ * the alternation of all patterns with the prefiltered matching of the same patterns, with patterns that start with literal text and
+ * syslog patterns that only differ in the name of the program after the timestamp and the host.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class MultiPatternGrokBenchmark {
+
+    @Param({ "literal_start", "syslog" })
+    public String patternSet;
+
+    @Param({ "1", "10", "30" })
+    public int numPatterns;
+
+    @Param({ "first", "last", "none" })
+    public String matchingPattern;
+
+    private Grok alternation;
+    private Grok prefiltered;
+    private String line;
+
+    @Setup
+    public void setup() {
+        final String pattern;
+        final String lineFormat;
+        final String unmatchedLine;
+        switch (patternSet) {
+            case "literal_start":
+                pattern = "^service%d\\[%%{POSINT:pid}\\]: %%{WORD:action} user=%%{USERNAME:user} took %%{NUMBER:took}ms";
+                lineFormat = "service%d[4242]: login user=kimchy took 12.5ms";
+                unmatchedLine = "kernel[0]: eth0: link up, 1000Mbps, full-duplex, lpa 0x45E1 took 12.5ms";
+                break;
+            case "syslog":
+                pattern = "%%{SYSLOGTIMESTAMP:timestamp} %%{SYSLOGHOST:host} program%d\\[%%{POSINT:pid}\\]: %%{GREEDYDATA:message}";
+                lineFormat = "Oct 11 22:14:15 myhost program%d[4242]: session opened for user root";
+                unmatchedLine = "Oct 11 22:14:15 myhost kernel: [ 0.000000] Linux version 5.10.0 (gcc version 10.2.1)";
+                break;
+            default:
+                throw new IllegalArgumentException("unknown pattern set [" + patternSet + "]");
+        }
+        List<String> patterns = new ArrayList<>(numPatterns);
+        for (int i = 0; i < numPatterns; i++) {
+            patterns.add(String.format(Locale.ROOT, pattern, i));
+        }
+        alternation = new Grok(Grok.BUILTIN_PATTERNS, "(?:" + String.join(")|(?:", patterns) + ")", MatcherWatchdog.noop(), s -> {});
+        prefiltered = new Grok(Grok.BUILTIN_PATTERNS, patterns, MatcherWatchdog.noop(), s -> {});
+        switch (matchingPattern) {
+            case "first":
+                line = String.format(Locale.ROOT, lineFormat, 0);
+                break;
+            case "last":
+                line = String.format(Locale.ROOT, lineFormat, numPatterns - 1);
+                break;
+            case "none":
+                line = unmatchedLine;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown matching pattern [" + matchingPattern + "]");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> alternation() {
+        return alternation.captures(line);
+    }
+
+    @Benchmark
+    public Map<String, Object> prefiltered() {
+        return prefiltered.captures(line);
+    }
+}
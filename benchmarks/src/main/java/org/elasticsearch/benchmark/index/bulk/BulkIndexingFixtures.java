@@ -0,0 +1,324 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.bulk;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.indices.IndicesModule;
+import org.elasticsearch.script.ScriptModule;
+import org.elasticsearch.script.ScriptService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Mappings, documents and services shared by the bulk indexing benchmarks. Everything here is built from server classes only so
+ * that each stage of the indexing path can be measured in isolation without a running node.
+ */
+final class BulkIndexingFixtures {
+
+    /**
+     * Number of documents processed per benchmark invocation. Benchmarks declare it in {@code @OperationsPerInvocation} so that
+     * both the reported time and the {@code gc.alloc.rate.norm} of {@code -prof gc} are per document.
+     */
+    static final int DOCS_PER_INVOCATION = 1000;
+
+    static final String INDEX_NAME = "benchmark";
+
+    private static final String[] LOG_LEVELS = new String[] { "DEBUG", "INFO", "INFO", "INFO", "WARN", "ERROR" };
+    private static final String[] HTTP_METHODS = new String[] { "GET", "GET", "GET", "POST", "PUT", "DELETE" };
+    private static final String[] WORDS = new String[] {
+        "request",
+        "completed",
+        "failed",
+        "connection",
+        "timeout",
+        "user",
+        "session",
+        "cache",
+        "miss",
+        "upstream",
+        "retry",
+        "shard",
+        "query",
+        "payload",
+        "accepted" };
+    private static final String[] CATEGORIES = new String[] { "men's clothing", "women's clothing", "shoes", "accessories", "books" };
+
+    private BulkIndexingFixtures() {}
+
+    /**
+     * The kinds of documents the benchmarks are run with, modelled after typical logging, metrics and e-commerce workloads.
+     */
+    enum DocType {
+        LOGS {
+            @Override
+            void mapping(XContentBuilder b) throws IOException {
+                field(b, "@timestamp", "date");
+                field(b, "message", "text");
+                b.startObject("log").startObject("properties");
+                field(b, "level", "keyword");
+                field(b, "logger", "keyword");
+                b.endObject().endObject();
+                b.startObject("host").startObject("properties");
+                field(b, "name", "keyword");
+                field(b, "ip", "ip");
+                b.endObject().endObject();
+                b.startObject("http").startObject("properties");
+                field(b, "method", "keyword");
+                field(b, "status_code", "short");
+                field(b, "bytes", "long");
+                field(b, "url", "keyword");
+                b.endObject().endObject();
+            }
+
+            @Override
+            void document(XContentBuilder b, Random random, int i) throws IOException {
+                b.field("@timestamp", START_MILLIS + i * 10L);
+                b.field("message", sentence(random, 8 + random.nextInt(16)));
+                b.startObject("log");
+                b.field("level", pick(random, LOG_LEVELS));
+                b.field("logger", "org.example.Service" + random.nextInt(20));
+                b.endObject();
+                b.startObject("host");
+                b.field("name", "host-" + random.nextInt(100));
+                b.field("ip", "10.0." + random.nextInt(256) + "." + i % 256);
+                b.endObject();
+                b.startObject("http");
+                b.field("method", pick(random, HTTP_METHODS));
+                b.field("status_code", random.nextInt(10) == 0 ? 500 : 200);
+                b.field("bytes", random.nextInt(1 << 20));
+                b.field("url", "/api/" + pick(random, WORDS) + "/" + random.nextInt(1000));
+                b.endObject();
+            }
+        },
+        METRICS {
+            @Override
+            void mapping(XContentBuilder b) throws IOException {
+                field(b, "@timestamp", "date");
+                field(b, "host", "keyword");
+                field(b, "service", "keyword");
+                b.startObject("system").startObject("properties");
+                for (String metric : METRIC_NAMES) {
+                    field(b, metric, "double");
+                }
+                field(b, "processes", "integer");
+                field(b, "uptime", "long");
+                b.endObject().endObject();
+            }
+
+            @Override
+            void document(XContentBuilder b, Random random, int i) throws IOException {
+                b.field("@timestamp", START_MILLIS + i * 1000L);
+                b.field("host", "host-" + random.nextInt(100));
+                b.field("service", pick(random, WORDS));
+                b.startObject("system");
+                for (String metric : METRIC_NAMES) {
+                    b.field(metric, random.nextDouble() * 100);
+                }
+                b.field("processes", random.nextInt(500));
+                b.field("uptime", (long) i * 1000 + random.nextInt(1000));
+                b.endObject();
+            }
+        },
+        ECOMMERCE {
+            @Override
+            void mapping(XContentBuilder b) throws IOException {
+                field(b, "order_date", "date");
+                field(b, "order_id", "keyword");
+                field(b, "customer_name", "text");
+                field(b, "taxful_total_price", "double");
+                b.startObject("products").field("type", "nested").startObject("properties");
+                field(b, "product_id", "keyword");
+                field(b, "product_name", "text");
+                field(b, "category", "keyword");
+                field(b, "price", "float");
+                field(b, "quantity", "integer");
+                b.endObject().endObject();
+            }
+
+            @Override
+            void document(XContentBuilder b, Random random, int i) throws IOException {
+                b.field("order_date", START_MILLIS + i * 60_000L);
+                b.field("order_id", "order-" + i);
+                b.field("customer_name", sentence(random, 2));
+                double total = 0;
+                b.startArray("products");
+                int products = 1 + random.nextInt(6);
+                for (int p = 0; p < products; p++) {
+                    double price = 5 + random.nextInt(20_000) / 100.0;
+                    total += price;
+                    b.startObject();
+                    b.field("product_id", "product-" + random.nextInt(10_000));
+                    b.field("product_name", sentence(random, 3 + random.nextInt(4)));
+                    b.field("category", pick(random, CATEGORIES));
+                    b.field("price", price);
+                    b.field("quantity", 1 + random.nextInt(3));
+                    b.endObject();
+                }
+                b.endArray();
+                b.field("taxful_total_price", total);
+            }
+        };
+
+        private static final long START_MILLIS = 1_600_000_000_000L;
+        private static final String[] METRIC_NAMES = new String[] {
+            "cpu.user",
+            "cpu.system",
+            "cpu.idle",
+            "load.1m",
+            "load.5m",
+            "load.15m",
+            "memory.used.pct",
+            "memory.free",
+            "disk.read.bytes",
+            "disk.write.bytes",
+            "network.in.bytes",
+            "network.out.bytes" };
+
+        abstract void mapping(XContentBuilder b) throws IOException;
+
+        abstract void document(XContentBuilder b, Random random, int i) throws IOException;
+
+        /**
+         * The mapping of the index as a {@code _doc} mapping.
+         */
+        CompressedXContent mapping() {
+            try {
+                XContentBuilder b = XContentFactory.jsonBuilder().startObject().startObject(MapperService.SINGLE_MAPPING_NAME);
+                b.startObject("properties");
+                mapping(b);
+                b.endObject();
+                return new CompressedXContent(BytesReference.bytes(b.endObject().endObject()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Generates {@code count} JSON sources. The same seed always produces the same documents.
+         */
+        BytesReference[] documents(int count, long seed) {
+            Random random = new Random(seed);
+            BytesReference[] documents = new BytesReference[count];
+            try {
+                for (int i = 0; i < count; i++) {
+                    XContentBuilder b = XContentFactory.jsonBuilder().startObject();
+                    document(b, random, i);
+                    documents[i] = new BytesArray(BytesReference.toBytes(BytesReference.bytes(b.endObject())));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return documents;
+        }
+    }
+
+    /**
+     * Builds the newline delimited body of a bulk request that indexes the given sources with ids {@code 0..n-1}.
+     */
+    static BytesReference bulkBody(BytesReference[] sources) {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            for (int i = 0; i < sources.length; i++) {
+                XContentBuilder action = XContentFactory.jsonBuilder().startObject().startObject("index");
+                action.field("_index", INDEX_NAME).field("_id", Integer.toString(i));
+                BytesReference.bytes(action.endObject().endObject()).writeTo(out);
+                out.writeByte((byte) '\n');
+                sources[i].writeTo(out);
+                out.writeByte((byte) '\n');
+            }
+            return new BytesArray(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static IndexSettings indexSettings(Settings settings) {
+        IndexMetadata metadata = IndexMetadata.builder(INDEX_NAME)
+            .settings(
+                Settings.builder()
+                    .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+                    .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+                    .put(settings)
+            )
+            .build();
+        return new IndexSettings(metadata, Settings.EMPTY);
+    }
+
+    /**
+     * Creates a {@link MapperService} for the given index and merges the mapping of {@code docType} into it.
+     */
+    static MapperService mapperService(IndexSettings indexSettings, DocType docType) {
+        NamedAnalyzer defaultAnalyzer = new NamedAnalyzer("default", AnalyzerScope.INDEX, new StandardAnalyzer());
+        IndexAnalyzers indexAnalyzers = new IndexAnalyzers(Map.of("default", defaultAnalyzer), Map.of(), Map.of());
+        ScriptModule scriptModule = new ScriptModule(Settings.EMPTY, List.of());
+        ScriptService scriptService = new ScriptService(Settings.EMPTY, scriptModule.engines, scriptModule.contexts);
+        SimilarityService similarityService = new SimilarityService(indexSettings, scriptService, Map.of());
+        MapperService mapperService = new MapperService(
+            indexSettings,
+            indexAnalyzers,
+            NamedXContentRegistry.EMPTY,
+            similarityService,
+            new IndicesModule(List.of()).getMapperRegistry(),
+            () -> { throw new UnsupportedOperationException(); },
+            () -> false,
+            scriptService
+        );
+        mapperService.merge(MapperService.SINGLE_MAPPING_NAME, docType.mapping(), MapperService.MergeReason.MAPPING_UPDATE);
+        return mapperService;
+    }
+
+    private static void field(XContentBuilder b, String name, String type) throws IOException {
+        b.startObject(name).field("type", type).endObject();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(pick(random, WORDS));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.bulk;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.benchmark.index.bulk.BulkIndexingFixtures.DOCS_PER_INVOCATION;
+
+/**
+ * Measures turning a document source into Lucene documents with {@link DocumentMapper#parse}. Results are per document.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DocumentParserBenchmark {
+
+    @Param({ "logs", "metrics", "ecommerce" })
+    public String docType;
+
+    private MapperService mapperService;
+    private DocumentMapper documentMapper;
+    private BytesReference[] sources;
+
+    @Setup
+    public void setup() {
+        BulkIndexingFixtures.DocType type = BulkIndexingFixtures.DocType.valueOf(docType.toUpperCase(Locale.ROOT));
+        mapperService = BulkIndexingFixtures.mapperService(BulkIndexingFixtures.indexSettings(Settings.EMPTY), type);
+        documentMapper = mapperService.documentMapper();
+        sources = type.documents(DOCS_PER_INVOCATION, 42);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mapperService.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCS_PER_INVOCATION)
+    public void parse(Blackhole bh) {
+        for (int i = 0; i < sources.length; i++) {
+            bh.consume(
+                documentMapper.parse(new SourceToParse(BulkIndexingFixtures.INDEX_NAME, Integer.toString(i), sources[i], XContentType.JSON))
+            );
+        }
+    }
+}
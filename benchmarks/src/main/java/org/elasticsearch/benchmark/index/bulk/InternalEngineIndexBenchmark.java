@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.bulk;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.FSDirectory;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.env.ShardLock;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.engine.EngineConfig;
+import org.elasticsearch.index.engine.InternalEngine;
+import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.seqno.RetentionLeases;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.benchmark.index.bulk.BulkIndexingFixtures.DOCS_PER_INVOCATION;
+
+/**
+ * Measures {@link InternalEngine#index} of already parsed documents as a primary, which covers the version map, sequence number
+ * assignment, the Lucene {@code IndexWriter} and the translog. Documents are parsed before each invocation and every document gets
+ * a new id, so this measures appends rather than updates. Results are per document.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class InternalEngineIndexBenchmark {
+
+    @Param({ "logs", "metrics", "ecommerce" })
+    public String docType;
+
+    private Path path;
+    private ThreadPool threadPool;
+    private MapperService mapperService;
+    private DocumentMapper documentMapper;
+    private Store store;
+    private InternalEngine engine;
+    private BytesReference[] sources;
+    private Engine.Index[] operations;
+    private int nextId;
+
+    @Setup
+    public void setup() throws IOException {
+        BulkIndexingFixtures.DocType type = BulkIndexingFixtures.DocType.valueOf(docType.toUpperCase(Locale.ROOT));
+        IndexSettings indexSettings = BulkIndexingFixtures.indexSettings(Settings.EMPTY);
+        ShardId shardId = new ShardId(indexSettings.getIndex(), 0);
+        path = Files.createTempDirectory("engine");
+        threadPool = new ThreadPool(Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "benchmark").build());
+        mapperService = BulkIndexingFixtures.mapperService(indexSettings, type);
+        documentMapper = mapperService.documentMapper();
+        sources = type.documents(DOCS_PER_INVOCATION, 42);
+        operations = new Engine.Index[DOCS_PER_INVOCATION];
+
+        store = new Store(shardId, indexSettings, FSDirectory.open(path.resolve("index")), new ShardLock(shardId) {
+            @Override
+            protected void closeInternal() {}
+        });
+        store.createEmpty(Version.CURRENT.luceneVersion);
+        Path translogPath = path.resolve("translog");
+        String translogUUID = Translog.createEmptyTranslog(translogPath, SequenceNumbers.NO_OPS_PERFORMED, shardId, 1L);
+        store.associateIndexWithNewTranslog(translogUUID);
+
+        EngineConfig config = new EngineConfig(
+            shardId,
+            threadPool,
+            indexSettings,
+            null,
+            store,
+            indexSettings.getMergePolicy(),
+            mapperService.indexAnalyzer(),
+            IndexSearcher.getDefaultSimilarity(),
+            new CodecService(null, LogManager.getLogger(InternalEngineIndexBenchmark.class)),
+            new Engine.EventListener() {},
+            IndexSearcher.getDefaultQueryCache(),
+            IndexSearcher.getDefaultQueryCachingPolicy(),
+            new TranslogConfig(shardId, translogPath, indexSettings, BigArrays.NON_RECYCLING_INSTANCE),
+            TimeValue.timeValueMinutes(5),
+            List.of(),
+            List.of(),
+            null,
+            new NoneCircuitBreakerService(),
+            () -> engine == null ? SequenceNumbers.NO_OPS_PERFORMED : engine.getProcessedLocalCheckpoint(),
+            () -> RetentionLeases.EMPTY,
+            () -> 1L,
+            new EngineConfig.TombstoneDocSupplier() {
+                @Override
+                public ParsedDocument newDeleteTombstoneDoc(String id) {
+                    return documentMapper.createDeleteTombstoneDoc(BulkIndexingFixtures.INDEX_NAME, id);
+                }
+
+                @Override
+                public ParsedDocument newNoopTombstoneDoc(String reason) {
+                    return documentMapper.createNoopTombstoneDoc(BulkIndexingFixtures.INDEX_NAME, reason);
+                }
+            }
+        );
+        engine = new InternalEngine(config);
+        engine.skipTranslogRecovery();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareOperations() {
+        for (int i = 0; i < operations.length; i++) {
+            String id = Integer.toString(nextId++);
+            ParsedDocument doc = documentMapper.parse(
+                new SourceToParse(BulkIndexingFixtures.INDEX_NAME, id, sources[i], XContentType.JSON)
+            );
+            operations[i] = new Engine.Index(
+                new Term(IdFieldMapper.NAME, Uid.encodeId(id)),
+                doc,
+                SequenceNumbers.UNASSIGNED_SEQ_NO,
+                1L,
+                Versions.MATCH_ANY,
+                VersionType.INTERNAL,
+                Engine.Operation.Origin.PRIMARY,
+                System.nanoTime(),
+                IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP,
+                false,
+                SequenceNumbers.UNASSIGNED_SEQ_NO,
+                SequenceNumbers.UNASSIGNED_PRIMARY_TERM
+            );
+        }
+    }
+
+    /**
+     * Flushes after each iteration so that the translog is trimmed and the benchmark does not fill up the disk.
+     */
+    @TearDown(Level.Iteration)
+    public void flush() {
+        engine.flush(true, true);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(engine, store, mapperService);
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCS_PER_INVOCATION)
+    public void index(Blackhole bh) throws IOException {
+        for (Engine.Index operation : operations) {
+            bh.consume(engine.index(operation));
+        }
+    }
+}
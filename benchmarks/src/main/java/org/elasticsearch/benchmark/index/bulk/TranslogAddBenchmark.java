@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.index.bulk;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.index.translog.TranslogDeletionPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.benchmark.index.bulk.BulkIndexingFixtures.DOCS_PER_INVOCATION;
+
+/**
+ * Measures appending index operations to the {@link Translog} without fsyncing, which is what the engine does for every document
+ * of a bulk request before the request level sync. Results are per document.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class TranslogAddBenchmark {
+
+    @Param({ "logs", "metrics", "ecommerce" })
+    public String docType;
+
+    private Path path;
+    private Translog translog;
+    private byte[][] sources;
+    private long nextSeqNo;
+
+    @Setup
+    public void setup() throws IOException {
+        BulkIndexingFixtures.DocType type = BulkIndexingFixtures.DocType.valueOf(docType.toUpperCase(Locale.ROOT));
+        BytesReference[] documents = type.documents(DOCS_PER_INVOCATION, 42);
+        sources = new byte[documents.length][];
+        for (int i = 0; i < documents.length; i++) {
+            sources[i] = BytesReference.toBytes(documents[i]);
+        }
+
+        IndexSettings indexSettings = BulkIndexingFixtures.indexSettings(Settings.EMPTY);
+        ShardId shardId = new ShardId(indexSettings.getIndex(), 0);
+        path = Files.createTempDirectory("translog");
+        String translogUUID = Translog.createEmptyTranslog(path, SequenceNumbers.NO_OPS_PERFORMED, shardId, 1L);
+        translog = new Translog(
+            new TranslogConfig(shardId, path, indexSettings, BigArrays.NON_RECYCLING_INSTANCE),
+            translogUUID,
+            new TranslogDeletionPolicy(),
+            () -> SequenceNumbers.NO_OPS_PERFORMED,
+            () -> 1L,
+            seqNo -> {}
+        );
+    }
+
+    /**
+     * Rolls and trims the translog after each iteration so that the benchmark does not fill up the disk.
+     */
+    @TearDown(Level.Iteration)
+    public void trimTranslog() throws IOException {
+        translog.rollGeneration();
+        translog.getDeletionPolicy().setLocalCheckpointOfSafeCommit(nextSeqNo - 1);
+        translog.trimUnreferencedReaders();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.close(translog);
+        IOUtils.rm(path);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCS_PER_INVOCATION)
+    public void add(Blackhole bh) throws IOException {
+        for (int i = 0; i < sources.length; i++) {
+            long seqNo = nextSeqNo++;
+            bh.consume(translog.add(new Translog.Index(Long.toString(seqNo), seqNo, 1L, sources[i])));
+        }
+    }
+}
@@ -39,6 +39,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 public final class Grok {
@@ -66,11 +67,20 @@ public final class Grok {
 
     private static final int MAX_TO_REGEX_ITERATIONS = 100_000; //sanity limit
 
+    /**
+     * The maximum number of regexes compiled for subsets of the alternatives of a grok expression.
+     */
+    private static final int MAX_CACHED_SUBSETS = 64;
+
     private final Map<String, String> patternBank;
     private final boolean namedCaptures;
-    private final Regex compiledExpression;
     private final MatcherWatchdog matcherWatchdog;
-    private final List<GrokCaptureConfig> captureConfig;
+    private final Consumer<String> logCallBack;
+    private final List<String> alternatives;
+    private final CompiledRegex compiledExpression;
+    private final GrokPrefilter prefilter;
+    private final boolean compileSubsets;
+    private final Map<Long, CompiledRegex> subsets = new ConcurrentHashMap<>();
 
     public Grok(Map<String, String> patternBank, String grokPattern, Consumer<String> logCallBack) {
         this(patternBank, grokPattern, true, MatcherWatchdog.noop(), logCallBack);
@@ -80,15 +90,34 @@ public final class Grok {
         this(patternBank, grokPattern, true, matcherWatchdog, logCallBack);
     }
 
+    /**
+     * Builds a grok that matches any of the given grok expressions, like their alternation would. Expressions that require some literal
+     * text are skipped without running any regex when the text does not contain it, which makes texts that only a few of the expressions
+     * (or none of them) can match much cheaper to match.
+     */
+    public Grok(Map<String, String> patternBank, List<String> grokPatterns, MatcherWatchdog matcherWatchdog,
+                Consumer<String> logCallBack) {
+        this(patternBank, grokPatterns, true, matcherWatchdog, logCallBack);
+    }
+
     Grok(Map<String, String> patternBank, String grokPattern, boolean namedCaptures, Consumer<String> logCallBack) {
         this(patternBank, grokPattern, namedCaptures, MatcherWatchdog.noop(), logCallBack);
     }
 
     private Grok(Map<String, String> patternBank, String grokPattern, boolean namedCaptures, MatcherWatchdog matcherWatchdog,
                  Consumer<String> logCallBack) {
+        this(patternBank, List.of(grokPattern), namedCaptures, matcherWatchdog, logCallBack);
+    }
+
+    private Grok(Map<String, String> patternBank, List<String> grokPatterns, boolean namedCaptures, MatcherWatchdog matcherWatchdog,
+                 Consumer<String> logCallBack) {
+        if (grokPatterns.isEmpty()) {
+            throw new IllegalArgumentException("at least one grok pattern is required");
+        }
         this.patternBank = patternBank;
         this.namedCaptures = namedCaptures;
         this.matcherWatchdog = matcherWatchdog;
+        this.logCallBack = logCallBack;
 
         for (Map.Entry<String, String> entry : patternBank.entrySet()) {
             String name = entry.getKey();
@@ -96,16 +125,83 @@ public final class Grok {
             forbidCircularReferences(name, new ArrayList<>(), pattern);
         }
 
-        String expression = toRegex(grokPattern);
+        List<String> alternatives = new ArrayList<>(grokPatterns.size());
+        for (String grokPattern : grokPatterns) {
+            alternatives.add(toRegex(grokPattern));
+        }
+        this.alternatives = List.copyOf(alternatives);
+        this.compiledExpression = compile(this.alternatives);
+        this.prefilter = GrokPrefilter.build(this.alternatives);
+        // numbered references and subexpression calls may point to groups of other alternatives
+        this.compileSubsets = alternatives.size() > 1 && alternatives.stream().noneMatch(Grok::hasReferences);
+    }
+
+    private static boolean hasReferences(String regex) {
+        for (int i = regex.indexOf('\\'); i >= 0 && i + 1 < regex.length(); i = regex.indexOf('\\', i + 2)) {
+            char c = regex.charAt(i + 1);
+            if (Character.isDigit(c) || c == 'k' || c == 'g') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CompiledRegex compile(List<String> alternatives) {
+        String expression;
+        if (alternatives.size() == 1) {
+            expression = alternatives.get(0);
+        } else {
+            StringBuilder builder = new StringBuilder();
+            for (String alternative : alternatives) {
+                if (builder.length() > 0) {
+                    builder.append('|');
+                }
+                builder.append("(?:").append(alternative).append(')');
+            }
+            expression = builder.toString();
+        }
         byte[] expressionBytes = expression.getBytes(StandardCharsets.UTF_8);
-        this.compiledExpression = new Regex(expressionBytes, 0, expressionBytes.length, Option.DEFAULT, UTF8Encoding.INSTANCE,
+        Regex regex = new Regex(expressionBytes, 0, expressionBytes.length, Option.DEFAULT, UTF8Encoding.INSTANCE,
             message -> logCallBack.accept(message));
 
         List<GrokCaptureConfig> captureConfig = new ArrayList<>();
-        for (Iterator<NameEntry> entry = compiledExpression.namedBackrefIterator(); entry.hasNext();) {
+        for (Iterator<NameEntry> entry = regex.namedBackrefIterator(); entry.hasNext();) {
             captureConfig.add(new GrokCaptureConfig(entry.next()));
         }
-        this.captureConfig = List.copyOf(captureConfig);
+        return new CompiledRegex(regex, List.copyOf(captureConfig));
+    }
+
+    /**
+     * Returns the regex to match the text with, or {@code null} if none of the alternatives can match it. If only some of the
+     * alternatives can match the text, a regex of these alternatives is compiled and cached when {@code allowSubset} is true.
+     */
+    private CompiledRegex select(byte[] utf8Bytes, int offset, int length, boolean allowSubset) {
+        if (prefilter == null) {
+            return compiledExpression;
+        }
+        long candidates = prefilter.candidates(utf8Bytes, offset, length);
+        if (candidates == 0L) {
+            return null;
+        }
+        if (candidates == prefilter.all() || allowSubset == false || compileSubsets == false) {
+            return compiledExpression;
+        }
+        CompiledRegex subset = subsets.get(candidates);
+        if (subset == null) {
+            if (subsets.size() >= MAX_CACHED_SUBSETS) {
+                return compiledExpression;
+            }
+            subset = subsets.computeIfAbsent(candidates, key -> {
+                List<String> selected = new ArrayList<>(Long.bitCount(key));
+                for (int i = 0; i < alternatives.size(); i++) {
+                    if ((key & (1L << i)) != 0) {
+                        selected.add(alternatives.get(i));
+                    }
+                }
+                return compile(selected);
+            });
+        }
+        return subset;
     }
 
     /**
@@ -222,7 +318,12 @@ public final class Grok {
      * @return true if grok expression matches text or there is a timeout, false otherwise.
      */
     public boolean match(String text) {
-        Matcher matcher = compiledExpression.matcher(text.getBytes(StandardCharsets.UTF_8));
+        byte[] utf8Bytes = text.getBytes(StandardCharsets.UTF_8);
+        CompiledRegex subset = select(utf8Bytes, 0, utf8Bytes.length, false);
+        if (subset == null) {
+            return false;
+        }
+        Matcher matcher = subset.regex.matcher(utf8Bytes);
         int result;
         try {
             matcherWatchdog.register(matcher);
@@ -241,8 +342,12 @@ public final class Grok {
      */
     public Map<String, Object> captures(String text) {
         byte[] utf8Bytes = text.getBytes(StandardCharsets.UTF_8);
-        GrokCaptureExtracter.MapExtracter extracter = new GrokCaptureExtracter.MapExtracter(captureConfig);
-        if (match(utf8Bytes, 0, utf8Bytes.length, extracter)) {
+        CompiledRegex subset = select(utf8Bytes, 0, utf8Bytes.length, true);
+        if (subset == null) {
+            return null;
+        }
+        GrokCaptureExtracter.MapExtracter extracter = new GrokCaptureExtracter.MapExtracter(subset.captureConfig);
+        if (match(subset.regex, utf8Bytes, 0, utf8Bytes.length, extracter)) {
             return extracter.result();
         }
         return null;
@@ -258,7 +363,16 @@ public final class Grok {
      * @throws RuntimeException if there was a timeout
      */
     public boolean match(byte[] utf8Bytes, int offset, int length, GrokCaptureExtracter extracter) {
-        Matcher matcher = compiledExpression.matcher(utf8Bytes, offset, offset + length);
+        // the extracter is bound to the captures of the whole expression, so it is either matched in full or not at all
+        CompiledRegex subset = select(utf8Bytes, offset, length, false);
+        if (subset == null) {
+            return false;
+        }
+        return match(subset.regex, utf8Bytes, offset, length, extracter);
+    }
+
+    private boolean match(Regex regex, byte[] utf8Bytes, int offset, int length, GrokCaptureExtracter extracter) {
+        Matcher matcher = regex.matcher(utf8Bytes, offset, offset + length);
         int result;
         try {
             matcherWatchdog.register(matcher);
@@ -281,7 +395,20 @@ public final class Grok {
      * The list of values that this {@linkplain Grok} can capture.
      */
     public List<GrokCaptureConfig> captureConfig() {
-        return captureConfig;
+        return compiledExpression.captureConfig;
+    }
+
+    /**
+     * A compiled regex with the values it captures.
+     */
+    private static final class CompiledRegex {
+        private final Regex regex;
+        private final List<GrokCaptureConfig> captureConfig;
+
+        private CompiledRegex(Regex regex, List<GrokCaptureConfig> captureConfig) {
+            this.regex = regex;
+            this.captureConfig = captureConfig;
+        }
     }
 
     /**
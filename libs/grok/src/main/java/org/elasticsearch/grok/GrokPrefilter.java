@@ -0,0 +1,363 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.grok;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Discards the alternatives of a grok expression that cannot match a text before running any regex. Each alternative is reduced to a
+ * literal that every match of the alternative contains, if any, and an alternative is only a candidate for a text that contains this
+ * literal. The literals of all alternatives are looked up in a single pass over the text. The extraction is conservative: anything that
+ * is not plainly a literal that must be matched is ignored.
+ */
+final class GrokPrefilter {
+
+    /**
+     * The maximum number of alternatives, so that candidates fit in the bits of a {@code long}.
+     */
+    static final int MAX_ALTERNATIVES = Long.SIZE;
+
+    private final byte[][] literals;
+    private final long all;
+    // alternatives without literal, which are always candidates
+    private final long unfiltered;
+    // alternatives by the first byte of their literal, for literals that must start a line and those that do not
+    private final long[] anchoredByFirstByte = new long[256];
+    private final long[] unanchoredByFirstByte = new long[256];
+
+    private GrokPrefilter(byte[][] literals, boolean[] anchored) {
+        this.literals = literals;
+        this.all = literals.length == Long.SIZE ? -1L : (1L << literals.length) - 1;
+        long unfiltered = 0L;
+        for (int i = 0; i < literals.length; i++) {
+            if (literals[i].length == 0) {
+                unfiltered |= 1L << i;
+            } else if (anchored[i]) {
+                anchoredByFirstByte[literals[i][0] & 0xFF] |= 1L << i;
+            } else {
+                unanchoredByFirstByte[literals[i][0] & 0xFF] |= 1L << i;
+            }
+        }
+        this.unfiltered = unfiltered;
+    }
+
+    /**
+     * Builds a prefilter for the given regular expressions, or returns {@code null} if none of them requires a literal and the
+     * prefilter would never discard anything.
+     */
+    static GrokPrefilter build(List<String> regexes) {
+        if (regexes.size() > MAX_ALTERNATIVES) {
+            return null;
+        }
+        byte[][] literals = new byte[regexes.size()][];
+        boolean[] anchored = new boolean[regexes.size()];
+        boolean useful = false;
+        for (int i = 0; i < regexes.size(); i++) {
+            RequiredLiteral literal = requiredLiteral(regexes.get(i));
+            anchored[i] = literal.anchored;
+            literals[i] = literal.literal.getBytes(StandardCharsets.UTF_8);
+            useful |= literals[i].length > 0;
+        }
+        return useful ? new GrokPrefilter(literals, anchored) : null;
+    }
+
+    /**
+     * @return a mask of the alternatives that may match the text, the bit {@code i} being set if the {@code i}-th alternative may match
+     */
+    long candidates(byte[] utf8Bytes, int offset, int length) {
+        long candidates = unfiltered;
+        int end = offset + length;
+        for (int i = offset; i < end && candidates != all; i++) {
+            int b = utf8Bytes[i] & 0xFF;
+            long mask = unanchoredByFirstByte[b];
+            if (i == offset || utf8Bytes[i - 1] == '\n') {
+                // in the default syntax, ^ matches at the start of every line
+                mask |= anchoredByFirstByte[b];
+            }
+            mask &= ~candidates;
+            while (mask != 0L) {
+                int alternative = Long.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                if (regionMatches(utf8Bytes, i, end, literals[alternative])) {
+                    candidates |= 1L << alternative;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return the mask of all alternatives
+     */
+    long all() {
+        return all;
+    }
+
+    /**
+     * Returns the longest literal that every match of the regular expression contains. The literal is anchored if it is the start of
+     * the regular expression, right after a {@code ^}.
+     */
+    static RequiredLiteral requiredLiteral(String regex) {
+        List<RequiredLiteral> literals = new ArrayList<>();
+        if (endOfGroup(regex, 0) != regex.length() || collect(regex, 0, regex.length(), true, literals) == false) {
+            return RequiredLiteral.NONE;
+        }
+        RequiredLiteral longest = RequiredLiteral.NONE;
+        for (RequiredLiteral literal : literals) {
+            if (literal.literal.length() > longest.literal.length()) {
+                longest = literal;
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Collects the runs of literal characters of a sequence of the regular expression, including those of the groups that must match.
+     *
+     * @return false if the regular expression uses constructs that change how literals match, like inline options
+     */
+    private static boolean collect(String regex, int from, int to, boolean atStart, List<RequiredLiteral> literals) {
+        if (hasAlternation(regex, from, to)) {
+            return true;
+        }
+        StringBuilder run = new StringBuilder();
+        boolean anchored = false;
+        int i = from;
+        while (i < to) {
+            char c = regex.charAt(i);
+            if (c == '^' && atStart && run.length() == 0 && anchored == false) {
+                // only groups were opened so far, so the anchor applies to the start of the run
+                anchored = true;
+                i++;
+                continue;
+            }
+            int codePoint;
+            int next;
+            if (c == '(') {
+                if (regex.startsWith("(?", i) && i + 2 < to && "imx-".indexOf(regex.charAt(i + 2)) >= 0) {
+                    return false;
+                }
+                int contentStart = groupContentStart(regex, i);
+                int end = endOfGroup(regex, i + 1);
+                if (end >= to) {
+                    return false;
+                }
+                // the content of groups that must match is required as well
+                if (contentStart >= 0 && isOptional(regex, end + 1) == false
+                    && collect(regex, contentStart, end, atStart && run.length() == 0, literals) == false) {
+                    return false;
+                }
+                next = end + 1;
+            } else if (c == '\\') {
+                if (i + 1 == to) {
+                    return false;
+                }
+                codePoint = regex.codePointAt(i + 1);
+                if (Character.isLetterOrDigit(codePoint) == false && Character.isWhitespace(codePoint) == false) {
+                    next = i + 1 + Character.charCount(codePoint);
+                    i = append(regex, codePoint, next, run, anchored, literals);
+                    anchored &= run.length() > 0;
+                    atStart = false;
+                    continue;
+                }
+                // character types, anchors, back references and escapes with arguments, whose arguments are skipped too
+                next = i + 2;
+                if (Character.isDigit(codePoint) || "xuopPkgcCM".indexOf(codePoint) >= 0) {
+                    while (next < to && (Character.isLetterOrDigit(regex.charAt(next)) || "{}<>'_-".indexOf(regex.charAt(next)) >= 0)) {
+                        next++;
+                    }
+                }
+            } else if (c == '{') {
+                // interval quantifiers do not contain literals
+                int close = regex.indexOf('}', i);
+                if (close < 0 || close >= to) {
+                    return false;
+                }
+                next = close + 1;
+            } else if (".[]})*+?|^$".indexOf(c) >= 0) {
+                next = nextToken(regex, i);
+            } else {
+                codePoint = regex.codePointAt(i);
+                next = i + Character.charCount(codePoint);
+                i = append(regex, codePoint, next, run, anchored, literals);
+                anchored &= run.length() > 0;
+                atStart = false;
+                continue;
+            }
+            // anything else than a literal ends the run
+            flush(run, anchored, literals);
+            anchored = false;
+            atStart = false;
+            i = next;
+        }
+        flush(run, anchored, literals);
+        return true;
+    }
+
+    /**
+     * Appends a literal character to the run, unless it is optional in which case it ends the run.
+     *
+     * @return the position after the character
+     */
+    private static int append(String regex, int codePoint, int next, StringBuilder run, boolean anchored, List<RequiredLiteral> literals) {
+        if (isOptional(regex, next)) {
+            flush(run, anchored, literals);
+        } else {
+            run.appendCodePoint(codePoint);
+        }
+        return next;
+    }
+
+    private static void flush(StringBuilder run, boolean anchored, List<RequiredLiteral> literals) {
+        if (run.length() > 0) {
+            literals.add(new RequiredLiteral(run.toString(), anchored));
+            run.setLength(0);
+        }
+    }
+
+    /**
+     * Returns the start of the content of the group that opens at the given position, or {@code -1} if it is not a plain, non-capturing
+     * or named group.
+     */
+    private static int groupContentStart(String regex, int open) {
+        if (open + 1 < regex.length() && regex.charAt(open + 1) != '?') {
+            return open + 1;
+        }
+        if (regex.startsWith("(?:", open)) {
+            return open + 3;
+        }
+        if (regex.startsWith("(?<", open) && open + 3 < regex.length() && "=!".indexOf(regex.charAt(open + 3)) < 0) {
+            int end = regex.indexOf('>', open + 3);
+            return end < 0 ? -1 : end + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the token that ends right before the given position may be repeated zero times.
+     */
+    private static boolean isOptional(String regex, int position) {
+        if (position >= regex.length()) {
+            return false;
+        }
+        char c = regex.charAt(position);
+        return c == '?' || c == '*' || regex.startsWith("{0", position) || regex.startsWith("{,", position);
+    }
+
+    /**
+     * Returns the position of the parenthesis that closes the group containing the given position, or the length of the regex if there
+     * is none.
+     */
+    private static int endOfGroup(String regex, int from) {
+        int depth = 0;
+        for (int i = from; i < regex.length(); i = nextToken(regex, i)) {
+            char c = regex.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return regex.length();
+    }
+
+    private static boolean hasAlternation(String regex, int from, int to) {
+        int depth = 0;
+        for (int i = from; i < to; i = nextToken(regex, i)) {
+            char c = regex.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Skips an escape sequence or a (possibly nested) character class as a whole, and any other character on its own.
+     */
+    private static int nextToken(String regex, int i) {
+        char c = regex.charAt(i);
+        if (c == '\\') {
+            return Math.min(i + 2, regex.length());
+        }
+        if (c == '[') {
+            int depth = 0;
+            int j = i;
+            while (j < regex.length()) {
+                char d = regex.charAt(j);
+                if (d == '\\') {
+                    j += 2;
+                    continue;
+                }
+                if (d == '[') {
+                    depth++;
+                    // a closing bracket right after the opening one (or its negation) is a literal
+                    if (regex.startsWith("^]", j + 1)) {
+                        j += 2;
+                    } else if (regex.startsWith("]", j + 1)) {
+                        j += 1;
+                    }
+                } else if (d == ']' && --depth == 0) {
+                    return j + 1;
+                }
+                j++;
+            }
+            return regex.length();
+        }
+        return i + 1;
+    }
+
+    private static boolean regionMatches(byte[] utf8Bytes, int from, int end, byte[] literal) {
+        if (end - from < literal.length) {
+            return false;
+        }
+        // the first byte is known to match
+        for (int j = 1; j < literal.length; j++) {
+            if (utf8Bytes[from + j] != literal[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A literal that every match of a regular expression contains.
+     */
+    static final class RequiredLiteral {
+        static final RequiredLiteral NONE = new RequiredLiteral("", false);
+
+        final String literal;
+        final boolean anchored;
+
+        RequiredLiteral(String literal, boolean anchored) {
+            this.literal = literal;
+            this.anchored = anchored;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.grok;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class GrokPrefilterTests extends ESTestCase {
+
+    public void testRequiredLiteral() {
+        assertLiteral("foo", "foo", false);
+        assertLiteral("^foo", "foo", true);
+        assertLiteral("foo\\d+", "foo", false);
+        assertLiteral("CEF:\\d\\|", "CEF:", false);
+        assertLiteral("\\[foo\\]", "[foo]", false);
+        assertLiteral("foo.bar", "foo", false);
+        assertLiteral("fo.barbaz", "barbaz", false);
+        assertLiteral("^fo.barbaz", "barbaz", false);
+        assertLiteral("fooo?", "foo", false);
+        assertLiteral("fooo*", "foo", false);
+        assertLiteral("fooo{0,2}", "foo", false);
+        assertLiteral("fooo{,2}", "foo", false);
+        assertLiteral("fooo{2}", "fooo", false);
+        assertLiteral("fooo+", "fooo", false);
+        assertLiteral("foo[a-z]", "foo", false);
+        assertLiteral(".foo", "foo", false);
+        assertLiteral("\\bfoo", "foo", false);
+        assertLiteral("a\\s+bcd", "bcd", false);
+        assertLiteral("éa?", "é", false);
+        assertLiteral("😀😀?", "😀", false);
+    }
+
+    public void testRequiredLiteralOfGroups() {
+        assertLiteral("(?<name>foo)bar", "foo", false);
+        assertLiteral("(?<name>fo)bar", "bar", false);
+        assertLiteral("(?:fo(?<bar>bar\\d))", "bar", false);
+        assertLiteral("(?<_ingest._grok_match_index.0>^foo)", "foo", true);
+        assertLiteral("(foo)", "foo", false);
+        assertLiteral("(?:foo)?bar", "bar", false);
+        assertLiteral("(?:foo)*bar", "bar", false);
+        assertLiteral("(?:foo){0,1}bar", "bar", false);
+        assertLiteral("(?:foo)+bar", "foo", false);
+        assertLiteral("(?:foo|barbaz)x", "x", false);
+        assertLiteral("(?:[|]foo)", "foo", false);
+        assertLiteral("(?:foo[|(]bar)", "foo", false);
+        assertLiteral("(?<=abcd)foo", "foo", false);
+        assertLiteral("(?<!abcd)foo", "foo", false);
+        assertLiteral("(?=abcd)foo", "foo", false);
+        assertLiteral("(?<ts>\\w+ \\d+) (?<host>\\S+) sshd\\[(?<pid>\\d+)\\]:", " sshd[", false);
+    }
+
+    public void testNoRequiredLiteral() {
+        assertLiteral("", "", false);
+        assertLiteral("foo|bar", "", false);
+        assertLiteral("^foo|bar", "", false);
+        assertLiteral("a(?:b)|c", "", false);
+        assertLiteral("(?:foo|bar)", "", false);
+        assertLiteral("\\d", "", false);
+        assertLiteral("foo)", "", false);
+        assertLiteral("a?", "", false);
+        assertLiteral("[abc]+", "", false);
+        assertLiteral("\\x41bc", "", false);
+        assertLiteral("\\p{Alpha}", "", false);
+        assertLiteral("\\k<name>", "", false);
+        assertLiteral("(?i)foo", "", false);
+        assertLiteral("(?i:foo)", "", false);
+        assertLiteral("bar(?i)foo", "", false);
+        assertLiteral("(?:(?i)foo)bar", "", false);
+    }
+
+    public void testCandidates() {
+        GrokPrefilter prefilter = GrokPrefilter.build(Arrays.asList("foo\\d", "^bar", "\\w+", "(?:baz)"));
+        assertThat(prefilter, notNullValue());
+        assertThat(prefilter.all(), equalTo(0b1111L));
+        assertThat(candidates(prefilter, "nothing"), equalTo(0b0100L));
+        assertThat(candidates(prefilter, "a foo"), equalTo(0b0101L));
+        assertThat(candidates(prefilter, "bar baz"), equalTo(0b1110L));
+        assertThat(candidates(prefilter, "a bar"), equalTo(0b0100L));
+        assertThat("^ matches at the start of each line", candidates(prefilter, "a\nbar"), equalTo(0b0110L));
+        assertThat(candidates(prefilter, "fo"), equalTo(0b0100L));
+        assertThat(candidates(prefilter, ""), equalTo(0b0100L));
+
+        byte[] utf8 = "foo bar baz".getBytes(StandardCharsets.UTF_8);
+        assertThat(prefilter.candidates(utf8, 0, 3), equalTo(0b0101L));
+        assertThat(prefilter.candidates(utf8, 4, 3), equalTo(0b0110L));
+        assertThat(prefilter.candidates(utf8, 5, 6), equalTo(0b1100L));
+    }
+
+    public void testBuild() {
+        assertThat(GrokPrefilter.build(Arrays.asList("\\d+", "foo|bar")), nullValue());
+        assertThat(GrokPrefilter.build(Collections.nCopies(GrokPrefilter.MAX_ALTERNATIVES + 1, "foo")), nullValue());
+        GrokPrefilter prefilter = GrokPrefilter.build(Collections.nCopies(GrokPrefilter.MAX_ALTERNATIVES, "foo"));
+        assertThat(prefilter, notNullValue());
+        assertThat(prefilter.all(), equalTo(-1L));
+        assertThat(candidates(prefilter, "foo"), equalTo(-1L));
+        assertThat(candidates(prefilter, "bar"), equalTo(0L));
+    }
+
+    private static long candidates(GrokPrefilter prefilter, String text) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        return prefilter.candidates(utf8, 0, utf8.length);
+    }
+
+    private static void assertLiteral(String regex, String literal, boolean anchored) {
+        GrokPrefilter.RequiredLiteral requiredLiteral = GrokPrefilter.requiredLiteral(regex);
+        assertThat(regex, requiredLiteral.literal, equalTo(literal));
+        if (literal.isEmpty() == false) {
+            assertThat(regex, requiredLiteral.anchored, is(anchored));
+        }
+    }
+}
@@ -661,6 +661,71 @@ public class GrokTests extends ESTestCase {
         assertThat(grok.match("Test Class.java"), is(true));
     }
 
+    public void testMultiplePatterns() {
+        List<String> patterns = Arrays.asList(
+            "CEF:%{INT:version}\\|%{DATA:vendor}\\|",
+            "^<%{POSINT:priority}>%{GREEDYDATA:message}",
+            "%{IP:client} - - \\[%{HTTPDATE:timestamp}\\]",
+            "(?<level>ERROR|WARN) %{GREEDYDATA:message}",
+            "^\\[%{WORD:level}\\] %{GREEDYDATA:message}",
+            "LEEF:%{NUMBER:version}"
+        );
+        Grok grok = new Grok(Grok.BUILTIN_PATTERNS, patterns, MatcherWatchdog.noop(), logger::warn);
+        StringBuilder combined = new StringBuilder();
+        for (String pattern : patterns) {
+            combined.append(combined.length() == 0 ? "" : "|").append("(?:").append(pattern).append(')');
+        }
+        Grok alternation = new Grok(Grok.BUILTIN_PATTERNS, combined.toString(), logger::warn);
+        assertThat(grok.captureConfig().size(), equalTo(alternation.captureConfig().size()));
+
+        List<String> lines = Arrays.asList(
+            "CEF:0|security|threatmanager|1.0|100|worm successfully stopped|10|",
+            "<34>Oct 11 22:14:15 mymachine su: 'su root' failed",
+            "127.0.0.1 - - [10/Oct/2000:13:55:36 -0700] \"GET /apache_pb.gif HTTP/1.0\"",
+            "[info] server started",
+            "prefix\n[info] on a second line",
+            "something WARN disk almost full",
+            "LEEF:2.0|Lancope|StealthWatch|",
+            "<not a priority> CEF: nor an event",
+            "nothing to see here",
+            ""
+        );
+        for (String line : lines) {
+            assertThat(line, grok.captures(line), equalTo(alternation.captures(line)));
+            assertThat(line, grok.match(line), equalTo(alternation.match(line)));
+            byte[] utf8 = line.getBytes(StandardCharsets.UTF_8);
+            assertThat(line, captureBytes(grok, utf8, 0, utf8.length), equalTo(captureBytes(alternation, utf8, 0, utf8.length)));
+        }
+        assertThat(grok.captures("nothing to see here"), nullValue());
+        assertThat(grok.captures("[info] server started"), equalTo(Map.of("level", "info", "message", "server started")));
+        // the leftmost match wins, like with the alternation of the patterns
+        assertThat(grok.captures("[WARN] LEEF:2"), equalTo(Map.of("level", "WARN", "message", "LEEF:2")));
+    }
+
+    public void testMultiplePatternsRandomLines() {
+        List<String> fragments = Arrays.asList("CEF:", "LEEF:", "<", ">", "[", "]", "|", "1", "42", "ERROR", "WARN", " ", "\n", "a", "é");
+        List<String> patterns = Arrays.asList(
+            "CEF:%{INT:version}\\|",
+            "^<%{POSINT:priority}>",
+            "^\\[%{WORD:level}\\]",
+            "LEEF:%{NUMBER:version}",
+            "(?<level>ERROR|WARN) %{WORD:word}",
+            "%{INT:int}é",
+            "%{SYSLOGTIMESTAMP:timestamp} sshd\\[%{POSINT:pid}\\]",
+            "%{SYSLOGTIMESTAMP:timestamp} cron\\[%{POSINT:pid}\\]"
+        );
+        Grok grok = new Grok(Grok.BUILTIN_PATTERNS, patterns, MatcherWatchdog.noop(), logger::warn);
+        Grok alternation = new Grok(Grok.BUILTIN_PATTERNS, "(?:" + String.join(")|(?:", patterns) + ")", logger::warn);
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder line = new StringBuilder();
+            int numFragments = randomIntBetween(0, 8);
+            for (int j = 0; j < numFragments; j++) {
+                line.append(randomFrom(fragments));
+            }
+            assertThat(line.toString(), grok.captures(line.toString()), equalTo(alternation.captures(line.toString())));
+        }
+    }
+
     public void testLogCallBack(){
         AtomicReference<String> message = new AtomicReference<>();
         Grok grok = new Grok(Grok.BUILTIN_PATTERNS, ".*\\[.*%{SPACE}*\\].*", message::set);
@@ -28,6 +28,7 @@ import org.elasticsearch.ingest.ConfigurationUtils;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.Processor;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -51,12 +52,12 @@ public final class GrokProcessor extends AbstractProcessor {
         super(tag, description);
         this.matchField = matchField;
         this.matchPatterns = matchPatterns;
-        this.grok = new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), matcherWatchdog, logger::debug);
+        this.grok = new Grok(patternBank, patternAlternatives(matchPatterns, traceMatch), matcherWatchdog, logger::debug);
         this.traceMatch = traceMatch;
         this.ignoreMissing = ignoreMissing;
         // Joni warnings are only emitted on an attempt to match, and the warning emitted for every call to match which is too verbose
         // so here we emit a warning (if there is one) to the logfile at warn level on construction / processor creation.
-        new Grok(patternBank, combinePatterns(matchPatterns, traceMatch), matcherWatchdog, logger::warn).match("___nomatch___");
+        new Grok(patternBank, patternAlternatives(matchPatterns, traceMatch), matcherWatchdog, logger::warn).match("___nomatch___");
     }
 
     @Override
@@ -111,29 +112,19 @@ public final class GrokProcessor extends AbstractProcessor {
         return matchPatterns;
     }
 
-    static String combinePatterns(List<String> patterns, boolean traceMatch) {
-        String combinedPattern;
-        if (patterns.size() > 1) {
-            combinedPattern = "";
-            for (int i = 0; i < patterns.size(); i++) {
-                String pattern = patterns.get(i);
-                String valueWrap;
-                if (traceMatch) {
-                    valueWrap = "(?<" + PATTERN_MATCH_KEY + "." + i + ">" + pattern + ")";
-                } else {
-                    valueWrap = "(?:" + patterns.get(i) + ")";
-                }
-                if (combinedPattern.equals("")) {
-                    combinedPattern = valueWrap;
-                } else {
-                    combinedPattern = combinedPattern + "|" + valueWrap;
-                }
-            }
-        }  else {
-            combinedPattern = patterns.get(0);
+    /**
+     * Returns the alternatives that {@link Grok} combines into a single expression. When tracing matches, each pattern captures the
+     * index of the pattern that matched.
+     */
+    static List<String> patternAlternatives(List<String> patterns, boolean traceMatch) {
+        if (traceMatch == false || patterns.size() == 1) {
+            return patterns;
         }
-
-        return combinedPattern;
+        List<String> alternatives = new ArrayList<>(patterns.size());
+        for (int i = 0; i < patterns.size(); i++) {
+            alternatives.add("(?<" + PATTERN_MATCH_KEY + "." + i + ">" + patterns.get(i) + ")");
+        }
+        return alternatives;
     }
 
     public static final class Factory implements Processor.Factory {
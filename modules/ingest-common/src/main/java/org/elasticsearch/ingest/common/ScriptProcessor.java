@@ -39,7 +39,9 @@ import org.elasticsearch.script.ScriptType;
 
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import static org.elasticsearch.ingest.ConfigurationUtils.newConfigurationException;
 
@@ -77,16 +79,48 @@ public final class ScriptProcessor extends AbstractProcessor {
      */
     @Override
     public IngestDocument execute(IngestDocument document) {
+        execute(ingestScript(), document);
+        return document;
+    }
+
+    /**
+     * Executes the script with each Ingest document of the batch in context. Stored scripts are only looked up once per batch.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> documents, BiConsumer<IngestDocument[], Exception[]> handler) {
+        final IngestDocument[] results = new IngestDocument[documents.size()];
+        final Exception[] failures = new Exception[documents.size()];
         final IngestScript ingestScript;
+        try {
+            ingestScript = ingestScript();
+        } catch (Exception e) {
+            Arrays.fill(failures, e);
+            handler.accept(results, failures);
+            return;
+        }
+        for (int i = 0; i < documents.size(); i++) {
+            try {
+                execute(ingestScript, documents.get(i));
+                results[i] = documents.get(i);
+            } catch (Exception e) {
+                failures[i] = e;
+            }
+        }
+        handler.accept(results, failures);
+    }
+
+    private IngestScript ingestScript() {
         if (precompiledIngestScript == null) {
             IngestScript.Factory factory = scriptService.compile(script, IngestScript.CONTEXT);
-            ingestScript = factory.newInstance(script.getParams());
+            return factory.newInstance(script.getParams());
         } else {
-            ingestScript = precompiledIngestScript;
+            return precompiledIngestScript;
         }
+    }
+
+    private static void execute(IngestScript ingestScript, IngestDocument document) {
         ingestScript.execute(document.getSourceAndMetadata());
         CollectionUtils.ensureNoSelfReferences(document.getSourceAndMetadata(), "ingest script");
-        return document;
     }
 
     @Override
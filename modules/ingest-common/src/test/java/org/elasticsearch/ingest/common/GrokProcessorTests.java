@@ -19,6 +19,7 @@
 
 package org.elasticsearch.ingest.common;
 
+import org.elasticsearch.grok.Grok;
 import org.elasticsearch.grok.MatcherWatchdog;
 import org.elasticsearch.ingest.IngestDocument;
 import org.elasticsearch.ingest.RandomDocumentPicks;
@@ -162,6 +163,32 @@ public class GrokProcessorTests extends ESTestCase {
         assertThat(doc.hasField("three"), equalTo(false));
     }
 
+    public void testTraceMatchWithLiteralPrefixes() throws Exception {
+        String fieldName = RandomDocumentPicks.randomFieldName(random());
+        GrokProcessor processor = new GrokProcessor(randomAlphaOfLength(10), null, Grok.BUILTIN_PATTERNS,
+            Arrays.asList("^CEF:%{INT:version}", "^<%{POSINT:priority}>%{GREEDYDATA:message}", "%{WORD:word}"), fieldName, true, false,
+            MatcherWatchdog.noop());
+
+        IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        doc.setFieldValue(fieldName, "<34>su failed");
+        processor.execute(doc);
+        assertThat(doc.getFieldValue("priority", String.class), equalTo("34"));
+        assertThat(doc.getFieldValue("message", String.class), equalTo("su failed"));
+        assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("1"));
+
+        doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        doc.setFieldValue(fieldName, "CEF:0");
+        processor.execute(doc);
+        assertThat(doc.getFieldValue("version", String.class), equalTo("0"));
+        assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("0"));
+
+        doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
+        doc.setFieldValue(fieldName, "plain");
+        processor.execute(doc);
+        assertThat(doc.getFieldValue("word", String.class), equalTo("plain"));
+        assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("2"));
+    }
+
     public void testSetMetadata() throws Exception {
         String fieldName = RandomDocumentPicks.randomFieldName(random());
         IngestDocument doc = RandomDocumentPicks.randomIngestDocument(random(), new HashMap<>());
@@ -192,20 +219,14 @@ public class GrokProcessorTests extends ESTestCase {
         assertThat(doc.getFieldValue("_ingest._grok_match_index", String.class), equalTo("0"));
     }
 
-    public void testCombinedPatterns() {
-        String combined;
-        combined = GrokProcessor.combinePatterns(Arrays.asList(""), false);
-        assertThat(combined, equalTo(""));
-        combined = GrokProcessor.combinePatterns(Arrays.asList(""), true);
-        assertThat(combined, equalTo(""));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo"), false);
-        assertThat(combined, equalTo("foo"));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo"), true);
-        assertThat(combined, equalTo("foo"));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo", "bar"), false);
-        assertThat(combined, equalTo("(?:foo)|(?:bar)"));
-        combined = GrokProcessor.combinePatterns(Arrays.asList("foo", "bar"), true);
-        assertThat(combined, equalTo("(?<_ingest._grok_match_index.0>foo)|(?<_ingest._grok_match_index.1>bar)"));
+    public void testPatternAlternatives() {
+        assertThat(GrokProcessor.patternAlternatives(Arrays.asList(""), false), equalTo(Arrays.asList("")));
+        assertThat(GrokProcessor.patternAlternatives(Arrays.asList(""), true), equalTo(Arrays.asList("")));
+        assertThat(GrokProcessor.patternAlternatives(Arrays.asList("foo"), false), equalTo(Arrays.asList("foo")));
+        assertThat(GrokProcessor.patternAlternatives(Arrays.asList("foo"), true), equalTo(Arrays.asList("foo")));
+        assertThat(GrokProcessor.patternAlternatives(Arrays.asList("foo", "bar"), false), equalTo(Arrays.asList("foo", "bar")));
+        assertThat(GrokProcessor.patternAlternatives(Arrays.asList("foo", "bar"), true),
+            equalTo(Arrays.asList("(?<_ingest._grok_match_index.0>foo)", "(?<_ingest._grok_match_index.1>bar)")));
     }
 
     public void testCombineSamePatternNameAcrossPatterns() throws Exception {
@@ -31,11 +31,17 @@ import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 
 public class ScriptProcessorTests extends ESTestCase {
@@ -82,6 +88,36 @@ public class ScriptProcessorTests extends ESTestCase {
         assertIngestDocument(ingestDocument);
     }
 
+    public void testScriptingBatch() {
+        ScriptProcessor processor = new ScriptProcessor(randomAlphaOfLength(10), null, script, randomBoolean() ? null : ingestScript,
+            scriptService);
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        int numDocs = randomIntBetween(1, 10);
+        for (int i = 0; i < numDocs; i++) {
+            ingestDocuments.add(randomDocument());
+        }
+        // a document without the expected fields makes the script fail
+        int failingDoc = randomIntBetween(0, numDocs);
+        if (failingDoc < numDocs) {
+            ingestDocuments.get(failingDoc).removeField("bytes_in");
+        }
+        AtomicBoolean called = new AtomicBoolean();
+        processor.executeBatch(ingestDocuments, (results, failures) -> {
+            assertThat(called.compareAndSet(false, true), is(true));
+            for (int i = 0; i < numDocs; i++) {
+                if (i == failingDoc) {
+                    assertThat(results[i], nullValue());
+                    assertThat(failures[i], instanceOf(NullPointerException.class));
+                } else {
+                    assertThat(failures[i], nullValue());
+                    assertThat(results[i], sameInstance(ingestDocuments.get(i)));
+                    assertIngestDocument(results[i]);
+                }
+            }
+        });
+        assertThat(called.get(), is(true));
+    }
+
     private IngestDocument randomDocument() {
         Map<String, Object> document = new HashMap<>();
         document.put("bytes_in", randomInt());
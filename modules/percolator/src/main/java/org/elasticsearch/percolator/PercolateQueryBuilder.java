@@ -77,6 +77,7 @@ import org.elasticsearch.index.query.QueryShardException;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.lookup.SearchLookup;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -498,10 +499,14 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
 
         PercolatorFieldMapper.PercolatorFieldType pft = (PercolatorFieldMapper.PercolatorFieldType) fieldType;
         String name = this.name != null ? this.name : pft.name();
-        QueryShardContext percolateShardContext = wrap(context);
-        PercolatorFieldMapper.configureContext(percolateShardContext, pft.mapUnmappedFieldsAsText);;
-        PercolateQuery.QueryStore queryStore = createStore(pft.queryBuilderField,
-            percolateShardContext);
+        final PercolateQuery.QueryStore queryStore;
+        if (pft.queryCache != null && pft.queryCache.canCache(context)) {
+            queryStore = createCachingStore(pft.queryBuilderField, context, pft.mapUnmappedFieldsAsText, pft.queryCache);
+        } else {
+            QueryShardContext percolateShardContext = wrap(context);
+            PercolatorFieldMapper.configureContext(percolateShardContext, pft.mapUnmappedFieldsAsText);
+            queryStore = createStore(pft.queryBuilderField, percolateShardContext);
+        }
 
         return pft.percolateQuery(name, queryStore, documents, docSearcher, excludeNestedDocuments, context.indexVersionCreated());
     }
@@ -554,69 +559,143 @@ public class PercolateQueryBuilder extends AbstractQueryBuilder<PercolateQueryBu
                 return docId -> null;
             }
             return docId -> {
-                if (binaryDocValues.advanceExact(docId)) {
-                    BytesRef qbSource = binaryDocValues.binaryValue();
-                    try (InputStream in = new ByteArrayInputStream(qbSource.bytes, qbSource.offset, qbSource.length)) {
-                        try (StreamInput input = new NamedWriteableAwareStreamInput(
-                                new InputStreamStreamInput(in, qbSource.length), registry)) {
-                            input.setVersion(indexVersion);
-                            // Query builder's content is stored via BinaryFieldMapper, which has a custom encoding
-                            // to encode multiple binary values into a single binary doc values field.
-                            // This is the reason we need to first need to read the number of values and
-                            // then the length of the field value in bytes.
-                            int numValues = input.readVInt();
-                            assert numValues == 1;
-                            int valueLength = input.readVInt();
-                            assert valueLength > 0;
-                            QueryBuilder queryBuilder = input.readNamedWriteable(QueryBuilder.class);
-                            assert in.read() == -1;
-                            queryBuilder = Rewriteable.rewrite(queryBuilder, context);
-                            return queryBuilder.toQuery(context);
-                        }
-                    }
-                } else {
+                QueryBuilder queryBuilder = readQueryBuilder(binaryDocValues, docId, registry, indexVersion);
+                return queryBuilder != null ? toQuery(queryBuilder, context) : null;
+            };
+        };
+    }
+
+    /**
+     * Creates a store that looks up the queries in the given cache before decoding and parsing them. Each query is parsed with its
+     * own context, so that it only gets cached if parsing it did not depend on the request.
+     */
+    static PercolateQuery.QueryStore createCachingStore(MappedFieldType queryBuilderFieldType, QueryShardContext shardContext,
+                                                        boolean mapUnmappedFieldsAsText, PercolatorQueryCache queryCache) {
+        Version indexVersion = shardContext.indexVersionCreated();
+        NamedWriteableRegistry registry = shardContext.getWriteableRegistry();
+        return ctx -> {
+            LeafReader leafReader = ctx.reader();
+            BinaryDocValues binaryDocValues = leafReader.getBinaryDocValues(queryBuilderFieldType.name());
+            if (binaryDocValues == null) {
+                return docId -> null;
+            }
+            PercolatorQueryCache.SegmentKey segmentKey =
+                queryCache.segmentKey(leafReader.getCoreCacheHelper(), queryBuilderFieldType.name(), shardContext);
+            return docId -> {
+                Query query = segmentKey != null ? queryCache.get(segmentKey, docId) : null;
+                if (query != null) {
+                    return query;
+                }
+                QueryBuilder queryBuilder = readQueryBuilder(binaryDocValues, docId, registry, indexVersion);
+                if (queryBuilder == null) {
                     return null;
                 }
+                PercolatorShardContext context = wrap(shardContext);
+                PercolatorFieldMapper.configureContext(context, mapUnmappedFieldsAsText);
+                query = toQuery(queryBuilder, context);
+                if (segmentKey != null && context.isCacheable() && context.usesLookups() == false) {
+                    queryCache.put(segmentKey, docId, query);
+                }
+                return query;
             };
         };
     }
 
-    static QueryShardContext wrap(QueryShardContext shardContext) {
-        return new QueryShardContext(shardContext) {
-
-            @Override
-            public IndexReader getIndexReader() {
-                // The reader that matters in this context is not the reader of the shard but
-                // the reader of the MemoryIndex. We just use `null` for simplicity.
-                return null;
+    private static QueryBuilder readQueryBuilder(BinaryDocValues binaryDocValues, int docId, NamedWriteableRegistry registry,
+                                                 Version indexVersion) throws IOException {
+        if (binaryDocValues.advanceExact(docId) == false) {
+            return null;
+        }
+        BytesRef qbSource = binaryDocValues.binaryValue();
+        try (InputStream in = new ByteArrayInputStream(qbSource.bytes, qbSource.offset, qbSource.length)) {
+            try (StreamInput input = new NamedWriteableAwareStreamInput(
+                    new InputStreamStreamInput(in, qbSource.length), registry)) {
+                input.setVersion(indexVersion);
+                // Query builder's content is stored via BinaryFieldMapper, which has a custom encoding
+                // to encode multiple binary values into a single binary doc values field.
+                // This is the reason we need to first need to read the number of values and
+                // then the length of the field value in bytes.
+                int numValues = input.readVInt();
+                assert numValues == 1;
+                int valueLength = input.readVInt();
+                assert valueLength > 0;
+                QueryBuilder queryBuilder = input.readNamedWriteable(QueryBuilder.class);
+                assert in.read() == -1;
+                return queryBuilder;
             }
+        }
+    }
 
-            @Override
-            public BitSetProducer bitsetFilter(Query query) {
-                return context -> {
-                    final IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(context);
-                    final IndexSearcher searcher = new IndexSearcher(topLevelContext);
-                    searcher.setQueryCache(null);
-                    final Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
-                    final Scorer s = weight.scorer(context);
-
-                    if (s != null) {
-                        return new BitDocIdSet(BitSet.of(s.iterator(), context.reader().maxDoc())).bits();
-                    } else {
-                        return null;
-                    }
-                };
-            }
+    private static Query toQuery(QueryBuilder queryBuilder, QueryShardContext context) throws IOException {
+        queryBuilder = Rewriteable.rewrite(queryBuilder, context);
+        return queryBuilder.toQuery(context);
+    }
 
-            @Override
-            @SuppressWarnings("unchecked")
-            public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
-                IndexFieldData.Builder builder = fieldType.fielddataBuilder(shardContext.getFullyQualifiedIndex().getName(),
-                    shardContext::lookup);
-                IndexFieldDataCache cache = new IndexFieldDataCache.None();
-                CircuitBreakerService circuitBreaker = new NoneCircuitBreakerService();
-                return (IFD) builder.build(cache, circuitBreaker);
-            }
-        };
+    static PercolatorShardContext wrap(QueryShardContext shardContext) {
+        return new PercolatorShardContext(shardContext);
+    }
+
+    /**
+     * The context that the queries of percolator fields are parsed with, which keeps track of whether the parsed query depends on
+     * the lookups of the request.
+     */
+    static final class PercolatorShardContext extends QueryShardContext {
+
+        private final QueryShardContext shardContext;
+        private boolean usesLookups;
+
+        private PercolatorShardContext(QueryShardContext shardContext) {
+            super(shardContext);
+            this.shardContext = shardContext;
+        }
+
+        @Override
+        public IndexReader getIndexReader() {
+            // The reader that matters in this context is not the reader of the shard but
+            // the reader of the MemoryIndex. We just use `null` for simplicity.
+            return null;
+        }
+
+        @Override
+        public BitSetProducer bitsetFilter(Query query) {
+            return context -> {
+                final IndexReaderContext topLevelContext = ReaderUtil.getTopLevelContext(context);
+                final IndexSearcher searcher = new IndexSearcher(topLevelContext);
+                searcher.setQueryCache(null);
+                final Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+                final Scorer s = weight.scorer(context);
+
+                if (s != null) {
+                    return new BitDocIdSet(BitSet.of(s.iterator(), context.reader().maxDoc())).bits();
+                } else {
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
+            usesLookups = true;
+            IndexFieldData.Builder builder = fieldType.fielddataBuilder(shardContext.getFullyQualifiedIndex().getName(),
+                shardContext::lookup);
+            IndexFieldDataCache cache = new IndexFieldDataCache.None();
+            CircuitBreakerService circuitBreaker = new NoneCircuitBreakerService();
+            return (IFD) builder.build(cache, circuitBreaker);
+        }
+
+        @Override
+        public SearchLookup lookup() {
+            usesLookups = true;
+            return super.lookup();
+        }
+
+        /**
+         * Returns whether a query that was parsed with this context uses field data or the search lookup, which are bound to the
+         * request.
+         */
+        boolean usesLookups() {
+            return usesLookups;
+        }
     }
 }
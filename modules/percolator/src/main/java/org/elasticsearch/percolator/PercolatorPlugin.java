@@ -19,8 +19,12 @@
 
 package org.elasticsearch.percolator;
 
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.indices.breaker.BreakerSettings;
+import org.elasticsearch.plugins.CircuitBreakerPlugin;
 import org.elasticsearch.plugins.MapperPlugin;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.plugins.SearchPlugin;
@@ -33,7 +37,14 @@ import java.util.Map;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 
-public class PercolatorPlugin extends Plugin implements MapperPlugin, SearchPlugin {
+public class PercolatorPlugin extends Plugin implements MapperPlugin, SearchPlugin, CircuitBreakerPlugin {
+
+    private final PercolatorQueryCache queryCache;
+
+    public PercolatorPlugin(Settings settings) {
+        this.queryCache = new PercolatorQueryCache(settings);
+    }
+
     @Override
     public List<QuerySpec<?>> getQueries() {
         return singletonList(new QuerySpec<>(PercolateQueryBuilder.NAME, PercolateQueryBuilder::new, PercolateQueryBuilder::fromXContent));
@@ -49,12 +60,38 @@ public class PercolatorPlugin extends Plugin implements MapperPlugin, SearchPlug
 
     @Override
     public List<Setting<?>> getSettings() {
-        return Arrays.asList(PercolatorFieldMapper.INDEX_MAP_UNMAPPED_FIELDS_AS_TEXT_SETTING);
+        return Arrays.asList(PercolatorFieldMapper.INDEX_MAP_UNMAPPED_FIELDS_AS_TEXT_SETTING,
+            PercolatorQueryCache.QUERY_CACHE_SIZE_SETTING);
     }
 
     @Override
     public Map<String, Mapper.TypeParser> getMappers() {
-        return singletonMap(PercolatorFieldMapper.CONTENT_TYPE, new PercolatorFieldMapper.TypeParser());
+        return singletonMap(PercolatorFieldMapper.CONTENT_TYPE, new PercolatorFieldMapper.TypeParser(queryCache));
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settings) {
+        // the cache is bounded by its own size setting, the breaker only accounts for it so that it counts towards the parent breaker
+        return BreakerSettings.updateFromSettings(
+            new BreakerSettings(
+                PercolatorQueryCache.CIRCUIT_BREAKER_NAME,
+                -1L,
+                1.0,
+                CircuitBreaker.Type.MEMORY,
+                CircuitBreaker.Durability.PERMANENT
+            ),
+            settings);
+    }
+
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        assert circuitBreaker.getName().equals(PercolatorQueryCache.CIRCUIT_BREAKER_NAME);
+        queryCache.setCircuitBreaker(circuitBreaker);
+    }
+
+    // pkg-private for testing
+    PercolatorQueryCache getQueryCache() {
+        return queryCache;
     }
 
 }
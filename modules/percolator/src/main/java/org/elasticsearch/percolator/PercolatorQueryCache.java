@@ -0,0 +1,300 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.query.QueryShardContext;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * A node level cache of the Lucene queries of percolator fields, so that the queries of candidate matches do not need to be decoded
+ * and parsed again by every percolate query. Queries are cached by segment and document, and only if parsing them did not depend on
+ * the request, for instance on the current time or on a script. The cache is disabled by default.
+ * <p>
+ * The keys cached for each segment are tracked so that they are all removed as soon as the segment is closed, instead of
+ * occupying the cache until they are evicted.
+ * <p>
+ * The cache is bounded by the estimated heap size of its queries, which is also accounted for by the {@link #CIRCUIT_BREAKER_NAME}
+ * circuit breaker so that it counts towards the parent breaker and shows in the node stats. A query is not cached if accounting for
+ * it would trip the breaker.
+ */
+final class PercolatorQueryCache implements RemovalListener<PercolatorQueryCache.Key, PercolatorQueryCache.CachedQuery> {
+
+    static final String CIRCUIT_BREAKER_NAME = "percolator_query_cache";
+
+    static final Setting<ByteSizeValue> QUERY_CACHE_SIZE_SETTING =
+        Setting.memorySizeSetting("indices.percolator.query_cache.size", ByteSizeValue.ZERO, Property.NodeScope);
+
+    private static final long KEY_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+    private static final long CACHED_QUERY_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(CachedQuery.class);
+    private static final long TERM_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Term.class)
+        + RamUsageEstimator.shallowSizeOfInstance(BytesRef.class) + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+
+    private final Cache<Key, CachedQuery> cache;
+    private final Map<IndexReader.CacheKey, Set<Key>> keysBySegment = ConcurrentCollections.newConcurrentMap();
+    private volatile CircuitBreaker breaker = new NoopCircuitBreaker(CIRCUIT_BREAKER_NAME);
+
+    PercolatorQueryCache(Settings settings) {
+        long sizeInBytes = QUERY_CACHE_SIZE_SETTING.get(settings).getBytes();
+        this.cache = sizeInBytes > 0 ? CacheBuilder.<Key, CachedQuery>builder()
+            .setMaximumWeight(sizeInBytes)
+            .weigher((k, v) -> KEY_RAM_BYTES_USED + v.ramBytesUsed)
+            .removalListener(this)
+            .build() : null;
+    }
+
+    /**
+     * Sets the circuit breaker that the memory used by the cached queries is accounted for on.
+     */
+    void setCircuitBreaker(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    /**
+     * Returns whether the queries parsed with the given context can be cached. Queries are not cached if the request defines
+     * runtime fields, which may shadow the fields that the stored queries were written for.
+     */
+    boolean canCache(QueryShardContext context) {
+        return cache != null && context.hasRuntimeMappings() == false;
+    }
+
+    /**
+     * Returns the key of the cache entries of the given segment, or {@code null} if the segment cannot be cached. Entries also depend
+     * on the versions of the mappings and settings of the index, so that queries are parsed again when any of them changes.
+     */
+    SegmentKey segmentKey(IndexReader.CacheHelper cacheHelper, String field, QueryShardContext context) {
+        if (cacheHelper == null) {
+            return null;
+        }
+        IndexMetadata indexMetadata = context.getIndexSettings().getIndexMetadata();
+        return segmentKey(cacheHelper, field, indexMetadata.getMappingVersion(), indexMetadata.getSettingsVersion());
+    }
+
+    // pkg-private for testing
+    SegmentKey segmentKey(IndexReader.CacheHelper cacheHelper, String field, long mappingVersion, long settingsVersion) {
+        IndexReader.CacheKey readerKey = cacheHelper.getKey();
+        keysBySegment.computeIfAbsent(readerKey, key -> {
+            cacheHelper.addClosedListener(this::onClose);
+            return ConcurrentCollections.newConcurrentSet();
+        });
+        return new SegmentKey(readerKey, field, mappingVersion, settingsVersion);
+    }
+
+    Query get(SegmentKey segmentKey, int docId) {
+        CachedQuery cachedQuery = cache.get(new Key(segmentKey, docId));
+        return cachedQuery == null ? null : cachedQuery.query;
+    }
+
+    void put(SegmentKey segmentKey, int docId, Query query) {
+        Set<Key> segmentKeys = keysBySegment.get(segmentKey.readerKey);
+        if (segmentKeys == null) {
+            // the segment is closed
+            return;
+        }
+        CachedQuery cachedQuery = new CachedQuery(query, CACHED_QUERY_RAM_BYTES_USED + ramBytesUsed(query));
+        long weight = KEY_RAM_BYTES_USED + cachedQuery.ramBytesUsed;
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(weight, "percolator_query");
+        } catch (CircuitBreakingException e) {
+            // the query is parsed again next time rather than cached
+            return;
+        }
+        Key key = new Key(segmentKey, docId);
+        segmentKeys.add(key);
+        cache.put(key, cachedQuery);
+    }
+
+    private void onClose(IndexReader.CacheKey readerKey) {
+        Set<Key> segmentKeys = keysBySegment.remove(readerKey);
+        if (segmentKeys != null) {
+            for (Key key : segmentKeys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, CachedQuery> notification) {
+        breaker.addWithoutBreaking(-(KEY_RAM_BYTES_USED + notification.getValue().ramBytesUsed));
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED) {
+            Set<Key> segmentKeys = keysBySegment.get(notification.getKey().segmentKey.readerKey);
+            if (segmentKeys != null) {
+                segmentKeys.remove(notification.getKey());
+            }
+        }
+    }
+
+    // pkg-private for testing
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    // pkg-private for testing
+    long ramBytesUsed() {
+        return cache == null ? 0L : cache.weight();
+    }
+
+    // pkg-private for testing
+    int segmentCount() {
+        return keysBySegment.size();
+    }
+
+    /**
+     * Estimates the heap used by the given query. Queries that can tell their size are trusted; the others are walked to account for
+     * each of their sub queries and for the bytes of the terms they hold, which is where large queries, like a {@code terms} query
+     * with many terms or a span query over many clauses, use most of their memory.
+     */
+    static long ramBytesUsed(Query query) {
+        if (query instanceof Accountable) {
+            return ((Accountable) query).ramBytesUsed();
+        }
+        RamUsageVisitor visitor = new RamUsageVisitor();
+        query.visit(visitor);
+        return Math.max(visitor.ramBytesUsed, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+    }
+
+    private static final class RamUsageVisitor extends QueryVisitor {
+
+        private long ramBytesUsed;
+
+        @Override
+        public void consumeTerms(Query query, Term... terms) {
+            ramBytesUsed += RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
+            for (Term term : terms) {
+                ramBytesUsed += TERM_RAM_BYTES_USED + term.bytes().length;
+            }
+        }
+
+        @Override
+        public void consumeTermsMatching(Query query, String field, Supplier<ByteRunAutomaton> automaton) {
+            ramBytesUsed += RamUsageEstimator.sizeOf(query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+        }
+
+        @Override
+        public void visitLeaf(Query query) {
+            ramBytesUsed += RamUsageEstimator.sizeOf(query, RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED);
+        }
+
+        @Override
+        public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+            ramBytesUsed += RamUsageEstimator.shallowSizeOf(parent);
+            return this;
+        }
+    }
+
+    static final class CachedQuery {
+
+        private final Query query;
+        private final long ramBytesUsed;
+
+        private CachedQuery(Query query, long ramBytesUsed) {
+            this.query = query;
+            this.ramBytesUsed = ramBytesUsed;
+        }
+    }
+
+    static final class SegmentKey {
+
+        private final IndexReader.CacheKey readerKey;
+        private final String field;
+        private final long mappingVersion;
+        private final long settingsVersion;
+
+        SegmentKey(IndexReader.CacheKey readerKey, String field, long mappingVersion, long settingsVersion) {
+            this.readerKey = readerKey;
+            this.field = field;
+            this.mappingVersion = mappingVersion;
+            this.settingsVersion = settingsVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SegmentKey that = (SegmentKey) o;
+            return readerKey == that.readerKey
+                && field.equals(that.field)
+                && mappingVersion == that.mappingVersion
+                && settingsVersion == that.settingsVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(readerKey, field, mappingVersion, settingsVersion);
+        }
+    }
+
+    static final class Key {
+
+        private final SegmentKey segmentKey;
+        private final int docId;
+
+        private Key(SegmentKey segmentKey, int docId) {
+            this.segmentKey = segmentKey;
+            this.docId = docId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return docId == key.docId && segmentKey.equals(key.segmentKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * segmentKey.hashCode() + docId;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.percolator;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.spans.SpanOrQuery;
+import org.apache.lucene.search.spans.SpanQuery;
+import org.apache.lucene.search.spans.SpanTermQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class PercolatorQueryCacheTests extends ESTestCase {
+
+    public void testRamBytesUsedGrowsWithTheTermsOfTheQuery() {
+        assertThat(PercolatorQueryCache.ramBytesUsed(booleanQuery(1000, 32)),
+            greaterThan(PercolatorQueryCache.ramBytesUsed(booleanQuery(10, 32))));
+        assertThat(PercolatorQueryCache.ramBytesUsed(booleanQuery(10, 1024)),
+            greaterThan(PercolatorQueryCache.ramBytesUsed(booleanQuery(10, 32))));
+        assertThat(PercolatorQueryCache.ramBytesUsed(spanOrQuery(1000)), greaterThan(1000L * 32));
+    }
+
+    public void testCacheIsBoundedByTheSizeOfItsQueries() throws IOException {
+        PercolatorQueryCache cache = new PercolatorQueryCache(Settings.builder()
+            .put(PercolatorQueryCache.QUERY_CACHE_SIZE_SETTING.getKey(), "64kb")
+            .build());
+        try (Directory dir = newDirectory(); DirectoryReader reader = emptyReader(dir)) {
+            PercolatorQueryCache.SegmentKey segmentKey = cache.segmentKey(reader.getReaderCacheHelper(), "query", 1L, 1L);
+            cache.put(segmentKey, 0, booleanQuery(10, 32));
+            assertThat(cache.count(), equalTo(1));
+            assertNotNull(cache.get(segmentKey, 0));
+
+            // a single large query takes as much space as many small ones
+            cache.put(segmentKey, 1, booleanQuery(500, 64));
+            assertThat(cache.ramBytesUsed(), lessThanOrEqualTo(64L * 1024));
+            for (int i = 2; i < 200; i++) {
+                cache.put(segmentKey, i, booleanQuery(10, 32));
+                assertThat(cache.ramBytesUsed(), lessThanOrEqualTo(64L * 1024));
+            }
+            assertThat(cache.count(), greaterThan(0));
+            assertNull(cache.get(segmentKey, 0));
+        }
+    }
+
+    public void testCacheIsAccountedOnTheCircuitBreaker() throws IOException {
+        PercolatorQueryCache cache = new PercolatorQueryCache(Settings.builder()
+            .put(PercolatorQueryCache.QUERY_CACHE_SIZE_SETTING.getKey(), "64kb")
+            .build());
+        long limit = randomLongBetween(8 * 1024, 32 * 1024);
+        AccountingBreaker breaker = new AccountingBreaker(limit);
+        cache.setCircuitBreaker(breaker);
+        try (Directory dir = newDirectory(); DirectoryReader reader = emptyReader(dir)) {
+            PercolatorQueryCache.SegmentKey segmentKey = cache.segmentKey(reader.getReaderCacheHelper(), "query", 1L, 1L);
+            for (int i = 0; i < 200; i++) {
+                cache.put(segmentKey, i, booleanQuery(10, 32));
+                assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+                assertThat(breaker.getUsed(), lessThanOrEqualTo(limit));
+            }
+            assertThat(breaker.tripped, greaterThan(0));
+
+            // replacing an entry releases the memory of the previous one
+            cache.put(segmentKey, 0, booleanQuery(10, 32));
+            assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+        }
+    }
+
+    public void testEntriesAreRemovedWhenTheSegmentIsClosed() throws IOException {
+        PercolatorQueryCache cache = new PercolatorQueryCache(Settings.builder()
+            .put(PercolatorQueryCache.QUERY_CACHE_SIZE_SETTING.getKey(), "1mb")
+            .build());
+        AccountingBreaker breaker = new AccountingBreaker(Long.MAX_VALUE);
+        cache.setCircuitBreaker(breaker);
+        try (Directory dir = newDirectory(); DirectoryReader open = emptyReader(dir)) {
+            DirectoryReader closed = DirectoryReader.open(dir);
+            PercolatorQueryCache.SegmentKey closedKey = cache.segmentKey(closed.getReaderCacheHelper(), "query", 1L, 1L);
+            PercolatorQueryCache.SegmentKey openKey = cache.segmentKey(open.getReaderCacheHelper(), "query", 1L, 1L);
+            int numQueries = randomIntBetween(1, 10);
+            for (int i = 0; i < numQueries; i++) {
+                cache.put(closedKey, i, booleanQuery(10, 32));
+                cache.put(openKey, i, booleanQuery(10, 32));
+            }
+            assertThat(cache.count(), equalTo(2 * numQueries));
+            assertThat(cache.segmentCount(), equalTo(2));
+
+            closed.close();
+            assertThat(cache.count(), equalTo(numQueries));
+            assertThat(cache.segmentCount(), equalTo(1));
+            assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+            assertNull(cache.get(closedKey, 0));
+            assertNotNull(cache.get(openKey, 0));
+
+            // queries of a closed segment are not cached again
+            cache.put(closedKey, 0, booleanQuery(10, 32));
+            assertThat(cache.count(), equalTo(numQueries));
+        }
+        assertThat(cache.count(), equalTo(0));
+        assertThat(cache.segmentCount(), equalTo(0));
+        assertThat(breaker.getUsed(), equalTo(0L));
+    }
+
+    private static DirectoryReader emptyReader(Directory dir) throws IOException {
+        try (IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            writer.commit();
+        }
+        return DirectoryReader.open(dir);
+    }
+
+    private static Query booleanQuery(int numTerms, int termLength) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (int i = 0; i < numTerms; i++) {
+            builder.add(new TermQuery(new Term("field", randomAlphaOfLength(termLength))), BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    private static Query spanOrQuery(int numTerms) {
+        SpanQuery[] clauses = new SpanQuery[numTerms];
+        for (int i = 0; i < numTerms; i++) {
+            clauses[i] = new SpanTermQuery(new Term("field", randomAlphaOfLength(32)));
+        }
+        return new SpanOrQuery(clauses);
+    }
+
+    private static final class AccountingBreaker extends NoopCircuitBreaker {
+
+        private final long limit;
+        private final AtomicLong used = new AtomicLong();
+        private int tripped;
+
+        AccountingBreaker(long limit) {
+            super(PercolatorQueryCache.CIRCUIT_BREAKER_NAME);
+            this.limit = limit;
+        }
+
+        @Override
+        public double addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (used.get() + bytes > limit) {
+                tripped++;
+                throw new CircuitBreakingException("too much memory", bytes, limit, getDurability());
+            }
+            return used.addAndGet(bytes);
+        }
+
+        @Override
+        public long addWithoutBreaking(long bytes) {
+            return used.addAndGet(bytes);
+        }
+
+        @Override
+        public long getUsed() {
+            return used.get();
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.script.MockScriptPlugin;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptType;
@@ -58,6 +59,7 @@ import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
 import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
 import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.wildcardQuery;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchHits;
 import static org.hamcrest.Matchers.equalTo;
@@ -69,6 +71,14 @@ public class PercolatorQuerySearchTests extends ESSingleNodeTestCase {
         return Arrays.asList(PercolatorPlugin.class, CustomScriptPlugin.class);
     }
 
+    @Override
+    protected Settings nodeSettings() {
+        return Settings.builder()
+            .put(super.nodeSettings())
+            .put(PercolatorQueryCache.QUERY_CACHE_SIZE_SETTING.getKey(), "10mb")
+            .build();
+    }
+
     public static class CustomScriptPlugin extends MockScriptPlugin {
         @Override
         protected Map<String, Function<Map<String, Object>, Object>> pluginScripts() {
@@ -280,4 +290,48 @@ public class PercolatorQuerySearchTests extends ESSingleNodeTestCase {
         }
     }
 
+    public void testQueryCache() throws Exception {
+        createIndex("test", Settings.builder().put("index.number_of_shards", 1).build(), "_doc",
+            "field1", "type=keyword", "field2", "type=date", "query", "type=percolator");
+        client().prepareIndex("test").setId("1")
+            .setSource(jsonBuilder().startObject().field("query", wildcardQuery("field1", "v*e")).endObject())
+            .get();
+        client().prepareIndex("test").setId("2")
+            .setSource(jsonBuilder().startObject().field("query", boolQuery()
+                .filter(wildcardQuery("field1", "v*e"))
+                .filter(rangeQuery("field2").from("now-1h").to("now+1h"))
+            ).endObject())
+            .get();
+        Script script = new Script(ScriptType.INLINE, MockScriptPlugin.NAME, "1==1", Collections.emptyMap());
+        client().prepareIndex("test").setId("3")
+            .setSource(jsonBuilder().startObject().field("query", boolQuery()
+                .filter(wildcardQuery("field1", "v*e"))
+                .filter(scriptQuery(script))
+            ).endObject())
+            .get();
+        client().admin().indices().prepareRefresh().get();
+
+        PercolatorQueryCache queryCache = getInstanceFromNode(PluginsService.class).filterPlugins(PercolatorPlugin.class).get(0)
+            .getQueryCache();
+        int cachedQueries = queryCache.count();
+        BytesReference source = BytesReference.bytes(jsonBuilder().startObject()
+            .field("field1", "value")
+            .field("field2", System.currentTimeMillis())
+            .endObject());
+        for (int i = 0; i < 3; i++) {
+            SearchResponse response = client().prepareSearch("test")
+                .setQuery(new PercolateQueryBuilder("query", source, XContentType.JSON))
+                .get();
+            assertHitCount(response, 3);
+            assertSearchHits(response, "1", "2", "3");
+            // queries that depend on the current time or on a script are parsed again by every request
+            assertThat(queryCache.count(), equalTo(cachedQueries + 1));
+        }
+
+        source = BytesReference.bytes(jsonBuilder().startObject().field("field1", "other").endObject());
+        SearchResponse response = client().prepareSearch("test")
+            .setQuery(new PercolateQueryBuilder("query", source, XContentType.JSON))
+            .get();
+        assertHitCount(response, 0);
+    }
 }
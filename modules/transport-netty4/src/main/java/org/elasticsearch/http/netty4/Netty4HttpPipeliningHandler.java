@@ -22,14 +22,22 @@ package org.elasticsearch.http.netty4;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.HttpPipelinedResponse;
 import org.elasticsearch.http.HttpPipeliningAggregator;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
+import org.elasticsearch.transport.netty4.Netty4Utils;
 
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
 import java.util.List;
+import java.util.Queue;
 
 /**
  * Implements HTTP pipelining ordering, ensuring that responses are completely served in the same order as their corresponding requests.
@@ -38,6 +46,18 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
 
     private final Logger logger;
     private final HttpPipeliningAggregator<ChannelPromise> aggregator;
+    private final BigArrays bigArrays;
+
+    /**
+     * The chunked response currently being written, if any. Its chunks are serialized only as the channel becomes writable, so that
+     * no more than about one chunk of a large response is held in memory at any time.
+     */
+    private Tuple<Netty4ChunkedHttpResponse, ChannelPromise> currentChunkedWrite;
+
+    /**
+     * Responses that are ready to be sent but have to wait for {@link #currentChunkedWrite} to complete first.
+     */
+    private final Queue<Tuple<Object, ChannelPromise>> queuedWrites = new ArrayDeque<>();
 
     /**
      * Construct a new pipelining handler; this handler should be used downstream of HTTP decoding/aggregation.
@@ -47,8 +67,21 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
      *                      required as events cannot queue up indefinitely
      */
     public Netty4HttpPipeliningHandler(Logger logger, final int maxEventsHeld) {
+        this(logger, maxEventsHeld, BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    /**
+     * Construct a new pipelining handler; this handler should be used downstream of HTTP decoding/aggregation.
+     *
+     * @param logger        for logging unexpected errors
+     * @param maxEventsHeld the maximum number of channel events that will be retained prior to aborting the channel connection; this is
+     *                      required as events cannot queue up indefinitely
+     * @param bigArrays     used to allocate the chunks of chunked responses
+     */
+    public Netty4HttpPipeliningHandler(Logger logger, final int maxEventsHeld, BigArrays bigArrays) {
         this.logger = logger;
         this.aggregator = new HttpPipeliningAggregator<>(maxEventsHeld);
+        this.bigArrays = bigArrays;
     }
 
     @Override
@@ -66,7 +99,7 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
         try {
             List<Tuple<HttpPipelinedResponse, ChannelPromise>> readyResponses = aggregator.write(response, promise);
             for (Tuple<HttpPipelinedResponse, ChannelPromise> readyResponse : readyResponses) {
-                ctx.write(readyResponse.v1().getDelegateRequest(), readyResponse.v2());
+                doWrite(ctx, readyResponse.v1().getDelegateRequest(), readyResponse.v2());
             }
             success = true;
         } catch (IllegalStateException e) {
@@ -78,8 +111,79 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
         }
     }
 
+    private void doWrite(ChannelHandlerContext ctx, Object response, ChannelPromise promise) {
+        if (currentChunkedWrite != null) {
+            // responses must not be interleaved with the chunks of the response that is currently being written
+            queuedWrites.add(new Tuple<>(response, promise));
+        } else if (response instanceof Netty4ChunkedHttpResponse) {
+            currentChunkedWrite = new Tuple<>((Netty4ChunkedHttpResponse) response, promise);
+            ctx.write(response);
+            writeChunks(ctx);
+        } else {
+            ctx.write(response, promise);
+        }
+    }
+
+    /**
+     * Serializes and writes chunks of the current chunked response for as long as the channel is writable. Once the channel stops being
+     * writable, the chunks written so far are flushed and writing resumes in {@link #channelWritabilityChanged}.
+     */
+    private void writeChunks(ChannelHandlerContext ctx) {
+        while (currentChunkedWrite != null && ctx.channel().isWritable()) {
+            final ChunkedRestResponseBody body = currentChunkedWrite.v1().body();
+            final ChannelPromise promise = currentChunkedWrite.v2();
+            final ReleasableBytesReference bytes;
+            try {
+                bytes = body.encodeChunk(Netty4HttpResponseCreator.SPLIT_THRESHOLD, bigArrays);
+            } catch (Exception e) {
+                // the status line and headers have already been sent, so the only thing left to do is to abort the response
+                logger.warn("failed to serialize chunked http response", e);
+                currentChunkedWrite = null;
+                promise.tryFailure(e);
+                // close through the whole pipeline so that this handler also fails the responses that are queued behind this one
+                ctx.channel().close();
+                return;
+            }
+            if (body.isDone()) {
+                promise.addListener(f -> bytes.close());
+                ctx.write(new DefaultLastHttpContent(Netty4Utils.toByteBuf(bytes)), promise);
+                currentChunkedWrite = null;
+                writeQueued(ctx);
+            } else {
+                ctx.write(new DefaultHttpContent(Netty4Utils.toByteBuf(bytes))).addListener(f -> bytes.close());
+            }
+        }
+        if (currentChunkedWrite != null) {
+            ctx.flush();
+        }
+    }
+
+    private void writeQueued(ChannelHandlerContext ctx) {
+        Tuple<Object, ChannelPromise> queued;
+        while (currentChunkedWrite == null && (queued = queuedWrites.poll()) != null) {
+            doWrite(ctx, queued.v1(), queued.v2());
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            writeChunks(ctx);
+            ctx.flush();
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
     @Override
     public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        if (currentChunkedWrite != null) {
+            currentChunkedWrite.v2().tryFailure(new ClosedChannelException());
+            currentChunkedWrite = null;
+        }
+        Tuple<Object, ChannelPromise> queued;
+        while ((queued = queuedWrites.poll()) != null) {
+            queued.v2().tryFailure(new ClosedChannelException());
+        }
         List<Tuple<HttpPipelinedResponse, ChannelPromise>> inflightResponses = aggregator.removeAllInflightResponses();
 
         if (inflightResponses.isEmpty() == false) {
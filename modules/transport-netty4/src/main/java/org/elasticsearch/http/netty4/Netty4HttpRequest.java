@@ -31,7 +31,9 @@ import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.http.HttpRequest;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.transport.netty4.Netty4Utils;
@@ -128,6 +130,17 @@ public class Netty4HttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public ReleasableBytesReference retainContent() {
+        assert released.get() == false;
+        if (pooled == false) {
+            return ReleasableBytesReference.wrap(content);
+        }
+        final ByteBuf buffer = request.content();
+        buffer.retain();
+        return new ReleasableBytesReference(content, buffer::release);
+    }
+
     @Override
     public void release() {
         if (pooled && released.compareAndSet(false, true)) {
@@ -199,6 +212,17 @@ public class Netty4HttpRequest implements HttpRequest {
         return new Netty4HttpResponse(request.headers(), request.protocolVersion(), status, content);
     }
 
+    @Override
+    public boolean supportsChunkedResponses() {
+        // chunked transfer encoding was only introduced with HTTP/1.1
+        return request.protocolVersion().equals(io.netty.handler.codec.http.HttpVersion.HTTP_1_1);
+    }
+
+    @Override
+    public Netty4ChunkedHttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        return new Netty4ChunkedHttpResponse(request.protocolVersion(), status, content);
+    }
+
     @Override
     public Exception getInboundException() {
         return inboundException;
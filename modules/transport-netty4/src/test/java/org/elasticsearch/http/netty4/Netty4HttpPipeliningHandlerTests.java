@@ -26,18 +26,26 @@ import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.http.HttpPipelinedRequest;
 import org.elasticsearch.http.HttpPipelinedResponse;
 import org.elasticsearch.http.HttpResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.After;
 
+import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -48,11 +56,13 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
 public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
@@ -204,6 +214,173 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
         }
     }
 
+    public void testChunkedResponseIsWrittenInOrder() {
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 1));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        final HttpPipelinedRequest request = embeddedChannel.readInbound();
+
+        final TestChunkedBody body = new TestChunkedBody(randomIntBetween(1, 10));
+        final ChannelPromise promise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(request.createResponse(RestStatus.OK, body), promise);
+
+        assertTrue(promise.isSuccess());
+        assertThat(body.encodedChunks, is(body.numChunks));
+        assertThat(body.releasedChunks.get(), is(body.numChunks));
+        assertReadChunkedResponse(embeddedChannel, body.numChunks);
+        assertNull(embeddedChannel.outboundMessages().poll());
+        assertTrue(embeddedChannel.isOpen());
+    }
+
+    public void testChunksAreOnlySerializedWhileTheChannelIsWritable() {
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 2));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        embeddedChannel.writeInbound(createHttpRequest("/full"));
+        final HttpPipelinedRequest chunkedRequest = embeddedChannel.readInbound();
+        final HttpPipelinedRequest fullRequest = embeddedChannel.readInbound();
+
+        setWritable(embeddedChannel, false);
+        final TestChunkedBody body = new TestChunkedBody(randomIntBetween(1, 10));
+        final ChannelPromise chunkedPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(chunkedRequest.createResponse(RestStatus.OK, body), chunkedPromise);
+        // a response that is ready must wait for the chunked response that is being written before it
+        final ChannelPromise fullPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(fullRequest.createResponse(RestStatus.OK, new BytesArray("full")), fullPromise);
+
+        assertThat(body.encodedChunks, is(0));
+        assertFalse(chunkedPromise.isDone());
+        assertFalse(fullPromise.isDone());
+        final Object headers = embeddedChannel.outboundMessages().poll();
+        assertThat(headers, instanceOf(Netty4ChunkedHttpResponse.class));
+        assertNull(embeddedChannel.outboundMessages().poll());
+
+        setWritable(embeddedChannel, true);
+        assertTrue(chunkedPromise.isSuccess());
+        assertTrue(fullPromise.isSuccess());
+        assertThat(body.releasedChunks.get(), is(body.numChunks));
+        assertReadChunks(embeddedChannel, body.numChunks);
+        assertReadHttpMessageHasContent(embeddedChannel, "full");
+        assertNull(embeddedChannel.outboundMessages().poll());
+    }
+
+    public void testChunkedResponseIsAbortedIfSerializationFails() {
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 2));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        embeddedChannel.writeInbound(createHttpRequest("/full"));
+        final HttpPipelinedRequest chunkedRequest = embeddedChannel.readInbound();
+        final HttpPipelinedRequest fullRequest = embeddedChannel.readInbound();
+
+        final int numChunks = randomIntBetween(2, 10);
+        final int failingChunk = randomIntBetween(0, numChunks - 1);
+        final TestChunkedBody body = new TestChunkedBody(numChunks, failingChunk);
+        setWritable(embeddedChannel, false);
+        final ChannelPromise chunkedPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(chunkedRequest.createResponse(RestStatus.OK, body), chunkedPromise);
+        final ChannelPromise fullPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(fullRequest.createResponse(RestStatus.OK, new BytesArray("full")), fullPromise);
+        setWritable(embeddedChannel, true);
+
+        assertThat(chunkedPromise.cause(), instanceOf(IOException.class));
+        assertThat(fullPromise.cause(), instanceOf(ClosedChannelException.class));
+        assertFalse(embeddedChannel.isOpen());
+        assertThat(body.encodedChunks, is(failingChunk));
+        assertThat(body.releasedChunks.get(), is(failingChunk));
+        releaseOutbound(embeddedChannel);
+    }
+
+    public void testChunkedResponseIsReleasedOnClose() {
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(new Netty4HttpPipeliningHandler(logger, 2));
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        embeddedChannel.writeInbound(createHttpRequest("/full"));
+        final HttpPipelinedRequest chunkedRequest = embeddedChannel.readInbound();
+        final HttpPipelinedRequest fullRequest = embeddedChannel.readInbound();
+
+        setWritable(embeddedChannel, false);
+        final TestChunkedBody body = new TestChunkedBody(randomIntBetween(1, 10));
+        final ChannelPromise chunkedPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(chunkedRequest.createResponse(RestStatus.OK, body), chunkedPromise);
+        final ChannelPromise fullPromise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(fullRequest.createResponse(RestStatus.OK, new BytesArray("full")), fullPromise);
+
+        embeddedChannel.close().syncUninterruptibly();
+        assertThat(chunkedPromise.cause(), instanceOf(ClosedChannelException.class));
+        assertThat(fullPromise.cause(), instanceOf(ClosedChannelException.class));
+        assertThat(body.encodedChunks, is(0));
+        releaseOutbound(embeddedChannel);
+    }
+
+    private static void setWritable(EmbeddedChannel embeddedChannel, boolean writable) {
+        embeddedChannel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+        // resuming the writes may close the channel, which is then no longer writable
+        embeddedChannel.runPendingTasks();
+        assertThat(embeddedChannel.isWritable(), is(writable && embeddedChannel.isOpen()));
+    }
+
+    private static void assertReadChunkedResponse(EmbeddedChannel embeddedChannel, int numChunks) {
+        final Object headers = embeddedChannel.outboundMessages().poll();
+        assertThat(headers, instanceOf(Netty4ChunkedHttpResponse.class));
+        assertTrue(HttpUtil.isTransferEncodingChunked((Netty4ChunkedHttpResponse) headers));
+        assertReadChunks(embeddedChannel, numChunks);
+    }
+
+    private static void assertReadChunks(EmbeddedChannel embeddedChannel, int numChunks) {
+        for (int i = 0; i < numChunks; i++) {
+            final HttpContent chunk = (HttpContent) embeddedChannel.outboundMessages().poll();
+            assertNotNull("expected chunk [" + i + "]", chunk);
+            assertThat(chunk instanceof LastHttpContent, is(i == numChunks - 1));
+            try {
+                assertThat(chunk.content().toString(StandardCharsets.UTF_8), is("chunk_" + i));
+            } finally {
+                chunk.release();
+            }
+        }
+    }
+
+    private static void releaseOutbound(EmbeddedChannel embeddedChannel) {
+        Object message;
+        while ((message = embeddedChannel.outboundMessages().poll()) != null) {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
+    /**
+     * A body of the given number of chunks that keeps track of how many of them were serialized and released.
+     */
+    private static class TestChunkedBody implements ChunkedRestResponseBody {
+
+        private final int numChunks;
+        private final int failingChunk;
+        private final AtomicInteger releasedChunks = new AtomicInteger();
+        private int encodedChunks;
+
+        TestChunkedBody(int numChunks) {
+            this(numChunks, -1);
+        }
+
+        TestChunkedBody(int numChunks, int failingChunk) {
+            this.numChunks = numChunks;
+            this.failingChunk = failingChunk;
+        }
+
+        @Override
+        public boolean isDone() {
+            return encodedChunks == numChunks;
+        }
+
+        @Override
+        public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException {
+            if (encodedChunks == failingChunk) {
+                throw new IOException("simulated");
+            }
+            final BytesArray chunk = new BytesArray("chunk_" + encodedChunks++);
+            return new ReleasableBytesReference(chunk, releasedChunks::incrementAndGet);
+        }
+
+        @Override
+        public String getResponseContentTypeString() {
+            return "text/plain";
+        }
+    }
+
 
     private void assertReadHttpMessageHasContent(EmbeddedChannel embeddedChannel, String expectedContent) {
         FullHttpResponse response = (FullHttpResponse) embeddedChannel.outboundMessages().poll();
@@ -31,6 +31,7 @@ import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.http.HttpRequest;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
@@ -127,6 +128,17 @@ public class NioHttpRequest implements HttpRequest {
         return content;
     }
 
+    @Override
+    public ReleasableBytesReference retainContent() {
+        assert released.get() == false;
+        if (pooled == false) {
+            return ReleasableBytesReference.wrap(content);
+        }
+        final ByteBuf buffer = request.content();
+        buffer.retain();
+        return new ReleasableBytesReference(content, buffer::release);
+    }
+
     @Override
     public void release() {
         if (pooled && released.compareAndSet(false, true)) {
@@ -197,6 +209,12 @@ public class NioHttpRequest implements HttpRequest {
         return new NioHttpResponse(request.headers(), request.protocolVersion(), status, content);
     }
 
+    @Override
+    public boolean supportsChunkedResponses() {
+        // streaming response bodies is only implemented by the netty4 transport, chunked rest responses are sent in full here
+        return false;
+    }
+
     @Override
     public Exception getInboundException() {
         return inboundException;
@@ -35,6 +35,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.unit.TimeValue;
@@ -82,6 +83,9 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
 
     private long sizeInBytes = 0;
 
+    @Nullable
+    private ReleasableBytesReference pooledSource;
+
     public BulkRequest() {}
 
     public BulkRequest(StreamInput in) throws IOException {
@@ -262,6 +266,25 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         return this;
     }
 
+    /**
+     * Sets the pooled buffer that the sources of the requests in this bulk were parsed from without copying. Each shard level request
+     * created for this bulk retains the buffer until it has completed, so that it cannot be released while its documents are still
+     * being indexed. The caller keeps ownership of its own reference and must release it once this request has completed. The buffer
+     * is local to this node and is not serialized.
+     */
+    public BulkRequest pooledSource(@Nullable ReleasableBytesReference pooledSource) {
+        this.pooledSource = pooledSource;
+        return this;
+    }
+
+    /**
+     * The pooled buffer that the sources of the requests in this bulk are slices of, if any.
+     */
+    @Nullable
+    public ReleasableBytesReference pooledSource() {
+        return pooledSource;
+    }
+
     /**
      * Sets the number of shard copies that must be active before proceeding with the write.
      * See {@link ReplicationRequest#waitForActiveShards(ActiveShardCount)} for details.
@@ -26,21 +26,27 @@ import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.replication.ReplicatedWriteRequest;
 import org.elasticsearch.action.support.replication.ReplicationRequest;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.transport.RawIndexingDataTransportRequest;
 
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Stream;
 
-public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> implements Accountable {
+public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> implements Accountable, RawIndexingDataTransportRequest {
 
     private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(BulkShardRequest.class);
 
     private final BulkItemRequest[] items;
 
+    @Nullable
+    private ReleasableBytesReference pooledSource;
+
     public BulkShardRequest(StreamInput in) throws IOException {
         super(in);
         items = in.readArray(i -> i.readOptionalWriteable(inpt -> new BulkItemRequest(shardId, inpt)), BulkItemRequest[]::new);
@@ -74,6 +80,31 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> i
         return items;
     }
 
+    /**
+     * Sets a reference to the pooled buffer the sources of the items of this request are slices of, see
+     * {@link BulkRequest#pooledSource(ReleasableBytesReference)}. The reference is owned by this request and released by
+     * {@link #releasePooledSource()} once the request has completed.
+     */
+    public void pooledSource(@Nullable ReleasableBytesReference pooledSource) {
+        this.pooledSource = pooledSource;
+    }
+
+    @Nullable
+    public ReleasableBytesReference pooledSource() {
+        return pooledSource;
+    }
+
+    /**
+     * Releases the reference to the pooled buffer held by this request, if any.
+     */
+    public void releasePooledSource() {
+        final ReleasableBytesReference pooledSource = this.pooledSource;
+        if (pooledSource != null) {
+            this.pooledSource = null;
+            pooledSource.close();
+        }
+    }
+
     @Override
     public String[] indices() {
         // A bulk shard request encapsulates items targeted at a specific shard of an index.
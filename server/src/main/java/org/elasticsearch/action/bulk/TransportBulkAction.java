@@ -515,7 +515,12 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                 if (task != null) {
                     bulkShardRequest.setParentTask(nodeId, task.getId());
                 }
-                client.executeLocally(TransportShardBulkAction.TYPE, bulkShardRequest, new ActionListener<>() {
+                if (bulkRequest.pooledSource() != null) {
+                    // keep the network buffers the sources are sliced from alive until the shard level request has completed
+                    bulkShardRequest.pooledSource(bulkRequest.pooledSource().retain());
+                }
+                client.executeLocally(TransportShardBulkAction.TYPE, bulkShardRequest,
+                        ActionListener.runBefore(new ActionListener<BulkShardResponse>() {
                     @Override
                     public void onResponse(BulkShardResponse bulkShardResponse) {
                         for (BulkItemResponse bulkItemResponse : bulkShardResponse.getResponses()) {
@@ -548,7 +553,7 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                         listener.onResponse(new BulkResponse(responses.toArray(new BulkItemResponse[responses.length()]),
                             buildTookInMillis(startTimeNanos)));
                     }
-                });
+                }, bulkShardRequest::releasePooledSource));
             }
             bulkRequest = null; // allow memory for bulk request items to be reclaimed before all items have been completed
         }
@@ -771,6 +776,7 @@ public class TransportBulkAction extends HandledTransportAction<BulkRequest, Bul
                 modifiedBulkRequest.setRefreshPolicy(bulkRequest.getRefreshPolicy());
                 modifiedBulkRequest.waitForActiveShards(bulkRequest.waitForActiveShards());
                 modifiedBulkRequest.timeout(bulkRequest.timeout());
+                modifiedBulkRequest.pooledSource(bulkRequest.pooledSource());
 
                 int slot = 0;
                 List<DocWriteRequest<?>> requests = bulkRequest.requests();
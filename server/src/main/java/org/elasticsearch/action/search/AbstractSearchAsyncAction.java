@@ -35,6 +35,7 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.index.shard.ShardId;
@@ -45,6 +46,7 @@ import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.transport.Transport;
 
 import java.util.ArrayDeque;
@@ -101,6 +103,10 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     private final Map<String, PendingExecutions> pendingExecutionsPerNode = new ConcurrentHashMap<>();
     private final boolean throttleConcurrentRequests;
     private final AtomicBoolean requestCancelled = new AtomicBoolean();
+    @Nullable
+    private final SearchHedging hedging;
+    private final AtomicInteger hedgeBudget;
+    private final List<HedgedShard> hedgedShards;
 
     private final List<Releasable> releasables = new ArrayList<>();
 
@@ -113,6 +119,19 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                               SearchTimeProvider timeProvider, ClusterState clusterState,
                               SearchTask task, SearchPhaseResults<Result> resultConsumer, int maxConcurrentRequestsPerNode,
                               SearchResponse.Clusters clusters) {
+        this(name, logger, searchTransportService, nodeIdToConnection, aliasFilter, concreteIndexBoosts, indexRoutings, executor,
+            request, listener, shardsIts, timeProvider, clusterState, task, resultConsumer, maxConcurrentRequestsPerNode, clusters, null);
+    }
+
+    AbstractSearchAsyncAction(String name, Logger logger, SearchTransportService searchTransportService,
+                              BiFunction<String, String, Transport.Connection> nodeIdToConnection,
+                              Map<String, AliasFilter> aliasFilter, Map<String, Float> concreteIndexBoosts,
+                              Map<String, Set<String>> indexRoutings,
+                              Executor executor, SearchRequest request,
+                              ActionListener<SearchResponse> listener, GroupShardsIterator<SearchShardIterator> shardsIts,
+                              SearchTimeProvider timeProvider, ClusterState clusterState,
+                              SearchTask task, SearchPhaseResults<Result> resultConsumer, int maxConcurrentRequestsPerNode,
+                              SearchResponse.Clusters clusters, @Nullable SearchHedging hedging) {
         super(name);
         final List<SearchShardIterator> toSkipIterators = new ArrayList<>();
         final List<SearchShardIterator> iterators = new ArrayList<>();
@@ -147,6 +166,19 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         this.indexRoutings = indexRoutings;
         this.results = resultConsumer;
         this.clusters = clusters;
+        final int budget = hedging == null ? 0 : hedging.budget(this.shardsIts.size());
+        if (budget > 0) {
+            this.hedging = hedging;
+            this.hedgeBudget = new AtomicInteger(budget);
+            this.hedgedShards = new ArrayList<>(this.shardsIts.size());
+            for (int index = 0; index < this.shardsIts.size(); index++) {
+                hedgedShards.add(new HedgedShard(index, this.shardsIts.get(index)));
+            }
+        } else {
+            this.hedging = null;
+            this.hedgeBudget = null;
+            this.hedgedShards = null;
+        }
     }
 
     @Override
@@ -214,7 +246,11 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             for (int index = 0; index < shardsIts.size(); index++) {
                 final SearchShardIterator shardRoutings = shardsIts.get(index);
                 assert shardRoutings.skip() == false;
-                performPhaseOnShard(index, shardRoutings, shardRoutings.nextOrNull());
+                if (hedgedShards != null) {
+                    hedgedShards.get(index).start();
+                } else {
+                    performPhaseOnShard(index, shardRoutings, shardRoutings.nextOrNull());
+                }
             }
         }
     }
@@ -237,9 +273,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         if (shard == null) {
             fork(() -> onShardFailure(shardIndex, null, shardIt, new NoShardAvailableActionException(shardIt.shardId())));
         } else {
-            final PendingExecutions pendingExecutions = throttleConcurrentRequests ?
-                pendingExecutionsPerNode.computeIfAbsent(shard.getNodeId(), n -> new PendingExecutions(maxConcurrentRequestsPerNode))
-                : null;
+            final PendingExecutions pendingExecutions = pendingExecutions(shard);
             Runnable r = () -> {
                 final Thread thread = Thread.currentThread();
                 try {
@@ -275,11 +309,22 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                     }
                 }
             };
-            if (throttleConcurrentRequests) {
-                pendingExecutions.tryRun(r);
-            } else {
-                r.run();
-            }
+            runThrottled(pendingExecutions, r);
+        }
+    }
+
+    @Nullable
+    private PendingExecutions pendingExecutions(SearchShardTarget shard) {
+        return throttleConcurrentRequests ?
+            pendingExecutionsPerNode.computeIfAbsent(shard.getNodeId(), n -> new PendingExecutions(maxConcurrentRequestsPerNode))
+            : null;
+    }
+
+    private void runThrottled(@Nullable PendingExecutions pendingExecutions, Runnable runnable) {
+        if (throttleConcurrentRequests) {
+            pendingExecutions.tryRun(runnable);
+        } else {
+            runnable.run();
         }
     }
 
@@ -293,6 +338,23 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                                                 SearchShardTarget shard,
                                                 SearchActionListener<Result> listener);
 
+    /**
+     * Sends the request to the actual shard as a child of the given task. This is the search task unless the request may be
+     * hedged, in which case it is a child task of the search task that represents this single attempt at the shard so that it
+     * can be cancelled on its own. Phases that support hedged requests must override this method.
+     * @param shardIt the shards iterator
+     * @param shard the shard routing to send the request for
+     * @param task the task to send the request as a child of
+     * @param listener the listener to notify on response
+     */
+    protected void executePhaseOnShard(SearchShardIterator shardIt,
+                                       SearchShardTarget shard,
+                                       SearchTask task,
+                                       SearchActionListener<Result> listener) {
+        assert task == getTask() : "phase [" + getName() + "] does not support hedged requests";
+        executePhaseOnShard(shardIt, shard, listener);
+    }
+
     private void fork(final Runnable runnable) {
         executor.execute(new AbstractRunnable() {
             @Override
@@ -387,10 +449,20 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
     }
 
     private void onShardFailure(final int shardIndex, @Nullable SearchShardTarget shard, final SearchShardIterator shardIt, Exception e) {
+        final SearchShardTarget nextShard = shardIt.nextOrNull();
+        onShardFailure(shardIndex, shard, shardIt, nextShard, () -> performPhaseOnShard(shardIndex, shardIt, nextShard), e);
+    }
+
+    /**
+     * Handles the failure of the given shard copy and, unless it was the last copy of the shard, tries the next one.
+     * @param nextShard the next copy of the shard, already pulled from the shards iterator, or {@code null} if there is none
+     * @param tryNextShard executes the phase on the next copy of the shard
+     */
+    private void onShardFailure(final int shardIndex, @Nullable SearchShardTarget shard, final SearchShardIterator shardIt,
+                                @Nullable SearchShardTarget nextShard, Runnable tryNextShard, Exception e) {
         // we always add the shard failure for a specific shard instance
         // we do make sure to clean it on a successful response from a shard
         onShardFailure(shardIndex, shard, e);
-        final SearchShardTarget nextShard = shardIt.nextOrNull();
         final boolean lastShard = nextShard == null;
         logger.debug(() -> new ParameterizedMessage("{}: Failed to execute [{}] lastShard [{}]",
             shard != null ? shard : shardIt.shardId(), request, lastShard), e);
@@ -414,7 +486,7 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                 new SearchPhaseExecutionException(getName(), "Shard failures", null, buildShardFailures()));
         } else {
             if (lastShard == false) {
-                performPhaseOnShard(shardIndex, shardIt, nextShard);
+                tryNextShard.run();
             }
         }
     }
@@ -682,6 +754,230 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * Tracks the attempts at executing this phase on a single shard if requests may be hedged. An attempt that is still outstanding
+     * after the hedge delay of the node it was sent to is raced against an attempt on the next copy of the shard, at most once per
+     * shard and within the hedge budget of the search. The first successful attempt provides the result of the shard and the
+     * others are cancelled; a failed attempt only moves on to the next copy if no other attempt is outstanding.
+     */
+    private final class HedgedShard {
+        private final int shardIndex;
+        private final SearchShardIterator shardIt;
+        // all of the below, as well as the shards iterator, are guarded by this
+        private final List<Attempt> outstanding = new ArrayList<>(2);
+        private boolean hedged;
+        private boolean done;
+
+        HedgedShard(int shardIndex, SearchShardIterator shardIt) {
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+        }
+
+        void start() {
+            final SearchShardTarget shard;
+            final Attempt attempt;
+            synchronized (this) {
+                shard = shardIt.nextOrNull();
+                attempt = shard == null ? null : newAttempt();
+            }
+            if (shard == null) {
+                fork(() -> onShardFailure(shardIndex, null, shardIt, new NoShardAvailableActionException(shardIt.shardId())));
+            } else {
+                perform(attempt, shard, false);
+            }
+        }
+
+        private Attempt newAttempt() {
+            assert Thread.holdsLock(this);
+            final Attempt attempt = new Attempt();
+            outstanding.add(attempt);
+            return attempt;
+        }
+
+        private void perform(Attempt attempt, SearchShardTarget shard, boolean isHedge) {
+            final PendingExecutions pendingExecutions = pendingExecutions(shard);
+            runThrottled(pendingExecutions, () -> {
+                final Thread thread = Thread.currentThread();
+                try {
+                    final SearchTask attemptTask = hedging.registerAttemptTask(getTask());
+                    synchronized (this) {
+                        if (done) {
+                            // another attempt has already succeeded while this one was waiting for its turn
+                            outstanding.remove(attempt);
+                            hedging.unregisterAttemptTask(attemptTask);
+                            executeNext(pendingExecutions, thread);
+                            return;
+                        }
+                        attempt.task = attemptTask;
+                    }
+                    if (isHedge == false) {
+                        scheduleHedge(attempt, shard);
+                    }
+                    executePhaseOnShard(shardIt, shard, attemptTask, new SearchActionListener<Result>(shard, shardIndex) {
+                        @Override
+                        public void innerOnResponse(Result result) {
+                            try {
+                                onAttemptResult(attempt, result);
+                            } finally {
+                                executeNext(pendingExecutions, thread);
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Exception t) {
+                            try {
+                                onAttemptFailure(attempt, shard, t);
+                            } finally {
+                                executeNext(pendingExecutions, thread);
+                            }
+                        }
+                    });
+                } catch (final Exception e) {
+                    try {
+                        fork(() -> onAttemptFailure(attempt, shard, e));
+                    } finally {
+                        executeNext(pendingExecutions, thread);
+                    }
+                }
+            });
+        }
+
+        private void scheduleHedge(Attempt attempt, SearchShardTarget shard) {
+            if (hedgeBudget.get() <= 0) {
+                return;
+            }
+            final TimeValue delay = hedging.hedgeDelay(shard.getNodeId());
+            if (delay != null) {
+                attempt.timer = hedging.schedule(() -> maybeHedge(attempt, shard), delay);
+            }
+        }
+
+        private void maybeHedge(Attempt attempt, SearchShardTarget shard) {
+            final SearchShardTarget nextShard;
+            final Attempt hedge;
+            synchronized (this) {
+                if (done || hedged || outstanding.contains(attempt) == false || shardIt.remaining() == 0
+                    || requestCancelled.get() || getTask().isCancelled()
+                    || hedgeBudget.getAndUpdate(budget -> Math.max(budget - 1, 0)) == 0) {
+                    return;
+                }
+                hedged = true;
+                nextShard = shardIt.nextOrNull();
+                hedge = newAttempt();
+            }
+            logger.trace("hedging [{}] on [{}] after no response from [{}]", getName(), nextShard, shard);
+            fork(() -> perform(hedge, nextShard, true));
+        }
+
+        private void onAttemptResult(Attempt attempt, Result result) {
+            final List<Attempt> losers;
+            synchronized (this) {
+                outstanding.remove(attempt);
+                if (done) {
+                    losers = null;
+                } else {
+                    done = true;
+                    losers = new ArrayList<>(outstanding);
+                }
+            }
+            attempt.finish();
+            if (losers == null) {
+                releaseLosingResult(result);
+                return;
+            }
+            for (Attempt loser : losers) {
+                loser.cancel("another copy of shard " + shardIt.shardId() + " responded first");
+            }
+            // the losing attempts will never complete as far as the phase is concerned
+            totalOps.addAndGet(losers.size());
+            onShardResult(result, shardIt);
+        }
+
+        private void onAttemptFailure(Attempt attempt, SearchShardTarget shard, Exception e) {
+            final boolean ignore;
+            final boolean othersOutstanding;
+            SearchShardTarget nextShard = null;
+            Attempt nextAttempt = null;
+            synchronized (this) {
+                outstanding.remove(attempt);
+                ignore = done;
+                othersOutstanding = outstanding.isEmpty() == false;
+                if (ignore == false && othersOutstanding == false) {
+                    nextShard = shardIt.nextOrNull();
+                    if (nextShard != null) {
+                        nextAttempt = newAttempt();
+                    }
+                }
+            }
+            attempt.finish();
+            if (ignore) {
+                logger.trace(() -> new ParameterizedMessage("{}: ignoring failure of losing attempt", shard), e);
+            } else if (othersOutstanding) {
+                // the outcome of the shard is up to the attempt that is still outstanding
+                onShardFailure(shardIndex, shard, e);
+                logger.debug(() -> new ParameterizedMessage("{}: Failed to execute [{}] while another copy is still outstanding",
+                    shard, getRequest()), e);
+                final int totalOps = AbstractSearchAsyncAction.this.totalOps.incrementAndGet();
+                assert totalOps < expectedTotalOps : "total ops [" + totalOps + "] reached [" + expectedTotalOps + "] early";
+            } else {
+                final SearchShardTarget next = nextShard;
+                final Attempt retry = nextAttempt;
+                onShardFailure(shardIndex, shard, shardIt, next, () -> perform(retry, next, false), e);
+            }
+        }
+
+        private void releaseLosingResult(Result result) {
+            if (result.getContextId() != null && getRequest().pointInTimeBuilder() == null) {
+                try {
+                    final SearchShardTarget target = result.getSearchShardTarget();
+                    sendReleaseSearchContext(result.getContextId(), getConnection(target.getClusterAlias(), target.getNodeId()),
+                        target.getOriginalIndices());
+                } catch (Exception e) {
+                    logger.trace("failed to release context", e);
+                }
+            }
+        }
+
+        private final class Attempt {
+            // set under the lock of the enclosing shard before the attempt is sent, null if it never was
+            private SearchTask task;
+            private volatile Scheduler.Cancellable timer;
+
+            void finish() {
+                cancelTimer();
+                final SearchTask task;
+                synchronized (HedgedShard.this) {
+                    task = this.task;
+                }
+                if (task != null) {
+                    hedging.unregisterAttemptTask(task);
+                }
+            }
+
+            void cancel(String reason) {
+                cancelTimer();
+                final SearchTask task;
+                synchronized (HedgedShard.this) {
+                    task = this.task;
+                }
+                if (task != null) {
+                    try {
+                        hedging.cancelAttemptTask(task, reason);
+                    } catch (Exception e) {
+                        logger.debug("failed to cancel losing attempt", e);
+                    }
+                }
+            }
+
+            private void cancelTimer() {
+                final Scheduler.Cancellable timer = this.timer;
+                if (timer != null) {
+                    timer.cancel();
+                }
+            }
+        }
+    }
+
     private static final class PendingExecutions {
         private final int permits;
         private int permitsTaken = 0;
@@ -0,0 +1,179 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskAwareRequest;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether and when the initial phase of a search sends a hedged request, that is a duplicate of a shard request that
+ * is still outstanding, to the next copy of the shard. A shard request is hedged once it has been outstanding for longer than the
+ * configured percentile of the recent response times of the node it was sent to, the copy that answers first wins and the other
+ * one is cancelled. The number of hedged requests per search is bounded by a budget relative to the number of shards it targets.
+ */
+public class SearchHedging {
+
+    public static final Setting<Boolean> HEDGING_ENABLED_SETTING =
+        Setting.boolSetting("search.hedging.enabled", false, Property.Dynamic, Property.NodeScope);
+
+    /** The percentile of a node's recent response times after which a shard request to that node is hedged. */
+    public static final Setting<Double> HEDGING_LATENCY_PERCENTILE_SETTING =
+        Setting.doubleSetting("search.hedging.latency_percentile", 95.0, 50.0, 100.0, Property.Dynamic, Property.NodeScope);
+
+    /** The fraction of the shard requests of a single search that may be hedged. */
+    public static final Setting<Double> HEDGING_BUDGET_SETTING =
+        Setting.doubleSetting("search.hedging.budget", 0.1, 0.0, 1.0, Property.Dynamic, Property.NodeScope);
+
+    /** The minimum time a shard request is outstanding before it is hedged, regardless of the observed response times. */
+    public static final Setting<TimeValue> HEDGING_MIN_DELAY_SETTING =
+        Setting.timeSetting("search.hedging.min_delay", TimeValue.timeValueMillis(10), TimeValue.ZERO,
+            Property.Dynamic, Property.NodeScope);
+
+    private final ThreadPool threadPool;
+    private final ResponseCollectorService responseCollectorService;
+    private final TaskManager taskManager;
+    private final Supplier<DiscoveryNode> localNode;
+
+    private volatile boolean enabled;
+    private volatile double latencyPercentile;
+    private volatile double budget;
+    private volatile TimeValue minDelay;
+
+    SearchHedging(ClusterSettings clusterSettings, ThreadPool threadPool, ResponseCollectorService responseCollectorService,
+                  TaskManager taskManager, Supplier<DiscoveryNode> localNode) {
+        this.threadPool = threadPool;
+        this.responseCollectorService = responseCollectorService;
+        this.taskManager = taskManager;
+        this.localNode = localNode;
+        this.enabled = clusterSettings.get(HEDGING_ENABLED_SETTING);
+        this.latencyPercentile = clusterSettings.get(HEDGING_LATENCY_PERCENTILE_SETTING);
+        this.budget = clusterSettings.get(HEDGING_BUDGET_SETTING);
+        this.minDelay = clusterSettings.get(HEDGING_MIN_DELAY_SETTING);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_ENABLED_SETTING, value -> this.enabled = value);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_LATENCY_PERCENTILE_SETTING, value -> this.latencyPercentile = value);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_BUDGET_SETTING, value -> this.budget = value);
+        clusterSettings.addSettingsUpdateConsumer(HEDGING_MIN_DELAY_SETTING, value -> this.minDelay = value);
+    }
+
+    /**
+     * Returns the number of shard requests that a search over the given number of shards may hedge, or {@code 0} if hedging
+     * is disabled.
+     */
+    int budget(int numShards) {
+        return enabled ? (int) Math.ceil(budget * numShards) : 0;
+    }
+
+    /**
+     * Returns how long to wait for a response from the given node before hedging, or {@code null} if not enough responses have
+     * been seen from that node to tell.
+     */
+    TimeValue hedgeDelay(String nodeId) {
+        final long percentileNanos = responseCollectorService.responseTimePercentile(nodeId, latencyPercentile);
+        if (percentileNanos < 0) {
+            return null;
+        }
+        return TimeValue.timeValueNanos(Math.max(percentileNanos, minDelay.nanos()));
+    }
+
+    Scheduler.ScheduledCancellable schedule(Runnable command, TimeValue delay) {
+        return threadPool.schedule(command, delay, ThreadPool.Names.SAME);
+    }
+
+    /**
+     * Registers the task that a single attempt at a shard request is sent with. The attempt tasks are children of the search
+     * task, registered on the local node, so that cancelling the search cancels all its attempts and cancelling the attempt
+     * that lost a race leaves the search alone.
+     */
+    SearchTask registerAttemptTask(SearchTask searchTask) {
+        final TaskId parentTaskId = new TaskId(localNode.get().getId(), searchTask.getId());
+        final Releasable unregisterChildNode = taskManager.registerChildNode(searchTask.getId(), localNode.get());
+        try {
+            return (SearchTask) taskManager.register("transport", SearchAction.NAME + "[hedged]",
+                new AttemptRequest(searchTask, parentTaskId, unregisterChildNode));
+        } catch (RuntimeException e) {
+            unregisterChildNode.close();
+            throw e;
+        }
+    }
+
+    void unregisterAttemptTask(SearchTask attemptTask) {
+        taskManager.unregister(attemptTask);
+        ((AttemptTask) attemptTask).unregisterChildNode.close();
+    }
+
+    /**
+     * Cancels the given attempt and its child tasks on the node that the attempt was sent to.
+     */
+    void cancelAttemptTask(SearchTask attemptTask, String reason) {
+        taskManager.cancelTaskAndDescendants(attemptTask, reason, false, ActionListener.wrap(() -> {}));
+    }
+
+    private static final class AttemptTask extends SearchTask {
+        private final Releasable unregisterChildNode;
+
+        AttemptTask(long id, String type, String action, Supplier<String> descriptionSupplier, TaskId parentTaskId,
+                    Map<String, String> headers, Releasable unregisterChildNode) {
+            super(id, type, action, descriptionSupplier, parentTaskId, headers);
+            this.unregisterChildNode = unregisterChildNode;
+        }
+    }
+
+    private static final class AttemptRequest implements TaskAwareRequest {
+        private final SearchTask searchTask;
+        private final Releasable unregisterChildNode;
+        private TaskId parentTaskId;
+
+        AttemptRequest(SearchTask searchTask, TaskId parentTaskId, Releasable unregisterChildNode) {
+            this.searchTask = searchTask;
+            this.parentTaskId = parentTaskId;
+            this.unregisterChildNode = unregisterChildNode;
+        }
+
+        @Override
+        public void setParentTask(TaskId taskId) {
+            this.parentTaskId = taskId;
+        }
+
+        @Override
+        public TaskId getParentTask() {
+            return parentTaskId;
+        }
+
+        @Override
+        public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+            return new AttemptTask(id, type, action, searchTask::getDescription, parentTaskId, headers, unregisterChildNode);
+        }
+    }
+}
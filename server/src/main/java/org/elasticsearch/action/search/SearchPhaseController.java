@@ -305,7 +305,34 @@ public final class SearchPhaseController {
                 assert currentOffset == sortedDocs.length : "expected no more score doc slices";
             }
         }
-        return reducedQueryPhase.buildResponse(hits);
+        final SearchProfileShardResults profileResults = mergeFetchProfileResults(reducedQueryPhase.shardResults, fetchResults);
+        return reducedQueryPhase.buildResponse(hits, profileResults);
+    }
+
+    /**
+     * Adds the profiles of the fetch phase of each shard to the profiles of its query phase.
+     */
+    private static SearchProfileShardResults mergeFetchProfileResults(SearchProfileShardResults queryProfileResults,
+                                                                      Collection<? extends SearchPhaseResult> fetchResults) {
+        if (queryProfileResults == null) {
+            return null;
+        }
+        Map<String, ProfileShardResult> profileResults = new HashMap<>(queryProfileResults.getShardResults());
+        boolean hasFetchProfileResults = false;
+        for (SearchPhaseResult entry : fetchResults) {
+            FetchSearchResult fetchResult = entry.fetchResult();
+            if (fetchResult == null || fetchResult.profileResult() == null) {
+                continue;
+            }
+            String key = fetchResult.getSearchShardTarget().toString();
+            ProfileShardResult profileResult = profileResults.get(key);
+            if (profileResult != null) {
+                profileResults.put(key, new ProfileShardResult(profileResult.getQueryProfileResults(),
+                    profileResult.getAggregationProfileResults(), fetchResult.profileResult()));
+                hasFetchProfileResults = true;
+            }
+        }
+        return hasFetchProfileResults ? new SearchProfileShardResults(profileResults) : queryProfileResults;
     }
 
     private SearchHits getHits(ReducedQueryPhase reducedQueryPhase, boolean ignoreFrom,
@@ -582,11 +609,11 @@ public final class SearchPhaseController {
         }
 
         /**
-         * Creates a new search response from the given merged hits.
+         * Creates a new search response from the given merged hits and profile results.
          * @see #merge(boolean, ReducedQueryPhase, Collection, IntFunction)
          */
-        public InternalSearchResponse buildResponse(SearchHits hits) {
-            return new InternalSearchResponse(hits, aggregations, suggest, shardResults, timedOut, terminatedEarly, numReducePhases);
+        public InternalSearchResponse buildResponse(SearchHits hits, SearchProfileShardResults profileResults) {
+            return new InternalSearchResponse(hits, aggregations, suggest, profileResults, timedOut, terminatedEarly, numReducePhases);
         }
     }
 
@@ -19,7 +19,10 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.SearchHits;
@@ -30,6 +33,7 @@ import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -40,7 +44,7 @@ import java.util.Map;
  * to parse aggregations into, which are not serializable. This is the common part that can be
  * shared between core and client.
  */
-public class SearchResponseSections implements ToXContentFragment {
+public class SearchResponseSections implements ToXContentFragment, ChunkedToXContent {
 
     protected final SearchHits hits;
     protected final Aggregations aggregations;
@@ -116,6 +120,26 @@ public class SearchResponseSections implements ToXContentFragment {
         return builder;
     }
 
+    /**
+     * Renders the hits and aggregations in chunks, see {@link SearchHits#toXContentChunked} and
+     * {@link Aggregations#toXContentChunked}. Suggestions and profile results are rendered as a single chunk each.
+     */
+    @Override
+    public final Iterator<? extends ToXContent> toXContentChunked(Params params) {
+        return Iterators.concat(
+            hits.toXContentChunked(params),
+            aggregations == null ? Collections.emptyIterator() : aggregations.toXContentChunked(params),
+            Collections.<ToXContent>singleton((builder, p) -> {
+                if (suggest != null) {
+                    suggest.toXContent(builder, p);
+                }
+                if (profileResults != null) {
+                    profileResults.toXContent(builder, p);
+                }
+                return builder;
+            }).iterator());
+    }
+
     protected void writeTo(StreamOutput out) throws IOException {
         throw new UnsupportedOperationException();
     }
@@ -0,0 +1,224 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The changes between two cluster states that are relevant to the indices and shards of the local node. The change set is computed
+ * once per {@link ClusterChangedEvent} (see {@link ClusterChangedEvent#changeSet()}) so that {@link ClusterStateApplier}s and
+ * {@link ClusterStateListener}s can process only the indices and shards that changed instead of walking the whole routing table.
+ * <p>
+ * An index is considered changed if its {@link IndexMetadata} or its {@link IndexRoutingTable} is not the same instance in both
+ * cluster states, which means that indices that are unchanged by a cluster state diff are never visited.
+ */
+public final class ClusterChangeSet {
+
+    private final Set<Index> indicesAdded;
+    private final Set<Index> indicesRemoved;
+    private final Set<Index> indicesChanged;
+    private final List<ShardRouting> shardsRoutedToLocalNode;
+    private final List<ShardRouting> shardsRoutedFromLocalNode;
+
+    ClusterChangeSet(ClusterState state, ClusterState previousState) {
+        if (state.metadata() == previousState.metadata() && state.routingTable() == previousState.routingTable()) {
+            indicesAdded = Collections.emptySet();
+            indicesRemoved = Collections.emptySet();
+            indicesChanged = Collections.emptySet();
+        } else {
+            final Set<String> indexNames = new HashSet<>();
+            addIndexNames(state, indexNames);
+            addIndexNames(previousState, indexNames);
+            final Set<Index> added = new HashSet<>();
+            final Set<Index> removed = new HashSet<>();
+            final Set<Index> changed = new HashSet<>();
+            for (String indexName : indexNames) {
+                final Index index = index(state, indexName);
+                final Index previousIndex = index(previousState, indexName);
+                if (previousIndex == null) {
+                    added.add(index);
+                } else if (index == null) {
+                    removed.add(previousIndex);
+                } else if (index.equals(previousIndex) == false) {
+                    // the index was deleted and re-created with the same name
+                    removed.add(previousIndex);
+                    added.add(index);
+                } else if (state.metadata().index(indexName) != previousState.metadata().index(indexName)
+                    || state.routingTable().index(indexName) != previousState.routingTable().index(indexName)) {
+                    changed.add(index);
+                }
+            }
+            indicesAdded = Collections.unmodifiableSet(added);
+            indicesRemoved = Collections.unmodifiableSet(removed);
+            indicesChanged = Collections.unmodifiableSet(changed);
+        }
+
+        final String localNodeId = state.nodes().getLocalNodeId();
+        if (localNodeId == null || state.routingTable() == previousState.routingTable()) {
+            shardsRoutedToLocalNode = Collections.emptyList();
+            shardsRoutedFromLocalNode = Collections.emptyList();
+        } else {
+            final Map<ShardId, ShardRouting> previousLocalShards = new HashMap<>();
+            final Map<ShardId, ShardRouting> localShards = new HashMap<>();
+            final Consumer<Index> collectLocalShards = index -> {
+                forEachLocalShard(previousState.routingTable().index(index), localNodeId,
+                    shardRouting -> previousLocalShards.put(shardRouting.shardId(), shardRouting));
+                forEachLocalShard(state.routingTable().index(index), localNodeId,
+                    shardRouting -> localShards.put(shardRouting.shardId(), shardRouting));
+            };
+            indicesAdded.forEach(collectLocalShards);
+            indicesRemoved.forEach(collectLocalShards);
+            indicesChanged.forEach(collectLocalShards);
+
+            final List<ShardRouting> routedTo = new ArrayList<>();
+            for (ShardRouting shardRouting : localShards.values()) {
+                if (shardRouting.equals(previousLocalShards.get(shardRouting.shardId())) == false) {
+                    routedTo.add(shardRouting);
+                }
+            }
+            final List<ShardRouting> routedFrom = new ArrayList<>();
+            for (ShardRouting previousShardRouting : previousLocalShards.values()) {
+                final ShardRouting shardRouting = localShards.get(previousShardRouting.shardId());
+                if (shardRouting == null || shardRouting.isSameAllocation(previousShardRouting) == false) {
+                    routedFrom.add(previousShardRouting);
+                }
+            }
+            shardsRoutedToLocalNode = Collections.unmodifiableList(routedTo);
+            shardsRoutedFromLocalNode = Collections.unmodifiableList(routedFrom);
+        }
+    }
+
+    private static void addIndexNames(ClusterState state, Set<String> indexNames) {
+        for (ObjectCursor<String> cursor : state.metadata().indices().keys()) {
+            indexNames.add(cursor.value);
+        }
+        for (ObjectCursor<String> cursor : state.routingTable().indicesRouting().keys()) {
+            indexNames.add(cursor.value);
+        }
+    }
+
+    @Nullable
+    private static Index index(ClusterState state, String indexName) {
+        final IndexMetadata indexMetadata = state.metadata().index(indexName);
+        if (indexMetadata != null) {
+            return indexMetadata.getIndex();
+        }
+        final IndexRoutingTable indexRoutingTable = state.routingTable().index(indexName);
+        return indexRoutingTable == null ? null : indexRoutingTable.getIndex();
+    }
+
+    /**
+     * Calls the given consumer with the shard copies of the given index that are assigned to the given node, including the targets of
+     * relocations to the node, in the same way as {@link org.elasticsearch.cluster.routing.RoutingNodes} does.
+     */
+    public static void forEachLocalShard(@Nullable IndexRoutingTable indexRoutingTable, String localNodeId,
+                                         Consumer<ShardRouting> consumer) {
+        if (indexRoutingTable == null) {
+            return;
+        }
+        for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
+            for (ShardRouting shardRouting : indexShardRoutingTable) {
+                if (localNodeId.equals(shardRouting.currentNodeId())) {
+                    consumer.accept(shardRouting);
+                } else if (shardRouting.relocating() && localNodeId.equals(shardRouting.relocatingNodeId())) {
+                    consumer.accept(shardRouting.getTargetRelocatingShard());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indices that exist in the new cluster state but not in the previous one.
+     */
+    public Set<Index> indicesAdded() {
+        return indicesAdded;
+    }
+
+    /**
+     * Returns the indices that exist in the previous cluster state but not in the new one.
+     */
+    public Set<Index> indicesRemoved() {
+        return indicesRemoved;
+    }
+
+    /**
+     * Returns the indices that exist in both cluster states but whose metadata or routing table changed.
+     */
+    public Set<Index> indicesChanged() {
+        return indicesChanged;
+    }
+
+    /**
+     * Returns <code>true</code> iff the given index was added, removed or changed.
+     */
+    public boolean indexAffected(Index index) {
+        return indicesChanged.contains(index) || indicesAdded.contains(index) || indicesRemoved.contains(index);
+    }
+
+    /**
+     * Returns the shard copies that are assigned to the local node in the new cluster state and that were not assigned to it, or
+     * had a different routing entry, in the previous cluster state.
+     */
+    public List<ShardRouting> shardsRoutedToLocalNode() {
+        return shardsRoutedToLocalNode;
+    }
+
+    /**
+     * Returns the shard copies that were assigned to the local node in the previous cluster state and that are no longer assigned
+     * to it, or have a different allocation id, in the new cluster state.
+     */
+    public List<ShardRouting> shardsRoutedFromLocalNode() {
+        return shardsRoutedFromLocalNode;
+    }
+
+    /**
+     * Returns <code>true</code> iff no index was added, removed or changed.
+     */
+    public boolean isEmpty() {
+        return indicesAdded.isEmpty() && indicesRemoved.isEmpty() && indicesChanged.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterChangeSet{" +
+            "indicesAdded=" + indicesAdded +
+            ", indicesRemoved=" + indicesRemoved +
+            ", indicesChanged=" + indicesChanged +
+            ", shardsRoutedToLocalNode=" + shardsRoutedToLocalNode.size() +
+            ", shardsRoutedFromLocalNode=" + shardsRoutedFromLocalNode.size() +
+            '}';
+    }
+}
@@ -51,6 +51,8 @@ public class ClusterChangedEvent {
 
     private final DiscoveryNodes.Delta nodesDelta;
 
+    private volatile ClusterChangeSet changeSet;
+
     public ClusterChangedEvent(String source, ClusterState state, ClusterState previousState) {
         Objects.requireNonNull(source, "source must not be null");
         Objects.requireNonNull(state, "state must not be null");
@@ -210,6 +212,19 @@ public class ClusterChangedEvent {
         return this.nodesDelta;
     }
 
+    /**
+     * Returns the {@link ClusterChangeSet} with the indices and local shards that changed between the previous cluster state and
+     * the new cluster state. It is computed on first access and then shared by all the appliers and listeners of this event.
+     */
+    public ClusterChangeSet changeSet() {
+        ClusterChangeSet changeSet = this.changeSet;
+        if (changeSet == null) {
+            changeSet = new ClusterChangeSet(state, previousState);
+            this.changeSet = changeSet;
+        }
+        return changeSet;
+    }
+
     /**
      * Returns <code>true</code> iff nodes have been removed from the cluster since the last cluster state.
      */
@@ -204,7 +204,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * </ul>
      * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
      */
-    private static class WeightFunction {
+    static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
@@ -230,7 +230,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
     }
 
     /**
-     * A {@link Balancer}
+     * A {@link Balancer} holds a model of the nodes and their shards that is built from the routing nodes of a single reroute, it is not
+     * kept across reroutes. Rebalancing skips the indices whose weights are already balanced across all nodes before the deciders are
+     * asked about them.
      */
     public static class Balancer {
         private final Logger logger;
@@ -295,6 +297,21 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return Math.abs(higher - lower);
         }
 
+        /**
+         * Returns the difference between the maximum and the minimum weight of all nodes for the given index, which is the same as
+         * {@link NodeSorter#delta()} after sorting all nodes for the index, without sorting them.
+         */
+        float weightDelta(String index) {
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : nodes.values()) {
+                final float nodeWeight = weight.weight(this, node, index);
+                minWeight = Math.min(minWeight, nodeWeight);
+                maxWeight = Math.max(maxWeight, nodeWeight);
+            }
+            return maxWeight - minWeight;
+        }
+
         /**
          * Returns {@code true} iff the weight delta between two nodes is under a defined threshold.
          * See {@link #THRESHOLD_SETTING} for defining the threshold.
@@ -465,6 +482,12 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
             for (String index : buildWeightOrderedIndices()) {
+                if (lessThan(weightDelta(index), threshold)) {
+                    // the weights of the index are balanced across all nodes, so they are also balanced across the nodes that may hold
+                    // shards of the index and there is nothing to relocate. Relocating shards of the previous indices changes the
+                    // weights, hence the delta is computed again.
+                    continue;
+                }
                 IndexMetadata indexMetadata = metadata.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -583,8 +606,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = weightDelta(indices[i]);
             }
             new IntroSorter() {
 
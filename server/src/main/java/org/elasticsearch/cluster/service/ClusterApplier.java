@@ -39,6 +39,11 @@ public interface ClusterApplier {
      */
     void onNewClusterState(String source, Supplier<ClusterState> clusterStateSupplier, ClusterApplyListener listener);
 
+    /**
+     * Returns the cumulated time spent in the steps of applying cluster states
+     */
+    ClusterApplierRecordingService.Stats getStats();
+
     /**
      * Listener for results of cluster state application
      */
@@ -0,0 +1,175 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Records how much time the {@link ClusterApplierService} spent in each step of applying cluster states, e.g. in each
+ * {@link org.elasticsearch.cluster.ClusterStateApplier} and {@link org.elasticsearch.cluster.ClusterStateListener}, cumulated
+ * over all the cluster states that this node applied.
+ */
+public final class ClusterApplierRecordingService {
+
+    private final Map<String, Recording> recordings = new HashMap<>();
+
+    /**
+     * Adds the time of the tasks recorded by the given stop watch that match the given predicate to the cumulated recordings.
+     */
+    synchronized void updateStats(StopWatch stopWatch, Predicate<String> recordTask) {
+        for (StopWatch.TaskInfo taskInfo : stopWatch.taskInfo()) {
+            if (recordTask.test(taskInfo.getTaskName()) == false) {
+                continue;
+            }
+            final Recording recording = recordings.computeIfAbsent(taskInfo.getTaskName(), name -> new Recording());
+            recording.count++;
+            recording.sumMillis += taskInfo.getTime().millis();
+        }
+    }
+
+    public synchronized Stats getStats() {
+        final Map<String, Recording> copy = new HashMap<>(recordings.size());
+        for (Map.Entry<String, Recording> entry : recordings.entrySet()) {
+            copy.put(entry.getKey(), new Recording(entry.getValue().count, entry.getValue().sumMillis));
+        }
+        return new Stats(copy);
+    }
+
+    public static class Stats implements Writeable, ToXContentFragment {
+
+        private final Map<String, Recording> recordings;
+
+        public Stats(Map<String, Recording> recordings) {
+            // most expensive steps first
+            final LinkedHashMap<String, Recording> sorted = new LinkedHashMap<>(recordings.size());
+            recordings.entrySet().stream()
+                .sorted(Map.Entry.<String, Recording>comparingByValue(Comparator.comparingLong(Recording::getSumMillis)).reversed()
+                    .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+            this.recordings = Collections.unmodifiableMap(sorted);
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            this(in.readMap(StreamInput::readString, Recording::new));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeMap(recordings, StreamOutput::writeString, (o, recording) -> recording.writeTo(o));
+        }
+
+        public Map<String, Recording> getRecordings() {
+            return recordings;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("cluster_applier_stats");
+            builder.startArray("recordings");
+            for (Map.Entry<String, Recording> entry : recordings.entrySet()) {
+                builder.startObject();
+                builder.field("name", entry.getKey());
+                builder.field("cumulative_execution_count", entry.getValue().count);
+                builder.field("cumulative_execution_time_millis", entry.getValue().sumMillis);
+                builder.endObject();
+            }
+            builder.endArray();
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Stats stats = (Stats) o;
+            return Objects.equals(recordings, stats.recordings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(recordings);
+        }
+    }
+
+    public static class Recording implements Writeable {
+
+        private long count;
+        private long sumMillis;
+
+        Recording() {
+        }
+
+        public Recording(long count, long sumMillis) {
+            this.count = count;
+            this.sumMillis = sumMillis;
+        }
+
+        Recording(StreamInput in) throws IOException {
+            this(in.readVLong(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(sumMillis);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSumMillis() {
+            return sumMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Recording recording = (Recording) o;
+            return count == recording.count && sumMillis == recording.sumMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, sumMillis);
+        }
+
+        @Override
+        public String toString() {
+            return "Recording{count=" + count + ", sumMillis=" + sumMillis + '}';
+        }
+    }
+}
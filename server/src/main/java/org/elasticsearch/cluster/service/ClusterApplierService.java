@@ -97,6 +97,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private NodeConnectionsService nodeConnectionsService;
 
+    private final ClusterApplierRecordingService recordingService = new ClusterApplierRecordingService();
+
     public ClusterApplierService(String nodeName, Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
         this.clusterSettings = clusterSettings;
         this.threadPool = threadPool;
@@ -389,7 +391,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         final StopWatch stopWatch = new StopWatch();
         final ClusterState newClusterState;
         try {
-            try (Releasable ignored = stopWatch.timing("running task [" + task.source + ']')) {
+            try (Releasable ignored = stopWatch.timing(RUNNING_TASK_PREFIX + task.source + ']')) {
                 newClusterState = task.apply(previousClusterState);
             }
         } catch (Exception e) {
@@ -416,6 +418,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
             }
             try {
                 applyChanges(task, previousClusterState, newClusterState, stopWatch);
+                recordingService.updateStats(stopWatch, ClusterApplierService::isRecordedTask);
                 TimeValue executionTime = TimeValue.timeValueMillis(Math.max(0, currentTimeInMillis() - startTimeMS));
                 logger.debug("processing [{}]: took [{}] done applying updated cluster state (version: {}, uuid: {})", task.source,
                     executionTime, newClusterState.version(),
@@ -507,16 +510,17 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
     }
 
     private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
-        callClusterStateListener(clusterChangedEvent, stopWatch, clusterStateListeners);
-        callClusterStateListener(clusterChangedEvent, stopWatch, timeoutClusterStateListeners.keySet());
+        callClusterStateListener(clusterChangedEvent, stopWatch, clusterStateListeners, "notifying listener [");
+        callClusterStateListener(clusterChangedEvent, stopWatch, timeoutClusterStateListeners.keySet(),
+            NOTIFYING_TIMEOUT_LISTENER_PREFIX);
     }
 
     private void callClusterStateListener(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch,
-                                          Collection<? extends ClusterStateListener> listeners) {
+                                          Collection<? extends ClusterStateListener> listeners, String taskPrefix) {
         for (ClusterStateListener listener : listeners) {
             try {
                 logger.trace("calling [{}] with change to version [{}]", listener, clusterChangedEvent.state().version());
-                try (Releasable ignored = stopWatch.timing("notifying listener [" + listener + "]")) {
+                try (Releasable ignored = stopWatch.timing(taskPrefix + listener + "]")) {
                     listener.clusterChanged(clusterChangedEvent);
                 }
             } catch (Exception ex) {
@@ -525,6 +529,22 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
     }
 
+    private static final String RUNNING_TASK_PREFIX = "running task [";
+    private static final String NOTIFYING_TIMEOUT_LISTENER_PREFIX = "notifying timeout listener [";
+
+    /**
+     * The time spent running the update tasks and notifying the timeout listeners isn't recorded, their names change with almost
+     * every cluster state.
+     */
+    private static boolean isRecordedTask(String taskName) {
+        return taskName.startsWith(RUNNING_TASK_PREFIX) == false && taskName.startsWith(NOTIFYING_TIMEOUT_LISTENER_PREFIX) == false;
+    }
+
+    @Override
+    public ClusterApplierRecordingService.Stats getStats() {
+        return recordingService.getStats();
+    }
+
     private static class SafeClusterApplyListener implements ClusterApplyListener {
         private final ClusterApplyListener listener;
         protected final Supplier<ThreadContext.StoredContext> context;
@@ -25,6 +25,7 @@ import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -61,6 +62,12 @@ import java.util.function.ToLongBiFunction;
  * <li>Locks on the list could be taken per node being modified instead of globally.</li>
  * </ol>
  * <p>
+ * Caches built with the {@link EvictionPolicy#TINY_LFU} policy take the first two of these: reads record the entry in a
+ * lossy, striped {@link ReadBuffer} instead of promoting it, and the buffer is applied to the LRU lists in batches by
+ * whichever thread fills a stripe and manages to acquire the LRU lock without waiting, or by the next write. These caches
+ * also keep new entries in a small LRU window, from which an entry only replaces the least recently used entry of the
+ * main LRU list if a {@link FrequencySketch} of the recent accesses estimates that it was accessed more frequently.
+ * <p>
  * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
  * invalidation) or an explicit call to {@link #refresh()}.
  *
@@ -97,10 +104,52 @@ public class Cache<K, V> {
     private RemovalListener<K, V> removalListener = notification -> {
     };
 
+    // the policy deciding which entries to evict
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+
+    // the reads that are yet to be applied to the LRU lists, null unless the policy is TINY_LFU
+    private ReadBuffer<Entry<K, V>> readBuffer;
+
+    // the estimated access frequencies of the keys, null unless the policy is TINY_LFU
+    private FrequencySketch frequencySketch;
+
     // use CacheBuilder to construct
     Cache() {
     }
 
+    /**
+     * The policies that decide which entries a cache evicts once it exceeds its maximum weight.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used entries. Every read promotes its entry under a lock that is shared by the whole cache.
+         */
+        LRU,
+        /**
+         * Evicts the least recently used entries of a main LRU list, but only admits new entries to that list if they were
+         * accessed more frequently than the entry they would replace (W-TinyLFU). Reads are recorded in a buffer that is
+         * applied in batches, so they do not wait on a lock that is shared by the whole cache, at the price of an approximate
+         * LRU order.
+         */
+        TINY_LFU;
+
+        public static EvictionPolicy fromString(String policy) {
+            switch (policy) {
+                case "lru":
+                    return LRU;
+                case "tiny_lfu":
+                    return TINY_LFU;
+                default:
+                    throw new IllegalArgumentException("unknown eviction policy [" + policy + "], must be one of [lru, tiny_lfu]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     void setExpireAfterAccessNanos(long expireAfterAccessNanos) {
         if (expireAfterAccessNanos <= 0) {
             throw new IllegalArgumentException("expireAfterAccessNanos <= 0");
@@ -144,6 +193,23 @@ public class Cache<K, V> {
         this.removalListener = removalListener;
     }
 
+    void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        Objects.requireNonNull(evictionPolicy);
+        this.evictionPolicy = evictionPolicy;
+        if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+            this.readBuffer = new ReadBuffer<>();
+            this.frequencySketch = new FrequencySketch();
+        } else {
+            this.readBuffer = null;
+            this.frequencySketch = null;
+        }
+    }
+
+    // pkg-private for testing
+    EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
     /**
      * The relative time used to track time-based evictions.
      *
@@ -168,6 +234,8 @@ public class Cache<K, V> {
         Entry<K, V> before;
         Entry<K, V> after;
         State state = State.NEW;
+        // whether the entry is linked in the admission window rather than the main LRU list
+        boolean inWindow;
 
         Entry(K key, V value, long writeTime) {
             this.key = key;
@@ -284,14 +352,13 @@ public class Cache<K, V> {
         }
 
         /**
-         * remove an entry from the segment iff the future is done and the value is equal to the
-         * expected value
+         * remove an entry from the segment iff the future is done and its entry matches the given predicate
          *
          * @param key the key of the entry to remove from the cache
-         * @param value the value expected to be associated with the key
+         * @param matches the predicate that the entry associated with the key has to match
          * @param onRemoval a callback for the removed entry
          */
-        void remove(K key, V value, Consumer<CompletableFuture<Entry<K, V>>> onRemoval) {
+        void remove(K key, Predicate<Entry<K, V>> matches, Consumer<CompletableFuture<Entry<K, V>>> onRemoval) {
             CompletableFuture<Entry<K, V>> future;
             boolean removed = false;
             try (ReleasableLock ignored = writeLock.acquire()) {
@@ -300,7 +367,7 @@ public class Cache<K, V> {
                     if (future != null) {
                         if (future.isDone()) {
                             Entry<K, V> entry = future.get();
-                            if (Objects.equals(value, entry.value)) {
+                            if (matches.test(entry)) {
                                 removed = map.remove(key, future);
                             }
                         }
@@ -345,10 +412,22 @@ public class Cache<K, V> {
         }
     }
 
-    Entry<K, V> head;
-    Entry<K, V> tail;
+    /**
+     * A doubly-linked list of entries, most recently used first.
+     */
+    private static final class LruList<K, V> {
+        Entry<K, V> head;
+        Entry<K, V> tail;
+        long weight;
+    }
+
+    // the main LRU list, which holds all entries unless the policy is TINY_LFU
+    private final LruList<K, V> lru = new LruList<>();
 
-    // lock protecting mutations to the LRU list
+    // the LRU list of new entries that were not yet admitted to the main list, only used if the policy is TINY_LFU
+    private final LruList<K, V> window = new LruList<>();
+
+    // lock protecting mutations to the LRU lists
     private final ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
     /**
@@ -367,11 +446,45 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            if (readBuffer == null) {
+                promote(entry, now);
+            } else {
+                recordRead(entry, now);
+            }
             return entry.value;
         }
     }
 
+    private void recordRead(Entry<K, V> entry, long now) {
+        if (readBuffer.offer(entry)) {
+            // the stripe of this thread is full, apply the buffered reads unless another thread is busy with the LRU lists
+            try (ReleasableLock lock = lruLock.tryAcquire()) {
+                if (lock != null) {
+                    drainReadBuffer();
+                    evict(now);
+                }
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        assert lruLock.isHeldByCurrentThread();
+
+        if (readBuffer != null) {
+            readBuffer.drainTo(this::onRead);
+        }
+    }
+
+    private void onRead(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        // the entry might have been removed since it was read, or not be linked yet if it was read right after its insertion
+        if (entry.state == State.EXISTING) {
+            frequencySketch.increment(entry.key.hashCode());
+            relinkAtHead(entry);
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -478,8 +591,8 @@ public class Cache<K, V> {
         Tuple<Entry<K, V>, Entry<K, V>> tuple = segment.put(key, value, now);
         boolean replaced = false;
         try (ReleasableLock ignored = lruLock.acquire()) {
-            if (tuple.v2() != null && tuple.v2().state == State.EXISTING) {
-                if (unlink(tuple.v2())) {
+            if (tuple.v2() != null) {
+                if (unlink(tuple.v2()) || discard(tuple.v2())) {
                     replaced = true;
                 }
             }
@@ -525,7 +638,7 @@ public class Cache<K, V> {
      */
     public void invalidate(K key, V value) {
         CacheSegment<K, V> segment = getCacheSegment(key);
-        segment.remove(key, value, invalidationConsumer);
+        segment.remove(key, entry -> Objects.equals(value, entry.value), invalidationConsumer);
     }
 
     /**
@@ -534,6 +647,7 @@ public class Cache<K, V> {
      */
     public void invalidateAll() {
         Entry<K, V> h;
+        Entry<K, V> w;
 
         boolean[] haveSegmentLock = new boolean[NUMBER_OF_SEGMENTS];
         try {
@@ -542,14 +656,22 @@ public class Cache<K, V> {
                 haveSegmentLock[i] = true;
             }
             try (ReleasableLock ignored = lruLock.acquire()) {
-                h = head;
+                h = lru.head;
+                w = window.head;
                 Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
-                Entry<K, V> current = head;
-                while (current != null) {
-                    current.state = State.DELETED;
-                    current = current.after;
+                for (LruList<K, V> list : Arrays.asList(window, lru)) {
+                    Entry<K, V> current = list.head;
+                    while (current != null) {
+                        current.state = State.DELETED;
+                        current = current.after;
+                    }
+                    list.head = list.tail = null;
+                    list.weight = 0;
+                }
+                if (readBuffer != null) {
+                    // release the references to the removed entries
+                    readBuffer.drainTo(e -> {});
                 }
-                head = tail = null;
                 count = 0;
                 weight = 0;
             }
@@ -560,6 +682,10 @@ public class Cache<K, V> {
                 }
             }
         }
+        while (w != null) {
+            removalListener.onRemoval(new RemovalNotification<>(w.key, w.value, RemovalNotification.RemovalReason.INVALIDATED));
+            w = w.after;
+        }
         while (h != null) {
             removalListener.onRemoval(new RemovalNotification<>(h.key, h.value, RemovalNotification.RemovalReason.INVALIDATED));
             h = h.after;
@@ -572,6 +698,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffer();
             evict(now);
         }
     }
@@ -597,13 +724,14 @@ public class Cache<K, V> {
     /**
      * An LRU sequencing of the keys in the cache that supports removal. This sequence is not protected from mutations
      * to the cache (except for {@link Iterator#remove()}. The result of iteration under any other mutation is
-     * undefined.
+     * undefined. With the {@link EvictionPolicy#TINY_LFU} policy, the keys in the admission window come first and the
+     * order does not reflect the reads that are still buffered.
      *
      * @return an LRU-ordered {@link Iterable} over the keys in the cache
      */
     public Iterable<K> keys() {
         return () -> new Iterator<K>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator();
 
             @Override
             public boolean hasNext() {
@@ -631,7 +759,7 @@ public class Cache<K, V> {
      */
     public Iterable<V> values() {
         return () -> new Iterator<V>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator();
 
             @Override
             public boolean hasNext() {
@@ -654,9 +782,9 @@ public class Cache<K, V> {
         private Entry<K, V> current;
         private Entry<K, V> next;
 
-        CacheIterator(Entry<K, V> head) {
+        CacheIterator() {
             current = null;
-            next = head;
+            next = window.head != null ? window.head : lru.head;
         }
 
         @Override
@@ -668,6 +796,10 @@ public class Cache<K, V> {
         public Entry<K, V> next() {
             current = next;
             next = next.after;
+            if (next == null && current.inWindow) {
+                // continue with the main list once the window is exhausted
+                next = lru.head;
+            }
             return current;
         }
 
@@ -676,7 +808,7 @@ public class Cache<K, V> {
             Entry<K, V> entry = current;
             if (entry != null) {
                 CacheSegment<K, V> segment = getCacheSegment(entry.key);
-                segment.remove(entry.key, entry.value, f -> {});
+                segment.remove(entry.key, e -> e == entry, f -> {});
                 try (ReleasableLock ignored = lruLock.acquire()) {
                     current = null;
                     delete(entry, RemovalNotification.RemovalReason.INVALIDATED);
@@ -730,6 +862,7 @@ public class Cache<K, V> {
     private boolean promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffer();
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -738,10 +871,15 @@ public class Cache<K, V> {
                     relinkAtHead(entry);
                     break;
                 case NEW:
-                    linkAtHead(entry);
+                    // with TINY_LFU, new entries have to prove themselves in the window before they are admitted to the main list
+                    linkAtHead(entry, evictionPolicy == EvictionPolicy.TINY_LFU && maximumWeight != -1);
                     break;
             }
             if (promoted) {
+                if (frequencySketch != null) {
+                    frequencySketch.ensureCapacity(count);
+                    frequencySketch.increment(entry.key.hashCode());
+                }
                 evict(now);
             }
         }
@@ -751,8 +889,45 @@ public class Cache<K, V> {
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
-        while (tail != null && shouldPrune(tail, now)) {
-            evictEntry(tail);
+        if (evictionPolicy == EvictionPolicy.TINY_LFU) {
+            evictTinyLfu(now);
+        } else {
+            while (lru.tail != null && shouldPrune(lru.tail, now)) {
+                evictEntry(lru.tail);
+            }
+        }
+    }
+
+    private void evictTinyLfu(long now) {
+        assert lruLock.isHeldByCurrentThread();
+
+        while (window.tail != null && isExpired(window.tail, now)) {
+            evictEntry(window.tail);
+        }
+        while (lru.tail != null && isExpired(lru.tail, now)) {
+            evictEntry(lru.tail);
+        }
+        if (maximumWeight == -1) {
+            return;
+        }
+        final long windowMaximumWeight = Math.max(1, maximumWeight / 100);
+        while (exceedsWeight()) {
+            // the least recently used entry of the window competes with the least recently used entry of the main list
+            final Entry<K, V> candidate = window.weight > windowMaximumWeight ? window.tail : null;
+            final Entry<K, V> victim = lru.tail;
+            if (candidate == null || victim == null) {
+                evictEntry(victim != null ? victim : window.tail);
+            } else if (frequencySketch.frequency(candidate.key.hashCode()) > frequencySketch.frequency(victim.key.hashCode())) {
+                evictEntry(victim);
+            } else {
+                evictEntry(candidate);
+            }
+        }
+        // admit the entries that no longer fit in the window and won against the main list
+        while (window.weight > windowMaximumWeight) {
+            final Entry<K, V> candidate = window.tail;
+            unlink(candidate);
+            linkAtHead(candidate, false);
         }
     }
 
@@ -761,7 +936,8 @@ public class Cache<K, V> {
 
         CacheSegment<K, V> segment = getCacheSegment(entry.key);
         if (segment != null) {
-            segment.remove(entry.key, entry.value, f -> {});
+            // only remove the mapping if it still points to this entry, it could have been replaced with an equal value
+            segment.remove(entry.key, e -> e == entry, f -> {});
         }
         delete(entry, RemovalNotification.RemovalReason.EVICTED);
     }
@@ -769,11 +945,25 @@ public class Cache<K, V> {
     private void delete(Entry<K, V> entry, RemovalNotification.RemovalReason removalReason) {
         assert lruLock.isHeldByCurrentThread();
 
-        if (unlink(entry)) {
+        if (unlink(entry) || discard(entry)) {
             removalListener.onRemoval(new RemovalNotification<>(entry.key, entry.value, removalReason));
         }
     }
 
+    /**
+     * Marks an entry that was removed from its segment before it was linked as deleted, so that it does not get linked later.
+     */
+    private boolean discard(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+
+        if (entry.state == State.NEW) {
+            entry.state = State.DELETED;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
     private boolean shouldPrune(Entry<K, V> entry, long now) {
         return exceedsWeight() || isExpired(entry, now);
     }
@@ -791,15 +981,16 @@ public class Cache<K, V> {
         assert lruLock.isHeldByCurrentThread();
 
         if (entry.state == State.EXISTING) {
+            final LruList<K, V> list = entry.inWindow ? window : lru;
             final Entry<K, V> before = entry.before;
             final Entry<K, V> after = entry.after;
 
             if (before == null) {
                 // removing the head
-                assert head == entry;
-                head = after;
-                if (head != null) {
-                    head.before = null;
+                assert list.head == entry;
+                list.head = after;
+                if (list.head != null) {
+                    list.head.before = null;
                 }
             } else {
                 // removing inner element
@@ -809,10 +1000,10 @@ public class Cache<K, V> {
 
             if (after == null) {
                 // removing tail
-                assert tail == entry;
-                tail = before;
-                if (tail != null) {
-                    tail.after = null;
+                assert list.tail == entry;
+                list.tail = before;
+                if (list.tail != null) {
+                    list.tail.after = null;
                 }
             } else {
                 // removing inner element
@@ -820,8 +1011,10 @@ public class Cache<K, V> {
                 entry.after = null;
             }
 
+            final long entryWeight = weigher.applyAsLong(entry.key, entry.value);
             count--;
-            weight -= weigher.applyAsLong(entry.key, entry.value);
+            weight -= entryWeight;
+            list.weight -= entryWeight;
             entry.state = State.DELETED;
             return true;
         } else {
@@ -829,30 +1022,35 @@ public class Cache<K, V> {
         }
     }
 
-    private void linkAtHead(Entry<K, V> entry) {
+    private void linkAtHead(Entry<K, V> entry, boolean inWindow) {
         assert lruLock.isHeldByCurrentThread();
 
-        Entry<K, V> h = head;
+        final LruList<K, V> list = inWindow ? window : lru;
+        Entry<K, V> h = list.head;
         entry.before = null;
-        entry.after = head;
-        head = entry;
+        entry.after = list.head;
+        list.head = entry;
         if (h == null) {
-            tail = entry;
+            list.tail = entry;
         } else {
             h.before = entry;
         }
 
+        final long entryWeight = weigher.applyAsLong(entry.key, entry.value);
         count++;
-        weight += weigher.applyAsLong(entry.key, entry.value);
+        weight += entryWeight;
+        list.weight += entryWeight;
+        entry.inWindow = inWindow;
         entry.state = State.EXISTING;
     }
 
     private void relinkAtHead(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
-        if (head != entry) {
+        final boolean inWindow = entry.inWindow;
+        if ((inWindow ? window : lru).head != entry) {
             unlink(entry);
-            linkAtHead(entry);
+            linkAtHead(entry, inWindow);
         }
     }
 
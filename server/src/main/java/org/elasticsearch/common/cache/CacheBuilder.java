@@ -30,6 +30,7 @@ public class CacheBuilder<K, V> {
     private long expireAfterWriteNanos = -1;
     private ToLongBiFunction<K, V> weigher;
     private RemovalListener<K, V> removalListener;
+    private Cache.EvictionPolicy evictionPolicy;
 
     public static <K, V> CacheBuilder<K, V> builder() {
         return new CacheBuilder<>();
@@ -90,6 +91,18 @@ public class CacheBuilder<K, V> {
         return this;
     }
 
+    /**
+     * Sets the policy that decides which entries are evicted once the cache exceeds its maximum weight. Defaults to
+     * {@link Cache.EvictionPolicy#LRU}.
+     *
+     * @param evictionPolicy The eviction policy. Must not be {@code null}.
+     */
+    public CacheBuilder<K, V> setEvictionPolicy(Cache.EvictionPolicy evictionPolicy) {
+        Objects.requireNonNull(evictionPolicy);
+        this.evictionPolicy = evictionPolicy;
+        return this;
+    }
+
     public Cache<K, V> build() {
         Cache<K, V> cache = new Cache<>();
         if (maximumWeight != -1) {
@@ -107,6 +120,9 @@ public class CacheBuilder<K, V> {
         if (removalListener != null) {
             cache.setRemovalListener(removalListener);
         }
+        if (evictionPolicy != null) {
+            cache.setEvictionPolicy(evictionPolicy);
+        }
         return cache;
     }
 }
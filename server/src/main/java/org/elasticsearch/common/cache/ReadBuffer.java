@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lossy buffer of the entries that were read from a {@link Cache}, which allows reads to record their access without taking the
+ * LRU lock. The buffer is striped by thread so that concurrent readers rarely contend on the same stripe, and elements are dropped
+ * rather than waited for when a stripe is full or contended: the reads only serve to order and admit entries, so losing a few of them
+ * is fine.
+ * <p>
+ * Elements can be offered concurrently but must only be drained by a single thread at a time.
+ *
+ * @param <E> the type of the elements
+ */
+final class ReadBuffer<E> {
+
+    static final int STRIPE_SIZE = 16;
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+
+    private final Stripe<E>[] stripes;
+    private final int mask;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ReadBuffer() {
+        final int numberOfStripes = Integer.highestOneBit(Math.min(63, 4 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        stripes = new Stripe[numberOfStripes];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        mask = numberOfStripes - 1;
+    }
+
+    /**
+     * Offers an element to the stripe of the current thread, dropping it if that stripe is full or contended.
+     *
+     * @return whether the stripe is full and should be drained
+     */
+    boolean offer(E element) {
+        final long threadId = Thread.currentThread().getId();
+        return stripes[(int) (threadId ^ (threadId >>> 16)) & mask].offer(element);
+    }
+
+    /**
+     * Passes all buffered elements to the given consumer and removes them from the buffer.
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    private static final class Stripe<E> {
+        private final AtomicReferenceArray<E> elements = new AtomicReferenceArray<>(STRIPE_SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        // only written by the draining thread
+        private volatile long readCounter;
+
+        boolean offer(E element) {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            final long size = tail - head;
+            if (size >= STRIPE_SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                elements.lazySet((int) (tail & STRIPE_MASK), element);
+                return size + 1 == STRIPE_SIZE;
+            }
+            return false;
+        }
+
+        void drainTo(Consumer<E> consumer) {
+            long head = readCounter;
+            final long tail = writeCounter.get();
+            for (; head < tail; head++) {
+                final int index = (int) (head & STRIPE_MASK);
+                final E element = elements.get(index);
+                if (element == null) {
+                    // the writer claimed this slot but has not published its element yet, pick it up on the next drain
+                    break;
+                }
+                elements.lazySet(index, null);
+                consumer.accept(element);
+            }
+            readCounter = head;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm, which compresses less than DEFLATE but is several
+ * times faster. The content is split into blocks of up to {@link #BLOCK_SIZE} bytes that are compressed independently, each preceded
+ * by its uncompressed and compressed length, and is terminated by an empty block.
+ */
+public class Lz4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+
+    /**
+     * The maximum number of uncompressed bytes per block.
+     */
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * The number of bytes preceding each block: its uncompressed length followed by its compressed length.
+     */
+    public static final int BLOCK_HEADER_LENGTH = 2 * Integer.BYTES;
+
+    /**
+     * Returns the maximum length of the given number of bytes once compressed with LZ4.
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int headerLength() {
+        return HEADER.length;
+    }
+
+    // The buffers of a compressing or decompressing stream, which are large enough that we want to reuse them
+    private static final class Buffers {
+        final byte[] uncompressed = new byte[BLOCK_SIZE];
+        final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+        final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+        boolean inUse;
+    }
+
+    private static final ThreadLocal<Buffers> buffersRef = ThreadLocal.withInitial(Buffers::new);
+
+    private static Buffers acquireBuffers() {
+        Buffers buffers = buffersRef.get();
+        if (buffers.inUse) {
+            // Nested streams should not happen but we still handle them safely by using fresh buffers
+            buffers = new Buffers();
+        }
+        buffers.inUse = true;
+        return buffers;
+    }
+
+    @Override
+    public InputStream threadLocalInputStream(InputStream in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (len != HEADER.length || headerBytes[i] != HEADER[i]) {
+                throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+            }
+        }
+        return new Lz4InputStream(in, acquireBuffers());
+    }
+
+    @Override
+    public OutputStream threadLocalOutputStream(OutputStream out) throws IOException {
+        out.write(HEADER);
+        return new Lz4OutputStream(out, acquireBuffers());
+    }
+
+    @Override
+    public BytesReference uncompress(BytesReference bytesReference) throws IOException {
+        final BytesStreamOutput buffer = new BytesStreamOutput();
+        try (InputStream in = threadLocalInputStream(bytesReference.streamInput())) {
+            in.transferTo(buffer);
+        }
+        return buffer.bytes();
+    }
+
+    @Override
+    public BytesReference compress(BytesReference bytesReference) throws IOException {
+        final BytesStreamOutput buffer = new BytesStreamOutput();
+        try (OutputStream out = threadLocalOutputStream(buffer)) {
+            bytesReference.writeTo(out);
+        }
+        return buffer.bytes();
+    }
+
+    private static final class Lz4OutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final Buffers buffers;
+        private final byte[] blockHeader = new byte[BLOCK_HEADER_LENGTH];
+        private int length;
+        private boolean closed;
+
+        Lz4OutputStream(OutputStream out, Buffers buffers) {
+            this.out = out;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == BLOCK_SIZE) {
+                writeBlock();
+            }
+            buffers.uncompressed[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (length == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                final int toCopy = Math.min(len, BLOCK_SIZE - length);
+                System.arraycopy(b, off, buffers.uncompressed, length, toCopy);
+                length += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (length > 0) {
+                writeBlock();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    if (length > 0) {
+                        writeBlock();
+                    }
+                    // the empty block marks the end of the stream
+                    writeBlockHeader(0, 0);
+                    out.close();
+                } finally {
+                    buffers.inUse = false;
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            final ByteArrayDataOutput compressed = new ByteArrayDataOutput(buffers.compressed);
+            LZ4.compress(buffers.uncompressed, 0, length, compressed, buffers.hashTable);
+            writeBlockHeader(length, compressed.getPosition());
+            out.write(buffers.compressed, 0, compressed.getPosition());
+            length = 0;
+        }
+
+        private void writeBlockHeader(int uncompressedLength, int compressedLength) throws IOException {
+            writeInt(uncompressedLength, 0);
+            writeInt(compressedLength, Integer.BYTES);
+            out.write(blockHeader);
+        }
+
+        private void writeInt(int value, int offset) {
+            blockHeader[offset] = (byte) (value >>> 24);
+            blockHeader[offset + 1] = (byte) (value >>> 16);
+            blockHeader[offset + 2] = (byte) (value >>> 8);
+            blockHeader[offset + 3] = (byte) value;
+        }
+    }
+
+    private static final class Lz4InputStream extends InputStream {
+
+        private final InputStream in;
+        private final Buffers buffers;
+        private final byte[] blockHeader = new byte[BLOCK_HEADER_LENGTH];
+        private int position;
+        private int length;
+        private boolean endOfStream;
+        private boolean closed;
+
+        Lz4InputStream(InputStream in, Buffers buffers) {
+            this.in = in;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (ensureAvailable() == false) {
+                return -1;
+            }
+            return buffers.uncompressed[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (ensureAvailable() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, length - position);
+            System.arraycopy(buffers.uncompressed, position, b, off, toCopy);
+            position += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return length - position;
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            while (position == length) {
+                if (endOfStream) {
+                    return false;
+                }
+                readBlock();
+            }
+            return true;
+        }
+
+        private void readBlock() throws IOException {
+            readFully(blockHeader, BLOCK_HEADER_LENGTH);
+            final int uncompressedLength = readInt(0);
+            final int compressedLength = readInt(Integer.BYTES);
+            if (uncompressedLength < 0 || uncompressedLength > BLOCK_SIZE
+                || compressedLength < 0 || compressedLength > maxCompressedLength(uncompressedLength)) {
+                throw new IOException("corrupted LZ4 block header, uncompressed length [" + uncompressedLength
+                    + "], compressed length [" + compressedLength + "]");
+            }
+            position = 0;
+            length = uncompressedLength;
+            if (uncompressedLength == 0) {
+                endOfStream = true;
+            } else {
+                readFully(buffers.compressed, compressedLength);
+                LZ4.decompress(new ByteArrayDataInput(buffers.compressed, 0, compressedLength), uncompressedLength,
+                    buffers.uncompressed, 0);
+            }
+        }
+
+        private void readFully(byte[] bytes, int len) throws IOException {
+            int read = 0;
+            while (read < len) {
+                final int r = in.read(bytes, read, len - read);
+                if (r == -1) {
+                    throw new EOFException("unexpected end of LZ4 compressed stream");
+                }
+                read += r;
+            }
+        }
+
+        private int readInt(int offset) {
+            return ((blockHeader[offset] & 0xFF) << 24) | ((blockHeader[offset + 1] & 0xFF) << 16)
+                | ((blockHeader[offset + 2] & 0xFF) << 8) | (blockHeader[offset + 3] & 0xFF);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                buffers.inUse = false;
+                in.close();
+            }
+        }
+    }
+}
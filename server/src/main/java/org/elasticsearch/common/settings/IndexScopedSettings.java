@@ -160,6 +160,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexModule.INDEX_QUERY_CACHE_ENABLED_SETTING,
             FsDirectoryFactory.INDEX_LOCK_FACTOR_SETTING,
             EngineConfig.INDEX_CODEC_SETTING,
+            EngineConfig.INDEX_VERSION_MAP_TYPE_SETTING,
             IndexMetadata.SETTING_WAIT_FOR_ACTIVE_SHARDS,
             IndexSettings.DEFAULT_PIPELINE,
             IndexSettings.FINAL_PIPELINE,
@@ -272,6 +272,18 @@ public class Setting<T> implements ToXContentObject {
         this(new SimpleKey(key), fallBackSetting, parser, properties);
     }
 
+    /**
+     * Creates a new Setting instance
+     * @param key the settings key for this setting.
+     * @param fallBackSetting a setting to fall back to if the current setting is not set.
+     * @param parser a parser that parses the string rep into a complex datatype.
+     * @param validator a {@link Validator} for validating this setting
+     * @param properties properties for this setting like scope, filtering...
+     */
+    public Setting(String key, Setting<T> fallBackSetting, Function<String, T> parser, Validator<T> validator, Property... properties) {
+        this(new SimpleKey(key), fallBackSetting, fallBackSetting::getRaw, parser, validator, properties);
+    }
+
     /**
      * Returns the settings key or a prefix if this setting is a group setting.
      * <b>Note: this method should not be used to retrieve a value from a {@link Settings} object.
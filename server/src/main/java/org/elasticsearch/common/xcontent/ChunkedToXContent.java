@@ -0,0 +1,36 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.common.xcontent;
+
+import java.util.Iterator;
+
+/**
+ * Objects that can render themselves as json/yaml/etc in a sequence of chunks rather than in a single call. This allows large
+ * objects to be serialized incrementally, for instance into a chunked http response, without ever holding the full serialized
+ * form in memory.
+ */
+public interface ChunkedToXContent {
+
+    /**
+     * Returns the chunks that, serialized one after another into the same {@link XContentBuilder}, produce the same output as a
+     * single call to {@link ToXContent#toXContent} would. Individual chunks usually leave the builder in the middle of an object or
+     * array, so they must all be serialized in order and into the same builder.
+     */
+    Iterator<? extends ToXContent> toXContentChunked(ToXContent.Params params);
+}
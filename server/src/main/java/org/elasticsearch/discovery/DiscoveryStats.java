@@ -19,6 +19,9 @@
 
 package org.elasticsearch.discovery;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -33,21 +36,36 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
 
     private final PendingClusterStateStats queueStats;
     private final PublishClusterStateStats publishStats;
+    private final ClusterApplierRecordingService.Stats applierRecordingStats;
 
     public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats) {
+        this(queueStats, publishStats, null);
+    }
+
+    public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats,
+                          @Nullable ClusterApplierRecordingService.Stats applierRecordingStats) {
         this.queueStats = queueStats;
         this.publishStats = publishStats;
+        this.applierRecordingStats = applierRecordingStats;
     }
 
     public DiscoveryStats(StreamInput in) throws IOException {
         queueStats = in.readOptionalWriteable(PendingClusterStateStats::new);
         publishStats = in.readOptionalWriteable(PublishClusterStateStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            applierRecordingStats = in.readOptionalWriteable(ClusterApplierRecordingService.Stats::new);
+        } else {
+            applierRecordingStats = null;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeOptionalWriteable(queueStats);
         out.writeOptionalWriteable(publishStats);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(applierRecordingStats);
+        }
     }
 
     @Override
@@ -59,6 +77,9 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         if (publishStats != null) {
             publishStats.toXContent(builder, params);
         }
+        if (applierRecordingStats != null) {
+            applierRecordingStats.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -74,4 +95,9 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
     public PublishClusterStateStats getPublishStats() {
         return publishStats;
     }
+
+    @Nullable
+    public ClusterApplierRecordingService.Stats getApplierRecordingStats() {
+        return applierRecordingStats;
+    }
 }
@@ -31,6 +31,8 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.rest.AbstractRestChannel;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -97,23 +99,21 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         String opaque = null;
         String contentLength = null;
         try {
-            final BytesReference content = restResponse.content();
-            if (content instanceof Releasable) {
-                toClose.add((Releasable) content);
-            }
-
-            BytesReference finalContent = content;
-            try {
-                if (request.method() == RestRequest.Method.HEAD) {
-                    finalContent = BytesArray.EMPTY;
+            final boolean isHeadRequest = isHeadRequest(restResponse);
+            final HttpResponse httpResponse;
+            if (restResponse instanceof ChunkedRestResponse && isHeadRequest == false && httpRequest.supportsChunkedResponses()) {
+                // the body is serialized chunk by chunk as the channel becomes writable, so its length is not known upfront
+                httpResponse = httpRequest.createResponse(restResponse.status(),
+                    ChunkedRestResponseBody.withThreadContext(((ChunkedRestResponse) restResponse).chunkedContent(), threadContext));
+                contentLength = "chunked";
+            } else {
+                final BytesReference content = restResponse.content();
+                if (content instanceof Releasable) {
+                    toClose.add((Releasable) content);
                 }
-            } catch (IllegalArgumentException ignored) {
-                assert restResponse.status() == RestStatus.METHOD_NOT_ALLOWED :
-                    "request HTTP method is unsupported but HTTP status is not METHOD_NOT_ALLOWED(405)";
+                httpResponse = httpRequest.createResponse(restResponse.status(), isHeadRequest ? BytesArray.EMPTY : content);
             }
 
-            final HttpResponse httpResponse = httpRequest.createResponse(restResponse.status(), finalContent);
-
             corsHandler.setCorsResponseHeaders(httpRequest, httpResponse);
 
             opaque = request.header(X_OPAQUE_ID);
@@ -127,9 +127,11 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
 
             // If our response doesn't specify a content-type header, set one
             setHeaderField(httpResponse, CONTENT_TYPE, restResponse.contentType(), false);
-            // If our response has no content-length, calculate and set one
-            contentLength = String.valueOf(restResponse.content().length());
-            setHeaderField(httpResponse, CONTENT_LENGTH, contentLength, false);
+            if (contentLength == null) {
+                // If our response has no content-length, calculate and set one
+                contentLength = String.valueOf(restResponse.content().length());
+                setHeaderField(httpResponse, CONTENT_LENGTH, contentLength, false);
+            }
 
             addCookies(httpResponse);
 
@@ -151,6 +153,16 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         }
     }
 
+    private boolean isHeadRequest(RestResponse restResponse) {
+        try {
+            return request.method() == RestRequest.Method.HEAD;
+        } catch (IllegalArgumentException ignored) {
+            assert restResponse.status() == RestStatus.METHOD_NOT_ALLOWED :
+                "request HTTP method is unsupported but HTTP status is not METHOD_NOT_ALLOWED(405)";
+            return false;
+        }
+    }
+
     private void setHeaderField(HttpResponse response, String headerField, String value) {
         setHeaderField(response, headerField, value, true);
     }
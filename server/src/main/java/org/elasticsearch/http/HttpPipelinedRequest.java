@@ -20,6 +20,8 @@
 package org.elasticsearch.http;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -51,6 +53,11 @@ public class HttpPipelinedRequest implements HttpRequest, HttpPipelinedMessage {
         return delegate.content();
     }
 
+    @Override
+    public ReleasableBytesReference retainContent() {
+        return delegate.retainContent();
+    }
+
     @Override
     public Map<String, List<String>> getHeaders() {
         return delegate.getHeaders();
@@ -76,6 +83,16 @@ public class HttpPipelinedRequest implements HttpRequest, HttpPipelinedMessage {
         return new HttpPipelinedResponse(sequence, delegate.createResponse(status, content));
     }
 
+    @Override
+    public boolean supportsChunkedResponses() {
+        return delegate.supportsChunkedResponses();
+    }
+
+    @Override
+    public HttpPipelinedResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        return new HttpPipelinedResponse(sequence, delegate.createResponse(status, content));
+    }
+
     @Override
     public void release() {
         delegate.release();
@@ -21,6 +21,8 @@ package org.elasticsearch.http;
 
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -54,6 +56,15 @@ public interface HttpRequest {
 
     BytesReference content();
 
+    /**
+     * Returns the {@link #content()} of this request together with a reference to any pooled resources backing it. Unlike
+     * {@link #content()}, the returned bytes remain valid after {@link #release()} has been invoked, until the returned reference
+     * and all of its retained slices have been closed. Implementations that do not use pooled resources may simply wrap the content.
+     */
+    default ReleasableBytesReference retainContent() {
+        return ReleasableBytesReference.wrap(content());
+    }
+
     /**
      * Get all of the headers and values associated with the headers. Modifications of this map are not supported.
      */
@@ -86,6 +97,22 @@ public interface HttpRequest {
      */
     HttpResponse createResponse(RestStatus status, BytesReference content);
 
+    /**
+     * Whether this request can be answered with a response that is sent in chunks using {@link #createResponse(RestStatus,
+     * ChunkedRestResponseBody)}.
+     */
+    default boolean supportsChunkedResponses() {
+        return false;
+    }
+
+    /**
+     * Create an http response from this request and the supplied status that sends the supplied body in chunks, serializing each chunk
+     * only once the channel is ready to send it. Only supported if {@link #supportsChunkedResponses()} returns {@code true}.
+     */
+    default HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+        throw new UnsupportedOperationException("chunked responses are not supported by [" + getClass().getName() + "]");
+    }
+
     @Nullable
     Exception getInboundException();
 
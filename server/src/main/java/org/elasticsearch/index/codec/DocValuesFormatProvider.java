@@ -0,0 +1,37 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.codec;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+/**
+ * Implemented by {@link MappedFieldType}s whose doc values need a dedicated {@link DocValuesFormat}, for instance
+ * to build additional per-segment data structures when doc values are flushed and merged. The doc values of such
+ * fields are written with the returned format by {@link PerFieldMappingPostingFormatCodec}.
+ */
+public interface DocValuesFormatProvider {
+
+    /**
+     * Returns the format to write the doc values of this field with, or {@code null} to use the default format.
+     * The format must be registered through SPI so that segments can be read back.
+     */
+    DocValuesFormat docValuesFormat();
+}
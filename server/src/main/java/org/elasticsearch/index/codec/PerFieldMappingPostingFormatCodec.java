@@ -21,6 +21,7 @@ package org.elasticsearch.index.codec;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.codecs.lucene87.Lucene87StoredFieldsFormat;
 import org.apache.lucene.codecs.lucene87.Lucene87Codec;
@@ -35,7 +36,9 @@ import org.elasticsearch.index.mapper.MapperService;
  * {@link MapperService} to lookup a {@link PostingsFormat} per field. This
  * allows users to change the low level postings format for individual fields
  * per index in real time via the mapping API. If no specific postings format is
- * configured for a specific field the default postings format is used.
+ * configured for a specific field the default postings format is used. Likewise,
+ * fields whose type is a {@link DocValuesFormatProvider} write their doc values
+ * with the format that the type provides.
  */
 public class PerFieldMappingPostingFormatCodec extends Lucene87Codec {
     private final Logger logger;
@@ -63,4 +66,16 @@ public class PerFieldMappingPostingFormatCodec extends Lucene87Codec {
         return super.getPostingsFormatForField(field);
     }
 
+    @Override
+    public DocValuesFormat getDocValuesFormatForField(String field) {
+        final MappedFieldType fieldType = mapperService.fieldType(field);
+        if (fieldType instanceof DocValuesFormatProvider) {
+            DocValuesFormat format = ((DocValuesFormatProvider) fieldType).docValuesFormat();
+            if (format != null) {
+                return format;
+            }
+        }
+        return super.getDocValuesFormatForField(field);
+    }
+
 }
@@ -22,6 +22,7 @@ package org.elasticsearch.index.engine;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexFileNames;
 import org.apache.lucene.index.IndexReader;
@@ -29,6 +30,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StandardDirectoryReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.QueryCache;
@@ -746,6 +748,22 @@ public abstract class Engine implements Closeable {
         return new CommitStats(getLastCommittedSegmentInfos());
     }
 
+    /**
+     * Returns <code>true</code> iff the given reader, acquired from this engine, sees exactly the last commit of this engine and none
+     * of the changes that were made since.
+     */
+    public final boolean isLastCommit(DirectoryReader reader) {
+        final SegmentInfos lastCommittedSegmentInfos = getLastCommittedSegmentInfos();
+        final DirectoryReader unwrapped = FilterDirectoryReader.unwrap(reader);
+        if (lastCommittedSegmentInfos == null || unwrapped instanceof StandardDirectoryReader == false) {
+            return false;
+        }
+        // the version of the segment infos is incremented on every change, including the ones that are not flushed yet
+        final SegmentInfos segmentInfos = ((StandardDirectoryReader) unwrapped).getSegmentInfos();
+        return segmentInfos.getGeneration() == lastCommittedSegmentInfos.getGeneration()
+            && segmentInfos.getVersion() == lastCommittedSegmentInfos.getVersion();
+    }
+
     /**
      * @return the persisted local checkpoint for this Engine
      */
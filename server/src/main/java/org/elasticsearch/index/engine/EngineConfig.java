@@ -44,6 +44,7 @@ import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -115,6 +116,40 @@ public final class EngineConfig {
         }
     }, Property.IndexScope, Property.NodeScope);
 
+    /**
+     * Index setting to select how the live version map stores the uid to version mappings of documents that were indexed since the
+     * last refresh. The default {@code object} type holds an object graph per document in a concurrent hash map. The {@code paged}
+     * type stores fixed-width entries in paged arrays, which uses less heap and creates far less garbage for update heavy indices.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<VersionMapType> INDEX_VERSION_MAP_TYPE_SETTING = new Setting<>("index.version_map.type",
+        VersionMapType.OBJECT.toString(), VersionMapType::fromString, Property.IndexScope);
+
+    /**
+     * The storage types of the live version map, see {@link #INDEX_VERSION_MAP_TYPE_SETTING}.
+     */
+    public enum VersionMapType {
+        OBJECT,
+        PAGED;
+
+        public static VersionMapType fromString(String type) {
+            switch (type) {
+                case "object":
+                    return OBJECT;
+                case "paged":
+                    return PAGED;
+                default:
+                    throw new IllegalArgumentException("unknown value for [index.version_map.type] must be one of [object, paged] but was: "
+                        + type);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
     private final TranslogConfig translogConfig;
 
     /**
@@ -26,6 +26,7 @@ import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.index.engine.EngineConfig.VersionMapType;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -38,6 +39,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     private final KeyedLock<BytesRef> keyedLock = new KeyedLock<>();
 
+    private final VersionMapType type;
+
     private static final class VersionLookup {
 
         /** Tracks bytes used by current map, i.e. what is freed on refresh. For deletes, which are also added to tombstones,
@@ -45,7 +48,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          *  clear this RAM. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
-        private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
+        private static final VersionLookup EMPTY = new VersionLookup(VersionMapType.OBJECT, Collections.emptyMap());
+        private final VersionMapType type;
         private final Map<BytesRef, VersionValue> map;
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
@@ -64,10 +68,36 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // the tombstone
         private final AtomicLong minDeleteTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        private VersionLookup(Map<BytesRef, VersionValue> map) {
+        private VersionLookup(VersionMapType type, Map<BytesRef, VersionValue> map) {
+            this.type = type;
             this.map = map;
         }
 
+        static VersionLookup newLookup(VersionMapType type, int expectedSize) {
+            switch (type) {
+                case OBJECT:
+                    return new VersionLookup(type, ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize));
+                case PAGED:
+                    return new VersionLookup(type, new PagedVersionTable(expectedSize));
+                default:
+                    throw new AssertionError("unknown version map type [" + type + "]");
+            }
+        }
+
+        /**
+         * Returns the bytes used by holding the given uid / version pair in this lookup.
+         */
+        long ramBytesUsed(BytesRef uid, VersionValue value) {
+            switch (type) {
+                case OBJECT:
+                    return BASE_BYTES_PER_CHM_ENTRY + value.ramBytesUsed() + BASE_BYTES_PER_BYTESREF + uid.bytes.length;
+                case PAGED:
+                    return PagedVersionTable.BYTES_PER_ENTRY + uid.length;
+                default:
+                    throw new AssertionError("unknown version map type [" + type + "]");
+            }
+        }
+
         VersionValue get(BytesRef key) {
             return map.get(key);
         }
@@ -123,9 +153,8 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
-                VersionLookup.EMPTY, false);
+        Maps(VersionMapType type) {
+            this(VersionLookup.newLookup(type, 16), VersionLookup.EMPTY, false);
         }
 
         boolean isSafeAccessMode() {
@@ -143,8 +172,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())), current,
-                shouldInheritSafeAccess());
+            return new Maps(VersionLookup.newLookup(current.type, current.size()), current, shouldInheritSafeAccess());
         }
 
         /**
@@ -155,10 +183,9 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         }
 
         void put(BytesRef uid, VersionValue version) {
-            long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-            long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
+            long ramAccounting = current.ramBytesUsed(uid, version);
             VersionValue previousValue = current.put(uid, version);
-            ramAccounting += previousValue == null ? 0 : -(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed);
+            ramAccounting += previousValue == null ? 0 : -current.ramBytesUsed(uid, previousValue);
             adjustRam(ramAccounting);
         }
 
@@ -173,8 +200,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             VersionValue previousValue = current.remove(uid);
             current.updateMinDeletedTimestamp(deleted);
             if (previousValue != null) {
-                long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
-                adjustRam(-(BASE_BYTES_PER_CHM_ENTRY + previousValue.ramBytesUsed() + uidRAMBytesUsed));
+                adjustRam(-current.ramBytesUsed(uid, previousValue));
             }
             if (old != VersionLookup.EMPTY) {
                 // we also need to remove it from the old map here to make sure we don't read this stale value while
@@ -191,10 +217,23 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap;
+
+    LiveVersionMap() {
+        this(VersionMapType.OBJECT);
+    }
+
+    /**
+     * @param type how the uid to version mappings are stored between refreshes, tombstones are not affected by this
+     */
+    LiveVersionMap(VersionMapType type) {
+        this.type = type;
+        this.maps = new Maps(type);
+        this.unsafeKeysMap = new Maps(type);
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -415,7 +454,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        maps = new Maps(type);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip.  Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -0,0 +1,232 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A uid to {@link IndexVersionValue} table for a single refresh generation of the {@link LiveVersionMap}. Instead of holding a
+ * {@link BytesRef}, a {@link VersionValue} and a {@link Translog.Location} object per document, the uids are stored in a paged
+ * open-addressing {@link BytesRefHash} and the values are stored as fixed-width rows of longs in a paged {@link LongArray} that
+ * is indexed by the id the hash assigns to the uid. This keeps the number of objects the GC has to trace constant, no matter
+ * how many documents were indexed since the last refresh.
+ * <p>
+ * The table is split into stripes that are guarded by their own monitor. Removed entries only mark their row as free, the
+ * memory is released when the whole table is dropped on refresh.
+ * <p>
+ * Only index operations are stored in the table, deletes are kept as tombstones by the {@link LiveVersionMap}.
+ */
+final class PagedVersionTable extends AbstractMap<BytesRef, VersionValue> {
+
+    private static final int STRIPE_BITS = 4;
+    private static final int NUM_STRIPES = 1 << STRIPE_BITS;
+
+    // the layout of a row
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int TRANSLOG_GENERATION = 3;
+    private static final int TRANSLOG_LOCATION = 4;
+    // holds the size of the translog location in the lower and the flags in the upper 32 bits
+    private static final int TRANSLOG_SIZE_AND_FLAGS = 5;
+    private static final int ROW_LONGS = 6;
+
+    private static final long FLAG_PRESENT = 1L << 32;
+    private static final long FLAG_HAS_LOCATION = 1L << 33;
+
+    /**
+     * The amortized number of bytes used per entry, not counting the bytes of the uid itself: the row, the offset of the uid in
+     * the key bytes, the cached hash and the id slot in the hash table, which is at most filled up to its default load factor.
+     */
+    static final long BYTES_PER_ENTRY = ROW_LONGS * Long.BYTES + Long.BYTES + Integer.BYTES + (long) (Long.BYTES / 0.6f);
+
+    private final Stripe[] stripes = new Stripe[NUM_STRIPES];
+
+    PagedVersionTable(int expectedSize) {
+        // the table is dropped on refresh while concurrent lookups might still hold a reference to it, so its pages must not
+        // be recycled and we rely on the GC to reclaim them
+        final BigArrays bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+        final int capacityPerStripe = Math.max(16, expectedSize / NUM_STRIPES);
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe(capacityPerStripe, bigArrays);
+        }
+    }
+
+    private Stripe stripe(BytesRef uid) {
+        // BytesRefHash uses the lower bits of the mixed hash to find the slot, use the upper bits to pick the stripe
+        return stripes[BitMixer.mix32(uid.hashCode()) >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        return stripe(uid).get(uid);
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        assert value instanceof IndexVersionValue : "only index operations are stored in the table but got " + value;
+        return stripe(uid).put(uid, value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        final BytesRef uid = (BytesRef) key;
+        return stripe(uid).remove(uid);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a point in time copy of the entries. This materializes every entry and is only meant to be used by tests and
+     * assertions.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final Map<BytesRef, VersionValue> copy = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(copy);
+        }
+        return copy.entrySet();
+    }
+
+    private static final class Stripe {
+
+        private final BigArrays bigArrays;
+        private final BytesRefHash uids;
+        private LongArray rows;
+        private int size;
+
+        Stripe(int capacity, BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            this.uids = new BytesRefHash(capacity, bigArrays);
+            this.rows = bigArrays.newLongArray((long) capacity * ROW_LONGS, false);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized VersionValue get(BytesRef uid) {
+            final long id = uids.find(uid);
+            if (id < 0) {
+                return null;
+            }
+            return read(id);
+        }
+
+        synchronized VersionValue put(BytesRef uid, VersionValue value) {
+            long id = uids.add(uid);
+            final VersionValue previous;
+            if (id < 0) {
+                id = -1 - id;
+                previous = read(id);
+            } else {
+                rows = bigArrays.grow(rows, (id + 1) * ROW_LONGS);
+                previous = null;
+            }
+            if (previous == null) {
+                size++;
+            }
+            write(id, value);
+            return previous;
+        }
+
+        synchronized VersionValue remove(BytesRef uid) {
+            final long id = uids.find(uid);
+            if (id < 0) {
+                return null;
+            }
+            final VersionValue previous = read(id);
+            if (previous != null) {
+                rows.set(id * ROW_LONGS + TRANSLOG_SIZE_AND_FLAGS, 0L);
+                size--;
+            }
+            return previous;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> copy) {
+            for (long id = 0; id < uids.size(); id++) {
+                final VersionValue value = read(id);
+                if (value != null) {
+                    copy.put(BytesRef.deepCopyOf(uids.get(id, new BytesRef())), value);
+                }
+            }
+        }
+
+        private VersionValue read(long id) {
+            final long offset = id * ROW_LONGS;
+            final long sizeAndFlags = rows.get(offset + TRANSLOG_SIZE_AND_FLAGS);
+            if ((sizeAndFlags & FLAG_PRESENT) == 0) {
+                return null;
+            }
+            final Translog.Location location;
+            if ((sizeAndFlags & FLAG_HAS_LOCATION) != 0) {
+                location = new Translog.Location(rows.get(offset + TRANSLOG_GENERATION), rows.get(offset + TRANSLOG_LOCATION),
+                    (int) sizeAndFlags);
+            } else {
+                location = null;
+            }
+            return new IndexVersionValue(location, rows.get(offset + VERSION), rows.get(offset + SEQ_NO), rows.get(offset + TERM));
+        }
+
+        private void write(long id, VersionValue value) {
+            final long offset = id * ROW_LONGS;
+            rows.set(offset + VERSION, value.version);
+            rows.set(offset + SEQ_NO, value.seqNo);
+            rows.set(offset + TERM, value.term);
+            final Translog.Location location = value.getLocation();
+            if (location != null) {
+                rows.set(offset + TRANSLOG_GENERATION, location.generation);
+                rows.set(offset + TRANSLOG_LOCATION, location.translogLocation);
+                rows.set(offset + TRANSLOG_SIZE_AND_FLAGS, FLAG_PRESENT | FLAG_HAS_LOCATION | (location.size & 0xFFFFFFFFL));
+            } else {
+                rows.set(offset + TRANSLOG_SIZE_AND_FLAGS, FLAG_PRESENT);
+            }
+        }
+    }
+}
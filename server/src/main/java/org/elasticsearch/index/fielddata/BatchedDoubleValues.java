@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.fielddata;
+
+import org.apache.lucene.util.ArrayUtil;
+
+import java.io.IOException;
+
+/**
+ * Wraps a {@link SortedNumericDoubleValues} to decode the values of a block
+ * of docs into a primitive array with a single call, so that they can be
+ * reduced in a tight loop rather than one doc at a time.
+ */
+public final class BatchedDoubleValues {
+
+    private final SortedNumericDoubleValues values;
+    private final NumericDoubleValues singleton;
+    private double[] buffer = new double[16];
+
+    public BatchedDoubleValues(SortedNumericDoubleValues values) {
+        this.values = values;
+        this.singleton = FieldData.unwrapSingleton(values);
+    }
+
+    /**
+     * The wrapped values, to read docs one at a time. Reading blocks
+     * advances them, so docs must be read in increasing order across both.
+     */
+    public SortedNumericDoubleValues getValues() {
+        return values;
+    }
+
+    /**
+     * Decode the values of the first {@code count} docs of {@code docs},
+     * which must be in increasing order, into {@link #buffer()}. The values
+     * of a doc are stored next to each other, in the order of the docs.
+     * @return the number of decoded values
+     */
+    public int read(int[] docs, int count) throws IOException {
+        if (singleton != null) {
+            // at most one value per doc, no need to look at value counts
+            buffer = ArrayUtil.grow(buffer, count);
+            final double[] buffer = this.buffer;
+            int numValues = 0;
+            for (int i = 0; i < count; i++) {
+                if (singleton.advanceExact(docs[i])) {
+                    buffer[numValues++] = singleton.doubleValue();
+                }
+            }
+            return numValues;
+        }
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (values.advanceExact(docs[i])) {
+                final int docValueCount = values.docValueCount();
+                buffer = ArrayUtil.grow(buffer, numValues + docValueCount);
+                for (int j = 0; j < docValueCount; j++) {
+                    buffer[numValues++] = values.nextValue();
+                }
+            }
+        }
+        return numValues;
+    }
+
+    /**
+     * The values decoded by the last call to {@link #read(int[], int)}.
+     * Only the first entries, up to the number that it returned, are valid.
+     */
+    public double[] buffer() {
+        return buffer;
+    }
+}
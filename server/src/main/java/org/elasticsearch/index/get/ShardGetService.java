@@ -43,6 +43,7 @@ import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.TranslogLeafReader;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
 import org.elasticsearch.index.mapper.DocumentMapper;
@@ -52,8 +53,10 @@ import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.RoutingFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import java.io.IOException;
@@ -167,7 +170,10 @@ public final class ShardGetService extends AbstractIndexShardComponent {
                                long ifSeqNo, long ifPrimaryTerm, FetchSourceContext fetchSourceContext) {
         fetchSourceContext = normalizeFetchSourceContent(fetchSourceContext, gFields);
 
-        Engine.GetResult get = indexShard.get(new Engine.Get(realtime, realtime, id)
+        // the translog holds the original source, a synthetic source needs the document to be refreshed to be consistent
+        DocumentMapper docMapper = mapperService.documentMapper();
+        boolean readFromTranslog = realtime && (docMapper == null || docMapper.sourceMapper().isSynthetic() == false);
+        Engine.GetResult get = indexShard.get(new Engine.Get(realtime, readFromTranslog, id)
             .version(version).versionType(versionType).setIfSeqNo(ifSeqNo).setIfPrimaryTerm(ifPrimaryTerm));
         assert get.isFromTranslog() == false || realtime : "should only read from translog if realtime enabled";
         if (get.exists() == false) {
@@ -268,6 +274,11 @@ public final class ShardGetService extends AbstractIndexShardComponent {
                 }
             }
 
+            if (source == null && fetchSourceContext.fetchSource() && get.isFromTranslog() == false
+                && docMapper.sourceMapper().isSynthetic()) {
+                source = loadSyntheticSource(id, docMapper, docIdAndVersion);
+            }
+
             // put stored fields into result objects
             if (!fieldVisitor.fields().isEmpty()) {
                 fieldVisitor.postProcess(mapperService::fieldType);
@@ -307,6 +318,19 @@ public final class ShardGetService extends AbstractIndexShardComponent {
             get.version(), get.exists(), source, documentFields, metadataFields);
     }
 
+    private BytesReference loadSyntheticSource(String id, DocumentMapper docMapper, DocIdAndVersion docIdAndVersion) {
+        // fields of a synthetic source are all backed by doc values, which are cheap to load without going through the caches
+        SyntheticSourceLoader loader = SyntheticSourceLoader.create(docMapper.mappers(),
+            fieldType -> fieldType.fielddataBuilder(shardId.getIndexName(), () -> {
+                throw new UnsupportedOperationException("SearchLookup not available");
+            }).build(new IndexFieldDataCache.None(), new NoneCircuitBreakerService()));
+        try {
+            return loader.leaf(docIdAndVersion.reader.getContext()).source(docIdAndVersion.docId);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to load synthetic source of id [" + id + "]", e);
+        }
+    }
+
     private static FieldsVisitor buildFieldsVisitors(String[] fields, FetchSourceContext fetchSourceContext) {
         if (fields == null || fields.length == 0) {
             return fetchSourceContext.fetchSource() ? new FieldsVisitor(true) : null;
@@ -272,6 +272,11 @@ public class BooleanFieldMapper extends FieldMapper {
         return new Builder(simpleName()).init(this);
     }
 
+    @Override
+    public boolean supportsSyntheticSource() {
+        return hasDocValues;
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
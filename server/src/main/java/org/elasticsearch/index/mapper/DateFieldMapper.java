@@ -570,6 +570,11 @@ public final class DateFieldMapper extends FieldMapper {
         return (DateFieldType) super.fieldType();
     }
 
+    @Override
+    public boolean supportsSyntheticSource() {
+        return hasDocValues && ignoreMalformed == false;
+    }
+
     @Override
     protected String contentType() {
         return fieldType().resolution.type();
@@ -148,6 +148,16 @@ public abstract class FieldMapper extends Mapper implements Cloneable {
         return false;
     }
 
+    /**
+     * Whether the values of this field can be loaded back from its doc values in order to rebuild
+     * a {@code synthetic} {@code _source}. This should only be the case if the doc values hold every
+     * value that was indexed, in a form that {@link MappedFieldType#docValueFormat} renders close
+     * enough to the original value.
+     */
+    public boolean supportsSyntheticSource() {
+        return false;
+    }
+
     /**
      * Parse the field value using the provided {@link ParseContext}.
      */
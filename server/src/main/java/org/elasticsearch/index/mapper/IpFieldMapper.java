@@ -382,6 +382,11 @@ public class IpFieldMapper extends FieldMapper {
         return (IpFieldType) super.fieldType();
     }
 
+    @Override
+    public boolean supportsSyntheticSource() {
+        return hasDocValues && ignoreMalformed == false;
+    }
+
     @Override
     protected String contentType() {
         return fieldType().typeName();
@@ -403,6 +403,12 @@ public final class KeywordFieldMapper extends FieldMapper {
         }
     }
 
+    @Override
+    public boolean supportsSyntheticSource() {
+        // values above ignore_above and normalized values can't be rebuilt from doc values
+        return hasDocValues && ignoreAbove == Integer.MAX_VALUE && "default".equals(normalizerName);
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
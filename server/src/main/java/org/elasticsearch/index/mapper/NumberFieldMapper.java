@@ -1040,6 +1040,11 @@ public class NumberFieldMapper extends FieldMapper {
         return (NumberFieldType) super.fieldType();
     }
 
+    @Override
+    public boolean supportsSyntheticSource() {
+        return hasDocValues && ignoreMalformed.value() == false;
+    }
+
     @Override
     protected String contentType() {
         return fieldType().type.typeName();
@@ -58,6 +58,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static class Defaults {
         public static final String NAME = SourceFieldMapper.NAME;
         public static final boolean ENABLED = true;
+        public static final boolean SYNTHETIC = false;
 
         public static final FieldType FIELD_TYPE = new FieldType();
 
@@ -76,6 +77,8 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     public static class Builder extends MetadataFieldMapper.Builder {
 
         private final Parameter<Boolean> enabled = Parameter.boolParam("enabled", false, m -> toType(m).enabled, Defaults.ENABLED);
+        private final Parameter<Boolean> synthetic
+            = Parameter.boolParam("synthetic", false, m -> toType(m).synthetic, Defaults.SYNTHETIC);
         private final Parameter<List<String>> includes
             = Parameter.stringArrayParam("includes", false, m -> Arrays.asList(toType(m).includes), Collections.emptyList());
         private final Parameter<List<String>> excludes
@@ -87,12 +90,20 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return List.of(enabled, includes, excludes);
+            return List.of(enabled, synthetic, includes, excludes);
         }
 
         @Override
         public SourceFieldMapper build() {
-            return new SourceFieldMapper(enabled.getValue(),
+            if (synthetic.getValue()) {
+                if (enabled.getValue() == false) {
+                    throw new MapperParsingException("[_source] can't be both disabled and [synthetic]");
+                }
+                if (includes.getValue().isEmpty() == false || excludes.getValue().isEmpty() == false) {
+                    throw new MapperParsingException("[_source] can't be [synthetic] and have [includes] or [excludes]");
+                }
+            }
+            return new SourceFieldMapper(enabled.getValue(), synthetic.getValue(),
                 includes.getValue().toArray(String[]::new),
                 excludes.getValue().toArray(String[]::new));
         }
@@ -102,8 +113,8 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     static final class SourceFieldType extends MappedFieldType {
 
-        private SourceFieldType(boolean enabled) {
-            super(NAME, false, enabled, false, TextSearchInfo.NONE, Collections.emptyMap());
+        private SourceFieldType(boolean stored) {
+            super(NAME, false, stored, false, TextSearchInfo.NONE, Collections.emptyMap());
         }
 
         @Override
@@ -128,6 +139,8 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     }
 
     private final boolean enabled;
+    /** indicates whether the source isn't stored but rebuilt from doc values when it is needed */
+    private final boolean synthetic;
     /** indicates whether the source will always exist and be complete, for use by features like the update API */
     private final boolean complete;
 
@@ -135,23 +148,32 @@ public class SourceFieldMapper extends MetadataFieldMapper {
     private final String[] excludes;
 
     private SourceFieldMapper() {
-        this(Defaults.ENABLED, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY);
+        this(Defaults.ENABLED, Defaults.SYNTHETIC, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY);
     }
 
-    private SourceFieldMapper(boolean enabled, String[] includes, String[] excludes) {
-        super(new SourceFieldType(enabled));
+    private SourceFieldMapper(boolean enabled, boolean synthetic, String[] includes, String[] excludes) {
+        super(new SourceFieldType(enabled && synthetic == false));
         this.enabled = enabled;
+        this.synthetic = synthetic;
         this.includes = includes;
         this.excludes = excludes;
         final boolean filtered = CollectionUtils.isEmpty(includes) == false || CollectionUtils.isEmpty(excludes) == false;
         this.filter = enabled && filtered ? XContentMapValues.filter(includes, excludes) : null;
-        this.complete = enabled && CollectionUtils.isEmpty(includes) && CollectionUtils.isEmpty(excludes);
+        this.complete = enabled && synthetic == false && CollectionUtils.isEmpty(includes) && CollectionUtils.isEmpty(excludes);
     }
 
     public boolean enabled() {
         return enabled;
     }
 
+    /**
+     * Whether the {@code _source} isn't stored, but rebuilt from the doc values of the mapped fields when it
+     * is fetched. See {@link SyntheticSourceLoader}.
+     */
+    public boolean isSynthetic() {
+        return synthetic;
+    }
+
     public boolean isComplete() {
         return complete;
     }
@@ -177,7 +199,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
 
     @Nullable
     public BytesReference applyFilters(@Nullable BytesReference originalSource, @Nullable XContentType contentType) throws IOException {
-        if (enabled && originalSource != null) {
+        if (enabled && synthetic == false && originalSource != null) {
             // Percolate and tv APIs may not set the source and that is ok, because these APIs will not index any data
             if (filter != null) {
                 // we don't update the context source if we filter, we want to keep it as is...
@@ -197,6 +219,13 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         }
     }
 
+    @Override
+    protected void doValidate(MappingLookup mappers) {
+        if (synthetic) {
+            SyntheticSourceLoader.validate(mappers);
+        }
+    }
+
     @Override
     protected String contentType() {
         return CONTENT_TYPE;
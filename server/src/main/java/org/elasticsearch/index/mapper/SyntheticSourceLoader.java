@@ -0,0 +1,189 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.search.DocValueFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Rebuilds the {@code _source} of documents from the doc values of their fields, for indices whose
+ * {@code _source} is {@link SourceFieldMapper#isSynthetic() synthetic}.
+ * <p>
+ * Every field that was parsed out of the original source must support it, see
+ * {@link FieldMapper#supportsSyntheticSource()}. Multi-fields and the targets of {@code copy_to} don't
+ * hold values of their own in the source, so they are left out of the rebuilt source. Fields are
+ * written in alphabetical order, single values as scalars and multiple values as arrays, in the order
+ * of their doc values.
+ * <p>
+ * Instances are stateful and not thread-safe: {@link #leaf} must be called for every segment, then
+ * documents are loaded in increasing doc id order so that doc values are read sequentially.
+ */
+public final class SyntheticSourceLoader {
+
+    private final String[][] paths;
+    private final IndexFieldData<?>[] fieldData;
+    private final DocValueFormat[] formats;
+
+    private SyntheticSourceLoader(List<FieldMapper> fields, Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup) {
+        int size = fields.size();
+        this.paths = new String[size][];
+        this.fieldData = new IndexFieldData<?>[size];
+        this.formats = new DocValueFormat[size];
+        for (int i = 0; i < size; i++) {
+            MappedFieldType fieldType = fields.get(i).fieldType();
+            paths[i] = fieldType.name().split("\\.");
+            fieldData[i] = fieldDataLookup.apply(fieldType);
+            formats[i] = fieldType.docValueFormat(null, null);
+        }
+    }
+
+    /**
+     * Create a loader for the source of documents that were indexed with the provided mappings.
+     *
+     * @param fieldDataLookup how to load the field data of fields
+     */
+    public static SyntheticSourceLoader create(MappingLookup mappers, Function<MappedFieldType, IndexFieldData<?>> fieldDataLookup) {
+        return new SyntheticSourceLoader(sourceFields(mappers), fieldDataLookup);
+    }
+
+    /**
+     * Checks that the source of documents that are indexed with the provided mappings can be rebuilt from doc values.
+     */
+    static void validate(MappingLookup mappers) {
+        for (ObjectMapper objectMapper : mappers.objectMappers().values()) {
+            if (objectMapper.nested().isNested()) {
+                throw new IllegalArgumentException("[_source] can't be [synthetic] when the mappings contain nested field ["
+                    + objectMapper.fullPath() + "]");
+            }
+            if (objectMapper.isEnabled() == false) {
+                throw new IllegalArgumentException("[_source] can't be [synthetic] when the mappings contain disabled object ["
+                    + objectMapper.fullPath() + "]");
+            }
+        }
+        for (FieldMapper mapper : sourceFields(mappers)) {
+            if (mapper.supportsSyntheticSource() == false) {
+                throw new IllegalArgumentException("[_source] can't be [synthetic] because field [" + mapper.name() + "] of type ["
+                    + mapper.typeName() + "] can't be loaded from doc values");
+            }
+        }
+    }
+
+    /**
+     * The fields whose values are parsed out of the source, sorted by name.
+     */
+    private static List<FieldMapper> sourceFields(MappingLookup mappers) {
+        Set<String> copyToTargets = new HashSet<>();
+        for (Mapper mapper : mappers.fieldMappers()) {
+            if (mapper instanceof FieldMapper) {
+                copyToTargets.addAll(((FieldMapper) mapper).copyTo().copyToFields());
+            }
+        }
+        List<FieldMapper> fields = new ArrayList<>();
+        for (Mapper mapper : mappers.fieldMappers()) {
+            if (mapper instanceof FieldMapper == false || mapper instanceof MetadataFieldMapper) {
+                continue;
+            }
+            if (mappers.isMultiField(mapper.name()) || copyToTargets.contains(mapper.name())) {
+                continue;
+            }
+            fields.add((FieldMapper) mapper);
+        }
+        // the source of fields that share a parent object is then contiguous
+        fields.sort(Comparator.comparing(Mapper::name));
+        return fields;
+    }
+
+    /**
+     * Prepare to load the source of documents of the given segment.
+     */
+    public Leaf leaf(LeafReaderContext context) {
+        DocValueFetcher.Leaf[] leaves = new DocValueFetcher.Leaf[fieldData.length];
+        for (int i = 0; i < leaves.length; i++) {
+            leaves[i] = fieldData[i].load(context).getLeafValueFetcher(formats[i]);
+        }
+        return docId -> {
+            XContentBuilder builder = XContentFactory.jsonBuilder();
+            builder.startObject();
+            String[] openObjects = new String[0];
+            int depth = 0;
+            for (int i = 0; i < leaves.length; i++) {
+                DocValueFetcher.Leaf leaf = leaves[i];
+                if (leaf.advanceExact(docId) == false) {
+                    continue;
+                }
+                String[] path = paths[i];
+                int common = 0;
+                while (common < depth && common < path.length - 1 && openObjects[common].equals(path[common])) {
+                    common++;
+                }
+                for (; depth > common; depth--) {
+                    builder.endObject();
+                }
+                if (openObjects.length < path.length - 1) {
+                    String[] newOpenObjects = new String[path.length - 1];
+                    System.arraycopy(openObjects, 0, newOpenObjects, 0, depth);
+                    openObjects = newOpenObjects;
+                }
+                for (; depth < path.length - 1; depth++) {
+                    openObjects[depth] = path[depth];
+                    builder.startObject(path[depth]);
+                }
+                int count = leaf.docValueCount();
+                if (count == 1) {
+                    builder.field(path[path.length - 1], leaf.nextValue());
+                } else {
+                    builder.startArray(path[path.length - 1]);
+                    for (int v = 0; v < count; v++) {
+                        builder.value(leaf.nextValue());
+                    }
+                    builder.endArray();
+                }
+            }
+            for (; depth > 0; depth--) {
+                builder.endObject();
+            }
+            builder.endObject();
+            return BytesReference.bytes(builder);
+        };
+    }
+
+    /**
+     * Loads the source of documents of a single segment.
+     */
+    @FunctionalInterface
+    public interface Leaf {
+        /**
+         * Rebuild the source of the given document. Documents must be loaded in increasing doc id order.
+         */
+        BytesReference source(int docId) throws IOException;
+    }
+}
@@ -337,6 +337,13 @@ public class QueryShardContext extends QueryRewriteContext {
         return fieldType(name) != null;
     }
 
+    /**
+     * Returns true if runtime fields were defined for the request, which take precedence over the mapped fields of the same name.
+     */
+    public boolean hasRuntimeMappings() {
+        return runtimeMappings.isEmpty() == false;
+    }
+
     private MappedFieldType fieldType(String name) {
         MappedFieldType fieldType = runtimeMappings.get(name);
         return fieldType == null ? mapperService.fieldType(name) : fieldType;
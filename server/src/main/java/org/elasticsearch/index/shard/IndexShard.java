@@ -135,6 +135,7 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
+import org.elasticsearch.index.translog.TranslogGroupCommitter;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
@@ -180,6 +181,7 @@ import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.seqno.RetentionLeaseActions.RETAIN_ALL;
@@ -296,7 +298,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             final List<IndexingOperationListener> listeners,
             final Runnable globalCheckpointSyncer,
             final RetentionLeaseSyncer retentionLeaseSyncer,
-            final CircuitBreakerService circuitBreakerService) throws IOException {
+            final CircuitBreakerService circuitBreakerService,
+            final @Nullable TranslogGroupCommitter translogGroupCommitter) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -311,6 +314,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
         this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine);
+        this.translogGroupSyncer = translogGroupCommitter == null ? null :
+            translogGroupCommitter.register(path, locations -> ensureTranslogSynced(logger, getEngine(), locations));
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
@@ -975,6 +980,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().commitStats();
     }
 
+    /**
+     * Returns <code>true</code> iff the given reader, acquired from this shard, sees exactly the last commit of this shard.
+     */
+    public boolean isLastCommit(DirectoryReader reader) {
+        final Engine engine = getEngineOrNull();
+        return engine != null && engine.isLastCommit(reader);
+    }
+
     /**
      * @return {@link SeqNoStats}
      * @throws AlreadyClosedException if shard is closed
@@ -1039,7 +1052,16 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     public TranslogStats translogStats() {
-        return getEngine().getTranslogStats();
+        final TranslogStats translogStats = getEngine().getTranslogStats();
+        if (translogGroupSyncer == null) {
+            return translogStats;
+        }
+        // the engine might hand out a shared instance (e.g. read-only engines), don't modify it
+        final TranslogStats withGroupCommits = new TranslogStats(translogStats.estimatedNumberOfOperations(),
+            translogStats.getTranslogSizeInBytes(), translogStats.getUncommittedOperations(), translogStats.getUncommittedSizeInBytes(),
+            translogStats.getEarliestLastModifiedAge());
+        translogGroupSyncer.addStats(withGroupCommits);
+        return withGroupCommits;
     }
 
     public CompletionStats completionStats(String... fields) {
@@ -3032,37 +3054,49 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
+    @Nullable
+    private final TranslogGroupCommitter.ShardSyncer translogGroupSyncer;
 
     private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(Logger logger, ThreadContext threadContext,
                                                                                    Supplier<Engine> engineSupplier) {
         return new AsyncIOProcessor<>(logger, 1024, threadContext) {
             @Override
             protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-                try {
-                    engineSupplier.get().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-                } catch (AlreadyClosedException ex) {
-                    // that's fine since we already synced everything on engine close - this also is conform with the methods
-                    // documentation
-                } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                    logger.debug("failed to sync translog", ex);
-                    throw ex;
-                }
+                ensureTranslogSynced(logger, engineSupplier.get(), candidates.stream().map(Tuple::v1));
             }
         };
     }
 
+    private static void ensureTranslogSynced(Logger logger, Engine engine, Stream<Translog.Location> locations) throws IOException {
+        try {
+            engine.ensureTranslogSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
      * the transaction log the caller thread will be hijacked to run the fsync for all pending fsync operations.
      * This method allows indexing threads to continue indexing without blocking on fsync calls. We ensure that there is only
      * one thread blocking on the sync an all others can continue indexing.
+     * If translog group commit is enabled on this node the fsync is batched with the pending fsyncs of all other shards on the same
+     * data path, see {@link TranslogGroupCommitter}.
      * NOTE: if the syncListener throws an exception when it's processed the exception will only be logged. Users should make sure that the
      * listener handles all exception cases internally.
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogGroupSyncer != null) {
+            translogGroupSyncer.sync(location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -22,6 +22,7 @@ package org.elasticsearch.index.snapshots.blobstore;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.lucene.Lucene;
@@ -34,8 +35,10 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.IntStream;
 
 /**
@@ -53,6 +56,10 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         private final long partBytes;
         private final int numberOfParts;
         private final StoreFileMetadata metadata;
+        @Nullable
+        private final List<Chunk> chunks;
+        @Nullable
+        private final long[] chunkOffsets;
 
         /**
          * Constructs a new instance of file info
@@ -82,9 +89,47 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
 
             this.partSize = partSize;
             this.partBytes = partBytes;
+            this.chunks = null;
+            this.chunkOffsets = null;
             assert IntStream.range(0, numberOfParts).mapToLong(this::partBytes).sum() == metadata.length();
         }
 
+        /**
+         * Constructs a new instance of file info for a file that is stored as content-defined chunks, each of which is a blob that may
+         * be shared with other files.
+         *
+         * @param name      file name as stored in the blob store, no blob with this name exists
+         * @param metadata  the files meta data
+         * @param chunks    the chunks that make up the file, in order
+         */
+        public FileInfo(String name, StoreFileMetadata metadata, List<Chunk> chunks) {
+            if (chunks.isEmpty()) {
+                throw new IllegalArgumentException("no chunks for file [" + metadata + "]");
+            }
+            this.name = name;
+            this.metadata = metadata;
+            this.partSize = null;
+            this.partBytes = Long.MAX_VALUE;
+            this.numberOfParts = chunks.size();
+            this.chunks = List.copyOf(chunks);
+            this.chunkOffsets = new long[chunks.size()];
+            long offset = 0L;
+            for (int i = 0; i < chunks.size(); i++) {
+                chunkOffsets[i] = offset;
+                offset += chunks.get(i).length();
+            }
+            if (offset != metadata.length()) {
+                throw new IllegalArgumentException("chunks of length [" + offset + "] do not match file [" + metadata + "]");
+            }
+        }
+
+        /**
+         * Returns a copy of this file info that references the given chunks instead of blobs named after {@link #name()}.
+         */
+        public FileInfo withChunks(List<Chunk> chunks) {
+            return new FileInfo(name, metadata, chunks);
+        }
+
         /**
          * Returns the base file name
          *
@@ -101,7 +146,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          * @return part name
          */
         public String partName(int part) {
-            if (numberOfParts > 1) {
+            if (chunks != null) {
+                return chunks.get(part).name();
+            } else if (numberOfParts > 1) {
                 return name + ".part" + part;
             } else {
                 return name;
@@ -155,6 +202,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
          */
         public long partBytes(int part) {
             assert 0 <= part && part < numberOfParts : part + " vs " + numberOfParts;
+            if (chunks != null) {
+                return chunks.get(part).length();
+            }
             if (numberOfParts == 1) {
                 return length();
             }
@@ -168,6 +218,29 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return lastPartBytes;
         }
 
+        /**
+         * Returns the position of the first byte of the given part in the file
+         */
+        public long partOffset(int part) {
+            assert 0 <= part && part < numberOfParts : part + " vs " + numberOfParts;
+            if (chunks != null) {
+                return chunkOffsets[part];
+            }
+            return part * partBytes;
+        }
+
+        /**
+         * Returns the part that contains the byte at the given position in the file
+         */
+        public int partForPosition(long position) {
+            assert 0 <= position && position < Math.max(1L, length()) : position + " vs " + length();
+            if (chunks != null) {
+                final int index = Arrays.binarySearch(chunkOffsets, position);
+                return index >= 0 ? index : -index - 2;
+            }
+            return Math.toIntExact(position / partBytes);
+        }
+
         /**
          * Returns number of parts
          *
@@ -177,6 +250,21 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             return numberOfParts;
         }
 
+        /**
+         * Returns {@code true} if the parts of this file are content-defined chunks rather than parts of a fixed size
+         */
+        public boolean isChunked() {
+            return chunks != null;
+        }
+
+        /**
+         * Returns the content-defined chunks of this file or {@code null} if the file is stored in parts of a fixed size
+         */
+        @Nullable
+        public List<Chunk> chunks() {
+            return chunks;
+        }
+
         /**
          * Returns file md5 checksum provided by {@link org.elasticsearch.index.store.Store}
          *
@@ -219,6 +307,9 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             if (!name.equals(fileInfo.name)) {
                 return false;
             }
+            if (Objects.equals(chunks, fileInfo.chunks) == false) {
+                return false;
+            }
             if (partSize != null) {
                 if (!partSize.equals(fileInfo.partSize)) {
                     return false;
@@ -238,6 +329,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
         static final String PART_SIZE = "part_size";
         static final String WRITTEN_BY = "written_by";
         static final String META_HASH = "meta_hash";
+        static final String CHUNKS = "chunks";
 
         /**
          * Serializes file info into JSON
@@ -263,6 +355,14 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                 BytesRef br = file.metadata.hash();
                 builder.field(META_HASH, br.bytes, br.offset, br.length);
             }
+
+            if (file.chunks != null) {
+                builder.startArray(CHUNKS);
+                for (Chunk chunk : file.chunks) {
+                    Chunk.toXContent(chunk, builder);
+                }
+                builder.endArray();
+            }
             builder.endObject();
         }
 
@@ -282,6 +382,7 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             Version writtenBy = null;
             String writtenByStr = null;
             BytesRef metaHash = new BytesRef();
+            List<Chunk> chunks = null;
             if (token == XContentParser.Token.START_OBJECT) {
                 while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
                     if (token == XContentParser.Token.FIELD_NAME) {
@@ -308,6 +409,11 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                             } else {
                                 throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
                             }
+                        } else if (token == XContentParser.Token.START_ARRAY && CHUNKS.equals(currentFieldName)) {
+                            chunks = new ArrayList<>();
+                            while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                                chunks.add(Chunk.fromXContent(parser));
+                            }
                         } else {
                             throw new ElasticsearchParseException("unexpected token  [{}]", token);
                         }
@@ -329,7 +435,15 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
             } else if (checksum == null) {
                 throw new ElasticsearchParseException("missing checksum for name [" + name + "]");
             }
-            return new FileInfo(name, new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash), partSize);
+            final StoreFileMetadata metadata = new StoreFileMetadata(physicalName, length, checksum, writtenBy, metaHash);
+            if (chunks != null) {
+                try {
+                    return new FileInfo(name, metadata, chunks);
+                } catch (IllegalArgumentException e) {
+                    throw new ElasticsearchParseException("invalid chunks for name [" + name + "]", e);
+                }
+            }
+            return new FileInfo(name, metadata, partSize);
         }
 
         @Override
@@ -338,10 +452,101 @@ public class BlobStoreIndexShardSnapshot implements ToXContentFragment {
                        ", numberOfParts: " + numberOfParts +
                        ", partSize: " + partSize +
                        ", partBytes: " + partBytes +
+                       (chunks != null ? ", chunked" : "") +
                        ", metadata: " + metadata + "]";
         }
     }
 
+    /**
+     * A content-defined chunk of a snapshotted file. Chunks are stored as blobs named after the hash of their contents so that files
+     * which share content share the blobs of their common chunks.
+     */
+    public static final class Chunk {
+
+        private final String name;
+        private final long length;
+
+        /**
+         * @param name   name of the blob that holds the chunk
+         * @param length length of the chunk in bytes
+         */
+        public Chunk(String name, long length) {
+            if (length <= 0) {
+                throw new IllegalArgumentException("chunk [" + name + "] must not be empty but had length [" + length + "]");
+            }
+            this.name = Objects.requireNonNull(name);
+            this.length = length;
+        }
+
+        /**
+         * Returns the name of the blob that holds the chunk
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Returns the length of the chunk in bytes
+         */
+        public long length() {
+            return length;
+        }
+
+        static void toXContent(Chunk chunk, XContentBuilder builder) throws IOException {
+            builder.startObject();
+            builder.field(FileInfo.NAME, chunk.name);
+            builder.field(FileInfo.LENGTH, chunk.length);
+            builder.endObject();
+        }
+
+        static Chunk fromXContent(XContentParser parser) throws IOException {
+            XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.currentToken(), parser);
+            String name = null;
+            long length = -1;
+            XContentParser.Token token;
+            while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                XContentParserUtils.ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser);
+                final String currentFieldName = parser.currentName();
+                parser.nextToken();
+                if (FileInfo.NAME.equals(currentFieldName)) {
+                    name = parser.text();
+                } else if (FileInfo.LENGTH.equals(currentFieldName)) {
+                    length = parser.longValue();
+                } else {
+                    throw new ElasticsearchParseException("unknown parameter [{}]", currentFieldName);
+                }
+            }
+            if (name == null || Strings.validFileName(name) == false) {
+                throw new ElasticsearchParseException("missing or invalid chunk name [" + name + "]");
+            } else if (length <= 0) {
+                throw new ElasticsearchParseException("missing or invalid chunk length");
+            }
+            return new Chunk(name, length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Chunk chunk = (Chunk) o;
+            return length == chunk.length && name.equals(chunk.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, length);
+        }
+
+        @Override
+        public String toString() {
+            return "[name: " + name + ", length: " + length + "]";
+        }
+    }
+
     /**
      * Snapshot name
      */
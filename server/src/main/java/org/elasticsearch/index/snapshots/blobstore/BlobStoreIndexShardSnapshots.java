@@ -31,9 +31,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static java.util.Collections.unmodifiableMap;
 
@@ -148,6 +150,21 @@ public class BlobStoreIndexShardSnapshots implements Iterable<SnapshotFiles>, To
         return files.get(name);
     }
 
+    /**
+     * Returns the names of the blobs of all content-defined chunks that are referenced by the files in any of the snapshots
+     */
+    public Set<String> chunkNames() {
+        final Set<String> chunkNames = new HashSet<>();
+        for (FileInfo fileInfo : files.values()) {
+            if (fileInfo.isChunked()) {
+                for (BlobStoreIndexShardSnapshot.Chunk chunk : fileInfo.chunks()) {
+                    chunkNames.add(chunk.name());
+                }
+            }
+        }
+        return chunkNames;
+    }
+
     @Override
     public Iterator<SnapshotFiles> iterator() {
         return shardSnapshots.iterator();
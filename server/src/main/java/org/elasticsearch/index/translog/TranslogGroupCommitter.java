@@ -0,0 +1,214 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A node level component that group-commits translog syncs. Instead of every shard running its own {@link AsyncIOProcessor},
+ * all shards that live on the same data path share a single processor. Whichever indexing thread picks up the processor drains
+ * the pending sync requests of all shards on that path and syncs each of their translogs in a single round, so that concurrent
+ * requests against the same disk are merged into one batch rather than racing each other for the device. The shards of a round are
+ * synced concurrently: the thread that runs the round syncs one of them and forks the others to an executor, so that the round
+ * takes about as long as its slowest {@code fsync} rather than the sum of all of them, and the device can serve them together.
+ */
+public final class TranslogGroupCommitter {
+
+    private static final Logger logger = LogManager.getLogger(TranslogGroupCommitter.class);
+
+    public static final Setting<Boolean> GROUP_COMMIT_ENABLED_SETTING =
+        Setting.boolSetting("indices.translog.group_commit.enabled", false, Property.NodeScope);
+
+    /**
+     * The number of pending sync requests per data path before indexing threads are blocked. This is larger than the per shard
+     * queue size since all shards on the data path share it.
+     */
+    static final int QUEUE_SIZE = 4096;
+
+    private final ThreadContext threadContext;
+    private final Executor syncExecutor;
+    private final ConcurrentMap<Path, AsyncIOProcessor<SyncRequest>> processors = ConcurrentCollections.newConcurrentMap();
+
+    /**
+     * @param threadContext the thread context of the threads that request syncs
+     * @param syncExecutor  the executor that the shards of a round other than the first one are synced on
+     */
+    public TranslogGroupCommitter(ThreadContext threadContext, Executor syncExecutor) {
+        this.threadContext = threadContext;
+        this.syncExecutor = syncExecutor;
+    }
+
+    /**
+     * Registers a shard with the group committer.
+     *
+     * @param shardPath  the path of the shard, the shard shares its sync rounds with all shards on the same root data path
+     * @param syncTarget syncs the shard's translog up to the given locations, see {@link Translog#ensureSynced(Stream)}
+     * @return the syncer the shard must use to request translog syncs
+     */
+    public ShardSyncer register(ShardPath shardPath, CheckedConsumer<Stream<Translog.Location>, IOException> syncTarget) {
+        final AsyncIOProcessor<SyncRequest> processor = processors.computeIfAbsent(shardPath.getRootDataPath(), this::newProcessor);
+        return new ShardSyncer(shardPath.getShardId(), processor, syncTarget);
+    }
+
+    private AsyncIOProcessor<SyncRequest> newProcessor(Path dataPath) {
+        return new AsyncIOProcessor<>(logger, QUEUE_SIZE, threadContext) {
+            @Override
+            protected void write(List<Tuple<SyncRequest, Consumer<Exception>>> candidates) {
+                final Map<ShardSyncer, List<SyncRequest>> requestsByShard = new LinkedHashMap<>();
+                for (Tuple<SyncRequest, Consumer<Exception>> candidate : candidates) {
+                    final SyncRequest request = candidate.v1();
+                    requestsByShard.computeIfAbsent(request.shardSyncer, k -> new ArrayList<>()).add(request);
+                }
+                final int batchSize = requestsByShard.size();
+                final List<Map.Entry<ShardSyncer, List<SyncRequest>>> shards = new ArrayList<>(requestsByShard.entrySet());
+                final CountDownLatch forkedSyncs = new CountDownLatch(batchSize - 1);
+                for (Map.Entry<ShardSyncer, List<SyncRequest>> entry : shards.subList(1, batchSize)) {
+                    final Runnable sync = () -> {
+                        try {
+                            syncShard(dataPath, entry.getKey(), entry.getValue(), batchSize);
+                        } finally {
+                            forkedSyncs.countDown();
+                        }
+                    };
+                    try {
+                        syncExecutor.execute(sync);
+                    } catch (EsRejectedExecutionException e) {
+                        sync.run();
+                    }
+                }
+                syncShard(dataPath, shards.get(0).getKey(), shards.get(0).getValue(), batchSize);
+                // the listeners of the round are notified once this method returns, so all shards of the round must be synced
+                awaitUninterruptibly(forkedSyncs);
+            }
+        };
+    }
+
+    private static void syncShard(Path dataPath, ShardSyncer shardSyncer, List<SyncRequest> requests, int batchSize) {
+        try {
+            shardSyncer.syncTarget.accept(requests.stream().map(request -> request.location));
+        } catch (Exception e) {
+            // a failure only fails the requests of the shard it belongs to, the other shards in the round are unaffected
+            logger.debug(new ParameterizedMessage("{} failed to sync translog on data path [{}]", shardSyncer.shardId, dataPath), e);
+            for (SyncRequest request : requests) {
+                request.failure = e;
+            }
+        }
+        shardSyncer.onRound(batchSize);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The per shard handle to a {@link TranslogGroupCommitter}.
+     */
+    public static final class ShardSyncer {
+
+        private final ShardId shardId;
+        private final AsyncIOProcessor<SyncRequest> processor;
+        private final CheckedConsumer<Stream<Translog.Location>, IOException> syncTarget;
+        private final CounterMetric rounds = new CounterMetric();
+        private final CounterMetric batchedShards = new CounterMetric();
+        private final CounterMetric waitTimeInNanos = new CounterMetric();
+
+        private ShardSyncer(ShardId shardId, AsyncIOProcessor<SyncRequest> processor,
+                            CheckedConsumer<Stream<Translog.Location>, IOException> syncTarget) {
+            this.shardId = shardId;
+            this.processor = processor;
+            this.syncTarget = syncTarget;
+        }
+
+        /**
+         * Syncs the given location with the underlying storage as part of the next group commit round of the shard's data path.
+         * Like {@link AsyncIOProcessor#put(Object, Consumer)} the calling thread might be hijacked to run the round.
+         */
+        public void sync(Translog.Location location, Consumer<Exception> syncListener) {
+            final long startTimeInNanos = System.nanoTime();
+            final SyncRequest request = new SyncRequest(this, location);
+            processor.put(request, e -> {
+                waitTimeInNanos.inc(System.nanoTime() - startTimeInNanos);
+                syncListener.accept(e != null ? e : request.failure);
+            });
+        }
+
+        private void onRound(int batchSize) {
+            rounds.inc();
+            batchedShards.inc(batchSize);
+        }
+
+        /**
+         * Adds the group commit statistics of this shard to the given translog stats.
+         */
+        public void addStats(TranslogStats translogStats) {
+            translogStats.addGroupCommits(rounds.count(), batchedShards.count(), TimeUnit.NANOSECONDS.toMillis(waitTimeInNanos.count()));
+        }
+    }
+
+    private static final class SyncRequest {
+
+        private final ShardSyncer shardSyncer;
+        private final Translog.Location location;
+        // set by the thread that syncs the shard, and read by the thread that runs the round once all shards of the round are synced
+        private Exception failure;
+
+        private SyncRequest(ShardSyncer shardSyncer, Translog.Location location) {
+            this.shardSyncer = shardSyncer;
+            this.location = location;
+        }
+    }
+}
@@ -18,11 +18,13 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
@@ -35,6 +37,9 @@ public class TranslogStats implements Writeable, ToXContentFragment {
     private long uncommittedSizeInBytes;
     private int  uncommittedOperations;
     private long earliestLastModifiedAge;
+    private long groupCommits;
+    private long groupCommitBatchedShards;
+    private long groupCommitWaitTimeInMillis;
 
     public TranslogStats() {
     }
@@ -45,6 +50,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         uncommittedOperations = in.readVInt();
         uncommittedSizeInBytes = in.readVLong();
         earliestLastModifiedAge = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            groupCommits = in.readVLong();
+            groupCommitBatchedShards = in.readVLong();
+            groupCommitWaitTimeInMillis = in.readVLong();
+        }
     }
 
     public TranslogStats(int numberOfOperations, long translogSizeInBytes, int uncommittedOperations, long uncommittedSizeInBytes,
@@ -82,6 +92,23 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         this.uncommittedSizeInBytes += translogStats.uncommittedSizeInBytes;
         this.earliestLastModifiedAge =
             Math.min(this.earliestLastModifiedAge, translogStats.earliestLastModifiedAge);
+        this.groupCommits += translogStats.groupCommits;
+        this.groupCommitBatchedShards += translogStats.groupCommitBatchedShards;
+        this.groupCommitWaitTimeInMillis += translogStats.groupCommitWaitTimeInMillis;
+    }
+
+    /**
+     * Adds the statistics of translog syncs that were executed as part of a group commit round.
+     *
+     * @param groupCommits     the number of group commit rounds
+     * @param batchedShards    the total number of shards that were synced in these rounds
+     * @param waitTimeInMillis the total time sync requests waited for their round to complete
+     * @see TranslogGroupCommitter
+     */
+    public void addGroupCommits(long groupCommits, long batchedShards, long waitTimeInMillis) {
+        this.groupCommits += groupCommits;
+        this.groupCommitBatchedShards += batchedShards;
+        this.groupCommitWaitTimeInMillis += waitTimeInMillis;
     }
 
     public long getTranslogSizeInBytes() {
@@ -104,6 +131,21 @@ public class TranslogStats implements Writeable, ToXContentFragment {
 
     public long getEarliestLastModifiedAge() { return earliestLastModifiedAge; }
 
+    /** the number of group commit rounds the translog syncs took part in */
+    public long getGroupCommits() {
+        return groupCommits;
+    }
+
+    /** the total number of shards that were synced in the group commit rounds, divide by {@link #getGroupCommits()} for the average */
+    public long getGroupCommitBatchedShards() {
+        return groupCommitBatchedShards;
+    }
+
+    /** the total time translog sync requests waited for their group commit round to complete */
+    public long getGroupCommitWaitTimeInMillis() {
+        return groupCommitWaitTimeInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("translog");
@@ -112,6 +154,11 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         builder.field("uncommitted_operations", uncommittedOperations);
         builder.humanReadableField("uncommitted_size_in_bytes", "uncommitted_size", new ByteSizeValue(uncommittedSizeInBytes));
         builder.field("earliest_last_modified_age", earliestLastModifiedAge);
+        builder.startObject("group_commit");
+        builder.field("count", groupCommits);
+        builder.field("batched_shards", groupCommitBatchedShards);
+        builder.humanReadableField("wait_time_in_millis", "wait_time", new TimeValue(groupCommitWaitTimeInMillis));
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -128,5 +175,10 @@ public class TranslogStats implements Writeable, ToXContentFragment {
         out.writeVInt(uncommittedOperations);
         out.writeVLong(uncommittedSizeInBytes);
         out.writeVLong(earliestLastModifiedAge);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(groupCommits);
+            out.writeVLong(groupCommitBatchedShards);
+            out.writeVLong(groupCommitWaitTimeInMillis);
+        }
     }
 }
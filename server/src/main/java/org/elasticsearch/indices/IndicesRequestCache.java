@@ -28,6 +28,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
@@ -38,18 +39,21 @@ import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
 /**
  * The indices request cache allows to cache a shard level request stage responses, helping with improving
@@ -61,6 +65,9 @@ import java.util.concurrent.ConcurrentMap;
  * Currently, the cache is only enabled for count requests, and can only be opted in on an index
  * level setting that can be dynamically changed and defaults to false.
  * <p>
+ * Entries that were computed on a reader that sees exactly the last commit of its shard can also be kept on disk by the
+ * {@link PersistedRequestCache}, so that they are not lost when the node restarts.
+ * <p>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
  */
@@ -78,23 +85,51 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
         Setting.positiveTimeSetting("indices.requests.cache.expire", new TimeValue(0), Property.NodeScope);
+    /**
+     * A setting to keep cache entries computed on committed readers on disk so that they survive restarts.
+     */
+    public static final Setting<Boolean> INDICES_CACHE_DISK_ENABLED =
+        Setting.boolSetting("indices.requests.cache.disk.enabled", false, Property.NodeScope);
+    /**
+     * The maximum size of the cache entries that are kept on disk, per shard.
+     */
+    public static final Setting<ByteSizeValue> INDICES_CACHE_DISK_SIZE =
+        Setting.byteSizeSetting("indices.requests.cache.disk.size", new ByteSizeValue(100, ByteSizeUnit.MB), Property.NodeScope);
+    /**
+     * The maximum size of the cache entries that are kept on disk, for all shards of the node.
+     */
+    public static final Setting<ByteSizeValue> INDICES_CACHE_DISK_TOTAL_SIZE =
+        Setting.byteSizeSetting("indices.requests.cache.disk.total_size", new ByteSizeValue(1, ByteSizeUnit.GB), Property.NodeScope);
+    /**
+     * The policy that decides which entries are evicted from the cache, see {@link Cache.EvictionPolicy}.
+     */
+    public static final Setting<Cache.EvictionPolicy> INDICES_CACHE_QUERY_EVICTION_POLICY = new Setting<>(
+        "indices.requests.cache.eviction_policy", Cache.EvictionPolicy.LRU.toString(), Cache.EvictionPolicy::fromString,
+        Property.NodeScope);
 
     private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
     private final ByteSizeValue size;
     private final TimeValue expire;
     private final Cache<Key, BytesReference> cache;
+    @Nullable
+    private final PersistedRequestCache persistedCache;
 
-    IndicesRequestCache(Settings settings) {
+    IndicesRequestCache(Settings settings, Executor persistedCacheExecutor) {
         this.size = INDICES_CACHE_QUERY_SIZE.get(settings);
         this.expire = INDICES_CACHE_QUERY_EXPIRE.exists(settings) ? INDICES_CACHE_QUERY_EXPIRE.get(settings) : null;
         long sizeInBytes = size.getBytes();
         CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.<Key, BytesReference>builder()
-            .setMaximumWeight(sizeInBytes).weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed()).removalListener(this);
+            .setMaximumWeight(sizeInBytes).weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed()).removalListener(this)
+            .setEvictionPolicy(INDICES_CACHE_QUERY_EVICTION_POLICY.get(settings));
         if (expire != null) {
             cacheBuilder.setExpireAfterAccess(expire);
         }
         cache = cacheBuilder.build();
+        persistedCache = INDICES_CACHE_DISK_ENABLED.get(settings)
+            ? new PersistedRequestCache(INDICES_CACHE_DISK_SIZE.get(settings).getBytes(),
+                INDICES_CACHE_DISK_TOTAL_SIZE.get(settings).getBytes(), persistedCacheExecutor)
+            : null;
     }
 
     @Override
@@ -105,6 +140,9 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
     void clear(CacheEntity entity) {
         keysToClean.add(new CleanupKey(entity, null));
         cleanCache();
+        if (persistedCache != null && entity.persistedCacheDirectory() != null) {
+            persistedCache.clear(entity.persistedCacheDirectory());
+        }
     }
 
     @Override
@@ -116,10 +154,19 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
                                 DirectoryReader reader, BytesReference cacheKey) throws Exception {
         assert reader.getReaderCacheHelper() != null;
         final Key key =  new Key(cacheEntity, reader.getReaderCacheHelper().getKey(), cacheKey);
-        Loader cacheLoader = new Loader(cacheEntity, loader);
+        final Path commitDirectory = persistedCache == null ? null : persistedCache.commitDirectory(cacheEntity, reader);
+        Loader cacheLoader = new Loader(cacheEntity, loader, commitDirectory);
         BytesReference value = cache.computeIfAbsent(key, cacheLoader);
         if (cacheLoader.isLoaded()) {
-            key.entity.onMiss();
+            if (cacheLoader.isPersisted()) {
+                key.entity.onHit();
+            } else {
+                key.entity.onMiss();
+                if (commitDirectory != null && cacheEntity.isOpen()) {
+                    // persist outside of the loader so that concurrent requests for the same key don't wait on the disk
+                    persistedCache.put(commitDirectory, cacheKey, value);
+                }
+            }
             // see if its the first time we see this reader, and make sure to register a cleanup key
             CleanupKey cleanupKey = new CleanupKey(cacheEntity, reader.getReaderCacheHelper().getKey());
             if (!registeredClosedListeners.containsKey(cleanupKey)) {
@@ -143,26 +190,48 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
     void invalidate(CacheEntity cacheEntity, DirectoryReader reader, BytesReference cacheKey) {
         assert reader.getReaderCacheHelper() != null;
         cache.invalidate(new Key(cacheEntity, reader.getReaderCacheHelper().getKey(), cacheKey));
+        if (persistedCache != null) {
+            final Path commitDirectory = persistedCache.commitDirectory(cacheEntity, reader);
+            if (commitDirectory != null) {
+                persistedCache.invalidate(commitDirectory, cacheKey);
+            }
+        }
     }
 
-    private static class Loader implements CacheLoader<Key, BytesReference> {
+    private class Loader implements CacheLoader<Key, BytesReference> {
 
         private final CacheEntity entity;
         private final CheckedSupplier<BytesReference, IOException> loader;
+        @Nullable
+        private final Path commitDirectory;
         private boolean loaded;
+        private boolean persisted;
 
-        Loader(CacheEntity entity, CheckedSupplier<BytesReference, IOException> loader) {
+        Loader(CacheEntity entity, CheckedSupplier<BytesReference, IOException> loader, @Nullable Path commitDirectory) {
             this.entity = entity;
             this.loader = loader;
+            this.commitDirectory = commitDirectory;
         }
 
         public boolean isLoaded() {
             return this.loaded;
         }
 
+        /**
+         * Whether the value was loaded from the persisted tier of the cache rather than computed.
+         */
+        public boolean isPersisted() {
+            return this.persisted;
+        }
+
         @Override
         public BytesReference load(Key key) throws Exception {
-            BytesReference value = loader.get();
+            BytesReference value = commitDirectory == null ? null : persistedCache.get(commitDirectory, key.value);
+            if (value != null) {
+                persisted = true;
+            } else {
+                value = loader.get();
+            }
             entity.onCached(key, value);
             loaded = true;
             return value;
@@ -205,6 +274,23 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
          * Called when this entity instance is removed
          */
         void onRemoval(RemovalNotification<Key, BytesReference> notification);
+
+        /**
+         * Returns the directory that the entries of this entity may be persisted to so that they survive restarts, or
+         * <code>null</code> if they can't be persisted.
+         */
+        @Nullable
+        default Path persistedCacheDirectory() {
+            return null;
+        }
+
+        /**
+         * Returns <code>true</code> iff the given reader sees exactly the last commit of the resource behind this entity, in which
+         * case the entries computed on it may be persisted.
+         */
+        default boolean isLastCommit(DirectoryReader reader) {
+            return false;
+        }
     }
 
     static class Key implements Accountable {
@@ -301,6 +387,9 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
             if (cleanupKey.readerCacheKey == null || cleanupKey.entity.isOpen() == false) {
                 // null indicates full cleanup, as does a closed shard
                 currentFullClean.add(cleanupKey.entity.getCacheIdentity());
+                if (persistedCache != null && cleanupKey.entity.isOpen() == false && cleanupKey.entity.persistedCacheDirectory() != null) {
+                    persistedCache.release(cleanupKey.entity.persistedCacheDirectory());
+                }
             } else {
                 currentKeysToClean.add(cleanupKey);
             }
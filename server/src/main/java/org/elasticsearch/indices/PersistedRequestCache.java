@@ -0,0 +1,603 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StandardDirectoryReader;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The on-disk tier of the {@link IndicesRequestCache}. It keeps the entries that were computed on a reader that sees exactly the
+ * last commit of its shard in the data path of the shard, so that they can still be used after the shard is reopened, for instance
+ * when the node restarts, as long as nothing was committed to the shard since. This lets read-only and rolled over indices serve
+ * cached results right after a restart.
+ * <p>
+ * The entries of a shard are grouped in a directory per commit, named after the segments that the commit consists of, and the
+ * directories of older commits are removed as soon as an entry of a newer commit is written. Each entry is a checksummed file that
+ * holds the cache key next to the value, which is only read back by a node of the same version since the values are serialized in
+ * a version dependent way.
+ * <p>
+ * Entries are written, invalidated and evicted on the given executor so that a cache miss never waits on the disk. The size and
+ * recency of the entries of each shard are tracked in memory; they are loaded from disk once, when the first entry of a shard is
+ * written after the node started or after a new commit, and are then used to evict the least recently used entries of a shard that
+ * would otherwise exceed its share of disk. The entries of all tracked shards also share a node wide budget: once it is exceeded,
+ * the least recently used entries of the node are evicted, whichever shard they belong to. Entries that were persisted before the
+ * node started only count towards the budget once their shard is written to again.
+ * <p>
+ * Reads are not forked: {@link #get} is called by the loader of the in-memory cache, on the thread of the request that missed.
+ */
+final class PersistedRequestCache {
+
+    private static final Logger logger = LogManager.getLogger(PersistedRequestCache.class);
+
+    static final String FOLDER_NAME = "request_cache";
+    private static final String CODEC = "request_cache_entry";
+    private static final int VERSION_START = 0;
+    private static final int VERSION_CURRENT = VERSION_START;
+    private static final String ENTRY_EXTENSION = ".rce";
+
+    private final long maxShardSizeInBytes;
+    private final long maxTotalSizeInBytes;
+    private final Executor executor;
+    private final ConcurrentMap<Path, ShardEntries> shards = ConcurrentCollections.newConcurrentMap();
+    // the size of the entries of all tracked shards, and the clock that orders their uses across shards
+    private final AtomicLong totalSizeInBytes = new AtomicLong();
+    private final AtomicLong clock = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    PersistedRequestCache(long maxShardSizeInBytes, long maxTotalSizeInBytes, Executor executor) {
+        this.maxShardSizeInBytes = maxShardSizeInBytes;
+        this.maxTotalSizeInBytes = maxTotalSizeInBytes;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the directory that the entries computed on the given reader are persisted to, or {@code null} if they can't be
+     * persisted because the reader sees changes that are not committed yet or the entity doesn't support persisted entries.
+     */
+    @Nullable
+    Path commitDirectory(IndicesRequestCache.CacheEntity entity, DirectoryReader reader) {
+        final Path directory = entity.persistedCacheDirectory();
+        if (directory == null || entity.isLastCommit(reader) == false) {
+            return null;
+        }
+        final String commitName = commitName(reader);
+        return commitName == null ? null : directory.resolve(commitName);
+    }
+
+    /**
+     * Returns the persisted value for the given key, or {@code null} if there is none.
+     */
+    @Nullable
+    BytesReference get(Path commitDirectory, BytesReference key) {
+        final String fileName = entryName(key);
+        final ShardEntries entries = shards.get(commitDirectory.getParent());
+        if (entries != null && entries.mayContain(commitDirectory, fileName) == false) {
+            return null;
+        }
+        if ((entries == null || entries.isTracking(commitDirectory) == false) && Files.isDirectory(commitDirectory) == false) {
+            // nothing was written to this shard since the node started, only look at the disk if there is something to read
+            return null;
+        }
+        try (Directory directory = FSDirectory.open(commitDirectory);
+             ChecksumIndexInput in = directory.openChecksumInput(fileName, IOContext.READONCE)) {
+            CodecUtil.checkHeader(in, CODEC, VERSION_START, VERSION_CURRENT);
+            if (in.readVInt() != Version.CURRENT.id) {
+                // written by a node of another version that may serialize values differently
+                invalidate(commitDirectory, fileName);
+                return null;
+            }
+            final BytesArray persistedKey = readBytes(in);
+            final BytesArray value = readBytes(in);
+            CodecUtil.checkFooter(in);
+            return persistedKey.equals(key) ? value : null;
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            logger.debug(new ParameterizedMessage("failed to read persisted request cache entry [{}]", commitDirectory.resolve(fileName)),
+                e);
+            invalidate(commitDirectory, fileName);
+            return null;
+        }
+    }
+
+    /**
+     * Persists the given value for the given key in the background and removes the entries of older commits of the same shard.
+     * The least recently used entries are removed if the shard would otherwise exceed its share of disk, or the node its budget.
+     */
+    void put(Path commitDirectory, BytesReference key, BytesReference value) {
+        final long entrySize = entrySize(key, value);
+        if (entrySize > maxShardSizeInBytes || entrySize > maxTotalSizeInBytes) {
+            return;
+        }
+        final String fileName = entryName(key);
+        final ShardEntries entries = shards.computeIfAbsent(commitDirectory.getParent(), k -> new ShardEntries(totalSizeInBytes, clock));
+        executor.execute(new AbstractRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                logger.debug(new ParameterizedMessage("failed to persist request cache entry [{}]", commitDirectory.resolve(fileName)),
+                    e);
+            }
+
+            @Override
+            protected void doRun() throws IOException {
+                synchronized (entries.writeLock) {
+                    if (entries.isClosed()) {
+                        return;
+                    }
+                    switchToCommit(entries, commitDirectory);
+                    for (String evicted : entries.add(fileName, entrySize, maxShardSizeInBytes)) {
+                        delete(commitDirectory, evicted);
+                    }
+                    boolean success = false;
+                    try {
+                        write(commitDirectory, fileName, key, value);
+                        success = true;
+                    } finally {
+                        if (success == false) {
+                            entries.remove(commitDirectory, fileName);
+                        }
+                    }
+                }
+                // outside of the lock of the shard, since evicting takes the locks of other shards
+                enforceTotalSize();
+            }
+        });
+    }
+
+    /**
+     * Evicts the least recently used entries of the node, across all tracked shards, until they fit in the node wide budget.
+     * Only the lock of the shard that an entry is evicted from is held while deleting it.
+     */
+    private void enforceTotalSize() {
+        synchronized (evictionLock) {
+            while (totalSizeInBytes.get() > maxTotalSizeInBytes) {
+                ShardEntries victim = null;
+                long eldestUse = Long.MAX_VALUE;
+                for (ShardEntries entries : shards.values()) {
+                    final long use = entries.eldestUse();
+                    if (use < eldestUse) {
+                        eldestUse = use;
+                        victim = entries;
+                    }
+                }
+                if (victim == null) {
+                    return;
+                }
+                synchronized (victim.writeLock) {
+                    final Tuple<Path, String> evicted = victim.evictEldest();
+                    if (evicted != null) {
+                        delete(evicted.v1(), evicted.v2());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the persisted value for the given key, if any, in the background.
+     */
+    void invalidate(Path commitDirectory, BytesReference key) {
+        invalidate(commitDirectory, entryName(key));
+    }
+
+    private void invalidate(Path commitDirectory, String fileName) {
+        final ShardEntries entries = shards.get(commitDirectory.getParent());
+        executor.execute(new AbstractRunnable() {
+            @Override
+            public void onFailure(Exception e) {
+                logger.debug(new ParameterizedMessage("failed to delete persisted request cache entry [{}]",
+                    commitDirectory.resolve(fileName)), e);
+            }
+
+            @Override
+            protected void doRun() {
+                if (entries == null) {
+                    delete(commitDirectory, fileName);
+                    return;
+                }
+                synchronized (entries.writeLock) {
+                    entries.remove(commitDirectory, fileName);
+                    delete(commitDirectory, fileName);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes all the persisted entries in the given directory of a shard.
+     */
+    void clear(Path directory) {
+        final ShardEntries entries = shards.remove(directory);
+        if (entries == null) {
+            rm(directory);
+        } else {
+            synchronized (entries.writeLock) {
+                // waits for the write in flight, if any, and skips the ones that are still queued
+                entries.close();
+                rm(directory);
+            }
+        }
+    }
+
+    /**
+     * Forgets about the entries of the given directory of a shard, without removing them from disk, once the shard is closed.
+     */
+    void release(Path directory) {
+        final ShardEntries entries = shards.remove(directory);
+        if (entries != null) {
+            entries.close();
+        }
+    }
+
+    /**
+     * Returns the total size of the entries that are tracked for the given directory of a shard.
+     */
+    long sizeInBytes(Path directory) { // for testing
+        final ShardEntries entries = shards.get(directory);
+        return entries == null ? 0L : entries.sizeInBytes();
+    }
+
+    /**
+     * Returns the total size of the entries that are tracked for all shards.
+     */
+    long totalSizeInBytes() { // for testing
+        return totalSizeInBytes.get();
+    }
+
+    /**
+     * Makes the given commit the one that the entries of the shard are tracked for. This is a no-op unless this is the first write
+     * to the shard since the node started or since a new commit, in which case the directories of other commits are removed and
+     * the entries that the commit already has on disk are loaded, in the order in which they were written.
+     */
+    private void switchToCommit(ShardEntries entries, Path commitDirectory) throws IOException {
+        assert Thread.holdsLock(entries.writeLock);
+        if (entries.isTracking(commitDirectory)) {
+            return;
+        }
+        removeOtherCommits(commitDirectory);
+        final List<Tuple<String, BasicFileAttributes>> existing = new ArrayList<>();
+        if (Files.isDirectory(commitDirectory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(commitDirectory, "*" + ENTRY_EXTENSION)) {
+                for (Path entry : stream) {
+                    existing.add(Tuple.tuple(entry.getFileName().toString(), Files.readAttributes(entry, BasicFileAttributes.class)));
+                }
+            }
+        }
+        existing.sort(Comparator.comparing(entry -> entry.v2().lastModifiedTime()));
+        final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>();
+        for (Tuple<String, BasicFileAttributes> entry : existing) {
+            sizes.put(entry.v1(), entry.v2().size());
+        }
+        entries.track(commitDirectory, sizes);
+    }
+
+    private void removeOtherCommits(Path commitDirectory) {
+        final Path shardDirectory = commitDirectory.getParent();
+        if (Files.isDirectory(shardDirectory) == false) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shardDirectory)) {
+            for (Path other : stream) {
+                if (other.equals(commitDirectory) == false) {
+                    IOUtils.rm(other);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug(new ParameterizedMessage("failed to remove outdated persisted request cache entries in [{}]", shardDirectory),
+                e);
+        }
+    }
+
+    private static void write(Path commitDirectory, String fileName, BytesReference key, BytesReference value) throws IOException {
+        try (Directory directory = FSDirectory.open(commitDirectory)) {
+            final String tempFileName;
+            try (IndexOutput out = directory.createTempOutput(fileName, "", IOContext.DEFAULT)) {
+                tempFileName = out.getName();
+                CodecUtil.writeHeader(out, CODEC, VERSION_CURRENT);
+                out.writeVInt(Version.CURRENT.id);
+                writeBytes(out, key);
+                writeBytes(out, value);
+                CodecUtil.writeFooter(out);
+            }
+            directory.rename(tempFileName, fileName);
+        }
+    }
+
+    private static void rm(Path directory) {
+        try {
+            IOUtils.rm(directory);
+        } catch (IOException e) {
+            logger.debug(new ParameterizedMessage("failed to clear persisted request cache [{}]", directory), e);
+        }
+    }
+
+    private static void delete(Path commitDirectory, String fileName) {
+        try {
+            Files.deleteIfExists(commitDirectory.resolve(fileName));
+        } catch (IOException e) {
+            logger.debug(new ParameterizedMessage("failed to delete persisted request cache entry [{}]",
+                commitDirectory.resolve(fileName)), e);
+        }
+    }
+
+    /**
+     * Returns the size of the file that the given entry is written to, which is also the size that entries that are loaded from
+     * disk are accounted for.
+     */
+    static long entrySize(BytesReference key, BytesReference value) {
+        return CodecUtil.headerLength(CODEC) + vIntLength(Version.CURRENT.id) + vIntLength(key.length()) + key.length()
+            + vIntLength(value.length()) + value.length() + CodecUtil.footerLength();
+    }
+
+    private static int vIntLength(int i) {
+        int length = 1;
+        while ((i & ~0x7F) != 0) {
+            i >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static void writeBytes(IndexOutput out, BytesReference bytes) throws IOException {
+        out.writeVInt(bytes.length());
+        final BytesRefIterator iterator = bytes.iterator();
+        BytesRef ref;
+        while ((ref = iterator.next()) != null) {
+            out.writeBytes(ref.bytes, ref.offset, ref.length);
+        }
+    }
+
+    private static BytesArray readBytes(ChecksumIndexInput in) throws IOException {
+        final int length = in.readVInt();
+        if (length < 0 || length > in.length() - in.getFilePointer()) {
+            throw new IOException("invalid length [" + length + "] in [" + in + "]");
+        }
+        final byte[] bytes = new byte[length];
+        in.readBytes(bytes, 0, length);
+        return new BytesArray(bytes);
+    }
+
+    private static String entryName(BytesReference key) {
+        final MessageDigest digest = MessageDigests.sha256();
+        try {
+            final BytesRefIterator iterator = key.iterator();
+            BytesRef ref;
+            while ((ref = iterator.next()) != null) {
+                digest.update(ref.bytes, ref.offset, ref.length);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("iterating over bytes in memory can't fail", e);
+        }
+        return MessageDigests.toHexString(digest.digest()) + ENTRY_EXTENSION;
+    }
+
+    /**
+     * Returns a name for the commit that the given reader sees that identifies it across restarts, or {@code null} if the reader
+     * doesn't expose its segments.
+     */
+    @Nullable
+    static String commitName(DirectoryReader reader) {
+        final DirectoryReader unwrapped = FilterDirectoryReader.unwrap(reader);
+        if (unwrapped instanceof StandardDirectoryReader == false) {
+            return null;
+        }
+        final SegmentInfos segmentInfos = ((StandardDirectoryReader) unwrapped).getSegmentInfos();
+        final MessageDigest digest = MessageDigests.sha256();
+        final ByteBuffer buffer = ByteBuffer.allocate(4 * Long.BYTES + 2 * Integer.BYTES);
+        buffer.putLong(segmentInfos.getGeneration()).putLong(segmentInfos.getVersion());
+        digest.update(buffer.array(), 0, 2 * Long.BYTES);
+        for (SegmentCommitInfo info : segmentInfos) {
+            // segment ids are unique, the generations and counts tell the deletes and doc values updates of a segment apart
+            digest.update(info.info.getId());
+            buffer.clear();
+            buffer.putLong(info.getDelGen()).putLong(info.getFieldInfosGen()).putLong(info.getDocValuesGen()).putLong(info.info.maxDoc())
+                .putInt(info.getDelCount()).putInt(info.getSoftDelCount());
+            digest.update(buffer.array());
+        }
+        return MessageDigests.toHexString(digest.digest());
+    }
+
+    /**
+     * The sizes of the persisted entries of a shard, in the order in which they were last used, for the commit that is currently
+     * tracked. Disk operations on the entries of the shard are serialized on {@link #writeLock}, which is never held on a search
+     * thread, while the monitor of this object only guards the in-memory state. Sizes are also accounted for in the total size of
+     * the node, and uses are stamped with the clock of the node so that the least recently used entry of the node can be found.
+     */
+    private static final class ShardEntries {
+
+        final Object writeLock = new Object();
+        private final AtomicLong totalSizeInBytes;
+        private final AtomicLong clock;
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        @Nullable
+        private Path commitDirectory;
+        private long sizeInBytes;
+        private boolean closed;
+
+        ShardEntries(AtomicLong totalSizeInBytes, AtomicLong clock) {
+            this.totalSizeInBytes = totalSizeInBytes;
+            this.clock = clock;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized void close() {
+            closed = true;
+            entries.clear();
+            setSizeInBytes(0L);
+        }
+
+        synchronized boolean isTracking(Path commitDirectory) {
+            return commitDirectory.equals(this.commitDirectory);
+        }
+
+        /**
+         * Tracks the entries of the given commit, in the order in which they were written. They are considered older than any entry
+         * that was used since the node started.
+         */
+        synchronized void track(Path commitDirectory, LinkedHashMap<String, Long> sizes) {
+            this.commitDirectory = commitDirectory;
+            entries.clear();
+            long size = 0L;
+            for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+                entries.put(entry.getKey(), new Entry(entry.getValue(), 0L));
+                size += entry.getValue();
+            }
+            setSizeInBytes(size);
+        }
+
+        /**
+         * Returns {@code false} if the given entry is known not to be on disk, and marks it as used otherwise. The entries of a
+         * shard are only known once one of them was written since the node started.
+         */
+        synchronized boolean mayContain(Path commitDirectory, String fileName) {
+            if (this.commitDirectory == null) {
+                return true;
+            }
+            if (commitDirectory.equals(this.commitDirectory) == false) {
+                return false;
+            }
+            final Entry entry = entries.get(fileName);
+            if (entry == null) {
+                return false;
+            }
+            entry.lastUse = clock.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * Accounts for a new entry of the tracked commit and returns the least recently used entries that need to be removed to
+         * stay within the given size.
+         */
+        synchronized List<String> add(String fileName, long size, long maxSizeInBytes) {
+            final Entry previous = entries.put(fileName, new Entry(size, clock.incrementAndGet()));
+            long newSizeInBytes = sizeInBytes + size - (previous == null ? 0L : previous.size);
+            final List<String> evicted = new ArrayList<>();
+            final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (newSizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+                final Map.Entry<String, Entry> entry = iterator.next();
+                if (entry.getKey().equals(fileName) == false) {
+                    iterator.remove();
+                    newSizeInBytes -= entry.getValue().size;
+                    evicted.add(entry.getKey());
+                }
+            }
+            setSizeInBytes(newSizeInBytes);
+            return evicted;
+        }
+
+        synchronized void remove(Path commitDirectory, String fileName) {
+            if (commitDirectory.equals(this.commitDirectory)) {
+                final Entry entry = entries.remove(fileName);
+                if (entry != null) {
+                    setSizeInBytes(sizeInBytes - entry.size);
+                }
+            }
+        }
+
+        /**
+         * Returns when the least recently used entry was last used, or {@link Long#MAX_VALUE} if there are no entries.
+         */
+        synchronized long eldestUse() {
+            return entries.isEmpty() ? Long.MAX_VALUE : entries.values().iterator().next().lastUse;
+        }
+
+        /**
+         * Stops tracking the least recently used entry and returns its directory and file name, or {@code null} if there are no
+         * entries.
+         */
+        @Nullable
+        synchronized Tuple<Path, String> evictEldest() {
+            final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            if (iterator.hasNext() == false) {
+                return null;
+            }
+            final Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            setSizeInBytes(sizeInBytes - eldest.getValue().size);
+            return Tuple.tuple(commitDirectory, eldest.getKey());
+        }
+
+        synchronized long sizeInBytes() {
+            return sizeInBytes;
+        }
+
+        private void setSizeInBytes(long sizeInBytes) {
+            assert Thread.holdsLock(this);
+            totalSizeInBytes.addAndGet(sizeInBytes - this.sizeInBytes);
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+
+    private static final class Entry {
+
+        private final long size;
+        private long lastUse;
+
+        Entry(long size, long lastUse) {
+            this.size = size;
+            this.lastUse = lastUse;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.cluster.ClusterChangeSet;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateApplier;
@@ -90,6 +91,7 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason.CLOSED;
 import static org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason.DELETED;
@@ -113,6 +115,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     // a list of shards that failed during recovery
     // we keep track of these shards in order to prevent repeated recovery of these shards on each cluster state update
     final ConcurrentMap<ShardId, ShardRouting> failedShardsCache = ConcurrentCollections.newConcurrentMap();
+    // the last cluster state that was applied completely, the next cluster state only needs to visit the indices and shards that
+    // changed since then as long as no shard was failed or removed locally in the meantime
+    private ClusterState lastAppliedState;
     private final RepositoriesService repositoriesService;
 
     private final FailedShardHandler failedShardHandler = new FailedShardHandler();
@@ -213,6 +218,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
 
         final ClusterState state = event.state();
+        final boolean incremental = canApplyIncrementally(event);
+        lastAppliedState = null;
 
         // we need to clean the shards and indices we have on this node, since we
         // are going to recover them again once state persistence is disabled (no master / not recovered)
@@ -222,24 +229,70 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                 // also cleans shards
                 indicesService.removeIndex(indexService.index(), NO_LONGER_ASSIGNED, "cleaning index (disabled block persistence)");
             }
+            lastAppliedState = state;
             return;
         }
 
-        updateFailedShardsCache(state);
+        final RoutingNode localRoutingNode;
+        final Predicate<Index> indexFilter;
+        if (incremental) {
+            // only visit the indices and the local shards that changed since the last applied cluster state
+            final ClusterChangeSet changeSet = event.changeSet();
+            logger.trace("applying cluster state version [{}] incrementally, changes: {}", state.version(), changeSet);
+            localRoutingNode = localRoutingNodeOfChangedIndices(state, changeSet);
+            indexFilter = changeSet::indexAffected;
+        } else {
+            localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+            indexFilter = index -> true;
+            updateFailedShardsCache(state, localRoutingNode);
+        }
 
         deleteIndices(event); // also deletes shards of deleted indices
 
-        removeIndices(event); // also removes shards of removed indices
+        removeIndices(event, localRoutingNode, indexFilter); // also removes shards of removed indices
+
+        failMissingShards(state, localRoutingNode);
+
+        removeShards(localRoutingNode, indexFilter);   // removes any local shards that doesn't match what the master expects
+
+        updateIndices(event, localRoutingNode); // can also fail shards, but these are then guaranteed to be in failedShardsCache
 
-        failMissingShards(state);
+        createIndices(state, localRoutingNode);
 
-        removeShards(state);   // removes any local shards that doesn't match what the master expects
+        createOrUpdateShards(state, localRoutingNode);
 
-        updateIndices(event); // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        lastAppliedState = state;
+    }
 
-        createIndices(state);
+    /**
+     * Returns <code>true</code> iff the local indices and shards are known to reflect the previous cluster state of the given event, so
+     * that only the indices and shards that changed need to be visited. Any change that can affect shards without changing their
+     * routing entries, like a change of the master or of the nodes in the cluster, requires to visit all shards.
+     */
+    private boolean canApplyIncrementally(ClusterChangedEvent event) {
+        return lastAppliedState != null
+            && event.previousState() == lastAppliedState
+            && failedShardsCache.isEmpty()
+            && event.isNewCluster() == false
+            && event.nodesDelta().hasChanges() == false
+            && event.blocksChanged() == false
+            && event.previousState().blocks().hasGlobalBlock(GatewayService.STATE_NOT_RECOVERED_BLOCK) == false;
+    }
 
-        createOrUpdateShards(state);
+    /**
+     * Builds a routing node with the shards of the local node that belong to indices that were added or changed, which is all that
+     * needs to be visited when applying the cluster state incrementally.
+     */
+    private static RoutingNode localRoutingNodeOfChangedIndices(ClusterState state, ClusterChangeSet changeSet) {
+        final String localNodeId = state.nodes().getLocalNodeId();
+        final List<ShardRouting> shards = new ArrayList<>();
+        for (Index index : changeSet.indicesAdded()) {
+            ClusterChangeSet.forEachLocalShard(state.routingTable().index(index), localNodeId, shards::add);
+        }
+        for (Index index : changeSet.indicesChanged()) {
+            ClusterChangeSet.forEachLocalShard(state.routingTable().index(index), localNodeId, shards::add);
+        }
+        return new RoutingNode(localNodeId, state.nodes().getLocalNode(), shards.toArray(new ShardRouting[0]));
     }
 
     /**
@@ -248,9 +301,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Resends shard failures for shards that are still marked as allocated to this node but previously failed.
      *
      * @param state new cluster state
+     * @param localRoutingNode the shards of the local node
      */
-    private void updateFailedShardsCache(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+    private void updateFailedShardsCache(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         if (localRoutingNode == null) {
             failedShardsCache.clear();
             return;
@@ -368,14 +421,16 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * {@link org.elasticsearch.indices.store.IndicesStore}).
      *
      * @param event the cluster changed event
+     * @param localRoutingNode the shards of the local node, of at least the indices that match the index filter
+     * @param indexFilter the indices to visit
      */
-    private void removeIndices(final ClusterChangedEvent event) {
+    private void removeIndices(final ClusterChangedEvent event, @Nullable final RoutingNode localRoutingNode,
+                               final Predicate<Index> indexFilter) {
         final ClusterState state = event.state();
         final String localNodeId = state.nodes().getLocalNodeId();
         assert localNodeId != null;
 
         final Set<Index> indicesWithShards = new HashSet<>();
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
         if (localRoutingNode != null) { // null e.g. if we are not a data node
             for (ShardRouting shardRouting : localRoutingNode) {
                 indicesWithShards.add(shardRouting.index());
@@ -384,6 +439,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
             final Index index = indexService.index();
+            if (indexFilter.test(index) == false) {
+                continue;
+            }
             final IndexMetadata indexMetadata = state.metadata().index(index);
             final IndexMetadata existingMetadata = indexService.getIndexSettings().getIndexMetadata();
 
@@ -412,9 +470,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Notifies master about shards that don't exist but are supposed to be active on this node.
      *
      * @param state new cluster state
+     * @param localRoutingNode the shards of the local node to check
      */
-    private void failMissingShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+    private void failMissingShards(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         if (localRoutingNode == null) {
             return;
         }
@@ -434,15 +492,15 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Removes shards that are currently loaded by indicesService but have disappeared from the routing table of the current node.
      * This method does not delete the shard data.
      *
-     * @param state new cluster state
+     * @param localRoutingNode the shards of the local node, of at least the indices that match the index filter
+     * @param indexFilter the indices to visit
      */
-    private void removeShards(final ClusterState state) {
-        final String localNodeId = state.nodes().getLocalNodeId();
-        assert localNodeId != null;
-
+    private void removeShards(@Nullable final RoutingNode localRoutingNode, final Predicate<Index> indexFilter) {
         // remove shards based on routing nodes (no deletion of data)
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
+            if (indexFilter.test(indexService.index()) == false) {
+                continue;
+            }
             for (Shard shard : indexService) {
                 ShardRouting currentRoutingEntry = shard.routingEntry();
                 ShardId shardId = currentRoutingEntry.shardId();
@@ -473,9 +531,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createIndices(final ClusterState state) {
+    private void createIndices(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         // we only create indices for shards that are allocated
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
         if (localRoutingNode == null) {
             return;
         }
@@ -519,7 +576,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void updateIndices(ClusterChangedEvent event) {
+    private void updateIndices(ClusterChangedEvent event, @Nullable final RoutingNode localRoutingNode) {
         if (!event.metadataChanged()) {
             return;
         }
@@ -551,7 +608,6 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                     indicesService.removeIndex(indexService.index(), FAILURE, "removing index (" + reason + ")");
 
                     // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
                     if (localRoutingNode != null) {
                         for (final ShardRouting shardRouting : localRoutingNode) {
                             if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
@@ -564,8 +620,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createOrUpdateShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+    private void createOrUpdateShards(final ClusterState state, @Nullable final RoutingNode localRoutingNode) {
         if (localRoutingNode == null) {
             return;
         }
@@ -722,6 +777,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
     private void failAndRemoveShard(ShardRouting shardRouting, boolean sendShardFailure, String message, @Nullable Exception failure,
                                     ClusterState state) {
+        // the local shards no longer reflect the last applied cluster state, the next one needs to visit all shards
+        lastAppliedState = null;
         try {
             AllocatedIndex<? extends Shard> indexService = indicesService.indexService(shardRouting.shardId().getIndex());
             if (indexService != null) {
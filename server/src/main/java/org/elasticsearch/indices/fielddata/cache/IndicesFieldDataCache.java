@@ -55,6 +55,12 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
 
     public static final Setting<ByteSizeValue> INDICES_FIELDDATA_CACHE_SIZE_KEY =
         Setting.memorySizeSetting("indices.fielddata.cache.size", new ByteSizeValue(-1), Property.NodeScope);
+    /**
+     * The policy that decides which entries are evicted from the cache once it is full, see {@link Cache.EvictionPolicy}.
+     */
+    public static final Setting<Cache.EvictionPolicy> INDICES_FIELDDATA_CACHE_EVICTION_POLICY = new Setting<>(
+        "indices.fielddata.cache.eviction_policy", Cache.EvictionPolicy.LRU.toString(), Cache.EvictionPolicy::fromString,
+        Property.NodeScope);
     private final IndexFieldDataCache.Listener indicesFieldDataCacheListener;
     private final Cache<Key, Accountable> cache;
 
@@ -62,7 +68,8 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
         this.indicesFieldDataCacheListener = indicesFieldDataCacheListener;
         final long sizeInBytes = INDICES_FIELDDATA_CACHE_SIZE_KEY.get(settings).getBytes();
         CacheBuilder<Key, Accountable> cacheBuilder = CacheBuilder.<Key, Accountable>builder()
-                .removalListener(this);
+                .removalListener(this)
+                .setEvictionPolicy(INDICES_FIELDDATA_CACHE_EVICTION_POLICY.get(settings));
         if (sizeInBytes > 0) {
             cacheBuilder.setMaximumWeight(sizeInBytes).weigher(new FieldDataWeigher());
         }
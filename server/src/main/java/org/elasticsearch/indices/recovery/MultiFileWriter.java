@@ -35,8 +35,10 @@ import org.elasticsearch.transport.Transports;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.PriorityQueue;
@@ -67,6 +69,11 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
 
     final Map<String, String> tempFileNames = ConcurrentCollections.newConcurrentMap();
 
+    // temporary files that have been completely written and verified against their checksum, by original file name
+    private final Map<String, VerifiedFile> verifiedFiles = ConcurrentCollections.newConcurrentMap();
+    // the writer of the next attempt of the recovery, which takes over the verified files once this writer is closed
+    private volatile MultiFileWriter successor;
+
     public void writeFileChunk(StoreFileMetadata fileMetadata, long position, BytesReference content, boolean lastChunk)
         throws IOException {
         assert Transports.assertNotTransportThread("multi_file_writer");
@@ -103,6 +110,12 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
         if (tempFileNames.containsKey(tempFileName)) {
             throw new IllegalStateException("output for file [" + fileName + "] has already been created");
         }
+        final VerifiedFile previousAttempt = verifiedFiles.remove(fileName);
+        if (previousAttempt != null) {
+            // the file is sent again, drop the copy of a previous attempt of the recovery
+            tempFileNames.remove(previousAttempt.tempFileName);
+            store.deleteQuiet(previousAttempt.tempFileName);
+        }
         // add first, before it's created
         tempFileNames.put(tempFileName, fileName);
         IndexOutput indexOutput = store.createVerifyingOutput(tempFileName, metadata, IOContext.DEFAULT);
@@ -139,7 +152,48 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
             store.directory().sync(Collections.singleton(temporaryFileName));
             IndexOutput remove = removeOpenIndexOutputs(name);
             assert remove == null || remove == indexOutput; // remove maybe null if we got finished
+            verifiedFiles.put(name, new VerifiedFile(temporaryFileName, fileMetadata));
+        }
+    }
+
+    /**
+     * Returns the metadata of the files that have been completely written and verified against their checksum, but not renamed yet.
+     */
+    public Map<String, StoreFileMetadata> getVerifiedFiles() {
+        final Map<String, StoreFileMetadata> files = new HashMap<>();
+        for (VerifiedFile file : verifiedFiles.values()) {
+            files.put(file.metadata.name(), file.metadata);
         }
+        return Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Drops the verified files that aren't in the given list, e.g. because the source of the recovery doesn't reuse them.
+     */
+    public void retainVerifiedFiles(Collection<String> fileNames) {
+        ensureOpen.run();
+        for (Iterator<VerifiedFile> iterator = verifiedFiles.values().iterator(); iterator.hasNext(); ) {
+            final VerifiedFile file = iterator.next();
+            if (fileNames.contains(file.metadata.name()) == false) {
+                iterator.remove();
+                tempFileNames.remove(file.tempFileName);
+                store.deleteQuiet(file.tempFileName);
+            }
+        }
+    }
+
+    /**
+     * Hands the verified files over to the given writer once this writer is closed rather than deleting them, so that the
+     * next attempt of the recovery doesn't need to copy them again.
+     */
+    public void handOverVerifiedFilesOnClose(MultiFileWriter successor) {
+        assert successor != this;
+        this.successor = successor;
+    }
+
+    private void takeOverVerifiedFile(VerifiedFile file) {
+        tempFileNames.put(file.tempFileName, file.metadata.name());
+        verifiedFiles.put(file.metadata.name(), file);
     }
 
     @Override
@@ -164,6 +218,20 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
             }
             iterator.remove();
         }
+        final MultiFileWriter successor = this.successor;
+        if (successor != null && verifiedFiles.isEmpty() == false && successor.tryIncRef()) {
+            try {
+                for (VerifiedFile file : verifiedFiles.values()) {
+                    logger.trace("handing over verified file [{}] to the next recovery attempt", file.tempFileName);
+                    if (tempFileNames.remove(file.tempFileName) != null) {
+                        successor.takeOverVerifiedFile(file);
+                    }
+                }
+            } finally {
+                successor.decRef();
+            }
+        }
+        verifiedFiles.clear();
         if (Strings.hasText(tempFilePrefix)) {
             // trash temporary files
             for (String file : tempFileNames.keySet()) {
@@ -177,6 +245,17 @@ public class MultiFileWriter extends AbstractRefCounted implements Releasable {
     public void renameAllTempFiles() throws IOException {
         ensureOpen.run();
         store.renameTempFilesSafe(tempFileNames);
+        verifiedFiles.clear();
+    }
+
+    private static final class VerifiedFile {
+        final String tempFileName;
+        final StoreFileMetadata metadata;
+
+        VerifiedFile(String tempFileName, StoreFileMetadata metadata) {
+            this.tempFileName = tempFileName;
+            this.metadata = metadata;
+        }
     }
 
     static final class FileChunk {
@@ -51,6 +51,7 @@ import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.CancellableThreads;
+import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
@@ -115,6 +116,7 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    private final int maxConcurrentFiles;
     private final int maxConcurrentOperations;
     private final ThreadPool threadPool;
     private final CancellableThreads cancellableThreads = new CancellableThreads();
@@ -124,6 +126,12 @@ public class RecoverySourceHandler {
     public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
                                  StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
                                  int maxConcurrentOperations) {
+        this(shard, recoveryTarget, threadPool, request, fileChunkSizeInBytes, maxConcurrentFileChunks, 1, maxConcurrentOperations);
+    }
+
+    public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
+                                 StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
+                                 int maxConcurrentFiles, int maxConcurrentOperations) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.threadPool = threadPool;
@@ -132,6 +140,7 @@ public class RecoverySourceHandler {
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.maxConcurrentFiles = maxConcurrentFiles;
         this.maxConcurrentOperations = maxConcurrentOperations;
     }
 
@@ -891,10 +900,65 @@ public class RecoverySourceHandler {
     }
 
     void sendFiles(Store store, StoreFileMetadata[] files, IntSupplier translogOps, ActionListener<Void> listener) {
-        ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
+        final List<List<StoreFileMetadata>> lanes = splitIntoLanes(files, maxConcurrentFiles);
+        if (lanes.size() == 1) {
+            sendFilesSequentially(store, lanes.get(0), translogOps, listener);
+            return;
+        }
+        logger.trace("recovery [phase1]: sending [{}] files in [{}] parallel lanes", files.length, lanes.size());
+        // the first failure fails the recovery right away, which closes the senders of the other lanes
+        final ActionListener<Void> notifyOnce = ActionListener.notifyOnce(listener);
+        final CountDown countDown = new CountDown(lanes.size());
+        final ActionListener<Void> laneListener = ActionListener.wrap(
+            r -> {
+                if (countDown.countDown()) {
+                    notifyOnce.onResponse(null);
+                }
+            },
+            notifyOnce::onFailure);
+        for (List<StoreFileMetadata> lane : lanes) {
+            sendFilesSequentially(store, lane, translogOps, laneListener);
+        }
+    }
+
+    /**
+     * Splits the files to send into at most {@code maxLanes} lanes of about the same total size, by assigning the largest
+     * files first to the lane that has the least bytes to send so far. Each lane sends its files smallest first.
+     */
+    static List<List<StoreFileMetadata>> splitIntoLanes(StoreFileMetadata[] files, int maxLanes) {
+        final int numLanes = Math.max(1, Math.min(maxLanes, files.length));
+        if (numLanes == 1) {
+            final StoreFileMetadata[] sorted = files.clone();
+            ArrayUtil.timSort(sorted, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
+            return Collections.singletonList(Arrays.asList(sorted));
+        }
+        final StoreFileMetadata[] largestFirst = files.clone();
+        ArrayUtil.timSort(largestFirst, Comparator.comparingLong(StoreFileMetadata::length).reversed());
+        final List<List<StoreFileMetadata>> lanes = new ArrayList<>(numLanes);
+        final long[] laneSizes = new long[numLanes];
+        for (int i = 0; i < numLanes; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (StoreFileMetadata md : largestFirst) {
+            int smallestLane = 0;
+            for (int i = 1; i < numLanes; i++) {
+                if (laneSizes[i] < laneSizes[smallestLane]) {
+                    smallestLane = i;
+                }
+            }
+            lanes.get(smallestLane).add(md);
+            laneSizes[smallestLane] += md.length();
+        }
+        for (List<StoreFileMetadata> lane : lanes) {
+            Collections.reverse(lane); // send smallest first
+        }
+        return lanes;
+    }
 
+    private void sendFilesSequentially(Store store, List<StoreFileMetadata> files, IntSupplier translogOps,
+                                       ActionListener<Void> listener) {
         final MultiChunkTransfer<StoreFileMetadata, FileChunk> multiFileSender =
-            new MultiChunkTransfer<>(logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, Arrays.asList(files)) {
+            new MultiChunkTransfer<>(logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, files) {
 
                 final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
                 InputStreamIndexInput currentInput = null;
@@ -50,7 +50,10 @@ import org.elasticsearch.index.translog.Translog;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -117,7 +120,25 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
      * @return a copy of this recovery target
      */
     public RecoveryTarget retryCopy() {
-        return new RecoveryTarget(indexShard, sourceNode, listener);
+        final RecoveryTarget copy = new RecoveryTarget(indexShard, sourceNode, listener);
+        // files that this attempt already copied and verified are kept for the next attempt
+        multiFileWriter.handOverVerifiedFilesOnClose(copy.multiFileWriter);
+        return copy;
+    }
+
+    /**
+     * Adds the files that a previous attempt of this recovery already copied and verified to the given snapshot of the
+     * local store, so that the source of the recovery reuses them instead of sending them again.
+     */
+    Store.MetadataSnapshot addVerifiedFiles(Store.MetadataSnapshot localMetadata) {
+        final Map<String, StoreFileMetadata> verifiedFiles = multiFileWriter.getVerifiedFiles();
+        if (verifiedFiles.isEmpty()) {
+            return localMetadata;
+        }
+        final Map<String, StoreFileMetadata> files = new HashMap<>(localMetadata.asMap());
+        files.putAll(verifiedFiles);
+        return new Store.MetadataSnapshot(Collections.unmodifiableMap(files), localMetadata.getCommitUserData(),
+            localMetadata.getNumDocs());
     }
 
     public ActionListener<Void> markRequestReceivedAndCreateListener(long requestSeqNo, ActionListener<Void> listener) {
@@ -405,6 +426,7 @@ public class RecoveryTarget extends AbstractRefCounted implements RecoveryTarget
                 index.addFileDetail(phase1FileNames.get(i), phase1FileSizes.get(i), false);
             }
             index.setFileDetailsComplete();
+            multiFileWriter.retainVerifiedFiles(phase1ExistingFileNames);
             state().getTranslog().totalOperations(totalTranslogOps);
             state().getTranslog().totalOperationsOnStart(totalTranslogOps);
             return null;
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
@@ -166,6 +167,103 @@ public class CompoundProcessor implements Processor {
         });
     }
 
+    /**
+     * Executes the processors on a batch of documents. Each processor is given all the documents of the batch that are still
+     * processed at once, and each document goes through the same steps as with {@link #execute(IngestDocument, BiConsumer)}:
+     * failed documents either continue with the next processor or run the on failure processors on their own.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+        final BatchResults batchResults = new BatchResults(ingestDocuments.size(), handler);
+        if (ingestDocuments.isEmpty()) {
+            handler.accept(batchResults.results, batchResults.failures);
+            return;
+        }
+        final int[] slots = new int[ingestDocuments.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        innerExecute(0, ingestDocuments, slots, batchResults);
+    }
+
+    private void innerExecute(int currentProcessor, List<IngestDocument> ingestDocuments, int[] slots, BatchResults batchResults) {
+        if (ingestDocuments.isEmpty()) {
+            // all the documents of the batch were dropped or failed
+            return;
+        }
+        if (currentProcessor == processorsWithMetrics.size()) {
+            for (int i = 0; i < slots.length; i++) {
+                batchResults.complete(slots[i], ingestDocuments.get(i), null);
+            }
+            return;
+        }
+
+        Tuple<Processor, IngestMetric> processorWithMetric = processorsWithMetrics.get(currentProcessor);
+        final Processor processor = processorWithMetric.v1();
+        final IngestMetric metric = processorWithMetric.v2();
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        metric.preIngestBatch(ingestDocuments.size());
+        processor.executeBatch(ingestDocuments, (results, failures) -> {
+            long ingestTimeInNanos = relativeTimeProvider.getAsLong() - startTimeInNanos;
+            metric.postIngestBatch(ingestDocuments.size(), ingestTimeInNanos);
+
+            final List<IngestDocument> nextDocuments = new ArrayList<>(ingestDocuments.size());
+            final int[] nextSlots = new int[ingestDocuments.size()];
+            for (int i = 0; i < slots.length; i++) {
+                final int slot = slots[i];
+                final IngestDocument ingestDocument = ingestDocuments.get(i);
+                final Exception e = failures[i];
+                if (e != null) {
+                    metric.ingestFailed();
+                    if (ignoreFailure) {
+                        nextSlots[nextDocuments.size()] = slot;
+                        nextDocuments.add(ingestDocument);
+                    } else {
+                        IngestProcessorException compoundProcessorException =
+                            newCompoundProcessorException(e, processor, ingestDocument);
+                        if (onFailureProcessors.isEmpty()) {
+                            batchResults.complete(slot, null, compoundProcessorException);
+                        } else {
+                            executeOnFailureAsync(0, ingestDocument, compoundProcessorException,
+                                (result, onFailureException) -> batchResults.complete(slot, result, onFailureException));
+                        }
+                    }
+                } else if (results[i] != null) {
+                    nextSlots[nextDocuments.size()] = slot;
+                    nextDocuments.add(results[i]);
+                } else {
+                    batchResults.complete(slot, null, null);
+                }
+            }
+            innerExecute(currentProcessor + 1, nextDocuments, Arrays.copyOf(nextSlots, nextDocuments.size()), batchResults);
+        });
+    }
+
+    /**
+     * Collects the outcome of each document of a batch, and notifies the handler once all the documents are done.
+     */
+    private static class BatchResults {
+        private final IngestDocument[] results;
+        private final Exception[] failures;
+        private final AtomicInteger pending;
+        private final BiConsumer<IngestDocument[], Exception[]> handler;
+
+        BatchResults(int size, BiConsumer<IngestDocument[], Exception[]> handler) {
+            this.results = new IngestDocument[size];
+            this.failures = new Exception[size];
+            this.pending = new AtomicInteger(size);
+            this.handler = handler;
+        }
+
+        void complete(int slot, IngestDocument result, Exception e) {
+            results[slot] = result;
+            failures[slot] = e;
+            if (pending.decrementAndGet() == 0) {
+                handler.accept(results, failures);
+            }
+        }
+    }
+
     void executeOnFailureAsync(int currentOnFailureProcessor, IngestDocument ingestDocument, ElasticsearchException exception,
                                BiConsumer<IngestDocument, Exception> handler) {
         if (currentOnFailureProcessor == 0) {
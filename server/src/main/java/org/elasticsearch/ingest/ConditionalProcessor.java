@@ -116,17 +116,78 @@ public class ConditionalProcessor extends AbstractProcessor implements WrappingP
         }
     }
 
+    /**
+     * Evaluates the condition on each document of the batch, and then executes the wrapped processor on the batch of the
+     * documents that match.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+        final IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        final Exception[] failures = new Exception[ingestDocuments.size()];
+        final List<IngestDocument> matchingDocuments = new ArrayList<>();
+        final int[] matchingSlots = new int[ingestDocuments.size()];
+        try {
+            final IngestConditionalScript script = conditionScript();
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                final IngestDocument ingestDocument = ingestDocuments.get(i);
+                try {
+                    if (evaluate(script, ingestDocument)) {
+                        matchingSlots[matchingDocuments.size()] = i;
+                        matchingDocuments.add(ingestDocument);
+                    } else {
+                        results[i] = ingestDocument;
+                    }
+                } catch (Exception e) {
+                    failures[i] = e;
+                }
+            }
+        } catch (Exception e) {
+            Arrays.fill(failures, e);
+            handler.accept(results, failures);
+            return;
+        }
+        if (matchingDocuments.isEmpty()) {
+            handler.accept(results, failures);
+            return;
+        }
+
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        metric.preIngestBatch(matchingDocuments.size());
+        processor.executeBatch(matchingDocuments, (matchingResults, matchingFailures) -> {
+            long ingestTimeInNanos = relativeTimeProvider.getAsLong() - startTimeInNanos;
+            metric.postIngestBatch(matchingDocuments.size(), ingestTimeInNanos);
+            for (int i = 0; i < matchingDocuments.size(); i++) {
+                final int slot = matchingSlots[i];
+                if (matchingFailures[i] != null) {
+                    metric.ingestFailed();
+                    failures[slot] = matchingFailures[i];
+                } else {
+                    results[slot] = matchingResults[i];
+                }
+            }
+            handler.accept(results, failures);
+        });
+    }
+
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
         throw new UnsupportedOperationException("this method should not get executed");
     }
 
     boolean evaluate(IngestDocument ingestDocument) {
+        return evaluate(conditionScript(), ingestDocument);
+    }
+
+    private IngestConditionalScript conditionScript() {
         IngestConditionalScript script = precompiledConditionScript;
         if (script == null) {
             IngestConditionalScript.Factory factory = scriptService.compile(condition, IngestConditionalScript.CONTEXT);
             script = factory.newInstance(condition.getParams());
         }
+        return script;
+    }
+
+    private static boolean evaluate(IngestConditionalScript script, IngestDocument ingestDocument) {
         return script.execute(new UnmodifiableIngestData(new DynamicMap(ingestDocument.getSourceAndMetadata(), FUNCTIONS)));
     }
 
@@ -773,12 +773,7 @@ public final class IngestDocument {
         if (executedPipelines.add(pipeline.getId())) {
             Object previousPipeline = ingestMetadata.put("pipeline", pipeline.getId());
             pipeline.execute(this, (result, e) -> {
-                executedPipelines.remove(pipeline.getId());
-                if (previousPipeline != null) {
-                    ingestMetadata.put("pipeline", previousPipeline);
-                } else {
-                    ingestMetadata.remove("pipeline");
-                }
+                exitPipeline(pipeline, previousPipeline);
                 handler.accept(result, e);
             });
         } else {
@@ -786,6 +781,53 @@ public final class IngestDocument {
         }
     }
 
+    /**
+     * Executes the given pipeline on a batch of documents, like {@link #executePipeline(Pipeline, BiConsumer)} does for a single
+     * document.
+     */
+    static void executePipeline(
+        Pipeline pipeline,
+        List<IngestDocument> ingestDocuments,
+        BiConsumer<IngestDocument[], Exception[]> handler
+    ) {
+        final IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        final Exception[] failures = new Exception[ingestDocuments.size()];
+        final List<IngestDocument> executing = new ArrayList<>(ingestDocuments.size());
+        final int[] slots = new int[ingestDocuments.size()];
+        final Object[] previousPipelines = new Object[ingestDocuments.size()];
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            IngestDocument ingestDocument = ingestDocuments.get(i);
+            if (ingestDocument.executedPipelines.add(pipeline.getId())) {
+                previousPipelines[executing.size()] = ingestDocument.ingestMetadata.put("pipeline", pipeline.getId());
+                slots[executing.size()] = i;
+                executing.add(ingestDocument);
+            } else {
+                failures[i] = new IllegalStateException(PIPELINE_CYCLE_ERROR_MESSAGE + pipeline.getId());
+            }
+        }
+        if (executing.isEmpty()) {
+            handler.accept(results, failures);
+            return;
+        }
+        pipeline.executeBatch(executing, (executedResults, executedFailures) -> {
+            for (int i = 0; i < executing.size(); i++) {
+                executing.get(i).exitPipeline(pipeline, previousPipelines[i]);
+                results[slots[i]] = executedResults[i];
+                failures[slots[i]] = executedFailures[i];
+            }
+            handler.accept(results, failures);
+        });
+    }
+
+    private void exitPipeline(Pipeline pipeline, Object previousPipeline) {
+        executedPipelines.remove(pipeline.getId());
+        if (previousPipeline != null) {
+            ingestMetadata.put("pipeline", previousPipeline);
+        } else {
+            ingestMetadata.remove("pipeline");
+        }
+    }
+
     /**
      * @return a pipeline stack; all pipelines that are in execution by this document in reverse order
      */
@@ -50,6 +50,10 @@ class IngestMetric {
      * The only increasing count of failures
      */
     private final CounterMetric ingestFailed = new CounterMetric();
+    /**
+     * The ever increasing count of batches of things being measured
+     */
+    private final CounterMetric ingestBatchCount = new CounterMetric();
 
     /**
      * Call this prior to the ingest action.
@@ -68,6 +72,26 @@ class IngestMetric {
         ingestCount.inc();
     }
 
+    /**
+     * Call this prior to the ingest action of a batch of things.
+     * @param count The number of things in the batch.
+     */
+    void preIngestBatch(int count) {
+        ingestCurrent.addAndGet(count);
+    }
+
+    /**
+     * Call this after performing the ingest action of a batch of things, even if the action failed for some of them.
+     * @param count The number of things in the batch.
+     * @param ingestTimeInNanos The time it took to perform the action on the whole batch.
+     */
+    void postIngestBatch(int count, long ingestTimeInNanos) {
+        ingestCurrent.addAndGet(-count);
+        this.ingestTimeInNanos.inc(ingestTimeInNanos);
+        ingestCount.inc(count);
+        ingestBatchCount.inc();
+    }
+
     /**
      * Call this if the ingest action failed.
      */
@@ -86,6 +110,7 @@ class IngestMetric {
         ingestCount.inc(metrics.ingestCount.count());
         ingestTimeInNanos.inc(metrics.ingestTimeInNanos.count());
         ingestFailed.inc(metrics.ingestFailed.count());
+        ingestBatchCount.inc(metrics.ingestBatchCount.count());
     }
 
     /**
@@ -94,6 +119,12 @@ class IngestMetric {
     IngestStats.Stats createStats() {
         // we track ingestTime at nanosecond resolution, but IngestStats uses millisecond resolution for reporting
         long ingestTimeInMillis = TimeUnit.NANOSECONDS.toMillis(ingestTimeInNanos.count());
-        return new IngestStats.Stats(ingestCount.count(), ingestTimeInMillis, ingestCurrent.get(), ingestFailed.count());
+        return new IngestStats.Stats(
+            ingestCount.count(),
+            ingestTimeInMillis,
+            ingestCurrent.get(),
+            ingestFailed.count(),
+            ingestBatchCount.count()
+        );
     }
 }
@@ -65,6 +65,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -86,6 +87,12 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
 
     private static final Logger logger = LogManager.getLogger(IngestService.class);
 
+    /**
+     * The maximum number of documents of a bulk request that are executed as one batch. The documents of a batch are all parsed before
+     * any of them is executed, so this bounds how many parsed documents are held at once by pipelines that execute synchronously.
+     */
+    static final int MAX_BATCH_SIZE = 128;
+
     private final ClusterService clusterService;
     private final ScriptService scriptService;
     private final Map<String, Processor.Factory> processorFactories;
@@ -452,6 +459,7 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
             protected void doRun() {
                 final Thread originalThread = Thread.currentThread();
                 final AtomicInteger counter = new AtomicInteger(numberOfActionRequests);
+                final Map<String, List<BatchItem>> batches = new LinkedHashMap<>();
                 int i = 0;
                 for (DocWriteRequest<?> actionRequest : actionRequests) {
                     IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(actionRequest);
@@ -487,11 +495,106 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
                         continue;
                     }
 
-                    executePipelines(i, pipelines.iterator(), hasFinalPipeline, indexRequest, onDropped, onFailure, counter,
-                                     onCompletion, originalThread);
+                    // requests that go through the same pipeline first are executed together, as a batch
+                    batches.computeIfAbsent(pipelines.get(0), k -> new ArrayList<>())
+                        .add(new BatchItem(i, indexRequest, pipelines.iterator(), hasFinalPipeline));
 
                     i++;
                 }
+
+                for (Map.Entry<String, List<BatchItem>> batch : batches.entrySet()) {
+                    final List<BatchItem> items = batch.getValue();
+                    for (int from = 0; from < items.size(); from += MAX_BATCH_SIZE) {
+                        final List<BatchItem> subBatch = items.subList(from, Math.min(items.size(), from + MAX_BATCH_SIZE));
+                        executeBatch(batch.getKey(), subBatch, onDropped, onFailure, counter, onCompletion, originalThread);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * An index request of a bulk request that goes through a batch of ingest pipeline executions.
+     */
+    private static class BatchItem {
+        final int slot;
+        final IndexRequest indexRequest;
+        final Iterator<String> pipelines;
+        final boolean hasFinalPipeline;
+
+        BatchItem(int slot, IndexRequest indexRequest, Iterator<String> pipelines, boolean hasFinalPipeline) {
+            this.slot = slot;
+            this.indexRequest = indexRequest;
+            this.pipelines = pipelines;
+            this.hasFinalPipeline = hasFinalPipeline;
+        }
+    }
+
+    /**
+     * Executes the first pipeline of a batch of index requests on all of their documents at once, see
+     * {@link Pipeline#executeBatch(List, BiConsumer)}, and then moves each request to its next pipeline on its own.
+     */
+    private void executeBatch(
+        final String pipelineId,
+        final List<BatchItem> items,
+        final IntConsumer onDropped,
+        final BiConsumer<Integer, Exception> onFailure,
+        final AtomicInteger counter,
+        final BiConsumer<Thread, Exception> onCompletion,
+        final Thread originalThread
+    ) {
+        final PipelineHolder holder = pipelines.get(pipelineId);
+        if (items.size() == 1 || holder == null || holder.pipeline.getProcessors().isEmpty()) {
+            // there is nothing to share between the requests of the batch
+            for (BatchItem item : items) {
+                executePipelines(item.slot, item.pipelines, item.hasFinalPipeline, item.indexRequest, onDropped, onFailure, counter,
+                    onCompletion, originalThread);
+            }
+            return;
+        }
+
+        final Pipeline pipeline = holder.pipeline;
+        final List<BatchItem> batchItems = new ArrayList<>(items.size());
+        final List<IngestDocument> ingestDocuments = new ArrayList<>(items.size());
+        final List<String> originalIndices = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            final String firstPipelineId = item.pipelines.next();
+            assert pipelineId.equals(firstPipelineId) : pipelineId + " vs " + firstPipelineId;
+            final IngestDocument ingestDocument;
+            try {
+                ingestDocument = newIngestDocument(item.indexRequest);
+            } catch (Exception e) {
+                // only the request whose document could not be prepared fails, the rest of the batch still runs
+                logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
+                    pipelineId, item.indexRequest.index(), item.indexRequest.id()), e);
+                onFailure.accept(item.slot, e);
+                if (counter.decrementAndGet() == 0) {
+                    onCompletion.accept(originalThread, null);
+                }
+                assert counter.get() >= 0;
+                continue;
+            }
+            batchItems.add(item);
+            ingestDocuments.add(ingestDocument);
+            originalIndices.add(item.indexRequest.indices()[0]);
+        }
+        if (batchItems.isEmpty()) {
+            return;
+        }
+
+        final long startTimeInNanos = System.nanoTime();
+        totalMetrics.preIngestBatch(batchItems.size());
+        IngestDocument.executePipeline(pipeline, ingestDocuments, (results, failures) -> {
+            totalMetrics.postIngestBatch(batchItems.size(), System.nanoTime() - startTimeInNanos);
+            for (int i = 0; i < batchItems.size(); i++) {
+                final BatchItem item = batchItems.get(i);
+                final String originalIndex = originalIndices.get(i);
+                if (failures[i] != null) {
+                    totalMetrics.ingestFailed();
+                }
+                handleIngestDocumentResult(item.slot, item.indexRequest, ingestDocuments.get(i), results[i], failures[i], onDropped,
+                    e -> onPipelineExecuted(item.slot, pipelineId, originalIndex, item.pipelines, item.hasFinalPipeline,
+                        item.indexRequest, onDropped, onFailure, counter, onCompletion, originalThread, e));
             }
         });
     }
@@ -516,48 +619,8 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
                 }
                 Pipeline pipeline = holder.pipeline;
                 String originalIndex = indexRequest.indices()[0];
-                innerExecute(slot, indexRequest, pipeline, onDropped, e -> {
-                    if (e != null) {
-                        logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
-                            pipelineId, indexRequest.index(), indexRequest.id()), e);
-                        onFailure.accept(slot, e);
-                    }
-
-                    Iterator<String> newIt = it;
-                    boolean newHasFinalPipeline = hasFinalPipeline;
-                    String newIndex = indexRequest.indices()[0];
-
-                    if (Objects.equals(originalIndex, newIndex) == false) {
-                        if (hasFinalPipeline && it.hasNext() == false) {
-                            totalMetrics.ingestFailed();
-                            onFailure.accept(slot, new IllegalStateException("final pipeline [" + pipelineId +
-                                "] can't change the target index"));
-                        } else {
-
-                            //Drain old it so it's not looped over
-                            it.forEachRemaining($ -> {
-                            });
-                            indexRequest.isPipelineResolved(false);
-                            resolvePipelines(null, indexRequest, state.metadata());
-                            if (IngestService.NOOP_PIPELINE_NAME.equals(indexRequest.getFinalPipeline()) == false) {
-                                newIt = Collections.singleton(indexRequest.getFinalPipeline()).iterator();
-                                newHasFinalPipeline = true;
-                            } else {
-                                newIt = Collections.emptyIterator();
-                            }
-                        }
-                    }
-
-                    if (newIt.hasNext()) {
-                        executePipelines(slot, newIt, newHasFinalPipeline, indexRequest, onDropped, onFailure, counter, onCompletion,
-                            originalThread);
-                    } else {
-                        if (counter.decrementAndGet() == 0) {
-                            onCompletion.accept(originalThread, null);
-                        }
-                        assert counter.get() >= 0;
-                    }
-                });
+                innerExecute(slot, indexRequest, pipeline, onDropped, e -> onPipelineExecuted(slot, pipelineId, originalIndex, it,
+                    hasFinalPipeline, indexRequest, onDropped, onFailure, counter, onCompletion, originalThread, e));
             } catch (Exception e) {
                 logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
                     pipelineId, indexRequest.index(), indexRequest.id()), e);
@@ -571,6 +634,65 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         }
     }
 
+    /**
+     * Called once a pipeline has been executed for an index request, moves the request to its next pipeline if any.
+     */
+    private void onPipelineExecuted(
+        final int slot,
+        final String pipelineId,
+        final String originalIndex,
+        final Iterator<String> it,
+        final boolean hasFinalPipeline,
+        final IndexRequest indexRequest,
+        final IntConsumer onDropped,
+        final BiConsumer<Integer, Exception> onFailure,
+        final AtomicInteger counter,
+        final BiConsumer<Thread, Exception> onCompletion,
+        final Thread originalThread,
+        final Exception e
+    ) {
+        if (e != null) {
+            logger.debug(() -> new ParameterizedMessage("failed to execute pipeline [{}] for document [{}/{}]",
+                pipelineId, indexRequest.index(), indexRequest.id()), e);
+            onFailure.accept(slot, e);
+        }
+
+        Iterator<String> newIt = it;
+        boolean newHasFinalPipeline = hasFinalPipeline;
+        String newIndex = indexRequest.indices()[0];
+
+        if (Objects.equals(originalIndex, newIndex) == false) {
+            if (hasFinalPipeline && it.hasNext() == false) {
+                totalMetrics.ingestFailed();
+                onFailure.accept(slot, new IllegalStateException("final pipeline [" + pipelineId +
+                    "] can't change the target index"));
+            } else {
+
+                //Drain old it so it's not looped over
+                it.forEachRemaining($ -> {
+                });
+                indexRequest.isPipelineResolved(false);
+                resolvePipelines(null, indexRequest, state.metadata());
+                if (IngestService.NOOP_PIPELINE_NAME.equals(indexRequest.getFinalPipeline()) == false) {
+                    newIt = Collections.singleton(indexRequest.getFinalPipeline()).iterator();
+                    newHasFinalPipeline = true;
+                } else {
+                    newIt = Collections.emptyIterator();
+                }
+            }
+        }
+
+        if (newIt.hasNext()) {
+            executePipelines(slot, newIt, newHasFinalPipeline, indexRequest, onDropped, onFailure, counter, onCompletion,
+                originalThread);
+        } else {
+            if (counter.decrementAndGet() == 0) {
+                onCompletion.accept(originalThread, null);
+            }
+            assert counter.get() >= 0;
+        }
+    }
+
     public IngestStats stats() {
         IngestStats.Builder statsBuilder = new IngestStats.Builder();
         statsBuilder.addTotalMetrics(totalMetrics);
@@ -633,47 +755,62 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         // the pipeline specific stat holder may not exist and that is fine:
         // (e.g. the pipeline may have been removed while we're ingesting a document
         totalMetrics.preIngest();
-        String index = indexRequest.index();
-        String id = indexRequest.id();
-        String routing = indexRequest.routing();
-        Long version = indexRequest.version();
-        VersionType versionType = indexRequest.versionType();
-        Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
-        IngestDocument ingestDocument = new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
+        IngestDocument ingestDocument = newIngestDocument(indexRequest);
         ingestDocument.executePipeline(pipeline, (result, e) -> {
             long ingestTimeInNanos = System.nanoTime() - startTimeInNanos;
             totalMetrics.postIngest(ingestTimeInNanos);
             if (e != null) {
                 totalMetrics.ingestFailed();
-                handler.accept(e);
-            } else if (result == null) {
-                itemDroppedHandler.accept(slot);
-                handler.accept(null);
-            } else {
-                Map<IngestDocument.Metadata, Object> metadataMap = ingestDocument.extractMetadata();
-
-                String newIndex = (String) metadataMap.get(IngestDocument.Metadata.INDEX);
-                //it's fine to set all metadata fields all the time, as ingest document holds their starting values
-                //before ingestion, which might also get modified during ingestion.
-                indexRequest.index(newIndex);
-                indexRequest.id((String) metadataMap.get(IngestDocument.Metadata.ID));
-                indexRequest.routing((String) metadataMap.get(IngestDocument.Metadata.ROUTING));
-                indexRequest.version(((Number) metadataMap.get(IngestDocument.Metadata.VERSION)).longValue());
-                if (metadataMap.get(IngestDocument.Metadata.VERSION_TYPE) != null) {
-                    indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.Metadata.VERSION_TYPE)));
-                }
-                if (metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO) != null) {
-                    indexRequest.setIfSeqNo(((Number) metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO)).longValue());
-                }
-                if (metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM) != null) {
-                    indexRequest.setIfPrimaryTerm(((Number) metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM)).longValue());
-                }
-                indexRequest.source(ingestDocument.getSourceAndMetadata(), indexRequest.getContentType());
-                handler.accept(null);
             }
+            handleIngestDocumentResult(slot, indexRequest, ingestDocument, result, e, itemDroppedHandler, handler);
         });
     }
 
+    private static IngestDocument newIngestDocument(IndexRequest indexRequest) {
+        String index = indexRequest.index();
+        String id = indexRequest.id();
+        String routing = indexRequest.routing();
+        Long version = indexRequest.version();
+        VersionType versionType = indexRequest.versionType();
+        Map<String, Object> sourceAsMap = indexRequest.sourceAsMap();
+        return new IngestDocument(index, id, routing, version, versionType, sourceAsMap);
+    }
+
+    /**
+     * Updates the index request with the result of the execution of a pipeline on its document.
+     */
+    private static void handleIngestDocumentResult(int slot, IndexRequest indexRequest, IngestDocument ingestDocument,
+                                                   IngestDocument result, Exception e, IntConsumer itemDroppedHandler,
+                                                   Consumer<Exception> handler) {
+        if (e != null) {
+            handler.accept(e);
+        } else if (result == null) {
+            itemDroppedHandler.accept(slot);
+            handler.accept(null);
+        } else {
+            Map<IngestDocument.Metadata, Object> metadataMap = ingestDocument.extractMetadata();
+
+            String newIndex = (String) metadataMap.get(IngestDocument.Metadata.INDEX);
+            //it's fine to set all metadata fields all the time, as ingest document holds their starting values
+            //before ingestion, which might also get modified during ingestion.
+            indexRequest.index(newIndex);
+            indexRequest.id((String) metadataMap.get(IngestDocument.Metadata.ID));
+            indexRequest.routing((String) metadataMap.get(IngestDocument.Metadata.ROUTING));
+            indexRequest.version(((Number) metadataMap.get(IngestDocument.Metadata.VERSION)).longValue());
+            if (metadataMap.get(IngestDocument.Metadata.VERSION_TYPE) != null) {
+                indexRequest.versionType(VersionType.fromString((String) metadataMap.get(IngestDocument.Metadata.VERSION_TYPE)));
+            }
+            if (metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO) != null) {
+                indexRequest.setIfSeqNo(((Number) metadataMap.get(IngestDocument.Metadata.IF_SEQ_NO)).longValue());
+            }
+            if (metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM) != null) {
+                indexRequest.setIfPrimaryTerm(((Number) metadataMap.get(IngestDocument.Metadata.IF_PRIMARY_TERM)).longValue());
+            }
+            indexRequest.source(ingestDocument.getSourceAndMetadata(), indexRequest.getContentType());
+            handler.accept(null);
+        }
+    }
+
     @Override
     public void applyClusterState(final ClusterChangedEvent event) {
         state = event.state();
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.ingest;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -162,12 +163,18 @@ public class IngestStats implements Writeable, ToXContentFragment {
         private final long ingestTimeInMillis;
         private final long ingestCurrent;
         private final long ingestFailedCount;
+        private final long ingestBatchCount;
 
         public Stats(long ingestCount, long ingestTimeInMillis, long ingestCurrent, long ingestFailedCount) {
+            this(ingestCount, ingestTimeInMillis, ingestCurrent, ingestFailedCount, 0L);
+        }
+
+        public Stats(long ingestCount, long ingestTimeInMillis, long ingestCurrent, long ingestFailedCount, long ingestBatchCount) {
             this.ingestCount = ingestCount;
             this.ingestTimeInMillis = ingestTimeInMillis;
             this.ingestCurrent = ingestCurrent;
             this.ingestFailedCount = ingestFailedCount;
+            this.ingestBatchCount = ingestBatchCount;
         }
 
         /**
@@ -178,6 +185,11 @@ public class IngestStats implements Writeable, ToXContentFragment {
             ingestTimeInMillis = in.readVLong();
             ingestCurrent = in.readVLong();
             ingestFailedCount = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                ingestBatchCount = in.readVLong();
+            } else {
+                ingestBatchCount = 0L;
+            }
         }
 
         @Override
@@ -186,6 +198,9 @@ public class IngestStats implements Writeable, ToXContentFragment {
             out.writeVLong(ingestTimeInMillis);
             out.writeVLong(ingestCurrent);
             out.writeVLong(ingestFailedCount);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeVLong(ingestBatchCount);
+            }
         }
 
         /**
@@ -216,12 +231,20 @@ public class IngestStats implements Writeable, ToXContentFragment {
             return ingestFailedCount;
         }
 
+        /**
+         * @return The total number of batches of documents that were preprocessed together.
+         */
+        public long getIngestBatchCount() {
+            return ingestBatchCount;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.field("count", ingestCount);
             builder.humanReadableField("time_in_millis", "time", new TimeValue(ingestTimeInMillis, TimeUnit.MILLISECONDS));
             builder.field("current", ingestCurrent);
             builder.field("failed", ingestFailedCount);
+            builder.field("batches", ingestBatchCount);
             return builder;
         }
 
@@ -233,12 +256,13 @@ public class IngestStats implements Writeable, ToXContentFragment {
             return Objects.equals(ingestCount, that.ingestCount)
                 && Objects.equals(ingestTimeInMillis, that.ingestTimeInMillis)
                 && Objects.equals(ingestFailedCount, that.ingestFailedCount)
-                && Objects.equals(ingestCurrent, that.ingestCurrent);
+                && Objects.equals(ingestCurrent, that.ingestCurrent)
+                && Objects.equals(ingestBatchCount, that.ingestBatchCount);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(ingestCount, ingestTimeInMillis, ingestFailedCount, ingestCurrent);
+            return Objects.hash(ingestCount, ingestTimeInMillis, ingestFailedCount, ingestCurrent, ingestBatchCount);
         }
     }
 
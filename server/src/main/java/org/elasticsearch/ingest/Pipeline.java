@@ -106,6 +106,25 @@ public final class Pipeline {
         });
     }
 
+    /**
+     * Modifies the data of a batch of documents to be indexed based on the processors this pipeline holds, see
+     * {@link Processor#executeBatch(List, BiConsumer)}. Processors that support it process all the documents of the batch at once.
+     */
+    public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+        final long startTimeInNanos = relativeTimeProvider.getAsLong();
+        metrics.preIngestBatch(ingestDocuments.size());
+        compoundProcessor.executeBatch(ingestDocuments, (results, failures) -> {
+            long ingestTimeInNanos = relativeTimeProvider.getAsLong() - startTimeInNanos;
+            metrics.postIngestBatch(ingestDocuments.size(), ingestTimeInNanos);
+            for (Exception e : failures) {
+                if (e != null) {
+                    metrics.ingestFailed();
+                }
+            }
+            handler.accept(results, failures);
+        });
+    }
+
     /**
      * The unique id of this pipeline
      */
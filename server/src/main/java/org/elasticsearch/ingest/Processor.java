@@ -26,7 +26,9 @@ import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.Scheduler;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -57,6 +59,37 @@ public interface Processor {
         handler.accept(result, null);
     }
 
+    /**
+     * Introspect and potentially modify a batch of incoming documents, such as the documents of a bulk request that go through the
+     * same pipeline.
+     *
+     * Expert method: only override this method if a processor implementation can amortize its work across the documents of a
+     * batch, otherwise the documents are executed one after the other with {@link #execute(IngestDocument, BiConsumer)}.
+     *
+     * @param handler called once all the documents have been executed, with the result and the failure of each document at the
+     *                same position as the document in the batch. A <code>null</code> result without failure means that the
+     *                document is dropped.
+     */
+    default void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+        final IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        final Exception[] failures = new Exception[ingestDocuments.size()];
+        if (ingestDocuments.isEmpty()) {
+            handler.accept(results, failures);
+            return;
+        }
+        final AtomicInteger pending = new AtomicInteger(ingestDocuments.size());
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final int slot = i;
+            execute(ingestDocuments.get(i), (result, e) -> {
+                results[slot] = result;
+                failures[slot] = e;
+                if (pending.decrementAndGet() == 0) {
+                    handler.accept(results, failures);
+                }
+            });
+        }
+    }
+
     /**
      * Introspect and potentially modify the incoming data.
      *
@@ -30,6 +30,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -45,6 +46,16 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
     private static final double ALPHA = 0.3;
 
+    /**
+     * The number of most recent response times per node that {@link #responseTimePercentile} is computed over.
+     */
+    static final int RESPONSE_TIME_SAMPLES = 128;
+
+    /**
+     * The minimum number of response times that must have been recorded for a node before a percentile is reported for it.
+     */
+    static final int MIN_RESPONSE_TIME_SAMPLES = 10;
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
 
     public ResponseCollectorService(ClusterService clusterService) {
@@ -69,16 +80,29 @@ public final class ResponseCollectorService implements ClusterStateListener {
             if (ns == null) {
                 ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
                 ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
-                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                NodeStatistics stats = new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                stats.addResponseTime(responseTimeNanos);
+                return stats;
             } else {
                 ns.queueSize.addValue((double) queueSize);
                 ns.responseTime.addValue((double) responseTimeNanos);
                 ns.serviceTime = avgServiceTimeNanos;
+                ns.addResponseTime(responseTimeNanos);
                 return ns;
             }
         });
     }
 
+    /**
+     * Returns the given percentile (between 0 and 100) of the most recent response times of the given node in nanoseconds, or
+     * {@code -1} if too few responses from that node have been seen to tell.
+     */
+    public long responseTimePercentile(final String nodeId, final double percentile) {
+        assert percentile >= 0 && percentile <= 100 : "percentile must be between 0 and 100 but was " + percentile;
+        final NodeStatistics ns = nodeIdToStats.get(nodeId);
+        return ns == null ? -1 : ns.responseTimePercentile(percentile);
+    }
+
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
         // Transform the mutable object internally used for accounting into the computed version
@@ -211,6 +235,8 @@ public final class ResponseCollectorService implements ClusterStateListener {
         final ExponentiallyWeightedMovingAverage queueSize;
         final ExponentiallyWeightedMovingAverage responseTime;
         double serviceTime;
+        private final long[] recentResponseTimes = new long[RESPONSE_TIME_SAMPLES];
+        private long responseCount;
 
         NodeStatistics(String nodeId,
                        ExponentiallyWeightedMovingAverage queueSizeEWMA,
@@ -221,5 +247,23 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.responseTime = responseTimeEWMA;
             this.serviceTime = serviceTimeEWMA;
         }
+
+        synchronized void addResponseTime(long responseTimeNanos) {
+            recentResponseTimes[(int) (responseCount++ % recentResponseTimes.length)] = responseTimeNanos;
+        }
+
+        long responseTimePercentile(double percentile) {
+            final long[] samples;
+            synchronized (this) {
+                if (responseCount < MIN_RESPONSE_TIME_SAMPLES) {
+                    return -1;
+                }
+                samples = Arrays.copyOf(recentResponseTimes, (int) Math.min(responseCount, recentResponseTimes.length));
+            }
+            Arrays.sort(samples);
+            // nearest-rank percentile
+            final int rank = (int) Math.ceil(percentile / 100 * samples.length);
+            return samples[Math.max(rank, 1) - 1];
+        }
     }
 }
@@ -39,6 +39,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.StepListener;
 import org.elasticsearch.action.support.GroupedActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateUpdateTask;
 import org.elasticsearch.cluster.RepositoryCleanupInProgress;
@@ -51,6 +52,8 @@ import org.elasticsearch.cluster.metadata.RepositoryMetadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
@@ -80,6 +83,7 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -119,6 +123,7 @@ import org.elasticsearch.snapshots.SnapshotMissingException;
 import org.elasticsearch.snapshots.SnapshotsService;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.ByteArrayInputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -132,9 +137,11 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -190,6 +197,18 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     private static final String VIRTUAL_DATA_BLOB_PREFIX = "v__";
 
+    /**
+     * Prefix used for the blobs that hold the content-defined chunks of files that were snapshotted with
+     * {@link #DEDUPLICATE_CHUNKS_SETTING} enabled. The prefix is followed by the SHA-256 of the contents of the chunk so that each chunk is
+     * stored at most once in a shard's directory.
+     */
+    private static final String CHUNK_DATA_BLOB_PREFIX = "c__";
+
+    /**
+     * Maximum number of chunks of a file that are read ahead in parallel when restoring a file that is stored in content-defined chunks.
+     */
+    private static final int MAX_CONCURRENT_CHUNK_READS = 4;
+
     /**
      * When set to true metadata files are stored in compressed format. This setting doesn’t affect index
      * files that are already compressed by default. Changing the setting does not invalidate existing files since reads
@@ -223,12 +242,32 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     public static final Setting<Integer> MAX_SNAPSHOTS_SETTING =
             Setting.intSetting("max_number_of_snapshots", 500, 1, Setting.Property.NodeScope);
 
+    /**
+     * When set to true data files are split into content-defined chunks which are stored at most once per shard, so that snapshotting a
+     * file that shares most of its content with files already in the repository, e.g. after a force-merge, only uploads the chunks that
+     * are not stored yet. Changing the setting does not invalidate existing snapshots since reads follow the layout that is recorded for
+     * each file in the shard level metadata.
+     */
+    public static final Setting<Boolean> DEDUPLICATE_CHUNKS_SETTING =
+        Setting.boolSetting("deduplicate_chunks", false, Setting.Property.NodeScope);
+
+    /**
+     * Approximate average size of the content-defined chunks of data files if {@link #DEDUPLICATE_CHUNKS_SETTING} is enabled.
+     */
+    public static final Setting<ByteSizeValue> DEDUPLICATION_CHUNK_SIZE_SETTING = Setting.byteSizeSetting("deduplication_chunk_size",
+        new ByteSizeValue(1, ByteSizeUnit.MB), new ByteSizeValue(64, ByteSizeUnit.KB), new ByteSizeValue(16, ByteSizeUnit.MB),
+        Setting.Property.NodeScope);
+
     protected final boolean supportURLRepo;
 
     private final boolean compress;
 
     private final boolean cacheRepositoryData;
 
+    private final boolean deduplicateChunks;
+
+    private final int deduplicationChunkSize;
+
     private final RateLimiter snapshotRateLimiter;
 
     private final RateLimiter restoreRateLimiter;
@@ -334,6 +373,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         this.namedXContentRegistry = namedXContentRegistry;
         this.basePath = basePath;
         this.maxSnapshotCount = MAX_SNAPSHOTS_SETTING.get(metadata.settings());
+        this.deduplicateChunks = DEDUPLICATE_CHUNKS_SETTING.get(metadata.settings());
+        this.deduplicationChunkSize = Math.toIntExact(DEDUPLICATION_CHUNK_SIZE_SETTING.get(metadata.settings()).getBytes());
     }
 
     @Override
@@ -1921,6 +1962,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 throw new IndexShardSnapshotFailedException(shardId,
                     "Duplicate snapshot name [" + snapshotId.getName() + "] detected, aborting");
             }
+            // Older versions cannot read files stored in chunks, so we only use chunks once all nodes are able to read them
+            final boolean useChunks = deduplicateChunks && repositoryMetaVersion.onOrAfter(SnapshotsService.DEDUPLICATED_CHUNKS_VERSION);
             // First inspect all known SegmentInfos instances to see if we already have an equivalent commit in the repository
             final List<BlobStoreIndexShardSnapshot.FileInfo> filesFromSegmentInfos = Optional.ofNullable(shardStateIdentifier).map(id -> {
                 for (SnapshotFiles snapshotFileSet : snapshots.snapshots()) {
@@ -2012,27 +2055,30 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final String indexGeneration;
             final boolean writeShardGens = SnapshotsService.useShardGenerations(repositoryMetaVersion);
             // build a new BlobStoreIndexShardSnapshot, that includes this one and all the saved ones
-            List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
-            newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), indexCommitPointFiles, shardStateIdentifier));
-            for (SnapshotFiles point : snapshots) {
-                newSnapshotsList.add(point);
-            }
-            final BlobStoreIndexShardSnapshots updatedBlobStoreIndexShardSnapshots = new BlobStoreIndexShardSnapshots(newSnapshotsList);
-            final Runnable afterWriteSnapBlob;
+            final Function<List<BlobStoreIndexShardSnapshot.FileInfo>, BlobStoreIndexShardSnapshots> updatedShardSnapshots = files -> {
+                List<SnapshotFiles> newSnapshotsList = new ArrayList<>();
+                newSnapshotsList.add(new SnapshotFiles(snapshotId.getName(), files, shardStateIdentifier));
+                for (SnapshotFiles point : snapshots) {
+                    newSnapshotsList.add(point);
+                }
+                return new BlobStoreIndexShardSnapshots(newSnapshotsList);
+            };
+            final Consumer<List<BlobStoreIndexShardSnapshot.FileInfo>> afterWriteSnapBlob;
             if (writeShardGens) {
-                // When using shard generations we can safely write the index-${uuid} blob before writing out any of the actual data
-                // for this shard since the uuid named blob will simply not be referenced in case of error and thus we will never
-                // reference a generation that has not had all its files fully upload.
                 indexGeneration = UUIDs.randomBase64UUID();
-                try {
-                    INDEX_SHARD_SNAPSHOTS_FORMAT.write(updatedBlobStoreIndexShardSnapshots, shardContainer, indexGeneration, compress,
-                            bigArrays);
-                } catch (IOException e) {
-                    throw new IndexShardSnapshotFailedException(shardId,
-                            "Failed to write shard level snapshot metadata for [" + snapshotId + "] to ["
-                                    + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration) + "]", e);
+                if (useChunks == false) {
+                    // When using shard generations we can safely write the index-${uuid} blob before writing out any of the actual data
+                    // for this shard since the uuid named blob will simply not be referenced in case of error and thus we will never
+                    // reference a generation that has not had all its files fully upload.
+                    writeShardIndexBlob(shardContainer, indexGeneration, updatedShardSnapshots.apply(indexCommitPointFiles), snapshotId,
+                        shardId);
+                    afterWriteSnapBlob = files -> {};
+                } else {
+                    // The chunks of the files are only known once the files were uploaded, so the index-${uuid} blob must be written
+                    // afterwards.
+                    afterWriteSnapBlob = files -> writeShardIndexBlob(shardContainer, indexGeneration, updatedShardSnapshots.apply(files),
+                        snapshotId, shardId);
                 }
-                afterWriteSnapBlob = () -> {};
             } else {
                 // When not using shard generations we can only write the index-${N} blob after all other work for this shard has
                 // completed.
@@ -2046,9 +2092,9 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         .max().orElse(-1L) < Long.parseLong(indexGeneration)
                         : "Tried to delete an index-N blob newer than the current generation [" + indexGeneration
                         + "] when deleting index-N blobs " + blobsToDelete;
-                afterWriteSnapBlob = () -> {
+                afterWriteSnapBlob = files -> {
                     try {
-                        writeShardIndexBlobAtomic(shardContainer, newGen, updatedBlobStoreIndexShardSnapshots);
+                        writeShardIndexBlobAtomic(shardContainer, newGen, updatedShardSnapshots.apply(files));
                     } catch (IOException e) {
                         throw new IndexShardSnapshotFailedException(shardId,
                                 "Failed to finalize snapshot creation [" + snapshotId + "] with shard index ["
@@ -2063,17 +2109,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 };
             }
 
+            // the files that were uploaded in chunks, by name
+            final Map<String, BlobStoreIndexShardSnapshot.FileInfo> chunkedFiles = ConcurrentCollections.newConcurrentMap();
             final StepListener<Collection<Void>> allFilesUploadedListener = new StepListener<>();
             allFilesUploadedListener.whenComplete(v -> {
                 final IndexShardSnapshotStatus.Copy lastSnapshotStatus =
                     snapshotStatus.moveToFinalize(snapshotIndexCommit.getGeneration());
+                final List<BlobStoreIndexShardSnapshot.FileInfo> snapshotFiles = chunkedFiles.isEmpty() ? indexCommitPointFiles
+                    : indexCommitPointFiles.stream().map(f -> chunkedFiles.getOrDefault(f.name(), f)).collect(Collectors.toList());
 
                 // now create and write the commit point
                 logger.trace("[{}] [{}] writing shard snapshot file", shardId, snapshotId);
                 try {
                     INDEX_SHARD_SNAPSHOT_FORMAT.write(new BlobStoreIndexShardSnapshot(snapshotId.getName(),
                             lastSnapshotStatus.getIndexVersion(),
-                            indexCommitPointFiles,
+                            snapshotFiles,
                             lastSnapshotStatus.getStartTime(),
                             threadPool.absoluteTimeInMillis() - lastSnapshotStatus.getStartTime(),
                             lastSnapshotStatus.getIncrementalFileCount(),
@@ -2082,7 +2132,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 } catch (IOException e) {
                     throw new IndexShardSnapshotFailedException(shardId, "Failed to write commit point", e);
                 }
-                afterWriteSnapBlob.run();
+                afterWriteSnapBlob.accept(snapshotFiles);
                 snapshotStatus.moveToDone(threadPool.absoluteTimeInMillis(), indexGeneration);
                 listener.onResponse(indexGeneration);
             }, listener::onFailure);
@@ -2090,21 +2140,38 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                 allFilesUploadedListener.onResponse(Collections.emptyList());
                 return;
             }
+            final CheckedConsumer<BlobStoreIndexShardSnapshot.FileInfo, IOException> fileSnapshotter;
+            if (useChunks) {
+                // the chunks that are already stored in the shard's directory or that are claimed by one of the workers
+                final Set<String> storedChunks = ConcurrentCollections.newConcurrentSet();
+                storedChunks.addAll(snapshots.chunkNames());
+                fileSnapshotter = fileInfo -> {
+                    if (fileInfo.length() == 0L) {
+                        snapshotFile(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
+                    } else {
+                        chunkedFiles.put(fileInfo.name(),
+                            snapshotFileInChunks(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store, storedChunks));
+                    }
+                };
+            } else {
+                fileSnapshotter = fileInfo -> snapshotFile(fileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
+            }
             final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
             // Start as many workers as fit into the snapshot pool at once at the most
             final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), indexIncrementalFileCount);
             final ActionListener<Void> filesListener = fileQueueListener(filesToSnapshot, workers, allFilesUploadedListener);
             for (int i = 0; i < workers; ++i) {
-                executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, executor, filesListener);
+                executeOneFileSnapshot(store, snapshotStatus, filesToSnapshot, fileSnapshotter, executor, filesListener);
             }
         } catch (Exception e) {
             listener.onFailure(e);
         }
     }
 
-    private void executeOneFileSnapshot(Store store, SnapshotId snapshotId, IndexId indexId, IndexShardSnapshotStatus snapshotStatus,
-                                        BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot, Executor executor,
-                                        ActionListener<Void> listener) throws InterruptedException {
+    private void executeOneFileSnapshot(Store store, IndexShardSnapshotStatus snapshotStatus,
+                                        BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> filesToSnapshot,
+                                        CheckedConsumer<BlobStoreIndexShardSnapshot.FileInfo, IOException> fileSnapshotter,
+                                        Executor executor, ActionListener<Void> listener) throws InterruptedException {
         final ShardId shardId = store.shardId();
         final BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = filesToSnapshot.poll(0L, TimeUnit.MILLISECONDS);
         if (snapshotFileInfo == null) {
@@ -2112,13 +2179,24 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         } else {
             executor.execute(ActionRunnable.wrap(listener, l -> {
                 try (Releasable ignored = incrementStoreRef(store, snapshotStatus, shardId)) {
-                    snapshotFile(snapshotFileInfo, indexId, shardId, snapshotId, snapshotStatus, store);
-                    executeOneFileSnapshot(store, snapshotId, indexId, snapshotStatus, filesToSnapshot, executor, l);
+                    fileSnapshotter.accept(snapshotFileInfo);
+                    executeOneFileSnapshot(store, snapshotStatus, filesToSnapshot, fileSnapshotter, executor, l);
                 }
             }));
         }
     }
 
+    private void writeShardIndexBlob(BlobContainer shardContainer, String indexGeneration, BlobStoreIndexShardSnapshots updatedSnapshots,
+                                     SnapshotId snapshotId, ShardId shardId) {
+        try {
+            INDEX_SHARD_SNAPSHOTS_FORMAT.write(updatedSnapshots, shardContainer, indexGeneration, compress, bigArrays);
+        } catch (IOException e) {
+            throw new IndexShardSnapshotFailedException(shardId,
+                    "Failed to write shard level snapshot metadata for [" + snapshotId + "] to ["
+                            + INDEX_SHARD_SNAPSHOTS_FORMAT.blobName(indexGeneration) + "]", e);
+        }
+    }
+
     private static Releasable incrementStoreRef(Store store, IndexShardSnapshotStatus snapshotStatus, ShardId shardId) {
         if (store.tryIncRef() == false) {
             if (snapshotStatus.isAborted()) {
@@ -2206,7 +2284,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                             indexOutput.writeBytes(hash.bytes, hash.offset, hash.length);
                             recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), hash.length);
                         } else {
-                            try (InputStream stream = maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
+                            try (InputStream stream = maybeRateLimitRestores(fileInfo.isChunked() ? openChunks(fileInfo, store)
+                                : new SlicedInputStream(fileInfo.numberOfParts()) {
                                 @Override
                                 protected InputStream openSlice(int slice) throws IOException {
                                     ensureNotClosing(store);
@@ -2240,6 +2319,32 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     }
                 }
 
+                /**
+                 * Opens a stream over the chunks of a file that is stored in content-defined chunks. Chunks are small enough to be held
+                 * in memory, so up to {@link #MAX_CONCURRENT_CHUNK_READS} of them are read in parallel ahead of the returned stream.
+                 */
+                private InputStream openChunks(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store) {
+                    final int numberOfChunks = fileInfo.numberOfParts();
+                    final List<ChunkRead> chunkReads = new ArrayList<>(numberOfChunks);
+                    return new SlicedInputStream(numberOfChunks) {
+                        @Override
+                        protected InputStream openSlice(int slice) throws IOException {
+                            ensureNotClosing(store);
+                            while (chunkReads.size() < Math.min(numberOfChunks, slice + MAX_CONCURRENT_CHUNK_READS)) {
+                                final String chunkName = fileInfo.partName(chunkReads.size());
+                                final ChunkRead chunkRead = new ChunkRead(chunkName, () -> {
+                                    try (InputStream chunk = container.readBlob(chunkName)) {
+                                        return Streams.readFully(chunk);
+                                    }
+                                });
+                                chunkReads.add(chunkRead);
+                                threadPool.generic().execute(chunkRead);
+                            }
+                            return chunkReads.set(slice, null).bytes().streamInput();
+                        }
+                    };
+                }
+
                 void ensureNotClosing(final Store store) throws AlreadyClosedException {
                     assert store.refCount() > 0;
                     if (store.isClosing()) {
@@ -2251,6 +2356,55 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }));
     }
 
+    /**
+     * A read of a chunk that is executed ahead of time in the background, or by the reader of the chunk if it has not started yet so that
+     * the reader never waits for a read that is still queued.
+     */
+    private static final class ChunkRead extends AbstractRunnable {
+
+        private final String chunkName;
+        private final CheckedSupplier<BytesReference, IOException> reader;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final PlainActionFuture<BytesReference> future = PlainActionFuture.newFuture();
+
+        ChunkRead(String chunkName, CheckedSupplier<BytesReference, IOException> reader) {
+            this.chunkName = chunkName;
+            this.reader = reader;
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+            if (started.compareAndSet(false, true)) {
+                future.onResponse(reader.get());
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            future.onFailure(e);
+        }
+
+        @Override
+        public void onRejection(Exception e) {
+            // the reader of the chunk reads it itself
+        }
+
+        BytesReference bytes() throws IOException {
+            run();
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while reading chunk [" + chunkName + "]", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw FutureUtils.rethrowExecutionException(e);
+            }
+        }
+    }
+
     private static ActionListener<Void> fileQueueListener(BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> files, int workers,
                                                           ActionListener<Collection<Void>> listener) {
         return ActionListener.delegateResponse(new GroupedActionListener<>(listener, workers), (l, e) -> {
@@ -2386,12 +2540,14 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
     // temporary blobs
     private static List<String> unusedBlobs(Set<String> blobs, Set<String> survivingSnapshotUUIDs,
                                             BlobStoreIndexShardSnapshots updatedSnapshots) {
+        final Set<String> survivingChunks = updatedSnapshots.chunkNames();
         return blobs.stream().filter(blob ->
             blob.startsWith(SNAPSHOT_INDEX_PREFIX)
                 || (blob.startsWith(SNAPSHOT_PREFIX) && blob.endsWith(".dat")
                     && survivingSnapshotUUIDs.contains(
                         blob.substring(SNAPSHOT_PREFIX.length(), blob.length() - ".dat".length())) == false)
                 || (blob.startsWith(UPLOADED_DATA_BLOB_PREFIX) && updatedSnapshots.findNameFile(canonicalName(blob)) == null)
+                || (blob.startsWith(CHUNK_DATA_BLOB_PREFIX) && survivingChunks.contains(blob) == false)
                 || FsBlobContainer.isTempBlobName(blob)).collect(Collectors.toList());
     }
 
@@ -2446,7 +2602,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     INDEX_SHARD_SNAPSHOTS_FORMAT.read(shardContainer, Long.toString(latest), namedXContentRegistry, bigArrays);
             return new Tuple<>(shardSnapshots, latest);
         } else if (blobs.stream().anyMatch(b -> b.startsWith(SNAPSHOT_PREFIX) || b.startsWith(INDEX_FILE_PREFIX)
-                                                                              || b.startsWith(UPLOADED_DATA_BLOB_PREFIX))) {
+                                                                              || b.startsWith(UPLOADED_DATA_BLOB_PREFIX)
+                                                                              || b.startsWith(CHUNK_DATA_BLOB_PREFIX))) {
             logger.warn("Could not find a readable index-N file in a non-empty shard snapshot directory [" + shardContainer.path() + "]");
         }
         return new Tuple<>(BlobStoreIndexShardSnapshots.EMPTY, latest);
@@ -2463,30 +2620,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
             for (int i = 0; i < fileInfo.numberOfParts(); i++) {
                 final long partBytes = fileInfo.partBytes(i);
-
-                // Make reads abortable by mutating the snapshotStatus object
-                final InputStream inputStream = new FilterInputStream(maybeRateLimitSnapshots(
-                    new InputStreamIndexInput(indexInput, partBytes))) {
-                    @Override
-                    public int read() throws IOException {
-                        checkAborted();
-                        return super.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        checkAborted();
-                        return super.read(b, off, len);
-                    }
-
-                    private void checkAborted() {
-                        if (snapshotStatus.isAborted()) {
-                            logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId,
-                                snapshotId, fileInfo.physicalName());
-                            throw new AbortedSnapshotException();
-                        }
-                    }
-                };
+                final InputStream inputStream = snapshotInputStream(indexInput, partBytes, fileInfo, shardId, snapshotId, snapshotStatus);
                 final String partName = fileInfo.partName(i);
                 logger.trace(() ->
                         new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path()));
@@ -2501,6 +2635,74 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Snapshot individual file by splitting it into content-defined chunks, skipping the upload of chunks that are already stored in the
+     * shard's directory
+     * @param fileInfo file to be snapshotted
+     * @param storedChunks names of the chunks that are stored in the shard's directory or are being uploaded by another file's snapshot
+     * @return the file info that references the chunks of the file
+     */
+    private BlobStoreIndexShardSnapshot.FileInfo snapshotFileInChunks(BlobStoreIndexShardSnapshot.FileInfo fileInfo, IndexId indexId,
+                                                                      ShardId shardId, SnapshotId snapshotId,
+                                                                      IndexShardSnapshotStatus snapshotStatus, Store store,
+                                                                      Set<String> storedChunks) throws IOException {
+        final BlobContainer shardContainer = shardContainer(indexId, shardId);
+        final String file = fileInfo.physicalName();
+        try (IndexInput indexInput = store.openVerifyingInput(file, IOContext.READONCE, fileInfo.metadata())) {
+            final InputStream inputStream =
+                snapshotInputStream(indexInput, fileInfo.length(), fileInfo, shardId, snapshotId, snapshotStatus);
+            final ContentDefinedChunker chunker = new ContentDefinedChunker(deduplicationChunkSize);
+            final List<BlobStoreIndexShardSnapshot.Chunk> chunks = new ArrayList<>();
+            int chunkLength;
+            while ((chunkLength = chunker.nextChunk(inputStream)) > 0) {
+                final String chunkName = CHUNK_DATA_BLOB_PREFIX + chunker.chunkHash();
+                if (storedChunks.add(chunkName)) {
+                    logger.trace(() ->
+                            new ParameterizedMessage("[{}] Writing [{}] to [{}]", metadata.name(), chunkName, shardContainer.path()));
+                    shardContainer.writeBlob(chunkName, new ByteArrayInputStream(chunker.chunk(), 0, chunkLength), chunkLength, false);
+                }
+                chunks.add(new BlobStoreIndexShardSnapshot.Chunk(chunkName, chunkLength));
+            }
+            Store.verify(indexInput);
+            snapshotStatus.addProcessedFile(fileInfo.length());
+            return fileInfo.withChunks(chunks);
+        } catch (Exception t) {
+            failStoreIfCorrupted(store, t);
+            snapshotStatus.addProcessedFile(0);
+            throw t;
+        }
+    }
+
+    /**
+     * Returns a rate limited stream over the next {@code length} bytes of the given input whose reads throw an
+     * {@link AbortedSnapshotException} once the snapshot is aborted.
+     */
+    private InputStream snapshotInputStream(IndexInput indexInput, long length, BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                                            ShardId shardId, SnapshotId snapshotId, IndexShardSnapshotStatus snapshotStatus) {
+        // Make reads abortable by mutating the snapshotStatus object
+        return new FilterInputStream(maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, length))) {
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId,
+                        snapshotId, fileInfo.physicalName());
+                    throw new AbortedSnapshotException();
+                }
+            }
+        };
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
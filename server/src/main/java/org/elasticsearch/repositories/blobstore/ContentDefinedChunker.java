@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.common.hash.MessageDigests;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+/**
+ * Splits a stream into chunks whose boundaries are determined by the content of the stream rather than by fixed offsets, so that inserting
+ * or removing bytes only changes the chunks around the change and the remaining chunks of two similar streams are identical.
+ * <p>
+ * A boundary is placed after a byte if the top bits of a gear hash over the last 64 bytes are all zero, see "FastCDC: a Fast and
+ * Efficient Content-Defined Chunking Approach for Data Deduplication" by Xia et al. Chunks are at least a quarter and at most four times
+ * the configured average chunk size long.
+ * <p>
+ * The gear table and thus the boundaries are part of the repository format and must never change.
+ */
+final class ContentDefinedChunker {
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // splitmix64 with a fixed seed, see http://xoshiro.di.unimi.it/splitmix64.c
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < GEAR.length; i++) {
+            long z = (state += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            GEAR[i] = z ^ (z >>> 31);
+        }
+    }
+
+    private final int minChunkSize;
+    private final long boundaryMask;
+    private final byte[] buffer;
+    private final MessageDigest digest = MessageDigests.sha256();
+
+    private int bufferLength;
+    private int chunkLength;
+    private boolean endOfStream;
+
+    /**
+     * @param averageChunkSize the approximate average size of the chunks, must be at least {@code 1024}
+     */
+    ContentDefinedChunker(int averageChunkSize) {
+        if (averageChunkSize < 1024 || averageChunkSize > (1 << 28)) {
+            throw new IllegalArgumentException("average chunk size must be between [1024] and [" + (1 << 28) + "] but was ["
+                + averageChunkSize + "]");
+        }
+        this.minChunkSize = averageChunkSize / 4;
+        // after the minimum size, a boundary follows on average after 2^bits bytes
+        final int bits = 63 - Long.numberOfLeadingZeros(averageChunkSize - minChunkSize);
+        this.boundaryMask = -1L << (64 - bits);
+        this.buffer = new byte[averageChunkSize * 4];
+    }
+
+    /**
+     * Reads the next chunk from the given stream, discarding the previous chunk.
+     *
+     * @return the length of the chunk, which is available from {@link #chunk()}, or {@code 0} if the stream is exhausted
+     */
+    int nextChunk(InputStream inputStream) throws IOException {
+        if (chunkLength > 0) {
+            System.arraycopy(buffer, chunkLength, buffer, 0, bufferLength - chunkLength);
+            bufferLength -= chunkLength;
+        }
+        while (endOfStream == false && bufferLength < buffer.length) {
+            final int read = inputStream.read(buffer, bufferLength, buffer.length - bufferLength);
+            if (read == -1) {
+                endOfStream = true;
+            } else {
+                bufferLength += read;
+            }
+        }
+        chunkLength = findBoundary();
+        return chunkLength;
+    }
+
+    private int findBoundary() {
+        if (bufferLength <= minChunkSize) {
+            return bufferLength;
+        }
+        // the hash only depends on the last 64 bytes, no need to compute it any earlier
+        long hash = 0L;
+        for (int i = Math.max(0, minChunkSize - Long.SIZE); i < bufferLength; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+            if (i >= minChunkSize && (hash & boundaryMask) == 0L) {
+                return i + 1;
+            }
+        }
+        return bufferLength;
+    }
+
+    /**
+     * Returns the buffer that holds the current chunk, starting at offset {@code 0}
+     */
+    byte[] chunk() {
+        return buffer;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 of the current chunk
+     */
+    String chunkHash() {
+        digest.update(buffer, 0, chunkLength);
+        return MessageDigests.toHexString(digest.digest());
+    }
+}
@@ -64,6 +64,8 @@
  *      |  |  |- __VPO5oDMVT5y4Akv8T_AO_A |- files from different segments see snap-* for their mappings to real segment files
  *      |  |  |- __1gbJy18wS_2kv1qI7FgKuQ |
  *      |  |  |- __R8JvZAHlSMyMXyZc2SS8Zg /
+ *      |  |  |- c__9f86d081884c7d659a2f... - content-defined chunk of one or more files named after the SHA-256 of its contents, only
+ *      |  |  |                              written by repositories with {@code deduplicate_chunks} enabled
  *      |  |  .....
  *      |  |  |- snap-20131010.dat - SMILE serialized {@link org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot} for
  *      |  |  |                      snapshot "20131010"
@@ -175,7 +177,9 @@
  * already available in the blobstore.</li>
  * <li>By comparing the files in the {@code IndexCommit} and the available file list from the previous step, determine the segment files
  * that need to be written to the blob store. For each segment that needs to be added to the blob store, generate a unique name by combining
- * the segment data blob prefix {@code __} and a UUID and write the segment to the blobstore.</li>
+ * the segment data blob prefix {@code __} and a UUID and write the segment to the blobstore. If the repository has
+ * {@code deduplicate_chunks} enabled, the segment is instead split into content-defined chunks and only the chunks that are not yet
+ * stored in the shard's path are written, to blobs named after the chunk data blob prefix {@code c__} and the SHA-256 of the chunk.</li>
  * <li>After completing all segment writes, a blob containing a
  * {@link org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot} with name {@code snap-${snapshot-uuid}.dat} is written to
  * the shard's path and contains a list of all the files referenced by the snapshot as well as some metadata about the snapshot. See the
@@ -215,9 +219,9 @@
  * the remaining {@code BlobStoreIndexShardSnapshot} blobs in the shard. Afterwards, write it to the next shard generation blob at
  * {@code /indices/${index-snapshot-uuid}/${i}/index-${uuid}} (The shard's generation is determined from the map of shard generations in
  * the {@link org.elasticsearch.repositories.RepositoryData} in the root {@code index-${N}} blob of the repository.</li>
- * <li>Collect all segment blobs (identified by having the data blob prefix {@code __}) in the shard directory which are not referenced by
- * the new {@code BlobStoreIndexShardSnapshots} that has been written in the previous step as well as the previous index-${uuid}
- * blob so that it can be deleted at the end of the snapshot delete process.</li>
+ * <li>Collect all segment and chunk blobs (identified by having the data blob prefix {@code __} or {@code c__}) in the shard directory
+ * which are not referenced by the new {@code BlobStoreIndexShardSnapshots} that has been written in the previous step as well as the
+ * previous index-${uuid} blob so that it can be deleted at the end of the snapshot delete process.</li>
  * </ol>
  * </li>
  * <li>Write an updated {@code RepositoryData} blob with the deleted snapshot removed and containing the updated repository generations
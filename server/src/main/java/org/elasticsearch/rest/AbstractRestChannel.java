@@ -100,6 +100,16 @@ public abstract class AbstractRestChannel implements RestChannel {
     @Override
     public XContentBuilder newBuilder(@Nullable XContentType requestContentType, @Nullable XContentType responseContentType,
             boolean useFiltering) throws IOException {
+        return newBuilder(requestContentType, responseContentType, useFiltering, Streams.flushOnCloseStream(bytesOutput()));
+    }
+
+    /**
+     * Creates a new {@link XContentBuilder} that writes to the given stream, with its type determined as described in
+     * {@link #newBuilder(XContentType, XContentType, boolean)}.
+     */
+    @Override
+    public XContentBuilder newBuilder(@Nullable XContentType requestContentType, @Nullable XContentType responseContentType,
+            boolean useFiltering, OutputStream outputStream) throws IOException {
         if (responseContentType == null) {
             if (Strings.hasText(format)) {
                 responseContentType = XContentType.fromFormat(format);
@@ -129,9 +139,8 @@ public abstract class AbstractRestChannel implements RestChannel {
             excludes = filters.stream().filter(EXCLUDE_FILTER).map(f -> f.substring(1)).collect(toSet());
         }
 
-        OutputStream unclosableOutputStream = Streams.flushOnCloseStream(bytesOutput());
         XContentBuilder builder =
-            new XContentBuilder(XContentFactory.xContent(responseContentType), unclosableOutputStream, includes, excludes);
+            new XContentBuilder(XContentFactory.xContent(responseContentType), outputStream, includes, excludes);
         if (pretty) {
             builder.prettyPrint().lfAtEnd();
         }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A rest response whose body is serialized lazily in chunks as it is sent, see {@link ChunkedRestResponseBody}. Channels that cannot
+ * send a response in chunks may still obtain the complete body from {@link #content()}, in which case it is serialized in one go.
+ */
+public class ChunkedRestResponse extends RestResponse {
+
+    /**
+     * The size of the chunks used when the body has to be serialized in one go.
+     */
+    private static final int MATERIALIZE_CHUNK_SIZE = 1 << 14;
+
+    private final RestStatus status;
+    private final ChunkedRestResponseBody body;
+    private BytesReference content;
+
+    public ChunkedRestResponse(RestStatus status, ChunkedRestResponseBody body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    @Override
+    public String contentType() {
+        return body.getResponseContentTypeString();
+    }
+
+    /**
+     * Serializes the complete body of this response. This defeats the purpose of a chunked response and should only be used by
+     * channels that cannot send a response in chunks. Must not be mixed with consuming {@link #chunkedContent()} directly.
+     */
+    @Override
+    public BytesReference content() {
+        if (content == null) {
+            try {
+                content = ChunkedRestResponseBody.toBytesReference(body, MATERIALIZE_CHUNK_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * The body of this response, to be serialized and sent chunk by chunk.
+     */
+    public ChunkedRestResponseBody chunkedContent() {
+        return body;
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * The body of a rest response that is serialized lazily, one chunk at a time, as the http layer is ready to send it. Only the chunk
+ * that is currently being written needs to be held in memory.
+ */
+public interface ChunkedRestResponseBody {
+
+    /**
+     * @return true once this body has been fully serialized and no more chunks are to be expected
+     */
+    boolean isDone();
+
+    /**
+     * Serializes the next chunk of this body. The returned chunk is at least {@code sizeHint} bytes large unless it is the last one,
+     * but may be larger. The caller must release the returned bytes once they have been sent.
+     *
+     * @param sizeHint  the approximate number of bytes to serialize into the chunk
+     * @param bigArrays the big arrays to allocate the chunk from
+     */
+    ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException;
+
+    /**
+     * @return the value of the content type header of the response
+     */
+    String getResponseContentTypeString();
+
+    /**
+     * Creates a body that serializes the given object chunk by chunk into an {@link XContentBuilder} obtained from the given channel,
+     * honouring the channel's content type negotiation, pretty printing and response filtering.
+     */
+    static ChunkedRestResponseBody fromXContent(ChunkedToXContent chunkedToXContent, ToXContent.Params params,
+                                                RestChannel channel) throws IOException {
+        return new ChunkedRestResponseBody() {
+
+            // the builder writes into whichever chunk is currently being encoded
+            private BytesStreamOutput target;
+
+            private final OutputStream out = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                }
+            };
+
+            private final XContentBuilder builder = channel.newBuilder(channel.request().getXContentType(), null, true,
+                Streams.noCloseStream(out));
+
+            private final Iterator<? extends ToXContent> serialization = chunkedToXContent.toXContentChunked(params);
+
+            private boolean done = false;
+
+            @Override
+            public boolean isDone() {
+                return done;
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException {
+                assert done == false : "body has already been fully serialized";
+                final ReleasableBytesStreamOutput chunkStream = new ReleasableBytesStreamOutput(sizeHint, bigArrays);
+                target = chunkStream;
+                boolean success = false;
+                try {
+                    while (serialization.hasNext()) {
+                        serialization.next().toXContent(builder, params);
+                        if (chunkStream.size() >= sizeHint) {
+                            break;
+                        }
+                    }
+                    if (serialization.hasNext() == false) {
+                        builder.close();
+                        done = true;
+                    } else {
+                        builder.flush();
+                    }
+                    final ReleasableBytesReference chunk = new ReleasableBytesReference(chunkStream.bytes(), chunkStream);
+                    success = true;
+                    return chunk;
+                } finally {
+                    target = null;
+                    if (success == false) {
+                        chunkStream.close();
+                    }
+                }
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return builder.contentType().mediaType();
+            }
+        };
+    }
+
+    /**
+     * Wraps the given body so that its chunks are serialized in the thread context that is current when this method is called, rather
+     * than in the context of whichever thread the http layer serializes them on. Response headers that are added to the context while
+     * serializing are not sent, since the headers of the response have already been sent by then.
+     */
+    static ChunkedRestResponseBody withThreadContext(ChunkedRestResponseBody body, ThreadContext threadContext) {
+        final ThreadContext.StoredContext context = threadContext.newStoredContext(false);
+        return new ChunkedRestResponseBody() {
+            @Override
+            public boolean isDone() {
+                return body.isDone();
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, BigArrays bigArrays) throws IOException {
+                try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+                    context.restore();
+                    return body.encodeChunk(sizeHint, bigArrays);
+                }
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return body.getResponseContentTypeString();
+            }
+        };
+    }
+
+    /**
+     * Serializes all remaining chunks of the given body into a single {@link BytesReference}, for consumers that cannot send a
+     * response in chunks.
+     */
+    static BytesReference toBytesReference(ChunkedRestResponseBody body, int chunkSize) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        while (body.isDone() == false) {
+            try (ReleasableBytesReference chunk = body.encodeChunk(chunkSize, BigArrays.NON_RECYCLING_INSTANCE)) {
+                chunk.writeTo(out);
+            }
+        }
+        return out.bytes();
+    }
+}
@@ -25,6 +25,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * A channel used to construct bytes / builder based outputs, and send responses.
@@ -40,6 +41,13 @@ public interface RestChannel {
     XContentBuilder newBuilder(@Nullable XContentType xContentType, @Nullable XContentType responseContentType,
             boolean useFiltering) throws IOException;
 
+    /**
+     * Like {@link #newBuilder(XContentType, XContentType, boolean)} but the builder writes to the given stream rather than to
+     * {@link #bytesOutput()}. This is used to serialize {@link ChunkedRestResponseBody chunked response bodies}.
+     */
+    XContentBuilder newBuilder(@Nullable XContentType xContentType, @Nullable XContentType responseContentType,
+            boolean useFiltering, OutputStream outputStream) throws IOException;
+
     BytesStreamOutput bytesOutput();
 
     RestRequest request();
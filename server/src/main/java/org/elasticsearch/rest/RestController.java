@@ -32,6 +32,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.path.PathTrie;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -43,6 +44,7 @@ import org.elasticsearch.usage.UsageService;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -242,7 +244,10 @@ public class RestController implements HttpServerTransport.Dispatcher {
                 inFlightRequestsBreaker(circuitBreakerService).addWithoutBreaking(contentLength);
             }
             // iff we could reserve bytes for the request we need to send the response also over this channel
-            responseChannel = new ResourceHandlingHttpChannel(channel, circuitBreakerService, contentLength);
+            final InFlightRequestBytes inFlightBytes = new InFlightRequestBytes(circuitBreakerService, contentLength);
+            responseChannel = new ResourceHandlingHttpChannel(channel, inFlightBytes);
+            // content retained by the handler beyond the response keeps the reservation alive until it is released
+            request.setInFlightBytes(inFlightBytes);
             // TODO: Count requests double in the circuit breaker if they need copying?
             if (handler.allowsUnsafeBuffers() == false) {
                 request.ensureSafeBuffers();
@@ -450,18 +455,36 @@ public class RestController implements HttpServerTransport.Dispatcher {
         return validMethods;
     }
 
-    private static final class ResourceHandlingHttpChannel implements RestChannel {
-        private final RestChannel delegate;
+    /**
+     * The bytes of a request reserved in the in-flight requests circuit breaker. The reservation is released once both the response
+     * has been sent and all content retained via {@link RestRequest#retainRequiredContent()} has been released.
+     */
+    private static final class InFlightRequestBytes extends AbstractRefCounted {
         private final CircuitBreakerService circuitBreakerService;
         private final int contentLength;
-        private final AtomicBoolean closed = new AtomicBoolean();
 
-        ResourceHandlingHttpChannel(RestChannel delegate, CircuitBreakerService circuitBreakerService, int contentLength) {
-            this.delegate = delegate;
+        InFlightRequestBytes(CircuitBreakerService circuitBreakerService, int contentLength) {
+            super("in_flight_request_bytes");
             this.circuitBreakerService = circuitBreakerService;
             this.contentLength = contentLength;
         }
 
+        @Override
+        protected void closeInternal() {
+            inFlightRequestsBreaker(circuitBreakerService).addWithoutBreaking(-contentLength);
+        }
+    }
+
+    private static final class ResourceHandlingHttpChannel implements RestChannel {
+        private final RestChannel delegate;
+        private final InFlightRequestBytes inFlightBytes;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ResourceHandlingHttpChannel(RestChannel delegate, InFlightRequestBytes inFlightBytes) {
+            this.delegate = delegate;
+            this.inFlightBytes = inFlightBytes;
+        }
+
         @Override
         public XContentBuilder newBuilder() throws IOException {
             return delegate.newBuilder();
@@ -483,6 +506,12 @@ public class RestController implements HttpServerTransport.Dispatcher {
             return delegate.newBuilder(xContentType, responseContentType, useFiltering);
         }
 
+        @Override
+        public XContentBuilder newBuilder(XContentType xContentType, XContentType responseContentType, boolean useFiltering,
+                                          OutputStream outputStream) throws IOException {
+            return delegate.newBuilder(xContentType, responseContentType, useFiltering, outputStream);
+        }
+
         @Override
         public BytesStreamOutput bytesOutput() {
             return delegate.bytesOutput();
@@ -509,7 +538,7 @@ public class RestController implements HttpServerTransport.Dispatcher {
             if (closed.compareAndSet(false, true) == false) {
                 throw new IllegalStateException("Channel is already closed");
             }
-            inFlightRequestsBreaker(circuitBreakerService).addWithoutBreaking(-contentLength);
+            inFlightBytes.decRef();
         }
 
     }
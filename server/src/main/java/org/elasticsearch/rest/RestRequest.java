@@ -27,9 +27,12 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.RefCounted;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ParsedMediaType;
@@ -75,6 +78,9 @@ public class RestRequest implements ToXContent.Params {
 
     private boolean contentConsumed = false;
 
+    @Nullable
+    private RefCounted inFlightBytes;
+
     private final long requestId;
 
     public boolean isContentConsumed() {
@@ -130,6 +136,7 @@ public class RestRequest implements ToXContent.Params {
     protected RestRequest(RestRequest restRequest) {
         this(restRequest.getXContentRegistry(), restRequest.params(), restRequest.path(), restRequest.getHeaders(),
             restRequest.getHttpRequest(), restRequest.getHttpChannel(), restRequest.getRequestId());
+        this.inFlightBytes = restRequest.inFlightBytes;
     }
 
     /**
@@ -141,6 +148,15 @@ public class RestRequest implements ToXContent.Params {
         httpRequest = httpRequest.releaseAndCopy();
     }
 
+    /**
+     * Sets the reservation of this request's content in the in-flight requests circuit breaker. Content retained through
+     * {@link #retainRequiredContent()} holds a reference to the reservation so that the bytes stay accounted for until the last
+     * reference to the retained content has been released, even if the response has already been sent by then.
+     */
+    void setInFlightBytes(RefCounted inFlightBytes) {
+        this.inFlightBytes = inFlightBytes;
+    }
+
     /**
      * Creates a new REST request. This method will throw {@link BadParameterException} if the path cannot be
      * decoded
@@ -256,6 +272,28 @@ public class RestRequest implements ToXContent.Params {
         return content();
     }
 
+    /**
+     * Like {@link #requiredContent()} but returns the content together with a reference to the buffers backing it. For handlers that
+     * {@link RestHandler#allowsUnsafeBuffers() allow unsafe buffers} these are the pooled network buffers the request was read into,
+     * which are then kept alive until the returned reference and all of its retained slices have been closed instead of being released
+     * when the response is sent. The caller is responsible for closing the returned reference.
+     */
+    public final ReleasableBytesReference retainRequiredContent() {
+        requiredContent();
+        final ReleasableBytesReference content = httpRequest.retainContent();
+        final RefCounted inFlightBytes = this.inFlightBytes;
+        if (inFlightBytes == null) {
+            return content;
+        }
+        try {
+            inFlightBytes.incRef();
+        } catch (Exception e) {
+            content.close();
+            throw e;
+        }
+        return new ReleasableBytesReference(content, () -> Releasables.close(content, inFlightBytes::decRef));
+    }
+
     /**
      * Get the value of the header or {@code null} if not found. This method only retrieves the first header value if multiple values are
      * sent. Use of {@link #getAllHeaderValues(String)} should be preferred
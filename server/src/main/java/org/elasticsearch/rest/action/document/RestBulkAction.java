@@ -19,12 +19,14 @@
 
 package org.elasticsearch.rest.action.document;
 
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkShardRequest;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestRequest;
@@ -85,7 +87,13 @@ public class RestBulkAction extends BaseRestHandler {
         bulkRequest.add(request.requiredContent(), defaultIndex, defaultRouting,
             defaultFetchSourceContext, defaultPipeline, defaultRequireAlias, allowExplicitIndex, request.getXContentType());
 
-        return channel -> client.bulk(bulkRequest, new RestStatusToXContentListener<>(channel));
+        return channel -> {
+            // the sources of the parsed requests are slices of the pooled network buffers the request was read into, retain them
+            // until the bulk has completed rather than just until the response is sent
+            final ReleasableBytesReference content = request.retainRequiredContent();
+            bulkRequest.pooledSource(content);
+            client.bulk(bulkRequest, ActionListener.runBefore(new RestStatusToXContentListener<>(channel), content::close));
+        };
     }
 
     @Override
@@ -161,6 +161,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Boolean> LOW_LEVEL_CANCELLATION_SETTING =
         Setting.boolSetting("search.low_level_cancellation", true, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Enables the concurrent search of the segments of a shard in the query phase. The segments are grouped into slices that are
+     * searched in parallel on the {@link Names#SEARCH_WORKER} thread pool if the request only uses collectors that can be merged.
+     */
+    public static final Setting<Boolean> CONCURRENT_SEGMENT_SEARCH_SETTING =
+        Setting.boolSetting("search.concurrent_segment_search.enabled", false, Property.Dynamic, Property.NodeScope);
+
     public static final TimeValue NO_TIMEOUT = timeValueMillis(-1);
     public static final Setting<TimeValue> DEFAULT_SEARCH_TIMEOUT_SETTING =
         Setting.timeSetting("search.default_search_timeout", NO_TIMEOUT, Property.Dynamic, Property.NodeScope);
@@ -201,6 +208,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean lowLevelCancellation;
 
+    private volatile boolean concurrentSegmentSearch;
+
     private volatile int maxOpenScrollContext;
 
     private final Cancellable keepAliveReaper;
@@ -249,6 +258,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
+
+        concurrentSegmentSearch = CONCURRENT_SEGMENT_SEARCH_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(CONCURRENT_SEGMENT_SEARCH_SETTING,
+            this::setConcurrentSegmentSearch);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -285,6 +298,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.lowLevelCancellation = lowLevelCancellation;
     }
 
+    private void setConcurrentSegmentSearch(boolean concurrentSegmentSearch) {
+        this.concurrentSegmentSearch = concurrentSegmentSearch;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -770,6 +787,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 reader.indexShard().shardId(), request.getClusterAlias(), OriginalIndices.NONE);
             searchContext = new DefaultSearchContext(reader, request, shardTarget, clusterService,
                 bigArrays, threadPool::relativeTimeInMillis, timeout, fetchPhase, lowLevelCancellation);
+            // throttled indices are searched one request at a time on purpose, don't fan them out
+            if (concurrentSegmentSearch && reader.indexService().getIndexSettings().isSearchThrottled() == false) {
+                searchContext.searcher().setSliceExecutor(threadPool.executor(Names.SEARCH_WORKER));
+            }
             // we clone the query shard context here just for rewriting otherwise we
             // might end up with incorrect state since we are using now() or script services
             // during rewrite and normalized / evaluate templates etc.
@@ -23,6 +23,7 @@ import org.apache.lucene.search.Query;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
@@ -44,25 +45,12 @@ public class AggregationPhase {
 
     public void preProcess(SearchContext context) {
         if (context.aggregations() != null) {
-            List<Aggregator> collectors = new ArrayList<>();
-            Aggregator[] aggregators;
             try {
                 AggregatorFactories factories = context.aggregations().factories();
-                aggregators = factories.createTopLevelAggregators(context);
-                for (int i = 0; i < aggregators.length; i++) {
-                    if (aggregators[i] instanceof GlobalAggregator == false) {
-                        collectors.add(aggregators[i]);
-                    }
-                }
+                Aggregator[] aggregators = factories.createTopLevelAggregators(context);
                 context.aggregations().aggregators(aggregators);
-                if (!collectors.isEmpty()) {
-                    Collector collector = MultiBucketCollector.wrap(collectors);
-                    ((BucketCollector)collector).preCollection();
-                    if (context.getProfilers() != null) {
-                        collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
-                                // TODO: report on child aggs as well
-                                Collections.emptyList());
-                    }
+                Collector collector = createCollector(context, aggregators);
+                if (collector != null) {
                     context.queryCollectors().put(AggregationPhase.class, collector);
                 }
             } catch (IOException e) {
@@ -71,6 +59,42 @@ public class AggregationPhase {
         }
     }
 
+    /**
+     * Creates a new set of top level aggregators that collects a slice of the segments concurrently with the collector
+     * that {@link #preProcess} registered. The results of all slices are merged in {@link #execute}. Must only be called
+     * if all aggregations {@link AggregatorFactories#supportsConcurrentExecution() support concurrent execution}.
+     */
+    public static Collector createSliceCollector(SearchContext context) {
+        assert context.aggregations().factories().supportsConcurrentExecution();
+        try {
+            Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators(context);
+            context.aggregations().addSliceAggregators(aggregators);
+            return createCollector(context, aggregators);
+        } catch (IOException e) {
+            throw new AggregationInitializationException("Could not initialize aggregators", e);
+        }
+    }
+
+    private static Collector createCollector(SearchContext context, Aggregator[] aggregators) throws IOException {
+        List<Aggregator> collectors = new ArrayList<>();
+        for (int i = 0; i < aggregators.length; i++) {
+            if (aggregators[i] instanceof GlobalAggregator == false) {
+                collectors.add(aggregators[i]);
+            }
+        }
+        if (collectors.isEmpty()) {
+            return null;
+        }
+        Collector collector = MultiBucketCollector.wrap(collectors);
+        ((BucketCollector)collector).preCollection();
+        if (context.getProfilers() != null) {
+            collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
+                    // TODO: report on child aggs as well
+                    Collections.emptyList());
+        }
+        return collector;
+    }
+
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
             context.queryResult().aggregations(null);
@@ -124,7 +148,28 @@ public class AggregationPhase {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
         }
-        context.queryResult().aggregations(InternalAggregations.from(aggregations));
+        InternalAggregations internalAggregations = InternalAggregations.from(aggregations);
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (sliceAggregators.isEmpty() == false) {
+            // merge the results of the slices that were collected concurrently, only aggregations that support concurrent
+            // execution are sliced and none of them needs scripts to reduce
+            List<InternalAggregations> slices = new ArrayList<>(sliceAggregators.size() + 1);
+            slices.add(internalAggregations);
+            for (Aggregator[] slice : sliceAggregators) {
+                List<InternalAggregation> sliceAggregations = new ArrayList<>(slice.length);
+                for (Aggregator aggregator : slice) {
+                    try {
+                        sliceAggregations.add(aggregator.buildTopLevel());
+                    } catch (IOException e) {
+                        throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+                    }
+                }
+                slices.add(InternalAggregations.from(sliceAggregations));
+            }
+            internalAggregations = InternalAggregations.reduce(slices,
+                InternalAggregation.ReduceContext.forPartialReduction(context.bigArrays(), null, () -> PipelineTree.EMPTY));
+        }
+        context.queryResult().aggregations(internalAggregations);
 
         // disable aggregations so that they don't run on next pages in case of scrolling
         context.aggregations(null);
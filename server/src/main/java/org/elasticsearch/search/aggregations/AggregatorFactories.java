@@ -227,6 +227,19 @@ public class AggregatorFactories {
         return factories.length;
     }
 
+    /**
+     * @return whether all factories in this tree support concurrent execution
+     * @see AggregatorFactory#supportsConcurrentExecution()
+     */
+    public boolean supportsConcurrentExecution() {
+        for (AggregatorFactory factory : factories) {
+            if (factory.supportsConcurrentExecution() == false || factory.factories.supportsConcurrentExecution() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * This returns a copy of {@link AggregatorFactories} modified so that
      * calls to {@link #createSubAggregators} will ignore the provided parent
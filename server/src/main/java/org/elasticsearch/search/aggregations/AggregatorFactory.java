@@ -92,4 +92,12 @@ public abstract class AggregatorFactory {
     public String getStatsSubtype() {
         return OTHER_SUBTYPE;
     }
+
+    /**
+     * Whether the aggregators built by this factory can collect disjoint slices of the segments of a shard concurrently,
+     * each slice with its own aggregator, and be merged with a partial reduction afterwards without changing the shard result.
+     */
+    public boolean supportsConcurrentExecution() {
+        return false;
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.Scorable;
+
+import java.io.IOException;
+
+/**
+ * A {@link LeafBucketCollector} that buffers the docs it collects and hands
+ * them to the wrapped collector in blocks through
+ * {@link LeafBucketCollector#collect(int[], int, long)}. The buffered docs
+ * must be {@link #flush() flushed} once the leaf is done and before the
+ * results of the wrapped collector are read.
+ * <p>
+ * Buffering is only correct if the wrapped collector doesn't need the
+ * scores of the docs and if nothing reads its results in the middle of
+ * collecting a leaf, which limits it to top level aggregators.
+ */
+public final class BatchingLeafBucketCollector extends LeafBucketCollector {
+
+    /**
+     * The maximum number of docs in a block. Large enough to amortize the
+     * cost of handing a block over, small enough for the block and its
+     * decoded values to stay in the CPU caches.
+     */
+    public static final int BLOCK_SIZE = 512;
+
+    private final LeafBucketCollector delegate;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+    private long owningBucketOrd;
+
+    public BatchingLeafBucketCollector(LeafBucketCollector delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {
+        delegate.setScorer(scorer);
+    }
+
+    @Override
+    public void collect(int doc, long owningBucketOrd) throws IOException {
+        if (count == docs.length || (count > 0 && owningBucketOrd != this.owningBucketOrd)) {
+            flush();
+        }
+        docs[count++] = doc;
+        this.owningBucketOrd = owningBucketOrd;
+    }
+
+    @Override
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        flush();
+        delegate.collect(docs, count, owningBucketOrd);
+    }
+
+    /**
+     * Hand the buffered docs over to the wrapped collector.
+     */
+    public void flush() throws IOException {
+        if (count > 0) {
+            final int count = this.count;
+            this.count = 0;
+            delegate.collect(docs, count, owningBucketOrd);
+        }
+    }
+}
@@ -102,6 +102,22 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} docs of {@code docs}, which are in
+     * increasing order, in the bucket owned by {@code owningBucketOrd}.
+     * <p>
+     * The default implementation calls {@link #collect(int, long)} for
+     * each doc. Collectors that can decode and reduce the values of a whole
+     * block of docs in a tight loop, like the numeric metric aggregations,
+     * override it to save the per doc overhead. Blocks are built by
+     * {@link BatchingLeafBucketCollector}.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
     @Override
     public final void collect(int doc) throws IOException {
         collect(doc, 0);
@@ -18,15 +18,24 @@
  */
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.CheckedFunction;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.Rounding.DateTimeUnit;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.index.IndexSortConfig;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AdaptingAggregator;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -78,6 +87,11 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
      * than the {@linkplain DateHistogramAggregator} because it doesn't need
      * to the round points and because it can pass precise cardinality
      * estimates to its child aggregations.
+     * <p>
+     * The exception is an index sorted on the field: there the
+     * {@linkplain DateHistogramAggregator} can find the docs of each bucket
+     * by binary search over the doc ids of each segment, which is faster than
+     * running one range query per bucket.
      */
     public static Aggregator build(
         String name,
@@ -95,7 +109,7 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         Map<String, Object> metadata
     ) throws IOException {
         Rounding.Prepared preparedRounding = valuesSourceConfig.roundingPreparer().apply(rounding);
-        Aggregator asRange = adaptIntoRangeOrNull(
+        Aggregator asRange = sortedIndexFieldOrNull(valuesSourceConfig, context) != null ? null : adaptIntoRangeOrNull(
             name,
             factories,
             rounding,
@@ -201,6 +215,18 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         );
     }
 
+    /**
+     * The name of the field if the index is sorted on it first and we read its
+     * values as is, {@code null} otherwise.
+     */
+    private static String sortedIndexFieldOrNull(ValuesSourceConfig valuesSourceConfig, SearchContext context) {
+        if (valuesSourceConfig.fieldContext() == null || valuesSourceConfig.script() != null || valuesSourceConfig.missing() != null) {
+            return null;
+        }
+        String field = valuesSourceConfig.fieldContext().field();
+        return context.getQueryShardContext().indexSortedOnField(field) ? field : null;
+    }
+
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
@@ -217,6 +243,15 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
 
     private final LongKeyedBucketOrds bucketOrds;
 
+    /**
+     * The field the index is sorted on if the values of sorted segments can be
+     * collected by ranges of doc ids, {@code null} otherwise.
+     */
+    private final String sortedField;
+
+    private int segmentsCounted;
+    private int segmentsCollectedSorted;
+
     DateHistogramAggregator(
         String name,
         AggregatorFactories factories,
@@ -246,6 +281,7 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         // TODO: Stop using null here
         this.valuesSource = valuesSourceConfig.hasValues() ? (ValuesSource.Numeric) valuesSourceConfig.getValuesSource() : null;
         this.formatter = valuesSourceConfig.format();
+        this.sortedField = valuesSource == null ? null : sortedIndexFieldOrNull(valuesSourceConfig, aggregationContext);
 
         bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
     }
@@ -264,6 +300,19 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
         SortedNumericDocValues values = valuesSource.longValues(ctx);
+        if (sortedField != null) {
+            SortedSegment sortedSegment = sortedSegmentOrNull(ctx, values);
+            if (sortedSegment != null) {
+                if (canCountWithoutCollecting(ctx)) {
+                    countSortedSegment(sortedSegment);
+                    segmentsCounted++;
+                    // Throwing this exception is how we communicate to the collection mechanism that we don't need the segment.
+                    throw new CollectionTerminatedException();
+                }
+                segmentsCollectedSorted++;
+                return sortedLeafCollector(sortedSegment, sub);
+            }
+        }
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long owningBucketOrd) throws IOException {
@@ -294,6 +343,170 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         };
     }
 
+    /**
+     * We can add up the doc counts of whole ranges of docs if every doc of the
+     * segment is collected exactly once by this aggregator and counts as a
+     * single doc.
+     */
+    private boolean canCountWithoutCollecting(LeafReaderContext ctx) {
+        return parent == null
+            && subAggregators.length == 0
+            && (topLevelQuery() == null || topLevelQuery().getClass() == MatchAllDocsQuery.class)
+            && ctx.reader().getLiveDocs() == null
+            && ctx.reader().getFieldInfos().fieldInfo(DocCountFieldMapper.NAME) == null;
+    }
+
+    private void countSortedSegment(SortedSegment segment) throws IOException {
+        int start = 0;
+        while (start < segment.maxDoc) {
+            long rounded = preparedRounding.round(segment.valueOf(start));
+            int end = segment.endOfBucket(start, rounded);
+            if (hardBounds == null || hardBounds.contain(rounded)) {
+                long bucketOrd = bucketOrds.add(0, rounded);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, end - start);
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Collects the docs of a sorted segment. The docs are collected in
+     * increasing doc id order so they round to the same key until the end of
+     * the current bucket, which we find by binary search rather than by
+     * reading and rounding the value of every doc.
+     */
+    private LeafBucketCollector sortedLeafCollector(SortedSegment segment, LeafBucketCollector sub) {
+        return new LeafBucketCollectorBase(sub, null) {
+            private int bucketEnd = -1;
+            private long rounded;
+            private boolean inBounds;
+            private long lastOwningBucketOrd = -1;
+            private long lastBucketOrd;
+
+            @Override
+            public void collect(int doc, long owningBucketOrd) throws IOException {
+                if (doc >= bucketEnd) {
+                    rounded = preparedRounding.round(segment.valueOf(doc));
+                    bucketEnd = segment.endOfBucket(doc, rounded);
+                    inBounds = hardBounds == null || hardBounds.contain(rounded);
+                    lastOwningBucketOrd = -1;
+                }
+                if (inBounds == false) {
+                    return;
+                }
+                if (owningBucketOrd == lastOwningBucketOrd) {
+                    collectExistingBucket(sub, doc, lastBucketOrd);
+                    return;
+                }
+                long bucketOrd = bucketOrds.add(owningBucketOrd, rounded);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                    collectExistingBucket(sub, doc, bucketOrd);
+                } else {
+                    collectBucket(sub, doc, bucketOrd);
+                }
+                lastOwningBucketOrd = owningBucketOrd;
+                lastBucketOrd = bucketOrd;
+            }
+        };
+    }
+
+    /**
+     * Build a {@link SortedSegment} if the leaf is sorted on the field first
+     * and every doc has a single value for it, {@code null} otherwise.
+     */
+    private SortedSegment sortedSegmentOrNull(LeafReaderContext ctx, SortedNumericDocValues values) throws IOException {
+        Sort indexSort = ctx.reader().getMetaData().getSort();
+        if (indexSort == null) {
+            return null;
+        }
+        SortField sortField = indexSort.getSort()[0];
+        if (sortField.getField().equals(sortedField) == false || IndexSortConfig.getSortFieldType(sortField) != SortField.Type.LONG) {
+            return null;
+        }
+        if (DocValues.unwrapSingleton(values) == null) {
+            return null;
+        }
+        // docs without a value are sorted together at one end of the segment and don't belong to any bucket
+        int maxDoc = ctx.reader().maxDoc();
+        PointValues points = ctx.reader().getPointValues(sortedField);
+        if (points == null || points.getDocCount() != maxDoc || points.size() != maxDoc) {
+            return null;
+        }
+        return new SortedSegment(ctx, maxDoc);
+    }
+
+    /**
+     * A segment that is sorted on the field and where every doc has exactly one
+     * value. Rounding is monotonic so the rounded values are monotonic in doc id
+     * order as well, whatever the direction of the sort, and the docs that fall
+     * in a bucket form a contiguous range of doc ids.
+     */
+    private class SortedSegment {
+        private final LeafReaderContext ctx;
+        private final int maxDoc;
+        private NumericDocValues values;
+
+        SortedSegment(LeafReaderContext ctx, int maxDoc) {
+            this.ctx = ctx;
+            this.maxDoc = maxDoc;
+        }
+
+        /**
+         * Read the value of a doc. Doc values can only move forward so we pull
+         * a fresh iterator when the binary search probes backwards.
+         */
+        long valueOf(int doc) throws IOException {
+            if (values == null || values.docID() > doc) {
+                values = DocValues.unwrapSingleton(valuesSource.longValues(ctx));
+            }
+            boolean hasValue = values.advanceExact(doc);
+            assert hasValue : "doc [" + doc + "] has no value in a dense segment";
+            return values.longValue();
+        }
+
+        /**
+         * Find the first doc after {@code doc} that doesn't round to
+         * {@code rounded}, or {@code maxDoc} if there isn't any. Buckets are
+         * usually small compared to the segment so we first gallop forward to
+         * bound the range and then binary search inside it. We compare the
+         * values to the bounds of the bucket rather than round them because the
+         * prepared rounding only supports the values that the query matches.
+         */
+        int endOfBucket(int doc, long rounded) throws IOException {
+            long nextRounded = preparedRounding.nextRoundingValue(rounded);
+            int inBucket = doc;
+            int notInBucket = maxDoc;
+            long step = 1;
+            while (inBucket + step < maxDoc) {
+                int probe = (int) (inBucket + step);
+                if (inBucket(probe, rounded, nextRounded) == false) {
+                    notInBucket = probe;
+                    break;
+                }
+                inBucket = probe;
+                step <<= 1;
+            }
+            while (notInBucket - inBucket > 1) {
+                int probe = (inBucket + notInBucket) >>> 1;
+                if (inBucket(probe, rounded, nextRounded)) {
+                    inBucket = probe;
+                } else {
+                    notInBucket = probe;
+                }
+            }
+            return notInBucket;
+        }
+
+        private boolean inBucket(int doc, long rounded, long nextRounded) throws IOException {
+            long value = valueOf(doc);
+            return rounded <= value && value < nextRounded;
+        }
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         return buildAggregationsForVariableBuckets(owningBucketOrds, bucketOrds,
@@ -328,6 +541,8 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
     @Override
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         add.accept("total_buckets", bucketOrds.size());
+        add.accept("segments_counted", segmentsCounted);
+        add.accept("segments_collected_sorted", segmentsCollectedSorted);
     }
 
     /**
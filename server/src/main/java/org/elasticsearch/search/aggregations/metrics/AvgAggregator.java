@@ -24,6 +24,7 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.BatchedDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -71,10 +72,11 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
-        final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        final BatchedDoubleValues batchedValues = valuesSource.batchedDoubleValues(ctx);
+        final SortedNumericDoubleValues values = batchedValues.getValues();
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
 
-        return new LeafBucketCollectorBase(sub, values) {
+        return collectInBlocks(new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
                 counts = bigArrays().grow(counts, bucket + 1);
@@ -100,7 +102,24 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
                     compensations.set(bucket, kahanSummation.delta());
                 }
             }
-        };
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                counts = bigArrays().grow(counts, bucket + 1);
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                final int valuesCount = batchedValues.read(docs, count);
+                final double[] blockValues = batchedValues.buffer();
+                counts.increment(bucket, valuesCount);
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int i = 0; i < valuesCount; i++) {
+                    kahanSummation.add(blockValues[i]);
+                }
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+            }
+        });
     }
 
     @Override
@@ -112,7 +131,8 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
     }
 
     @Override
-    public InternalAggregation buildAggregation(long bucket) {
+    public InternalAggregation buildAggregation(long bucket) throws IOException {
+        flushBlocks();
         if (valuesSource == null || bucket >= sums.size()) {
             return buildEmptyAggregation();
         }
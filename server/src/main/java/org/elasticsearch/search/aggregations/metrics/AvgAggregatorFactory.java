@@ -68,4 +68,9 @@ class AvgAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(AvgAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
@@ -75,4 +75,9 @@ class ExtendedStatsAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(ExtendedStatsAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, sigma, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
@@ -27,6 +27,7 @@ import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.FutureArrays;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.index.fielddata.BatchedDoubleValues;
 import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
@@ -104,9 +105,10 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 throw new CollectionTerminatedException();
             }
         }
-        final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
+        final BatchedDoubleValues batchedValues = valuesSource.batchedDoubleValues(ctx);
+        final SortedNumericDoubleValues allValues = batchedValues.getValues();
         final NumericDoubleValues values = MultiValueMode.MAX.select(allValues);
-        return new LeafBucketCollectorBase(sub, allValues) {
+        return collectInBlocks(new LeafBucketCollectorBase(sub, allValues) {
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -123,7 +125,23 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
-        };
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays().grow(maxes, bucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                // the max of all values of the block is the max of the per doc maxs
+                final int valuesCount = batchedValues.read(docs, count);
+                final double[] blockValues = batchedValues.buffer();
+                double max = maxes.get(bucket);
+                for (int i = 0; i < valuesCount; i++) {
+                    max = Math.max(max, blockValues[i]);
+                }
+                maxes.set(bucket, max);
+            }
+        });
     }
 
     @Override
@@ -135,7 +153,8 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
     }
 
     @Override
-    public InternalAggregation buildAggregation(long bucket) {
+    public InternalAggregation buildAggregation(long bucket) throws IOException {
+        flushBlocks();
         if (valuesSource == null || bucket >= maxes.size()) {
             return buildEmptyAggregation();
         }
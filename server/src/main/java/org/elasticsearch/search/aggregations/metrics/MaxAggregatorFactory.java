@@ -68,4 +68,9 @@ class MaxAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(MaxAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
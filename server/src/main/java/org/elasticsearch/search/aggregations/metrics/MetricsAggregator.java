@@ -19,17 +19,23 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorBase;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BatchingLeafBucketCollector;
 import org.elasticsearch.search.aggregations.CardinalityUpperBound;
 import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.Map;
 
 public abstract class MetricsAggregator extends AggregatorBase {
+
+    private BatchingLeafBucketCollector batchingCollector;
+
     protected MetricsAggregator(String name, SearchContext context, Aggregator parent, Map<String, Object> metadata) throws IOException {
         super(name, AggregatorFactories.EMPTY, context, parent, CardinalityUpperBound.NONE, metadata);
         /*
@@ -38,6 +44,40 @@ public abstract class MetricsAggregator extends AggregatorBase {
          */
     }
 
+    /**
+     * Wrap the leaf collector of a top level aggregator that doesn't need
+     * scores so that it receives its docs in blocks through
+     * {@link LeafBucketCollector#collect(int[], int, long)}. Sub-aggregators
+     * are collected doc by doc because their parent may read their results
+     * at any time. The last block of each leaf is handed over when the next
+     * leaf starts or on {@link #flushBlocks()}.
+     */
+    protected final LeafBucketCollector collectInBlocks(LeafBucketCollector collector) {
+        if (parent != null || scoreMode().needsScores()) {
+            return collector;
+        }
+        batchingCollector = new BatchingLeafBucketCollector(collector);
+        return batchingCollector;
+    }
+
+    @Override
+    protected void preGetSubLeafCollectors(LeafReaderContext ctx) throws IOException {
+        super.preGetSubLeafCollectors(ctx);
+        flushBlocks();
+    }
+
+    /**
+     * Hand the docs that are still buffered by {@link #collectInBlocks} over
+     * to the leaf collector. Aggregators that use it must call this before
+     * reading their results in {@link #buildAggregation(long)}.
+     */
+    protected final void flushBlocks() throws IOException {
+        if (batchingCollector != null) {
+            batchingCollector.flush();
+            batchingCollector = null;
+        }
+    }
+
     /**
      * Called once before any calls to {@link #buildAggregation(long)} so the
      * Aggregator can finish up any work it has to do.
@@ -26,6 +26,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.Bits;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.index.fielddata.BatchedDoubleValues;
 import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
@@ -104,9 +105,10 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 throw new CollectionTerminatedException();
             }
         }
-        final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
+        final BatchedDoubleValues batchedValues = valuesSource.batchedDoubleValues(ctx);
+        final SortedNumericDoubleValues allValues = batchedValues.getValues();
         final NumericDoubleValues values = MultiValueMode.MIN.select(allValues);
-        return new LeafBucketCollectorBase(sub, allValues) {
+        return collectInBlocks(new LeafBucketCollectorBase(sub, allValues) {
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -123,7 +125,23 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
-        };
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays().grow(mins, bucket + 1);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                // the min of all values of the block is the min of the per doc mins
+                final int valuesCount = batchedValues.read(docs, count);
+                final double[] blockValues = batchedValues.buffer();
+                double min = mins.get(bucket);
+                for (int i = 0; i < valuesCount; i++) {
+                    min = Math.min(min, blockValues[i]);
+                }
+                mins.set(bucket, min);
+            }
+        });
     }
 
     @Override
@@ -135,7 +153,8 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
     }
 
     @Override
-    public InternalAggregation buildAggregation(long bucket) {
+    public InternalAggregation buildAggregation(long bucket) throws IOException {
+        flushBlocks();
         if (valuesSource == null || bucket >= mins.size()) {
             return buildEmptyAggregation();
         }
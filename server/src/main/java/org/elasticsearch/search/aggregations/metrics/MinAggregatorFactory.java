@@ -68,4 +68,9 @@ class MinAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(MinAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
@@ -24,6 +24,7 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.fielddata.BatchedDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -81,23 +82,14 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
-        final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        final BatchedDoubleValues batchedValues = valuesSource.batchedDoubleValues(ctx);
+        final SortedNumericDoubleValues values = batchedValues.getValues();
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
 
-        return new LeafBucketCollectorBase(sub, values) {
+        return collectInBlocks(new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                if (bucket >= counts.size()) {
-                    final long from = counts.size();
-                    final long overSize = BigArrays.overSize(bucket + 1);
-                    counts = bigArrays().resize(counts, overSize);
-                    sums = bigArrays().resize(sums, overSize);
-                    compensations = bigArrays().resize(compensations, overSize);
-                    mins = bigArrays().resize(mins, overSize);
-                    maxes = bigArrays().resize(maxes, overSize);
-                    mins.fill(from, overSize, Double.POSITIVE_INFINITY);
-                    maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
-                }
+                maybeGrow(bucket);
 
                 if (values.advanceExact(doc)) {
                     final int valuesCount = values.docValueCount();
@@ -122,7 +114,45 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
                     maxes.set(bucket, max);
                 }
             }
-        };
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                maybeGrow(bucket);
+
+                final int valuesCount = batchedValues.read(docs, count);
+                final double[] blockValues = batchedValues.buffer();
+                counts.increment(bucket, valuesCount);
+                double min = mins.get(bucket);
+                double max = maxes.get(bucket);
+                // min and max in their own loop, it doesn't depend on the previous iteration like the compensated sum does
+                for (int i = 0; i < valuesCount; i++) {
+                    min = Math.min(min, blockValues[i]);
+                    max = Math.max(max, blockValues[i]);
+                }
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int i = 0; i < valuesCount; i++) {
+                    kahanSummation.add(blockValues[i]);
+                }
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+                mins.set(bucket, min);
+                maxes.set(bucket, max);
+            }
+        });
+    }
+
+    private void maybeGrow(long bucket) {
+        if (bucket >= counts.size()) {
+            final long from = counts.size();
+            final long overSize = BigArrays.overSize(bucket + 1);
+            counts = bigArrays().resize(counts, overSize);
+            sums = bigArrays().resize(sums, overSize);
+            compensations = bigArrays().resize(compensations, overSize);
+            mins = bigArrays().resize(mins, overSize);
+            maxes = bigArrays().resize(maxes, overSize);
+            mins.fill(from, overSize, Double.POSITIVE_INFINITY);
+            maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
+        }
     }
 
     @Override
@@ -160,7 +190,8 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
     }
 
     @Override
-    public InternalAggregation buildAggregation(long bucket) {
+    public InternalAggregation buildAggregation(long bucket) throws IOException {
+        flushBlocks();
         if (valuesSource == null || bucket >= sums.size()) {
             return buildEmptyAggregation();
         }
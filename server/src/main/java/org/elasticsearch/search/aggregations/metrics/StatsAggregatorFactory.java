@@ -71,4 +71,9 @@ class StatsAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(StatsAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
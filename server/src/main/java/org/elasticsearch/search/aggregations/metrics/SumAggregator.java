@@ -22,6 +22,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.DoubleArray;
+import org.elasticsearch.index.fielddata.BatchedDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -71,9 +72,10 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
-        final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
+        final BatchedDoubleValues batchedValues = valuesSource.batchedDoubleValues(ctx);
+        final SortedNumericDoubleValues values = batchedValues.getValues();
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
-        return new LeafBucketCollectorBase(sub, values) {
+        return collectInBlocks(new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
                 sums = bigArrays().grow(sums, bucket + 1);
@@ -96,7 +98,22 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
                     sums.set(bucket, kahanSummation.value());
                 }
             }
-        };
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                final int valuesCount = batchedValues.read(docs, count);
+                final double[] blockValues = batchedValues.buffer();
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int i = 0; i < valuesCount; i++) {
+                    kahanSummation.add(blockValues[i]);
+                }
+                compensations.set(bucket, kahanSummation.delta());
+                sums.set(bucket, kahanSummation.value());
+            }
+        });
     }
 
     @Override
@@ -108,7 +125,8 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
     }
 
     @Override
-    public InternalAggregation buildAggregation(long bucket) {
+    public InternalAggregation buildAggregation(long bucket) throws IOException {
+        flushBlocks();
         if (valuesSource == null || bucket >= sums.size()) {
             return buildEmptyAggregation();
         }
@@ -72,4 +72,9 @@ class SumAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(SumAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
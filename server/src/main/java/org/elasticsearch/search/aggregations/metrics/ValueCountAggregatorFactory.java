@@ -63,4 +63,9 @@ class ValueCountAggregatorFactory extends ValuesSourceAggregatorFactory {
             .getAggregator(ValueCountAggregationBuilder.REGISTRY_KEY, config)
             .build(name, config, searchContext, parent, metadata);
     }
+
+    @Override
+    public boolean supportsConcurrentExecution() {
+        return true;
+    }
 }
@@ -33,6 +33,7 @@ import org.elasticsearch.common.Rounding.Prepared;
 import org.elasticsearch.common.lucene.ScorerAware;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.index.fielddata.AbstractSortingNumericDocValues;
+import org.elasticsearch.index.fielddata.BatchedDoubleValues;
 import org.elasticsearch.index.fielddata.DocValueBits;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexGeoPointFieldData;
@@ -383,6 +384,14 @@ public abstract class ValuesSource {
         /** Get the current {@link SortedNumericDoubleValues}. */
         public abstract SortedNumericDoubleValues doubleValues(LeafReaderContext context) throws IOException;
 
+        /**
+         * Get the current {@link SortedNumericDoubleValues} wrapped so that the
+         * values of blocks of docs can also be decoded with a single call.
+         */
+        public BatchedDoubleValues batchedDoubleValues(LeafReaderContext context) throws IOException {
+            return new BatchedDoubleValues(doubleValues(context));
+        }
+
         @Override
         public DocValueBits docsWithValue(LeafReaderContext context) throws IOException {
             if (isFloatingPoint()) {
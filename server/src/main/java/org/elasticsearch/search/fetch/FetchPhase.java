@@ -31,6 +31,7 @@ import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.BitSet;
 import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
@@ -45,6 +46,7 @@ import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.ObjectMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SyntheticSourceLoader;
 import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchHit;
@@ -55,8 +57,12 @@ import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsPhase;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.lookup.SourceLookup;
+import org.elasticsearch.search.profile.Timer;
+import org.elasticsearch.search.profile.fetch.FetchProfiler;
+import org.elasticsearch.search.profile.fetch.FetchTimingType;
 import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
@@ -80,6 +86,16 @@ import static java.util.Collections.emptyMap;
 public class FetchPhase {
     private static final Logger LOGGER = LogManager.getLogger(FetchPhase.class);
 
+    /**
+     * The minimum number of docs to load from a leaf to use a stored fields reader that is optimized for sequential access.
+     */
+    static final int SEQUENTIAL_ACCESS_MIN_DOCS = 10;
+    /**
+     * The maximum average distance between the ids of the docs to load from a leaf to use a stored fields reader that is
+     * optimized for sequential access. Compressed blocks of stored fields usually hold tens to hundreds of documents.
+     */
+    static final int SEQUENTIAL_ACCESS_MAX_AVERAGE_GAP = 8;
+
     private final FetchSubPhase[] fetchSubPhases;
 
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
@@ -118,12 +134,16 @@ public class FetchPhase {
         SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
         Map<String, Object> sharedCache = new HashMap<>();
 
-        List<FetchSubPhaseProcessor> processors = getProcessors(context.shardTarget(), fetchContext);
+        // inner hits and top hits run a nested fetch phase on a sub context, only the fetch phase of the shard is profiled
+        FetchProfiler profiler = context.getProfilers() == null || context instanceof SubSearchContext
+            ? null : context.getProfilers().getFetchProfiler();
+        List<FetchSubPhaseProcessor> processors = getProcessors(context.shardTarget(), fetchContext, profiler);
+        SyntheticSourceLoader syntheticSourceLoader = createSyntheticSourceLoader(context, fieldsVisitor);
 
         int currentReaderIndex = -1;
         LeafReaderContext currentReaderContext = null;
         CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
-        boolean hasSequentialDocs = hasSequentialDocs(docs);
+        SyntheticSourceLoader.Leaf syntheticSource = null;
         for (int index = 0; index < context.docIdsToLoadSize(); index++) {
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
@@ -132,34 +152,64 @@ public class FetchPhase {
             try {
                 int readerIndex = ReaderUtil.subIndex(docId, context.searcher().getIndexReader().leaves());
                 if (currentReaderIndex != readerIndex) {
-                    currentReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
-                    currentReaderIndex = readerIndex;
-                    if (currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
-                            && hasSequentialDocs && docs.length >= 10) {
-                        // All the docs to fetch are adjacent but Lucene stored fields are optimized
-                        // for random access and don't optimize for sequential access - except for merging.
-                        // So we do a little hack here and pretend we're going to do merges in order to
-                        // get better sequential access.
-                        SequentialStoredFieldsLeafReader lf = (SequentialStoredFieldsLeafReader) currentReaderContext.reader();
-                        fieldReader = lf.getSequentialStoredFieldsReader()::visitDocument;
-                    } else {
-                        fieldReader = currentReaderContext.reader()::document;
+                    Timer timer = profiler == null ? null : profiler.getTimer(FetchTimingType.NEXT_READER);
+                    if (timer != null) {
+                        timer.start();
+                    }
+                    try {
+                        currentReaderContext = context.searcher().getIndexReader().leaves().get(readerIndex);
+                        currentReaderIndex = readerIndex;
+                        int leafEnd = endOfLeaf(docs, index, currentReaderContext);
+                        boolean sequential = currentReaderContext.reader() instanceof SequentialStoredFieldsLeafReader
+                            && useSequentialStoredFieldsReader(docs, index, leafEnd);
+                        if (sequential) {
+                            // Lucene stored fields are optimized for random access and decompress the block that holds a
+                            // document every time one of its documents is loaded - except for merging. So we do a little
+                            // hack here and pretend we're going to do merges so that each block is only decompressed once
+                            // when the docs of the leaf, which we visit in doc id order, are close to each other.
+                            SequentialStoredFieldsLeafReader lf = (SequentialStoredFieldsLeafReader) currentReaderContext.reader();
+                            fieldReader = lf.getSequentialStoredFieldsReader()::visitDocument;
+                        } else {
+                            fieldReader = currentReaderContext.reader()::document;
+                        }
+                        if (syntheticSourceLoader != null) {
+                            syntheticSource = syntheticSourceLoader.leaf(currentReaderContext);
+                        }
+                        if (profiler != null) {
+                            profiler.markLeafLoaded(leafEnd - index, sequential);
+                        }
+                    } finally {
+                        if (timer != null) {
+                            timer.stop();
+                        }
                     }
                     for (FetchSubPhaseProcessor processor : processors) {
                         processor.setNextReader(currentReaderContext);
                     }
                 }
                 assert currentReaderContext != null;
-                HitContext hit = prepareHitContext(
-                    context,
-                    fetchContext.searchLookup(),
-                    fieldsVisitor,
-                    docId,
-                    storedToRequestedFields,
-                    currentReaderContext,
-                    fieldReader,
-                    sharedCache
-                );
+                Timer timer = profiler == null ? null : profiler.getTimer(FetchTimingType.LOAD_STORED_FIELDS);
+                if (timer != null) {
+                    timer.start();
+                }
+                HitContext hit;
+                try {
+                    hit = prepareHitContext(
+                        context,
+                        fetchContext.searchLookup(),
+                        fieldsVisitor,
+                        docId,
+                        storedToRequestedFields,
+                        currentReaderContext,
+                        fieldReader,
+                        syntheticSource,
+                        sharedCache
+                    );
+                } finally {
+                    if (timer != null) {
+                        timer.stop();
+                    }
+                }
                 for (FetchSubPhaseProcessor processor : processors) {
                     processor.process(hit);
                 }
@@ -174,16 +224,18 @@ public class FetchPhase {
 
         TotalHits totalHits = context.queryResult().getTotalHits();
         context.fetchResult().hits(new SearchHits(hits, totalHits, context.queryResult().getMaxScore()));
-
+        if (profiler != null) {
+            context.fetchResult().profileResult(profiler.getResult());
+        }
     }
 
-    List<FetchSubPhaseProcessor> getProcessors(SearchShardTarget target, FetchContext context) {
+    List<FetchSubPhaseProcessor> getProcessors(SearchShardTarget target, FetchContext context, @Nullable FetchProfiler profiler) {
         try {
             List<FetchSubPhaseProcessor> processors = new ArrayList<>();
             for (FetchSubPhase fsp : fetchSubPhases) {
                 FetchSubPhaseProcessor processor = fsp.getProcessor(context);
                 if (processor != null) {
-                    processors.add(processor);
+                    processors.add(profiler == null ? processor : profiler.profile(fsp, processor));
                 }
             }
             return processors;
@@ -192,6 +244,23 @@ public class FetchPhase {
         }
     }
 
+    /**
+     * Returns a loader that rebuilds the source of the hits from doc values if the index doesn't store the
+     * {@code _source} but the source of the hits is needed, {@code null} otherwise.
+     */
+    @Nullable
+    private SyntheticSourceLoader createSyntheticSourceLoader(SearchContext context, @Nullable FieldsVisitor fieldsVisitor) {
+        DocumentMapper documentMapper = context.mapperService().documentMapper();
+        if (fieldsVisitor == null || documentMapper == null || documentMapper.sourceMapper().isSynthetic() == false) {
+            return null;
+        }
+        // highlighters and scripts read the source from the hit context when it is set, so they get the synthetic source too
+        if (sourceRequired(context) == false && context.highlight() == null && context.hasScriptFields() == false) {
+            return null;
+        }
+        return SyntheticSourceLoader.create(documentMapper.mappers(), context.getQueryShardContext()::getForField);
+    }
+
     static class DocIdToIndex implements Comparable<DocIdToIndex> {
         final int docId;
         final int index;
@@ -278,6 +347,7 @@ public class FetchPhase {
                                          Map<String, Set<String>> storedToRequestedFields,
                                          LeafReaderContext subReaderContext,
                                          CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldReader,
+                                         @Nullable SyntheticSourceLoader.Leaf syntheticSource,
                                          Map<String, Object> sharedCache) throws IOException {
         int rootDocId = findRootDocumentIfNested(context, subReaderContext, docId - subReaderContext.docBase);
         if (rootDocId == -1) {
@@ -289,6 +359,7 @@ public class FetchPhase {
                 storedToRequestedFields,
                 subReaderContext,
                 storedFieldReader,
+                syntheticSource,
                 sharedCache
             );
         } else {
@@ -311,6 +382,7 @@ public class FetchPhase {
                                    Map<String, Set<String>> storedToRequestedFields,
                                    LeafReaderContext subReaderContext,
                                    CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader,
+                                   @Nullable SyntheticSourceLoader.Leaf syntheticSource,
                                    Map<String, Object> sharedCache) throws IOException {
         int subDocId = docId - subReaderContext.docBase;
         if (fieldsVisitor == null) {
@@ -331,6 +403,8 @@ public class FetchPhase {
             HitContext hitContext = new HitContext(hit, subReaderContext, subDocId, lookup.source(), sharedCache);
             if (fieldsVisitor.source() != null) {
                 hitContext.sourceLookup().setSource(fieldsVisitor.source());
+            } else if (syntheticSource != null) {
+                hitContext.sourceLookup().setSource(syntheticSource.source(subDocId));
             }
             return hitContext;
         }
@@ -558,10 +632,29 @@ public class FetchPhase {
     }
 
     /**
-     * Returns <code>true</code> if the provided <code>docs</code> are
-     * stored sequentially (Dn = Dn-1 + 1).
+     * Returns the index after the last of the <code>docs</code>, which are sorted by doc id, that belongs
+     * to the same leaf as the doc at index <code>from</code>.
      */
-    static boolean hasSequentialDocs(DocIdToIndex[] docs) {
-        return docs.length > 0 && docs[docs.length-1].docId - docs[0].docId == docs.length - 1;
+    static int endOfLeaf(DocIdToIndex[] docs, int from, LeafReaderContext leaf) {
+        int leafEnd = leaf.docBase + leaf.reader().maxDoc();
+        int to = from + 1;
+        while (to < docs.length && docs[to].docId < leafEnd) {
+            to++;
+        }
+        return to;
+    }
+
+    /**
+     * Returns <code>true</code> if the <code>docs</code> between <code>from</code> (inclusive) and <code>to</code>
+     * (exclusive), which are sorted by doc id, are numerous and dense enough that they are likely to share the
+     * compressed blocks of stored fields, so that it pays off to decompress whole blocks and read them sequentially.
+     */
+    static boolean useSequentialStoredFieldsReader(DocIdToIndex[] docs, int from, int to) {
+        int count = to - from;
+        if (count < SEQUENTIAL_ACCESS_MIN_DOCS) {
+            return false;
+        }
+        long span = (long) docs[to - 1].docId - docs[from].docId + 1;
+        return span <= (long) count * SEQUENTIAL_ACCESS_MAX_AVERAGE_GAP;
     }
 }
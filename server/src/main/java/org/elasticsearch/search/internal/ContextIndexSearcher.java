@@ -49,6 +49,9 @@ import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.CombinedBitSet;
 import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.search.DocValueFormat;
@@ -67,6 +70,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -78,9 +86,17 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      */
     private static int CHECK_CANCELLED_SCORER_INTERVAL = 1 << 11;
 
+    /**
+     * The maximum number of documents and segments that are grouped in a slice when segments are searched concurrently.
+     */
+    private static final int MAX_DOCS_PER_SLICE = 250_000;
+    private static final int MAX_SEGMENTS_PER_SLICE = 5;
+
     private AggregatedDfs aggregatedDfs;
     private QueryProfiler profiler;
     private MutableQueryTimeout cancellable;
+    private Executor sliceExecutor;
+    private LeafSlice[] concurrentSlices;
 
     public ContextIndexSearcher(IndexReader reader, Similarity similarity,
                                 QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
@@ -103,6 +119,49 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         this.profiler = profiler;
     }
 
+    /**
+     * Enables the concurrent search of segments: the leaves of the reader are grouped into slices that can be searched
+     * in parallel on the provided executor, see {@link #search(LeafSlice[], Weight, List)}.
+     */
+    public void setSliceExecutor(Executor sliceExecutor) {
+        this.sliceExecutor = sliceExecutor;
+        this.concurrentSlices = sliceExecutor == null ? null
+            : computeSlices(getIndexReader().leaves(), MAX_DOCS_PER_SLICE, MAX_SEGMENTS_PER_SLICE);
+    }
+
+    /**
+     * Groups consecutive leaves into slices. Unlike {@link IndexSearcher#slices(List)} the leaves are not reordered by size,
+     * so that the slices follow the order of the doc ids and hits that are merged across slices tie-break on the doc id
+     * exactly like a sequential search does.
+     */
+    static LeafSlice[] computeSlices(List<LeafReaderContext> leaves, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        final List<LeafSlice> slices = new ArrayList<>();
+        List<LeafReaderContext> group = new ArrayList<>();
+        long docsInGroup = 0;
+        for (LeafReaderContext ctx : leaves) {
+            group.add(ctx);
+            docsInGroup += ctx.reader().maxDoc();
+            if (docsInGroup >= maxDocsPerSlice || group.size() >= maxSegmentsPerSlice) {
+                slices.add(new LeafSlice(group.toArray(new LeafReaderContext[0])));
+                group = new ArrayList<>();
+                docsInGroup = 0;
+            }
+        }
+        if (group.isEmpty() == false) {
+            slices.add(new LeafSlice(group.toArray(new LeafReaderContext[0])));
+        }
+        return slices.toArray(new LeafSlice[0]);
+    }
+
+    /**
+     * Returns the slices that can be searched concurrently or {@code null} if concurrent search is disabled or
+     * the reader is too small to be split into more than one slice.
+     */
+    @Nullable
+    public LeafSlice[] getConcurrentSlices() {
+        return concurrentSlices != null && concurrentSlices.length > 1 ? concurrentSlices : null;
+    }
+
     /**
      * Add a {@link Runnable} that will be run on a regular basis while accessing documents in the
      * DirectoryReader but also while collecting them and check for query cancellation or timeout.
@@ -194,6 +253,68 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         result.topDocs(new TopDocsAndMaxScore(mergedTopDocs, Float.NaN), formats);
     }
 
+    /**
+     * Searches each slice with the collector at the same position in the provided list. Slices are picked up by the
+     * calling thread and by tasks forked to the slice executor, so the search makes progress even if the executor is
+     * saturated. The calling thread returns once every slice has been searched, and rethrows the first failure after
+     * the slices that were already started have completed. Remaining slices are skipped after a failure, which means
+     * that a {@link org.elasticsearch.tasks.TaskCancelledException} or a timeout stops the whole search.
+     * When profiling, the slices are searched sequentially by the calling thread since the profiled timers are not
+     * thread-safe.
+     */
+    public void search(LeafSlice[] slices, Weight weight, List<? extends Collector> collectors) throws IOException {
+        assert slices.length == collectors.size() : "expected one collector per slice";
+        if (profiler != null || sliceExecutor == null) {
+            for (int i = 0; i < slices.length; i++) {
+                search(Arrays.asList(slices[i].leaves), weight, collectors.get(i));
+            }
+            return;
+        }
+        final AtomicInteger nextSlice = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(slices.length);
+        final Runnable worker = () -> {
+            int slice;
+            while ((slice = nextSlice.getAndIncrement()) < slices.length) {
+                try {
+                    if (failure.get() == null) {
+                        for (LeafReaderContext ctx : slices[slice].leaves) {
+                            if (failure.get() != null) {
+                                break;
+                            }
+                            searchLeaf(ctx, weight, collectors.get(slice));
+                        }
+                    }
+                } catch (Exception e) {
+                    failure.accumulateAndGet(e, ExceptionsHelper::useOrSuppress);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < slices.length; i++) {
+            try {
+                sliceExecutor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // the calling thread searches the remaining slices
+                break;
+            }
+        }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThreadInterruptedException(e);
+        }
+        final Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
+        }
+    }
+
     @Override
     protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         for (LeafReaderContext ctx : leaves) { // search each subreader
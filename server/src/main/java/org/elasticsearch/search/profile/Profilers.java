@@ -21,6 +21,7 @@ package org.elasticsearch.search.profile;
 
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
+import org.elasticsearch.search.profile.fetch.FetchProfiler;
 import org.elasticsearch.search.profile.query.QueryProfiler;
 
 import java.util.ArrayList;
@@ -33,12 +34,14 @@ public final class Profilers {
     private final ContextIndexSearcher searcher;
     private final List<QueryProfiler> queryProfilers;
     private final AggregationProfiler aggProfiler;
+    private final FetchProfiler fetchProfiler;
 
     /** Sole constructor. This {@link Profilers} instance will initially wrap one {@link QueryProfiler}. */
     public Profilers(ContextIndexSearcher searcher) {
         this.searcher = searcher;
         this.queryProfilers = new ArrayList<>();
         this.aggProfiler = new AggregationProfiler();
+        this.fetchProfiler = new FetchProfiler();
         addQueryProfiler();
     }
 
@@ -65,4 +68,9 @@ public final class Profilers {
         return aggProfiler;
     }
 
+    /** Return the {@link FetchProfiler}. */
+    public FetchProfiler getFetchProfiler() {
+        return fetchProfiler;
+    }
+
 }
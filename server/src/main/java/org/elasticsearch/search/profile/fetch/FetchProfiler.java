@@ -0,0 +1,78 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile.fetch;
+
+import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.fetch.FetchSubPhaseProcessor;
+import org.elasticsearch.search.profile.AbstractProfileBreakdown;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the time spent in the fetch phase of a shard: loading the stored fields of the hits
+ * on one hand and running each {@link FetchSubPhase} on the other hand.
+ */
+public final class FetchProfiler {
+
+    private final AbstractProfileBreakdown<FetchTimingType> breakdown = new AbstractProfileBreakdown<>(FetchTimingType.class) {};
+    private final List<ProfilingFetchSubPhaseProcessor> processors = new ArrayList<>();
+    private int docsLoaded;
+    private int sequentialReaders;
+
+    public Timer getTimer(FetchTimingType timingType) {
+        return breakdown.getTimer(timingType);
+    }
+
+    /**
+     * Wraps the processor of the given sub-phase so that the time spent in it is recorded.
+     */
+    public FetchSubPhaseProcessor profile(FetchSubPhase subPhase, FetchSubPhaseProcessor processor) {
+        ProfilingFetchSubPhaseProcessor profiling = new ProfilingFetchSubPhaseProcessor(subPhase.getClass().getSimpleName(), processor);
+        processors.add(profiling);
+        return profiling;
+    }
+
+    /**
+     * Records that the stored fields of a leaf were loaded for {@code docs} documents, optionally
+     * through a reader that is optimized for sequential access.
+     */
+    public void markLeafLoaded(int docs, boolean sequentialReader) {
+        docsLoaded += docs;
+        if (sequentialReader) {
+            sequentialReaders++;
+        }
+    }
+
+    public ProfileResult getResult() {
+        List<ProfileResult> children = new ArrayList<>(processors.size());
+        long time = breakdown.toNodeTime();
+        for (ProfilingFetchSubPhaseProcessor processor : processors) {
+            ProfileResult child = processor.getResult();
+            children.add(child);
+            time += child.getTime();
+        }
+        Map<String, Object> debug = Map.of("docs_loaded", docsLoaded, "sequential_readers", sequentialReaders);
+        return new ProfileResult("fetch", "", breakdown.toBreakdownMap(), debug, time, children);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile.fetch;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.search.fetch.FetchSubPhase.HitContext;
+import org.elasticsearch.search.fetch.FetchSubPhaseProcessor;
+import org.elasticsearch.search.profile.AbstractProfileBreakdown;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.Timer;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * A {@link FetchSubPhaseProcessor} that records the time spent in the processor it wraps.
+ */
+final class ProfilingFetchSubPhaseProcessor implements FetchSubPhaseProcessor {
+
+    private final String type;
+    private final FetchSubPhaseProcessor delegate;
+    private final AbstractProfileBreakdown<FetchSubPhaseTimingType> breakdown =
+        new AbstractProfileBreakdown<>(FetchSubPhaseTimingType.class) {};
+
+    ProfilingFetchSubPhaseProcessor(String type, FetchSubPhaseProcessor delegate) {
+        this.type = type;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext readerContext) throws IOException {
+        Timer timer = breakdown.getTimer(FetchSubPhaseTimingType.NEXT_READER);
+        timer.start();
+        try {
+            delegate.setNextReader(readerContext);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Override
+    public void process(HitContext hitContext) throws IOException {
+        Timer timer = breakdown.getTimer(FetchSubPhaseTimingType.PROCESS);
+        timer.start();
+        try {
+            delegate.process(hitContext);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    ProfileResult getResult() {
+        return new ProfileResult(type, "", breakdown.toBreakdownMap(), Map.of(), breakdown.toNodeTime(), null);
+    }
+}
@@ -34,15 +34,20 @@ import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.action.search.SearchShardTask;
@@ -60,12 +65,15 @@ import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.profile.SearchProfileShardResults;
+import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
+import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.search.suggest.SuggestPhase;
@@ -79,6 +87,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createEarlyTerminationCollectorContext;
@@ -290,9 +299,13 @@ public class QueryPhase {
 
             try {
                 boolean shouldRescore;
+                final LeafSlice[] concurrentSlices = searcher.getConcurrentSlices();
                 // if we are optimizing sort and there are no other collectors
                 if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
                     shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
+                } else if (concurrentSlices != null && sortAndFormatsForRewrittenNumericSort == null
+                        && canSearchConcurrently(searchContext)) {
+                    shouldRescore = searchConcurrently(searchContext, searcher, query, concurrentSlices, timeoutSet);
                 } else {
                     shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
                 }
@@ -411,6 +424,224 @@ public class QueryPhase {
         return false; // no rescoring when sorting by field
     }
 
+    /**
+     * Returns whether the slices of the shard can be searched concurrently, which requires that every collector that the
+     * search needs can collect each slice separately and be merged afterwards. Scrolls, terminate_after, post filters,
+     * min_score, field collapsing, tracking scores when sorting by field and aggregations that don't
+     * {@link AggregatorFactories#supportsConcurrentExecution() support concurrent execution} use the sequential search.
+     */
+    static boolean canSearchConcurrently(SearchContext searchContext) {
+        if (searchContext.scrollContext() != null
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+                || searchContext.parsedPostFilter() != null
+                || searchContext.minimumScore() != null
+                || searchContext.collapse() != null
+                || (searchContext.sort() != null && searchContext.trackScores())) {
+            return false;
+        }
+        if (searchContext.aggregations() != null && searchContext.aggregations().factories().supportsConcurrentExecution() == false) {
+            return false;
+        }
+        final Map<Class<?>, Collector> queryCollectors = searchContext.queryCollectors();
+        return queryCollectors.isEmpty() || (queryCollectors.size() == 1 && queryCollectors.containsKey(AggregationPhase.class));
+    }
+
+    /**
+     * Searches the slices concurrently, each slice with its own top docs collector and aggregators. The top docs of the
+     * slices are merged and the hit counts are summed, the aggregations are merged by the {@link AggregationPhase}.
+     * This mirrors the top docs and total hits that {@link TopDocsCollectorContext} computes for the sequential search.
+     */
+    private static boolean searchConcurrently(SearchContext searchContext, ContextIndexSearcher searcher, Query query,
+                                              LeafSlice[] slices, boolean timeoutSet) throws IOException {
+        final IndexReader reader = searcher.getIndexReader();
+        final SortAndFormats sortAndFormats = searchContext.sort();
+        final int trackTotalHitsUpTo = searchContext.trackTotalHitsUpTo();
+        final boolean rescore = searchContext.rescore().isEmpty() == false;
+        final int hitCount = trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED ? -1 : shortcutTotalHitCount(reader, query);
+
+        // the total hits if they are not computed by the collectors
+        final TotalHits fixedTotalHits;
+        final CollectorManager<? extends TopDocsCollector<?>, ? extends TopDocs> topDocsManager;
+        int numHits = 0;
+        if (searchContext.size() == 0) {
+            topDocsManager = null;
+            if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+                // for bwc hit count is set to 0, it will be converted to -1 by the coordinating node
+                fixedTotalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+            } else if (hitCount != -1) {
+                fixedTotalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            } else {
+                fixedTotalHits = null;
+            }
+        } else {
+            numHits = Math.min(searchContext.from() + searchContext.size(), Math.max(1, reader.numDocs()));
+            if (rescore) {
+                assert sortAndFormats == null;
+                for (RescoreContext rescoreContext : searchContext.rescore()) {
+                    numHits = Math.max(numHits, rescoreContext.getWindowSize());
+                }
+            }
+            final int totalHitsThreshold;
+            if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0]))
+                    && TopDocsCollectorContext.hasInfMaxScore(query)) {
+                // disable max score optimization since we have a mandatory clause
+                // that doesn't track the maximum score
+                totalHitsThreshold = Integer.MAX_VALUE;
+                fixedTotalHits = null;
+            } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+                totalHitsThreshold = 1;
+                fixedTotalHits = new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+            } else if (hitCount == -1) {
+                totalHitsThreshold = trackTotalHitsUpTo;
+                fixedTotalHits = null;
+            } else {
+                totalHitsThreshold = 1;
+                fixedTotalHits = new TotalHits(hitCount, TotalHits.Relation.EQUAL_TO);
+            }
+            // the shared managers share the hits threshold and the minimum competitive score across slices
+            if (sortAndFormats == null) {
+                topDocsManager = TopScoreDocCollector.createSharedManager(numHits, searchContext.searchAfter(), totalHitsThreshold);
+            } else {
+                topDocsManager = TopFieldCollector.createSharedManager(sortAndFormats.sort, numHits, searchContext.searchAfter(),
+                    totalHitsThreshold);
+            }
+        }
+
+        final List<TopDocsCollector<?>> topDocsCollectors = new ArrayList<>(slices.length);
+        final List<TotalHitCountCollector> hitCountCollectors = new ArrayList<>(slices.length);
+        final List<EarlyTerminatingCollector> earlyTerminatingCollectors = new ArrayList<>(slices.length);
+        final List<InternalProfileCollector> profileCollectors = new ArrayList<>(slices.length);
+        final List<Collector> sliceCollectors = new ArrayList<>(slices.length);
+        final Collector mainAggsCollector = searchContext.queryCollectors().get(AggregationPhase.class);
+        for (int i = 0; i < slices.length; i++) {
+            Collector hitsCollector;
+            final String reason;
+            if (topDocsManager != null) {
+                TopDocsCollector<?> topDocsCollector = topDocsManager.newCollector();
+                topDocsCollectors.add(topDocsCollector);
+                hitsCollector = topDocsCollector;
+                reason = CollectorResult.REASON_SEARCH_TOP_HITS;
+            } else {
+                TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
+                hitCountCollectors.add(hitCountCollector);
+                if (fixedTotalHits != null) {
+                    hitsCollector = new EarlyTerminatingCollector(hitCountCollector, 0, false);
+                } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+                    hitsCollector = hitCountCollector;
+                } else {
+                    // each slice counts up to the threshold, the sum is only accurate if none of them terminated early
+                    EarlyTerminatingCollector earlyTerminatingCollector =
+                        new EarlyTerminatingCollector(hitCountCollector, trackTotalHitsUpTo, false);
+                    earlyTerminatingCollectors.add(earlyTerminatingCollector);
+                    hitsCollector = earlyTerminatingCollector;
+                }
+                reason = CollectorResult.REASON_SEARCH_COUNT;
+            }
+            // the first slice reuses the aggregators that were created when the aggregation phase was pre-processed
+            final Collector aggsCollector = mainAggsCollector == null ? null
+                : i == 0 ? mainAggsCollector
+                : AggregationPhase.createSliceCollector(searchContext);
+            if (searchContext.getProfilers() != null) {
+                final List<InternalProfileCollector> children = new ArrayList<>(2);
+                final InternalProfileCollector hitsProfileCollector =
+                    new InternalProfileCollector(hitsCollector, reason, Collections.emptyList());
+                children.add(hitsProfileCollector);
+                if (aggsCollector != null) {
+                    children.add((InternalProfileCollector) aggsCollector);
+                }
+                final InternalProfileCollector sliceProfileCollector = new InternalProfileCollector(
+                    MultiCollector.wrap(hitsProfileCollector, aggsCollector), CollectorResult.REASON_SEARCH_SLICE, children);
+                profileCollectors.add(sliceProfileCollector);
+                sliceCollectors.add(sliceProfileCollector);
+            } else {
+                sliceCollectors.add(MultiCollector.wrap(hitsCollector, aggsCollector));
+            }
+        }
+        if (searchContext.getProfilers() != null) {
+            final InternalProfileCollector profileCollector = new InternalProfileCollector(MultiCollector.wrap(sliceCollectors),
+                    CollectorResult.REASON_SEARCH_CONCURRENT, profileCollectors) {
+                @Override
+                public long getTime() {
+                    // this collector is never used to collect, it only groups the timings of the slices
+                    long time = 0;
+                    for (InternalProfileCollector sliceCollector : profileCollectors) {
+                        time += sliceCollector.getTime();
+                    }
+                    return time;
+                }
+            };
+            searchContext.getProfilers().getCurrentQueryProfiler().setCollector(profileCollector);
+        }
+
+        final QuerySearchResult queryResult = searchContext.queryResult();
+        try {
+            Weight weight = searcher.createWeight(searcher.rewrite(query), sliceCollectors.get(0).scoreMode(), 1f);
+            searcher.search(slices, weight, sliceCollectors);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+        }
+
+        if (topDocsManager == null) {
+            final TotalHits totalHits;
+            if (fixedTotalHits != null) {
+                totalHits = fixedTotalHits;
+            } else {
+                long count = 0;
+                for (TotalHitCountCollector hitCountCollector : hitCountCollectors) {
+                    count += hitCountCollector.getTotalHits();
+                }
+                boolean earlyTerminated = earlyTerminatingCollectors.stream().anyMatch(EarlyTerminatingCollector::hasEarlyTerminated);
+                totalHits = new TotalHits(count,
+                    earlyTerminated ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO : TotalHits.Relation.EQUAL_TO);
+            }
+            final TopDocs topDocs;
+            if (sortAndFormats != null) {
+                topDocs = new TopFieldDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, sortAndFormats.sort.getSort());
+            } else {
+                topDocs = new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS);
+            }
+            queryResult.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), null);
+            return false;
+        }
+
+        // slices are made of consecutive segments, so merging with the slice as the shard index
+        // tie-breaks on the doc id like the sequential search does
+        TopDocs topDocs;
+        if (sortAndFormats == null) {
+            final TopDocs[] sliceTopDocs = new TopDocs[topDocsCollectors.size()];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopDocs[i] = topDocsCollectors.get(i).topDocs();
+            }
+            topDocs = TopDocs.merge(0, numHits, sliceTopDocs, true);
+        } else {
+            final TopFieldDocs[] sliceTopDocs = new TopFieldDocs[topDocsCollectors.size()];
+            for (int i = 0; i < sliceTopDocs.length; i++) {
+                sliceTopDocs[i] = (TopFieldDocs) topDocsCollectors.get(i).topDocs();
+            }
+            topDocs = TopDocs.merge(sortAndFormats.sort, 0, numHits, sliceTopDocs, true);
+        }
+        // ES sets the shard index later during the reduce stage
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        if (fixedTotalHits != null) {
+            topDocs.totalHits = fixedTotalHits;
+        }
+        final float maxScore;
+        if (sortAndFormats == null && topDocs.scoreDocs.length > 0) {
+            maxScore = topDocs.scoreDocs[0].score;
+        } else {
+            maxScore = Float.NaN;
+        }
+        queryResult.topDocs(new TopDocsAndMaxScore(topDocs, maxScore), sortAndFormats == null ? null : sortAndFormats.formats);
+        return rescore;
+    }
+
     private static Query tryRewriteLongSort(SearchContext searchContext, IndexReader reader,
                                             Query query, boolean hasFilterCollector) throws IOException {
         if ((searchContext.from() + searchContext.size()) <= 0) return null;
@@ -19,13 +19,15 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.zip.DeflaterOutputStream;
@@ -42,19 +44,50 @@ import java.util.zip.DeflaterOutputStream;
  *
  * {@link CompressibleBytesOutputStream#close()} will NOT close the underlying stream. The byte stream passed
  * in the constructor must be closed individually.
+ *
+ * If a {@link StatsTracker} is given, the number of bytes before and after compression as well as the time spent
+ * compressing them are recorded when the bytes are materialized.
  */
 final class CompressibleBytesOutputStream extends StreamOutput {
 
+    // the serialized bytes are buffered before they are compressed so that compression is only timed once per buffer
+    private static final int TIMING_BUFFER_SIZE = 4096;
+
     private final OutputStream stream;
     private final BytesStream bytesStreamOutput;
     private final boolean shouldCompress;
+    @Nullable
+    private final StatsTracker statsTracker;
+    @Nullable
+    private final TimedOutputStream timedStream;
+    private final long startPosition;
 
     CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+        this(bytesStreamOutput, shouldCompress ? Compression.Scheme.DEFLATE : null, null);
+    }
+
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput, @Nullable Compression.Scheme compressionScheme,
+                                  @Nullable StatsTracker statsTracker) throws IOException {
         this.bytesStreamOutput = bytesStreamOutput;
-        this.shouldCompress = shouldCompress;
+        this.shouldCompress = compressionScheme != null;
+        this.statsTracker = statsTracker;
         if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(bytesStreamOutput));
+            // the compressor writes its header as soon as the stream is opened, which counts as compressed bytes
+            final long position = bytesStreamOutput.position();
+            final OutputStream compressed =
+                compressionScheme.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(bytesStreamOutput));
+            if (statsTracker != null) {
+                this.startPosition = position;
+                this.timedStream = new TimedOutputStream(compressed);
+                this.stream = new BufferedOutputStream(timedStream, TIMING_BUFFER_SIZE);
+            } else {
+                this.startPosition = -1;
+                this.timedStream = null;
+                this.stream = compressed;
+            }
         } else {
+            this.startPosition = -1;
+            this.timedStream = null;
             this.stream = bytesStreamOutput;
         }
     }
@@ -71,6 +104,10 @@ final class CompressibleBytesOutputStream extends StreamOutput {
         // passed to the deflater stream.
         if (shouldCompress) {
             stream.close();
+            if (timedStream != null) {
+                final long compressedBytes = bytesStreamOutput.position() - startPosition;
+                statsTracker.markBytesCompressed(timedStream.uncompressedBytes, compressedBytes, timedStream.compressionTimeInNanos);
+            }
         }
 
         return bytesStreamOutput.bytes();
@@ -103,4 +140,47 @@ final class CompressibleBytesOutputStream extends StreamOutput {
     public void reset() throws IOException {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Counts the bytes written to the compressing stream and the time spent in it.
+     */
+    private static final class TimedOutputStream extends FilterOutputStream {
+
+        private long uncompressedBytes;
+        private long compressionTimeInNanos;
+
+        TimedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            final long startTime = System.nanoTime();
+            out.write(b);
+            compressionTimeInNanos += System.nanoTime() - startTime;
+            uncompressedBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final long startTime = System.nanoTime();
+            out.write(b, off, len);
+            compressionTimeInNanos += System.nanoTime() - startTime;
+            uncompressedBytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long startTime = System.nanoTime();
+            out.flush();
+            compressionTimeInNanos += System.nanoTime() - startTime;
+        }
+
+        @Override
+        public void close() throws IOException {
+            final long startTime = System.nanoTime();
+            out.close();
+            compressionTimeInNanos += System.nanoTime() - startTime;
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.Lz4Compressor;
+
+import java.util.Locale;
+
+/**
+ * The settings that decide which transport messages are compressed and how.
+ */
+public final class Compression {
+
+    private Compression() {
+    }
+
+    /**
+     * The algorithms that transport messages can be compressed with. The algorithm of a compressed message is identified by the header
+     * of its compressed content, so that the receiver does not need to know in advance which one the sender picked.
+     */
+    public enum Scheme {
+        LZ4(new Lz4Compressor()),
+        DEFLATE(CompressorFactory.COMPRESSOR);
+
+        /**
+         * The first version that can read messages that are compressed with {@link #LZ4}. Messages to older nodes are compressed with
+         * {@link #DEFLATE} instead.
+         */
+        static final Version LZ4_VERSION = Version.V_8_0_0;
+
+        private final Compressor compressor;
+
+        Scheme(Compressor compressor) {
+            this.compressor = compressor;
+        }
+
+        Compressor compressor() {
+            return compressor;
+        }
+
+        /**
+         * Returns the scheme to compress messages to a node of the given version with, falling back to {@link #DEFLATE} if that node
+         * cannot read this scheme.
+         */
+        Scheme forVersion(Version version) {
+            if (this == LZ4 && version.before(LZ4_VERSION)) {
+                return DEFLATE;
+            }
+            return this;
+        }
+
+        /**
+         * Returns the scheme that the given compressed content was compressed with, or {@code null} if it does not start with the
+         * header of any of the schemes.
+         */
+        static Scheme fromCompressedContent(BytesReference content) {
+            for (Scheme scheme : values()) {
+                if (scheme.compressor.isCompressed(content)) {
+                    return scheme;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The number of bytes of compressed content needed to tell which scheme it was compressed with.
+         */
+        static int headerLength() {
+            int headerLength = 0;
+            for (Scheme scheme : values()) {
+                headerLength = Math.max(headerLength, scheme.compressor.headerLength());
+            }
+            return headerLength;
+        }
+
+        public static Scheme fromString(String scheme) {
+            switch (scheme) {
+                case "lz4":
+                    return LZ4;
+                case "deflate":
+                    return DEFLATE;
+                default:
+                    throw new IllegalArgumentException("unknown compression scheme [" + scheme + "], must be one of [lz4, deflate]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Which transport messages are compressed.
+     */
+    public enum Enabled {
+        /**
+         * Compress all requests, and the responses to compressed requests.
+         */
+        TRUE,
+        /**
+         * Only compress the requests that carry raw documents, see {@link RawIndexingDataTransportRequest}, and their responses.
+         */
+        INDEXING_DATA,
+        /**
+         * Do not compress requests.
+         */
+        FALSE;
+
+        public static Enabled fromString(String enabled) {
+            switch (enabled) {
+                case "true":
+                    return TRUE;
+                case "indexing_data":
+                    return INDEXING_DATA;
+                case "false":
+                    return FALSE;
+                default:
+                    throw new IllegalArgumentException("unknown value for transport compression [" + enabled
+                        + "], must be one of [true, indexing_data, false]");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
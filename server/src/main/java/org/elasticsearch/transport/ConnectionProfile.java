@@ -46,7 +46,8 @@ public final class ConnectionProfile {
         if (profile == null) {
             return fallbackProfile;
         } else if (profile.getConnectTimeout() != null && profile.getHandshakeTimeout() != null
-            && profile.getPingInterval() != null && profile.getCompressionEnabled() != null) {
+            && profile.getPingInterval() != null && profile.getCompressionEnabled() != null
+            && profile.getCompressionScheme() != null) {
             return profile;
         } else {
             ConnectionProfile.Builder builder = new ConnectionProfile.Builder(profile);
@@ -62,6 +63,9 @@ public final class ConnectionProfile {
             if (profile.getCompressionEnabled() == null) {
                 builder.setCompressionEnabled(fallbackProfile.getCompressionEnabled());
             }
+            if (profile.getCompressionScheme() == null) {
+                builder.setCompressionScheme(fallbackProfile.getCompressionScheme());
+            }
             return builder.build();
         }
     }
@@ -83,6 +87,7 @@ public final class ConnectionProfile {
         builder.setHandshakeTimeout(TransportSettings.CONNECT_TIMEOUT.get(settings));
         builder.setPingInterval(TransportSettings.PING_SCHEDULE.get(settings));
         builder.setCompressionEnabled(TransportSettings.TRANSPORT_COMPRESS.get(settings));
+        builder.setCompressionScheme(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings));
         builder.addConnections(connectionsPerNodeBulk, TransportRequestOptions.Type.BULK);
         builder.addConnections(connectionsPerNodePing, TransportRequestOptions.Type.PING);
         // if we are not master eligible we don't need a dedicated channel to publish the state
@@ -99,7 +104,8 @@ public final class ConnectionProfile {
      */
     public static ConnectionProfile buildSingleChannelProfile(TransportRequestOptions.Type channelType, @Nullable TimeValue connectTimeout,
                                                               @Nullable TimeValue handshakeTimeout, @Nullable TimeValue pingInterval,
-                                                              @Nullable Boolean compressionEnabled) {
+                                                              @Nullable Compression.Enabled compressionEnabled,
+                                                              @Nullable Compression.Scheme compressionScheme) {
         Builder builder = new Builder();
         builder.addConnections(1, channelType);
         final EnumSet<TransportRequestOptions.Type> otherTypes = EnumSet.allOf(TransportRequestOptions.Type.class);
@@ -117,6 +123,9 @@ public final class ConnectionProfile {
         if (compressionEnabled != null) {
             builder.setCompressionEnabled(compressionEnabled);
         }
+        if (compressionScheme != null) {
+            builder.setCompressionScheme(compressionScheme);
+        }
         return builder.build();
     }
 
@@ -125,16 +134,19 @@ public final class ConnectionProfile {
     private final TimeValue connectTimeout;
     private final TimeValue handshakeTimeout;
     private final TimeValue pingInterval;
-    private final Boolean compressionEnabled;
+    private final Compression.Enabled compressionEnabled;
+    private final Compression.Scheme compressionScheme;
 
     private ConnectionProfile(List<ConnectionTypeHandle> handles, int numConnections, TimeValue connectTimeout,
-                              TimeValue handshakeTimeout, TimeValue pingInterval, Boolean compressionEnabled) {
+                              TimeValue handshakeTimeout, TimeValue pingInterval, Compression.Enabled compressionEnabled,
+                              Compression.Scheme compressionScheme) {
         this.handles = handles;
         this.numConnections = numConnections;
         this.connectTimeout = connectTimeout;
         this.handshakeTimeout = handshakeTimeout;
         this.pingInterval = pingInterval;
         this.compressionEnabled = compressionEnabled;
+        this.compressionScheme = compressionScheme;
     }
 
     /**
@@ -146,7 +158,8 @@ public final class ConnectionProfile {
         private int numConnections = 0;
         private TimeValue connectTimeout;
         private TimeValue handshakeTimeout;
-        private Boolean compressionEnabled;
+        private Compression.Enabled compressionEnabled;
+        private Compression.Scheme compressionScheme;
         private TimeValue pingInterval;
 
         /** create an empty builder */
@@ -161,6 +174,7 @@ public final class ConnectionProfile {
             connectTimeout = source.getConnectTimeout();
             handshakeTimeout = source.getHandshakeTimeout();
             compressionEnabled = source.getCompressionEnabled();
+            compressionScheme = source.getCompressionScheme();
             pingInterval = source.getPingInterval();
         }
         /**
@@ -196,11 +210,19 @@ public final class ConnectionProfile {
         /**
          * Sets compression enabled for this connection profile
          */
-        public Builder setCompressionEnabled(boolean compressionEnabled) {
+        public Builder setCompressionEnabled(Compression.Enabled compressionEnabled) {
             this.compressionEnabled = compressionEnabled;
             return this;
         }
 
+        /**
+         * Sets the compression scheme for this connection profile
+         */
+        public Builder setCompressionScheme(Compression.Scheme compressionScheme) {
+            this.compressionScheme = compressionScheme;
+            return this;
+        }
+
         /**
          * Adds a number of connections for one or more types. Each type can only be added once.
          * @param numConnections the number of connections to use in the pool for the given connection types
@@ -232,7 +254,7 @@ public final class ConnectionProfile {
                 throw new IllegalStateException("not all types are added for this connection profile - missing types: " + types);
             }
             return new ConnectionProfile(Collections.unmodifiableList(handles), numConnections, connectTimeout, handshakeTimeout,
-                pingInterval, compressionEnabled);
+                pingInterval, compressionEnabled, compressionScheme);
         }
 
     }
@@ -259,13 +281,21 @@ public final class ConnectionProfile {
     }
 
     /**
-     * Returns boolean indicating if compression is enabled or <code>null</code> if no explicit compression
+     * Returns which requests are compressed or <code>null</code> if no explicit compression
      * is set on this profile.
      */
-    public Boolean getCompressionEnabled() {
+    public Compression.Enabled getCompressionEnabled() {
         return compressionEnabled;
     }
 
+    /**
+     * Returns the scheme that requests are compressed with or <code>null</code> if no explicit compression scheme
+     * is set on this profile.
+     */
+    public Compression.Scheme getCompressionScheme() {
+        return compressionScheme;
+    }
+
     /**
      * Returns the total number of connections for this profile
      */
@@ -20,6 +20,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
@@ -36,6 +37,8 @@ public class Header {
     private final Version version;
     private final long requestId;
     private final byte status;
+    // Set by the decoder once it has read the header of the compressed content
+    private Compression.Scheme compressionScheme;
     // These are directly set by tests
     String actionName;
     Tuple<Map<String, String>, Map<String, Set<String>>> headers;
@@ -83,6 +86,19 @@ public class Header {
         return TransportStatus.isCompress(status);
     }
 
+    /**
+     * Returns the scheme that the content of this message was compressed with, or {@code null} if it is not compressed.
+     */
+    @Nullable
+    Compression.Scheme getCompressionScheme() {
+        return compressionScheme;
+    }
+
+    void setCompressionScheme(Compression.Scheme compressionScheme) {
+        assert isCompressed();
+        this.compressionScheme = compressionScheme;
+    }
+
     public String getActionName() {
         return actionName;
     }
@@ -112,6 +128,6 @@ public class Header {
     @Override
     public String toString() {
         return "Header{" + networkMessageSize + "}{" + version + "}{" + requestId + "}{" + isRequest() + "}{" + isError() + "}{"
-                + isHandshake() + "}{" + isCompressed() + "}{" + actionName + "}";
+                + isHandshake() + "}{" + isCompressed() + "}{" + compressionScheme + "}{" + actionName + "}";
     }
 }
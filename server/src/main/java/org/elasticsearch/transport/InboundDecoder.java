@@ -20,6 +20,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -37,14 +38,22 @@ public class InboundDecoder implements Releasable {
 
     private final Version version;
     private final PageCacheRecycler recycler;
+    @Nullable
+    private final StatsTracker statsTracker;
+    private Header compressedHeader;
     private TransportDecompressor decompressor;
     private int totalNetworkSize = -1;
     private int bytesConsumed = 0;
     private boolean isClosed = false;
 
     public InboundDecoder(Version version, PageCacheRecycler recycler) {
+        this(version, recycler, null);
+    }
+
+    public InboundDecoder(Version version, PageCacheRecycler recycler, @Nullable StatsTracker statsTracker) {
         this.version = version;
         this.recycler = recycler;
+        this.statsTracker = statsTracker;
     }
 
     public int decode(ReleasableBytesReference reference, Consumer<Object> fragmentConsumer) throws IOException {
@@ -75,7 +84,8 @@ public class InboundDecoder implements Releasable {
                     Header header = readHeader(version, messageLength, reference);
                     bytesConsumed += headerBytesToRead;
                     if (header.isCompressed()) {
-                        decompressor = new TransportDecompressor(recycler);
+                        // the decompressor is created once the header of the compressed content tells which scheme it uses
+                        compressedHeader = header;
                     }
                     fragmentConsumer.accept(header);
 
@@ -86,6 +96,13 @@ public class InboundDecoder implements Releasable {
                 }
             }
         } else {
+            if (compressedHeader != null && decompressor == null) {
+                decompressor = TransportDecompressor.getDecompressor(recycler, reference);
+                if (decompressor == null) {
+                    return 0;
+                }
+                compressedHeader.setCompressionScheme(decompressor.getScheme());
+            }
             // There are a minimum number of bytes required to start decompression
             if (decompressor != null && decompressor.canDecompress(reference.length()) == false) {
                 return 0;
@@ -99,11 +116,18 @@ public class InboundDecoder implements Releasable {
                 retainedContent = reference.retain();
             }
             if (decompressor != null) {
+                final long startTimeInNanos = System.nanoTime();
                 decompress(retainedContent);
+                final long decompressionTimeInNanos = System.nanoTime() - startTimeInNanos;
+                long decompressedBytes = 0;
                 ReleasableBytesReference decompressed;
                 while ((decompressed = decompressor.pollDecompressedPage()) != null) {
+                    decompressedBytes += decompressed.length();
                     fragmentConsumer.accept(decompressed);
                 }
+                if (statsTracker != null) {
+                    statsTracker.markBytesDecompressed(bytesToConsume, decompressedBytes, decompressionTimeInNanos);
+                }
             } else {
                 fragmentConsumer.accept(retainedContent);
             }
@@ -129,6 +153,7 @@ public class InboundDecoder implements Releasable {
     private void cleanDecodeState() {
         IOUtils.closeWhileHandlingException(decompressor);
         decompressor = null;
+        compressedHeader = null;
         totalNetworkSize = -1;
         bytesConsumed = 0;
     }
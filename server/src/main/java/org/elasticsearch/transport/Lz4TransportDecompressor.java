@@ -0,0 +1,199 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.Lz4Compressor;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Decompresses content that was compressed with {@link Lz4Compressor}. Blocks that arrive in a single piece are decompressed
+ * directly from the network buffer, blocks that are split across reads are first collected into a buffer.
+ */
+public class Lz4TransportDecompressor implements TransportDecompressor {
+
+    // blocks are decompressed into this buffer before they are copied into pages, it is only used within a call to decompress
+    private static final ThreadLocal<byte[]> uncompressedBuffer = ThreadLocal.withInitial(() -> new byte[Lz4Compressor.BLOCK_SIZE]);
+
+    private static final Lz4Compressor COMPRESSOR = (Lz4Compressor) Compression.Scheme.LZ4.compressor();
+
+    private final PageCacheRecycler recycler;
+    private final ArrayDeque<Recycler.V<byte[]>> pages;
+    private int pageOffset = PageCacheRecycler.BYTE_PAGE_SIZE;
+    private boolean hasReadHeader = false;
+    private boolean isEOS = false;
+
+    private final byte[] blockHeader = new byte[Lz4Compressor.BLOCK_HEADER_LENGTH];
+    private int blockHeaderOffset = 0;
+    // the uncompressed length of the current block, or -1 if its header has not been read yet
+    private int uncompressedLength = -1;
+    private int compressedLength;
+    private byte[] compressedBlock;
+    private int compressedBlockOffset = 0;
+
+    public Lz4TransportDecompressor(PageCacheRecycler recycler) {
+        this.recycler = recycler;
+        pages = new ArrayDeque<>(4);
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasReadHeader == false) {
+            if (COMPRESSOR.isCompressed(bytesReference) == false) {
+                throw TransportDecompressor.createIllegalState(bytesReference);
+            }
+            hasReadHeader = true;
+            int headerLength = COMPRESSOR.headerLength();
+            bytesReference = bytesReference.slice(headerLength, bytesReference.length() - headerLength);
+            bytesConsumed += headerLength;
+        }
+
+        BytesRefIterator refIterator = bytesReference.iterator();
+        BytesRef ref;
+        while (isEOS == false && (ref = refIterator.next()) != null) {
+            int offset = ref.offset;
+            final int end = ref.offset + ref.length;
+            while (isEOS == false && offset < end) {
+                if (uncompressedLength == -1) {
+                    final int toCopy = Math.min(end - offset, blockHeader.length - blockHeaderOffset);
+                    System.arraycopy(ref.bytes, offset, blockHeader, blockHeaderOffset, toCopy);
+                    offset += toCopy;
+                    blockHeaderOffset += toCopy;
+                    if (blockHeaderOffset == blockHeader.length) {
+                        readBlockHeader();
+                    }
+                } else if (compressedBlockOffset == 0 && end - offset >= compressedLength) {
+                    // the whole block is available so there is no need to copy it
+                    decompressBlock(ref.bytes, offset);
+                    offset += compressedLength;
+                } else {
+                    if (compressedBlock == null) {
+                        compressedBlock = new byte[Lz4Compressor.maxCompressedLength(Lz4Compressor.BLOCK_SIZE)];
+                    }
+                    final int toCopy = Math.min(end - offset, compressedLength - compressedBlockOffset);
+                    System.arraycopy(ref.bytes, offset, compressedBlock, compressedBlockOffset, toCopy);
+                    offset += toCopy;
+                    compressedBlockOffset += toCopy;
+                    if (compressedBlockOffset == compressedLength) {
+                        decompressBlock(compressedBlock, 0);
+                    }
+                }
+            }
+            bytesConsumed += offset - ref.offset;
+        }
+
+        return bytesConsumed;
+    }
+
+    private void readBlockHeader() throws IOException {
+        final int uncompressed = readInt(0);
+        final int compressed = readInt(Integer.BYTES);
+        blockHeaderOffset = 0;
+        if (uncompressed == 0 && compressed == 0) {
+            isEOS = true;
+        } else if (uncompressed <= 0 || uncompressed > Lz4Compressor.BLOCK_SIZE
+            || compressed <= 0 || compressed > Lz4Compressor.maxCompressedLength(uncompressed)) {
+            throw new IOException("corrupted LZ4 block header, uncompressed length [" + uncompressed
+                + "], compressed length [" + compressed + "]");
+        } else {
+            uncompressedLength = uncompressed;
+            compressedLength = compressed;
+        }
+    }
+
+    private int readInt(int offset) {
+        return ((blockHeader[offset] & 0xFF) << 24) | ((blockHeader[offset + 1] & 0xFF) << 16)
+            | ((blockHeader[offset + 2] & 0xFF) << 8) | (blockHeader[offset + 3] & 0xFF);
+    }
+
+    private void decompressBlock(byte[] bytes, int offset) throws IOException {
+        final byte[] uncompressed = uncompressedBuffer.get();
+        try {
+            LZ4.decompress(new ByteArrayDataInput(bytes, offset, compressedLength), uncompressedLength, uncompressed, 0);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Exception while decompressing LZ4 block", e);
+        }
+        int copied = 0;
+        while (copied < uncompressedLength) {
+            if (pageOffset == PageCacheRecycler.BYTE_PAGE_SIZE) {
+                pageOffset = 0;
+                pages.add(recycler.bytePage(false));
+            }
+            final int toCopy = Math.min(uncompressedLength - copied, PageCacheRecycler.BYTE_PAGE_SIZE - pageOffset);
+            System.arraycopy(uncompressed, copied, pages.getLast().v(), pageOffset, toCopy);
+            pageOffset += toCopy;
+            copied += toCopy;
+        }
+        uncompressedLength = -1;
+        compressedBlockOffset = 0;
+    }
+
+    @Override
+    public boolean canDecompress(int bytesAvailable) {
+        return hasReadHeader || bytesAvailable >= COMPRESSOR.headerLength();
+    }
+
+    @Override
+    public boolean isEOS() {
+        return isEOS;
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage() {
+        if (pages.isEmpty()) {
+            return null;
+        } else if (pages.size() == 1) {
+            if (isEOS()) {
+                Recycler.V<byte[]> page = pages.pollFirst();
+                ReleasableBytesReference reference = new ReleasableBytesReference(new BytesArray(page.v(), 0, pageOffset), page);
+                pageOffset = 0;
+                return reference;
+            } else {
+                return null;
+            }
+        } else {
+            Recycler.V<byte[]> page = pages.pollFirst();
+            return new ReleasableBytesReference(new BytesArray(page.v()), page);
+        }
+    }
+
+    @Override
+    public Compression.Scheme getScheme() {
+        return Compression.Scheme.LZ4;
+    }
+
+    @Override
+    public void close() {
+        for (Recycler.V<byte[]> page : pages) {
+            page.close();
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -33,13 +34,23 @@ import java.io.IOException;
 abstract class OutboundMessage extends NetworkMessage {
 
     private final Writeable message;
+    @Nullable
+    private final Compression.Scheme compressionScheme;
 
-    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId, Writeable message) {
+    OutboundMessage(ThreadContext threadContext, Version version, byte status, long requestId,
+                    @Nullable Compression.Scheme compressionScheme, Writeable message) {
         super(threadContext, version, status, requestId);
+        assert TransportStatus.isCompress(status) == (compressionScheme != null);
+        // the receiving node may not be able to read every scheme
+        this.compressionScheme = compressionScheme == null ? null : compressionScheme.forVersion(version);
         this.message = message;
     }
 
     BytesReference serialize(BytesStreamOutput bytesStream) throws IOException {
+        return serialize(bytesStream, null);
+    }
+
+    BytesReference serialize(BytesStreamOutput bytesStream, @Nullable StatsTracker statsTracker) throws IOException {
         bytesStream.setVersion(version);
         bytesStream.skip(TcpHeader.headerSize(version));
 
@@ -53,8 +64,7 @@ abstract class OutboundMessage extends NetworkMessage {
             variableHeaderLength = Math.toIntExact(bytesStream.position() - preHeaderPosition);
         }
 
-        try (CompressibleBytesOutputStream stream =
-                 new CompressibleBytesOutputStream(bytesStream, TransportStatus.isCompress(status))) {
+        try (CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bytesStream, compressionScheme, statsTracker)) {
             stream.setVersion(version);
             if (variableHeaderLength == -1) {
                 writeVariableHeader(stream);
@@ -103,8 +113,9 @@ abstract class OutboundMessage extends NetworkMessage {
         private final String action;
 
         Request(ThreadContext threadContext, Writeable message, Version version, String action, long requestId,
-                boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+                boolean isHandshake, @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme != null, isHandshake, message), requestId,
+                OutboundMessage.canCompress(message) ? compressionScheme : null, message);
             this.action = action;
         }
 
@@ -134,8 +145,10 @@ abstract class OutboundMessage extends NetworkMessage {
 
     static class Response extends OutboundMessage {
 
-        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake, boolean compress) {
-            super(threadContext, version, setStatus(compress, isHandshake, message), requestId, message);
+        Response(ThreadContext threadContext, Writeable message, Version version, long requestId, boolean isHandshake,
+                 @Nullable Compression.Scheme compressionScheme) {
+            super(threadContext, version, setStatus(compressionScheme != null, isHandshake, message), requestId, compressionScheme,
+                message);
         }
 
         private static byte setStatus(boolean compress, boolean isHandshake, Writeable message) {
@@ -28,6 +28,12 @@ public class StatsTracker {
     private final LongAdder bytesRead = new LongAdder();
     private final LongAdder messagesReceived = new LongAdder();
     private final MeanMetric writeBytesMetric = new MeanMetric();
+    private final LongAdder uncompressedBytesWritten = new LongAdder();
+    private final LongAdder compressedBytesWritten = new LongAdder();
+    private final LongAdder compressionTimeInNanos = new LongAdder();
+    private final LongAdder compressedBytesRead = new LongAdder();
+    private final LongAdder uncompressedBytesRead = new LongAdder();
+    private final LongAdder decompressionTimeInNanos = new LongAdder();
 
     public void markBytesRead(long bytesReceived) {
         bytesRead.add(bytesReceived);
@@ -41,6 +47,18 @@ public class StatsTracker {
         writeBytesMetric.inc(bytesWritten);
     }
 
+    public void markBytesCompressed(long uncompressedBytes, long compressedBytes, long timeInNanos) {
+        uncompressedBytesWritten.add(uncompressedBytes);
+        compressedBytesWritten.add(compressedBytes);
+        compressionTimeInNanos.add(timeInNanos);
+    }
+
+    public void markBytesDecompressed(long compressedBytes, long uncompressedBytes, long timeInNanos) {
+        compressedBytesRead.add(compressedBytes);
+        uncompressedBytesRead.add(uncompressedBytes);
+        decompressionTimeInNanos.add(timeInNanos);
+    }
+
     public long getBytesRead() {
         return bytesRead.sum();
     }
@@ -49,7 +67,6 @@ public class StatsTracker {
         return messagesReceived.sum();
     }
 
-
     public MeanMetric getWriteBytes() {
         return writeBytesMetric;
     }
@@ -61,4 +78,28 @@ public class StatsTracker {
     public long getMessagesSent() {
         return writeBytesMetric.count();
     }
+
+    public long getUncompressedBytesWritten() {
+        return uncompressedBytesWritten.sum();
+    }
+
+    public long getCompressedBytesWritten() {
+        return compressedBytesWritten.sum();
+    }
+
+    public long getCompressionTimeInNanos() {
+        return compressionTimeInNanos.sum();
+    }
+
+    public long getCompressedBytesRead() {
+        return compressedBytesRead.sum();
+    }
+
+    public long getUncompressedBytesRead() {
+        return uncompressedBytesRead.sum();
+    }
+
+    public long getDecompressionTimeInNanos() {
+        return decompressionTimeInNanos.sum();
+    }
 }
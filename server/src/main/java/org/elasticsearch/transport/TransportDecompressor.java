@@ -19,130 +19,78 @@
 
 package org.elasticsearch.transport;
 
-import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.BytesRefIterator;
-import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
-import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.util.PageCacheRecycler;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.ArrayDeque;
-import java.util.zip.DataFormatException;
-import java.util.zip.Inflater;
 
-public class TransportDecompressor implements Closeable {
-
-    private final Inflater inflater;
-    private final PageCacheRecycler recycler;
-    private final ArrayDeque<Recycler.V<byte[]>> pages;
-    private int pageOffset = PageCacheRecycler.BYTE_PAGE_SIZE;
-    private boolean hasReadHeader = false;
+/**
+ * Decompresses the content of a compressed transport message into pages as it is received from the network.
+ */
+public interface TransportDecompressor extends Closeable {
 
-    public TransportDecompressor(PageCacheRecycler recycler) {
-        this.recycler = recycler;
-        inflater = new Inflater(true);
-        pages = new ArrayDeque<>(4);
-    }
+    /**
+     * Decompresses the given bytes, which may only be part of the compressed content, and returns the number of bytes consumed.
+     */
+    int decompress(BytesReference bytesReference) throws IOException;
 
-    public int decompress(BytesReference bytesReference) throws IOException {
-        int bytesConsumed = 0;
-        if (hasReadHeader == false) {
-            if (CompressorFactory.COMPRESSOR.isCompressed(bytesReference) == false) {
-                int maxToRead = Math.min(bytesReference.length(), 10);
-                StringBuilder sb = new StringBuilder("stream marked as compressed, but no compressor found, first [")
-                    .append(maxToRead).append("] content bytes out of [").append(bytesReference.length())
-                    .append("] readable bytes with message size [").append(bytesReference.length()).append("] ").append("] are [");
-                for (int i = 0; i < maxToRead; i++) {
-                    sb.append(bytesReference.get(i)).append(",");
-                }
-                sb.append("]");
-                throw new IllegalStateException(sb.toString());
-            }
-            hasReadHeader = true;
-            int headerLength = CompressorFactory.COMPRESSOR.headerLength();
-            bytesReference = bytesReference.slice(headerLength, bytesReference.length() - headerLength);
-            bytesConsumed += headerLength;
-        }
+    /**
+     * Returns whether the given number of bytes is enough to start decompressing the content.
+     */
+    boolean canDecompress(int bytesAvailable);
 
-        BytesRefIterator refIterator = bytesReference.iterator();
-        BytesRef ref;
-        while ((ref = refIterator.next()) != null) {
-            inflater.setInput(ref.bytes, ref.offset, ref.length);
-            bytesConsumed += ref.length;
-            boolean continueInflating = true;
-            while (continueInflating) {
-                final Recycler.V<byte[]> page;
-                final boolean isNewPage = pageOffset == PageCacheRecycler.BYTE_PAGE_SIZE;
-                if (isNewPage) {
-                    pageOffset = 0;
-                    page = recycler.bytePage(false);
-                } else {
-                    page = pages.getLast();
-                }
-                byte[] output = page.v();
-                try {
-                    int bytesInflated = inflater.inflate(output, pageOffset, PageCacheRecycler.BYTE_PAGE_SIZE - pageOffset);
-                    pageOffset += bytesInflated;
-                    if (isNewPage) {
-                        if (bytesInflated == 0) {
-                            page.close();
-                            pageOffset = PageCacheRecycler.BYTE_PAGE_SIZE;
-                        } else {
-                            pages.add(page);
-                        }
-                    }
-                } catch (DataFormatException e) {
-                    throw new IOException("Exception while inflating bytes", e);
-                }
-                if (inflater.needsInput()) {
-                    continueInflating = false;
-                }
-                if (inflater.finished()) {
-                    bytesConsumed -= inflater.getRemaining();
-                    continueInflating = false;
-                }
-                assert inflater.needsDictionary() == false;
-            }
-        }
+    /**
+     * Returns whether the end of the compressed content has been reached.
+     */
+    boolean isEOS();
 
-        return bytesConsumed;
-    }
+    /**
+     * Returns the next page of decompressed bytes, or {@code null} if no full page is available yet. The last page is only returned
+     * once the end of the compressed content is reached.
+     */
+    ReleasableBytesReference pollDecompressedPage();
 
-    public boolean canDecompress(int bytesAvailable) {
-        return hasReadHeader || bytesAvailable >= CompressorFactory.COMPRESSOR.headerLength();
-    }
+    /**
+     * Returns the scheme that this decompressor decompresses.
+     */
+    Compression.Scheme getScheme();
 
-    public boolean isEOS() {
-        return inflater.finished();
-    }
+    @Override
+    void close();
 
-    public ReleasableBytesReference pollDecompressedPage() {
-        if (pages.isEmpty()) {
+    /**
+     * Returns a decompressor for the scheme that the given compressed content was compressed with, or {@code null} if there are
+     * not enough bytes yet to tell which scheme that is.
+     */
+    static TransportDecompressor getDecompressor(PageCacheRecycler recycler, BytesReference bytes) {
+        if (bytes.length() < Compression.Scheme.headerLength()) {
             return null;
-        } else if (pages.size() == 1) {
-            if (isEOS()) {
-                Recycler.V<byte[]> page = pages.pollFirst();
-                ReleasableBytesReference reference = new ReleasableBytesReference(new BytesArray(page.v(), 0, pageOffset), page);
-                pageOffset = 0;
-                return reference;
-            } else {
-                return null;
-            }
-        } else {
-            Recycler.V<byte[]> page = pages.pollFirst();
-            return new ReleasableBytesReference(new BytesArray(page.v()), page);
+        }
+        final Compression.Scheme scheme = Compression.Scheme.fromCompressedContent(bytes);
+        if (scheme == null) {
+            throw createIllegalState(bytes);
+        }
+        switch (scheme) {
+            case LZ4:
+                return new Lz4TransportDecompressor(recycler);
+            case DEFLATE:
+                return new DeflateTransportDecompressor(recycler);
+            default:
+                throw new IllegalArgumentException("unknown compression scheme [" + scheme + "]");
         }
     }
 
-    @Override
-    public void close() {
-        inflater.end();
-        for (Recycler.V<byte[]> page : pages) {
-            page.close();
+    static IllegalStateException createIllegalState(BytesReference bytes) {
+        int maxToRead = Math.min(bytes.length(), 10);
+        StringBuilder sb = new StringBuilder("stream marked as compressed, but no compressor found, first [")
+            .append(maxToRead).append("] content bytes out of [").append(bytes.length())
+            .append("] readable bytes with message size [").append(bytes.length()).append("] ").append("] are [");
+        for (int i = 0; i < maxToRead; i++) {
+            sb.append(bytes.get(i)).append(",");
         }
+        sb.append("]");
+        return new IllegalStateException(sb.toString());
     }
 }
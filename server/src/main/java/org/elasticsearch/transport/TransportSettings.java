@@ -60,8 +60,12 @@ public final class TransportSettings {
         intSetting("transport.publish_port", -1, -1, Setting.Property.NodeScope);
     public static final Setting.AffixSetting<Integer> PUBLISH_PORT_PROFILE = affixKeySetting("transport.profiles.", "publish_port",
         key -> intSetting(key, -1, -1, Setting.Property.NodeScope));
-    public static final Setting<Boolean> TRANSPORT_COMPRESS =
-        boolSetting("transport.compress", false, Setting.Property.NodeScope);
+    public static final Setting<Compression.Enabled> TRANSPORT_COMPRESS =
+        new Setting<>("transport.compress", Compression.Enabled.FALSE.toString(), Compression.Enabled::fromString,
+            Setting.Property.NodeScope);
+    public static final Setting<Compression.Scheme> TRANSPORT_COMPRESSION_SCHEME =
+        new Setting<>("transport.compression_scheme", Compression.Scheme.DEFLATE.toString(), Compression.Scheme::fromString,
+            Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
@@ -19,14 +19,17 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class TransportStats implements Writeable, ToXContentFragment {
 
@@ -36,14 +39,32 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final long txUncompressedSize;
+    private final long txCompressedSize;
+    private final long txCompressionTimeInNanos;
+    private final long rxCompressedSize;
+    private final long rxUncompressedSize;
+    private final long rxDecompressionTimeInNanos;
 
     public TransportStats(long serverOpen, long totalOutboundConnections, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, totalOutboundConnections, rxCount, rxSize, txCount, txSize, 0, 0, 0, 0, 0, 0);
+    }
+
+    public TransportStats(long serverOpen, long totalOutboundConnections, long rxCount, long rxSize, long txCount, long txSize,
+                          long txUncompressedSize, long txCompressedSize, long txCompressionTimeInNanos,
+                          long rxCompressedSize, long rxUncompressedSize, long rxDecompressionTimeInNanos) {
         this.serverOpen = serverOpen;
         this.totalOutboundConnections = totalOutboundConnections;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.txUncompressedSize = txUncompressedSize;
+        this.txCompressedSize = txCompressedSize;
+        this.txCompressionTimeInNanos = txCompressionTimeInNanos;
+        this.rxCompressedSize = rxCompressedSize;
+        this.rxUncompressedSize = rxUncompressedSize;
+        this.rxDecompressionTimeInNanos = rxDecompressionTimeInNanos;
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -53,6 +74,21 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            txUncompressedSize = in.readVLong();
+            txCompressedSize = in.readVLong();
+            txCompressionTimeInNanos = in.readVLong();
+            rxCompressedSize = in.readVLong();
+            rxUncompressedSize = in.readVLong();
+            rxDecompressionTimeInNanos = in.readVLong();
+        } else {
+            txUncompressedSize = 0;
+            txCompressedSize = 0;
+            txCompressionTimeInNanos = 0;
+            rxCompressedSize = 0;
+            rxUncompressedSize = 0;
+            rxDecompressionTimeInNanos = 0;
+        }
     }
 
     @Override
@@ -63,6 +99,14 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(txUncompressedSize);
+            out.writeVLong(txCompressedSize);
+            out.writeVLong(txCompressionTimeInNanos);
+            out.writeVLong(rxCompressedSize);
+            out.writeVLong(rxUncompressedSize);
+            out.writeVLong(rxDecompressionTimeInNanos);
+        }
     }
 
     public long serverOpen() {
@@ -105,6 +149,42 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * The number of bytes of the sent messages that were compressed, before compression.
+     */
+    public ByteSizeValue getTxUncompressedSize() {
+        return new ByteSizeValue(txUncompressedSize);
+    }
+
+    /**
+     * The number of bytes that the sent messages were compressed to.
+     */
+    public ByteSizeValue getTxCompressedSize() {
+        return new ByteSizeValue(txCompressedSize);
+    }
+
+    public TimeValue getTxCompressionTime() {
+        return new TimeValue(txCompressionTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The number of compressed bytes of the received messages that were compressed.
+     */
+    public ByteSizeValue getRxCompressedSize() {
+        return new ByteSizeValue(rxCompressedSize);
+    }
+
+    /**
+     * The number of bytes that the received compressed messages were decompressed to.
+     */
+    public ByteSizeValue getRxUncompressedSize() {
+        return new ByteSizeValue(rxUncompressedSize);
+    }
+
+    public TimeValue getRxDecompressionTime() {
+        return new TimeValue(rxDecompressionTimeInNanos, TimeUnit.NANOSECONDS);
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -114,6 +194,14 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        builder.startObject(Fields.COMPRESSION);
+        builder.humanReadableField(Fields.TX_UNCOMPRESSED_SIZE_IN_BYTES, Fields.TX_UNCOMPRESSED_SIZE, getTxUncompressedSize());
+        builder.humanReadableField(Fields.TX_COMPRESSED_SIZE_IN_BYTES, Fields.TX_COMPRESSED_SIZE, getTxCompressedSize());
+        builder.humanReadableField(Fields.TX_COMPRESSION_TIME_IN_MILLIS, Fields.TX_COMPRESSION_TIME, getTxCompressionTime());
+        builder.humanReadableField(Fields.RX_COMPRESSED_SIZE_IN_BYTES, Fields.RX_COMPRESSED_SIZE, getRxCompressedSize());
+        builder.humanReadableField(Fields.RX_UNCOMPRESSED_SIZE_IN_BYTES, Fields.RX_UNCOMPRESSED_SIZE, getRxUncompressedSize());
+        builder.humanReadableField(Fields.RX_DECOMPRESSION_TIME_IN_MILLIS, Fields.RX_DECOMPRESSION_TIME, getRxDecompressionTime());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -128,5 +216,18 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String COMPRESSION = "compression";
+        static final String TX_UNCOMPRESSED_SIZE = "tx_uncompressed_size";
+        static final String TX_UNCOMPRESSED_SIZE_IN_BYTES = "tx_uncompressed_size_in_bytes";
+        static final String TX_COMPRESSED_SIZE = "tx_compressed_size";
+        static final String TX_COMPRESSED_SIZE_IN_BYTES = "tx_compressed_size_in_bytes";
+        static final String TX_COMPRESSION_TIME = "tx_compression_time";
+        static final String TX_COMPRESSION_TIME_IN_MILLIS = "tx_compression_time_in_millis";
+        static final String RX_COMPRESSED_SIZE = "rx_compressed_size";
+        static final String RX_COMPRESSED_SIZE_IN_BYTES = "rx_compressed_size_in_bytes";
+        static final String RX_UNCOMPRESSED_SIZE = "rx_uncompressed_size";
+        static final String RX_UNCOMPRESSED_SIZE_IN_BYTES = "rx_uncompressed_size_in_bytes";
+        static final String RX_DECOMPRESSION_TIME = "rx_decompression_time";
+        static final String RX_DECOMPRESSION_TIME_IN_MILLIS = "rx_decompression_time_in_millis";
     }
 }
@@ -20,9 +20,13 @@
 package org.elasticsearch.action.bulk;
 
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import static org.apache.lucene.util.TestUtil.randomSimpleString;
 
 public class BulkShardRequestTests extends ESTestCase {
@@ -42,4 +46,20 @@ public class BulkShardRequestTests extends ESTestCase {
         assertEquals("BulkShardRequest [" + shardId + "] containing [" + count + "] requests blocking until refresh", r.toString());
         assertEquals("requests[" + count + "], index[" + index + "][0], refresh[WAIT_UNTIL]", r.getDescription());
     }
+
+    public void testReleasePooledSource() {
+        final AtomicBoolean released = new AtomicBoolean();
+        final ReleasableBytesReference source = new ReleasableBytesReference(new BytesArray("{}"), () -> released.set(true));
+        final BulkShardRequest r = new BulkShardRequest(new ShardId("index", "ignored", 0), RefreshPolicy.NONE, new BulkItemRequest[1]);
+        r.pooledSource(source.retain());
+        source.close();
+        assertFalse(released.get());
+        assertEquals(1, r.pooledSource().refCount());
+
+        r.releasePooledSource();
+        assertTrue(released.get());
+        assertNull(r.pooledSource());
+        // releasing again is a no-op
+        r.releasePooledSource();
+    }
 }
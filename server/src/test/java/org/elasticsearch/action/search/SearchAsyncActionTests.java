@@ -27,17 +27,27 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -54,6 +64,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,6 +73,7 @@ import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.new
 import static org.elasticsearch.common.util.concurrent.ConcurrentCollections.newConcurrentSet;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mockito.Mockito.mock;
 
 public class SearchAsyncActionTests extends ESTestCase {
 
@@ -580,6 +592,138 @@ public class SearchAsyncActionTests extends ESTestCase {
         assertThat(numFailReplicas.get(), greaterThanOrEqualTo(1));
     }
 
+    public void testHedgeSlowShardRequests() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        int numShards = randomIntBetween(1, 10);
+        // no throttling, the first attempts at every shard never respond on their own
+        request.setMaxConcurrentShardRequests(numShards);
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        DiscoveryNode replicaNode = new DiscoveryNode("node_2", buildNewFakeTransportAddress(), Version.CURRENT);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter("idx",
+            new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards, true, primaryNode, replicaNode);
+
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, Runtime.getRuntime().availableProcessors()));
+        try {
+            ResponseCollectorService collector = new ResponseCollectorService(mock(ClusterService.class));
+            for (int i = 0; i < 20; i++) {
+                collector.addNodeStatistics(primaryNode.getId(), 1, TimeValue.timeValueMillis(1).nanos(), 1);
+                collector.addNodeStatistics(replicaNode.getId(), 1, TimeValue.timeValueMillis(1).nanos(), 1);
+            }
+            ClusterSettings clusterSettings = new ClusterSettings(Settings.builder()
+                .put(SearchHedging.HEDGING_ENABLED_SETTING.getKey(), true)
+                .put(SearchHedging.HEDGING_BUDGET_SETTING.getKey(), 1.0)
+                .build(), ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+            Map<SearchTask, SearchActionListener<TestSearchPhaseResult>> slowAttempts = newConcurrentMap();
+            AtomicInteger contextIdGenerator = new AtomicInteger(0);
+            AtomicInteger numLosingContexts = new AtomicInteger();
+            CountDownLatch losersDone = new CountDownLatch(numShards);
+            SearchHedging hedging = new SearchHedging(clusterSettings, threadPool, collector,
+                new TaskManager(Settings.EMPTY, threadPool, Collections.emptySet()), () -> primaryNode) {
+                @Override
+                void cancelAttemptTask(SearchTask attemptTask, String reason) {
+                    SearchActionListener<TestSearchPhaseResult> listener = slowAttempts.remove(attemptTask);
+                    assertNotNull(listener);
+                    new Thread(() -> {
+                        if (randomBoolean()) {
+                            listener.onFailure(new TaskCancelledException(reason));
+                        } else {
+                            // the losing attempt responded before it saw the cancellation
+                            numLosingContexts.incrementAndGet();
+                            listener.onResponse(new TestSearchPhaseResult(
+                                new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()), primaryNode));
+                        }
+                        losersDone.countDown();
+                    }).start();
+                }
+            };
+            AtomicInteger numFreedContext = new AtomicInteger();
+            SearchTransportService transportService = new SearchTransportService(null, null, null) {
+                @Override
+                public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId,
+                                            OriginalIndices originalIndices) {
+                    numFreedContext.incrementAndGet();
+                }
+            };
+            Map<String, Transport.Connection> lookup = new HashMap<>();
+            lookup.put(primaryNode.getId(), new MockConnection(primaryNode));
+            lookup.put(replicaNode.getId(), new MockConnection(replicaNode));
+            Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", new AliasFilter(null, Strings.EMPTY_ARRAY));
+            SearchTask task = new SearchTask(1, "transport", SearchAction.NAME, () -> "test", TaskId.EMPTY_TASK_ID,
+                Collections.emptyMap());
+            Set<ShardId> attemptedShards = newConcurrentSet();
+            Map<ShardId, String> winners = newConcurrentMap();
+            CountDownLatch latch = new CountDownLatch(1);
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction =
+                new AbstractSearchAsyncAction<TestSearchPhaseResult>(
+                    "test",
+                    logger,
+                    transportService,
+                    (cluster, node) -> lookup.get(node),
+                    aliasFilters,
+                    Collections.emptyMap(),
+                    Collections.emptyMap(),
+                    executor,
+                    request,
+                    ActionListener.wrap(r -> latch.countDown(), e -> { throw new AssertionError("unexpected", e); }),
+                    shardsIter,
+                    new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+                    ClusterState.EMPTY_STATE,
+                    task,
+                    new ArraySearchPhaseResults<>(shardsIter.size()),
+                    request.getMaxConcurrentShardRequests(),
+                    SearchResponse.Clusters.EMPTY,
+                    hedging) {
+
+                    @Override
+                    protected void executePhaseOnShard(SearchShardIterator shardIt, SearchShardTarget shard,
+                                                       SearchActionListener<TestSearchPhaseResult> listener) {
+                        throw new AssertionError("shard requests must be sent with the task of their attempt");
+                    }
+
+                    @Override
+                    protected void executePhaseOnShard(SearchShardIterator shardIt, SearchShardTarget shard, SearchTask attemptTask,
+                                                       SearchActionListener<TestSearchPhaseResult> listener) {
+                        assertNotSame(task, attemptTask);
+                        assertEquals(task.getId(), attemptTask.getParentTaskId().getId());
+                        if (attemptedShards.add(shard.getShardId())) {
+                            slowAttempts.put(attemptTask, listener);
+                        } else {
+                            DiscoveryNode node = getConnection(null, shard.getNodeId()).getNode();
+                            new Thread(() -> listener.onResponse(new TestSearchPhaseResult(
+                                new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()), node))).start();
+                        }
+                    }
+
+                    @Override
+                    protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                        return new SearchPhase("test") {
+                            @Override
+                            public void run() {
+                                results.getSuccessfulResults().forEach(r -> assertNull(winners.put(
+                                    r.getSearchShardTarget().getShardId(), r.getSearchShardTarget().getNodeId())));
+                                latch.countDown();
+                            }
+                        };
+                    }
+                };
+            asyncAction.start();
+            latch.await();
+            losersDone.await();
+            assertEquals(numShards, winners.size());
+            assertTrue(slowAttempts.toString(), slowAttempts.isEmpty());
+            SearchResponse searchResponse = asyncAction.buildSearchResponse(null, asyncAction.buildShardFailures(), null, null);
+            assertEquals(numShards, searchResponse.getSuccessfulShards());
+            assertEquals(0, searchResponse.getFailedShards());
+            assertBusy(() -> assertEquals(numLosingContexts.get(), numFreedContext.get()));
+        } finally {
+            executor.shutdown();
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(String index, OriginalIndices originalIndices, int numShards,
                                                      boolean doReplicas, DiscoveryNode primaryNode, DiscoveryNode replicaNode) {
         ArrayList<SearchShardIterator> list = new ArrayList<>();
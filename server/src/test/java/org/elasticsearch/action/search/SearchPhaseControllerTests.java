@@ -63,6 +63,9 @@ import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.ProfileShardResult;
+import org.elasticsearch.search.profile.aggregation.AggregationProfileShardResult;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.suggest.SortBy;
 import org.elasticsearch.search.suggest.Suggest;
@@ -276,6 +279,40 @@ public class SearchPhaseControllerTests extends ESTestCase {
         }
     }
 
+    public void testMergeFetchProfileResults() {
+        int nShards = randomIntBetween(1, 10);
+        AtomicArray<SearchPhaseResult> queryResults = generateQueryResults(nShards, Collections.emptyList(), randomIntBetween(1, 5), false);
+        for (SearchPhaseResult queryResult : queryResults.asList()) {
+            queryResult.queryResult().profileResults(new ProfileShardResult(Collections.emptyList(),
+                new AggregationProfileShardResult(Collections.emptyList())));
+        }
+        SearchPhaseController.ReducedQueryPhase reducedQueryPhase = searchPhaseController.reducedQueryPhase(queryResults.asList(),
+            new ArrayList<>(), new ArrayList<>(), new SearchPhaseController.TopDocsStats(SearchContext.TRACK_TOTAL_HITS_ACCURATE),
+            0, true, InternalAggregationTestCase.emptyReduceContextBuilder(), true);
+        AtomicArray<SearchPhaseResult> fetchResults = generateFetchResults(nShards,
+            reducedQueryPhase.sortedTopDocs.scoreDocs, new Suggest(Collections.emptyList()));
+        Map<String, ProfileResult> fetchProfileResults = new HashMap<>();
+        for (int shardIndex = 0; shardIndex < nShards; shardIndex++) {
+            FetchSearchResult fetchResult = fetchResults.get(shardIndex).fetchResult();
+            SearchShardTarget shardTarget = queryResults.get(shardIndex).getSearchShardTarget();
+            fetchResult.setSearchShardTarget(shardTarget);
+            if (randomBoolean()) {
+                ProfileResult fetchProfileResult = new ProfileResult("fetch", "", Collections.emptyMap(), null, randomNonNegativeLong(),
+                    null);
+                fetchResult.profileResult(fetchProfileResult);
+                fetchProfileResults.put(shardTarget.toString(), fetchProfileResult);
+            }
+        }
+        InternalSearchResponse mergedResponse = searchPhaseController.merge(false,
+            reducedQueryPhase, fetchResults.asList(), fetchResults::get);
+        Map<String, ProfileShardResult> profileResults = mergedResponse.profile();
+        assertThat(profileResults.size(), equalTo(nShards));
+        for (SearchPhaseResult queryResult : queryResults.asList()) {
+            String key = queryResult.getSearchShardTarget().toString();
+            assertSame(fetchProfileResults.get(key), profileResults.get(key).getFetchProfileResult());
+        }
+    }
+
     /**
      * Generate random query results received from the provided number of shards, including the provided
      * number of search hits and randomly generated completion suggestions based on the name and size of the provided ones.
@@ -32,6 +32,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -46,6 +47,8 @@ import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.SuggestTests;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
+import org.elasticsearch.test.rest.FakeRestChannel;
+import org.elasticsearch.test.rest.FakeRestRequest;
 import org.junit.After;
 import org.junit.Before;
 
@@ -276,6 +279,19 @@ public class SearchResponseTests extends ESTestCase {
         }
     }
 
+    public void testToXContentChunked() throws IOException {
+        SearchResponse response = createTestItem();
+        FakeRestRequest request = new FakeRestRequest();
+        FakeRestChannel channel = new FakeRestChannel(request, false, 1);
+        ChunkedRestResponseBody body = ChunkedRestResponseBody.fromXContent(response, request, channel);
+        BytesReference chunked = ChunkedRestResponseBody.toBytesReference(body, randomIntBetween(1, 1024));
+        assertTrue(body.isDone());
+
+        XContentBuilder builder = channel.newBuilder();
+        response.toXContent(builder, request);
+        assertEquals(BytesReference.bytes(builder).utf8ToString(), chunked.utf8ToString());
+    }
+
     public void testSerialization() throws IOException {
         SearchResponse searchResponse = createTestItem(false);
         SearchResponse deserialized = copyWriteable(searchResponse, namedWriteableRegistry, SearchResponse::new, Version.CURRENT);
@@ -29,11 +29,16 @@ import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodeRole;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.TestCustomMetadata;
 
@@ -47,7 +52,10 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
 
 /**
  * Tests for the {@link ClusterChangedEvent} class.
@@ -225,6 +233,84 @@ public class ClusterChangedEventTests extends ESTestCase {
         assertTrue("index routing table should not be the same object", event.indexRoutingTableChanged(initialIndices.get(0).getName()));
     }
 
+    /**
+     * Test the change set of indices and local shards.
+     */
+    public void testChangeSet() {
+        final List<Index> indices = Arrays.asList(new Index("changed_metadata", UUIDs.randomBase64UUID()),
+                                                  new Index("routed_away", UUIDs.randomBase64UUID()),
+                                                  new Index("removed", UUIDs.randomBase64UUID()),
+                                                  new Index("relocating_here", UUIDs.randomBase64UUID()),
+                                                  new Index("unchanged", UUIDs.randomBase64UUID()));
+        final ClusterState emptyState = createState(3, randomBoolean(), Collections.emptyList());
+        final String localNodeId = emptyState.nodes().getLocalNodeId();
+        final String otherNodeId = randomValueOtherThan(localNodeId, () -> NODE_ID_PREFIX + randomIntBetween(0, 2));
+        final Metadata.Builder metadataBuilder = Metadata.builder(emptyState.metadata());
+        final RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (Index index : indices) {
+            metadataBuilder.put(createIndexMetadata(index), false);
+            final String nodeId = index.getName().equals("removed") || index.getName().equals("relocating_here")
+                ? otherNodeId : localNodeId;
+            routingTableBuilder.add(IndexRoutingTable.builder(index)
+                .addShard(TestShardRouting.newShardRouting(new ShardId(index, 0), nodeId, true, ShardRoutingState.STARTED)));
+        }
+        final ClusterState previousState = ClusterState.builder(emptyState)
+            .metadata(metadataBuilder).routingTable(routingTableBuilder.build()).build();
+
+        ClusterChangedEvent event = new ClusterChangedEvent("_na_", ClusterState.builder(previousState).build(), previousState);
+        assertTrue(event.changeSet().isEmpty());
+        assertThat(event.changeSet().shardsRoutedToLocalNode(), empty());
+        assertThat(event.changeSet().shardsRoutedFromLocalNode(), empty());
+
+        final Index added = new Index("added", UUIDs.randomBase64UUID());
+        final ShardRouting addedShard = TestShardRouting.newShardRouting(new ShardId(added, 0), localNodeId, true,
+            ShardRoutingState.INITIALIZING);
+        final ShardRouting routedAwayShard = previousState.routingTable().index("routed_away").shard(0).primaryShard();
+        final ShardRouting relocatingShard = TestShardRouting.newShardRouting(new ShardId(indices.get(3), 0), otherNodeId, localNodeId,
+            true, ShardRoutingState.RELOCATING);
+        final ClusterState newState = ClusterState.builder(previousState)
+            .metadata(Metadata.builder(previousState.metadata())
+                .put(createIndexMetadata(indices.get(0), 2), false)
+                .remove("removed")
+                .put(createIndexMetadata(added), false))
+            .routingTable(RoutingTable.builder(previousState.routingTable())
+                .remove("removed")
+                .add(IndexRoutingTable.builder(indices.get(1))
+                    .addShard(TestShardRouting.newShardRouting(new ShardId(indices.get(1), 0), otherNodeId, true,
+                        ShardRoutingState.INITIALIZING)))
+                .add(IndexRoutingTable.builder(indices.get(3)).addShard(relocatingShard))
+                .add(IndexRoutingTable.builder(added).addShard(addedShard))
+                .build())
+            .build();
+        event = new ClusterChangedEvent("_na_", newState, previousState);
+        final ClusterChangeSet changeSet = event.changeSet();
+        assertSame(changeSet, event.changeSet());
+        assertFalse(changeSet.isEmpty());
+        assertThat(changeSet.indicesAdded(), equalTo(Collections.singleton(added)));
+        assertThat(changeSet.indicesRemoved(), equalTo(Collections.singleton(indices.get(2))));
+        assertThat(changeSet.indicesChanged(), equalTo(new HashSet<>(Arrays.asList(indices.get(0), indices.get(1), indices.get(3)))));
+        assertFalse(changeSet.indexAffected(indices.get(4)));
+        assertThat(changeSet.shardsRoutedToLocalNode(), containsInAnyOrder(addedShard, relocatingShard.getTargetRelocatingShard()));
+        assertThat(changeSet.shardsRoutedFromLocalNode(), containsInAnyOrder(routedAwayShard));
+
+        // an index that is deleted and re-created with the same name is removed and added
+        final Index recreated = new Index(indices.get(4).getName(), UUIDs.randomBase64UUID());
+        final ClusterState recreatedState = ClusterState.builder(previousState)
+            .metadata(Metadata.builder(previousState.metadata()).remove(recreated.getName()).put(createIndexMetadata(recreated), false))
+            .routingTable(RoutingTable.builder(previousState.routingTable()).remove(recreated.getName())
+                .add(IndexRoutingTable.builder(recreated)
+                    .addShard(TestShardRouting.newShardRouting(new ShardId(recreated, 0), localNodeId, true,
+                        ShardRoutingState.INITIALIZING)))
+                .build())
+            .build();
+        final ClusterChangeSet recreatedChangeSet = new ClusterChangedEvent("_na_", recreatedState, previousState).changeSet();
+        assertThat(recreatedChangeSet.indicesAdded(), equalTo(Collections.singleton(recreated)));
+        assertThat(recreatedChangeSet.indicesRemoved(), equalTo(Collections.singleton(indices.get(4))));
+        assertThat(recreatedChangeSet.indicesChanged(), empty());
+        assertThat(recreatedChangeSet.shardsRoutedToLocalNode(), hasSize(1));
+        assertThat(recreatedChangeSet.shardsRoutedFromLocalNode(), hasSize(1));
+    }
+
     /**
      * Test custom metadata change checks
      */
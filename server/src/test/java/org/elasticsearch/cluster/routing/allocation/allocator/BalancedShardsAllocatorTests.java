@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.EmptyClusterInfoService;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.Balancer;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.ModelNode;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.NodeSorter;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator.WeightFunction;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.SameShardAllocationDecider;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.snapshots.EmptySnapshotsInfoService;
+import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
+import org.elasticsearch.test.gateway.TestGatewayAllocator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class BalancedShardsAllocatorTests extends ESAllocationTestCase {
+
+    private static final WeightFunction WEIGHT_FUNCTION = new WeightFunction(
+        BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.get(Settings.EMPTY),
+        BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.get(Settings.EMPTY));
+
+    public void testNodeOrderAfterAddingAndRemovingShards() {
+        RoutingAllocation allocation = newRoutingAllocation(unassignedClusterState(3, 6));
+        Balancer balancer = new Balancer(logger, allocation, WEIGHT_FUNCTION, 1.0f);
+        ModelNode[] nodes = modelNodes(allocation);
+        ModelNode node1 = nodes[0];
+        ModelNode node2 = nodes[1];
+        ModelNode node3 = nodes[2];
+        NodeSorter sorter = new NodeSorter(nodes.clone(), WEIGHT_FUNCTION, balancer);
+
+        List<ShardRouting> shards = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            shards.add(TestShardRouting.newShardRouting("idx", i, node1.getNodeId(), true, STARTED));
+        }
+        node1.addShard(shards.get(0));
+        node1.addShard(shards.get(1));
+        node1.addShard(shards.get(2));
+        node2.addShard(shards.get(3));
+        sorter.reset("idx");
+        assertThat(Arrays.asList(sorter.modelNodes), equalTo(Arrays.asList(node3, node2, node1)));
+        assertThat(sorter.weights[0], lessThan(sorter.weights[1]));
+        assertThat(sorter.weights[1], lessThan(sorter.weights[2]));
+        assertThat(sorter.delta(), equalTo(sorter.weight(node1) - sorter.weight(node3)));
+
+        node1.removeShard(shards.get(0));
+        node1.removeShard(shards.get(1));
+        node3.addShard(shards.get(0));
+        node3.addShard(shards.get(1));
+        node3.addShard(shards.get(4));
+        sorter.reset("idx");
+        assertThat(sorter.modelNodes[2], equalTo(node3));
+        assertThat(node1.numShards(), equalTo(1));
+        assertThat(node3.numShards("idx"), equalTo(3));
+        assertThat(sorter.delta(), equalTo(sorter.weight(node3) - sorter.weight(node1)));
+    }
+
+    public void testNodesWithTheSameNumberOfShardsHaveTheSameWeight() {
+        RoutingAllocation allocation = newRoutingAllocation(unassignedClusterState(4, 8));
+        Balancer balancer = new Balancer(logger, allocation, WEIGHT_FUNCTION, 1.0f);
+        ModelNode[] nodes = modelNodes(allocation);
+        NodeSorter sorter = new NodeSorter(nodes.clone(), WEIGHT_FUNCTION, balancer);
+        for (int i = 0; i < 8; i++) {
+            ModelNode node = nodes[i % nodes.length];
+            node.addShard(TestShardRouting.newShardRouting("idx", i, node.getNodeId(), true, STARTED));
+        }
+        sorter.reset("idx");
+        for (float weight : sorter.weights) {
+            assertThat(weight, equalTo(sorter.weights[0]));
+        }
+        assertThat(sorter.delta(), equalTo(0.0f));
+
+        // breaking the tie puts the node last, whatever its position among the tied nodes
+        ModelNode node = randomFrom(nodes);
+        node.addShard(TestShardRouting.newShardRouting("other", 0, node.getNodeId(), true, STARTED));
+        sorter.reset("idx");
+        assertThat(sorter.modelNodes[nodes.length - 1], equalTo(node));
+        assertThat(sorter.delta(), greaterThan(0.0f));
+    }
+
+    public void testWeightDeltaMatchesSortedNodes() {
+        AllocationService allocationService = createAllocationService();
+        int numberOfNodes = randomIntBetween(2, 5);
+        ClusterState clusterState = unassignedClusterState(numberOfNodes, randomIntBetween(1, 10));
+        clusterState = allocationService.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, allocationService);
+        clusterState = ClusterState.builder(clusterState)
+            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node" + (numberOfNodes + 1)))).build();
+
+        RoutingAllocation allocation = newRoutingAllocation(clusterState);
+        Balancer balancer = new Balancer(logger, allocation, WEIGHT_FUNCTION, 1.0f);
+        ModelNode[] nodes = modelNodes(allocation);
+        for (ModelNode node : nodes) {
+            for (ShardRouting shard : node.getRoutingNode()) {
+                node.addShard(shard);
+            }
+        }
+        NodeSorter sorter = new NodeSorter(nodes, WEIGHT_FUNCTION, balancer);
+        sorter.reset("idx");
+        assertThat(balancer.weightDelta("idx"), equalTo(sorter.delta()));
+    }
+
+    public void testNoRelocationToThrottledNode() {
+        AllocationDecider throttleNode3 = new AllocationDecider() {
+            @Override
+            public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                return node.nodeId().equals("node3") ? Decision.THROTTLE : Decision.YES;
+            }
+        };
+        AllocationService throttlingService = newAllocationService(throttleNode3);
+        ClusterState clusterState = unassignedClusterState(2, 6);
+        clusterState = throttlingService.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, throttlingService);
+        assertThat(clusterState.getRoutingNodes().node("node1").numberOfShardsWithState(STARTED), equalTo(3));
+        assertThat(clusterState.getRoutingNodes().node("node2").numberOfShardsWithState(STARTED), equalTo(3));
+
+        clusterState = ClusterState.builder(clusterState)
+            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node3"))).build();
+        ClusterState throttled = throttlingService.reroute(clusterState, "reroute");
+        assertThat(throttled.getRoutingNodes().node("node3").size(), equalTo(0));
+        assertThat(throttled.getRoutingNodes().shardsWithState(RELOCATING).size(), equalTo(0));
+
+        ClusterState unthrottled = newAllocationService().reroute(clusterState, "reroute");
+        assertThat(unthrottled.getRoutingNodes().node("node3").numberOfShardsWithState(INITIALIZING), greaterThan(0));
+        assertThat(unthrottled.getRoutingNodes().shardsWithState(RELOCATING).size(), greaterThan(0));
+    }
+
+    private static AllocationService newAllocationService(AllocationDecider... deciders) {
+        List<AllocationDecider> allDeciders = new ArrayList<>(Arrays.asList(deciders));
+        allDeciders.add(new SameShardAllocationDecider(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)));
+        return new AllocationService(new AllocationDeciders(allDeciders), new TestGatewayAllocator(),
+            new BalancedShardsAllocator(Settings.EMPTY), EmptyClusterInfoService.INSTANCE, EmptySnapshotsInfoService.INSTANCE);
+    }
+
+    private static ClusterState unassignedClusterState(int numberOfNodes, int numberOfShards) {
+        Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("idx").settings(settings(Version.CURRENT)).numberOfShards(numberOfShards).numberOfReplicas(0))
+            .build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(metadata.index("idx")).build();
+        DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 1; i <= numberOfNodes; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        return ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metadata(metadata).routingTable(routingTable).nodes(nodes).build();
+    }
+
+    private static RoutingAllocation newRoutingAllocation(ClusterState clusterState) {
+        return new RoutingAllocation(new AllocationDeciders(Collections.emptyList()), new RoutingNodes(clusterState, false),
+            clusterState, ClusterInfo.EMPTY, SnapshotShardSizeInfo.EMPTY, System.nanoTime());
+    }
+
+    /**
+     * Returns a model node without any shard for each node of the allocation, ordered by node id.
+     */
+    private static ModelNode[] modelNodes(RoutingAllocation allocation) {
+        List<ModelNode> nodes = new ArrayList<>();
+        for (RoutingNode routingNode : allocation.routingNodes()) {
+            nodes.add(new ModelNode(routingNode));
+        }
+        nodes.sort((a, b) -> a.getNodeId().compareTo(b.getNodeId()));
+        return nodes.toArray(new ModelNode[0]);
+    }
+}
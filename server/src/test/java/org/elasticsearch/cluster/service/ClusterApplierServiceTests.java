@@ -23,8 +23,11 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateApplier;
+import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.ClusterStateObserver;
 import org.elasticsearch.cluster.LocalNodeMasterListener;
 import org.elasticsearch.cluster.block.ClusterBlocks;
@@ -62,7 +65,10 @@ import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.createNoOpNodeConnectionsService;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 
 public class ClusterApplierServiceTests extends ESTestCase {
 
@@ -494,6 +500,55 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testRecordsApplierStats() throws InterruptedException {
+        clusterApplierService.addStateApplier(new ClusterStateApplier() {
+            @Override
+            public void applyClusterState(ClusterChangedEvent event) {
+            }
+
+            @Override
+            public String toString() {
+                return "test applier";
+            }
+        });
+        clusterApplierService.addListener(new ClusterStateListener() {
+            @Override
+            public void clusterChanged(ClusterChangedEvent event) {
+            }
+
+            @Override
+            public String toString() {
+                return "test listener";
+            }
+        });
+
+        final int numStates = between(1, 5);
+        for (int i = 0; i < numStates; i++) {
+            CountDownLatch latch = new CountDownLatch(1);
+            clusterApplierService.onNewClusterState("test " + i, () -> ClusterState.builder(clusterApplierService.state()).build(),
+                new ClusterApplyListener() {
+                    @Override
+                    public void onSuccess(String source) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+            latch.await();
+        }
+
+        final Map<String, ClusterApplierRecordingService.Recording> recordings = clusterApplierService.getStats().getRecordings();
+        assertThat(recordings.get("running applier [test applier]").getCount(), equalTo((long) numStates));
+        assertThat(recordings.get("notifying listener [test listener]").getCount(), equalTo((long) numStates));
+        assertThat(recordings.get("connecting to new nodes").getCount(), equalTo((long) numStates));
+        for (String name : recordings.keySet()) {
+            assertThat(name, not(startsWith("running task [")));
+        }
+    }
+
     public void testThreadContext() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
 
@@ -48,7 +48,9 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -67,6 +69,7 @@ public class CacheTests extends ESTestCase {
         Cache<Integer, String> cache =
                 CacheBuilder.<Integer, String>builder()
                         .setMaximumWeight(numberOfEntries / 2)
+                        .setEvictionPolicy(randomFrom(Cache.EvictionPolicy.values()))
                         .removalListener(notification -> {
                             keys.remove(notification.getKey());
                             evictions.incrementAndGet();
@@ -789,7 +792,8 @@ public class CacheTests extends ESTestCase {
 
     public void testCachePollution() throws BrokenBarrierException, InterruptedException {
         int numberOfThreads = randomIntBetween(2, 32);
-        final Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().build();
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder().setEvictionPolicy(randomFrom(Cache.EvictionPolicy.values())).build();
 
         CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
 
@@ -885,6 +889,7 @@ public class CacheTests extends ESTestCase {
                 CacheBuilder.<Integer, String>builder()
                         .setMaximumWeight(1000)
                         .weigher((k, v) -> 2)
+                        .setEvictionPolicy(randomFrom(Cache.EvictionPolicy.values()))
                         .build();
 
         CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
@@ -914,6 +919,109 @@ public class CacheTests extends ESTestCase {
         assertEquals(500, cache.count());
     }
 
+    // touch some entries a few times, then scan many entries that are only used once; with the TINY_LFU policy the
+    // frequently used entries must survive the scan since the scanned entries never win against them
+    public void testTinyLfuKeepsFrequentlyUsedEntries() {
+        final int maximumWeight = 100;
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .setEvictionPolicy(Cache.EvictionPolicy.TINY_LFU)
+                        .build();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < maximumWeight; i++) {
+                assertEquals(Integer.toString(i), cache.get(i));
+            }
+        }
+        cache.refresh();
+        for (int i = maximumWeight; i < maximumWeight + 1000; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        cache.refresh();
+        assertEquals(maximumWeight, cache.count());
+        int survivors = 0;
+        for (Integer key : cache.keys()) {
+            if (key < maximumWeight) {
+                survivors++;
+            }
+        }
+        // only the admission window is shared with the scan
+        assertThat(survivors, greaterThanOrEqualTo(maximumWeight - 1));
+    }
+
+    // test that the LRU lists and the accounting of a TINY_LFU cache stay consistent under concurrent reads and writes
+    public void testTinyLfuConcurrentReadsAndWrites() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(1000)
+                        .weigher((k, v) -> 2)
+                        .setEvictionPolicy(Cache.EvictionPolicy.TINY_LFU)
+                        .build();
+
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        // skew the keys so that some of them are read much more often than others
+                        Integer key = random.nextInt(1 + random.nextInt(numberOfEntries));
+                        switch (random.nextInt(10)) {
+                            case 0:
+                                cache.put(key, Integer.toString(j));
+                                break;
+                            case 1:
+                                cache.invalidate(key);
+                                break;
+                            case 2:
+                                try {
+                                    cache.computeIfAbsent(key, Object::toString);
+                                } catch (ExecutionException e) {
+                                    throw new AssertionError(e);
+                                }
+                                break;
+                            default:
+                                cache.get(key);
+                                break;
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertThat(cache.count(), lessThanOrEqualTo(500));
+        assertEquals(2L * cache.count(), cache.weight());
+        final List<Integer> keys = new ArrayList<>();
+        cache.keys().forEach(keys::add);
+        assertEquals(cache.count(), keys.size());
+        for (Integer key : keys) {
+            assertNotNull(cache.get(key));
+        }
+    }
+
+    public void testEvictionPolicyFromString() {
+        for (Cache.EvictionPolicy policy : Cache.EvictionPolicy.values()) {
+            assertEquals(policy, Cache.EvictionPolicy.fromString(policy.toString()));
+        }
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> Cache.EvictionPolicy.fromString("lfu"));
+        assertEquals("unknown eviction policy [lfu], must be one of [lru, tiny_lfu]", e.getMessage());
+    }
+
     public void testRemoveUsingValuesIterator() {
         final List<RemovalNotification<Integer, String>> removalNotifications = new ArrayList<>();
         Cache<Integer, String> cache =
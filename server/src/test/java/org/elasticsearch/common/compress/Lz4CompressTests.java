@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs the streaming compression tests against {@link Lz4Compressor}
+ */
+public class Lz4CompressTests extends DeflateCompressTests {
+
+    @Override
+    protected Compressor newCompressor() {
+        return new Lz4Compressor();
+    }
+
+    public void testCompressAndUncompressBytesReference() throws IOException {
+        final Compressor compressor = new Lz4Compressor();
+        final byte[] bytes = randomAlphaOfLength(randomIntBetween(0, 3 * Lz4Compressor.BLOCK_SIZE)).getBytes(StandardCharsets.UTF_8);
+        final BytesReference compressed = compressor.compress(new BytesArray(bytes));
+        assertTrue(compressor.isCompressed(compressed));
+        assertFalse(new DeflateCompressor().isCompressed(compressed));
+        assertEquals(new BytesArray(bytes), compressor.uncompress(compressed));
+    }
+
+    public void testNestedStreams() throws IOException {
+        final Compressor compressor = new Lz4Compressor();
+        final BytesStreamOutput outer = new BytesStreamOutput();
+        final BytesStreamOutput inner = new BytesStreamOutput();
+        try (OutputStream outerStream = compressor.threadLocalOutputStream(outer)) {
+            outerStream.write(new byte[]{1, 2, 3});
+            // streams opened on the same thread must not share their buffers
+            try (OutputStream innerStream = compressor.threadLocalOutputStream(inner)) {
+                innerStream.write(new byte[]{4, 5});
+            }
+            outerStream.write(6);
+        }
+        assertEquals(new BytesArray(new byte[]{1, 2, 3, 6}), compressor.uncompress(outer.bytes()));
+        assertEquals(new BytesArray(new byte[]{4, 5}), compressor.uncompress(inner.bytes()));
+    }
+
+    public void testNotCompressed() {
+        final Compressor compressor = new Lz4Compressor();
+        final BytesReference bytes = new BytesArray(randomAlphaOfLength(10).getBytes(StandardCharsets.UTF_8));
+        assertFalse(compressor.isCompressed(bytes));
+        expectThrows(IllegalArgumentException.class, () -> compressor.threadLocalInputStream(bytes.streamInput()));
+    }
+
+    public void testTruncated() throws IOException {
+        final Compressor compressor = new Lz4Compressor();
+        final byte[] bytes = randomAlphaOfLength(randomIntBetween(1, 2 * Lz4Compressor.BLOCK_SIZE)).getBytes(StandardCharsets.UTF_8);
+        final BytesReference compressed = compressor.compress(new BytesArray(bytes));
+        // drop at least the empty block that marks the end of the stream
+        final int length = randomIntBetween(compressor.headerLength(), compressed.length() - Lz4Compressor.BLOCK_HEADER_LENGTH);
+        try (InputStream in = compressor.threadLocalInputStream(compressed.slice(0, length).streamInput())) {
+            expectThrows(EOFException.class, () -> in.readAllBytes());
+        }
+    }
+}
@@ -31,10 +31,17 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -50,10 +57,13 @@ import org.mockito.ArgumentCaptor;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
@@ -172,6 +182,86 @@ public class DefaultRestChannelTests extends ESTestCase {
         assertEquals(resp.contentType(), headers.get(DefaultRestChannel.CONTENT_TYPE).get(0));
     }
 
+    public void testChunkedResponseIsSentInFullIfChunksAreUnsupported() throws IOException {
+        Settings settings = Settings.builder().build();
+        final TestHttpRequest httpRequest = new TestHttpRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/");
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        HttpHandlingSettings handlingSettings = HttpHandlingSettings.fromSettings(settings);
+
+        DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays, handlingSettings,
+            threadPool.getThreadContext(), CorsHandler.fromSettings(settings), null);
+        final int numChunks = randomIntBetween(1, 10);
+        final ChunkedToXContent body = params -> IntStream.range(0, numChunks).mapToObj(i -> (ToXContent) (builder, p) -> {
+            if (i == 0) {
+                builder.startObject();
+            }
+            builder.field("field_" + i, randomAlphaOfLength(10));
+            if (i == numChunks - 1) {
+                builder.endObject();
+            }
+            return builder;
+        }).iterator();
+        channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, ChunkedRestResponseBody.fromXContent(body, request, channel)));
+
+        ArgumentCaptor<TestHttpResponse> responseCaptor = ArgumentCaptor.forClass(TestHttpResponse.class);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), any());
+        TestHttpResponse httpResponse = responseCaptor.getValue();
+        try (XContentParser parser = createParser(XContentType.JSON.xContent(), httpResponse.content())) {
+            assertEquals(numChunks, parser.map().size());
+        }
+        assertEquals(Integer.toString(httpResponse.content().length()),
+            httpResponse.headers().get(DefaultRestChannel.CONTENT_LENGTH).get(0));
+        assertEquals(XContentType.JSON.mediaType(), httpResponse.headers().get(DefaultRestChannel.CONTENT_TYPE).get(0));
+    }
+
+    public void testChunksAreSerializedInTheThreadContextOfTheRequest() throws Exception {
+        Settings settings = Settings.builder().build();
+        final AtomicReference<ChunkedRestResponseBody> chunkedBody = new AtomicReference<>();
+        final TestHttpRequest httpRequest = new TestHttpRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/") {
+            @Override
+            public boolean supportsChunkedResponses() {
+                return true;
+            }
+
+            @Override
+            public HttpResponse createResponse(RestStatus status, ChunkedRestResponseBody content) {
+                chunkedBody.set(content);
+                return new TestHttpResponse(status, BytesArray.EMPTY);
+            }
+        };
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        HttpHandlingSettings handlingSettings = HttpHandlingSettings.fromSettings(settings);
+
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        final String headerValue = randomAlphaOfLength(10);
+        final List<String> seenHeaderValues = new ArrayList<>();
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putHeader("header", headerValue);
+            DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays, handlingSettings,
+                threadContext, CorsHandler.fromSettings(settings), null);
+            final ChunkedToXContent body = params -> IntStream.range(0, 2).mapToObj(i -> (ToXContent) (builder, p) -> {
+                seenHeaderValues.add(threadContext.getHeader("header"));
+                return i == 0 ? builder.startObject() : builder.endObject();
+            }).iterator();
+            channel.sendResponse(new ChunkedRestResponse(RestStatus.OK, ChunkedRestResponseBody.fromXContent(body, request, channel)));
+        }
+        assertNull(threadContext.getHeader("header"));
+
+        // the http layer serializes the chunks on its own threads, outside of the context of the request
+        final Thread thread = new Thread(() -> {
+            try {
+                while (chunkedBody.get().isDone() == false) {
+                    chunkedBody.get().encodeChunk(1, bigArrays).close();
+                }
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        thread.start();
+        thread.join();
+        assertEquals(List.of(headerValue, headerValue), seenHeaderValues);
+    }
+
     public void testCookiesSet() {
         Settings settings = Settings.builder().put(HttpTransportSettings.SETTING_HTTP_RESET_COOKIES.getKey(), true).build();
         final TestHttpRequest httpRequest = new TestHttpRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/");
@@ -531,6 +531,24 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testIsLastCommit() throws IOException {
+        engine.index(indexForDoc(testParsedDocument("1", null, testDocumentWithTextField(), SOURCE, null)));
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertFalse(engine.isLastCommit(searcher.getDirectoryReader()));
+        }
+        engine.flush(true, true);
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertTrue(engine.isLastCommit(searcher.getDirectoryReader()));
+        }
+        engine.delete(new Engine.Delete("1", newUid("1"), primaryTerm.get()));
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertFalse(engine.isLastCommit(searcher.getDirectoryReader()));
+        }
+    }
+
     public void testFlushIsDisabledDuringTranslogRecovery() throws IOException {
         engine.ensureCanFlush(); // recovered already
         ParsedDocument doc = testParsedDocument("1", null, testDocumentWithTextField(), SOURCE, null);
@@ -46,8 +46,12 @@ import static org.hamcrest.Matchers.nullValue;
 
 public class LiveVersionMapTests extends ESTestCase {
 
+    private static LiveVersionMap newLiveVersionMap() {
+        return new LiveVersionMap(randomFrom(EngineConfig.VersionMapType.values()));
+    }
+
     public void testRamBytesUsed() throws Exception {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         for (int i = 0; i < 100000; ++i) {
             BytesRefBuilder uid = new BytesRefBuilder();
             uid.copyChars(TestUtil.randomSimpleString(random(), 10, 20));
@@ -93,7 +97,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testRefreshingBytes() throws IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         BytesRefBuilder uid = new BytesRefBuilder();
         uid.copyChars(TestUtil.randomSimpleString(random(), 10, 20));
         try (Releasable r = map.acquireLock(uid.toBytesRef())) {
@@ -113,7 +117,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testBasics() throws IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         try (Releasable r = map.acquireLock(uid("test"))) {
             Translog.Location tlogLoc = randomTranslogLocation();
             map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 1, 1, 1));
@@ -145,7 +149,7 @@ public class LiveVersionMapTests extends ESTestCase {
         List<BytesRef> keyList = new ArrayList<>(keySet);
         ConcurrentHashMap<BytesRef, VersionValue> values = new ConcurrentHashMap<>();
         ConcurrentHashMap<BytesRef, DeleteVersionValue> deletes = new ConcurrentHashMap<>();
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         int numThreads = randomIntBetween(2, 5);
 
         Thread[] threads = new Thread[numThreads];
@@ -273,7 +277,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testCarryOnSafeAccess() throws IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         assertFalse(map.isUnsafe());
         assertFalse(map.isSafeAccessRequired());
         map.enforceSafeAccess();
@@ -305,7 +309,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testRefreshTransition() throws IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         try (Releasable r = map.acquireLock(uid("1"))) {
             map.maybePutIndexUnderLock(uid("1"), randomIndexVersionValue());
             assertTrue(map.isUnsafe());
@@ -333,7 +337,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testAddAndDeleteRefreshConcurrently() throws IOException, InterruptedException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         int numIters = randomIntBetween(1000, 5000);
         AtomicBoolean done = new AtomicBoolean(false);
         AtomicLong version = new AtomicLong();
@@ -390,7 +394,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testPruneTombstonesWhileLocked() throws InterruptedException, IOException {
-        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap map = newLiveVersionMap();
         BytesRef uid = uid("1");
 
         try (Releasable ignore = map.acquireLock(uid)) {
@@ -413,7 +417,7 @@ public class LiveVersionMapTests extends ESTestCase {
     }
 
     public void testRandomlyIndexDeleteAndRefresh() throws Exception {
-        final LiveVersionMap versionMap = new LiveVersionMap();
+        final LiveVersionMap versionMap = newLiveVersionMap();
         final BytesRef uid = uid("1");
         final long versions = between(10, 1000);
         VersionValue latestVersion = null;
@@ -0,0 +1,81 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PagedVersionTableTests extends ESTestCase {
+
+    private static IndexVersionValue randomIndexVersionValue() {
+        final Translog.Location location = randomBoolean() ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomLong(), randomNonNegativeLong());
+    }
+
+    public void testMatchesHashMap() {
+        final PagedVersionTable table = new PagedVersionTable(randomIntBetween(0, 100));
+        final Map<BytesRef, VersionValue> expected = new HashMap<>();
+        final int numUids = randomIntBetween(1, 2000);
+        final int iterations = scaledRandomIntBetween(100, 20000);
+        for (int i = 0; i < iterations; i++) {
+            final BytesRef uid = new BytesRef(Integer.toString(randomInt(numUids)));
+            if (randomInt(4) == 0) {
+                assertThat(table.remove(uid), equalTo(expected.remove(uid)));
+            } else {
+                final IndexVersionValue value = randomIndexVersionValue();
+                assertThat(table.put(uid, value), equalTo(expected.put(uid, value)));
+            }
+            if (randomInt(10) == 0) {
+                final BytesRef other = new BytesRef(Integer.toString(randomInt(numUids)));
+                assertThat(table.get(other), equalTo(expected.get(other)));
+            }
+            assertThat(table.size(), equalTo(expected.size()));
+            assertThat(table.isEmpty(), equalTo(expected.isEmpty()));
+        }
+        assertThat(new HashMap<>(table), equalTo(expected));
+    }
+
+    public void testRemoveAndReAdd() {
+        final PagedVersionTable table = new PagedVersionTable(0);
+        final BytesRef uid = new BytesRef("uid");
+        assertThat(table.get(uid), nullValue());
+        assertThat(table.remove(uid), nullValue());
+
+        final IndexVersionValue first = randomIndexVersionValue();
+        assertThat(table.put(uid, first), nullValue());
+        assertThat(table.get(uid), equalTo(first));
+        assertThat(table.remove(uid), equalTo(first));
+        assertThat(table.get(uid), nullValue());
+        assertThat(table.size(), equalTo(0));
+
+        final IndexVersionValue second = randomIndexVersionValue();
+        assertThat(table.put(uid, second), nullValue());
+        assertThat(table.get(uid), equalTo(second));
+        assertThat(table.size(), equalTo(1));
+    }
+}
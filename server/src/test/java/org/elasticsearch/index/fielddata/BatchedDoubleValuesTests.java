@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.fielddata;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchedDoubleValuesTests extends ESTestCase {
+
+    public void testReadSingleValued() throws IOException {
+        int maxDoc = randomIntBetween(1, 2000);
+        double[] values = new double[maxDoc];
+        boolean[] hasValue = new boolean[maxDoc];
+        for (int doc = 0; doc < maxDoc; doc++) {
+            hasValue[doc] = randomBoolean();
+            values[doc] = randomDouble();
+        }
+        BatchedDoubleValues batched = new BatchedDoubleValues(FieldData.singleton(new NumericDoubleValues() {
+            int doc = -1;
+
+            @Override
+            public boolean advanceExact(int doc) {
+                this.doc = doc;
+                return hasValue[doc];
+            }
+
+            @Override
+            public double doubleValue() {
+                return values[doc];
+            }
+        }));
+        assertReads(batched, maxDoc, (doc, expected) -> {
+            if (hasValue[doc]) {
+                expected.add(values[doc]);
+            }
+        });
+    }
+
+    public void testReadMultiValued() throws IOException {
+        int maxDoc = randomIntBetween(1, 2000);
+        double[][] values = new double[maxDoc][];
+        for (int doc = 0; doc < maxDoc; doc++) {
+            values[doc] = new double[randomIntBetween(0, 5)];
+            for (int i = 0; i < values[doc].length; i++) {
+                values[doc][i] = randomDouble();
+            }
+        }
+        BatchedDoubleValues batched = new BatchedDoubleValues(new SortedNumericDoubleValues() {
+            int doc = -1;
+            int next;
+
+            @Override
+            public boolean advanceExact(int target) {
+                doc = target;
+                next = 0;
+                return values[doc].length > 0;
+            }
+
+            @Override
+            public double nextValue() {
+                return values[doc][next++];
+            }
+
+            @Override
+            public int docValueCount() {
+                return values[doc].length;
+            }
+        });
+        assertReads(batched, maxDoc, (doc, expected) -> {
+            for (double value : values[doc]) {
+                expected.add(value);
+            }
+        });
+    }
+
+    private interface ExpectedValues {
+        void add(int doc, List<Double> expected);
+    }
+
+    private void assertReads(BatchedDoubleValues batched, int maxDoc, ExpectedValues expectedValues) throws IOException {
+        int[] docs = new int[maxDoc];
+        int doc = 0;
+        while (doc < maxDoc) {
+            int count = 0;
+            List<Double> expected = new ArrayList<>();
+            for (int i = randomIntBetween(1, 600); i > 0 && doc < maxDoc; i--, doc++) {
+                if (randomBoolean()) {
+                    docs[count++] = doc;
+                    expectedValues.add(doc, expected);
+                }
+            }
+            int numValues = batched.read(docs, count);
+            assertEquals(expected.size(), numValues);
+            for (int i = 0; i < numValues; i++) {
+                assertEquals(expected.get(i), batched.buffer()[i], 0d);
+            }
+        }
+    }
+}
@@ -189,6 +189,58 @@ public class SourceFieldMapperTests extends ESSingleNodeTestCase {
             .startObject("_source").array("excludes", "foo.*").endObject()
             .endObject().endObject());
         assertFalse(mapperService.parse("type", new CompressedXContent(mapping)).sourceMapper().isComplete());
+
+        mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .endObject().endObject());
+        assertFalse(mapperService.parse("type", new CompressedXContent(mapping)).sourceMapper().isComplete());
+    }
+
+    public void testSynthetic() throws Exception {
+        String mapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .startObject("properties").startObject("field").field("type", "keyword").endObject().endObject()
+            .endObject().endObject());
+
+        DocumentMapper documentMapper = createIndex("test").mapperService().parse("type", new CompressedXContent(mapping));
+        assertTrue(documentMapper.sourceMapper().isSynthetic());
+        assertTrue(documentMapper.sourceMapper().enabled());
+
+        ParsedDocument doc = documentMapper.parse(new SourceToParse("test", "1",
+            BytesReference.bytes(XContentFactory.jsonBuilder().startObject().field("field", "value").endObject()),
+            XContentType.JSON));
+        assertNull(doc.rootDoc().getField("_source"));
+        // the original source is still kept around for operation based recoveries
+        assertNotNull(doc.rootDoc().getField("_recovery_source"));
+    }
+
+    public void testSyntheticConflictsWithFiltersAndDisabled() throws Exception {
+        MapperService mapperService = createIndex("test").mapperService();
+        String disabled = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).field("enabled", false).endObject()
+            .endObject().endObject());
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> mapperService.parse("type", new CompressedXContent(disabled)));
+        assertThat(e.getMessage(), containsString("[_source] can't be both disabled and [synthetic]"));
+
+        String includes = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).array("includes", "foo.*").endObject()
+            .endObject().endObject());
+        e = expectThrows(MapperParsingException.class, () -> mapperService.parse("type", new CompressedXContent(includes)));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] and have [includes] or [excludes]"));
+    }
+
+    public void testSyntheticNotUpdateable() throws Exception {
+        MapperService mapperService = createIndex("test").mapperService();
+        String defaultMapping = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type").endObject().endObject());
+        String mapping1 = Strings.toString(XContentFactory.jsonBuilder().startObject().startObject("type")
+            .startObject("_source").field("synthetic", true).endObject()
+            .endObject().endObject());
+        assertConflicts(defaultMapping, mapping1, mapperService, "Cannot update parameter [synthetic] from [false] to [true]");
+        assertConflicts(mapping1, defaultMapping, mapperService, "Cannot update parameter [synthetic] from [true] to [false]");
+
+        // not changing is ok
+        assertConflicts(mapping1, mapping1, mapperService);
     }
 
     public void testSourceObjectContainsExtraTokens() throws Exception {
@@ -0,0 +1,162 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SyntheticSourceLoaderTests extends MapperServiceTestCase {
+
+    private XContentBuilder syntheticMapping(CheckedConsumer<XContentBuilder, IOException> buildFields) throws IOException {
+        return topMapping(b -> {
+            b.startObject("_source").field("synthetic", true).endObject();
+            b.startObject("properties");
+            buildFields.accept(b);
+            b.endObject();
+        });
+    }
+
+    public void testRebuildsObjectsAndArrays() throws IOException {
+        MapperService mapperService = createMapperService(syntheticMapping(b -> {
+            b.startObject("kwd").field("type", "keyword");
+            {
+                b.startObject("fields").startObject("raw").field("type", "keyword").endObject().endObject();
+            }
+            b.endObject();
+            b.startObject("obj");
+            {
+                b.startObject("properties");
+                b.startObject("num").field("type", "long").endObject();
+                b.startObject("inner").startObject("properties");
+                b.startObject("flag").field("type", "boolean").endObject();
+                b.startObject("ip").field("type", "ip").endObject();
+                b.endObject().endObject();
+                b.endObject();
+            }
+            b.endObject();
+            b.startObject("obj_2").startObject("properties").startObject("num").field("type", "long").endObject().endObject().endObject();
+            b.startObject("date").field("type", "date").endObject();
+        }));
+
+        List<Map<String, Object>> sources = loadSources(mapperService,
+            source(b -> {
+                b.field("kwd", "foo");
+                b.startObject("obj");
+                {
+                    b.array("num", 3, 1, 2);
+                    b.startObject("inner").field("flag", true).field("ip", "192.168.0.1").endObject();
+                }
+                b.endObject();
+                b.startObject("obj_2").field("num", 7).endObject();
+                b.field("date", "2020-11-03T10:15:30.000Z");
+            }),
+            source(b -> b.startObject("obj").startObject("inner").field("flag", false).endObject().endObject())
+        );
+
+        assertThat(sources.get(0), equalTo(Map.of(
+            "date", "2020-11-03T10:15:30.000Z",
+            "kwd", "foo",
+            "obj", Map.of("inner", Map.of("flag", true, "ip", "192.168.0.1"), "num", List.of(1, 2, 3)),
+            "obj_2", Map.of("num", 7)
+        )));
+        // missing fields and objects without any value are left out
+        assertThat(sources.get(1), equalTo(Map.of("obj", Map.of("inner", Map.of("flag", false)))));
+    }
+
+    public void testSkipsCopyToTargets() throws IOException {
+        MapperService mapperService = createMapperService(syntheticMapping(b -> {
+            b.startObject("first").field("type", "keyword").field("copy_to", "all").endObject();
+            b.startObject("second").field("type", "keyword").field("copy_to", "all").endObject();
+            b.startObject("all").field("type", "keyword").endObject();
+        }));
+
+        List<Map<String, Object>> sources = loadSources(mapperService, source(b -> b.field("first", "a").field("second", "b")));
+        assertThat(sources.get(0), equalTo(Map.of("first", "a", "second", "b")));
+    }
+
+    public void testRejectsFieldsWithoutDocValues() {
+        Exception e = expectThrows(IllegalArgumentException.class,
+            () -> createMapperService(syntheticMapping(b -> b.startObject("field").field("type", "text").endObject())));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] because field [field] of type [text]"));
+
+        e = expectThrows(IllegalArgumentException.class, () -> createMapperService(syntheticMapping(
+            b -> b.startObject("field").field("type", "long").field("doc_values", false).endObject())));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] because field [field] of type [long]"));
+
+        e = expectThrows(IllegalArgumentException.class, () -> createMapperService(syntheticMapping(
+            b -> b.startObject("field").field("type", "keyword").field("ignore_above", 10).endObject())));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] because field [field] of type [keyword]"));
+    }
+
+    public void testRejectsNestedAndDisabledObjects() {
+        Exception e = expectThrows(IllegalArgumentException.class,
+            () -> createMapperService(syntheticMapping(b -> b.startObject("obj").field("type", "nested").endObject())));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] when the mappings contain nested field [obj]"));
+
+        e = expectThrows(IllegalArgumentException.class,
+            () -> createMapperService(syntheticMapping(b -> b.startObject("obj").field("enabled", false).endObject())));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] when the mappings contain disabled object [obj]"));
+    }
+
+    public void testRejectsDynamicUnsupportedFields() throws IOException {
+        MapperService mapperService = createMapperService(syntheticMapping(b -> {}));
+        // strings are mapped as text by default, which can't be loaded from doc values
+        ParsedDocument doc = mapperService.documentMapper().parse(source(b -> b.field("field", "value")));
+        Exception e = expectThrows(IllegalArgumentException.class, () -> merge(mapperService, dynamicMapping(doc.dynamicMappingsUpdate())));
+        assertThat(e.getMessage(), containsString("[_source] can't be [synthetic] because field [field] of type [text]"));
+    }
+
+    private List<Map<String, Object>> loadSources(MapperService mapperService, SourceToParse... docs) throws IOException {
+        List<Map<String, Object>> sources = new ArrayList<>();
+        withLuceneIndex(mapperService, iw -> {
+            List<ParseContext.Document> documents = new ArrayList<>();
+            for (SourceToParse doc : docs) {
+                documents.add(mapperService.documentMapper().parse(doc).rootDoc());
+            }
+            // a single block keeps the documents in a single segment and in order
+            iw.addDocuments(documents);
+        }, reader -> {
+            SyntheticSourceLoader loader = SyntheticSourceLoader.create(mapperService.documentMapper().mappers(),
+                ft -> ft.fielddataBuilder("test", () -> {
+                    throw new UnsupportedOperationException();
+                }).build(new IndexFieldDataCache.None(), new NoneCircuitBreakerService()));
+            assertThat(reader.leaves().size(), equalTo(1));
+            LeafReaderContext context = reader.leaves().get(0);
+            SyntheticSourceLoader.Leaf leaf = loader.leaf(context);
+            for (int docId = 0; docId < reader.maxDoc(); docId++) {
+                sources.add(XContentHelper.convertToMap(leaf.source(docId), true, XContentType.JSON).v2());
+            }
+        });
+        return sources;
+    }
+}
@@ -33,6 +33,9 @@ import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
@@ -170,4 +173,61 @@ public class FileInfoTests extends ESTestCase {
             assertEquals(numBytes, metadata.length());
         }
     }
+
+    public void testChunksToFromXContent() throws IOException {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum();
+        final StoreFileMetadata meta = new StoreFileMetadata("foobar", length, randomAlphaOfLengthBetween(1, 10), Version.LATEST);
+        final FileInfo info = new FileInfo("_foobar", meta, chunks);
+        XContentBuilder builder = XContentFactory.contentBuilder(XContentType.JSON).prettyPrint();
+        FileInfo.toXContent(info, builder);
+        byte[] xcontent = BytesReference.toBytes(BytesReference.bytes(shuffleXContent(builder)));
+
+        final FileInfo parsedInfo;
+        try (XContentParser parser = createParser(JsonXContent.jsonXContent, xcontent)) {
+            parser.nextToken();
+            parsedInfo = FileInfo.fromXContent(parser);
+        }
+        assertThat(parsedInfo.isChunked(), is(true));
+        assertThat(parsedInfo.chunks(), equalTo(chunks));
+        assertThat(parsedInfo.numberOfParts(), equalTo(chunks.size()));
+        assertThat(parsedInfo.isSame(info), is(true));
+        assertThat(parsedInfo.isSame(new FileInfo("_foobar", meta, new ByteSizeValue(length))), is(false));
+    }
+
+    public void testChunksMustMatchLength() {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum() + randomFrom(-1L, 1L);
+        final StoreFileMetadata meta = new StoreFileMetadata("foobar", length, "666", MIN_SUPPORTED_LUCENE_VERSION);
+        expectThrows(IllegalArgumentException.class, () -> new FileInfo("_foobar", meta, chunks));
+        expectThrows(IllegalArgumentException.class, () -> new FileInfo("_foobar", meta, Collections.emptyList()));
+    }
+
+    public void testPartForPosition() {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = randomChunks();
+        final long length = chunks.stream().mapToLong(BlobStoreIndexShardSnapshot.Chunk::length).sum();
+        final StoreFileMetadata meta = new StoreFileMetadata("foo", length, "666", MIN_SUPPORTED_LUCENE_VERSION);
+        final FileInfo chunked = new FileInfo("foo", meta, chunks);
+        final FileInfo fixed = new FileInfo("foo", meta, randomBoolean() ? null : new ByteSizeValue(randomLongBetween(1, length)));
+        for (FileInfo info : List.of(chunked, fixed)) {
+            long offset = 0L;
+            for (int part = 0; part < info.numberOfParts(); part++) {
+                assertThat(info.partOffset(part), equalTo(offset));
+                assertThat(info.partForPosition(offset), equalTo(part));
+                assertThat(info.partForPosition(offset + info.partBytes(part) - 1), equalTo(part));
+                offset += info.partBytes(part);
+            }
+            assertThat(offset, equalTo(length));
+        }
+        assertThat(chunked.partName(0), equalTo(chunks.get(0).name()));
+    }
+
+    private static List<BlobStoreIndexShardSnapshot.Chunk> randomChunks() {
+        final List<BlobStoreIndexShardSnapshot.Chunk> chunks = new ArrayList<>();
+        final int numberOfChunks = randomIntBetween(1, 20);
+        for (int i = 0; i < numberOfChunks; i++) {
+            chunks.add(new BlobStoreIndexShardSnapshot.Chunk("c__" + randomAlphaOfLength(10), randomLongBetween(1, 1 << 20)));
+        }
+        return chunks;
+    }
 }
@@ -0,0 +1,264 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TranslogGroupCommitterTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private TranslogGroupCommitter committer;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+        committer = new TranslogGroupCommitter(threadPool.getThreadContext(), threadPool.generic());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        super.tearDown();
+    }
+
+    private static ShardPath shardPath(Path dataPath, ShardId shardId) {
+        final Path path = dataPath.resolve("indices").resolve(shardId.getIndex().getUUID()).resolve(Integer.toString(shardId.id()));
+        return new ShardPath(false, path, path, shardId);
+    }
+
+    public void testSyncsOnlyMaxLocationPerShard() {
+        final Path dataPath = createTempDir();
+        final ShardId shardId = new ShardId(new Index("index", "_na_"), 0);
+        final AtomicReference<Translog.Location> synced = new AtomicReference<>();
+        final TranslogGroupCommitter.ShardSyncer syncer = committer.register(shardPath(dataPath, shardId),
+            locations -> synced.set(locations.max(Translog.Location::compareTo).get()));
+
+        final Translog.Location location = new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt(100));
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        syncer.sync(location, failure::set);
+        assertThat(failure.get(), nullValue());
+        assertThat(synced.get(), sameInstance(location));
+
+        final TranslogStats stats = new TranslogStats();
+        syncer.addStats(stats);
+        assertThat(stats.getGroupCommits(), equalTo(1L));
+        assertThat(stats.getGroupCommitBatchedShards(), equalTo(1L));
+    }
+
+    public void testShardsOnSameDataPathShareRounds() throws Exception {
+        final Path dataPath = createTempDir();
+        final Path otherDataPath = createTempDir();
+        final int numShards = randomIntBetween(2, 8);
+        final CountDownLatch blockFirstRound = new CountDownLatch(1);
+        final AtomicInteger syncCalls = new AtomicInteger();
+        final List<TranslogGroupCommitter.ShardSyncer> syncers = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            final ShardId shardId = new ShardId(new Index("index", "_na_"), i);
+            final boolean blocking = i == 0;
+            syncers.add(committer.register(shardPath(dataPath, shardId), locations -> {
+                syncCalls.incrementAndGet();
+                if (blocking && blockFirstRound.getCount() > 0) {
+                    try {
+                        blockFirstRound.await();
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+            }));
+        }
+        // a shard on another data path must not be blocked by the round in progress on the first path
+        final AtomicInteger otherSyncCalls = new AtomicInteger();
+        final TranslogGroupCommitter.ShardSyncer otherSyncer = committer.register(
+            shardPath(otherDataPath, new ShardId(new Index("other", "_na_"), 0)), locations -> otherSyncCalls.incrementAndGet());
+
+        final CountDownLatch done = new CountDownLatch(numShards + 1);
+        final Thread firstRound = new Thread(() -> syncers.get(0).sync(new Translog.Location(0, 0, 1), e -> done.countDown()));
+        firstRound.start();
+        assertBusy(() -> assertThat(syncCalls.get(), equalTo(1)));
+
+        // these are queued up while the first round is running and must all be synced in a single round
+        for (int i = 1; i < numShards; i++) {
+            syncers.get(i).sync(new Translog.Location(0, 0, 1), e -> done.countDown());
+        }
+        otherSyncer.sync(new Translog.Location(0, 0, 1), e -> done.countDown());
+        assertThat(otherSyncCalls.get(), equalTo(1));
+
+        blockFirstRound.countDown();
+        done.await();
+        firstRound.join();
+        assertThat(syncCalls.get(), equalTo(numShards));
+
+        for (int i = 1; i < numShards; i++) {
+            final TranslogStats stats = new TranslogStats();
+            syncers.get(i).addStats(stats);
+            assertThat(stats.getGroupCommits(), equalTo(1L));
+            assertThat(stats.getGroupCommitBatchedShards(), equalTo((long) numShards - 1));
+        }
+        final TranslogStats otherStats = new TranslogStats();
+        otherSyncer.addStats(otherStats);
+        assertThat(otherStats.getGroupCommitBatchedShards(), equalTo(1L));
+    }
+
+    public void testShardsOfARoundAreSyncedConcurrently() throws Exception {
+        final Path dataPath = createTempDir();
+        final int numShards = randomIntBetween(2, 8);
+        final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+        final CountDownLatch blockFirstRound = new CountDownLatch(1);
+        // the syncs of the second round only complete once all of them are in flight at the same time
+        final CyclicBarrier allSyncing = new CyclicBarrier(numShards - 1);
+        final List<TranslogGroupCommitter.ShardSyncer> syncers = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            final boolean blocking = i == 0;
+            syncers.add(committer.register(shardPath(dataPath, new ShardId(new Index("index", "_na_"), i)), locations -> {
+                try {
+                    if (blocking) {
+                        firstRoundStarted.countDown();
+                        blockFirstRound.await();
+                    } else {
+                        allSyncing.await(10, TimeUnit.SECONDS);
+                    }
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        }
+
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(numShards);
+        final Thread firstRound = new Thread(() -> syncers.get(0).sync(new Translog.Location(0, 0, 1), e -> done.countDown()));
+        firstRound.start();
+        firstRoundStarted.await();
+
+        // these are queued up while the first round is running and are synced in a single round
+        for (int i = 1; i < numShards; i++) {
+            syncers.get(i).sync(new Translog.Location(0, 0, 1), e -> {
+                if (e != null) {
+                    failure.set(e);
+                }
+                done.countDown();
+            });
+        }
+        blockFirstRound.countDown();
+        done.await();
+        firstRound.join();
+        assertThat(failure.get(), nullValue());
+    }
+
+    public void testFailureOnlyFailsRequestsOfFailingShard() throws Exception {
+        final Path dataPath = createTempDir();
+        final IOException failure = new IOException("simulated");
+        final TranslogGroupCommitter.ShardSyncer failing = committer.register(
+            shardPath(dataPath, new ShardId(new Index("index", "_na_"), 0)), locations -> {
+                throw failure;
+            });
+        final TranslogGroupCommitter.ShardSyncer healthy = committer.register(
+            shardPath(dataPath, new ShardId(new Index("index", "_na_"), 1)), locations -> {});
+
+        final AtomicReference<Exception> failingResult = new AtomicReference<>();
+        final AtomicReference<Exception> healthyResult = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(2);
+        failing.sync(new Translog.Location(0, 0, 1), e -> {
+            failingResult.set(e);
+            done.countDown();
+        });
+        healthy.sync(new Translog.Location(0, 0, 1), e -> {
+            healthyResult.set(e);
+            done.countDown();
+        });
+        done.await();
+        assertThat(failingResult.get(), sameInstance(failure));
+        assertThat(healthyResult.get(), nullValue());
+    }
+
+    public void testConcurrentSyncs() throws Exception {
+        final Path dataPath = createTempDir();
+        final int numShards = randomIntBetween(1, 10);
+        final AtomicInteger syncCalls = new AtomicInteger();
+        final List<TranslogGroupCommitter.ShardSyncer> syncers = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            syncers.add(committer.register(shardPath(dataPath, new ShardId(new Index("index", "_na_"), i)),
+                locations -> syncCalls.incrementAndGet()));
+        }
+        final int numThreads = randomIntBetween(2, 8);
+        final int syncsPerThread = scaledRandomIntBetween(10, 500);
+        final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+        final AtomicInteger acknowledged = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < syncsPerThread; i++) {
+                    randomFrom(syncers).sync(new Translog.Location(0, i, 1), e -> {
+                        if (e != null) {
+                            failure.set(e);
+                        }
+                        acknowledged.incrementAndGet();
+                    });
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failure.get(), nullValue());
+        assertThat(acknowledged.get(), equalTo(numThreads * syncsPerThread));
+        assertThat(syncCalls.get(), greaterThan(0));
+        assertThat(syncCalls.get(), lessThanOrEqualTo(numThreads * syncsPerThread));
+
+        long rounds = 0;
+        for (TranslogGroupCommitter.ShardSyncer syncer : syncers) {
+            final TranslogStats stats = new TranslogStats();
+            syncer.addStats(stats);
+            assertThat(stats.getGroupCommitBatchedShards(), greaterThanOrEqualTo(stats.getGroupCommits()));
+            assertThat(stats.getGroupCommitWaitTimeInMillis(), greaterThanOrEqualTo(0L));
+            rounds += stats.getGroupCommits();
+        }
+        assertThat(rounds, equalTo((long) syncCalls.get()));
+    }
+}
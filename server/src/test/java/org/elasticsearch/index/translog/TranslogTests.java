@@ -477,7 +477,8 @@ public class TranslogTests extends ESTestCase {
                 builder.endObject();
                 assertThat(Strings.toString(builder), equalTo("{\"translog\":{\"operations\":4,\"size_in_bytes\":" + 326
                     + ",\"uncommitted_operations\":4,\"uncommitted_size_in_bytes\":" + 271
-                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge() + "}}"));
+                    + ",\"earliest_last_modified_age\":" + stats.getEarliestLastModifiedAge()
+                    + ",\"group_commit\":{\"count\":0,\"batched_shards\":0,\"wait_time_in_millis\":0}}}"));
             }
         }
         translog.getDeletionPolicy().setLocalCheckpointOfSafeCommit(randomLongBetween(3, Long.MAX_VALUE));
@@ -23,9 +23,12 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterDirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StandardDirectoryReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.TermQuery;
@@ -39,6 +42,7 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -48,14 +52,21 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class IndicesRequestCacheTests extends ESTestCase {
 
     public void testBasicOperationsCache() throws Exception {
         ShardRequestCache requestCacheStats = new ShardRequestCache();
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY, EsExecutors.newDirectExecutorService());
         Directory dir = newDirectory();
         IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
 
@@ -110,7 +121,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
     }
 
     public void testCacheDifferentReaders() throws Exception {
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY, EsExecutors.newDirectExecutorService());
         AtomicBoolean indexShard =  new AtomicBoolean(true);
         ShardRequestCache requestCacheStats = new ShardRequestCache();
         Directory dir = newDirectory();
@@ -207,7 +218,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
     public void testEviction() throws Exception {
         final ByteSizeValue size;
         {
-            IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+            IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY, EsExecutors.newDirectExecutorService());
             AtomicBoolean indexShard = new AtomicBoolean(true);
             ShardRequestCache requestCacheStats = new ShardRequestCache();
             Directory dir = newDirectory();
@@ -236,7 +247,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
         }
         IndicesRequestCache cache = new IndicesRequestCache(Settings.builder()
             .put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), size.getBytes()+1 +"b")
-            .build());
+            .build(), EsExecutors.newDirectExecutorService());
         AtomicBoolean indexShard = new AtomicBoolean(true);
         ShardRequestCache requestCacheStats = new ShardRequestCache();
         Directory dir = newDirectory();
@@ -275,7 +286,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
     }
 
     public void testClearAllEntityIdentity() throws Exception {
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY, EsExecutors.newDirectExecutorService());
         AtomicBoolean indexShard =  new AtomicBoolean(true);
 
         ShardRequestCache requestCacheStats = new ShardRequestCache();
@@ -331,6 +342,75 @@ public class IndicesRequestCacheTests extends ESTestCase {
             StringField.TYPE_STORED));
     }
 
+    public void testPersistedEntriesOfLastCommit() throws Exception {
+        Settings settings = Settings.builder().put(IndicesRequestCache.INDICES_CACHE_DISK_ENABLED.getKey(), true).build();
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        Directory dir = newFSDirectory(createTempDir());
+        Path persistedCacheDirectory = createTempDir().resolve(PersistedRequestCache.FOLDER_NAME);
+        TestEntity entity = new PersistedTestEntity(requestCacheStats, indexShard, dir, persistedCacheDirectory);
+        TermQueryBuilder termQuery = new TermQueryBuilder("id", "0");
+        BytesReference termBytes = XContentHelper.toXContent(termQuery, XContentType.JSON, false);
+
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc(0, "foo"));
+        writer.commit();
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        IndicesRequestCache cache = new IndicesRequestCache(settings, EsExecutors.newDirectExecutorService());
+        Loader loader = new Loader(reader, 0);
+        assertEquals("foo", cache.getOrCompute(entity, loader, reader, termBytes).streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+        assertEquals(1, requestCacheStats.stats().getMissCount());
+        IOUtils.close(reader, writer, cache);
+
+        // the entry is still there once the shard is reopened on the same commit
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), new ShardId("foo", "bar", 1));
+        cache = new IndicesRequestCache(settings, EsExecutors.newDirectExecutorService());
+        loader = new Loader(reader, 0);
+        assertEquals("foo", cache.getOrCompute(entity, loader, reader, termBytes).streamInput().readString());
+        assertTrue(loader.loadedFromCache);
+        assertEquals(1, requestCacheStats.stats().getHitCount());
+        assertEquals(1, cache.count());
+        IOUtils.close(reader);
+
+        // entries computed on changes that are not committed yet are not persisted
+        writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.updateDocument(new Term("id", "0"), newDoc(0, "bar"));
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        loader = new Loader(reader, 0);
+        assertEquals("bar", cache.getOrCompute(entity, loader, reader, termBytes).streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+        assertEquals(2, requestCacheStats.stats().getMissCount());
+        IOUtils.close(reader);
+
+        // a new commit replaces the entries of the previous one
+        writer.commit();
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "bar", 1));
+        loader = new Loader(reader, 0);
+        assertEquals("bar", cache.getOrCompute(entity, loader, reader, termBytes).streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+        assertEquals(3, requestCacheStats.stats().getMissCount());
+        try (DirectoryStream<Path> commits = Files.newDirectoryStream(persistedCacheDirectory)) {
+            List<Path> commitDirectories = new ArrayList<>();
+            commits.forEach(commitDirectories::add);
+            assertEquals(Collections.singletonList(persistedCacheDirectory.resolve(PersistedRequestCache.commitName(reader))),
+                commitDirectories);
+        }
+
+        // invalidating an entry removes it from disk too
+        cache.invalidate(entity, reader, termBytes);
+        IOUtils.close(cache);
+        cache = new IndicesRequestCache(settings, EsExecutors.newDirectExecutorService());
+        loader = new Loader(reader, 0);
+        assertEquals("bar", cache.getOrCompute(entity, loader, reader, termBytes).streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+
+        // and so does clearing the cache of the shard
+        cache.clear(entity);
+        assertFalse(Files.exists(persistedCacheDirectory));
+        IOUtils.close(reader, writer, dir, cache);
+    }
+
     private static class Loader implements CheckedSupplier<BytesReference, IOException> {
 
         private final DirectoryReader reader;
@@ -362,7 +442,7 @@ public class IndicesRequestCacheTests extends ESTestCase {
 
     public void testInvalidate() throws Exception {
         ShardRequestCache requestCacheStats = new ShardRequestCache();
-        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY);
+        IndicesRequestCache cache = new IndicesRequestCache(Settings.EMPTY, EsExecutors.newDirectExecutorService());
         Directory dir = newDirectory();
         IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
 
@@ -506,6 +586,34 @@ public class IndicesRequestCacheTests extends ESTestCase {
         }
     }
 
+    private class PersistedTestEntity extends TestEntity {
+        private final Directory directory;
+        private final Path persistedCacheDirectory;
+
+        private PersistedTestEntity(ShardRequestCache shardRequestCache, AtomicBoolean standInForIndexShard, Directory directory,
+                                    Path persistedCacheDirectory) {
+            super(shardRequestCache, standInForIndexShard);
+            this.directory = directory;
+            this.persistedCacheDirectory = persistedCacheDirectory;
+        }
+
+        @Override
+        public Path persistedCacheDirectory() {
+            return persistedCacheDirectory;
+        }
+
+        @Override
+        public boolean isLastCommit(DirectoryReader reader) {
+            try {
+                SegmentInfos lastCommit = SegmentInfos.readLatestCommit(directory);
+                SegmentInfos segmentInfos = ((StandardDirectoryReader) FilterDirectoryReader.unwrap(reader)).getSegmentInfos();
+                return segmentInfos.getVersion() == lastCommit.getVersion();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     private class TestEntity extends AbstractIndexShardCacheEntity {
         private final AtomicBoolean standInForIndexShard;
         private final ShardRequestCache shardRequestCache;
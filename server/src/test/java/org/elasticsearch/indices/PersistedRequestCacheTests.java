@@ -0,0 +1,168 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class PersistedRequestCacheTests extends ESTestCase {
+
+    // the size on disk of the entries of the tests, whose keys and values are "key_" and "val_" followed by a single char
+    private static final long ENTRY_SIZE = PersistedRequestCache.entrySize(key("a"), value("a"));
+
+    public void testEvictsLeastRecentlyUsedEntries() {
+        Path shardDirectory = createTempDir().resolve(PersistedRequestCache.FOLDER_NAME);
+        Path commitDirectory = shardDirectory.resolve("commit");
+        PersistedRequestCache cache = new PersistedRequestCache(3 * ENTRY_SIZE, Long.MAX_VALUE, EsExecutors.newDirectExecutorService());
+        cache.put(commitDirectory, key("a"), value("a"));
+        cache.put(commitDirectory, key("b"), value("b"));
+        cache.put(commitDirectory, key("c"), value("c"));
+        assertEquals(3 * ENTRY_SIZE, cache.sizeInBytes(shardDirectory));
+
+        assertEquals(value("a"), cache.get(commitDirectory, key("a")));
+        cache.put(commitDirectory, key("d"), value("d"));
+        assertEquals(3 * ENTRY_SIZE, cache.sizeInBytes(shardDirectory));
+        assertNull(cache.get(commitDirectory, key("b")));
+        assertEquals(value("a"), cache.get(commitDirectory, key("a")));
+        assertEquals(value("c"), cache.get(commitDirectory, key("c")));
+        assertEquals(value("d"), cache.get(commitDirectory, key("d")));
+
+        // entries that don't fit at all are not persisted
+        cache.put(commitDirectory, key("e"), new BytesArray(new byte[(int) (3 * ENTRY_SIZE)]));
+        assertNull(cache.get(commitDirectory, key("e")));
+        assertEquals(3 * ENTRY_SIZE, cache.sizeInBytes(shardDirectory));
+
+        cache.invalidate(commitDirectory, key("a"));
+        assertNull(cache.get(commitDirectory, key("a")));
+        assertEquals(2 * ENTRY_SIZE, cache.sizeInBytes(shardDirectory));
+    }
+
+    public void testLoadsExistingEntriesOnFirstWrite() throws IOException {
+        Path shardDirectory = createTempDir().resolve(PersistedRequestCache.FOLDER_NAME);
+        Path commitDirectory = shardDirectory.resolve("commit");
+        PersistedRequestCache cache = new PersistedRequestCache(3 * ENTRY_SIZE, Long.MAX_VALUE, EsExecutors.newDirectExecutorService());
+        cache.put(commitDirectory, key("a"), value("a"));
+        cache.put(commitDirectory, key("b"), value("b"));
+        cache.put(commitDirectory, key("c"), value("c"));
+
+        // entries are read from disk before anything is known about them, for instance after a restart
+        cache = new PersistedRequestCache(3 * ENTRY_SIZE, Long.MAX_VALUE, EsExecutors.newDirectExecutorService());
+        assertEquals(0L, cache.sizeInBytes(shardDirectory));
+        assertEquals(value("b"), cache.get(commitDirectory, key("b")));
+
+        // and their sizes are loaded once something is written again, so that the shard stays within its share of disk
+        cache.put(commitDirectory, key("d"), value("d"));
+        assertEquals(3 * ENTRY_SIZE, cache.sizeInBytes(shardDirectory));
+        assertEquals(3, listFiles(commitDirectory, "*.rce").size());
+        for (Path file : listFiles(commitDirectory, "*.rce")) {
+            assertEquals(ENTRY_SIZE, Files.size(file));
+        }
+        assertEquals(value("d"), cache.get(commitDirectory, key("d")));
+
+        // an entry of a new commit removes the entries of the previous one
+        Path newCommitDirectory = shardDirectory.resolve("new_commit");
+        cache.put(newCommitDirectory, key("e"), value("e"));
+        assertEquals(ENTRY_SIZE, cache.sizeInBytes(shardDirectory));
+        assertEquals(Collections.singletonList(newCommitDirectory), listFiles(shardDirectory, "*"));
+        assertNull(cache.get(commitDirectory, key("d")));
+
+        cache.clear(shardDirectory);
+        assertEquals(0L, cache.sizeInBytes(shardDirectory));
+        assertFalse(Files.exists(shardDirectory));
+    }
+
+    public void testWritesInTheBackground() {
+        Path shardDirectory = createTempDir().resolve(PersistedRequestCache.FOLDER_NAME);
+        Path commitDirectory = shardDirectory.resolve("commit");
+        List<Runnable> tasks = new ArrayList<>();
+        PersistedRequestCache cache = new PersistedRequestCache(3 * ENTRY_SIZE, Long.MAX_VALUE, tasks::add);
+        cache.put(commitDirectory, key("a"), value("a"));
+        assertEquals(1, tasks.size());
+        assertFalse(Files.exists(shardDirectory));
+        assertNull(cache.get(commitDirectory, key("a")));
+
+        tasks.remove(0).run();
+        assertEquals(value("a"), cache.get(commitDirectory, key("a")));
+
+        // writes that are still queued when the cache of the shard is cleared are dropped
+        cache.put(commitDirectory, key("b"), value("b"));
+        assertEquals(1, tasks.size());
+        cache.clear(shardDirectory);
+        tasks.forEach(Runnable::run);
+        assertFalse(Files.exists(shardDirectory));
+    }
+
+    public void testEvictsLeastRecentlyUsedEntriesOfTheNode() {
+        Path shard1 = createTempDir().resolve(PersistedRequestCache.FOLDER_NAME);
+        Path shard2 = createTempDir().resolve(PersistedRequestCache.FOLDER_NAME);
+        Path commit1 = shard1.resolve("commit");
+        Path commit2 = shard2.resolve("commit");
+        PersistedRequestCache cache = new PersistedRequestCache(3 * ENTRY_SIZE, 4 * ENTRY_SIZE, EsExecutors.newDirectExecutorService());
+        cache.put(commit1, key("a"), value("a"));
+        cache.put(commit2, key("b"), value("b"));
+        cache.put(commit1, key("c"), value("c"));
+        cache.put(commit2, key("d"), value("d"));
+        assertEquals(4 * ENTRY_SIZE, cache.totalSizeInBytes());
+
+        // the least recently used entry of the node is evicted, whichever shard it belongs to
+        assertEquals(value("a"), cache.get(commit1, key("a")));
+        cache.put(commit2, key("e"), value("e"));
+        assertEquals(4 * ENTRY_SIZE, cache.totalSizeInBytes());
+        assertNull(cache.get(commit2, key("b")));
+        assertEquals(2 * ENTRY_SIZE, cache.sizeInBytes(shard1));
+        assertEquals(2 * ENTRY_SIZE, cache.sizeInBytes(shard2));
+
+        cache.put(commit2, key("f"), value("f"));
+        assertNull(cache.get(commit1, key("c")));
+        assertEquals(value("a"), cache.get(commit1, key("a")));
+        assertEquals(ENTRY_SIZE, cache.sizeInBytes(shard1));
+        assertEquals(3 * ENTRY_SIZE, cache.sizeInBytes(shard2));
+
+        // entries of cleared shards no longer count
+        cache.clear(shard2);
+        assertEquals(ENTRY_SIZE, cache.totalSizeInBytes());
+    }
+
+    private static List<Path> listFiles(Path directory, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            stream.forEach(files::add);
+        }
+        return files;
+    }
+
+    private static BytesReference key(String name) {
+        return new BytesArray("key_" + name);
+    }
+
+    private static BytesReference value(String name) {
+        return new BytesArray("val_" + name);
+    }
+}
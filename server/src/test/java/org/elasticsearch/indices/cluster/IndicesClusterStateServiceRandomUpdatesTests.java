@@ -106,6 +106,8 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
         // we have an IndicesClusterStateService per node in the cluster
         final Map<DiscoveryNode, IndicesClusterStateService> clusterStateServiceMap = new HashMap<>();
         ClusterState state = randomInitialClusterState(clusterStateServiceMap, MockIndicesService::new);
+        // the cluster state last applied on each node, so that the nodes can apply the next cluster state incrementally
+        final Map<DiscoveryNode, ClusterState> appliedStates = new HashMap<>();
         // each of the following iterations represents a new cluster state update processed on all nodes
         for (int i = 0; i < 30; i++) {
             logger.info("Iteration {}", i);
@@ -126,7 +128,10 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
             for (DiscoveryNode node : state.nodes()) {
                 IndicesClusterStateService indicesClusterStateService = clusterStateServiceMap.get(node);
                 ClusterState localState = adaptClusterStateToLocalNode(state, node);
-                ClusterState previousLocalState = adaptClusterStateToLocalNode(previousState, node);
+                ClusterState previousLocalState = appliedStates.get(node);
+                if (previousLocalState == null || previousLocalState.version() != previousState.version()) {
+                    previousLocalState = adaptClusterStateToLocalNode(previousState, node);
+                }
                 final ClusterChangedEvent event = new ClusterChangedEvent("simulated change " + i, localState, previousLocalState);
                 try {
                     indicesClusterStateService.applyClusterState(event);
@@ -137,6 +142,8 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
                     throw error;
                 }
 
+                appliedStates.put(node, localState);
+
                 // check that cluster state has been properly applied to node
                 assertClusterStateMatchesNodeState(localState, indicesClusterStateService);
             }
@@ -140,6 +140,83 @@ public class PeerRecoveryTargetServiceTests extends IndexShardTestCase {
         closeShards(sourceShard, targetShard);
     }
 
+    public void testRetryReusesVerifiedFiles() throws Exception {
+        IndexShard sourceShard = newStartedShard(true);
+        int numDocs = between(20, 100);
+        for (int i = 0; i < numDocs; i++) {
+            indexDoc(sourceShard, "_doc", Integer.toString(i));
+        }
+        sourceShard.flush(new FlushRequest());
+        Store.MetadataSnapshot sourceSnapshot = sourceShard.store().getMetadata(null);
+        List<StoreFileMetadata> mdFiles = new ArrayList<>();
+        for (StoreFileMetadata md : sourceSnapshot) {
+            mdFiles.add(md);
+        }
+        final IndexShard targetShard = newShard(false);
+        final DiscoveryNode pNode = getFakeDiscoNode(sourceShard.routingEntry().currentNodeId());
+        final DiscoveryNode rNode = getFakeDiscoNode(targetShard.routingEntry().currentNodeId());
+        targetShard.markAsRecovering("test-peer-recovery", new RecoveryState(targetShard.routingEntry(), rNode, pNode));
+        final RecoveryTarget firstAttempt = new RecoveryTarget(targetShard, null, null);
+        final PlainActionFuture<Void> receiveFileInfoFuture = new PlainActionFuture<>();
+        firstAttempt.receiveFileInfo(
+            mdFiles.stream().map(StoreFileMetadata::name).collect(Collectors.toList()),
+            mdFiles.stream().map(StoreFileMetadata::length).collect(Collectors.toList()),
+            Collections.emptyList(), Collections.emptyList(), 0, receiveFileInfoFuture
+        );
+        receiveFileInfoFuture.actionGet();
+        // the first attempt fails after some of the files were copied completely
+        final List<StoreFileMetadata> copiedFiles = randomSubsetOf(mdFiles);
+        for (StoreFileMetadata md : copiedFiles) {
+            try (IndexInput in = sourceShard.store().directory().openInput(md.name(), IOContext.READONCE)) {
+                byte[] buffer = new byte[Math.toIntExact(md.length())];
+                in.readBytes(buffer, 0, buffer.length);
+                PlainActionFuture<Void> writeFuture = new PlainActionFuture<>();
+                firstAttempt.writeFileChunk(md, 0, new BytesArray(buffer), true, 0, writeFuture);
+                writeFuture.actionGet();
+            }
+        }
+        final RecoveryTarget secondAttempt = firstAttempt.retryCopy();
+        firstAttempt.decRef();
+
+        final Store.MetadataSnapshot localSnapshot = secondAttempt.addVerifiedFiles(Store.MetadataSnapshot.EMPTY);
+        assertThat(localSnapshot.size(), equalTo(copiedFiles.size()));
+        for (StoreFileMetadata md : copiedFiles) {
+            assertTrue(md.isSame(localSnapshot.get(md.name())));
+        }
+
+        // the second attempt only receives the files that were not reused
+        final Store.RecoveryDiff recoveryDiff = sourceSnapshot.recoveryDiff(localSnapshot);
+        final PlainActionFuture<Void> secondFileInfoFuture = new PlainActionFuture<>();
+        final List<StoreFileMetadata> toSend = new ArrayList<>(recoveryDiff.different);
+        toSend.addAll(recoveryDiff.missing);
+        secondAttempt.receiveFileInfo(
+            toSend.stream().map(StoreFileMetadata::name).collect(Collectors.toList()),
+            toSend.stream().map(StoreFileMetadata::length).collect(Collectors.toList()),
+            recoveryDiff.identical.stream().map(StoreFileMetadata::name).collect(Collectors.toList()),
+            recoveryDiff.identical.stream().map(StoreFileMetadata::length).collect(Collectors.toList()),
+            0, secondFileInfoFuture
+        );
+        secondFileInfoFuture.actionGet();
+        for (StoreFileMetadata md : toSend) {
+            try (IndexInput in = sourceShard.store().directory().openInput(md.name(), IOContext.READONCE)) {
+                byte[] buffer = new byte[Math.toIntExact(md.length())];
+                in.readBytes(buffer, 0, buffer.length);
+                PlainActionFuture<Void> writeFuture = new PlainActionFuture<>();
+                secondAttempt.writeFileChunk(md, 0, new BytesArray(buffer), true, 0, writeFuture);
+                writeFuture.actionGet();
+            }
+        }
+        PlainActionFuture<Void> cleanFilesFuture = new PlainActionFuture<>();
+        secondAttempt.cleanFiles(0, Long.parseLong(sourceSnapshot.getCommitUserData().get(SequenceNumbers.MAX_SEQ_NO)),
+            sourceSnapshot, cleanFilesFuture);
+        cleanFilesFuture.actionGet();
+        secondAttempt.decRef();
+        Store.MetadataSnapshot targetSnapshot = targetShard.snapshotStoreMetadata();
+        Store.RecoveryDiff diff = sourceSnapshot.recoveryDiff(targetSnapshot);
+        assertThat(diff.different, empty());
+        closeShards(sourceShard, targetShard);
+    }
+
     private SeqNoStats populateRandomData(IndexShard shard) throws IOException {
         List<Long> seqNos = LongStream.range(0, 100).boxed().collect(Collectors.toList());
         Randomness.shuffle(seqNos);
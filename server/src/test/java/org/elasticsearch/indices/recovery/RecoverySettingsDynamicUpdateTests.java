@@ -37,6 +37,14 @@ public class RecoverySettingsDynamicUpdateTests extends ESTestCase {
         assertEquals(null, recoverySettings.rateLimiter());
     }
 
+    public void testMaxConcurrentFiles() {
+        assertEquals(1, recoverySettings.getMaxConcurrentFiles());
+        int maxConcurrentFiles = between(1, 8);
+        clusterSettings.applySettings(Settings.builder().put(
+                RecoverySettings.INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING.getKey(), maxConcurrentFiles).build());
+        assertEquals(maxConcurrentFiles, recoverySettings.getMaxConcurrentFiles());
+    }
+
     public void testRetryDelayStateSync() {
         long duration = between(1, 1000);
         TimeUnit timeUnit = randomFrom(TimeUnit.MILLISECONDS, TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.HOURS);
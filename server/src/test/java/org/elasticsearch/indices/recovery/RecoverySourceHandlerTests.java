@@ -117,9 +117,12 @@ import java.util.zip.CRC32;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyObject;
@@ -190,7 +193,7 @@ public class RecoverySourceHandlerTests extends ESTestCase {
             }
         };
         RecoverySourceHandler handler = new RecoverySourceHandler(null, new AsyncRecoveryTarget(target, recoveryExecutor),
-            threadPool, request, Math.toIntExact(recoverySettings.getChunkSize().getBytes()), between(1, 5), between(1, 5));
+            threadPool, request, Math.toIntExact(recoverySettings.getChunkSize().getBytes()), between(1, 5), between(1, 4), between(1, 5));
         PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
         handler.sendFiles(store, metas.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
         sendFilesFuture.actionGet();
@@ -204,6 +207,44 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, multiFileWriter, targetStore);
     }
 
+    public void testSplitIntoLanes() {
+        final int numFiles = between(0, 50);
+        final StoreFileMetadata[] files = new StoreFileMetadata[numFiles];
+        long totalLength = 0;
+        for (int i = 0; i < numFiles; i++) {
+            files[i] = new StoreFileMetadata(
+                "file_" + i, randomLongBetween(1, 1 << 20), "0", Version.CURRENT.luceneVersion);
+            totalLength += files[i].length();
+        }
+        final int maxLanes = between(1, 8);
+        final List<List<StoreFileMetadata>> lanes = RecoverySourceHandler.splitIntoLanes(files, maxLanes);
+        assertThat(lanes.size(), lessThanOrEqualTo(Math.max(1, Math.min(maxLanes, numFiles))));
+        final Set<String> seen = new HashSet<>();
+        long largestFile = 0;
+        long largestLane = 0;
+        long seenLength = 0;
+        for (List<StoreFileMetadata> lane : lanes) {
+            assertThat(lane, not(empty()));
+            long laneLength = 0;
+            for (int i = 0; i < lane.size(); i++) {
+                assertTrue(seen.add(lane.get(i).name()));
+                laneLength += lane.get(i).length();
+                largestFile = Math.max(largestFile, lane.get(i).length());
+                if (i > 0) {
+                    assertThat("smallest files are sent first", lane.get(i - 1).length(), lessThanOrEqualTo(lane.get(i).length()));
+                }
+            }
+            seenLength += laneLength;
+            largestLane = Math.max(largestLane, laneLength);
+        }
+        assertThat(seen.size(), equalTo(numFiles));
+        assertThat(seenLength, equalTo(totalLength));
+        if (lanes.isEmpty() == false) {
+            // greedy largest-first assignment keeps every lane within one file of the average
+            assertThat(largestLane, lessThanOrEqualTo(totalLength / lanes.size() + largestFile));
+        }
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean() ? Store.MetadataSnapshot.EMPTY :
             new Store.MetadataSnapshot(Collections.emptyMap(),
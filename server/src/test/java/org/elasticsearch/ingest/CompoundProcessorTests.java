@@ -23,6 +23,7 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.test.ESTestCase;
 import org.junit.Before;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -364,6 +365,107 @@ public class CompoundProcessorTests extends ESTestCase {
         assertThat(ingestProcessorException.getHeader("pipeline_origin"), equalTo(List.of("2", "1")));
     }
 
+    public void testExecuteBatch() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        Processor batchProcessor = new TestProcessor(ingestDocument -> ingestDocument.setFieldValue("seen", true)) {
+            @Override
+            public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+                batchSizes.add(ingestDocuments.size());
+                super.executeBatch(ingestDocuments, handler);
+            }
+        };
+        Processor failingProcessor = new TestProcessor(ingestDocument -> {
+            if (ingestDocument.hasField("fail")) {
+                throw new IllegalArgumentException("failed");
+            }
+        });
+        Processor droppingProcessor = new Processor() {
+            @Override
+            public IngestDocument execute(IngestDocument ingestDocument) {
+                return ingestDocument.hasField("drop") ? null : ingestDocument;
+            }
+
+            @Override
+            public String getType() {
+                return "drop";
+            }
+
+            @Override
+            public String getTag() {
+                return null;
+            }
+
+            @Override
+            public String getDescription() {
+                return null;
+            }
+        };
+        boolean withOnFailure = randomBoolean();
+        LongSupplier relativeTimeProvider = mock(LongSupplier.class);
+        when(relativeTimeProvider.getAsLong()).thenReturn(0L);
+        CompoundProcessor compoundProcessor = new CompoundProcessor(false,
+            Arrays.asList(batchProcessor, failingProcessor, droppingProcessor, batchProcessor),
+            withOnFailure
+                ? Collections.singletonList(new TestProcessor(ingestDocument -> ingestDocument.setFieldValue("on_failure", true)))
+                : Collections.emptyList(),
+            relativeTimeProvider);
+
+        int numDocs = randomIntBetween(1, 20);
+        List<IngestDocument> ingestDocuments = new ArrayList<>(numDocs);
+        List<String> kinds = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            String kind = randomFrom("keep", "fail", "drop");
+            Map<String, Object> source = new HashMap<>();
+            source.put(kind, true);
+            ingestDocuments.add(new IngestDocument(source, new HashMap<>()));
+            kinds.add(kind);
+        }
+
+        IngestDocument[][] resultsHolder = new IngestDocument[1][];
+        Exception[][] failuresHolder = new Exception[1][];
+        compoundProcessor.executeBatch(ingestDocuments, (results, failures) -> {
+            assertThat("handler must only be called once", resultsHolder[0], nullValue());
+            resultsHolder[0] = results;
+            failuresHolder[0] = failures;
+        });
+        assertThat(resultsHolder[0], notNullValue());
+
+        int kept = 0;
+        for (int i = 0; i < numDocs; i++) {
+            IngestDocument result = resultsHolder[0][i];
+            Exception failure = failuresHolder[0][i];
+            switch (kinds.get(i)) {
+                case "keep":
+                    kept++;
+                    assertThat(failure, nullValue());
+                    assertThat(result, sameInstance(ingestDocuments.get(i)));
+                    assertThat(result.getFieldValue("seen", Boolean.class), is(true));
+                    break;
+                case "fail":
+                    if (withOnFailure) {
+                        assertThat(failure, nullValue());
+                        assertThat(result.getFieldValue("on_failure", Boolean.class), is(true));
+                    } else {
+                        assertThat(result, nullValue());
+                        assertThat(((ElasticsearchException) failure).getRootCause().getMessage(), equalTo("failed"));
+                    }
+                    break;
+                case "drop":
+                    assertThat(result, nullValue());
+                    assertThat(failure, nullValue());
+                    break;
+                default:
+                    throw new AssertionError(kinds.get(i));
+            }
+        }
+        // each processor gets the documents that are still processed in a single batch
+        assertThat(batchSizes, equalTo(kept > 0 ? Arrays.asList(numDocs, kept) : Collections.singletonList(numDocs)));
+        IngestStats.Stats firstProcessorStats = compoundProcessor.getProcessorsWithMetrics().get(0).v2().createStats();
+        assertThat(firstProcessorStats.getIngestCount(), equalTo((long) numDocs));
+        assertThat(firstProcessorStats.getIngestBatchCount(), equalTo(1L));
+        assertThat(firstProcessorStats.getIngestCurrent(), equalTo(0L));
+    }
+
     private void assertStats(CompoundProcessor compoundProcessor, long count,  long failed, long time) {
         assertStats(0, compoundProcessor, 0L, count, failed, time);
     }
@@ -70,6 +70,7 @@ import org.mockito.ArgumentMatcher;
 import org.mockito.invocation.InvocationOnMock;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
@@ -946,6 +947,16 @@ public class IngestServiceTests extends ESTestCase {
             handler.accept(null, error);
             return null;
         }).when(processor).execute(any(), any());
+        doAnswer(args -> {
+            @SuppressWarnings("unchecked")
+            List<IngestDocument> ingestDocuments = (List<IngestDocument>) args.getArguments()[0];
+            @SuppressWarnings("unchecked")
+            BiConsumer<IngestDocument[], Exception[]> handler = (BiConsumer) args.getArguments()[1];
+            Exception[] failures = new Exception[ingestDocuments.size()];
+            Arrays.fill(failures, error);
+            handler.accept(new IngestDocument[ingestDocuments.size()], failures);
+            return null;
+        }).when(processor).executeBatch(any(), any());
         IngestService ingestService = createWithProcessors(Collections.singletonMap(
             "mock", (factories, tag, description, config) -> processor));
         PutPipelineRequest putRequest = new PutPipelineRequest("_id",
@@ -997,6 +1008,18 @@ public class IngestServiceTests extends ESTestCase {
             handler.accept(RandomDocumentPicks.randomIngestDocument(random()), null);
             return null;
         }).when(processor).execute(any(), any());
+        doAnswer(args -> {
+            @SuppressWarnings("unchecked")
+            List<IngestDocument> ingestDocuments = (List<IngestDocument>) args.getArguments()[0];
+            @SuppressWarnings("unchecked")
+            BiConsumer<IngestDocument[], Exception[]> handler = (BiConsumer) args.getArguments()[1];
+            IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = RandomDocumentPicks.randomIngestDocument(random());
+            }
+            handler.accept(results, new Exception[ingestDocuments.size()]);
+            return null;
+        }).when(processor).executeBatch(any(), any());
         Map<String, Processor.Factory> map = new HashMap<>(2);
         map.put("mock", (factories, tag, description, config) -> processor);
 
@@ -1024,6 +1047,171 @@ public class IngestServiceTests extends ESTestCase {
         }
     }
 
+    public void testBulkRequestExecutionInBatches() throws Exception {
+        List<String> batchedPipelines = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+        Map<String, Processor.Factory> map = new HashMap<>(2);
+        map.put("batch", (factories, tag, description, config) -> {
+            String pipelineId = (String) config.remove("pipeline");
+            Consumer<IngestDocument> consumer = ingestDocument -> ingestDocument.setFieldValue("batched", true);
+            return new TestProcessor(tag, "batch", description, consumer) {
+                @Override
+                public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+                    batchedPipelines.add(pipelineId);
+                    batchSizes.add(ingestDocuments.size());
+                    super.executeBatch(ingestDocuments, handler);
+                }
+            };
+        });
+        IngestService ingestService = createWithProcessors(map);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        for (String pipelineId : Arrays.asList("_id1", "_id2")) {
+            PutPipelineRequest putRequest = new PutPipelineRequest(pipelineId,
+                new BytesArray("{\"processors\": [{\"batch\": {\"pipeline\": \"" + pipelineId + "\"}}]}"), XContentType.JSON);
+            ClusterState previousClusterState = clusterState;
+            clusterState = IngestService.innerPut(putRequest, clusterState);
+            ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+        }
+
+        BulkRequest bulkRequest = new BulkRequest();
+        int numRequest = scaledRandomIntBetween(4, 64);
+        int numFirstPipeline = 0;
+        for (int i = 0; i < numRequest; i++) {
+            // each pipeline gets at least two documents so that none of them falls back to executing documents one by one
+            String pipelineId = i < 2 ? "_id1" : i < 4 ? "_id2" : randomFrom("_id1", "_id2");
+            if (pipelineId.equals("_id1")) {
+                numFirstPipeline++;
+            }
+            bulkRequest.add(new IndexRequest("_index").id("_id").source(Collections.emptyMap()).setPipeline(pipelineId)
+                .setFinalPipeline("_none"));
+        }
+
+        @SuppressWarnings("unchecked")
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(numRequest, bulkRequest.requests(), requestItemErrorHandler, completionHandler, indexReq -> {},
+            Names.WRITE);
+
+        verify(requestItemErrorHandler, never()).accept(any(), any());
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+        assertThat(batchedPipelines, equalTo(Arrays.asList("_id1", "_id2")));
+        assertThat(batchSizes, equalTo(Arrays.asList(numFirstPipeline, numRequest - numFirstPipeline)));
+        for (DocWriteRequest<?> docWriteRequest : bulkRequest.requests()) {
+            IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(docWriteRequest);
+            assertThat(indexRequest.sourceAsMap().get("batched"), equalTo(true));
+        }
+
+        IngestStats stats = ingestService.stats();
+        assertThat(stats.getTotalStats().getIngestCount(), equalTo((long) numRequest));
+        assertThat(stats.getTotalStats().getIngestBatchCount(), equalTo(2L));
+        for (IngestStats.PipelineStat pipelineStat : stats.getPipelineStats()) {
+            assertThat(pipelineStat.getStats().getIngestBatchCount(), equalTo(1L));
+        }
+    }
+
+    public void testBulkRequestExecutionInBatchesOfBoundedSize() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        Map<String, Processor.Factory> map = new HashMap<>(2);
+        map.put("batch", (factories, tag, description, config) -> {
+            Consumer<IngestDocument> consumer = ingestDocument -> ingestDocument.setFieldValue("batched", true);
+            return new TestProcessor(tag, "batch", description, consumer) {
+                @Override
+                public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+                    batchSizes.add(ingestDocuments.size());
+                    super.executeBatch(ingestDocuments, handler);
+                }
+            };
+        });
+        IngestService ingestService = createWithProcessors(map);
+        PutPipelineRequest putRequest = new PutPipelineRequest("_id",
+            new BytesArray("{\"processors\": [{\"batch\": {}}]}"), XContentType.JSON);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(putRequest, clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        BulkRequest bulkRequest = new BulkRequest();
+        int numRequest = randomIntBetween(IngestService.MAX_BATCH_SIZE + 2, 3 * IngestService.MAX_BATCH_SIZE);
+        for (int i = 0; i < numRequest; i++) {
+            bulkRequest.add(new IndexRequest("_index").id("_id").source(Collections.emptyMap()).setPipeline("_id")
+                .setFinalPipeline("_none"));
+        }
+
+        @SuppressWarnings("unchecked")
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(numRequest, bulkRequest.requests(), requestItemErrorHandler, completionHandler, indexReq -> {},
+            Names.WRITE);
+
+        verify(requestItemErrorHandler, never()).accept(any(), any());
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+        int numBatches = (numRequest + IngestService.MAX_BATCH_SIZE - 1) / IngestService.MAX_BATCH_SIZE;
+        assertThat(batchSizes.size(), equalTo(numBatches));
+        for (int i = 0; i < numBatches - 1; i++) {
+            assertThat(batchSizes.get(i), equalTo(IngestService.MAX_BATCH_SIZE));
+        }
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum(), equalTo(numRequest));
+        for (DocWriteRequest<?> docWriteRequest : bulkRequest.requests()) {
+            assertThat(((IndexRequest) docWriteRequest).sourceAsMap().get("batched"), equalTo(true));
+        }
+    }
+
+    public void testBulkRequestExecutionInBatchesWithMalformedDocument() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        Map<String, Processor.Factory> map = new HashMap<>(2);
+        map.put("batch", (factories, tag, description, config) -> {
+            Consumer<IngestDocument> consumer = ingestDocument -> ingestDocument.setFieldValue("batched", true);
+            return new TestProcessor(tag, "batch", description, consumer) {
+                @Override
+                public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+                    batchSizes.add(ingestDocuments.size());
+                    super.executeBatch(ingestDocuments, handler);
+                }
+            };
+        });
+        IngestService ingestService = createWithProcessors(map);
+        PutPipelineRequest putRequest = new PutPipelineRequest("_id",
+            new BytesArray("{\"processors\": [{\"batch\": {}}]}"), XContentType.JSON);
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = IngestService.innerPut(putRequest, clusterState);
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        BulkRequest bulkRequest = new BulkRequest();
+        int numRequest = scaledRandomIntBetween(3, 64);
+        int malformedSlot = randomIntBetween(0, numRequest - 1);
+        for (int i = 0; i < numRequest; i++) {
+            IndexRequest indexRequest = new IndexRequest("_index").id("_id").setPipeline("_id").setFinalPipeline("_none");
+            if (i == malformedSlot) {
+                indexRequest.source(new BytesArray("{\"field\": "), XContentType.JSON);
+            } else {
+                indexRequest.source(Collections.emptyMap());
+            }
+            bulkRequest.add(indexRequest);
+        }
+
+        @SuppressWarnings("unchecked")
+        BiConsumer<Integer, Exception> requestItemErrorHandler = mock(BiConsumer.class);
+        @SuppressWarnings("unchecked")
+        final BiConsumer<Thread, Exception> completionHandler = mock(BiConsumer.class);
+        ingestService.executeBulkRequest(numRequest, bulkRequest.requests(), requestItemErrorHandler, completionHandler, indexReq -> {},
+            Names.WRITE);
+
+        verify(requestItemErrorHandler, times(1)).accept(eq(malformedSlot), any(ElasticsearchParseException.class));
+        verify(requestItemErrorHandler, times(1)).accept(anyInt(), any());
+        verify(completionHandler, times(1)).accept(any(), any());
+        verify(completionHandler, times(1)).accept(Thread.currentThread(), null);
+        assertThat(batchSizes, equalTo(Collections.singletonList(numRequest - 1)));
+        for (int i = 0; i < numRequest; i++) {
+            if (i != malformedSlot) {
+                IndexRequest indexRequest = TransportBulkAction.getIndexWriteRequest(bulkRequest.requests().get(i));
+                assertThat(indexRequest.sourceAsMap().get("batched"), equalTo(true));
+            }
+        }
+    }
+
     public void testStats() throws Exception {
         final Processor processor = mock(Processor.class);
         final Processor processorFailure = mock(Processor.class);
@@ -35,7 +35,7 @@ import java.util.stream.Stream;
 public class IngestStatsTests extends ESTestCase {
 
     public void testSerialization() throws IOException {
-        IngestStats.Stats totalStats = new IngestStats.Stats(50, 100, 200, 300);
+        IngestStats.Stats totalStats = new IngestStats.Stats(50, 100, 200, 300, 10);
         List<IngestStats.PipelineStat> pipelineStats = createPipelineStats();
         Map<String, List<IngestStats.ProcessorStat>> processorStats = createProcessorStats(pipelineStats);
         IngestStats ingestStats = new IngestStats(totalStats, pipelineStats, processorStats);
@@ -114,6 +114,7 @@ public class IngestStatsTests extends ESTestCase {
         assertEquals(fromObject.getIngestFailedCount(), fromStream.getIngestFailedCount());
         assertEquals(fromObject.getIngestTimeInMillis(), fromStream.getIngestTimeInMillis());
         assertEquals(fromObject.getIngestCurrent(), fromStream.getIngestCurrent());
+        assertEquals(fromObject.getIngestBatchCount(), fromStream.getIngestBatchCount());
     }
 
     private IngestStats.Stats getPipelineStats(List<IngestStats.PipelineStat> pipelineStats, String id) {
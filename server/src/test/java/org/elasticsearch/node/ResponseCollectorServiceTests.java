@@ -71,6 +71,26 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    public void testResponseTimePercentile() {
+        assertThat(collector.responseTimePercentile("node1", 95), equalTo(-1L));
+        for (int i = 1; i < ResponseCollectorService.MIN_RESPONSE_TIME_SAMPLES; i++) {
+            collector.addNodeStatistics("node1", 1, i, 10);
+        }
+        assertThat(collector.responseTimePercentile("node1", 95), equalTo(-1L));
+
+        // fill the window with 1..RESPONSE_TIME_SAMPLES after some older, slower responses that must have been evicted
+        for (int i = 0; i < ResponseCollectorService.RESPONSE_TIME_SAMPLES; i++) {
+            collector.addNodeStatistics("node1", 1, 1_000_000, 10);
+        }
+        for (int i = 1; i <= ResponseCollectorService.RESPONSE_TIME_SAMPLES; i++) {
+            collector.addNodeStatistics("node1", 1, i, 10);
+        }
+        assertThat(collector.responseTimePercentile("node1", 50), equalTo(64L));
+        assertThat(collector.responseTimePercentile("node1", 100), equalTo(128L));
+        assertThat(collector.responseTimePercentile("node1", 0), equalTo(1L));
+        assertThat(collector.responseTimePercentile("node2", 50), equalTo(-1L));
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
@@ -0,0 +1,92 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.repositories.blobstore;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ContentDefinedChunkerTests extends ESTestCase {
+
+    private static final int AVERAGE_CHUNK_SIZE = 4096;
+
+    public void testChunkSizes() throws IOException {
+        final byte[] bytes = randomByteArrayOfLength(randomIntBetween(0, 64 * AVERAGE_CHUNK_SIZE));
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(AVERAGE_CHUNK_SIZE);
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        final ByteArrayOutputStream concatenated = new ByteArrayOutputStream();
+        final List<Integer> lengths = new ArrayList<>();
+        int length;
+        while ((length = chunker.nextChunk(inputStream)) > 0) {
+            assertThat(length, lessThanOrEqualTo(4 * AVERAGE_CHUNK_SIZE));
+            concatenated.write(chunker.chunk(), 0, length);
+            lengths.add(length);
+        }
+        assertThat(chunker.nextChunk(inputStream), equalTo(0));
+        assertArrayEquals(bytes, concatenated.toByteArray());
+        for (int i = 0; i < lengths.size() - 1; i++) {
+            assertThat(lengths.get(i), greaterThan(AVERAGE_CHUNK_SIZE / 4));
+        }
+    }
+
+    public void testChunksAreContentDefined() throws IOException {
+        final byte[] original = randomByteArrayOfLength(between(32, 64) * AVERAGE_CHUNK_SIZE);
+        // insert some bytes in the middle of the content, which must only change the chunks around the insertion
+        final int insertAt = between(0, original.length);
+        final byte[] inserted = randomByteArrayOfLength(between(1, AVERAGE_CHUNK_SIZE));
+        final byte[] modified = new byte[original.length + inserted.length];
+        System.arraycopy(original, 0, modified, 0, insertAt);
+        System.arraycopy(inserted, 0, modified, insertAt, inserted.length);
+        System.arraycopy(original, insertAt, modified, insertAt + inserted.length, original.length - insertAt);
+
+        final List<String> originalChunks = chunkHashes(original);
+        final List<String> modifiedChunks = chunkHashes(modified);
+        assertThat(chunkHashes(original), equalTo(originalChunks));
+
+        final Set<String> newChunks = new HashSet<>(modifiedChunks);
+        newChunks.removeAll(originalChunks);
+        assertThat(originalChunks.size(), greaterThanOrEqualTo(8));
+        assertThat("chunks " + originalChunks + " vs " + modifiedChunks, newChunks.size(), lessThanOrEqualTo(4));
+    }
+
+    public void testRejectsInvalidAverageChunkSize() {
+        expectThrows(IllegalArgumentException.class, () -> new ContentDefinedChunker(between(0, 1023)));
+    }
+
+    private static List<String> chunkHashes(byte[] bytes) throws IOException {
+        final ContentDefinedChunker chunker = new ContentDefinedChunker(AVERAGE_CHUNK_SIZE);
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        final List<String> hashes = new ArrayList<>();
+        while (chunker.nextChunk(inputStream) > 0) {
+            hashes.add(chunker.chunkHash());
+        }
+        return hashes;
+    }
+}
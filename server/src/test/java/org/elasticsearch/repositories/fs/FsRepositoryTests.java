@@ -67,16 +67,22 @@ import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class FsRepositoryTests extends ESTestCase {
 
@@ -170,6 +176,69 @@ public class FsRepositoryTests extends ESTestCase {
         }
     }
 
+    public void testSnapshotAndRestoreWithDeduplicatedChunks() throws IOException, InterruptedException {
+        ThreadPool threadPool = new TestThreadPool(getClass().getSimpleName());
+        try (Directory directory = newDirectory()) {
+            Path repo = createTempDir();
+            Settings settings = Settings.builder()
+                .put(Environment.PATH_HOME_SETTING.getKey(), createTempDir().toAbsolutePath())
+                .put(Environment.PATH_REPO_SETTING.getKey(), repo.toAbsolutePath())
+                .putList(Environment.PATH_DATA_SETTING.getKey(), tmpPaths())
+                .put("location", repo)
+                .put("compress", randomBoolean())
+                .put("deduplicate_chunks", true)
+                .put("deduplication_chunk_size", 64, ByteSizeUnit.KB).build();
+
+            final int numDocs = indexDocs(directory, between(1000, 2000), 1024);
+            RepositoryMetadata metadata = new RepositoryMetadata("test", "fs", settings);
+            FsRepository repository = new FsRepository(metadata, new Environment(settings, null), NamedXContentRegistry.EMPTY,
+                BlobStoreTestUtil.mockClusterService(), MockBigArrays.NON_RECYCLING_INSTANCE, new RecoverySettings(settings,
+                new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)));
+            repository.start();
+            final Settings indexSettings = Settings.builder().put(IndexMetadata.SETTING_INDEX_UUID, "myindexUUID").build();
+            IndexSettings idxSettings = IndexSettingsModule.newIndexSettings("myindex", indexSettings);
+            ShardId shardId = new ShardId(idxSettings.getIndex(), 1);
+            Store store = new Store(shardId, idxSettings, directory, new DummyShardLock(shardId));
+            SnapshotId snapshotId = new SnapshotId("test", "test");
+            IndexId indexId = new IndexId(idxSettings.getIndex().getName(), idxSettings.getUUID());
+
+            IndexCommit indexCommit = Lucene.getIndexCommit(Lucene.readSegmentInfos(store.directory()), store.directory());
+            final PlainActionFuture<String> future = PlainActionFuture.newFuture();
+            runGeneric(threadPool, () -> repository.snapshotShard(store, null, snapshotId, indexId, indexCommit, null,
+                IndexShardSnapshotStatus.newInitializing(null), Version.CURRENT, Collections.emptyMap(), future));
+            future.actionGet();
+
+            final Set<String> chunkBlobs = new HashSet<>();
+            final Set<String> dataBlobs = new HashSet<>();
+            try (Stream<Path> paths = Files.walk(repo)) {
+                paths.map(path -> path.getFileName().toString()).forEach(name -> {
+                    if (name.startsWith("c__")) {
+                        chunkBlobs.add(name);
+                    } else if (name.startsWith("__")) {
+                        dataBlobs.add(name);
+                    }
+                });
+            }
+            assertThat(dataBlobs, empty());
+            assertThat(chunkBlobs.size(), greaterThan(indexCommit.getFileNames().size()));
+
+            Lucene.cleanLuceneIndex(directory);
+            DiscoveryNode localNode = new DiscoveryNode("foo", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
+            ShardRouting routing = ShardRouting.newUnassigned(shardId, true, new RecoverySource.SnapshotRecoverySource("test",
+                    new Snapshot("foo", snapshotId), Version.CURRENT, indexId),
+                new UnassignedInfo(UnassignedInfo.Reason.EXISTING_INDEX_RESTORED, ""));
+            routing = ShardRoutingHelper.initialize(routing, localNode.getId(), 0);
+            RecoveryState state = new RecoveryState(routing, localNode, null);
+            final PlainActionFuture<Void> restoreFuture = PlainActionFuture.newFuture();
+            runGeneric(threadPool, () -> repository.restoreShard(store, snapshotId, indexId, shardId, state, restoreFuture));
+            restoreFuture.actionGet();
+            assertEquals(indexCommit.getFileNames().size(), state.getIndex().recoveredFileCount());
+            assertEquals(numDocs, Lucene.readSegmentInfos(directory).totalMaxDoc());
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
     private void runGeneric(ThreadPool threadPool, Runnable runnable) throws InterruptedException {
         CountDownLatch latch = new CountDownLatch(1);
         threadPool.generic().submit(() -> {
@@ -199,14 +268,17 @@ public class FsRepositoryTests extends ESTestCase {
     }
 
     private int indexDocs(Directory directory) throws IOException {
+        return indexDocs(directory, 1 + random().nextInt(100), 20);
+    }
+
+    private int indexDocs(Directory directory, int docs, int maxBodyLength) throws IOException {
         try(IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig(random(),
             new MockAnalyzer(random())).setCodec(TestUtil.getDefaultCodec()))) {
-            int docs = 1 + random().nextInt(100);
             for (int i = 0; i < docs; i++) {
                 Document doc = new Document();
                 doc.add(new StringField("id", "" + i, random().nextBoolean() ? Field.Store.YES : Field.Store.NO));
-                doc.add(new TextField("body",
-                    TestUtil.randomRealisticUnicodeString(random()), random().nextBoolean() ? Field.Store.YES : Field.Store.NO));
+                doc.add(new TextField("body", TestUtil.randomRealisticUnicodeString(random(), maxBodyLength),
+                    random().nextBoolean() ? Field.Store.YES : Field.Store.NO));
                 doc.add(new SortedDocValuesField("dv", new BytesRef(TestUtil.randomRealisticUnicodeString(random()))));
                 writer.addDocument(doc);
             }
@@ -19,10 +19,12 @@
 
 package org.elasticsearch.rest;
 
+import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
@@ -63,6 +65,7 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -295,6 +298,30 @@ public class RestControllerTests extends ESTestCase {
         assertEquals(0, inFlightRequestsBreaker.getUsed());
     }
 
+    public void testDispatchRequestFreesBytesOfRetainedContentOnRelease() {
+        int contentLength = BREAKER_LIMIT.bytesAsInt();
+        String content = randomAlphaOfLength((int) Math.round(contentLength / inFlightRequestsBreaker.getOverhead()));
+        RestRequest request = testRestRequest("/retain", content, XContentType.JSON);
+        AssertingChannel channel = new AssertingChannel(request, true, RestStatus.OK);
+        SetOnce<ReleasableBytesReference> retained = new SetOnce<>();
+        restController.registerHandler(RestRequest.Method.GET, "/retain", (r, c, client) -> {
+            retained.set(r.retainRequiredContent());
+            c.sendResponse(new BytesRestResponse(RestStatus.OK, BytesRestResponse.TEXT_CONTENT_TYPE, BytesArray.EMPTY));
+        });
+
+        restController.dispatchRequest(request, channel, client.threadPool().getThreadContext());
+
+        assertTrue(channel.getSendResponseCalled());
+        assertEquals(content, retained.get().utf8ToString());
+        assertThat(inFlightRequestsBreaker.getUsed(), greaterThan(0L));
+        ReleasableBytesReference slice = retained.get().retainedSlice(0, 1);
+        retained.get().close();
+        assertThat(inFlightRequestsBreaker.getUsed(), greaterThan(0L));
+        slice.close();
+        assertEquals(0, inFlightRequestsBreaker.getTrippedCount());
+        assertEquals(0, inFlightRequestsBreaker.getUsed());
+    }
+
     public void testDispatchRequestLimitsBytes() {
         int contentLength = BREAKER_LIMIT.bytesAsInt() + 1;
         String content = randomAlphaOfLength((int) Math.round(contentLength / inFlightRequestsBreaker.getOverhead()));
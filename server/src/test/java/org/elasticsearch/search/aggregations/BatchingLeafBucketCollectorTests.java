@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BatchingLeafBucketCollectorTests extends ESTestCase {
+
+    public void testCollectsAllDocsInOrder() throws Exception {
+        List<Integer> collected = new ArrayList<>();
+        List<Long> buckets = new ArrayList<>();
+        List<Integer> blockSizes = new ArrayList<>();
+        BatchingLeafBucketCollector collector = new BatchingLeafBucketCollector(new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) {
+                fail("docs should be collected in blocks");
+            }
+
+            @Override
+            public void collect(int[] docs, int count, long owningBucketOrd) {
+                blockSizes.add(count);
+                for (int i = 0; i < count; i++) {
+                    collected.add(docs[i]);
+                    buckets.add(owningBucketOrd);
+                }
+            }
+        });
+
+        int numDocs = randomIntBetween(0, 5 * BatchingLeafBucketCollector.BLOCK_SIZE);
+        List<Integer> expected = new ArrayList<>();
+        List<Long> expectedBuckets = new ArrayList<>();
+        long bucket = 0;
+        for (int doc = 0; doc < numDocs; doc++) {
+            if (rarely()) {
+                bucket = randomLongBetween(0, 3);
+            }
+            if (randomBoolean()) {
+                collector.collect(doc, bucket);
+                expected.add(doc);
+                expectedBuckets.add(bucket);
+            }
+        }
+        collector.flush();
+        // flushing twice doesn't hand the docs over again
+        collector.flush();
+
+        assertThat(collected, equalTo(expected));
+        assertThat(buckets, equalTo(expectedBuckets));
+        for (int blockSize : blockSizes) {
+            assertThat(blockSize, lessThanOrEqualTo(BatchingLeafBucketCollector.BLOCK_SIZE));
+        }
+    }
+
+    public void testBlocksFlushBufferedDocsFirst() throws Exception {
+        List<Integer> collected = new ArrayList<>();
+        BatchingLeafBucketCollector collector = new BatchingLeafBucketCollector(new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long owningBucketOrd) {
+                collected.add(doc);
+            }
+        });
+        collector.collect(1, 0);
+        collector.collect(2, 0);
+        assertThat(collected.size(), equalTo(0));
+        collector.collect(new int[] { 3, 4, 5 }, 2, 0);
+        assertThat(collected, equalTo(Arrays.asList(1, 2, 3, 4)));
+        collector.flush();
+        assertThat(collected, equalTo(Arrays.asList(1, 2, 3, 4)));
+    }
+}
@@ -19,40 +19,67 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.common.TriConsumer;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.time.DateFormatters;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.test.IndexSettingsModule;
 import org.hamcrest.Matcher;
 
 import java.io.IOException;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
 
 public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCase {
@@ -1225,6 +1252,131 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
         }
     }
 
+    public void testSortedIndexCountsWholeSegments() throws IOException {
+        sortedIndexTestCase(new MatchAllDocsQuery(), false, false, (expected, actual, debug) -> {
+            assertThat(actual, equalTo(expected));
+            assertThat(debug.get("segments_counted"), equalTo(debug.get("segments")));
+            assertThat(debug.get("segments_collected_sorted"), equalTo(0));
+        });
+    }
+
+    public void testSortedIndexWithQuery() throws IOException {
+        long from = asLong("2020-01-10T00:00:00");
+        long to = asLong("2020-01-20T00:00:00");
+        sortedIndexTestCase(LongPoint.newRangeQuery(AGGREGABLE_DATE, from, to), false, false, (expected, actual, debug) -> {
+            Map<Long, Long> filtered = new TreeMap<>();
+            for (Map.Entry<Long, Long> e : expected.entrySet()) {
+                if (e.getKey() >= from && e.getKey() <= to) {
+                    filtered.put(e.getKey(), e.getValue());
+                }
+            }
+            // the last bucket of the range only holds the docs that are exactly on its start
+            filtered.remove(to);
+            Map<Long, Long> inRange = new TreeMap<>(actual);
+            inRange.remove(to);
+            assertThat(inRange, equalTo(filtered));
+            assertThat(debug.get("segments_counted"), equalTo(0));
+        });
+    }
+
+    public void testSortedIndexWithSubAggregation() throws IOException {
+        sortedIndexTestCase(new MatchAllDocsQuery(), true, false, (expected, actual, debug) -> {
+            assertThat(actual, equalTo(expected));
+            assertThat(debug.get("segments_counted"), equalTo(0));
+        });
+    }
+
+    public void testSortedIndexWithDeletedDocs() throws IOException {
+        sortedIndexTestCase(new MatchAllDocsQuery(), false, true, (expected, actual, debug) -> {
+            assertThat(actual, equalTo(expected));
+        });
+    }
+
+    /**
+     * Runs a {@code date_histogram} with a daily interval on an index sorted
+     * on the date and checks the doc counts of the buckets against the counts
+     * of the indexed values.
+     */
+    private void sortedIndexTestCase(
+        Query query,
+        boolean withSubAggregation,
+        boolean withDeletes,
+        TriConsumer<Map<Long, Long>, Map<Long, Long>, Map<String, Object>> verify
+    ) throws IOException {
+        DateFieldMapper.DateFieldType ft = aggregableDateFieldType(false, true);
+        boolean reverse = randomBoolean();
+        Sort indexSort = new Sort(new SortedNumericSortField(AGGREGABLE_DATE, SortField.Type.LONG, reverse));
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings(
+            new Index("_index", "0"),
+            Settings.builder()
+                .put("index.sort.field", AGGREGABLE_DATE)
+                .put("index.sort.order", reverse ? "desc" : "asc")
+                .build()
+        );
+
+        long start = asLong("2020-01-01T00:00:00");
+        Map<Long, Long> expected = new TreeMap<>();
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = newIndexWriterConfig(random(), new MockAnalyzer(random()));
+            config.setIndexSort(indexSort);
+            config.setCodec(TestUtil.getDefaultCodec());
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory, config)) {
+                int numDocs = randomIntBetween(1, 1000);
+                for (int i = 0; i < numDocs; i++) {
+                    long instant = start + randomLongBetween(0, TimeUnit.DAYS.toMillis(30));
+                    boolean deleted = withDeletes && randomBoolean();
+                    indexWriter.addDocument(
+                        List.of(
+                            new SortedNumericDocValuesField(AGGREGABLE_DATE, instant),
+                            new LongPoint(AGGREGABLE_DATE, instant),
+                            new StringField("deleted", Boolean.toString(deleted), Field.Store.NO)
+                        )
+                    );
+                    if (deleted == false) {
+                        expected.merge(instant - Math.floorMod(instant, TimeUnit.DAYS.toMillis(1)), 1L, Long::sum);
+                    }
+                }
+                indexWriter.deleteDocuments(new Term("deleted", "true"));
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                SearchContext context = createSearchContext(
+                    searcher,
+                    indexSettings,
+                    query,
+                    new MultiBucketConsumer(DEFAULT_MAX_BUCKETS, new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)),
+                    new NoneCircuitBreakerService(),
+                    ft
+                );
+                DateHistogramAggregationBuilder builder = new DateHistogramAggregationBuilder("_name").field(AGGREGABLE_DATE)
+                    .calendarInterval(DateHistogramInterval.DAY);
+                if (withSubAggregation) {
+                    builder.subAggregation(new MaxAggregationBuilder("max").field(AGGREGABLE_DATE));
+                }
+                Aggregator agg = createAggregator(builder, context);
+                assertThat(agg, instanceOf(DateHistogramAggregator.class));
+                agg.preCollection();
+                context.searcher().search(context.query(), agg);
+                InternalDateHistogram histogram = (InternalDateHistogram) agg.buildTopLevel();
+
+                Map<Long, Long> actual = new TreeMap<>();
+                for (InternalDateHistogram.Bucket bucket : histogram.getBuckets()) {
+                    long key = ((ZonedDateTime) bucket.getKey()).toInstant().toEpochMilli();
+                    actual.put(key, bucket.getDocCount());
+                    if (withSubAggregation) {
+                        double max = ((Max) bucket.getAggregations().get("max")).getValue();
+                        assertThat(max, greaterThanOrEqualTo((double) key));
+                        assertThat(max, lessThan((double) key + TimeUnit.DAYS.toMillis(1)));
+                    }
+                }
+                Map<String, Object> debug = new HashMap<>();
+                agg.collectDebugInfo(debug::put);
+                debug.put("segments", reader.leaves().size());
+                verify.apply(expected, actual, debug);
+            }
+        }
+    }
+
     public void testIllegalInterval() throws IOException {
         IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> testSearchCase(new MatchAllDocsQuery(),
             Collections.emptyList(),
@@ -29,14 +29,29 @@ public class FetchPhaseTests extends ESTestCase {
             docs[i] = new FetchPhase.DocIdToIndex(start, i);
             ++ start;
         }
-        assertTrue(FetchPhase.hasSequentialDocs(docs));
+        assertTrue(FetchPhase.useSequentialStoredFieldsReader(docs, 0, docs.length));
+        // too few docs
+        int from = randomIntBetween(1, 9);
+        assertFalse(FetchPhase.useSequentialStoredFieldsReader(docs, from, docs.length));
+        assertFalse(FetchPhase.useSequentialStoredFieldsReader(docs, 0, docs.length - from));
 
-        int from = randomIntBetween(0, 9);
+        from = randomIntBetween(0, 9);
         start = docs[from].docId;
         for (int i = from; i < 10; i++) {
-            start += randomIntBetween(2, 10);
+            start += randomIntBetween(2, FetchPhase.SEQUENTIAL_ACCESS_MAX_AVERAGE_GAP);
             docs[i] = new FetchPhase.DocIdToIndex(start, i);
         }
-        assertFalse(FetchPhase.hasSequentialDocs(docs));
+        // close enough to share compressed blocks
+        assertTrue(FetchPhase.useSequentialStoredFieldsReader(docs, 0, docs.length));
+    }
+
+    public void testSparseDocs() {
+        FetchPhase.DocIdToIndex[] docs = new FetchPhase.DocIdToIndex[randomIntBetween(10, 100)];
+        int start = randomIntBetween(0, Short.MAX_VALUE);
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = new FetchPhase.DocIdToIndex(start, i);
+            start += randomIntBetween(FetchPhase.SEQUENTIAL_ACCESS_MAX_AVERAGE_GAP + 1, 1000);
+        }
+        assertFalse(FetchPhase.useSequentialStoredFieldsReader(docs, 0, docs.length));
     }
 }
@@ -83,6 +83,8 @@ import static org.elasticsearch.search.internal.ExitableDirectoryReader.Exitable
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
     public void testIntersectScorerAndRoleBits() throws Exception {
@@ -186,6 +188,37 @@ public class ContextIndexSearcherTests extends ESTestCase {
         doTestContextIndexSearcher(false, true);
     }
 
+    public void testComputeSlicesKeepsLeavesInOrder() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numSegments = randomIntBetween(1, 30);
+            for (int i = 0; i < numSegments; i++) {
+                for (int j = randomIntBetween(1, 20); j > 0; j--) {
+                    w.addDocument(new Document());
+                }
+                w.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final int maxDocsPerSlice = randomIntBetween(1, 100);
+                final int maxSegmentsPerSlice = randomIntBetween(1, 10);
+                final IndexSearcher.LeafSlice[] slices =
+                    ContextIndexSearcher.computeSlices(reader.leaves(), maxDocsPerSlice, maxSegmentsPerSlice);
+                int ord = 0;
+                for (IndexSearcher.LeafSlice slice : slices) {
+                    assertThat(slice.leaves.length, lessThanOrEqualTo(maxSegmentsPerSlice));
+                    int docs = 0;
+                    for (LeafReaderContext leaf : slice.leaves) {
+                        assertThat(leaf.ord, equalTo(ord++));
+                        // only the last leaf of a slice can exceed the maximum number of documents
+                        assertThat(docs, lessThan(maxDocsPerSlice));
+                        docs += leaf.reader().maxDoc();
+                    }
+                }
+                assertThat(ord, equalTo(reader.leaves().size()));
+            }
+        }
+    }
+
     public void doTestContextIndexSearcher(boolean sparse, boolean deletions) throws IOException {
         Directory dir = newDirectory();
         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null));
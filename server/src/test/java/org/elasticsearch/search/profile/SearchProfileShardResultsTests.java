@@ -54,7 +54,9 @@ public class SearchProfileShardResultsTests  extends ESTestCase {
                 queryProfileResults.add(QueryProfileShardResultTests.createTestItem());
             }
             AggregationProfileShardResult aggProfileShardResult = AggregationProfileShardResultTests.createTestItem(1);
-            searchProfileResults.put(randomAlphaOfLengthBetween(5, 10), new ProfileShardResult(queryProfileResults, aggProfileShardResult));
+            ProfileResult fetchProfileResult = randomBoolean() ? null : ProfileResultTests.createTestItem(1);
+            searchProfileResults.put(randomAlphaOfLengthBetween(5, 10),
+                new ProfileShardResult(queryProfileResults, aggProfileShardResult, fetchProfileResult));
         }
         return new SearchProfileShardResults(searchProfileResults);
     }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile.fetch;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.search.fetch.FetchContext;
+import org.elasticsearch.search.fetch.FetchSubPhase;
+import org.elasticsearch.search.fetch.FetchSubPhaseProcessor;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.Timer;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class FetchProfilerTests extends ESTestCase {
+
+    public void testProfileSubPhases() throws Exception {
+        FetchProfiler profiler = new FetchProfiler();
+        AtomicInteger nextReaders = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        FetchSubPhaseProcessor processor = profiler.profile(new TestSubPhase(), new FetchSubPhaseProcessor() {
+            @Override
+            public void setNextReader(LeafReaderContext readerContext) {
+                nextReaders.incrementAndGet();
+            }
+
+            @Override
+            public void process(FetchSubPhase.HitContext hitContext) {
+                processed.incrementAndGet();
+            }
+        });
+        int leaves = randomIntBetween(1, 5);
+        int docs = 0;
+        for (int leaf = 0; leaf < leaves; leaf++) {
+            processor.setNextReader(null);
+            int leafDocs = randomIntBetween(1, 20);
+            profiler.markLeafLoaded(leafDocs, leaf == 0);
+            for (int doc = 0; doc < leafDocs; doc++) {
+                Timer timer = profiler.getTimer(FetchTimingType.LOAD_STORED_FIELDS);
+                timer.start();
+                timer.stop();
+                processor.process(null);
+            }
+            docs += leafDocs;
+        }
+        assertThat(nextReaders.get(), equalTo(leaves));
+        assertThat(processed.get(), equalTo(docs));
+
+        ProfileResult result = profiler.getResult();
+        assertThat(result.getQueryName(), equalTo("fetch"));
+        assertThat(result.getTimeBreakdown().get("load_stored_fields_count"), equalTo((long) docs));
+        assertThat(result.getTimeBreakdown().get("next_reader_count"), equalTo(0L));
+        assertThat(result.getDebugInfo().get("docs_loaded"), equalTo(docs));
+        assertThat(result.getDebugInfo().get("sequential_readers"), equalTo(1));
+        assertThat(result.getProfiledChildren().size(), equalTo(1));
+
+        ProfileResult child = result.getProfiledChildren().get(0);
+        assertThat(child.getQueryName(), equalTo("TestSubPhase"));
+        assertThat(child.getTimeBreakdown().get("next_reader_count"), equalTo((long) leaves));
+        assertThat(child.getTimeBreakdown().get("process_count"), equalTo((long) docs));
+        assertThat(result.getTime(), greaterThanOrEqualTo(child.getTime()));
+    }
+
+    private static class TestSubPhase implements FetchSubPhase {
+        @Override
+        public FetchSubPhaseProcessor getProcessor(FetchContext fetchContext) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -93,6 +93,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -926,6 +927,107 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentSegmentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numSegments = randomIntBetween(6, 20);
+        final String[] words = new String[] { "foo", "bar", "baz" };
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                StringBuilder text = new StringBuilder();
+                for (int k = randomIntBetween(1, 5); k > 0; k--) {
+                    text.append(randomFrom(words)).append(' ');
+                }
+                doc.add(new TextField("text", text.toString(), Store.NO));
+                doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 20)));
+                doc.add(new StringField("id", i + "_" + j, Store.NO));
+                w.addDocument(doc);
+            }
+            if (numDocs > 1 && randomBoolean()) {
+                w.deleteDocuments(new Term("id", i + "_" + randomIntBetween(0, numDocs - 1)));
+            }
+            w.commit();
+        }
+        w.close();
+
+        IndexReader reader = DirectoryReader.open(dir);
+        final ContextIndexSearcher concurrentSearcher = newContextSearcher(reader);
+        concurrentSearcher.setSliceExecutor(indexShard.getThreadPool().executor(ThreadPool.Names.SEARCH_WORKER));
+        assertNotNull(concurrentSearcher.getConcurrentSlices());
+        for (int iter = 0; iter < 20; iter++) {
+            final Query query = randomBoolean() ? new TermQuery(new Term("text", randomFrom(words))) : new MatchAllDocsQuery();
+            final int size = randomIntBetween(0, 30);
+            final int trackTotalHitsUpTo = randomFrom(SearchContext.TRACK_TOTAL_HITS_ACCURATE, SearchContext.TRACK_TOTAL_HITS_DISABLED,
+                randomIntBetween(1, 100));
+            final SortAndFormats sort = randomBoolean() ? null
+                : new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT, randomBoolean())),
+                    new DocValueFormat[] { DocValueFormat.RAW });
+
+            final TestSearchContext sequentialContext = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+            final TestSearchContext concurrentContext = new TestSearchContext(null, indexShard, concurrentSearcher);
+            for (TestSearchContext context : List.of(sequentialContext, concurrentContext)) {
+                context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+                context.parsedQuery(new ParsedQuery(query));
+                context.setSize(size);
+                context.trackTotalHitsUpTo(trackTotalHitsUpTo);
+                if (sort != null) {
+                    context.sort(sort);
+                }
+                assertTrue(QueryPhase.canSearchConcurrently(context));
+                QueryPhase.executeInternal(context);
+            }
+
+            final TopDocs expected = sequentialContext.queryResult().topDocs().topDocs;
+            final TopDocs actual = concurrentContext.queryResult().topDocs().topDocs;
+            if (expected.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+                assertEquals(expected.totalHits, actual.totalHits);
+            } else {
+                assertEquals(TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO, actual.totalHits.relation);
+                assertThat(actual.totalHits.value, greaterThanOrEqualTo(expected.totalHits.value));
+            }
+            assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertThat(actual.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+                assertThat(actual.scoreDocs[i].shardIndex, equalTo(-1));
+                if (sort == null) {
+                    assertThat(actual.scoreDocs[i].score, equalTo(expected.scoreDocs[i].score));
+                } else {
+                    assertArrayEquals(((FieldDoc) expected.scoreDocs[i]).fields, ((FieldDoc) actual.scoreDocs[i]).fields);
+                }
+            }
+            assertThat(concurrentContext.queryResult().getMaxScore(),
+                equalTo(sequentialContext.queryResult().getMaxScore()));
+        }
+        reader.close();
+        dir.close();
+    }
+
+    public void testConcurrentSegmentSearchFallsBackToSequential() throws Exception {
+        try (Directory dir = newDirectory();
+             IndexReader reader = DirectoryReader.open(new RandomIndexWriter(random(), dir).w)) {
+            TestSearchContext context = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+            context.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+            assertTrue(QueryPhase.canSearchConcurrently(context));
+            context.minimumScore(1f);
+            assertFalse(QueryPhase.canSearchConcurrently(context));
+
+            context = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+            context.parsedPostFilter(new ParsedQuery(new MatchAllDocsQuery()));
+            assertFalse(QueryPhase.canSearchConcurrently(context));
+
+            context = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+            context.terminateAfter(1);
+            assertFalse(QueryPhase.canSearchConcurrently(context));
+
+            context = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+            context.queryCollectors().put(TotalHitCountCollector.class, new TotalHitCountCollector());
+            assertFalse(QueryPhase.canSearchConcurrently(context));
+        }
+    }
+
     public void testCancellationDuringPreprocess() throws IOException {
         try (Directory dir = newDirectory();
              RandomIndexWriter w = new RandomIndexWriter(random(), dir, newIndexWriterConfig())) {
@@ -140,6 +140,8 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.IndexScopedSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.PageCacheRecycler;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
@@ -1077,7 +1079,10 @@ public class SnapshotResiliencyTests extends ESTestCase {
         final StepListener<AcknowledgedResponse> createRepositoryListener = new StepListener<>();
 
         client().admin().cluster().preparePutRepository(repoName).setType(FsRepository.TYPE)
-            .setSettings(Settings.builder().put("location", randomAlphaOfLength(10))).execute(createRepositoryListener);
+            .setSettings(Settings.builder().put("location", randomAlphaOfLength(10))
+                .put(BlobStoreRepository.DEDUPLICATE_CHUNKS_SETTING.getKey(), randomBoolean())
+                .put(BlobStoreRepository.DEDUPLICATION_CHUNK_SIZE_SETTING.getKey(), new ByteSizeValue(64, ByteSizeUnit.KB)))
+            .execute(createRepositoryListener);
 
         final StepListener<CreateIndexResponse> createIndexResponseStepListener = new StepListener<>();
 
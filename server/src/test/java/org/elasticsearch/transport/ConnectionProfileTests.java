@@ -42,7 +42,8 @@ public class ConnectionProfileTests extends ESTestCase {
         TimeValue connectTimeout = TimeValue.timeValueMillis(randomIntBetween(1, 10));
         TimeValue handshakeTimeout = TimeValue.timeValueMillis(randomIntBetween(1, 10));
         TimeValue pingInterval = TimeValue.timeValueMillis(randomIntBetween(1, 10));
-        boolean compressionEnabled = randomBoolean();
+        Compression.Enabled compressionEnabled = randomFrom(Compression.Enabled.values());
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.values());
         final boolean setConnectTimeout = randomBoolean();
         if (setConnectTimeout) {
             builder.setConnectTimeout(connectTimeout);
@@ -55,6 +56,10 @@ public class ConnectionProfileTests extends ESTestCase {
         if (setCompress) {
             builder.setCompressionEnabled(compressionEnabled);
         }
+        final boolean setCompressionScheme = randomBoolean();
+        if (setCompressionScheme) {
+            builder.setCompressionScheme(compressionScheme);
+        }
         final boolean setPingInterval = randomBoolean();
         if (setPingInterval) {
             builder.setPingInterval(pingInterval);
@@ -92,6 +97,12 @@ public class ConnectionProfileTests extends ESTestCase {
             assertNull(build.getCompressionEnabled());
         }
 
+        if (setCompressionScheme) {
+            assertEquals(compressionScheme, build.getCompressionScheme());
+        } else {
+            assertNull(build.getCompressionScheme());
+        }
+
         if (setPingInterval) {
             assertEquals(pingInterval, build.getPingInterval());
         } else {
@@ -182,7 +193,11 @@ public class ConnectionProfileTests extends ESTestCase {
         }
         final boolean connectionCompressSet = randomBoolean();
         if (connectionCompressSet) {
-            builder.setCompressionEnabled(randomBoolean());
+            builder.setCompressionEnabled(randomFrom(Compression.Enabled.values()));
+        }
+        final boolean connectionCompressionSchemeSet = randomBoolean();
+        if (connectionCompressionSchemeSet) {
+            builder.setCompressionScheme(randomFrom(Compression.Scheme.values()));
         }
 
         final ConnectionProfile profile = builder.build();
@@ -199,6 +214,8 @@ public class ConnectionProfileTests extends ESTestCase {
             equalTo(pingIntervalSet ? profile.getPingInterval() : defaultProfile.getPingInterval()));
         assertThat(resolved.getCompressionEnabled(),
             equalTo(connectionCompressSet ? profile.getCompressionEnabled() : defaultProfile.getCompressionEnabled()));
+        assertThat(resolved.getCompressionScheme(),
+            equalTo(connectionCompressionSchemeSet ? profile.getCompressionScheme() : defaultProfile.getCompressionScheme()));
     }
 
     public void testDefaultConnectionProfile() {
@@ -212,6 +229,7 @@ public class ConnectionProfileTests extends ESTestCase {
         assertEquals(TransportSettings.CONNECT_TIMEOUT.get(Settings.EMPTY), profile.getConnectTimeout());
         assertEquals(TransportSettings.CONNECT_TIMEOUT.get(Settings.EMPTY), profile.getHandshakeTimeout());
         assertEquals(TransportSettings.TRANSPORT_COMPRESS.get(Settings.EMPTY), profile.getCompressionEnabled());
+        assertEquals(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(Settings.EMPTY), profile.getCompressionScheme());
         assertEquals(TransportSettings.PING_SCHEDULE.get(Settings.EMPTY), profile.getPingInterval());
 
         profile = ConnectionProfile.buildDefaultConnectionProfile(nonMasterNode());
@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.Lz4Compressor;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Lz4TransportDecompressorTests extends ESTestCase {
+
+    public void testSimpleCompression() throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            byte randomByte = randomByte();
+            try (OutputStream lz4Stream = Compression.Scheme.LZ4.compressor().threadLocalOutputStream(
+                    Streams.flushOnCloseStream(output))) {
+                lz4Stream.write(randomByte);
+            }
+
+            BytesReference bytes = output.bytes();
+
+            TransportDecompressor decompressor = TransportDecompressor.getDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE, bytes);
+            assertEquals(Compression.Scheme.LZ4, decompressor.getScheme());
+            int bytesConsumed = decompressor.decompress(bytes);
+            assertEquals(bytes.length(), bytesConsumed);
+            assertTrue(decompressor.isEOS());
+            ReleasableBytesReference releasableBytesReference = decompressor.pollDecompressedPage();
+            assertEquals(randomByte, releasableBytesReference.get(0));
+            releasableBytesReference.close();
+        }
+    }
+
+    public void testMultiPageCompression() throws IOException {
+        final int ints = randomIntBetween(10000, 40000);
+        BytesReference bytes = compressInts(ints);
+
+        TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+        int bytesConsumed = decompressor.decompress(bytes);
+        assertEquals(bytes.length(), bytesConsumed);
+        assertTrue(decompressor.isEOS());
+        assertDecompressedInts(decompressor, ints);
+    }
+
+    public void testIncrementalMultiPageCompression() throws IOException {
+        final int ints = randomIntBetween(10000, 40000);
+        BytesReference bytes = compressInts(ints);
+
+        TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+
+        // the header is always passed in one piece, the remaining content is split at random points
+        int offset = 0;
+        int end = Compression.Scheme.LZ4.compressor().headerLength();
+        while (offset < bytes.length()) {
+            BytesReference inbound = bytes.slice(offset, end - offset);
+            assertFalse(decompressor.isEOS());
+            assertEquals(inbound.length(), decompressor.decompress(inbound));
+            offset = end;
+            end = Math.min(bytes.length(), end + randomIntBetween(1, 3 * Lz4Compressor.BLOCK_SIZE / 2));
+        }
+        assertTrue(decompressor.isEOS());
+        assertDecompressedInts(decompressor, ints);
+    }
+
+    public void testStopsAtEndOfStream() throws IOException {
+        BytesReference bytes = compressInts(randomIntBetween(1, 100));
+        BytesReference trailing = new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 16)));
+
+        TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+        assertEquals(bytes.length(), decompressor.decompress(CompositeBytesReference.of(bytes, trailing)));
+        assertTrue(decompressor.isEOS());
+        Releasables.close(decompressor.pollDecompressedPage());
+        decompressor.close();
+    }
+
+    public void testCorruptBlockHeader() throws IOException {
+        BytesReference bytes = compressInts(randomIntBetween(1, 100));
+        byte[] corrupted = BytesReference.toBytes(bytes);
+        // an uncompressed length that is larger than the block size
+        corrupted[Compression.Scheme.LZ4.compressor().headerLength()] = (byte) 0x7F;
+
+        TransportDecompressor decompressor = new Lz4TransportDecompressor(PageCacheRecycler.NON_RECYCLING_INSTANCE);
+        expectThrows(IOException.class, () -> decompressor.decompress(new BytesArray(corrupted)));
+        decompressor.close();
+    }
+
+    private static BytesReference compressInts(int ints) throws IOException {
+        try (BytesStreamOutput output = new BytesStreamOutput()) {
+            try (StreamOutput lz4Stream = new OutputStreamStreamOutput(
+                    Compression.Scheme.LZ4.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(output)))) {
+                for (int i = 0; i < ints; ++i) {
+                    lz4Stream.writeInt(i);
+                }
+            }
+            return new BytesArray(BytesReference.toBytes(output.bytes()));
+        }
+    }
+
+    private static void assertDecompressedInts(TransportDecompressor decompressor, int ints) throws IOException {
+        List<ReleasableBytesReference> references = new ArrayList<>();
+        ReleasableBytesReference reference;
+        while ((reference = decompressor.pollDecompressedPage()) != null) {
+            references.add(reference);
+        }
+        assertEquals((4 * ints + PageCacheRecycler.BYTE_PAGE_SIZE - 1) / PageCacheRecycler.BYTE_PAGE_SIZE, references.size());
+        BytesReference composite = CompositeBytesReference.of(references.toArray(new BytesReference[0]));
+        assertEquals(4 * ints, composite.length());
+        StreamInput streamInput = composite.streamInput();
+        for (int i = 0; i < ints; ++i) {
+            assertEquals(i, streamInput.readInt());
+        }
+        Releasables.close(references);
+    }
+}
@@ -52,6 +52,8 @@ import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class OutboundHandlerTests extends ESTestCase {
@@ -63,6 +65,7 @@ public class OutboundHandlerTests extends ESTestCase {
     private OutboundHandler handler;
     private FakeTcpChannel channel;
     private DiscoveryNode node;
+    private StatsTracker statsTracker;
 
     @Before
     public void setUp() throws Exception {
@@ -70,11 +73,11 @@ public class OutboundHandlerTests extends ESTestCase {
         channel = new FakeTcpChannel(randomBoolean(), buildNewFakeTransportAddress().address(), buildNewFakeTransportAddress().address());
         TransportAddress transportAddress = buildNewFakeTransportAddress();
         node = new DiscoveryNode("", transportAddress, Version.CURRENT);
-        StatsTracker statsTracker = new StatsTracker();
+        statsTracker = new StatsTracker();
         handler = new OutboundHandler("node", Version.CURRENT, statsTracker, threadPool, BigArrays.NON_RECYCLING_INSTANCE);
 
         final LongSupplier millisSupplier = () -> TimeValue.nsecToMSec(System.nanoTime());
-        final InboundDecoder decoder = new InboundDecoder(Version.CURRENT, PageCacheRecycler.NON_RECYCLING_INSTANCE);
+        final InboundDecoder decoder = new InboundDecoder(Version.CURRENT, PageCacheRecycler.NON_RECYCLING_INSTANCE, statsTracker);
         final Supplier<CircuitBreaker> breaker = () -> new NoopCircuitBreaker("test");
         final InboundAggregator aggregator = new InboundAggregator(breaker, (Predicate<String>) action -> true);
         pipeline = new InboundPipeline(statsTracker, millisSupplier, decoder, aggregator,
@@ -124,7 +127,7 @@ public class OutboundHandlerTests extends ESTestCase {
         String action = "handshake";
         long requestId = randomLongBetween(0, 300);
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.LZ4, Compression.Scheme.DEFLATE, null);
         String value = "message";
         threadContext.putHeader("header", "header_value");
         TestRequest request = new TestRequest(value);
@@ -143,7 +146,7 @@ public class OutboundHandlerTests extends ESTestCase {
                 requestRef.set(request);
             }
         });
-        handler.sendRequest(node, channel, requestId, action, request, options, version, compress, isHandshake);
+        handler.sendRequest(node, channel, requestId, action, request, options, version, compressionScheme, isHandshake);
 
         BytesReference reference = channel.getMessageCaptor().get();
         ActionListener<Void> sendListener = channel.getListenerCaptor().get();
@@ -171,10 +174,18 @@ public class OutboundHandlerTests extends ESTestCase {
         } else {
             assertFalse(header.isHandshake());
         }
-        if (compress) {
+        if (compressionScheme != null) {
             assertTrue(header.isCompressed());
+            assertEquals(compressionScheme.forVersion(version), header.getCompressionScheme());
+            assertThat(statsTracker.getUncompressedBytesWritten(), greaterThan(0L));
+            assertThat(statsTracker.getCompressedBytesWritten(), greaterThan(0L));
+            assertThat(statsTracker.getCompressedBytesRead(), equalTo(statsTracker.getCompressedBytesWritten()));
+            assertThat(statsTracker.getUncompressedBytesRead(), equalTo(statsTracker.getUncompressedBytesWritten()));
         } else {
             assertFalse(header.isCompressed());
+            assertNull(header.getCompressionScheme());
+            assertEquals(0L, statsTracker.getCompressedBytesWritten());
+            assertEquals(0L, statsTracker.getCompressedBytesRead());
         }
 
         assertEquals(value, message.value);
@@ -187,7 +198,7 @@ public class OutboundHandlerTests extends ESTestCase {
         String action = "handshake";
         long requestId = randomLongBetween(0, 300);
         boolean isHandshake = randomBoolean();
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.LZ4, Compression.Scheme.DEFLATE, null);
         String value = "message";
         threadContext.putHeader("header", "header_value");
         TestResponse response = new TestResponse(value);
@@ -203,7 +214,7 @@ public class OutboundHandlerTests extends ESTestCase {
                 responseRef.set(response);
             }
         });
-        handler.sendResponse(version, channel, requestId, action, response, compress, isHandshake);
+        handler.sendResponse(version, channel, requestId, action, response, compressionScheme, isHandshake);
 
         BytesReference reference = channel.getMessageCaptor().get();
         ActionListener<Void> sendListener = channel.getListenerCaptor().get();
@@ -230,10 +241,18 @@ public class OutboundHandlerTests extends ESTestCase {
         } else {
             assertFalse(header.isHandshake());
         }
-        if (compress) {
+        if (compressionScheme != null) {
             assertTrue(header.isCompressed());
+            assertEquals(compressionScheme.forVersion(version), header.getCompressionScheme());
+            assertThat(statsTracker.getUncompressedBytesWritten(), greaterThan(0L));
+            assertThat(statsTracker.getCompressedBytesWritten(), greaterThan(0L));
+            assertThat(statsTracker.getCompressedBytesRead(), equalTo(statsTracker.getCompressedBytesWritten()));
+            assertThat(statsTracker.getUncompressedBytesRead(), equalTo(statsTracker.getUncompressedBytesWritten()));
         } else {
             assertFalse(header.isCompressed());
+            assertNull(header.getCompressionScheme());
+            assertEquals(0L, statsTracker.getCompressedBytesWritten());
+            assertEquals(0L, statsTracker.getCompressedBytesRead());
         }
 
         assertFalse(header.isError());
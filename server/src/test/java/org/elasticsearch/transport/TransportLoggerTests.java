@@ -89,10 +89,11 @@ public class TransportLoggerTests extends ESTestCase {
     }
 
     private BytesReference buildRequest() throws IOException {
-        boolean compress = randomBoolean();
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.LZ4, Compression.Scheme.DEFLATE, null);
         try (BytesStreamOutput bytesStreamOutput = new BytesStreamOutput()) {
             OutboundMessage.Request request = new OutboundMessage.Request(new ThreadContext(Settings.EMPTY), new ClusterStatsRequest(),
-                Version.CURRENT, ClusterStatsAction.NAME, randomInt(30), false, compress);
+                Version.CURRENT, ClusterStatsAction.NAME, randomInt(30), false,
+                compressionScheme);
             return request.serialize(bytesStreamOutput);
         }
     }
@@ -29,6 +29,7 @@ import org.elasticsearch.xpack.core.ml.inference.trainedmodel.ensemble.Leniently
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.ensemble.OutputAggregator;
 import org.elasticsearch.xpack.core.ml.utils.ExceptionsHelper;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -125,7 +126,41 @@ public class EnsembleInferenceModel implements InferenceModel {
         return innerInfer(features, config, Collections.emptyMap());
     }
 
-    private InferenceResults innerInfer(double[] features, InferenceConfig config, Map<String, String> featureDecoderMap) {
+    /**
+     * Infers the batch one sub model at a time rather than one document at a time, so that the nodes of each tree are walked
+     * for all the documents of the batch while they are in the CPU caches. Feature importance is still computed per document.
+     */
+    @Override
+    public List<InferenceResults> infer(List<Map<String, Object>> fieldsList,
+                                        InferenceConfig config,
+                                        Map<String, String> featureDecoderMap) {
+        if (config.requestingImportance() || fieldsList.size() <= 1) {
+            return InferenceModel.super.infer(fieldsList, config, featureDecoderMap);
+        }
+        checkInferable(config);
+        double[][] features = new double[fieldsList.size()][];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = InferenceModel.extractFeatures(featureNames, fieldsList.get(i));
+        }
+        double[][][] inferenceResults = new double[features.length][this.models.size()][];
+        NullInferenceConfig subModelInferenceConfig = new NullInferenceConfig(false);
+        for (int m = 0; m < models.size(); m++) {
+            InferenceModel model = models.get(m);
+            for (int i = 0; i < features.length; i++) {
+                InferenceResults result = model.infer(features[i], subModelInferenceConfig);
+                assert result instanceof RawInferenceResults;
+                inferenceResults[i][m] = ((RawInferenceResults) result).getValue();
+            }
+        }
+        List<InferenceResults> results = new ArrayList<>(features.length);
+        for (int i = 0; i < features.length; i++) {
+            double[] processed = outputAggregator.processValues(inferenceResults[i]);
+            results.add(buildResults(processed, new double[features[i].length][], featureDecoderMap, config));
+        }
+        return results;
+    }
+
+    private void checkInferable(InferenceConfig config) {
         if (config.isTargetTypeSupported(targetType) == false) {
             throw ExceptionsHelper.badRequestException(
                 "Cannot infer using configuration for [{}] when model target_type is [{}]", config.getName(), targetType.toString());
@@ -133,6 +168,10 @@ public class EnsembleInferenceModel implements InferenceModel {
         if (preparedForInference == false) {
             throw ExceptionsHelper.serverError("model is not prepared for inference");
         }
+    }
+
+    private InferenceResults innerInfer(double[] features, InferenceConfig config, Map<String, String> featureDecoderMap) {
+        checkInferable(config);
         LOGGER.debug(
             () -> new ParameterizedMessage("Inference called with feature names [{}]", Strings.arrayToCommaDelimitedString(featureNames))
         );
@@ -72,14 +72,31 @@ public class InferenceDefinition {
 
     public InferenceResults infer(Map<String, Object> fields, InferenceConfig config) {
         preProcess(fields);
+        checkFeatureImportanceSupported(config);
+        return trainedModel.infer(fields,
+            config,
+            config.requestingImportance() ? getDecoderMap() : Collections.emptyMap());
+    }
+
+    /**
+     * Same as {@link #infer(Map, InferenceConfig)} for a batch of fields.
+     *
+     * @return The results in the same order as the provided fields
+     */
+    public List<InferenceResults> infer(List<Map<String, Object>> fieldsList, InferenceConfig config) {
+        fieldsList.forEach(this::preProcess);
+        checkFeatureImportanceSupported(config);
+        return trainedModel.infer(fieldsList,
+            config,
+            config.requestingImportance() ? getDecoderMap() : Collections.emptyMap());
+    }
+
+    private void checkFeatureImportanceSupported(InferenceConfig config) {
         if (config.requestingImportance() && trainedModel.supportsFeatureImportance() == false) {
             throw ExceptionsHelper.badRequestException(
                 "Feature importance is not supported for the configured model of type [{}]",
                 trainedModel.getName());
         }
-        return trainedModel.infer(fields,
-            config,
-            config.requestingImportance() ? getDecoderMap() : Collections.emptyMap());
     }
 
     public TargetType getTargetType() {
@@ -13,6 +13,8 @@ import org.elasticsearch.xpack.core.ml.inference.trainedmodel.InferenceConfig;
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.InferenceHelpers;
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.TargetType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface InferenceModel extends Accountable {
@@ -54,6 +56,22 @@ public interface InferenceModel extends Accountable {
      */
     InferenceResults infer(double[] features, InferenceConfig config);
 
+    /**
+     * Infer against a batch of fields, such as the documents of a bulk request.
+     * Models may override this to amortize the work of inference across the batch.
+     *
+     * @return The results in the same order as the provided fields
+     */
+    default List<InferenceResults> infer(List<Map<String, Object>> fieldsList,
+                                         InferenceConfig config,
+                                         @Nullable Map<String, String> featureDecoderMap) {
+        List<InferenceResults> results = new ArrayList<>(fieldsList.size());
+        for (Map<String, Object> fields : fieldsList) {
+            results.add(infer(fields, config, featureDecoderMap));
+        }
+        return results;
+    }
+
     /**
      * @return Does the model support feature importance
      */
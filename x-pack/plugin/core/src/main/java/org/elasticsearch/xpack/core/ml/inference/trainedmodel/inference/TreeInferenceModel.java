@@ -9,7 +9,6 @@ package org.elasticsearch.xpack.core.ml.inference.trainedmodel.inference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
-import org.apache.lucene.util.Accountable;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.collect.Tuple;
@@ -84,7 +83,18 @@ public class TreeInferenceModel implements InferenceModel {
         return PARSER.apply(parser, null);
     }
 
-    private final Node[] nodes;
+    // The nodes are stored in parallel arrays indexed by node, the root being the node 0. A node is a leaf if its left child is
+    // negative, in which case its values start at (-leftChild - 1) * leafSize in leafValues. Decisions are normalized so that a
+    // feature that compares lower than the threshold with Double#compare goes to the left child.
+    private final int[] leftChildren;
+    private final int[] rightChildren;
+    private final double[] thresholds;
+    // Allowed to be adjusted for inference optimization
+    private final int[] splitFeatures;
+    private final boolean[] defaultLeft;
+    private final long[] numberSamples;
+    private final double[] leafValues;
+    private final int numLeaves;
     private String[] featureNames;
     private final TargetType targetType;
     private List<String> classificationLabels;
@@ -101,19 +111,41 @@ public class TreeInferenceModel implements InferenceModel {
         if(ExceptionsHelper.requireNonNull(nodes, TREE_STRUCTURE).size() == 0) {
             throw new IllegalArgumentException("[tree_structure] must not be empty");
         }
-        this.nodes = nodes.stream().map(NodeBuilder::build).toArray(Node[]::new);
+        int numNodes = nodes.size();
+        this.leftChildren = new int[numNodes];
+        this.rightChildren = new int[numNodes];
+        this.thresholds = new double[numNodes];
+        this.splitFeatures = new int[numNodes];
+        this.defaultLeft = new boolean[numNodes];
+        this.numberSamples = new long[numNodes];
+        int numLeaves = 0;
+        int leafSize = -1;
+        for (int i = 0; i < numNodes; i++) {
+            NodeBuilder node = nodes.get(i);
+            numberSamples[i] = node.numberSamples;
+            if (node.isLeaf()) {
+                if (leafSize == -1) {
+                    leafSize = node.leafValue.length;
+                } else if (leafSize != node.leafValue.length) {
+                    throw new IllegalArgumentException("[tree_structure] all leaf nodes must have the same number of values");
+                }
+                leftChildren[i] = -1 - numLeaves++;
+            } else {
+                node.normalizeInto(this, i);
+            }
+        }
+        this.numLeaves = numLeaves;
+        this.leafSize = leafSize == -1 ? 1 : leafSize;
+        this.leafValues = new double[numLeaves * this.leafSize];
+        for (int i = 0; i < numNodes; i++) {
+            if (leftChildren[i] < 0) {
+                System.arraycopy(nodes.get(i).leafValue, 0, leafValues, leafOffset(i), this.leafSize);
+            }
+        }
         this.targetType = targetType == null ? TargetType.REGRESSION : targetType;
         this.classificationLabels = classificationLabels == null ? null : Collections.unmodifiableList(classificationLabels);
         this.highOrderCategory = maxLeafValue();
-        int leafSize = 1;
-        for (Node node : this.nodes) {
-            if (node instanceof LeafNode) {
-                leafSize = ((LeafNode)node).leafValue.length;
-                break;
-            }
-        }
-        this.leafSize = leafSize;
-        this.maxDepth = getDepth(this.nodes, 0, 0);
+        this.maxDepth = getDepth(0);
     }
 
     @Override
@@ -213,12 +245,32 @@ public class TreeInferenceModel implements InferenceModel {
         return list;
     }
 
-    private double[] getLeaf(double[] features) {
-        Node node = nodes[0];
-        while(node.isLeaf() == false) {
-            node = nodes[node.compare(features)];
+    /**
+     * @return the values of the leaf that the features lead to
+     */
+    double[] getLeaf(double[] features) {
+        int node = 0;
+        while (isLeaf(node) == false) {
+            node = nextNode(node, features);
+        }
+        int offset = leafOffset(node);
+        return Arrays.copyOfRange(leafValues, offset, offset + leafSize);
+    }
+
+    private boolean isLeaf(int node) {
+        return leftChildren[node] < 0;
+    }
+
+    private int leafOffset(int node) {
+        return (-1 - leftChildren[node]) * leafSize;
+    }
+
+    private int nextNode(int node, double[] features) {
+        double feature = features[splitFeatures[node]];
+        if (Numbers.isValidDouble(feature) == false) {
+            return defaultLeft[node] ? leftChildren[node] : rightChildren[node];
         }
-        return ((LeafNode)node).leafValue;
+        return Double.compare(feature, thresholds[node]) < 0 ? leftChildren[node] : rightChildren[node];
     }
 
     public double[][] featureImportance(double[] fieldValues) {
@@ -252,25 +304,23 @@ public class TreeInferenceModel implements InferenceModel {
                                double[][] featureImportance,
                                int nextIndex) {
         ShapPath splitPath = new ShapPath(parentSplitPath, nextIndex);
-        Node currNode = nodes[nodeIndex];
         nextIndex = splitPath.extend(parentFractionZero, parentFractionOne, parentFeatureIndex, nextIndex);
-        if (currNode.isLeaf()) {
-            double[] leafValue = ((LeafNode)currNode).leafValue;
+        if (isLeaf(nodeIndex)) {
+            int leafOffset = leafOffset(nodeIndex);
             for (int i = 1; i < nextIndex; ++i) {
                 int inputColumnIndex = splitPath.featureIndex(i);
                 double scaled = splitPath.sumUnwoundPath(i, nextIndex) * (splitPath.fractionOnes(i) - splitPath.fractionZeros(i));
-                for (int j = 0; j < leafValue.length; j++) {
-                    featureImportance[inputColumnIndex][j] += scaled * leafValue[j];
+                for (int j = 0; j < leafSize; j++) {
+                    featureImportance[inputColumnIndex][j] += scaled * leafValues[leafOffset + j];
                 }
             }
         } else {
-            InnerNode innerNode = (InnerNode)currNode;
-            int hotIndex = currNode.compare(processedFeatures);
-            int coldIndex = hotIndex == innerNode.leftChild ? innerNode.rightChild : innerNode.leftChild;
+            int hotIndex = nextNode(nodeIndex, processedFeatures);
+            int coldIndex = hotIndex == leftChildren[nodeIndex] ? rightChildren[nodeIndex] : leftChildren[nodeIndex];
 
             double incomingFractionZero = 1.0;
             double incomingFractionOne = 1.0;
-            int splitFeature = innerNode.splitFeature;
+            int splitFeature = splitFeatures[nodeIndex];
             int pathIndex = splitPath.findFeatureIndex(splitFeature, nextIndex);
             if (pathIndex > -1) {
                 incomingFractionZero = splitPath.fractionZeros(pathIndex);
@@ -278,8 +328,8 @@ public class TreeInferenceModel implements InferenceModel {
                 nextIndex = splitPath.unwind(pathIndex, nextIndex);
             }
 
-            double hotFractionZero = nodes[hotIndex].getNumberSamples() / (double)currNode.getNumberSamples();
-            double coldFractionZero = nodes[coldIndex].getNumberSamples() / (double)currNode.getNumberSamples();
+            double hotFractionZero = numberSamples[hotIndex] / (double)numberSamples[nodeIndex];
+            double coldFractionZero = numberSamples[coldIndex] / (double)numberSamples[nodeIndex];
             shapRecursive(processedFeatures, splitPath,
                 hotIndex, incomingFractionZero * hotFractionZero,
                 incomingFractionOne, splitFeature, featureImportance, nextIndex);
@@ -309,16 +359,15 @@ public class TreeInferenceModel implements InferenceModel {
         if (newFeatureIndexMapping == null || newFeatureIndexMapping.isEmpty()) {
             return;
         }
-        for (Node node : nodes) {
-            if (node.isLeaf()) {
+        for (int i = 0; i < splitFeatures.length; i++) {
+            if (isLeaf(i)) {
                 continue;
             }
-            InnerNode treeNode = (InnerNode)node;
-            Integer newSplitFeatureIndex = newFeatureIndexMapping.get(featureNames[treeNode.splitFeature]);
+            Integer newSplitFeatureIndex = newFeatureIndexMapping.get(featureNames[splitFeatures[i]]);
             if (newSplitFeatureIndex == null) {
                 throw new IllegalArgumentException("[tree] failed to optimize for inference");
             }
-            treeNode.splitFeature = newSplitFeatureIndex;
+            splitFeatures[i] = newSplitFeatureIndex;
         }
         this.featureNames = new String[0];
         // Since we are not top level, we no longer need local classification labels
@@ -330,7 +379,13 @@ public class TreeInferenceModel implements InferenceModel {
         long size = SHALLOW_SIZE;
         size += sizeOfCollection(classificationLabels);
         size += sizeOf(featureNames);
-        size += sizeOf(nodes);
+        size += sizeOf(leftChildren);
+        size += sizeOf(rightChildren);
+        size += sizeOf(thresholds);
+        size += sizeOf(splitFeatures);
+        size += sizeOf(defaultLeft);
+        size += sizeOf(numberSamples);
+        size += sizeOf(leafValues);
         return size;
     }
 
@@ -338,28 +393,38 @@ public class TreeInferenceModel implements InferenceModel {
         if (targetType != TargetType.CLASSIFICATION) {
             return Double.NaN;
         }
+        if (leafSize > 1) {
+            return leafSize;
+        }
         double max = 0.0;
-        for (Node node : this.nodes) {
-            if (node instanceof LeafNode) {
-                LeafNode leafNode = (LeafNode) node;
-                if (leafNode.leafValue.length > 1) {
-                    return leafNode.leafValue.length;
-                } else {
-                    max = Math.max(leafNode.leafValue[0], max);
-                }
-            }
+        for (double leafValue : leafValues) {
+            max = Math.max(leafValue, max);
         }
         return max;
     }
 
-    public Node[] getNodes() {
-        return nodes;
+    public int getNumberOfLeaves() {
+        return numLeaves;
+    }
+
+    public int getNumberOfInnerNodes() {
+        return leftChildren.length - numLeaves;
+    }
+
+    public int getLeafSize() {
+        return leafSize;
     }
 
     @Override
     public String toString() {
         return "TreeInferenceModel{" +
-            "nodes=" + Arrays.toString(nodes) +
+            "leftChildren=" + Arrays.toString(leftChildren) +
+            ", rightChildren=" + Arrays.toString(rightChildren) +
+            ", thresholds=" + Arrays.toString(thresholds) +
+            ", splitFeatures=" + Arrays.toString(splitFeatures) +
+            ", defaultLeft=" + Arrays.toString(defaultLeft) +
+            ", numberSamples=" + Arrays.toString(numberSamples) +
+            ", leafValues=" + Arrays.toString(leafValues) +
             ", featureNames=" + Arrays.toString(featureNames) +
             ", targetType=" + targetType +
             ", classificationLabels=" + classificationLabels +
@@ -370,14 +435,12 @@ public class TreeInferenceModel implements InferenceModel {
             '}';
     }
 
-    private static int getDepth(Node[] nodes, int nodeIndex, int depth) {
-        Node node = nodes[nodeIndex];
-        if (node instanceof LeafNode) {
+    private int getDepth(int nodeIndex) {
+        if (isLeaf(nodeIndex)) {
             return 0;
         }
-        InnerNode innerNode = (InnerNode)node;
-        int depthLeft = getDepth(nodes, innerNode.leftChild, depth + 1);
-        int depthRight = getDepth(nodes, innerNode.rightChild, depth + 1);
+        int depthLeft = getDepth(leftChildren[nodeIndex]);
+        int depthRight = getDepth(rightChildren[nodeIndex]);
         return Math.max(depthLeft, depthRight) + 1;
     }
 
@@ -454,128 +517,63 @@ public class TreeInferenceModel implements InferenceModel {
             return this;
         }
 
-        Node build() {
-            if (this.leftChild < 0) {
-                return new LeafNode(leafValue, numberSamples);
+        boolean isLeaf() {
+            return leftChild < 0;
+        }
+
+        /**
+         * Writes the decision of this inner node into the arrays of the model, normalized so that a feature that compares lower than
+         * the threshold with {@link Double#compare} goes to the left child. The normalized decision sends every valid feature to the
+         * same child as {@link Operator#test}, including for signed zeros and NaN thresholds.
+         */
+        void normalizeInto(TreeInferenceModel model, int nodeIndex) {
+            int left = leftChild;
+            int right = rightChild;
+            boolean missingGoesLeft = defaultLeft;
+            double normalizedThreshold = threshold;
+            switch (operator) {
+                case LT:
+                    break;
+                case LTE:
+                    // feature <= threshold is the same as feature < the next threshold in the total order
+                    normalizedThreshold = nextInTotalOrder(threshold);
+                    break;
+                case GT:
+                    // feature > threshold is the opposite of feature < the next threshold in the total order
+                    normalizedThreshold = nextInTotalOrder(threshold);
+                    left = rightChild;
+                    right = leftChild;
+                    missingGoesLeft = defaultLeft == false;
+                    break;
+                case GTE:
+                    // feature >= threshold is the opposite of feature < threshold
+                    left = rightChild;
+                    right = leftChild;
+                    missingGoesLeft = defaultLeft == false;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unsupported decision type [" + operator + "]");
             }
-            return new InnerNode(operator,
-                threshold,
-                splitFeature,
-                defaultLeft,
-                leftChild,
-                rightChild,
-                numberSamples);
-        }
-    }
-
-    public abstract static class Node implements Accountable {
-        int compare(double[] features) {
-            throw new IllegalArgumentException("cannot call compare against a leaf node.");
-        }
-
-        abstract long getNumberSamples();
-
-        public boolean isLeaf() {
-            return this instanceof LeafNode;
-        }
-    }
-
-    public static class InnerNode extends Node {
-
-        public static final long SHALLOW_SIZE = shallowSizeOfInstance(InnerNode.class);
-
-        private final Operator operator;
-        private final double threshold;
-        // Allowed to be adjusted for inference optimization
-        private int splitFeature;
-        private final boolean defaultLeft;
-        private final int leftChild;
-        private final int rightChild;
-        private final long numberSamples;
-
-        InnerNode(Operator operator,
-                  double threshold,
-                  int splitFeature,
-                  boolean defaultLeft,
-                  int leftChild,
-                  int rightChild,
-                  long numberSamples) {
-            this.operator = operator;
-            this.threshold = threshold;
-            this.splitFeature = splitFeature;
-            this.defaultLeft = defaultLeft;
-            this.leftChild = leftChild;
-            this.rightChild = rightChild;
-            this.numberSamples = numberSamples;
-        }
-
-        @Override
-        public int compare(double[] features) {
-            double feature = features[splitFeature];
-            if (isMissing(feature)) {
-                return defaultLeft ? leftChild : rightChild;
+            model.leftChildren[nodeIndex] = left;
+            model.rightChildren[nodeIndex] = right;
+            model.thresholds[nodeIndex] = normalizedThreshold;
+            model.splitFeatures[nodeIndex] = splitFeature;
+            model.defaultLeft[nodeIndex] = missingGoesLeft;
+        }
+
+        /**
+         * Returns the smallest value that is greater than {@code value} in the total order of {@link Double#compare}, for which
+         * -0.0 is lower than 0.0 and NaN is greater than every other value. NaN is returned as is: valid features are finite, so
+         * every one of them compares lower than NaN, just as it compares lower than or equal to NaN.
+         */
+        static double nextInTotalOrder(double value) {
+            if (Double.isNaN(value)) {
+                return value;
             }
-            return operator.test(feature, threshold) ? leftChild : rightChild;
-        }
-
-        @Override
-        long getNumberSamples() {
-            return numberSamples;
-        }
-
-        private static boolean isMissing(double feature) {
-            return Numbers.isValidDouble(feature) == false;
-        }
-
-        @Override
-        public long ramBytesUsed() {
-            return SHALLOW_SIZE;
-        }
-
-        @Override
-        public String toString() {
-            return "InnerNode{" +
-                "operator=" + operator +
-                ", threshold=" + threshold +
-                ", splitFeature=" + splitFeature +
-                ", defaultLeft=" + defaultLeft +
-                ", leftChild=" + leftChild +
-                ", rightChild=" + rightChild +
-                ", numberSamples=" + numberSamples +
-                '}';
-        }
-    }
-
-    public static class LeafNode extends Node {
-        public static final long SHALLOW_SIZE = shallowSizeOfInstance(LeafNode.class);
-        private final double[] leafValue;
-        private final long numberSamples;
-
-        LeafNode(double[] leafValue, long numberSamples) {
-            this.leafValue = leafValue;
-            this.numberSamples = numberSamples;
-        }
-
-        @Override
-        public long ramBytesUsed() {
-            return SHALLOW_SIZE + sizeOf(leafValue);
-        }
-
-        @Override
-        long getNumberSamples() {
-            return numberSamples;
-        }
-
-        public double[] getLeafValue() {
-            return leafValue;
-        }
-
-        @Override
-        public String toString() {
-            return "LeafNode{" +
-                "leafValue=" + Arrays.toString(leafValue) +
-                ", numberSamples=" + numberSamples +
-                '}';
+            if (Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(-0.0d)) {
+                return 0.0d;
+            }
+            return Math.nextUp(value);
         }
     }
 }
@@ -5,7 +5,9 @@
  */
 package org.elasticsearch.xpack.core.searchablesnapshots;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -29,13 +31,21 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
     private final ShardRouting shardRouting;
     private final SnapshotId snapshotId;
     private final IndexId indexId;
+    @Nullable
+    private final CacheWarmingStats cacheWarmingStats;
 
     public SearchableSnapshotShardStats(ShardRouting shardRouting, SnapshotId snapshotId, IndexId indexId,
                                         List<CacheIndexInputStats> stats) {
+        this(shardRouting, snapshotId, indexId, stats, null);
+    }
+
+    public SearchableSnapshotShardStats(ShardRouting shardRouting, SnapshotId snapshotId, IndexId indexId,
+                                        List<CacheIndexInputStats> stats, @Nullable CacheWarmingStats cacheWarmingStats) {
         this.shardRouting = Objects.requireNonNull(shardRouting);
         this.snapshotId = Objects.requireNonNull(snapshotId);
         this.indexId = Objects.requireNonNull(indexId);
         this.inputStats = unmodifiableList(Objects.requireNonNull(stats));
+        this.cacheWarmingStats = cacheWarmingStats;
     }
 
     public SearchableSnapshotShardStats(StreamInput in) throws IOException {
@@ -43,6 +53,11 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         this.snapshotId = new SnapshotId(in);
         this.indexId = new IndexId(in);
         this.inputStats = in.readList(CacheIndexInputStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            this.cacheWarmingStats = in.readOptionalWriteable(CacheWarmingStats::new);
+        } else {
+            this.cacheWarmingStats = null;
+        }
     }
 
     @Override
@@ -51,6 +66,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         snapshotId.writeTo(out);
         indexId.writeTo(out);
         out.writeList(inputStats);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(cacheWarmingStats);
+        }
     }
 
     public ShardRouting getShardRouting() {
@@ -69,6 +87,11 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         return inputStats;
     }
 
+    @Nullable
+    public CacheWarmingStats getCacheWarmingStats() {
+        return cacheWarmingStats;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -86,6 +109,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 }
             }
             builder.endObject();
+            if (cacheWarmingStats != null) {
+                builder.field("cache_warming", cacheWarmingStats);
+            }
             builder.startArray("files");
             {
                 List<CacheIndexInputStats> stats = inputStats.stream()
@@ -111,12 +137,104 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         return Objects.equals(shardRouting, that.shardRouting)
             && Objects.equals(snapshotId, that.snapshotId)
             && Objects.equals(indexId, that.indexId)
-            && Objects.equals(inputStats, that.inputStats);
+            && Objects.equals(inputStats, that.inputStats)
+            && Objects.equals(cacheWarmingStats, that.cacheWarmingStats);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(shardRouting, snapshotId, indexId, inputStats);
+        return Objects.hash(shardRouting, snapshotId, indexId, inputStats, cacheWarmingStats);
+    }
+
+    /**
+     * Progress of the warming of the cache of a shard, which fetches the files of the shard in the background once it is allocated.
+     */
+    public static class CacheWarmingStats implements Writeable, ToXContentObject {
+
+        private final long totalFiles;
+        private final long warmedFiles;
+        private final long totalBytes;
+        private final long warmedBytes;
+        private final boolean completed;
+
+        public CacheWarmingStats(long totalFiles, long warmedFiles, long totalBytes, long warmedBytes, boolean completed) {
+            this.totalFiles = totalFiles;
+            this.warmedFiles = warmedFiles;
+            this.totalBytes = totalBytes;
+            this.warmedBytes = warmedBytes;
+            this.completed = completed;
+        }
+
+        CacheWarmingStats(final StreamInput in) throws IOException {
+            this.totalFiles = in.readVLong();
+            this.warmedFiles = in.readVLong();
+            this.totalBytes = in.readVLong();
+            this.warmedBytes = in.readVLong();
+            this.completed = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(totalFiles);
+            out.writeVLong(warmedFiles);
+            out.writeVLong(totalBytes);
+            out.writeVLong(warmedBytes);
+            out.writeBoolean(completed);
+        }
+
+        public long getTotalFiles() {
+            return totalFiles;
+        }
+
+        public long getWarmedFiles() {
+            return warmedFiles;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getWarmedBytes() {
+            return warmedBytes;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            {
+                builder.field("completed", isCompleted());
+                builder.field("total_files", getTotalFiles());
+                builder.field("warmed_files", getWarmedFiles());
+                builder.field("total_bytes", getTotalBytes());
+                builder.field("warmed_bytes", getWarmedBytes());
+            }
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            CacheWarmingStats that = (CacheWarmingStats) other;
+            return totalFiles == that.totalFiles
+                && warmedFiles == that.warmedFiles
+                && totalBytes == that.totalBytes
+                && warmedBytes == that.warmedBytes
+                && completed == that.completed;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(totalFiles, warmedFiles, totalBytes, warmedBytes, completed);
+        }
     }
 
     public static class CacheIndexInputStats implements Writeable, ToXContentObject {
@@ -140,6 +258,7 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
         private final TimedCounter optimizedBytesRead;
         private final Counter blobStoreBytesRequested;
         private final long currentIndexCacheFills;
+        private final Counter readAheadBytes;
 
         public CacheIndexInputStats(String fileName, long fileLength, long openCount, long closeCount,
                                     Counter forwardSmallSeeks, Counter backwardSmallSeeks,
@@ -147,7 +266,7 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                                     Counter contiguousReads, Counter nonContiguousReads,
                                     Counter cachedBytesRead, Counter indexCacheBytesRead,
                                     TimedCounter cachedBytesWritten, TimedCounter directBytesRead, TimedCounter optimizedBytesRead,
-                                    Counter blobStoreBytesRequested, long currentIndexCacheFills) {
+                                    Counter blobStoreBytesRequested, long currentIndexCacheFills, Counter readAheadBytes) {
             this.fileName = fileName;
             this.fileLength = fileLength;
             this.openCount = openCount;
@@ -165,6 +284,7 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.optimizedBytesRead = optimizedBytesRead;
             this.blobStoreBytesRequested = blobStoreBytesRequested;
             this.currentIndexCacheFills = currentIndexCacheFills;
+            this.readAheadBytes = readAheadBytes;
         }
 
         CacheIndexInputStats(final StreamInput in) throws IOException {
@@ -185,6 +305,11 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             this.optimizedBytesRead = new TimedCounter(in);
             this.blobStoreBytesRequested = new Counter(in);
             this.currentIndexCacheFills = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                this.readAheadBytes = new Counter(in);
+            } else {
+                this.readAheadBytes = new Counter(0L, 0L, 0L, 0L);
+            }
         }
 
         @Override
@@ -207,6 +332,9 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             optimizedBytesRead.writeTo(out);
             blobStoreBytesRequested.writeTo(out);
             out.writeVLong(currentIndexCacheFills);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                readAheadBytes.writeTo(out);
+            }
         }
 
         public String getFileName() {
@@ -277,6 +405,10 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
             return currentIndexCacheFills;
         }
 
+        public Counter getReadAheadBytes() {
+            return readAheadBytes;
+        }
+
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.startObject();
@@ -306,6 +438,7 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 }
                 builder.field("blob_store_bytes_requested", getBlobStoreBytesRequested());
                 builder.field("current_index_cache_fills", getCurrentIndexCacheFills());
+                builder.field("read_ahead_bytes", getReadAheadBytes());
             }
             return builder.endObject();
         }
@@ -335,7 +468,8 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 && Objects.equals(directBytesRead, stats.directBytesRead)
                 && Objects.equals(optimizedBytesRead, stats.optimizedBytesRead)
                 && Objects.equals(blobStoreBytesRequested, stats.blobStoreBytesRequested)
-                && currentIndexCacheFills == stats.currentIndexCacheFills;
+                && currentIndexCacheFills == stats.currentIndexCacheFills
+                && Objects.equals(readAheadBytes, stats.readAheadBytes);
         }
 
         @Override
@@ -346,7 +480,7 @@ public class SearchableSnapshotShardStats implements Writeable, ToXContentObject
                 contiguousReads, nonContiguousReads,
                 cachedBytesRead, indexCacheBytesRead,
                 cachedBytesWritten, directBytesRead, optimizedBytesRead,
-                blobStoreBytesRequested, currentIndexCacheFills);
+                blobStoreBytesRequested, currentIndexCacheFills, readAheadBytes);
         }
     }
 
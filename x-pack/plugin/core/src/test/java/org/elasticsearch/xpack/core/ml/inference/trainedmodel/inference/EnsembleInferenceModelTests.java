@@ -13,6 +13,7 @@ import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xpack.core.ml.inference.MlInferenceNamedXContentProvider;
 import org.elasticsearch.xpack.core.ml.inference.results.ClassificationInferenceResults;
+import org.elasticsearch.xpack.core.ml.inference.results.InferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.results.SingleValueInferenceResults;
 import org.elasticsearch.xpack.core.ml.inference.results.TopClassEntry;
 import org.elasticsearch.xpack.core.ml.inference.trainedmodel.ClassificationConfig;
@@ -39,6 +40,7 @@ import java.util.stream.Stream;
 
 import static org.elasticsearch.xpack.core.ml.inference.trainedmodel.inference.InferenceModelTestUtils.deserializeFromTrainedModel;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
@@ -548,6 +550,34 @@ public class EnsembleInferenceModelTests extends ESTestCase {
         assertThat(featureImportance[1][0], closeTo(0.1451914, eps));
     }
 
+    public void testBatchInference() throws IOException {
+        for (int i = 0; i < NUMBER_OF_TEST_RUNS; ++i) {
+            List<String> featureNames = Stream.generate(() -> randomAlphaOfLength(10)).limit(randomIntBetween(1, 10))
+                .collect(Collectors.toList());
+            // random classification ensembles have leaf values that are not valid classes
+            EnsembleInferenceModel model = serializeFromTrainedModel(EnsembleTests.createRandom(TargetType.REGRESSION, featureNames));
+
+            List<Map<String, Object>> fieldsList = new ArrayList<>();
+            int numDocs = randomIntBetween(0, 20);
+            for (int doc = 0; doc < numDocs; doc++) {
+                Map<String, Object> fields = new HashMap<>();
+                for (String featureName : featureNames) {
+                    if (randomBoolean()) {
+                        fields.put(featureName, randomDoubleBetween(-1.0, 1.0, true));
+                    }
+                }
+                fieldsList.add(fields);
+            }
+
+            List<InferenceResults> results = model.infer(fieldsList, RegressionConfig.EMPTY_PARAMS, Collections.emptyMap());
+            assertThat(results.size(), equalTo(numDocs));
+            for (int doc = 0; doc < numDocs; doc++) {
+                InferenceResults expected = model.infer(fieldsList.get(doc), RegressionConfig.EMPTY_PARAMS, Collections.emptyMap());
+                assertThat(results.get(doc), equalTo(expected));
+            }
+        }
+    }
+
     private static Map<String, Object> zipObjMap(List<String> keys, List<Double> values) {
         return IntStream.range(0, keys.size()).boxed().collect(Collectors.toMap(keys::get, values::get));
     }
@@ -270,6 +270,97 @@ public class TreeInferenceModelTests extends ESTestCase {
         assertThat(featureImportance[1][0], closeTo(2.5, eps));
     }
 
+    public void testDecisionTypes() {
+        for (int i = 0; i < NUMBER_OF_TEST_RUNS; ++i) {
+            Operator operator = randomFrom(Operator.values());
+            double threshold = randomFrom(0.0, -0.0, 1.0, -1.0, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_VALUE, -Double.MIN_VALUE,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN, randomDouble());
+            boolean defaultLeft = randomBoolean();
+            TreeInferenceModel model = stump(operator, threshold, defaultLeft);
+
+            double[] features = new double[] {
+                threshold, Math.nextUp(threshold), Math.nextDown(threshold), 0.0, -0.0, randomDouble(), -randomDouble() };
+            for (double feature : features) {
+                if (Double.isFinite(feature) == false) {
+                    continue;
+                }
+                assertDecision(model, operator, threshold, feature);
+            }
+            assertThat(model.getLeaf(new double[] {Double.NaN})[0], equalTo(defaultLeft ? 1.0 : 2.0));
+            assertThat(model.getNumberOfLeaves(), equalTo(2));
+            assertThat(model.getNumberOfInnerNodes(), equalTo(1));
+            assertThat(model.getLeafSize(), equalTo(1));
+        }
+    }
+
+    public void testDecisionTypesOnSignedZeros() {
+        for (Operator operator : Operator.values()) {
+            for (double threshold : new double[] {0.0, -0.0}) {
+                TreeInferenceModel model = stump(operator, threshold, randomBoolean());
+                for (double feature : new double[] {0.0, -0.0}) {
+                    assertDecision(model, operator, threshold, feature);
+                }
+            }
+        }
+        // decisions follow Double#compare, for which -0.0 is lower than 0.0
+        assertThat(stump(Operator.LT, 0.0, true).getLeaf(new double[] {-0.0})[0], equalTo(1.0));
+        assertThat(stump(Operator.LTE, -0.0, true).getLeaf(new double[] {0.0})[0], equalTo(2.0));
+        assertThat(stump(Operator.GT, 0.0, true).getLeaf(new double[] {-0.0})[0], equalTo(2.0));
+        assertThat(stump(Operator.GTE, 0.0, true).getLeaf(new double[] {-0.0})[0], equalTo(2.0));
+    }
+
+    public void testDecisionTypesOnNaNThresholds() {
+        for (Operator operator : Operator.values()) {
+            TreeInferenceModel model = stump(operator, Double.NaN, randomBoolean());
+            for (double feature : new double[] {0.0, -0.0, Double.MAX_VALUE, -Double.MAX_VALUE, randomDouble(), -randomDouble()}) {
+                assertDecision(model, operator, Double.NaN, feature);
+            }
+        }
+        // Double#compare puts NaN above every other value
+        assertThat(stump(Operator.LT, Double.NaN, true).getLeaf(new double[] {1.0})[0], equalTo(1.0));
+        assertThat(stump(Operator.LTE, Double.NaN, true).getLeaf(new double[] {1.0})[0], equalTo(1.0));
+        assertThat(stump(Operator.GT, Double.NaN, true).getLeaf(new double[] {1.0})[0], equalTo(2.0));
+        assertThat(stump(Operator.GTE, Double.NaN, true).getLeaf(new double[] {1.0})[0], equalTo(2.0));
+    }
+
+    private static TreeInferenceModel stump(Operator operator, double threshold, boolean defaultLeft) {
+        TreeInferenceModel model = new TreeInferenceModel(
+            Collections.singletonList("foo"),
+            Arrays.asList(
+                new TreeInferenceModel.NodeBuilder()
+                    .setOperator(operator)
+                    .setThreshold(threshold)
+                    .setSplitFeature(0)
+                    .setDefaultLeft(defaultLeft)
+                    .setLeftChild(1)
+                    .setRightChild(2)
+                    .setNumberSamples(2L),
+                new TreeInferenceModel.NodeBuilder().setLeafValue(new double[]{1.0}).setNumberSamples(1L),
+                new TreeInferenceModel.NodeBuilder().setLeafValue(new double[]{2.0}).setNumberSamples(1L)),
+            TargetType.REGRESSION,
+            null);
+        model.rewriteFeatureIndices(Collections.emptyMap());
+        return model;
+    }
+
+    private static void assertDecision(TreeInferenceModel model, Operator operator, double threshold, double feature) {
+        boolean goesLeft = operator.test(feature, threshold);
+        assertThat("operator [" + operator + "] threshold [" + threshold + "] feature [" + feature + "]",
+            model.getLeaf(new double[] {feature})[0], equalTo(goesLeft ? 1.0 : 2.0));
+    }
+
+    public void testLeavesOfDifferentSizes() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> new TreeInferenceModel(
+            Collections.singletonList("foo"),
+            Arrays.asList(
+                new TreeInferenceModel.NodeBuilder().setThreshold(0.5).setSplitFeature(0).setLeftChild(1).setRightChild(2),
+                new TreeInferenceModel.NodeBuilder().setLeafValue(new double[]{1.0}),
+                new TreeInferenceModel.NodeBuilder().setLeafValue(new double[]{1.0, 2.0})),
+            TargetType.CLASSIFICATION,
+            null));
+        assertThat(e.getMessage(), equalTo("[tree_structure] all leaf nodes must have the same number of values"));
+    }
+
     private static Map<String, Object> zipObjMap(List<String> keys, List<? extends Object> values) {
         return IntStream.range(0, keys.size()).boxed().collect(Collectors.toMap(keys::get, values::get));
     }
@@ -13,6 +13,7 @@ import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.test.AbstractWireSerializingTestCase;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.CacheIndexInputStats;
+import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.CacheWarmingStats;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.Counter;
 import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.TimedCounter;
 
@@ -37,7 +38,13 @@ public class SearchableSnapshotShardStatsTests extends AbstractWireSerializingTe
         for (int j = 0; j < randomInt(20); j++) {
             inputStats.add(randomCacheIndexInputStats());
         }
-        return new SearchableSnapshotShardStats(shardRouting, snapshotId, indexId, inputStats);
+        return new SearchableSnapshotShardStats(shardRouting, snapshotId, indexId, inputStats,
+            randomBoolean() ? null : randomCacheWarmingStats());
+    }
+
+    private CacheWarmingStats randomCacheWarmingStats() {
+        return new CacheWarmingStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            randomBoolean());
     }
 
     private CacheIndexInputStats randomCacheIndexInputStats() {
@@ -48,7 +55,7 @@ public class SearchableSnapshotShardStatsTests extends AbstractWireSerializingTe
             randomCounter(), randomCounter(),
             randomCounter(), randomCounter(), randomTimedCounter(),
             randomTimedCounter(), randomTimedCounter(),
-            randomCounter(), randomNonNegativeLong());
+            randomCounter(), randomNonNegativeLong(), randomCounter());
     }
 
     private Counter randomCounter() {
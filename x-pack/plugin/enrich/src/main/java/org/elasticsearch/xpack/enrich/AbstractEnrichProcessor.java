@@ -6,11 +6,15 @@
 package org.elasticsearch.xpack.enrich;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.OriginSettingClient;
 import org.elasticsearch.cluster.routing.Preference;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.ingest.AbstractProcessor;
@@ -20,11 +24,14 @@ import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.xpack.core.enrich.EnrichPolicy;
 import org.elasticsearch.xpack.enrich.action.EnrichCoordinatorProxyAction;
+import org.elasticsearch.xpack.enrich.action.EnrichShardMultiSearchAction;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import static org.elasticsearch.xpack.core.ClientHelper.ENRICH_ORIGIN;
 
@@ -32,6 +39,8 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
 
     private final String policyName;
     private final BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> searchRunner;
+    @Nullable
+    private final BiConsumer<MultiSearchRequest, BiConsumer<MultiSearchResponse, Exception>> multiSearchRunner;
     private final TemplateScript.Factory field;
     private final TemplateScript.Factory targetField;
     private final boolean ignoreMissing;
@@ -55,6 +64,7 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
             tag,
             description,
             createSearchRunner(client),
+            createMultiSearchRunner(client),
             policyName,
             field,
             targetField,
@@ -65,10 +75,14 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         );
     }
 
+    /**
+     * @param multiSearchRunner looks up the documents of a batch at once, if {@code null} they are looked up one at a time
+     */
     protected AbstractEnrichProcessor(
         String tag,
         String description,
         BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> searchRunner,
+        @Nullable BiConsumer<MultiSearchRequest, BiConsumer<MultiSearchResponse, Exception>> multiSearchRunner,
         String policyName,
         TemplateScript.Factory field,
         TemplateScript.Factory targetField,
@@ -80,6 +94,7 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         super(tag, description);
         this.policyName = policyName;
         this.searchRunner = searchRunner;
+        this.multiSearchRunner = multiSearchRunner;
         this.field = field;
         this.targetField = targetField;
         this.ignoreMissing = ignoreMissing;
@@ -101,48 +116,12 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
                 return;
             }
 
-            QueryBuilder queryBuilder = getQueryBuilder(value);
-            ConstantScoreQueryBuilder constantScore = new ConstantScoreQueryBuilder(queryBuilder);
-            SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
-            searchBuilder.from(0);
-            searchBuilder.size(maxMatches);
-            searchBuilder.trackScores(false);
-            searchBuilder.fetchSource(true);
-            searchBuilder.query(constantScore);
-            SearchRequest req = new SearchRequest();
-            req.indices(EnrichPolicy.getBaseName(getPolicyName()));
-            req.preference(Preference.LOCAL.type());
-            req.source(searchBuilder);
-
-            searchRunner.accept(req, (searchResponse, e) -> {
+            searchRunner.accept(createSearchRequest(value), (searchResponse, e) -> {
                 if (e != null) {
                     handler.accept(null, e);
                     return;
                 }
-
-                // If the index is empty, return the unchanged document
-                // If the enrich key does not exist in the index, throw an error
-                // If no documents match the key, return the unchanged document
-                SearchHit[] searchHits = searchResponse.getHits().getHits();
-                if (searchHits.length < 1) {
-                    handler.accept(ingestDocument, null);
-                    return;
-                }
-
-                String targetField = ingestDocument.renderTemplate(this.targetField);
-                if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
-                    if (maxMatches == 1) {
-                        Map<String, Object> firstDocument = searchHits[0].getSourceAsMap();
-                        ingestDocument.setFieldValue(targetField, firstDocument);
-                    } else {
-                        List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
-                        for (SearchHit searchHit : searchHits) {
-                            Map<String, Object> enrichDocument = searchHit.getSourceAsMap();
-                            enrichDocuments.add(enrichDocument);
-                        }
-                        ingestDocument.setFieldValue(targetField, enrichDocuments);
-                    }
-                }
+                enrich(ingestDocument, searchResponse.getHits().getHits(), SearchHit::getSourceAsMap);
                 handler.accept(ingestDocument, null);
             });
         } catch (Exception e) {
@@ -150,6 +129,119 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         }
     }
 
+    /**
+     * Looks up the enrich documents of a whole batch with a single multi search against the enrich index. Documents that have the
+     * same value share the same search.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+        if (multiSearchRunner == null) {
+            super.executeBatch(ingestDocuments, handler);
+            return;
+        }
+        final IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        final Exception[] failures = new Exception[ingestDocuments.size()];
+        // the position of the search of each document in the multi search, or -1 if the document needs no search
+        final int[] searches = new int[ingestDocuments.size()];
+        final Map<Object, Integer> searchesByValue = new HashMap<>();
+        final MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            final IngestDocument ingestDocument = ingestDocuments.get(i);
+            searches[i] = -1;
+            try {
+                // If a document does not have the enrich key, return the unchanged document
+                String field = ingestDocument.renderTemplate(this.field);
+                final Object value = ingestDocument.getFieldValue(field, Object.class, ignoreMissing);
+                if (value == null) {
+                    results[i] = ingestDocument;
+                    continue;
+                }
+                Integer search = searchesByValue.get(value);
+                if (search == null) {
+                    search = multiSearchRequest.requests().size();
+                    multiSearchRequest.add(createSearchRequest(value));
+                    searchesByValue.put(value, search);
+                }
+                searches[i] = search;
+            } catch (Exception e) {
+                failures[i] = e;
+            }
+        }
+        if (multiSearchRequest.requests().isEmpty()) {
+            handler.accept(results, failures);
+            return;
+        }
+
+        multiSearchRunner.accept(multiSearchRequest, (multiSearchResponse, e) -> {
+            for (int i = 0; i < ingestDocuments.size(); i++) {
+                if (searches[i] == -1) {
+                    continue;
+                }
+                if (e != null) {
+                    failures[i] = e;
+                    continue;
+                }
+                final MultiSearchResponse.Item item = multiSearchResponse.getResponses()[searches[i]];
+                if (item.isFailure()) {
+                    failures[i] = item.getFailure();
+                    continue;
+                }
+                try {
+                    // documents that share a search must not share the maps of the enrich documents, so each gets its own copy
+                    enrich(
+                        ingestDocuments.get(i),
+                        item.getResponse().getHits().getHits(),
+                        hit -> XContentHelper.convertToMap(hit.getSourceRef(), false).v2()
+                    );
+                    results[i] = ingestDocuments.get(i);
+                } catch (Exception ex) {
+                    failures[i] = ex;
+                }
+            }
+            handler.accept(results, failures);
+        });
+    }
+
+    private SearchRequest createSearchRequest(Object value) {
+        QueryBuilder queryBuilder = getQueryBuilder(value);
+        ConstantScoreQueryBuilder constantScore = new ConstantScoreQueryBuilder(queryBuilder);
+        SearchSourceBuilder searchBuilder = new SearchSourceBuilder();
+        searchBuilder.from(0);
+        searchBuilder.size(maxMatches);
+        searchBuilder.trackScores(false);
+        searchBuilder.fetchSource(true);
+        searchBuilder.query(constantScore);
+        SearchRequest req = new SearchRequest();
+        req.indices(EnrichPolicy.getBaseName(getPolicyName()));
+        req.preference(Preference.LOCAL.type());
+        req.source(searchBuilder);
+        return req;
+    }
+
+    private void enrich(IngestDocument ingestDocument, SearchHit[] searchHits, Function<SearchHit, Map<String, Object>> sourceAsMap) {
+        // If the index is empty, return the unchanged document
+        // If the enrich key does not exist in the index, throw an error
+        // If no documents match the key, return the unchanged document
+        if (searchHits.length < 1) {
+            return;
+        }
+
+        String targetField = ingestDocument.renderTemplate(this.targetField);
+        if (overrideEnabled || ingestDocument.hasField(targetField) == false) {
+            if (maxMatches == 1) {
+                Map<String, Object> firstDocument = sourceAsMap.apply(searchHits[0]);
+                ingestDocument.setFieldValue(targetField, firstDocument);
+            } else {
+                List<Map<String, Object>> enrichDocuments = new ArrayList<>(searchHits.length);
+                for (SearchHit searchHit : searchHits) {
+                    Map<String, Object> enrichDocument = sourceAsMap.apply(searchHit);
+                    enrichDocuments.add(enrichDocument);
+                }
+                ingestDocument.setFieldValue(targetField, enrichDocuments);
+            }
+        }
+    }
+
     @Override
     public IngestDocument execute(IngestDocument ingestDocument) throws Exception {
         throw new UnsupportedOperationException("this method should not get executed");
@@ -190,6 +282,17 @@ public abstract class AbstractEnrichProcessor extends AbstractProcessor {
         return maxMatches;
     }
 
+    private static BiConsumer<MultiSearchRequest, BiConsumer<MultiSearchResponse, Exception>> createMultiSearchRunner(Client client) {
+        Client originClient = new OriginSettingClient(client, ENRICH_ORIGIN);
+        return (req, handler) -> {
+            originClient.execute(
+                EnrichShardMultiSearchAction.INSTANCE,
+                new EnrichShardMultiSearchAction.Request(req),
+                ActionListener.wrap(resp -> { handler.accept(resp, null); }, e -> { handler.accept(null, e); })
+            );
+        };
+    }
+
     private static BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> createSearchRunner(Client client) {
         Client originClient = new OriginSettingClient(client, ENRICH_ORIGIN);
         return (req, handler) -> {
@@ -57,7 +57,19 @@ public final class GeoMatchProcessor extends AbstractEnrichProcessor {
         ShapeRelation shapeRelation,
         ShapeBuilder.Orientation orientation
     ) {
-        super(tag, description, searchRunner, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        super(
+            tag,
+            description,
+            searchRunner,
+            null,
+            policyName,
+            field,
+            targetField,
+            ignoreMissing,
+            overrideEnabled,
+            matchField,
+            maxMatches
+        );
         this.shapeRelation = shapeRelation;
         parser = new GeometryParser(orientation.getAsBoolean(), true, true);
     }
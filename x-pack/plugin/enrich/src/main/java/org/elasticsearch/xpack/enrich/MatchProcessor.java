@@ -5,6 +5,8 @@
  */
 package org.elasticsearch.xpack.enrich;
 
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
@@ -46,7 +48,36 @@ public final class MatchProcessor extends AbstractEnrichProcessor {
         String matchField,
         int maxMatches
     ) {
-        super(tag, description, searchRunner, policyName, field, targetField, ignoreMissing, overrideEnabled, matchField, maxMatches);
+        this(tag, description, searchRunner, null, policyName, field, targetField, overrideEnabled, ignoreMissing, matchField, maxMatches);
+    }
+
+    /** used in tests **/
+    MatchProcessor(
+        String tag,
+        String description,
+        BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> searchRunner,
+        BiConsumer<MultiSearchRequest, BiConsumer<MultiSearchResponse, Exception>> multiSearchRunner,
+        String policyName,
+        TemplateScript.Factory field,
+        TemplateScript.Factory targetField,
+        boolean overrideEnabled,
+        boolean ignoreMissing,
+        String matchField,
+        int maxMatches
+    ) {
+        super(
+            tag,
+            description,
+            searchRunner,
+            multiSearchRunner,
+            policyName,
+            field,
+            targetField,
+            ignoreMissing,
+            overrideEnabled,
+            matchField,
+            maxMatches
+        );
     }
 
     @Override
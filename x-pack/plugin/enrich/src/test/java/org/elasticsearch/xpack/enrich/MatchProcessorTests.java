@@ -7,6 +7,8 @@ package org.elasticsearch.xpack.enrich;
 
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.util.SetOnce;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchResponseSections;
@@ -32,6 +34,7 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -41,8 +44,10 @@ import java.util.function.BiConsumer;
 import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class MatchProcessorTests extends ESTestCase {
 
@@ -390,6 +395,77 @@ public class MatchProcessorTests extends ESTestCase {
         assertThat(entry.get("tld"), equalTo("co"));
     }
 
+    public void testExecuteBatch() {
+        SearchResponse match = mockResponse(Map.of("elastic.co", Map.of("globalRank", 451, "tldRank", 23, "tld", "co")));
+        SearchResponse noMatch = mockResponse(Collections.emptyMap());
+        List<MultiSearchRequest> multiSearchRequests = new ArrayList<>();
+        BiConsumer<MultiSearchRequest, BiConsumer<MultiSearchResponse, Exception>> multiSearchRunner = (multiSearchRequest, handler) -> {
+            multiSearchRequests.add(multiSearchRequest);
+            MultiSearchResponse.Item[] items = multiSearchRequest.requests().stream().map(request -> {
+                Object value = ((TermQueryBuilder) ((ConstantScoreQueryBuilder) request.source().query()).innerQuery()).value();
+                if (value.equals("elastic.co")) {
+                    return new MultiSearchResponse.Item(match, null);
+                } else if (value.equals("failing.co")) {
+                    return new MultiSearchResponse.Item(null, new IllegalStateException("failing.co"));
+                } else {
+                    return new MultiSearchResponse.Item(noMatch, null);
+                }
+            }).toArray(MultiSearchResponse.Item[]::new);
+            handler.accept(new MultiSearchResponse(items, 1L), null);
+        };
+        MatchProcessor processor = new MatchProcessor(
+            "_tag",
+            null,
+            (req, handler) -> { throw new AssertionError("documents of a batch must be looked up with a multi search"); },
+            multiSearchRunner,
+            "_name",
+            str("domain"),
+            str("entry"),
+            true,
+            true,
+            "domain",
+            1
+        );
+
+        List<IngestDocument> ingestDocuments = new ArrayList<>();
+        for (String domain : new String[] { "elastic.co", "other.co", "elastic.co", "failing.co", null }) {
+            Map<String, Object> source = new HashMap<>();
+            if (domain != null) {
+                source.put("domain", domain);
+            }
+            ingestDocuments.add(new IngestDocument("_index", "_id", "_routing", 1L, VersionType.INTERNAL, source));
+        }
+
+        // Execute
+        SetOnce<IngestDocument[]> results = new SetOnce<>();
+        SetOnce<Exception[]> failures = new SetOnce<>();
+        processor.executeBatch(ingestDocuments, (r, f) -> {
+            results.set(r);
+            failures.set(f);
+        });
+
+        // documents with the same value share a single search, and documents without a value need none
+        assertThat(multiSearchRequests.size(), equalTo(1));
+        assertThat(multiSearchRequests.get(0).requests().size(), equalTo(3));
+
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            if (i == 3) {
+                assertThat(results.get()[i], nullValue());
+                assertThat(failures.get()[i].getMessage(), equalTo("failing.co"));
+            } else {
+                assertThat(results.get()[i], sameInstance(ingestDocuments.get(i)));
+                assertThat(failures.get()[i], nullValue());
+            }
+        }
+        Map<?, ?> first = ingestDocuments.get(0).getFieldValue("entry", Map.class);
+        Map<?, ?> second = ingestDocuments.get(2).getFieldValue("entry", Map.class);
+        assertThat(first, equalTo(Map.of("globalRank", 451, "tldRank", 23, "tld", "co")));
+        assertThat(second, equalTo(first));
+        assertThat(second, not(sameInstance(first)));
+        assertFalse(ingestDocuments.get(1).hasField("entry"));
+        assertFalse(ingestDocuments.get(4).hasField("entry"));
+    }
+
     private static final class MockSearchFunction implements BiConsumer<SearchRequest, BiConsumer<SearchResponse, Exception>> {
         private final SearchResponse mockResponse;
         private final SetOnce<SearchRequest> capturedRequest;
@@ -13,18 +13,15 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.license.LicenseUtils;
 import org.elasticsearch.license.XPackLicenseState;
 import org.elasticsearch.tasks.Task;
-import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xpack.core.XPackField;
 import org.elasticsearch.xpack.core.ml.action.GetTrainedModelsAction;
 import org.elasticsearch.xpack.core.ml.action.InternalInferModelAction;
 import org.elasticsearch.xpack.core.ml.action.InternalInferModelAction.Request;
 import org.elasticsearch.xpack.core.ml.action.InternalInferModelAction.Response;
-import org.elasticsearch.xpack.core.ml.inference.results.InferenceResults;
 import org.elasticsearch.xpack.ml.inference.loadingservice.LocalModel;
 import org.elasticsearch.xpack.ml.inference.loadingservice.ModelLoadingService;
 import org.elasticsearch.xpack.ml.inference.persistence.TrainedModelProvider;
-import org.elasticsearch.xpack.ml.utils.TypedChainTaskExecutor;
 
 
 public class TransportInternalInferModelAction extends HandledTransportAction<Request, Response> {
@@ -55,17 +52,8 @@ public class TransportInternalInferModelAction extends HandledTransportAction<Re
 
         ActionListener<LocalModel> getModelListener = ActionListener.wrap(
             model -> {
-                TypedChainTaskExecutor<InferenceResults> typedChainTaskExecutor =
-                    new TypedChainTaskExecutor<>(client.threadPool().executor(ThreadPool.Names.SAME),
-                    // run through all tasks
-                    r -> true,
-                    // Always fail immediately and return an error
-                    ex -> true);
-                request.getObjectsToInfer().forEach(stringObjectMap ->
-                    typedChainTaskExecutor.add(chainedTask ->
-                        model.infer(stringObjectMap, request.getUpdate(), chainedTask)));
-
-                typedChainTaskExecutor.execute(ActionListener.wrap(
+                // all the objects are inferred in a single batch, any failure fails the whole request
+                model.infer(request.getObjectsToInfer(), request.getUpdate(), ActionListener.wrap(
                     inferenceResultsInterfaces -> {
                         model.release();
                         listener.onResponse(responseBuilder.setInferenceResults(inferenceResultsInterfaces).build());
@@ -41,6 +41,7 @@ import org.elasticsearch.xpack.core.ml.utils.ExceptionsHelper;
 import org.elasticsearch.xpack.ml.inference.loadingservice.LocalModel;
 import org.elasticsearch.xpack.ml.notifications.InferenceAuditor;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -115,15 +116,30 @@ public class InferenceProcessor extends AbstractProcessor {
             ));
     }
 
+    /**
+     * Infers all the documents of the batch with a single request. If the request fails, the documents are executed one at a
+     * time so that a document that cannot be inferred does not fail the others.
+     */
+    @Override
+    public void executeBatch(List<IngestDocument> ingestDocuments, BiConsumer<IngestDocument[], Exception[]> handler) {
+        if (ingestDocuments.size() <= 1) {
+            super.executeBatch(ingestDocuments, handler);
+            return;
+        }
+        executeAsyncWithOrigin(client,
+            ML_ORIGIN,
+            InternalInferModelAction.INSTANCE,
+            this.buildRequest(ingestDocuments),
+            ActionListener.wrap(
+                r -> handleBatchResponse(r, ingestDocuments, handler),
+                e -> super.executeBatch(ingestDocuments, handler)
+            ));
+    }
+
     void handleResponse(InternalInferModelAction.Response response,
                         IngestDocument ingestDocument,
                         BiConsumer<IngestDocument, Exception> handler) {
-        if (previouslyLicensed == false) {
-            previouslyLicensed = true;
-        }
-        if (response.isLicensed() == false) {
-            auditWarningAboutLicenseIfNecessary();
-        }
+        checkLicense(response);
         try {
             mutateDocument(response, ingestDocument);
             handler.accept(ingestDocument, null);
@@ -132,14 +148,61 @@ public class InferenceProcessor extends AbstractProcessor {
         }
     }
 
+    void handleBatchResponse(InternalInferModelAction.Response response,
+                             List<IngestDocument> ingestDocuments,
+                             BiConsumer<IngestDocument[], Exception[]> handler) {
+        checkLicense(response);
+        IngestDocument[] results = new IngestDocument[ingestDocuments.size()];
+        Exception[] failures = new Exception[ingestDocuments.size()];
+        if (response.getInferenceResults().size() != ingestDocuments.size()) {
+            Arrays.fill(failures, new ElasticsearchStatusException("Unexpected inference response of [{}] results for [{}] documents",
+                RestStatus.INTERNAL_SERVER_ERROR,
+                response.getInferenceResults().size(),
+                ingestDocuments.size()));
+            handler.accept(results, failures);
+            return;
+        }
+        for (int i = 0; i < ingestDocuments.size(); i++) {
+            IngestDocument ingestDocument = ingestDocuments.get(i);
+            try {
+                InferenceResults.writeResult(response.getInferenceResults().get(i), ingestDocument, targetField, modelId);
+                results[i] = ingestDocument;
+            } catch (ElasticsearchException ex) {
+                failures[i] = ex;
+            }
+        }
+        handler.accept(results, failures);
+    }
+
+    private void checkLicense(InternalInferModelAction.Response response) {
+        if (previouslyLicensed == false) {
+            previouslyLicensed = true;
+        }
+        if (response.isLicensed() == false) {
+            auditWarningAboutLicenseIfNecessary();
+        }
+    }
+
     InternalInferModelAction.Request buildRequest(IngestDocument ingestDocument) {
+        return new InternalInferModelAction.Request(modelId, fieldsToInfer(ingestDocument), inferenceConfig, previouslyLicensed);
+    }
+
+    InternalInferModelAction.Request buildRequest(List<IngestDocument> ingestDocuments) {
+        List<Map<String, Object>> objectsToInfer = new ArrayList<>(ingestDocuments.size());
+        for (IngestDocument ingestDocument : ingestDocuments) {
+            objectsToInfer.add(fieldsToInfer(ingestDocument));
+        }
+        return new InternalInferModelAction.Request(modelId, objectsToInfer, inferenceConfig, previouslyLicensed);
+    }
+
+    private Map<String, Object> fieldsToInfer(IngestDocument ingestDocument) {
         Map<String, Object> fields = new HashMap<>(ingestDocument.getSourceAndMetadata());
         // Add ingestMetadata as previous processors might have added metadata from which we are predicting (see: foreach processor)
         if (ingestDocument.getIngestMetadata().isEmpty() == false) {
             fields.put(INGEST_KEY, ingestDocument.getIngestMetadata());
         }
         LocalModel.mapFieldsIfNecessary(fields, fieldMap);
-        return new InternalInferModelAction.Request(modelId, fields, inferenceConfig, previouslyLicensed);
+        return fields;
     }
 
     void auditWarningAboutLicenseIfNecessary() {
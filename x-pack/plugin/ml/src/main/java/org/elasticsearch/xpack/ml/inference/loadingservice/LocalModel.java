@@ -21,8 +21,11 @@ import org.elasticsearch.xpack.core.ml.utils.MapHelper;
 import org.elasticsearch.xpack.ml.inference.TrainedModelStatsService;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -158,6 +161,65 @@ public class LocalModel implements Closeable {
         }
     }
 
+    /**
+     * Infers a batch of fields, such as the documents of a bulk request, with a single call to the model. The listener is
+     * notified with the results in the same order as the fields, or with the failure of the whole batch.
+     */
+    public void infer(List<Map<String, Object>> fieldsList,
+                      InferenceConfigUpdate update,
+                      ActionListener<List<InferenceResults>> listener) {
+        if (update.isSupported(this.inferenceConfig) == false) {
+            listener.onFailure(ExceptionsHelper.badRequestException(
+                "Model [{}] has inference config of type [{}] which is not supported by inference request of type [{}]",
+                this.modelId,
+                this.inferenceConfig.getName(),
+                update.getName()));
+            return;
+        }
+        int numInferred = 0;
+        long previousInferenceCount = currentInferenceCount.sum();
+        try {
+            InferenceResults[] results = new InferenceResults[fieldsList.size()];
+            List<Map<String, Object>> toInfer = new ArrayList<>(fieldsList.size());
+            int[] toInferSlots = new int[fieldsList.size()];
+            for (int i = 0; i < fieldsList.size(); i++) {
+                statsAccumulator.incInference();
+                currentInferenceCount.increment();
+                Map<String, Object> fields = fieldsList.get(i);
+                // Needs to happen before collapse as defaultFieldMap might resolve fields to their appropriate name
+                LocalModel.mapFieldsIfNecessary(fields, defaultFieldMap);
+                Map<String, Object> flattenedFields = MapHelper.dotCollapse(fields, fieldNames);
+                if (flattenedFields.isEmpty()) {
+                    statsAccumulator.incMissingFields();
+                    results[i] = new WarningInferenceResults(Messages.getMessage(INFERENCE_WARNING_ALL_FIELDS_MISSING, modelId));
+                } else {
+                    toInferSlots[toInfer.size()] = i;
+                    toInfer.add(flattenedFields);
+                }
+            }
+            numInferred = toInfer.size();
+            if (toInfer.isEmpty() == false) {
+                List<InferenceResults> inferenceResults = trainedModelDefinition.infer(toInfer, update.apply(inferenceConfig));
+                assert inferenceResults.size() == toInfer.size();
+                for (int i = 0; i < inferenceResults.size(); i++) {
+                    results[toInferSlots[i]] = inferenceResults.get(i);
+                }
+            }
+            // persist if the batch went past a multiple of the quotient, like a single inference reaching it would
+            boolean shouldPersistStats =
+                (previousInferenceCount + 1) / persistenceQuotient != (currentInferenceCount.sum() + 1) / persistenceQuotient;
+            if (shouldPersistStats) {
+                persistStats(false);
+            }
+            listener.onResponse(Arrays.asList(results));
+        } catch (Exception e) {
+            for (int i = 0; i < numInferred; i++) {
+                statsAccumulator.incFailure();
+            }
+            listener.onFailure(e);
+        }
+    }
+
     public InferenceResults infer(Map<String, Object> fields, InferenceConfigUpdate update) throws Exception {
         AtomicReference<InferenceResults> result = new AtomicReference<>();
         AtomicReference<Exception> exception = new AtomicReference<>();
@@ -36,6 +36,18 @@ final class SizeEstimatorHelper {
         return alignObjectSize((long) NUM_BYTES_ARRAY_HEADER + (long) Double.BYTES * arrayLength);
     }
 
+    static long sizeOfIntArray(int arrayLength) {
+        return alignObjectSize((long) NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * arrayLength);
+    }
+
+    static long sizeOfLongArray(int arrayLength) {
+        return alignObjectSize((long) NUM_BYTES_ARRAY_HEADER + (long) Long.BYTES * arrayLength);
+    }
+
+    static long sizeOfBooleanArray(int arrayLength) {
+        return alignObjectSize((long) NUM_BYTES_ARRAY_HEADER + arrayLength);
+    }
+
     static long sizeOfHashMap(List<Long> sizeOfKeys, List<Long> sizeOfValues) {
         assert sizeOfKeys.size() == sizeOfValues.size();
         long mapsize = shallowSizeOfInstance(HashMap.class);
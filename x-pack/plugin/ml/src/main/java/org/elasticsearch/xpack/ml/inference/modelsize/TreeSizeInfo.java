@@ -18,12 +18,13 @@ import org.elasticsearch.xpack.core.ml.inference.trainedmodel.inference.TreeInfe
 import java.io.IOException;
 import java.util.Objects;
 
-import static org.apache.lucene.util.RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
-import static org.apache.lucene.util.RamUsageEstimator.NUM_BYTES_OBJECT_REF;
 import static org.apache.lucene.util.RamUsageEstimator.alignObjectSize;
 import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
 import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+import static org.elasticsearch.xpack.ml.inference.modelsize.SizeEstimatorHelper.sizeOfBooleanArray;
 import static org.elasticsearch.xpack.ml.inference.modelsize.SizeEstimatorHelper.sizeOfDoubleArray;
+import static org.elasticsearch.xpack.ml.inference.modelsize.SizeEstimatorHelper.sizeOfIntArray;
+import static org.elasticsearch.xpack.ml.inference.modelsize.SizeEstimatorHelper.sizeOfLongArray;
 
 public class TreeSizeInfo implements Accountable, ToXContentObject {
 
@@ -64,13 +65,16 @@ public class TreeSizeInfo implements Accountable, ToXContentObject {
     @Override
     public long ramBytesUsed() {
         long size = TreeInferenceModel.SHALLOW_SIZE;
-        // Node shallow sizes, covers most information as elements are primitive
-        size += NUM_BYTES_ARRAY_HEADER + ((numLeaves + numNodes) * NUM_BYTES_OBJECT_REF);
-        size += numLeaves * TreeInferenceModel.LeafNode.SHALLOW_SIZE;
-        size += numNodes * TreeInferenceModel.InnerNode.SHALLOW_SIZE;
-        // This handles the values within the leaf value array
+        // The nodes are flattened into parallel arrays of primitives:
+        // left and right children, split features, thresholds, default directions and number of samples
+        int totalNodes = numLeaves + numNodes;
+        size += 3 * sizeOfIntArray(totalNodes);
+        size += sizeOfDoubleArray(totalNodes);
+        size += sizeOfBooleanArray(totalNodes);
+        size += sizeOfLongArray(totalNodes);
+        // The values of all the leaves are stored in a single array
         int numLeafVals = numClasses <= 2 ? 1 : numClasses;
-        size += sizeOfDoubleArray(numLeafVals) * numLeaves;
+        size += sizeOfDoubleArray(numLeafVals * numLeaves);
         return alignObjectSize(size);
     }
 
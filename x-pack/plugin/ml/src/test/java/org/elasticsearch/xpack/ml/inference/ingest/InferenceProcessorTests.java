@@ -24,6 +24,7 @@ import org.elasticsearch.xpack.ml.notifications.InferenceAuditor;
 import org.junit.Before;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -408,6 +409,47 @@ public class InferenceProcessorTests extends ESTestCase {
         verify(auditor, times(1)).warning(eq("regression_model"), any(String.class));
     }
 
+    public void testHandleBatchResponse() {
+        String targetField = "regression_value";
+        InferenceProcessor inferenceProcessor = new InferenceProcessor(client,
+            auditor,
+            "my_processor",
+            null, targetField,
+            "regression_model",
+            RegressionConfigUpdate.EMPTY_PARAMS,
+            Collections.emptyMap());
+
+        List<IngestDocument> documents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> source = new HashMap<>();
+            source.put("value", i);
+            documents.add(new IngestDocument(source, new HashMap<>()));
+        }
+
+        InternalInferModelAction.Request request = inferenceProcessor.buildRequest(documents);
+        assertThat(request.getObjectsToInfer().size(), equalTo(3));
+        assertThat(request.getObjectsToInfer().get(2).get("value"), equalTo(2));
+
+        InternalInferModelAction.Response response = new InternalInferModelAction.Response(
+            Arrays.asList(new RegressionInferenceResults(0.7, RegressionConfig.EMPTY_PARAMS),
+                new WarningInferenceResults("something broke"),
+                new RegressionInferenceResults(0.3, RegressionConfig.EMPTY_PARAMS)),
+            true);
+        inferenceProcessor.handleBatchResponse(response, documents, (results, failures) -> {
+            assertThat(Arrays.asList(failures), contains(nullValue(), nullValue(), nullValue()));
+            assertThat(results[0].getFieldValue(targetField + ".predicted_value", Double.class), equalTo(0.7));
+            assertThat(results[1].getFieldValue(targetField + ".warning", String.class), equalTo("something broke"));
+            assertThat(results[2].getFieldValue(targetField + ".predicted_value", Double.class), equalTo(0.3));
+        });
+
+        InternalInferModelAction.Response missingResults = new InternalInferModelAction.Response(
+            Collections.singletonList(new RegressionInferenceResults(0.7, RegressionConfig.EMPTY_PARAMS)), true);
+        inferenceProcessor.handleBatchResponse(missingResults, documents, (results, failures) -> {
+            assertThat(Arrays.asList(results), contains(nullValue(), nullValue(), nullValue()));
+            assertThat(failures[0].getMessage(), equalTo("Unexpected inference response of [1] results for [3] documents"));
+        });
+    }
+
     public void testMutateDocumentWithWarningResult() {
         String targetField = "regression_value";
         InferenceProcessor inferenceProcessor = new InferenceProcessor(client,
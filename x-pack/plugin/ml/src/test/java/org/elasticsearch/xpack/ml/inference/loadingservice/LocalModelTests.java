@@ -255,6 +255,57 @@ public class LocalModelTests extends ESTestCase {
         assertThat(model.getLatestStatsAndReset().getMissingAllFieldsCount(), equalTo(1L));
     }
 
+    public void testBatchInfer() throws Exception {
+        TrainedModelStatsService modelStatsService = mock(TrainedModelStatsService.class);
+        doAnswer((args) -> null).when(modelStatsService).queueStats(any(InferenceStats.class), anyBoolean());
+        List<String> inputFields = Arrays.asList("foo", "bar", "categorical");
+        InferenceDefinition trainedModelDefinition = InferenceDefinition.builder()
+            .setPreProcessors(Collections.singletonList(new OneHotEncoding("categorical", oneHotMap(), false)))
+            .setTrainedModel(buildRegressionInference())
+            .build();
+        LocalModel model = new LocalModel("regression_model",
+            "test-node",
+            trainedModelDefinition,
+            new TrainedModelInput(inputFields),
+            Collections.singletonMap("bar", "bar.keyword"),
+            RegressionConfig.EMPTY_PARAMS,
+            License.OperationMode.PLATINUM,
+            modelStatsService,
+            mock(CircuitBreaker.class));
+
+        List<Map<String, Object>> fieldsList = Arrays.asList(
+            new HashMap<>() {{
+                put("foo", 1.0);
+                put("bar.keyword", 0.5);
+                put("categorical", "dog");
+            }},
+            new HashMap<>() {{
+                put("something", 1.0);
+            }},
+            new HashMap<>() {{
+                put("foo", 0.3);
+                put("bar", 0.1);
+                put("categorical", "cat");
+            }});
+        List<Map<String, Object>> expectedFieldsList = Arrays.asList(
+            new HashMap<>(fieldsList.get(0)),
+            new HashMap<>(fieldsList.get(1)),
+            new HashMap<>(fieldsList.get(2)));
+
+        PlainActionFuture<List<InferenceResults>> future = new PlainActionFuture<>();
+        model.infer(fieldsList, RegressionConfigUpdate.EMPTY_PARAMS, future);
+        List<InferenceResults> results = future.get();
+        assertThat(results, hasSize(3));
+        assertThat(((WarningInferenceResults) results.get(1)).getWarning(),
+            equalTo(Messages.getMessage(Messages.INFERENCE_WARNING_ALL_FIELDS_MISSING, "regression_model")));
+        InferenceStats stats = model.getLatestStatsAndReset();
+        assertThat(stats.getInferenceCount(), equalTo(3L));
+        assertThat(stats.getMissingAllFieldsCount(), equalTo(1L));
+
+        assertThat(results.get(0), equalTo(getInferenceResult(model, expectedFieldsList.get(0), RegressionConfigUpdate.EMPTY_PARAMS)));
+        assertThat(results.get(2), equalTo(getInferenceResult(model, expectedFieldsList.get(2), RegressionConfigUpdate.EMPTY_PARAMS)));
+    }
+
     public void testInferPersistsStatsAfterNumberOfCalls() throws Exception {
         TrainedModelStatsService modelStatsService = mock(TrainedModelStatsService.class);
         doAnswer((args) -> null).when(modelStatsService).queueStats(any(InferenceStats.class), anyBoolean());
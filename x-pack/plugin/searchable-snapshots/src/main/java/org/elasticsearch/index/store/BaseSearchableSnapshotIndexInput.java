@@ -9,13 +9,18 @@ import org.apache.lucene.store.BufferedIndexInput;
 import org.apache.lucene.store.IOContext;
 import org.elasticsearch.common.blobstore.BlobContainer;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsConstants;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.elasticsearch.index.store.checksum.ChecksumBlobContainerIndexInput.checksumToBytesArray;
+
 public abstract class BaseSearchableSnapshotIndexInput extends BufferedIndexInput {
 
     protected final BlobContainer blobContainer;
@@ -99,6 +104,109 @@ public abstract class BaseSearchableSnapshotIndexInput extends BufferedIndexInpu
 
     public abstract void innerClose() throws IOException;
 
+    /**
+     * Fills the given buffer with the footer checksum of the file as recorded in the snapshot metadata, avoiding a read of the last
+     * bytes of the file. Returns {@code false} if the checksum could not be used.
+     */
+    protected boolean readChecksumFromFileInfo(ByteBuffer b) throws IOException {
+        assert isClone == false;
+        byte[] footer;
+        try {
+            footer = checksumToBytesArray(fileInfo.checksum());
+        } catch (NumberFormatException e) {
+            // tests disable this optimisation by passing an invalid checksum
+            footer = null;
+        }
+        if (footer == null) {
+            return false;
+        }
+
+        b.put(footer);
+        assert b.remaining() == 0L;
+        return true;
+    }
+
+    /**
+     * Opens an {@link InputStream} for the given range of bytes which reads the data directly from the blob store. If the requested range
+     * spans multiple blobs then this stream will request them in turn.
+     *
+     * @param position The start of the range of bytes to read, relative to the start of the corresponding Lucene file.
+     * @param length The number of bytes to read
+     */
+    protected InputStream openInputStreamFromBlobStore(final long position, final long length) throws IOException {
+        assert assertCurrentThreadMayAccessBlobStore();
+        if (fileInfo.numberOfParts() == 1L) {
+            assert position + length <= fileInfo.partBytes(0) : "cannot read ["
+                + position
+                + "-"
+                + (position + length)
+                + "] from ["
+                + fileInfo
+                + "]";
+            stats.addBlobStoreBytesRequested(length);
+            return blobContainer.readBlob(fileInfo.partName(0), position, length);
+        } else {
+            final int startPart = getPartNumberForPosition(position);
+            final int endPart = getPartNumberForPosition(position + length - 1);
+
+            for (int currentPart = startPart; currentPart <= endPart; currentPart++) {
+                final long startInPart = (currentPart == startPart) ? getRelativePositionInPart(position) : 0L;
+                final long endInPart = (currentPart == endPart)
+                    ? getRelativePositionInPart(position + length - 1) + 1
+                    : getLengthOfPart(currentPart);
+                stats.addBlobStoreBytesRequested(endInPart - startInPart);
+            }
+
+            return new SlicedInputStream(endPart - startPart + 1) {
+                @Override
+                protected InputStream openSlice(int slice) throws IOException {
+                    final int currentPart = startPart + slice;
+                    final long startInPart = (currentPart == startPart) ? getRelativePositionInPart(position) : 0L;
+                    final long endInPart = (currentPart == endPart)
+                        ? getRelativePositionInPart(position + length - 1) + 1
+                        : getLengthOfPart(currentPart);
+                    return blobContainer.readBlob(fileInfo.partName(currentPart), startInPart, endInPart - startInPart);
+                }
+            };
+        }
+    }
+
+    /**
+     * Compute the part number that contains the byte at the given position in the corresponding Lucene file.
+     */
+    protected int getPartNumberForPosition(long position) {
+        ensureValidPosition(position);
+        final int part = fileInfo.partForPosition(position);
+        assert part <= fileInfo.numberOfParts() : "part number [" + part + "] exceeds number of parts: " + fileInfo.numberOfParts();
+        assert part >= 0 : "part number [" + part + "] is negative";
+        return part;
+    }
+
+    /**
+     * Compute the position of the given byte relative to the start of its part.
+     * @param position the position of the required byte (within the corresponding Lucene file)
+     */
+    protected long getRelativePositionInPart(long position) {
+        ensureValidPosition(position);
+        final int part = getPartNumberForPosition(position);
+        final long pos = position - fileInfo.partOffset(part);
+        assert pos < fileInfo.partBytes(part) : "position in part [" + pos + "] exceeds part's length";
+        assert pos >= 0L : "position in part [" + pos + "] is negative";
+        return pos;
+    }
+
+    protected long getLengthOfPart(int part) {
+        return fileInfo.partBytes(part);
+    }
+
+    protected void ensureValidPosition(long position) {
+        assert position >= 0L && position < fileInfo.length() : position + " vs " + fileInfo.length();
+        // noinspection ConstantConditions in case assertions are disabled
+        if (position < 0L || position >= fileInfo.length()) {
+            throw new IllegalArgumentException("Position [" + position + "] is invalid for a file of length [" + fileInfo.length() + "]");
+        }
+    }
+
     protected final boolean assertCurrentThreadMayAccessBlobStore() {
         final String threadName = Thread.currentThread().getName();
         assert threadName.contains('[' + ThreadPool.Names.SNAPSHOT + ']')
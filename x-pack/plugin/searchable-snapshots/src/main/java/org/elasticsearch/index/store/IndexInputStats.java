@@ -49,6 +49,7 @@ public class IndexInputStats {
 
     private final Counter blobStoreBytesRequested = new Counter();
     private final AtomicLong currentIndexCacheFills = new AtomicLong();
+    private final Counter readAheadBytes = new Counter();
 
     public IndexInputStats(long fileLength, LongSupplier currentTimeNanos) {
         this(fileLength, SEEKING_THRESHOLD.getBytes(), currentTimeNanos);
@@ -125,6 +126,10 @@ public class IndexInputStats {
         blobStoreBytesRequested.add(bytesRequested);
     }
 
+    public void addReadAheadBytes(long bytes) {
+        readAheadBytes.add(bytes);
+    }
+
     public Releasable addIndexCacheFill() {
         final long openValue = currentIndexCacheFills.incrementAndGet();
         assert openValue > 0 : openValue;
@@ -203,6 +208,10 @@ public class IndexInputStats {
         return currentIndexCacheFills.get();
     }
 
+    public Counter getReadAheadBytes() {
+        return readAheadBytes;
+    }
+
     public static class Counter {
 
         private final LongAdder count = new LongAdder();
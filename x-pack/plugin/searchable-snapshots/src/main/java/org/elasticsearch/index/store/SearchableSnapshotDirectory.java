@@ -44,6 +44,7 @@ import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
 import org.elasticsearch.index.store.cache.CacheFile;
 import org.elasticsearch.index.store.cache.CacheKey;
 import org.elasticsearch.index.store.cache.CachedBlobContainerIndexInput;
+import org.elasticsearch.index.store.cache.FrozenIndexInput;
 import org.elasticsearch.index.store.checksum.ChecksumBlobContainerIndexInput;
 import org.elasticsearch.index.store.direct.DirectBlobContainerIndexInput;
 import org.elasticsearch.indices.recovery.RecoveryState;
@@ -54,8 +55,10 @@ import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.CacheWarmingStats;
 import org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsConstants;
 import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -66,6 +69,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -76,16 +80,20 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.apache.lucene.store.BufferedIndexInput.bufferSize;
 import static org.elasticsearch.index.IndexModule.INDEX_STORE_TYPE_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_ID_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_INDEX_NAME_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_PARTIAL_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_REPOSITORY_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_SNAPSHOT_ID_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_SNAPSHOT_NAME_SETTING;
@@ -120,14 +128,24 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     private final Map<String, IndexInputStats> stats;
     private final ThreadPool threadPool;
     private final CacheService cacheService;
+    private final FrozenCacheService frozenCacheService;
     private final boolean useCache;
+    private final boolean partial;
     private final boolean prewarmCache;
+    private final int readAheadRanges;
     private final Set<String> excludedFileTypes;
     private final long uncachedChunkSize; // if negative use BlobContainer#readBlobPreferredLength, see #getUncachedChunkSize()
     private final Path cacheDir;
     private final ShardPath shardPath;
     private final AtomicBoolean closed;
 
+    // progress of the warming of the cache
+    private final AtomicLong warmingTotalFiles = new AtomicLong();
+    private final AtomicLong warmedFiles = new AtomicLong();
+    private final AtomicLong warmingTotalBytes = new AtomicLong();
+    private final AtomicLong warmedBytes = new AtomicLong();
+    private volatile boolean warmingCompleted;
+
     // volatile fields are updated once under `this` lock, all together, iff loaded is not true.
     private volatile BlobStoreIndexShardSnapshot snapshot;
     private volatile BlobContainer blobContainer;
@@ -145,6 +163,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         Settings indexSettings,
         LongSupplier currentTimeNanosSupplier,
         CacheService cacheService,
+        FrozenCacheService frozenCacheService,
         Path cacheDir,
         ShardPath shardPath,
         ThreadPool threadPool
@@ -160,11 +179,15 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         this.stats = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
         this.statsCurrentTimeNanosSupplier = Objects.requireNonNull(currentTimeNanosSupplier);
         this.cacheService = Objects.requireNonNull(cacheService);
+        this.frozenCacheService = Objects.requireNonNull(frozenCacheService);
         this.cacheDir = Objects.requireNonNull(cacheDir);
         this.shardPath = Objects.requireNonNull(shardPath);
         this.closed = new AtomicBoolean(false);
         this.useCache = SNAPSHOT_CACHE_ENABLED_SETTING.get(indexSettings);
-        this.prewarmCache = useCache ? SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.get(indexSettings) : false;
+        this.partial = SNAPSHOT_PARTIAL_SETTING.get(indexSettings);
+        // partially cached shards only keep the most frequently accessed regions of their files in the shared cache, so they are not warmed
+        this.prewarmCache = useCache && partial == false ? SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.get(indexSettings) : false;
+        this.readAheadRanges = SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING.get(indexSettings);
         this.excludedFileTypes = new HashSet<>(SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING.get(indexSettings));
         this.uncachedChunkSize = SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING.get(indexSettings).getBytes();
         this.blobStoreCachePath = String.join("/", snapshotId.getUUID(), indexId.getId(), String.valueOf(shardId.id()));
@@ -338,6 +361,9 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
 
     public void clearCache() {
         cacheService.removeFromCache(cacheKey -> cacheKey.belongsTo(snapshotId, indexId, shardId));
+        if (frozenCacheService.isEnabled()) {
+            frozenCacheService.removeFromCache(cacheKey -> cacheKey.belongsTo(snapshotId, indexId, shardId));
+        }
     }
 
     protected IndexInputStats createIndexInputStats(final long fileLength) {
@@ -375,7 +401,10 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
 
         final IndexInputStats inputStats = stats.computeIfAbsent(name, n -> createIndexInputStats(fileInfo.length()));
         if (useCache && isExcludedFromCache(name) == false) {
-            return new CachedBlobContainerIndexInput(this, fileInfo, context, inputStats, cacheService.getRangeSize());
+            if (partial) {
+                return new FrozenIndexInput(this, frozenCacheService, fileInfo, context, inputStats);
+            }
+            return new CachedBlobContainerIndexInput(this, fileInfo, context, inputStats, cacheService.getRangeSize(), readAheadRanges);
         } else {
             return new DirectBlobContainerIndexInput(
                 blobContainer(),
@@ -424,11 +453,17 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         final Executor executor = prewarmExecutor();
 
         final GroupedActionListener<Void> completionListener = new GroupedActionListener<>(
-            ActionListener.wrap(voids -> recoveryState.setPreWarmComplete(), e -> {}), // Ignore pre-warm errors
+            ActionListener.wrap(voids -> onPrewarmComplete(), e -> {}), // Ignore pre-warm errors
             snapshot().totalFileCount()
         );
 
-        for (BlobStoreIndexShardSnapshot.FileInfo file : snapshot().indexFiles()) {
+        // the parts of the files are queued and warmed in order of priority, see #warmingPriority(String)
+        final List<BlobStoreIndexShardSnapshot.FileInfo> files = snapshot().indexFiles()
+            .stream()
+            .sorted(Comparator.comparingInt(file -> warmingPriority(file.physicalName())))
+            .collect(Collectors.toList());
+
+        for (BlobStoreIndexShardSnapshot.FileInfo file : files) {
             if (file.metadata().hashEqualsContents() || isExcludedFromCache(file.physicalName())) {
                 if (file.metadata().hashEqualsContents()) {
                     recoveryState.getIndex().addFileDetail(file.physicalName(), file.length(), true);
@@ -439,6 +474,8 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                 continue;
             }
             recoveryState.getIndex().addFileDetail(file.physicalName(), file.length(), false);
+            warmingTotalFiles.incrementAndGet();
+            warmingTotalBytes.addAndGet(file.length());
             try {
                 final IndexInput input = openInput(file.physicalName(), CachedBlobContainerIndexInput.CACHE_WARMING_CONTEXT);
                 assert input instanceof CachedBlobContainerIndexInput : "expected cached index input but got " + input.getClass();
@@ -446,6 +483,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                 final int numberOfParts = file.numberOfParts();
                 final StepListener<Collection<Void>> fileCompletionListener = new StepListener<>();
                 fileCompletionListener.whenComplete(voids -> input.close(), e -> IOUtils.closeWhileHandlingException(input));
+                fileCompletionListener.whenComplete(voids -> warmedFiles.incrementAndGet(), e -> {});
                 fileCompletionListener.whenComplete(voids -> completionListener.onResponse(null), completionListener::onFailure);
 
                 final GroupedActionListener<Void> listener = new GroupedActionListener<>(fileCompletionListener, numberOfParts);
@@ -459,6 +497,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                         final long startTimeInNanos = statsCurrentTimeNanosSupplier.getAsLong();
                         ((CachedBlobContainerIndexInput) input).prefetchPart(part);
                         recoveryState.getIndex().addRecoveredBytesToFile(file.physicalName(), file.partBytes(part));
+                        warmedBytes.addAndGet(file.partBytes(part));
 
                         logger.trace(
                             () -> new ParameterizedMessage(
@@ -486,6 +525,61 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
         }
     }
 
+    private void onPrewarmComplete() {
+        warmingCompleted = true;
+        recoveryState.setPreWarmComplete();
+    }
+
+    /**
+     * Returns the priority with which the given file is warmed, lower values come first. The files that most queries need to find the
+     * matching documents (terms dictionaries, points and norms) are warmed first, followed by the postings and finally by the files that
+     * are only used once the matching documents are known, like doc values and stored fields.
+     */
+    static int warmingPriority(String fileName) {
+        final String extension = IndexFileNames.getExtension(fileName);
+        if (extension == null) {
+            return 5;
+        }
+        switch (extension) {
+            case "tmd":
+            case "tip":
+            case "tim":
+                return 0;
+            case "kdm":
+            case "kdi":
+            case "kdd":
+            case "dii":
+            case "dim":
+                return 1;
+            case "nvm":
+            case "nvd":
+                return 2;
+            case "doc":
+            case "pos":
+            case "pay":
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * @return the progress of the warming of the cache, or {@code null} if the cache is not warmed
+     */
+    @Nullable
+    public CacheWarmingStats getCacheWarmingStats() {
+        if (prewarmCache == false) {
+            return null;
+        }
+        return new CacheWarmingStats(
+            warmingTotalFiles.get(),
+            warmedFiles.get(),
+            warmingTotalBytes.get(),
+            warmedBytes.get(),
+            warmingCompleted
+        );
+    }
+
     private void prewarmNext(final Executor executor, final BlockingQueue<Tuple<ActionListener<Void>, CheckedRunnable<Exception>>> queue) {
         try {
             final Tuple<ActionListener<Void>, CheckedRunnable<Exception>> next = queue.poll(0L, TimeUnit.MILLISECONDS);
@@ -502,6 +596,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
     public static Directory create(
         RepositoriesService repositories,
         CacheService cache,
+        FrozenCacheService frozenCacheService,
         IndexSettings indexSettings,
         ShardPath shardPath,
         LongSupplier currentTimeNanosSupplier,
@@ -535,6 +630,16 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
             );
         }
 
+        if (SNAPSHOT_PARTIAL_SETTING.get(indexSettings.getSettings()) && frozenCacheService.isEnabled() == false) {
+            throw new IllegalArgumentException(
+                "searchable snapshot shard "
+                    + shardPath.getShardId()
+                    + " is partially cached but the shared cache is disabled on this node, setting ["
+                    + FrozenCacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey()
+                    + "] must be configured"
+            );
+        }
+
         final String repositoryName = SNAPSHOT_REPOSITORY_SETTING.get(indexSettings.getSettings());
         final Repository repository = repositories.repository(repositoryName);
         if (repository instanceof BlobStoreRepository == false) {
@@ -577,6 +682,7 @@ public class SearchableSnapshotDirectory extends BaseDirectory {
                 indexSettings.getSettings(),
                 currentTimeNanosSupplier,
                 cache,
+                frozenCacheService,
                 cacheDir,
                 shardPath,
                 threadPool
@@ -25,7 +25,6 @@ import org.elasticsearch.common.io.Channels;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
-import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.index.store.BaseSearchableSnapshotIndexInput;
 import org.elasticsearch.index.store.IndexInputStats;
 import org.elasticsearch.index.store.SearchableSnapshotDirectory;
@@ -42,9 +41,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.IntStream;
 
-import static org.elasticsearch.index.store.checksum.ChecksumBlobContainerIndexInput.checksumToBytesArray;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsConstants.toIntBytes;
 
 public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexInput {
@@ -56,24 +53,35 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
      */
     public static final IOContext CACHE_WARMING_CONTEXT = new IOContext();
 
+    /**
+     * Number of contiguous reads after which an index input is considered to be read sequentially and starts to read ahead.
+     */
+    private static final int SEQUENTIAL_READS_THRESHOLD = 4;
+
     private static final Logger logger = LogManager.getLogger(CachedBlobContainerIndexInput.class);
     private static final int COPY_BUFFER_SIZE = ByteSizeUnit.KB.toIntBytes(8);
 
     private final SearchableSnapshotDirectory directory;
     private final CacheFileReference cacheFileReference;
     private final int defaultRangeSize;
+    private final int readAheadRanges;
 
     // last read position is kept around in order to detect (non)contiguous reads for stats
     private long lastReadPosition;
     // last seek position is kept around in order to detect forward/backward seeks for stats
     private long lastSeekPosition;
+    // number of contiguous reads since the last non-contiguous one, used to detect sequential reads
+    private int contiguousReads;
+    // end of the bytes that were already requested to be read ahead by this index input
+    private long readAheadPosition;
 
     public CachedBlobContainerIndexInput(
         SearchableSnapshotDirectory directory,
         FileInfo fileInfo,
         IOContext context,
         IndexInputStats stats,
-        int rangeSize
+        int rangeSize,
+        int readAheadRanges
     ) {
         this(
             "CachedBlobContainerIndexInput(" + fileInfo.physicalName() + ")",
@@ -84,7 +92,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
             0L,
             fileInfo.length(),
             new CacheFileReference(directory, fileInfo.physicalName(), fileInfo.length()),
-            rangeSize
+            rangeSize,
+            readAheadRanges
         );
         assert getBufferSize() <= BlobStoreCacheService.DEFAULT_CACHED_BLOB_SIZE; // must be able to cache at least one buffer's worth
         stats.incrementOpenCount();
@@ -99,7 +108,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         long offset,
         long length,
         CacheFileReference cacheFileReference,
-        int rangeSize
+        int rangeSize,
+        int readAheadRanges
     ) {
         super(resourceDesc, directory.blobContainer(), fileInfo, context, stats, offset, length);
         this.directory = directory;
@@ -107,6 +117,7 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         this.lastReadPosition = this.offset;
         this.lastSeekPosition = this.offset;
         this.defaultRangeSize = rangeSize;
+        this.readAheadRanges = readAheadRanges;
     }
 
     @Override
@@ -124,7 +135,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
     }
 
     private long getDefaultRangeSize() {
-        return (context != CACHE_WARMING_CONTEXT) ? defaultRangeSize : fileInfo.partSize().getBytes();
+        // files stored in content-defined chunks have no part size, their parts are warmed one by one regardless of the range size
+        return (context != CACHE_WARMING_CONTEXT || fileInfo.isChunked()) ? defaultRangeSize : fileInfo.partSize().getBytes();
     }
 
     private Tuple<Long, Long> computeRange(long position) {
@@ -352,8 +364,49 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
 
     private void readComplete(long position, int length) {
         stats.incrementBytesRead(lastReadPosition, position, length);
+        contiguousReads = (position == lastReadPosition) ? contiguousReads + 1 : 0;
         lastReadPosition = position + length;
         lastSeekPosition = lastReadPosition;
+        maybeReadAhead();
+    }
+
+    /**
+     * Fetches the ranges that follow the last read in the background if this index input is read sequentially, so that sequential scans
+     * (e.g. of doc values or stored fields) find the next ranges in cache instead of waiting for the blob store every time they enter one.
+     */
+    private void maybeReadAhead() {
+        if (readAheadRanges == 0 || contiguousReads < SEQUENTIAL_READS_THRESHOLD) {
+            return;
+        }
+        final long end = this.offset + length();
+        if (lastReadPosition >= end) {
+            return;
+        }
+        // read ahead whole ranges, like on-demand reads do, so that a range is never fetched in several pieces
+        final Tuple<Long, Long> currentRange = computeRange(lastReadPosition);
+        final long readAheadEnd = Math.min(currentRange.v2() + readAheadRanges * getDefaultRangeSize(), computeRange(end - 1L).v2());
+        if (readAheadEnd <= readAheadPosition) {
+            return; // already requested
+        }
+        final long readAheadStart = Math.max(currentRange.v1(), readAheadPosition);
+        readAheadPosition = readAheadEnd;
+        try {
+            final CacheFile cacheFile = cacheFileReference.get();
+            final Tuple<Long, Long> rangeToReadAhead = cacheFile.getAbsentRangeWithin(readAheadStart, readAheadEnd);
+            if (rangeToReadAhead == null) {
+                return;
+            }
+            logger.trace("reading ahead [{}-{}] of [{}]", rangeToReadAhead.v1(), rangeToReadAhead.v2(), this);
+            // nobody waits for the range to be available so there is nothing to read, the range is only written in cache
+            final Tuple<Long, Long> nothingToRead = Tuple.tuple(rangeToReadAhead.v1(), rangeToReadAhead.v1());
+            cacheFile.populateAndRead(rangeToReadAhead, nothingToRead, channel -> 0, (channel, from, to, progressUpdater) -> {
+                writeCacheFile(channel, from, to, progressUpdater);
+                stats.addReadAheadBytes(to - from);
+            }, directory.cacheFetchAsyncExecutor());
+        } catch (Exception e) {
+            // read-ahead is best effort, the ranges are fetched on demand if needed
+            logger.debug(() -> new ParameterizedMessage("failed to read ahead [{}-{}] of [{}]", readAheadStart, readAheadEnd, this), e);
+        }
     }
 
     private int readDirectlyIfAlreadyClosed(long position, ByteBuffer b, Exception e) throws IOException {
@@ -406,26 +459,6 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         throw new IOException("failed to read data from cache", e);
     }
 
-    private boolean readChecksumFromFileInfo(ByteBuffer b) throws IOException {
-        assert isClone == false;
-        byte[] footer;
-        try {
-            footer = checksumToBytesArray(fileInfo.checksum());
-        } catch (NumberFormatException e) {
-            // tests disable this optimisation by passing an invalid checksum
-            footer = null;
-        }
-        if (footer == null) {
-            return false;
-        }
-
-        b.put(footer);
-        assert b.remaining() == 0L;
-        return true;
-
-        // TODO we should add this to DirectBlobContainerIndexInput too.
-    }
-
     /**
      * Prefetches a complete part and writes it in cache. This method is used to prewarm the cache.
      */
@@ -434,7 +467,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         if (part >= fileInfo.numberOfParts()) {
             throw new IllegalArgumentException("Unexpected part number [" + part + "]");
         }
-        final Tuple<Long, Long> partRange = computeRange(IntStream.range(0, part).mapToLong(fileInfo::partBytes).sum());
+        final long partStart = fileInfo.partOffset(part);
+        final Tuple<Long, Long> partRange = Tuple.tuple(partStart, partStart + fileInfo.partBytes(part));
         assert assertRangeIsAlignedWithPart(partRange);
 
         try {
@@ -556,11 +590,11 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
             assert range.v1() == 0L : "start of range [" + range.v1() + "] is not aligned with zero";
             assert range.v2() == length : "end of range [" + range.v2() + "] is not aligned with file length [" + length + ']';
         } else {
-            final long length = fileInfo.partSize().getBytes();
-            assert range.v1() % length == 0L : "start of range [" + range.v1() + "] is not aligned with part start";
-            assert range.v2() % length == 0L || (range.v2() == fileInfo.length()) : "end of range ["
+            final int part = fileInfo.partForPosition(range.v1());
+            assert range.v1() == fileInfo.partOffset(part) : "start of range [" + range.v1() + "] is not aligned with part start";
+            assert range.v2() == fileInfo.partOffset(part) + fileInfo.partBytes(part) : "end of range ["
                 + range.v2()
-                + "] is not aligned with part end or with file length";
+                + "] is not aligned with part end";
         }
         return true;
     }
@@ -607,86 +641,6 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
         }
     }
 
-    /**
-     * Opens an {@link InputStream} for the given range of bytes which reads the data directly from the blob store. If the requested range
-     * spans multiple blobs then this stream will request them in turn.
-     *
-     * @param position The start of the range of bytes to read, relative to the start of the corresponding Lucene file.
-     * @param length The number of bytes to read
-     */
-    private InputStream openInputStreamFromBlobStore(final long position, final long length) throws IOException {
-        assert assertCurrentThreadMayAccessBlobStore();
-        if (fileInfo.numberOfParts() == 1L) {
-            assert position + length <= fileInfo.partBytes(0) : "cannot read ["
-                + position
-                + "-"
-                + (position + length)
-                + "] from ["
-                + fileInfo
-                + "]";
-            stats.addBlobStoreBytesRequested(length);
-            return blobContainer.readBlob(fileInfo.partName(0), position, length);
-        } else {
-            final int startPart = getPartNumberForPosition(position);
-            final int endPart = getPartNumberForPosition(position + length - 1);
-
-            for (int currentPart = startPart; currentPart <= endPart; currentPart++) {
-                final long startInPart = (currentPart == startPart) ? getRelativePositionInPart(position) : 0L;
-                final long endInPart = (currentPart == endPart)
-                    ? getRelativePositionInPart(position + length - 1) + 1
-                    : getLengthOfPart(currentPart);
-                stats.addBlobStoreBytesRequested(endInPart - startInPart);
-            }
-
-            return new SlicedInputStream(endPart - startPart + 1) {
-                @Override
-                protected InputStream openSlice(int slice) throws IOException {
-                    final int currentPart = startPart + slice;
-                    final long startInPart = (currentPart == startPart) ? getRelativePositionInPart(position) : 0L;
-                    final long endInPart = (currentPart == endPart)
-                        ? getRelativePositionInPart(position + length - 1) + 1
-                        : getLengthOfPart(currentPart);
-                    return blobContainer.readBlob(fileInfo.partName(currentPart), startInPart, endInPart - startInPart);
-                }
-            };
-        }
-    }
-
-    /**
-     * Compute the part number that contains the byte at the given position in the corresponding Lucene file.
-     */
-    private int getPartNumberForPosition(long position) {
-        ensureValidPosition(position);
-        final int part = Math.toIntExact(position / fileInfo.partSize().getBytes());
-        assert part <= fileInfo.numberOfParts() : "part number [" + part + "] exceeds number of parts: " + fileInfo.numberOfParts();
-        assert part >= 0 : "part number [" + part + "] is negative";
-        return part;
-    }
-
-    /**
-     * Compute the position of the given byte relative to the start of its part.
-     * @param position the position of the required byte (within the corresponding Lucene file)
-     */
-    private long getRelativePositionInPart(long position) {
-        ensureValidPosition(position);
-        final long pos = position % fileInfo.partSize().getBytes();
-        assert pos < fileInfo.partBytes(getPartNumberForPosition(pos)) : "position in part [" + pos + "] exceeds part's length";
-        assert pos >= 0L : "position in part [" + pos + "] is negative";
-        return pos;
-    }
-
-    private long getLengthOfPart(int part) {
-        return fileInfo.partBytes(part);
-    }
-
-    private void ensureValidPosition(long position) {
-        assert position >= 0L && position < fileInfo.length() : position + " vs " + fileInfo.length();
-        // noinspection ConstantConditions in case assertions are disabled
-        if (position < 0L || position >= fileInfo.length()) {
-            throw new IllegalArgumentException("Position [" + position + "] is invalid for a file of length [" + fileInfo.length() + "]");
-        }
-    }
-
     @Override
     protected void seekInternal(long pos) throws IOException {
         if (pos > length()) {
@@ -729,7 +683,8 @@ public class CachedBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
             this.offset + offset,
             length,
             cacheFileReference,
-            defaultRangeSize
+            defaultRangeSize,
+            readAheadRanges
         );
         slice.isClone = true;
         return slice;
@@ -0,0 +1,296 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.index.store.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.store.BaseSearchableSnapshotIndexInput;
+import org.elasticsearch.index.store.IndexInputStats;
+import org.elasticsearch.index.store.SearchableSnapshotDirectory;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService.CacheFileRegion;
+import org.elasticsearch.xpack.searchablesnapshots.cache.SharedBytes;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsConstants.toIntBytes;
+
+/**
+ * An {@link IndexInput} that reads the bytes of a file through the regions of the node-wide {@link FrozenCacheService}. Missing regions
+ * are fetched from the blob store in full, and reads fall back to the blob store if no region of the shared cache is available.
+ */
+public class FrozenIndexInput extends BaseSearchableSnapshotIndexInput {
+
+    private static final Logger logger = LogManager.getLogger(FrozenIndexInput.class);
+    private static final int COPY_BUFFER_SIZE = ByteSizeUnit.KB.toIntBytes(8);
+
+    private final SearchableSnapshotDirectory directory;
+    private final FrozenCacheService frozenCacheService;
+    private final CacheKey cacheKey;
+
+    // last read position is kept around in order to detect (non)contiguous reads for stats
+    private long lastReadPosition;
+    // last seek position is kept around in order to detect forward/backward seeks for stats
+    private long lastSeekPosition;
+
+    public FrozenIndexInput(
+        SearchableSnapshotDirectory directory,
+        FrozenCacheService frozenCacheService,
+        FileInfo fileInfo,
+        IOContext context,
+        IndexInputStats stats
+    ) {
+        this(
+            "FrozenIndexInput(" + fileInfo.physicalName() + ")",
+            directory,
+            frozenCacheService,
+            fileInfo,
+            context,
+            stats,
+            0L,
+            fileInfo.length(),
+            directory.createCacheKey(fileInfo.physicalName())
+        );
+        stats.incrementOpenCount();
+    }
+
+    private FrozenIndexInput(
+        String resourceDesc,
+        SearchableSnapshotDirectory directory,
+        FrozenCacheService frozenCacheService,
+        FileInfo fileInfo,
+        IOContext context,
+        IndexInputStats stats,
+        long offset,
+        long length,
+        CacheKey cacheKey
+    ) {
+        super(resourceDesc, directory.blobContainer(), fileInfo, context, stats, offset, length);
+        this.directory = directory;
+        this.frozenCacheService = frozenCacheService;
+        this.cacheKey = cacheKey;
+        this.lastReadPosition = this.offset;
+        this.lastSeekPosition = this.offset;
+    }
+
+    @Override
+    public void innerClose() {
+        // nothing to release, regions of the shared cache are only held for the duration of a read
+    }
+
+    @Override
+    protected void readInternal(ByteBuffer b) throws IOException {
+        final long position = getFilePointer() + this.offset;
+        final int length = b.remaining();
+
+        // We can detect that we're going to read the last 16 bytes (that contains the footer checksum) of the file. Such reads are often
+        // executed when opening a Directory and since we have the checksum in the snapshot metadata we can use it to fill the ByteBuffer.
+        if (length == CodecUtil.footerLength() && isClone == false && position == fileInfo.length() - length) {
+            if (readChecksumFromFileInfo(b)) {
+                logger.trace("read footer of file [{}] at position [{}], bypassing all caches", fileInfo.physicalName(), position);
+                return;
+            }
+            assert b.remaining() == length;
+        }
+
+        logger.trace("readInternal: read [{}-{}] ([{}] bytes) from [{}]", position, position + length, length, this);
+
+        long readPosition = position;
+        while (b.hasRemaining()) {
+            final int region = frozenCacheService.getRegion(readPosition);
+            final long regionStart = frozenCacheService.getRegionStart(region);
+            final long regionEnd = regionStart + frozenCacheService.getRegionLength(fileInfo.length(), region);
+            final int len = toIntBytes(Math.min(b.remaining(), regionEnd - readPosition));
+            assert len > 0 : len;
+
+            final CacheFileRegion cacheFileRegion = frozenCacheService.get(cacheKey, fileInfo.length(), region);
+            if (cacheFileRegion == null) {
+                logger.trace("no shared cache region available, reading [{}-{}] of [{}] directly", readPosition, readPosition + len, this);
+                readDirectly(readPosition, len, b);
+            } else {
+                try {
+                    readFromRegion(cacheFileRegion, regionStart, readPosition, len, b);
+                } catch (Exception e) {
+                    logger.debug(
+                        new ParameterizedMessage(
+                            "failed to read [{}-{}] of [{}] from shared cache region, reading it directly",
+                            readPosition,
+                            readPosition + len,
+                            this
+                        ),
+                        e
+                    );
+                    try {
+                        readDirectly(readPosition, len, b);
+                    } catch (Exception inner) {
+                        e.addSuppressed(inner);
+                        throw new IOException("failed to read data from cache", e);
+                    }
+                } finally {
+                    cacheFileRegion.decRef();
+                }
+            }
+            readPosition += len;
+        }
+        assert readPosition == position + length : readPosition + " vs " + (position + length);
+
+        stats.incrementBytesRead(lastReadPosition, position, length);
+        lastReadPosition = position + length;
+        lastSeekPosition = lastReadPosition;
+    }
+
+    private void readFromRegion(CacheFileRegion cacheFileRegion, long regionStart, long position, int length, ByteBuffer b)
+        throws Exception {
+        // fetch the whole region if it is missing, since it is the unit of caching
+        final Tuple<Long, Long> rangeToWrite = Tuple.tuple(0L, cacheFileRegion.getLength());
+        final Tuple<Long, Long> rangeToRead = Tuple.tuple(position - regionStart, position - regionStart + length);
+
+        // the reader may run on another thread, it fills a copy of the buffer whose position is only updated once the read succeeded
+        final ByteBuffer duplicate = b.duplicate();
+        duplicate.limit(duplicate.position() + length);
+        final int bytesRead = cacheFileRegion.populateAndRead(rangeToWrite, rangeToRead, channel -> {
+            final int read = channel.read(duplicate, rangeToRead.v1());
+            stats.addCachedBytesRead(read);
+            return read;
+        }, (channel, from, to, progressUpdater) -> writeCacheRegion(channel, regionStart, from, to, progressUpdater),
+            directory.cacheFetchAsyncExecutor()
+        ).get();
+        assert bytesRead == length : bytesRead + " vs " + length;
+        b.position(b.position() + length);
+    }
+
+    private void writeCacheRegion(SharedBytes.IO channel, long regionStart, long from, long to, Consumer<Long> progressUpdater)
+        throws IOException {
+        final long length = to - from;
+        final byte[] copyBuffer = new byte[toIntBytes(Math.min(COPY_BUFFER_SIZE, length))];
+        logger.trace(
+            () -> new ParameterizedMessage(
+                "writing range [{}-{}] of [{}] to shared cache region [{}]",
+                regionStart + from,
+                regionStart + to,
+                fileInfo.physicalName(),
+                channel.region()
+            )
+        );
+
+        long bytesCopied = 0L;
+        final long startTimeNanos = stats.currentTimeNanos();
+        try (InputStream input = openInputStreamFromBlobStore(regionStart + from, length)) {
+            while (bytesCopied < length) {
+                final int bytesRead = readSafe(input, copyBuffer, regionStart + from, length - bytesCopied);
+                channel.write(ByteBuffer.wrap(copyBuffer, 0, bytesRead), from + bytesCopied);
+                bytesCopied += bytesRead;
+                progressUpdater.accept(from + bytesCopied);
+            }
+        }
+        final long endTimeNanos = stats.currentTimeNanos();
+        stats.addCachedBytesWritten(bytesCopied, endTimeNanos - startTimeNanos);
+    }
+
+    private void readDirectly(long position, int length, ByteBuffer b) throws IOException {
+        final byte[] copyBuffer = new byte[Math.min(COPY_BUFFER_SIZE, length)];
+        int bytesCopied = 0;
+        final long startTimeNanos = stats.currentTimeNanos();
+        try (InputStream input = openInputStreamFromBlobStore(position, length)) {
+            while (bytesCopied < length) {
+                final int bytesRead = readSafe(input, copyBuffer, position, length - bytesCopied);
+                b.put(copyBuffer, 0, bytesRead);
+                bytesCopied += bytesRead;
+            }
+        }
+        final long endTimeNanos = stats.currentTimeNanos();
+        stats.addDirectBytesRead(bytesCopied, endTimeNanos - startTimeNanos);
+    }
+
+    private int readSafe(InputStream inputStream, byte[] copyBuffer, long rangeStart, long remaining) throws IOException {
+        final int len = (remaining < copyBuffer.length) ? toIntBytes(remaining) : copyBuffer.length;
+        final int bytesRead = inputStream.read(copyBuffer, 0, len);
+        if (bytesRead == -1) {
+            throw new EOFException(
+                String.format(Locale.ROOT, "unexpected EOF reading from [%d] ([%d] bytes remaining) from %s", rangeStart, remaining, this)
+            );
+        }
+        assert bytesRead > 0 : bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    protected void seekInternal(long pos) throws IOException {
+        if (pos > length()) {
+            throw new EOFException("Reading past end of file [position=" + pos + ", length=" + length() + "] for " + toString());
+        } else if (pos < 0L) {
+            throw new IOException("Seeking to negative position [" + pos + "] for " + toString());
+        }
+        final long position = pos + this.offset;
+        stats.incrementSeeks(lastSeekPosition, position);
+        lastSeekPosition = position;
+    }
+
+    @Override
+    public FrozenIndexInput clone() {
+        return (FrozenIndexInput) super.clone();
+    }
+
+    @Override
+    public IndexInput slice(String sliceDescription, long offset, long length) {
+        if (offset < 0 || length < 0 || offset + length > length()) {
+            throw new IllegalArgumentException(
+                "slice() "
+                    + sliceDescription
+                    + " out of bounds: offset="
+                    + offset
+                    + ",length="
+                    + length
+                    + ",fileLength="
+                    + length()
+                    + ": "
+                    + this
+            );
+        }
+        final FrozenIndexInput slice = new FrozenIndexInput(
+            getFullSliceDescription(sliceDescription),
+            directory,
+            frozenCacheService,
+            fileInfo,
+            context,
+            stats,
+            this.offset + offset,
+            length,
+            cacheKey
+        );
+        slice.isClone = true;
+        return slice;
+    }
+
+    @Override
+    public String toString() {
+        return "FrozenIndexInput{"
+            + "cacheKey="
+            + cacheKey
+            + ", offset="
+            + offset
+            + ", length="
+            + length()
+            + ", position="
+            + getFilePointer()
+            + ", directory="
+            + directory
+            + '}';
+    }
+}
@@ -109,15 +109,11 @@ public class DirectBlobContainerIndexInput extends BaseSearchableSnapshotIndexIn
             readInternalBytes(0, position, b, b.remaining());
         } else {
             while (b.hasRemaining()) {
-                int currentPart = Math.toIntExact(position / fileInfo.partSize().getBytes());
-                long remainingBytesInPart;
-                if (currentPart < (fileInfo.numberOfParts() - 1)) {
-                    remainingBytesInPart = ((currentPart + 1) * fileInfo.partSize().getBytes()) - position;
-                } else {
-                    remainingBytesInPart = toIntBytes(fileInfo.length() - position);
-                }
+                final int currentPart = fileInfo.partForPosition(position);
+                final long positionInPart = position - fileInfo.partOffset(currentPart);
+                final long remainingBytesInPart = fileInfo.partBytes(currentPart) - positionInPart;
                 final int read = toIntBytes(Math.min(b.remaining(), remainingBytesInPart));
-                readInternalBytes(currentPart, position % fileInfo.partSize().getBytes(), b, read);
+                readInternalBytes(currentPart, positionInPart, b, read);
             }
         }
     }
@@ -62,6 +62,7 @@ import org.elasticsearch.xpack.searchablesnapshots.action.TransportClearSearchab
 import org.elasticsearch.xpack.searchablesnapshots.action.TransportMountSearchableSnapshotAction;
 import org.elasticsearch.xpack.searchablesnapshots.action.TransportSearchableSnapshotsStatsAction;
 import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService;
 import org.elasticsearch.xpack.searchablesnapshots.cache.NodeEnvironmentCacheCleaner;
 import org.elasticsearch.xpack.searchablesnapshots.rest.RestClearSearchableSnapshotsCacheAction;
 import org.elasticsearch.xpack.searchablesnapshots.rest.RestMountSearchableSnapshotAction;
@@ -130,6 +131,22 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         Setting.Property.IndexScope,
         Setting.Property.NotCopyableOnResize
     );
+    // Whether the shard only caches the most frequently accessed regions of its files in the node-wide shared cache
+    public static final Setting<Boolean> SNAPSHOT_PARTIAL_SETTING = Setting.boolSetting(
+        "index.store.snapshot.partial",
+        false,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
+    // The number of cache ranges that are fetched ahead of an index input once it is read sequentially, or 0 to disable read-ahead
+    public static final Setting<Integer> SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING = Setting.intSetting(
+        "index.store.snapshot.cache.read_ahead_ranges",
+        1,
+        0,
+        16,
+        Setting.Property.IndexScope,
+        Setting.Property.NotCopyableOnResize
+    );
     // The file extensions that are excluded from the cache
     public static final Setting<List<String>> SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING = Setting.listSetting(
         "index.store.snapshot.cache.excluded_file_types",
@@ -155,6 +172,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
     private volatile Supplier<RepositoriesService> repositoriesServiceSupplier;
     private final SetOnce<BlobStoreCacheService> blobStoreCacheService = new SetOnce<>();
     private final SetOnce<CacheService> cacheService = new SetOnce<>();
+    private final SetOnce<FrozenCacheService> frozenCacheService = new SetOnce<>();
     private final SetOnce<ThreadPool> threadPool = new SetOnce<>();
     private final SetOnce<FailShardsOnInvalidLicenseClusterListener> failShardsListener = new SetOnce<>();
     private final Settings settings;
@@ -179,10 +197,16 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             SNAPSHOT_INDEX_ID_SETTING,
             SNAPSHOT_CACHE_ENABLED_SETTING,
             SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING,
+            SNAPSHOT_PARTIAL_SETTING,
+            SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING,
             SNAPSHOT_CACHE_EXCLUDED_FILE_TYPES_SETTING,
             SNAPSHOT_UNCACHED_CHUNK_SIZE_SETTING,
             CacheService.SNAPSHOT_CACHE_SIZE_SETTING,
-            CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING
+            CacheService.SNAPSHOT_CACHE_RANGE_SIZE_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_SIZE_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_REGION_SIZE_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_MAX_FREQ_SETTING,
+            FrozenCacheService.SNAPSHOT_CACHE_DECAY_INTERVAL_SETTING
         );
     }
 
@@ -202,6 +226,8 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
     ) {
         final CacheService cacheService = new CacheService(new NodeEnvironmentCacheCleaner(nodeEnvironment), settings);
         this.cacheService.set(cacheService);
+        final FrozenCacheService frozenCacheService = new FrozenCacheService(nodeEnvironment, settings, threadPool);
+        this.frozenCacheService.set(frozenCacheService);
         this.repositoriesServiceSupplier = repositoriesServiceSupplier;
         this.threadPool.set(threadPool);
         final BlobStoreCacheService blobStoreCacheService = new BlobStoreCacheService(
@@ -212,7 +238,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
         );
         this.blobStoreCacheService.set(blobStoreCacheService);
         this.failShardsListener.set(new FailShardsOnInvalidLicenseClusterListener(getLicenseState(), clusterService.getRerouteService()));
-        return List.of(cacheService, blobStoreCacheService);
+        return List.of(cacheService, frozenCacheService, blobStoreCacheService);
     }
 
     @Override
@@ -235,6 +261,8 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             assert repositories != null;
             final CacheService cache = cacheService.get();
             assert cache != null;
+            final FrozenCacheService frozenCache = frozenCacheService.get();
+            assert frozenCache != null;
             final ThreadPool threadPool = this.threadPool.get();
             assert threadPool != null;
             final BlobStoreCacheService blobCache = blobStoreCacheService.get();
@@ -242,6 +270,7 @@ public class SearchableSnapshots extends Plugin implements IndexStorePlugin, Eng
             return SearchableSnapshotDirectory.create(
                 repositories,
                 cache,
+                frozenCache,
                 indexSettings,
                 shardPath,
                 System::nanoTime,
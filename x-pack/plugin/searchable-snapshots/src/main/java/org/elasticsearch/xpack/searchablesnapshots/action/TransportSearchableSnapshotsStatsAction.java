@@ -91,7 +91,8 @@ public class TransportSearchableSnapshotsStatsAction extends AbstractTransportSe
                 .entrySet()
                 .stream()
                 .map(entry -> toCacheIndexInputStats(entry.getKey(), entry.getValue()))
-                .collect(Collectors.toList())
+                .collect(Collectors.toList()),
+            directory.getCacheWarmingStats()
         );
     }
 
@@ -113,7 +114,8 @@ public class TransportSearchableSnapshotsStatsAction extends AbstractTransportSe
             toTimedCounter(inputStats.getDirectBytesRead()),
             toTimedCounter(inputStats.getOptimizedBytesRead()),
             toCounter(inputStats.getBlobStoreBytesRequested()),
-            inputStats.getCurrentIndexCacheFills()
+            inputStats.getCurrentIndexCacheFills(),
+            toCounter(inputStats.getReadAheadBytes())
         );
     }
 
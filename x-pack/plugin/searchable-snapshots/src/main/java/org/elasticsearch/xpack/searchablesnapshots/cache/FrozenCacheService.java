@@ -0,0 +1,581 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.component.Lifecycle;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.store.cache.CacheKey;
+import org.elasticsearch.index.store.cache.SparseFileTracker;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * {@link FrozenCacheService} maintains a node-wide cache of fixed-size regions of the files read from searchable snapshot directories. All
+ * regions live in a single file on disk (see {@link SharedBytes}) so the disk space used by the cache is fixed and shared by all the shards
+ * of the node, regardless of how many files they have or how large these files are.
+ *
+ * Regions are evicted according to how frequently they are accessed: each region has a frequency that is incremented at most once per
+ * epoch when the region is accessed, and that is decremented for every epoch during which the region is not accessed. When a new region
+ * must be cached and no free region is left, the least frequently accessed region that is not currently in use is evicted.
+ */
+public class FrozenCacheService extends AbstractLifecycleComponent {
+
+    private static final Logger logger = LogManager.getLogger(FrozenCacheService.class);
+
+    private static final String SETTINGS_PREFIX = "xpack.searchable.snapshot.shared_cache.";
+
+    public static final String SHARED_CACHE_FILE_NAME = "shared_snapshot_cache";
+
+    public static final Setting<ByteSizeValue> SNAPSHOT_CACHE_SIZE_SETTING = Setting.byteSizeSetting(
+        SETTINGS_PREFIX + "size",
+        ByteSizeValue.ZERO,                                     // default, the shared cache is disabled
+        ByteSizeValue.ZERO,                                     // min
+        new ByteSizeValue(Long.MAX_VALUE, ByteSizeUnit.BYTES),  // max
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<ByteSizeValue> SNAPSHOT_CACHE_REGION_SIZE_SETTING = Setting.byteSizeSetting(
+        SETTINGS_PREFIX + "region_size",
+        new ByteSizeValue(16, ByteSizeUnit.MB),                 // default
+        CacheService.MIN_SNAPSHOT_CACHE_RANGE_SIZE,             // min
+        CacheService.MAX_SNAPSHOT_CACHE_RANGE_SIZE,             // max
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<Integer> SNAPSHOT_CACHE_MAX_FREQ_SETTING = Setting.intSetting(
+        SETTINGS_PREFIX + "max_freq",
+        100,                                                    // default
+        1,                                                      // min
+        Setting.Property.NodeScope
+    );
+
+    public static final Setting<TimeValue> SNAPSHOT_CACHE_DECAY_INTERVAL_SETTING = Setting.timeSetting(
+        SETTINGS_PREFIX + "decay.interval",
+        TimeValue.timeValueSeconds(60L),                        // default
+        TimeValue.timeValueSeconds(1L),                         // min
+        Setting.Property.NodeScope
+    );
+
+    private final ThreadPool threadPool;
+    private final long regionSize;
+    private final int maxFreq;
+    private final TimeValue decayInterval;
+    private final int numRegions;
+
+    @Nullable // if the shared cache is disabled
+    private final SharedBytes sharedBytes;
+
+    // all the following fields are guarded by the instance's monitor
+    private final Map<RegionKey, Entry> keyMapping = new HashMap<>();
+    private final ArrayDeque<Integer> freeRegions = new ArrayDeque<>();
+    private final Entry[] freqs;
+    private long epoch;
+
+    private volatile Scheduler.Cancellable decayTask;
+
+    public FrozenCacheService(final NodeEnvironment environment, final Settings settings, final ThreadPool threadPool) {
+        this.threadPool = Objects.requireNonNull(threadPool);
+        this.regionSize = SNAPSHOT_CACHE_REGION_SIZE_SETTING.get(settings).getBytes();
+        this.maxFreq = SNAPSHOT_CACHE_MAX_FREQ_SETTING.get(settings);
+        this.decayInterval = SNAPSHOT_CACHE_DECAY_INTERVAL_SETTING.get(settings);
+        final long cacheSize = SNAPSHOT_CACHE_SIZE_SETTING.get(settings).getBytes();
+        if (cacheSize > 0L && cacheSize < regionSize) {
+            throw new IllegalArgumentException(
+                "setting ["
+                    + SNAPSHOT_CACHE_SIZE_SETTING.getKey()
+                    + "] must be either 0 or larger than ["
+                    + SNAPSHOT_CACHE_REGION_SIZE_SETTING.getKey()
+                    + "] but got ["
+                    + cacheSize
+                    + "] and ["
+                    + regionSize
+                    + "]"
+            );
+        }
+        this.numRegions = Math.toIntExact(cacheSize / regionSize);
+        this.freqs = new Entry[maxFreq];
+        if (numRegions > 0) {
+            try {
+                // the shared cache lives on the first data path, like the data of single-path shards
+                this.sharedBytes = new SharedBytes(numRegions, regionSize, getSharedCacheFile(environment));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (int region = 0; region < numRegions; region++) {
+                freeRegions.add(region);
+            }
+        } else {
+            this.sharedBytes = null;
+        }
+    }
+
+    public static Path getSharedCacheFile(NodeEnvironment environment) {
+        return environment.nodePaths()[0].path.resolve(SHARED_CACHE_FILE_NAME);
+    }
+
+    @Override
+    protected void doStart() {
+        if (isEnabled()) {
+            decayTask = threadPool.scheduleWithFixedDelay(this::computeDecay, decayInterval, ThreadPool.Names.GENERIC);
+        }
+    }
+
+    @Override
+    protected void doStop() {
+        final Scheduler.Cancellable task = decayTask;
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    @Override
+    protected void doClose() {
+        if (sharedBytes != null) {
+            sharedBytes.close();
+        }
+    }
+
+    private void ensureLifecycleStarted() {
+        final Lifecycle.State state = lifecycleState();
+        assert state != Lifecycle.State.INITIALIZED : state;
+        if (state != Lifecycle.State.STARTED) {
+            throw new IllegalStateException("Failed to read data from cache: cache service is not started [" + state + "]");
+        }
+    }
+
+    /**
+     * @return {@code true} if the node has a shared cache, i.e. if its size is larger than zero
+     */
+    public boolean isEnabled() {
+        return sharedBytes != null;
+    }
+
+    /**
+     * @return the size (in bytes) of the regions of the shared cache
+     */
+    public long getRegionSize() {
+        return regionSize;
+    }
+
+    public int getNumRegions() {
+        return numRegions;
+    }
+
+    /**
+     * @return the index of the region that contains the byte at the given position of a file
+     */
+    public int getRegion(long position) {
+        return Math.toIntExact(position / regionSize);
+    }
+
+    /**
+     * @return the position of the first byte of the given region within a file
+     */
+    public long getRegionStart(int region) {
+        return region * regionSize;
+    }
+
+    /**
+     * @return the length of the given region of a file of the given length, which is shorter than the region size for the last region
+     */
+    public long getRegionLength(long fileLength, int region) {
+        final long regionStart = getRegionStart(region);
+        assert regionStart < fileLength : regionStart + " vs " + fileLength;
+        return Math.min(regionSize, fileLength - regionStart);
+    }
+
+    // used in tests
+    synchronized int freeRegionCount() {
+        return freeRegions.size();
+    }
+
+    // used in tests
+    synchronized int getFreq(CacheFileRegion cacheFileRegion) {
+        final Entry entry = keyMapping.get(cacheFileRegion.regionKey);
+        return entry != null && entry.chunk == cacheFileRegion ? entry.freq : -1;
+    }
+
+    /**
+     * Returns the cached region of the given file, allocating a region of the shared cache to it if it is not cached yet. This may evict
+     * the least frequently used region that is not currently in use.
+     *
+     * @return the cached region, on which the caller must call {@link CacheFileRegion#decRef()} once it is done reading or writing, or
+     *         {@code null} if no region could be allocated because all regions are in use
+     */
+    @Nullable
+    public CacheFileRegion get(final CacheKey cacheKey, final long fileLength, final int region) {
+        ensureLifecycleStarted();
+        assert isEnabled() : "shared cache is disabled";
+        final RegionKey regionKey = new RegionKey(cacheKey, region);
+        synchronized (this) {
+            Entry entry = keyMapping.get(regionKey);
+            if (entry == null) {
+                final Integer freeRegion = freeRegions.isEmpty() ? maybeEvict() : freeRegions.poll();
+                if (freeRegion == null) {
+                    return null;
+                }
+                final CacheFileRegion chunk = new CacheFileRegion(regionKey, getRegionLength(fileLength, region), freeRegion);
+                entry = new Entry(chunk, epoch);
+                keyMapping.put(regionKey, entry);
+                pushEntryToFront(entry);
+            } else {
+                unlink(entry);
+                if (entry.lastAccessedEpoch < epoch) {
+                    // the frequency of a region is incremented at most once per epoch
+                    entry.lastAccessedEpoch = epoch;
+                    entry.freq = Math.min(entry.freq + 1, maxFreq - 1);
+                }
+                pushEntryToFront(entry);
+            }
+            final boolean acquired = entry.chunk.tryIncRef();
+            assert acquired : "cached region should not be released while still in the cache " + entry.chunk;
+            return entry.chunk;
+        }
+    }
+
+    /**
+     * Evicts the least frequently used region that is not in use and returns its position in the shared cache, or {@code null} if all
+     * regions are in use.
+     */
+    @Nullable
+    private Integer maybeEvict() {
+        assert Thread.holdsLock(this);
+        for (int freq = 0; freq < maxFreq; freq++) {
+            // the least recently used entries of a given frequency are at the end of its list
+            for (Entry entry = freqs[freq] == null ? null : freqs[freq].prev; entry != null; entry = entry.prev) {
+                // only the cache holds a reference to the region, nobody is reading or writing it
+                if (entry.chunk.refCount() == 1) {
+                    evict(entry);
+                    assert freeRegions.isEmpty() == false : "evicted region should have been released";
+                    return freeRegions.poll();
+                }
+                if (entry == freqs[freq]) {
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void evict(Entry entry) {
+        assert Thread.holdsLock(this);
+        final Entry removed = keyMapping.remove(entry.chunk.regionKey);
+        assert removed == entry;
+        unlink(entry);
+        entry.chunk.markEvicted();
+    }
+
+    /**
+     * Decrements the frequency of the regions that were not accessed during the last epoch, and starts a new epoch.
+     */
+    void computeDecay() {
+        synchronized (this) {
+            for (int freq = 1; freq < maxFreq; freq++) {
+                final List<Entry> decayed = new ArrayList<>();
+                Entry entry = freqs[freq];
+                while (entry != null) {
+                    if (entry.lastAccessedEpoch < epoch) {
+                        decayed.add(entry);
+                    }
+                    entry = entry.next;
+                }
+                for (Entry decayedEntry : decayed) {
+                    unlink(decayedEntry);
+                    decayedEntry.freq--;
+                    pushEntryToBack(decayedEntry);
+                }
+            }
+            epoch++;
+        }
+    }
+
+    /**
+     * Evicts the cached regions of the files whose keys match the given predicate. Evicted regions that are in use are only made available
+     * again once they are released by their users.
+     */
+    public void removeFromCache(final Predicate<CacheKey> predicate) {
+        synchronized (this) {
+            final List<Entry> matchingEntries = new ArrayList<>();
+            for (Map.Entry<RegionKey, Entry> entry : keyMapping.entrySet()) {
+                if (predicate.test(entry.getKey().cacheKey)) {
+                    matchingEntries.add(entry.getValue());
+                }
+            }
+            for (Entry entry : matchingEntries) {
+                evict(entry);
+            }
+        }
+    }
+
+    // entries are kept in a circular doubly linked list per frequency, whose head is the most recently used entry and whose tail
+    // (i.e. the head's previous entry) is the least recently used one
+
+    private void pushEntryToFront(final Entry entry) {
+        assert Thread.holdsLock(this);
+        assert entry.next == null && entry.prev == null : "entry is already linked";
+        final Entry head = freqs[entry.freq];
+        if (head == null) {
+            entry.prev = entry;
+        } else {
+            entry.next = head;
+            entry.prev = head.prev;
+            head.prev = entry;
+        }
+        freqs[entry.freq] = entry;
+    }
+
+    private void pushEntryToBack(final Entry entry) {
+        assert Thread.holdsLock(this);
+        assert entry.next == null && entry.prev == null : "entry is already linked";
+        final Entry head = freqs[entry.freq];
+        if (head == null) {
+            entry.prev = entry;
+            freqs[entry.freq] = entry;
+        } else {
+            final Entry tail = head.prev;
+            tail.next = entry;
+            entry.prev = tail;
+            head.prev = entry;
+        }
+    }
+
+    private void unlink(final Entry entry) {
+        assert Thread.holdsLock(this);
+        final Entry head = freqs[entry.freq];
+        assert head != null : "no entry of frequency " + entry.freq;
+        if (head == entry) {
+            freqs[entry.freq] = entry.next;
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+        } else {
+            entry.prev.next = entry.next;
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                head.prev = entry.prev;
+            }
+        }
+        entry.next = entry.prev = null;
+    }
+
+    private synchronized void releaseRegion(int sharedBytesPos) {
+        assert freeRegions.contains(sharedBytesPos) == false : "region [" + sharedBytesPos + "] is already free";
+        freeRegions.add(sharedBytesPos);
+    }
+
+    private static final class RegionKey {
+
+        final CacheKey cacheKey;
+        final int region;
+
+        RegionKey(CacheKey cacheKey, int region) {
+            this.cacheKey = Objects.requireNonNull(cacheKey);
+            this.region = region;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final RegionKey regionKey = (RegionKey) o;
+            return region == regionKey.region && cacheKey.equals(regionKey.cacheKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cacheKey, region);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + cacheKey + ", region=" + region + ']';
+        }
+    }
+
+    private static final class Entry {
+
+        final CacheFileRegion chunk;
+        Entry prev;
+        Entry next;
+        int freq;
+        long lastAccessedEpoch;
+
+        Entry(CacheFileRegion chunk, long lastAccessedEpoch) {
+            this.chunk = chunk;
+            this.lastAccessedEpoch = lastAccessedEpoch;
+        }
+    }
+
+    @FunctionalInterface
+    public interface RangeAvailableHandler {
+        // positions are relative to the start of the region
+        int onRangeAvailable(SharedBytes.IO channel) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RangeMissingHandler {
+        // positions are relative to the start of the region
+        void fillCacheRange(SharedBytes.IO channel, long from, long to, Consumer<Long> progressUpdater) throws IOException;
+    }
+
+    /**
+     * A region of a file that is cached in a region of the shared cache. The region of the shared cache is released once the cached region
+     * is evicted and all its users released it.
+     */
+    public class CacheFileRegion extends AbstractRefCounted {
+
+        private final RegionKey regionKey;
+        private final SparseFileTracker tracker;
+        private final int sharedBytesPos;
+        private final AtomicBoolean evicted = new AtomicBoolean();
+
+        CacheFileRegion(RegionKey regionKey, long regionLength, int sharedBytesPos) {
+            super("CacheFileRegion");
+            this.regionKey = regionKey;
+            this.tracker = new SparseFileTracker("file region " + regionKey, regionLength);
+            this.sharedBytesPos = sharedBytesPos;
+        }
+
+        public long getLength() {
+            return tracker.getLength();
+        }
+
+        public boolean isEvicted() {
+            return evicted.get();
+        }
+
+        private void markEvicted() {
+            if (evicted.compareAndSet(false, true)) {
+                // release the reference held by the cache
+                decRef();
+            }
+        }
+
+        @Override
+        protected void closeInternal() {
+            assert evicted.get() : "region released before being evicted " + this;
+            logger.trace("releasing shared cache region [{}] of {}", sharedBytesPos, regionKey);
+            releaseRegion(sharedBytesPos);
+        }
+
+        private void ensureOpen() {
+            if (evicted.get()) {
+                throw new AlreadyClosedException("File region " + regionKey + " has been evicted");
+            }
+        }
+
+        /**
+         * Populates any missing ranges within {@code rangeToWrite} using the {@link RangeMissingHandler}, and notifies the
+         * {@link RangeAvailableHandler} when {@code rangeToRead} is available to read. Ranges are relative to the start of the region.
+         * The caller must hold a reference to this region until the returned future completes.
+         *
+         * @return a future which returns the result of the {@link RangeAvailableHandler} once it has completed.
+         */
+        public Future<Integer> populateAndRead(
+            final Tuple<Long, Long> rangeToWrite,
+            final Tuple<Long, Long> rangeToRead,
+            final RangeAvailableHandler reader,
+            final RangeMissingHandler writer,
+            final Executor executor
+        ) {
+            assert refCount() > 1 : "caller must hold a reference to the region " + this;
+            final CompletableFuture<Integer> future = new CompletableFuture<>();
+            try {
+                ensureOpen();
+                final SharedBytes.IO fileChannel = sharedBytes.getFileChannel(sharedBytesPos);
+                final List<SparseFileTracker.Gap> gaps = tracker.waitForRange(rangeToWrite, rangeToRead, ActionListener.wrap(success -> {
+                    final int read = reader.onRangeAvailable(fileChannel);
+                    assert read == rangeToRead.v2() - rangeToRead.v1() : "partial read ["
+                        + read
+                        + "] does not match the range to read ["
+                        + rangeToRead.v2()
+                        + '-'
+                        + rangeToRead.v1()
+                        + ']';
+                    future.complete(read);
+                }, future::completeExceptionally));
+
+                for (SparseFileTracker.Gap gap : gaps) {
+                    // writers run asynchronously so they hold their own reference, the region must not be reused before they complete
+                    if (tryIncRef() == false) {
+                        throw new AlreadyClosedException("File region " + regionKey + " has been released");
+                    }
+                    executor.execute(new AbstractRunnable() {
+
+                        @Override
+                        protected void doRun() throws Exception {
+                            ensureOpen();
+                            writer.fillCacheRange(fileChannel, gap.start(), gap.end(), gap::onProgress);
+                            gap.onCompletion();
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            gap.onFailure(e);
+                        }
+
+                        @Override
+                        public void onAfter() {
+                            decRef();
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheFileRegion{"
+                + "regionKey="
+                + regionKey
+                + ", sharedBytesPos="
+                + sharedBytesPos
+                + ", evicted="
+                + evicted.get()
+                + ", refCount="
+                + refCount()
+                + '}';
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.SuppressForbidden;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single file on disk that is split into a fixed number of regions of the same size, which are shared by all the searchable snapshot
+ * shards of the node. The file is created with its full size when the node starts so that the cache never needs to allocate (or delete)
+ * files afterwards. Each region is memory-mapped for reads, while writes go through positional writes on the file channel.
+ */
+public class SharedBytes implements Releasable {
+
+    private static final Logger logger = LogManager.getLogger(SharedBytes.class);
+
+    private final int numRegions;
+    private final long regionSize;
+    private final Path path;
+    private final FileChannel fileChannel;
+    private final IO[] ios;
+
+    SharedBytes(int numRegions, long regionSize, Path path) throws IOException {
+        if (numRegions <= 0) {
+            throw new IllegalArgumentException("number of regions must be positive but got [" + numRegions + "]");
+        }
+        if (regionSize <= 0L || regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("region size must be in [1, " + Integer.MAX_VALUE + "] but got [" + regionSize + "]");
+        }
+        this.numRegions = numRegions;
+        this.regionSize = regionSize;
+        this.path = path;
+        final long fileSize = numRegions * regionSize;
+        // the content of a previous cache file cannot be trusted, so it is always recreated
+        Files.deleteIfExists(path);
+        boolean success = false;
+        final FileChannel channel = FileChannel.open(
+            path,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        try {
+            preallocate(channel, fileSize);
+            this.fileChannel = channel;
+            this.ios = new IO[numRegions];
+            for (int region = 0; region < numRegions; region++) {
+                final long regionStart = region * regionSize;
+                ios[region] = new IO(region, regionStart, channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize));
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(channel);
+                IOUtils.deleteFilesIgnoringExceptions(path);
+            }
+        }
+        logger.debug("created shared cache file [{}] of [{}] regions of [{}] bytes", path, numRegions, regionSize);
+    }
+
+    /**
+     * Extends the file to its full size by writing its last byte. Filesystems supporting sparse files only reserve the space of a region
+     * once it is written for the first time.
+     */
+    @SuppressForbidden(reason = "Use positional writes on purpose")
+    private static void preallocate(FileChannel channel, long fileSize) throws IOException {
+        final ByteBuffer lastByte = ByteBuffer.allocate(1);
+        while (lastByte.hasRemaining()) {
+            channel.write(lastByte, fileSize - 1L + lastByte.position());
+        }
+        assert channel.size() == fileSize : channel.size() + " vs " + fileSize;
+    }
+
+    public int getNumRegions() {
+        return numRegions;
+    }
+
+    public long getRegionSize() {
+        return regionSize;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return a view of the given region whose positions are relative to the start of the region
+     */
+    public IO getFileChannel(int region) {
+        return ios[region];
+    }
+
+    @Override
+    public void close() {
+        try {
+            IOUtils.close(fileChannel, () -> Files.deleteIfExists(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads and writes the bytes of a single region of the shared file.
+     */
+    public final class IO {
+
+        private final int region;
+        private final long regionStart;
+        private final MappedByteBuffer mappedByteBuffer;
+
+        private IO(int region, long regionStart, MappedByteBuffer mappedByteBuffer) {
+            this.region = region;
+            this.regionStart = regionStart;
+            this.mappedByteBuffer = mappedByteBuffer;
+        }
+
+        public int region() {
+            return region;
+        }
+
+        /**
+         * Copies the bytes of the region that start at the given position into the remaining space of the destination buffer.
+         *
+         * @return the number of bytes copied
+         */
+        public int read(ByteBuffer dst, long position) {
+            checkRange(position, dst.remaining());
+            final int length = dst.remaining();
+            final ByteBuffer src = mappedByteBuffer.duplicate();
+            src.position(Math.toIntExact(position));
+            src.limit(Math.toIntExact(position + length));
+            dst.put(src);
+            return length;
+        }
+
+        /**
+         * Writes the remaining bytes of the source buffer in the region starting at the given position.
+         *
+         * @return the number of bytes written
+         */
+        @SuppressForbidden(reason = "Use positional writes on purpose")
+        public int write(ByteBuffer src, long position) throws IOException {
+            checkRange(position, src.remaining());
+            int written = 0;
+            while (src.hasRemaining()) {
+                written += fileChannel.write(src, regionStart + position + written);
+            }
+            return written;
+        }
+
+        private void checkRange(long position, int length) {
+            if (position < 0L || position + length > regionSize) {
+                throw new IllegalArgumentException(
+                    "range [" + position + "-" + (position + length) + "] is out of bounds of region [" + region + "]"
+                );
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "SharedBytes.IO{region=" + region + ", path=" + path + '}';
+        }
+    }
+}
@@ -624,6 +624,7 @@ public class SearchableSnapshotDirectoryStatsTests extends AbstractSearchableSna
                 indexSettings,
                 statsCurrentTimeNanos,
                 cacheService,
+                defaultFrozenCacheService(),
                 cacheDir,
                 shardPath,
                 threadPool
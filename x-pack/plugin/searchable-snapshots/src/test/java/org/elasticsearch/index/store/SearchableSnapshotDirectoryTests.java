@@ -84,6 +84,7 @@ import org.elasticsearch.repositories.fs.FsRepository;
 import org.elasticsearch.snapshots.SnapshotId;
 import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.xpack.core.searchablesnapshots.SearchableSnapshotShardStats.CacheWarmingStats;
 import org.elasticsearch.xpack.searchablesnapshots.AbstractSearchableSnapshotsTestCase;
 import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
 import org.hamcrest.Matcher;
@@ -129,6 +130,7 @@ import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -602,6 +604,7 @@ public class SearchableSnapshotDirectoryTests extends AbstractSearchableSnapshot
                             .build(),
                         () -> 0L,
                         cacheService,
+                        defaultFrozenCacheService(),
                         cacheDir,
                         shardPath,
                         threadPool
@@ -701,6 +704,7 @@ public class SearchableSnapshotDirectoryTests extends AbstractSearchableSnapshot
                         .build(),
                     () -> 0L,
                     cacheService,
+                    defaultFrozenCacheService(),
                     cacheDir,
                     shardPath,
                     threadPool
@@ -761,7 +765,7 @@ public class SearchableSnapshotDirectoryTests extends AbstractSearchableSnapshot
             final IndexSettings indexSettings = new IndexSettings(IndexMetadata.builder("test").settings(settings).build(), Settings.EMPTY);
             expectThrows(
                 IllegalArgumentException.class,
-                () -> SearchableSnapshotDirectory.create(null, null, indexSettings, null, null, null, null)
+                () -> SearchableSnapshotDirectory.create(null, null, null, indexSettings, null, null, null, null)
             );
         }
     }
@@ -799,9 +803,44 @@ public class SearchableSnapshotDirectoryTests extends AbstractSearchableSnapshot
             assertThat(recoveryState.getStage(), equalTo(RecoveryState.Stage.DONE));
             assertThat(recoveryState.getIndex().recoveredBytes(), equalTo(0L));
             assertThat(recoveryState.getIndex().totalRecoverFiles(), equalTo(0));
+            assertThat(snapshotDirectory.getCacheWarmingStats(), nullValue());
         });
     }
 
+    public void testCacheWarmingStats() throws Exception {
+        SearchableSnapshotRecoveryState recoveryState = createRecoveryState();
+        testDirectories(true, true, recoveryState, Settings.EMPTY, (directory, snapshotDirectory) -> {
+            assertBusy(() -> assertTrue(recoveryState.isPreWarmComplete()));
+
+            final List<BlobStoreIndexShardSnapshot.FileInfo> warmedFiles = snapshotDirectory.snapshot()
+                .indexFiles()
+                .stream()
+                .filter(f -> f.metadata().hashEqualsContents() == false)
+                .collect(Collectors.toList());
+            final long warmedBytes = warmedFiles.stream().mapToLong(BlobStoreIndexShardSnapshot.FileInfo::length).sum();
+
+            final CacheWarmingStats cacheWarmingStats = snapshotDirectory.getCacheWarmingStats();
+            assertThat(cacheWarmingStats, notNullValue());
+            assertThat(cacheWarmingStats.isCompleted(), is(true));
+            assertThat(cacheWarmingStats.getTotalFiles(), equalTo((long) warmedFiles.size()));
+            assertThat(cacheWarmingStats.getWarmedFiles(), equalTo((long) warmedFiles.size()));
+            assertThat(cacheWarmingStats.getTotalBytes(), equalTo(warmedBytes));
+            assertThat(cacheWarmingStats.getWarmedBytes(), equalTo(warmedBytes));
+        });
+    }
+
+    public void testWarmingPriority() {
+        final List<String> filesInWarmingOrder = List.of("_0.tim", "_0.kdd", "_0.nvd", "_0_Lucene84_0.doc", "_0_Lucene80_0.dvd");
+        for (int i = 1; i < filesInWarmingOrder.size(); i++) {
+            assertThat(
+                SearchableSnapshotDirectory.warmingPriority(filesInWarmingOrder.get(i - 1)),
+                lessThan(SearchableSnapshotDirectory.warmingPriority(filesInWarmingOrder.get(i)))
+            );
+        }
+        assertThat(SearchableSnapshotDirectory.warmingPriority("_0.tip"), equalTo(SearchableSnapshotDirectory.warmingPriority("_0.tim")));
+        assertThat(SearchableSnapshotDirectory.warmingPriority("_0.fdt"), equalTo(SearchableSnapshotDirectory.warmingPriority("_0.dvd")));
+    }
+
     public void testNonCachedFilesAreExcludedFromRecoveryState() throws Exception {
         SearchableSnapshotRecoveryState recoveryState = createRecoveryState();
 
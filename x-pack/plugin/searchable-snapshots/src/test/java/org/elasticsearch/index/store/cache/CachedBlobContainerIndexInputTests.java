@@ -5,11 +5,13 @@
  */
 package org.elasticsearch.index.store.cache;
 
+import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.blobstore.BlobContainer;
 import org.elasticsearch.common.blobstore.support.FilterBlobContainer;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.shard.ShardId;
@@ -41,7 +43,10 @@ import static org.elasticsearch.index.store.cache.TestUtils.singleBlobContainer;
 import static org.elasticsearch.index.store.cache.TestUtils.singleSplitBlobContainer;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
 import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshotsConstants.toIntBytes;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
@@ -108,6 +113,7 @@ public class CachedBlobContainerIndexInputTests extends AbstractSearchableSnapsh
                             .build(),
                         () -> 0L,
                         cacheService,
+                        defaultFrozenCacheService(),
                         cacheDir,
                         shardPath,
                         threadPool
@@ -154,6 +160,90 @@ public class CachedBlobContainerIndexInputTests extends AbstractSearchableSnapsh
         }
     }
 
+    public void testReadAheadOnSequentialReads() throws Exception {
+        final ByteSizeValue rangeSize = new ByteSizeValue(randomIntBetween(4, 16), ByteSizeUnit.KB);
+        final int readAheadRanges = randomIntBetween(1, 3);
+        try (CacheService cacheService = createCacheService(new ByteSizeValue(1L, ByteSizeUnit.GB), rangeSize)) {
+            cacheService.start();
+
+            SnapshotId snapshotId = new SnapshotId("_name", "_uuid");
+            IndexId indexId = new IndexId("_name", "_uuid");
+            ShardId shardId = new ShardId("_name", "_uuid", 0);
+
+            final String fileName = randomAlphaOfLength(10);
+            final byte[] input = randomByteArrayOfLength(toIntBytes(rangeSize.getBytes()) * randomIntBetween(4, 10) + randomInt(100));
+
+            final String blobName = randomAlphaOfLength(10);
+            final StoreFileMetadata metadata = new StoreFileMetadata(fileName, input.length, "_na", Version.CURRENT.luceneVersion);
+            final BlobStoreIndexShardSnapshot snapshot = new BlobStoreIndexShardSnapshot(
+                snapshotId.getName(),
+                0L,
+                List.of(new BlobStoreIndexShardSnapshot.FileInfo(blobName, metadata, new ByteSizeValue(input.length))),
+                0L,
+                0L,
+                0,
+                0L
+            );
+
+            final CountingBlobContainer blobContainer = new CountingBlobContainer(
+                singleBlobContainer(blobName, input),
+                cacheService.getRangeSize()
+            );
+            final Path shardDir = new NodeEnvironment.NodePath(createTempDir()).resolve(shardId);
+            final ShardPath shardPath = new ShardPath(false, shardDir, shardDir, shardId);
+            final Path cacheDir = createTempDir();
+            try (
+                SearchableSnapshotDirectory directory = new SearchableSnapshotDirectory(
+                    () -> blobContainer,
+                    () -> snapshot,
+                    new NoopBlobStoreCacheService(),
+                    "_repo",
+                    snapshotId,
+                    indexId,
+                    shardId,
+                    Settings.builder()
+                        .put(SNAPSHOT_CACHE_ENABLED_SETTING.getKey(), true)
+                        .put(SNAPSHOT_CACHE_PREWARM_ENABLED_SETTING.getKey(), false)
+                        .put(SNAPSHOT_CACHE_READ_AHEAD_RANGES_SETTING.getKey(), readAheadRanges)
+                        .build(),
+                    () -> 0L,
+                    cacheService,
+                    defaultFrozenCacheService(),
+                    cacheDir,
+                    shardPath,
+                    threadPool
+                )
+            ) {
+                assertThat(directory.loadSnapshot(createRecoveryState()), is(true));
+
+                try (IndexInput indexInput = directory.openInput(fileName, IOContext.DEFAULT)) {
+                    // reads the first range sequentially in small reads, which is enough to detect a sequential access
+                    final byte[] output = new byte[input.length];
+                    final int firstRange = toIntBytes(rangeSize.getBytes());
+                    for (int i = 0; i < firstRange; i++) {
+                        output[i] = indexInput.readByte();
+                    }
+
+                    // once the first range is read, the next ranges are fetched ahead
+                    final long expectedFetched = Math.min(input.length, (readAheadRanges + 2) * rangeSize.getBytes());
+                    assertBusy(() -> {
+                        assertThat(directory.getStats(fileName).getReadAheadBytes().total(), equalTo(expectedFetched - firstRange));
+                        assertThat(blobContainer.totalBytes.sum(), equalTo(expectedFetched));
+                    });
+
+                    for (int i = firstRange; i < input.length; i++) {
+                        output[i] = indexInput.readByte();
+                    }
+                    assertArrayEquals(input, output);
+                }
+                assertThat(directory.getStats(fileName).getReadAheadBytes().total(), greaterThan(0L));
+            } finally {
+                assertThreadPoolNotBusy(threadPool);
+            }
+            assertThat("Bytes should have been fetched only once", blobContainer.totalBytes.sum(), equalTo((long) input.length));
+        }
+    }
+
     public void testThrowsEOFException() throws Exception {
         try (CacheService cacheService = randomCacheService()) {
             cacheService.start();
@@ -198,6 +288,7 @@ public class CachedBlobContainerIndexInputTests extends AbstractSearchableSnapsh
                     Settings.EMPTY,
                     () -> 0L,
                     cacheService,
+                    defaultFrozenCacheService(),
                     cacheDir,
                     shardPath,
                     threadPool
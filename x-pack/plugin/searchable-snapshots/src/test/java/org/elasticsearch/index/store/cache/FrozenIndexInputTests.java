@@ -0,0 +1,174 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.index.store.cache;
+
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.store.IndexInputStats;
+import org.elasticsearch.index.store.SearchableSnapshotDirectory;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.index.store.cache.TestUtils.NoopBlobStoreCacheService;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.xpack.searchablesnapshots.AbstractSearchableSnapshotsTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.index.store.cache.TestUtils.singleSplitBlobContainer;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_CACHE_ENABLED_SETTING;
+import static org.elasticsearch.xpack.searchablesnapshots.SearchableSnapshots.SNAPSHOT_PARTIAL_SETTING;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class FrozenIndexInputTests extends AbstractSearchableSnapshotsTestCase {
+
+    public void testRandomReads() throws Exception {
+        final ByteSizeValue regionSize = new ByteSizeValue(randomIntBetween(4, 64), ByteSizeUnit.KB);
+        final ByteSizeValue cacheSize = new ByteSizeValue(regionSize.getBytes() * randomIntBetween(1, 10));
+        final List<Closeable> directories = new ArrayList<>();
+        try (
+            CacheService cacheService = defaultCacheService();
+            FrozenCacheService frozenCacheService = createFrozenCacheService(cacheSize, regionSize)
+        ) {
+            cacheService.start();
+            frozenCacheService.start();
+
+            // several shards share the regions of the cache, which is often too small to hold all their files
+            final int numShards = randomIntBetween(1, 3);
+            final List<SearchableSnapshotDirectory> shardDirectories = new ArrayList<>();
+            final List<byte[]> contents = new ArrayList<>();
+            for (int i = 0; i < numShards; i++) {
+                final byte[] input = randomUnicodeOfLength(randomIntBetween(1, 200_000)).getBytes(StandardCharsets.UTF_8);
+                final SearchableSnapshotDirectory directory = createPartialDirectory(
+                    new ShardId("_name", "_uuid", i),
+                    input,
+                    true,
+                    cacheService,
+                    frozenCacheService
+                );
+                directories.add(directory);
+                assertThat(directory.loadSnapshot(createRecoveryState()), is(true));
+                assertThat("partially cached shards are not warmed", directory.getCacheWarmingStats(), nullValue());
+                shardDirectories.add(directory);
+                contents.add(input);
+            }
+
+            // read the files several times, so that regions are evicted and fetched again when the shared cache is too small
+            for (int iteration = 0; iteration < 3; iteration++) {
+                for (int i = 0; i < numShards; i++) {
+                    final byte[] input = contents.get(i);
+                    try (IndexInput indexInput = shardDirectories.get(i).openInput("_file", newIOContext(random()))) {
+                        assertThat(indexInput, instanceOf(FrozenIndexInput.class));
+                        assertEquals(input.length, indexInput.length());
+                        assertEquals(0, indexInput.getFilePointer());
+                        final byte[] output = randomReadAndSlice(indexInput, input.length);
+                        assertArrayEquals(input, output);
+                    }
+                }
+            }
+
+            for (SearchableSnapshotDirectory directory : shardDirectories) {
+                final IndexInputStats inputStats = directory.getStats("_file");
+                assertThat(inputStats.getCachedBytesRead().count() + inputStats.getDirectBytesRead().count(), greaterThan(0L));
+            }
+            IOUtils.close(directories);
+            assertThreadPoolNotBusy(threadPool);
+        } finally {
+            IOUtils.closeWhileHandlingException(directories);
+        }
+    }
+
+    public void testReadsDoNotUseSharedCacheWhenCacheIsDisabled() throws Exception {
+        final ByteSizeValue regionSize = new ByteSizeValue(4, ByteSizeUnit.KB);
+        try (
+            CacheService cacheService = defaultCacheService();
+            FrozenCacheService frozenCacheService = createFrozenCacheService(new ByteSizeValue(8, ByteSizeUnit.KB), regionSize)
+        ) {
+            cacheService.start();
+            frozenCacheService.start();
+
+            final byte[] input = randomUnicodeOfLength(randomIntBetween(1, 10_000)).getBytes(StandardCharsets.UTF_8);
+            try (
+                SearchableSnapshotDirectory directory = createPartialDirectory(
+                    new ShardId("_name", "_uuid", 0),
+                    input,
+                    false,
+                    cacheService,
+                    frozenCacheService
+                )
+            ) {
+                assertThat(directory.loadSnapshot(createRecoveryState()), is(true));
+                try (IndexInput indexInput = directory.openInput("_file", newIOContext(random()))) {
+                    assertThat(indexInput, not(instanceOf(FrozenIndexInput.class)));
+                    assertArrayEquals(input, randomReadAndSlice(indexInput, input.length));
+                }
+                assertThat(directory.getStats("_file").getCachedBytesRead().count(), equalTo(0L));
+            }
+        }
+    }
+
+    private SearchableSnapshotDirectory createPartialDirectory(
+        ShardId shardId,
+        byte[] input,
+        boolean cacheEnabled,
+        CacheService cacheService,
+        FrozenCacheService frozenCacheService
+    ) throws IOException {
+        final SnapshotId snapshotId = new SnapshotId("_name", "_uuid");
+        final StoreFileMetadata metadata = new StoreFileMetadata("_file", input.length, "_na", Version.CURRENT.luceneVersion);
+        final int partSize = randomBoolean() ? input.length : randomIntBetween(1, input.length);
+        final BlobStoreIndexShardSnapshot snapshot = new BlobStoreIndexShardSnapshot(
+            snapshotId.getName(),
+            0L,
+            List.of(new BlobStoreIndexShardSnapshot.FileInfo("_blob", metadata, new ByteSizeValue(partSize))),
+            0L,
+            0L,
+            0,
+            0L
+        );
+        final BlobContainer blobContainer = singleSplitBlobContainer("_blob", input, partSize);
+        final Path shardDir = new NodeEnvironment.NodePath(createTempDir()).resolve(shardId);
+        return new SearchableSnapshotDirectory(
+            () -> blobContainer,
+            () -> snapshot,
+            new NoopBlobStoreCacheService(),
+            "_repo",
+            snapshotId,
+            new IndexId("_name", "_uuid"),
+            shardId,
+            Settings.builder()
+                .put(SNAPSHOT_CACHE_ENABLED_SETTING.getKey(), cacheEnabled)
+                .put(SNAPSHOT_PARTIAL_SETTING.getKey(), true)
+                .build(),
+            () -> 0L,
+            cacheService,
+            frozenCacheService,
+            createTempDir(),
+            new ShardPath(false, shardDir, shardDir, shardId),
+            threadPool
+        );
+    }
+}
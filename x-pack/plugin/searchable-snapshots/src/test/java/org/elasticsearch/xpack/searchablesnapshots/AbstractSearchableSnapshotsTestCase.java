@@ -16,6 +16,8 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.lucene.store.ESIndexInputTestCase;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.indices.recovery.SearchableSnapshotRecoveryState;
@@ -26,6 +28,7 @@ import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.ThreadPoolStats;
 import org.elasticsearch.xpack.searchablesnapshots.cache.CacheService;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService;
 import org.junit.After;
 import org.junit.Before;
 
@@ -34,14 +37,17 @@ import java.util.concurrent.TimeUnit;
 public abstract class AbstractSearchableSnapshotsTestCase extends ESIndexInputTestCase {
 
     protected ThreadPool threadPool;
+    protected NodeEnvironment nodeEnvironment;
 
     @Before
-    public void setUpTest() {
+    public void setUpTest() throws Exception {
         threadPool = new TestThreadPool(getTestName(), SearchableSnapshots.executorBuilders());
+        nodeEnvironment = newNodeEnvironment();
     }
 
     @After
     public void tearDownTest() {
+        IOUtils.closeWhileHandlingException(nodeEnvironment);
         assertTrue(ThreadPool.terminate(threadPool, 30L, TimeUnit.SECONDS));
     }
 
@@ -79,6 +85,27 @@ public abstract class AbstractSearchableSnapshotsTestCase extends ESIndexInputTe
         );
     }
 
+    /**
+     * @return a new {@link FrozenCacheService} instance configured with default settings, i.e. with the shared cache disabled
+     */
+    protected FrozenCacheService defaultFrozenCacheService() {
+        return new FrozenCacheService(nodeEnvironment, Settings.EMPTY, threadPool);
+    }
+
+    /**
+     * @return a new {@link FrozenCacheService} instance configured with the given shared cache size and region size settings
+     */
+    protected FrozenCacheService createFrozenCacheService(final ByteSizeValue cacheSize, final ByteSizeValue regionSize) {
+        return new FrozenCacheService(
+            nodeEnvironment,
+            Settings.builder()
+                .put(FrozenCacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), cacheSize)
+                .put(FrozenCacheService.SNAPSHOT_CACHE_REGION_SIZE_SETTING.getKey(), regionSize)
+                .build(),
+            threadPool
+        );
+    }
+
     protected static void noOpCacheCleaner() {}
 
     /**
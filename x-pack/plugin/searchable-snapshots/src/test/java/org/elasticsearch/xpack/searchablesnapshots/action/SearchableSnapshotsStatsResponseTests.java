@@ -112,7 +112,8 @@ public class SearchableSnapshotsStatsResponseTests extends ESTestCase {
             randomTimedCounter(),
             randomTimedCounter(),
             randomCounter(),
-            randomNonNegativeLong()
+            randomNonNegativeLong(),
+            randomCounter()
         );
     }
 
@@ -0,0 +1,211 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+package org.elasticsearch.xpack.searchablesnapshots.cache;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.cache.CacheKey;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.xpack.searchablesnapshots.AbstractSearchableSnapshotsTestCase;
+import org.elasticsearch.xpack.searchablesnapshots.cache.FrozenCacheService.CacheFileRegion;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class FrozenCacheServiceTests extends AbstractSearchableSnapshotsTestCase {
+
+    private static final ByteSizeValue REGION_SIZE = new ByteSizeValue(4, ByteSizeUnit.KB);
+
+    public void testDisabledByDefault() {
+        try (FrozenCacheService cacheService = defaultFrozenCacheService()) {
+            assertThat(cacheService.isEnabled(), is(false));
+            assertThat(cacheService.getNumRegions(), equalTo(0));
+            assertThat(Files.exists(FrozenCacheService.getSharedCacheFile(nodeEnvironment)), is(false));
+        }
+    }
+
+    public void testSharedCacheFileIsPreallocated() {
+        final int numRegions = randomIntBetween(1, 10);
+        try (FrozenCacheService cacheService = createFrozenCacheService(cacheSize(numRegions), REGION_SIZE)) {
+            assertThat(cacheService.isEnabled(), is(true));
+            assertThat(cacheService.getNumRegions(), equalTo(numRegions));
+            assertThat(cacheService.freeRegionCount(), equalTo(numRegions));
+            assertThat(
+                FrozenCacheService.getSharedCacheFile(nodeEnvironment).toFile().length(),
+                equalTo(numRegions * REGION_SIZE.getBytes())
+            );
+        }
+        assertThat(Files.exists(FrozenCacheService.getSharedCacheFile(nodeEnvironment)), is(false));
+    }
+
+    public void testBasicEviction() {
+        try (FrozenCacheService cacheService = createFrozenCacheService(cacheSize(2), REGION_SIZE)) {
+            cacheService.start();
+            final long fileLength = 3 * REGION_SIZE.getBytes();
+            final CacheKey cacheKey = randomCacheKey();
+
+            final CacheFileRegion region0 = acquireAndRelease(cacheService, cacheKey, fileLength, 0);
+            assertThat(cacheService.freeRegionCount(), equalTo(1));
+            final CacheFileRegion region1 = acquireAndRelease(cacheService, cacheKey, fileLength, 1);
+            assertThat(cacheService.freeRegionCount(), equalTo(0));
+
+            // the least recently used region of the lowest frequency is evicted
+            final CacheFileRegion region2 = acquireAndRelease(cacheService, cacheKey, fileLength, 2);
+            assertThat(region0.isEvicted(), is(true));
+            assertThat(region1.isEvicted(), is(false));
+            assertThat(region2.isEvicted(), is(false));
+            assertThat(cacheService.freeRegionCount(), equalTo(0));
+
+            // cached regions are returned as long as they are not evicted
+            assertThat(acquireAndRelease(cacheService, cacheKey, fileLength, 1), sameInstance(region1));
+            assertThat(acquireAndRelease(cacheService, cacheKey, fileLength, 2), sameInstance(region2));
+        }
+    }
+
+    public void testFrequentlyAccessedRegionsAreNotEvicted() {
+        try (FrozenCacheService cacheService = createFrozenCacheService(cacheSize(2), REGION_SIZE)) {
+            cacheService.start();
+            final long fileLength = 10 * REGION_SIZE.getBytes();
+            final CacheKey cacheKey = randomCacheKey();
+
+            // the frequency is incremented at most once per epoch
+            final CacheFileRegion frequent = acquireAndRelease(cacheService, cacheKey, fileLength, 0);
+            assertThat(cacheService.getFreq(frequent), equalTo(0));
+            acquireAndRelease(cacheService, cacheKey, fileLength, 0);
+            assertThat(cacheService.getFreq(frequent), equalTo(0));
+            cacheService.computeDecay();
+            acquireAndRelease(cacheService, cacheKey, fileLength, 0);
+            acquireAndRelease(cacheService, cacheKey, fileLength, 0);
+            assertThat(cacheService.getFreq(frequent), equalTo(1));
+
+            // regions that are only accessed once evict each other
+            CacheFileRegion previous = null;
+            for (int region = 1; region < 10; region++) {
+                final CacheFileRegion current = acquireAndRelease(cacheService, cacheKey, fileLength, region);
+                assertThat(cacheService.getFreq(current), equalTo(0));
+                if (previous != null) {
+                    assertThat(previous.isEvicted(), is(true));
+                }
+                assertThat(frequent.isEvicted(), is(false));
+                previous = current;
+            }
+
+            // once the region is not accessed during a whole epoch its frequency decays, and it can then be evicted
+            cacheService.computeDecay();
+            assertThat(cacheService.getFreq(frequent), equalTo(1));
+            cacheService.computeDecay();
+            assertThat(cacheService.getFreq(frequent), equalTo(0));
+            assertThat(cacheService.getFreq(previous), equalTo(0));
+            acquireAndRelease(cacheService, cacheKey, fileLength, 1);
+            assertThat(frequent.isEvicted(), is(true));
+            assertThat(previous.isEvicted(), is(false));
+        }
+    }
+
+    public void testFrequencyIsCapped() {
+        try (FrozenCacheService cacheService = createFrozenCacheService(cacheSize(1), REGION_SIZE)) {
+            cacheService.start();
+            final CacheKey cacheKey = randomCacheKey();
+            final CacheFileRegion region = acquireAndRelease(cacheService, cacheKey, REGION_SIZE.getBytes(), 0);
+            final int maxFreq = FrozenCacheService.SNAPSHOT_CACHE_MAX_FREQ_SETTING.getDefault(Settings.EMPTY);
+            for (int i = 0; i < maxFreq + 10; i++) {
+                cacheService.computeDecay();
+                assertThat(acquireAndRelease(cacheService, cacheKey, REGION_SIZE.getBytes(), 0), sameInstance(region));
+            }
+            assertThat(cacheService.getFreq(region), equalTo(maxFreq - 1));
+        }
+    }
+
+    public void testRegionsInUseAreNotEvicted() {
+        final int numRegions = randomIntBetween(1, 5);
+        try (FrozenCacheService cacheService = createFrozenCacheService(cacheSize(numRegions), REGION_SIZE)) {
+            cacheService.start();
+            final long fileLength = (numRegions + 1) * REGION_SIZE.getBytes();
+            final CacheKey cacheKey = randomCacheKey();
+
+            final List<CacheFileRegion> regions = new ArrayList<>();
+            for (int region = 0; region < numRegions; region++) {
+                final CacheFileRegion cacheFileRegion = cacheService.get(cacheKey, fileLength, region);
+                assertThat(cacheFileRegion, notNullValue());
+                regions.add(cacheFileRegion);
+            }
+            assertThat("all regions are in use", cacheService.get(cacheKey, fileLength, numRegions), nullValue());
+
+            final CacheFileRegion released = randomFrom(regions);
+            released.decRef();
+            final CacheFileRegion lastRegion = cacheService.get(cacheKey, fileLength, numRegions);
+            assertThat(lastRegion, notNullValue());
+            assertThat(released.isEvicted(), is(true));
+            assertThat(lastRegion.getLength(), equalTo(REGION_SIZE.getBytes()));
+            regions.remove(released);
+            regions.add(lastRegion);
+
+            for (CacheFileRegion region : regions) {
+                assertThat(region.isEvicted(), is(false));
+                region.decRef();
+            }
+        }
+    }
+
+    public void testRemoveFromCache() {
+        final int numRegions = randomIntBetween(2, 10);
+        try (FrozenCacheService cacheService = createFrozenCacheService(cacheSize(numRegions), REGION_SIZE)) {
+            cacheService.start();
+            final long fileLength = randomLongBetween(1L, REGION_SIZE.getBytes());
+            final CacheKey removedKey = randomCacheKey();
+            final CacheKey otherKey = new CacheKey(
+                new SnapshotId("_other", "_other_uuid"),
+                new IndexId("_name", "_uuid"),
+                new ShardId("_name", "_uuid", 0),
+                "_file"
+            );
+
+            final CacheFileRegion inUse = cacheService.get(removedKey, fileLength, 0);
+            assertThat(inUse.getLength(), equalTo(fileLength));
+            final CacheFileRegion other = acquireAndRelease(cacheService, otherKey, fileLength, 0);
+            assertThat(cacheService.freeRegionCount(), equalTo(numRegions - 2));
+
+            cacheService.removeFromCache(removedKey::equals);
+            assertThat(inUse.isEvicted(), is(true));
+            assertThat(other.isEvicted(), is(false));
+            assertThat("region is still in use", cacheService.freeRegionCount(), equalTo(numRegions - 2));
+
+            inUse.decRef();
+            assertThat(cacheService.freeRegionCount(), equalTo(numRegions - 1));
+            assertThat(cacheService.get(removedKey, fileLength, 0), notNullValue());
+        }
+    }
+
+    private static CacheFileRegion acquireAndRelease(FrozenCacheService cacheService, CacheKey cacheKey, long fileLength, int region) {
+        final CacheFileRegion cacheFileRegion = cacheService.get(cacheKey, fileLength, region);
+        assertThat(cacheFileRegion, notNullValue());
+        cacheFileRegion.decRef();
+        return cacheFileRegion;
+    }
+
+    private static ByteSizeValue cacheSize(int numRegions) {
+        return new ByteSizeValue(numRegions * REGION_SIZE.getBytes());
+    }
+
+    private static CacheKey randomCacheKey() {
+        return new CacheKey(
+            new SnapshotId(randomAlphaOfLength(5), randomAlphaOfLength(5)),
+            new IndexId(randomAlphaOfLength(5), randomAlphaOfLength(5)),
+            new ShardId(randomAlphaOfLength(5), randomAlphaOfLength(5), randomIntBetween(0, 5)),
+            randomAlphaOfLength(5)
+        );
+    }
+}
@@ -86,6 +86,9 @@ public class CompositeRolesStore {
     private static final String ROLES_STORE_SOURCE = "roles_stores";
     private static final Setting<Integer> CACHE_SIZE_SETTING =
         Setting.intSetting("xpack.security.authz.store.roles.cache.max_size", 10000, Property.NodeScope);
+    private static final Setting<Cache.EvictionPolicy> CACHE_EVICTION_POLICY_SETTING =
+        new Setting<>("xpack.security.authz.store.roles.cache.eviction_policy", Cache.EvictionPolicy.LRU.toString(),
+            Cache.EvictionPolicy::fromString, Property.NodeScope);
     private static final Setting<Integer> NEGATIVE_LOOKUP_CACHE_SIZE_SETTING =
         Setting.intSetting("xpack.security.authz.store.roles.negative_lookup_cache.max_size", 10000, Property.NodeScope);
     private static final Logger logger = LogManager.getLogger(CompositeRolesStore.class);
@@ -125,7 +128,8 @@ public class CompositeRolesStore {
         this.fieldPermissionsCache = Objects.requireNonNull(fieldPermissionsCache);
         this.apiKeyService = Objects.requireNonNull(apiKeyService);
         this.effectiveRoleDescriptorsConsumer = Objects.requireNonNull(effectiveRoleDescriptorsConsumer);
-        CacheBuilder<RoleKey, Role> builder = CacheBuilder.builder();
+        CacheBuilder<RoleKey, Role> builder = CacheBuilder.<RoleKey, Role>builder()
+            .setEvictionPolicy(CACHE_EVICTION_POLICY_SETTING.get(settings));
         final int cacheSize = CACHE_SIZE_SETTING.get(settings);
         if (cacheSize >= 0) {
             builder.setMaximumWeight(cacheSize);
@@ -631,6 +635,6 @@ public class CompositeRolesStore {
     }
 
     public static List<Setting<?>> getSettings() {
-        return Arrays.asList(CACHE_SIZE_SETTING, NEGATIVE_LOOKUP_CACHE_SIZE_SETTING);
+        return Arrays.asList(CACHE_SIZE_SETTING, CACHE_EVICTION_POLICY_SETTING, NEGATIVE_LOOKUP_CACHE_SIZE_SETTING);
     }
 }
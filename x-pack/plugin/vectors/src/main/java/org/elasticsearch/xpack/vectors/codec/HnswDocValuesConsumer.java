@@ -0,0 +1,186 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the doc values with the default format, and the vectors of the binary fields and their graph to the files of the
+ * {@link HnswDocValuesFormat}. Merges go through {@link #addBinaryField} like flushes, so that the graph of the merged segment is
+ * built from the vectors of all its live documents.
+ */
+final class HnswDocValuesConsumer extends DocValuesConsumer {
+
+    private final DocValuesConsumer delegate;
+    private final SegmentWriteState state;
+    private final int dims;
+    private final VectorSimilarity similarity;
+    private final int m;
+    private final int efConstruction;
+    private IndexOutput meta;
+    private IndexOutput data;
+
+    HnswDocValuesConsumer(DocValuesConsumer delegate, SegmentWriteState state, int dims, VectorSimilarity similarity,
+                          int m, int efConstruction) throws IOException {
+        this.delegate = delegate;
+        this.state = state;
+        this.dims = dims;
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        boolean success = false;
+        try {
+            String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+                HnswDocValuesFormat.META_EXTENSION);
+            meta = state.directory.createOutput(metaName, state.context);
+            CodecUtil.writeIndexHeader(meta, HnswDocValuesFormat.META_CODEC_NAME, HnswDocValuesFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(), state.segmentSuffix);
+            String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+                HnswDocValuesFormat.DATA_EXTENSION);
+            data = state.directory.createOutput(dataName, state.context);
+            CodecUtil.writeIndexHeader(data, HnswDocValuesFormat.DATA_CODEC_NAME, HnswDocValuesFormat.VERSION_CURRENT,
+                state.segmentInfo.getId(), state.segmentSuffix);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(this);
+            }
+        }
+    }
+
+    @Override
+    public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addBinaryField(field, valuesProducer);
+        writeGraph(field, valuesProducer.getBinary(field));
+    }
+
+    @Override
+    public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedNumericField(field, valuesProducer);
+    }
+
+    @Override
+    public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+        delegate.addSortedSetField(field, valuesProducer);
+    }
+
+    private void writeGraph(FieldInfo field, BinaryDocValues values) throws IOException {
+        // the vectors are first written to a temporary file, so that the graph can be built without holding them on heap
+        int[] docs = new int[16];
+        int size = 0;
+        String tempName;
+        try (IndexOutput temp = state.directory.createTempOutput(data.getName(), "temp", state.context)) {
+            tempName = temp.getName();
+            float[] vector = new float[dims];
+            byte[] bytes = new byte[dims * Float.BYTES];
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                BytesRef value = values.binaryValue();
+                ByteBuffer.wrap(value.bytes, value.offset, bytes.length).asFloatBuffer().get(vector);
+                similarity.normalize(vector);
+                ByteBuffer.wrap(bytes).asFloatBuffer().put(vector);
+                temp.writeBytes(bytes, bytes.length);
+                docs = ArrayUtil.grow(docs, size + 1);
+                docs[size++] = doc;
+            }
+        }
+        try (IndexInput vectorsInput = state.directory.openInput(tempName, state.context)) {
+            long vectorsOffset = data.getFilePointer();
+            data.copyBytes(vectorsInput, vectorsInput.length());
+
+            meta.writeInt(field.number);
+            meta.writeVInt(dims);
+            meta.writeByte((byte) similarity.ordinal());
+            meta.writeVInt(m);
+            meta.writeVInt(size);
+            meta.writeVLong(vectorsOffset);
+            for (int i = 0, previous = 0; i < size; i++) {
+                meta.writeVInt(docs[i] - previous);
+                previous = docs[i];
+            }
+            if (size == 0) {
+                return;
+            }
+
+            OffHeapVectors vectors = new OffHeapVectors(vectorsInput, dims, size);
+            OnHeapHnswGraph graph = new HnswGraphBuilder(vectors, similarity.graphSimilarity(), m, efConstruction).build();
+            meta.writeVInt(graph.maxLevel());
+            meta.writeVInt(graph.entryNode());
+            for (int level = 0; level <= graph.maxLevel(); level++) {
+                int[] nodes = level == 0 ? null : graph.nodes(level);
+                meta.writeVLong(data.getFilePointer());
+                if (level > 0) {
+                    meta.writeVInt(nodes.length);
+                    for (int i = 0, previous = 0; i < nodes.length; i++) {
+                        meta.writeVInt(nodes[i] - previous);
+                        previous = nodes[i];
+                    }
+                }
+                writeLevel(graph, level, level == 0 ? size : nodes.length, nodes);
+            }
+        } finally {
+            IOUtils.deleteFilesIgnoringExceptions(state.directory, tempName);
+        }
+    }
+
+    private void writeLevel(OnHeapHnswGraph graph, int level, int numNodes, int[] nodes) throws IOException {
+        int maxConn = HnswGraph.maxConn(m, level);
+        for (int i = 0; i < numNodes; i++) {
+            OnHeapHnswGraph.NeighborArray neighbors = graph.getNeighbors(level, nodes == null ? i : nodes[i]);
+            data.writeInt(neighbors.size);
+            for (int j = 0; j < maxConn; j++) {
+                data.writeInt(j < neighbors.size ? neighbors.nodes[j] : 0);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        boolean success = false;
+        try {
+            if (meta != null) {
+                meta.writeInt(-1);
+                CodecUtil.writeFooter(meta);
+            }
+            if (data != null) {
+                CodecUtil.writeFooter(data);
+            }
+            success = true;
+        } finally {
+            if (success) {
+                IOUtils.close(delegate, meta, data);
+            } else {
+                IOUtils.closeWhileHandlingException(delegate, meta, data);
+            }
+            meta = data = null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene80.Lucene80DocValuesFormat;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.util.IOUtils;
+
+import java.io.IOException;
+
+/**
+ * A {@link DocValuesFormat} for the binary doc values of indexed {@code dense_vector} fields, which writes the doc values with the
+ * default format and additionally indexes the vectors in an {@link HnswGraph} per field and segment. Graphs are built when segments
+ * are flushed, and built again from the merged doc values when segments are merged. The parameters of the graph are written to the
+ * segment, so that any instance of the format can read it, but only instances created with the parameters of the field can write it.
+ * The graph can be searched through the {@link HnswVectorValues} that the format returns for the field.
+ */
+public final class HnswDocValuesFormat extends DocValuesFormat {
+
+    public static final String NAME = "HnswVectors";
+
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    static final String META_CODEC_NAME = "HnswVectorsMeta";
+    static final String DATA_CODEC_NAME = "HnswVectorsData";
+    static final String META_EXTENSION = "hnswm";
+    static final String DATA_EXTENSION = "hnswd";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+
+    private final DocValuesFormat delegate = new Lucene80DocValuesFormat();
+    private final int dims;
+    private final VectorSimilarity similarity;
+    private final int m;
+    private final int efConstruction;
+
+    /**
+     * Creates an instance that can only read segments, which is used when the format is loaded by name.
+     */
+    public HnswDocValuesFormat() {
+        this(0, null, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+    }
+
+    /**
+     * Creates an instance that indexes vectors of {@code dims} dimensions.
+     * @param m                 the maximum number of neighbors of the nodes on the levels above level 0, which allows twice as many
+     * @param efConstruction    the number of candidate neighbors that are considered when a node is added to the graph
+     */
+    public HnswDocValuesFormat(int dims, VectorSimilarity similarity, int m, int efConstruction) {
+        super(NAME);
+        this.dims = dims;
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = efConstruction;
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        if (similarity == null) {
+            throw new IllegalStateException("format [" + NAME + "] needs the parameters of the field to write a segment");
+        }
+        return new HnswDocValuesConsumer(delegate.fieldsConsumer(state), state, dims, similarity, m, efConstruction);
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        DocValuesProducer producer = delegate.fieldsProducer(state);
+        boolean success = false;
+        try {
+            HnswDocValuesProducer hnswProducer = new HnswDocValuesProducer(producer, state);
+            success = true;
+            return hnswProducer;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(producer);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "(dims=" + dims + ", similarity=" + similarity + ", m=" + m + ", ef_construction=" + efConstruction + ")";
+    }
+}
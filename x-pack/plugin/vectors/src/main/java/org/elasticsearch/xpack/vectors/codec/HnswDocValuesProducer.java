@@ -0,0 +1,205 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the doc values with the default format, and wraps the binary doc values of the fields that have a graph into
+ * {@link HnswVectorValues}. The vectors and the neighbors of the nodes are read from the data file on demand, only the documents
+ * of the vectors and the nodes of the upper levels of the graphs are held on heap.
+ */
+final class HnswDocValuesProducer extends DocValuesProducer {
+
+    private final DocValuesProducer delegate;
+    private final Map<Integer, FieldEntry> fields = new HashMap<>();
+    private final IndexInput data;
+    private final long ramBytesUsed;
+
+    HnswDocValuesProducer(DocValuesProducer delegate, SegmentReadState state) throws IOException {
+        this.delegate = delegate;
+        String metaName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+            HnswDocValuesFormat.META_EXTENSION);
+        int version = -1;
+        long ramBytesUsed = 0;
+        try (ChecksumIndexInput meta = state.directory.openChecksumInput(metaName, state.context)) {
+            Throwable priorE = null;
+            try {
+                version = CodecUtil.checkIndexHeader(meta, HnswDocValuesFormat.META_CODEC_NAME, HnswDocValuesFormat.VERSION_START,
+                    HnswDocValuesFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                for (int fieldNumber = meta.readInt(); fieldNumber != -1; fieldNumber = meta.readInt()) {
+                    if (state.fieldInfos.fieldInfo(fieldNumber) == null) {
+                        throw new CorruptIndexException("Invalid field number: " + fieldNumber, meta);
+                    }
+                    FieldEntry entry = readField(meta);
+                    ramBytesUsed += entry.ramBytesUsed();
+                    fields.put(fieldNumber, entry);
+                }
+            } catch (Throwable exception) {
+                priorE = exception;
+            } finally {
+                CodecUtil.checkFooter(meta, priorE);
+            }
+        }
+        this.ramBytesUsed = ramBytesUsed;
+
+        String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix,
+            HnswDocValuesFormat.DATA_EXTENSION);
+        this.data = state.directory.openInput(dataName, state.context);
+        boolean success = false;
+        try {
+            int dataVersion = CodecUtil.checkIndexHeader(data, HnswDocValuesFormat.DATA_CODEC_NAME, HnswDocValuesFormat.VERSION_START,
+                HnswDocValuesFormat.VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+            if (version != dataVersion) {
+                throw new CorruptIndexException("Format versions mismatch: meta=" + version + ", data=" + dataVersion, data);
+            }
+            // only the footer is checked when opening the segment, the whole file is checked by checkIntegrity
+            CodecUtil.retrieveChecksum(data);
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(this.data);
+            }
+        }
+    }
+
+    private static FieldEntry readField(ChecksumIndexInput meta) throws IOException {
+        FieldEntry entry = new FieldEntry();
+        entry.dims = meta.readVInt();
+        int similarity = meta.readByte();
+        if (similarity < 0 || similarity >= VectorSimilarity.values().length) {
+            throw new CorruptIndexException("Invalid similarity: " + similarity, meta);
+        }
+        entry.similarity = VectorSimilarity.values()[similarity];
+        entry.m = meta.readVInt();
+        entry.size = meta.readVInt();
+        entry.vectorsOffset = meta.readVLong();
+        entry.docs = new int[entry.size];
+        for (int i = 0, doc = 0; i < entry.size; i++) {
+            doc += meta.readVInt();
+            entry.docs[i] = doc;
+        }
+        if (entry.size == 0) {
+            entry.maxLevel = -1;
+            entry.entryNode = -1;
+            return entry;
+        }
+        entry.maxLevel = meta.readVInt();
+        entry.entryNode = meta.readVInt();
+        entry.levelOffsets = new long[entry.maxLevel + 1];
+        entry.levelNodes = new int[entry.maxLevel + 1][];
+        for (int level = 0; level <= entry.maxLevel; level++) {
+            entry.levelOffsets[level] = meta.readVLong();
+            if (level > 0) {
+                int[] nodes = new int[meta.readVInt()];
+                for (int i = 0, node = 0; i < nodes.length; i++) {
+                    node += meta.readVInt();
+                    nodes[i] = node;
+                }
+                entry.levelNodes[level] = nodes;
+            }
+        }
+        return entry;
+    }
+
+    @Override
+    public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+        return delegate.getNumeric(field);
+    }
+
+    @Override
+    public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+        BinaryDocValues values = delegate.getBinary(field);
+        FieldEntry entry = fields.get(field.number);
+        if (entry == null) {
+            return values;
+        }
+        IndexInput vectors = data.slice("vectors", entry.vectorsOffset, (long) entry.size * entry.dims * Float.BYTES);
+        return new HnswVectorValues(values, entry, new OffHeapVectors(vectors, entry.dims, entry.size),
+            new OffHeapHnswGraph(data.clone(), entry));
+    }
+
+    @Override
+    public SortedDocValues getSorted(FieldInfo field) throws IOException {
+        return delegate.getSorted(field);
+    }
+
+    @Override
+    public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+        return delegate.getSortedNumeric(field);
+    }
+
+    @Override
+    public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+        return delegate.getSortedSet(field);
+    }
+
+    @Override
+    public void checkIntegrity() throws IOException {
+        delegate.checkIntegrity();
+        CodecUtil.checksumEntireFile(data);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return delegate.ramBytesUsed() + ramBytesUsed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(delegate, data);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(fields=" + fields.size() + ",delegate=" + delegate + ")";
+    }
+
+    static final class FieldEntry {
+        int dims;
+        VectorSimilarity similarity;
+        int m;
+        int size;
+        long vectorsOffset;
+        int[] docs;
+        int maxLevel;
+        int entryNode;
+        long[] levelOffsets;
+        int[][] levelNodes;
+
+        long ramBytesUsed() {
+            long ramBytesUsed = RamUsageEstimator.sizeOf(docs);
+            if (levelOffsets != null) {
+                ramBytesUsed += RamUsageEstimator.sizeOf(levelOffsets);
+                for (int[] nodes : levelNodes) {
+                    if (nodes != null) {
+                        ramBytesUsed += RamUsageEstimator.sizeOf(nodes);
+                    }
+                }
+            }
+            return ramBytesUsed;
+        }
+    }
+}
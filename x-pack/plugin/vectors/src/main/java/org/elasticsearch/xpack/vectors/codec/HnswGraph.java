@@ -0,0 +1,42 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import java.io.IOException;
+
+/**
+ * A hierarchical navigable small world graph over the ordinals of the vectors of a segment, see
+ * <a href="https://arxiv.org/abs/1603.09320">Malkov and Yashunin</a>. Every node is on level 0, and each level above holds an
+ * exponentially decreasing random subset of the nodes of the level below. Nodes have at most {@code 2 * m} neighbors on level 0
+ * and {@code m} on the other levels. Searches start from the entry node on the top level and greedily move closer to the query
+ * vector, level by level.
+ */
+abstract class HnswGraph {
+
+    /**
+     * The top level of the graph, or {@code -1} if the graph is empty.
+     */
+    abstract int maxLevel();
+
+    /**
+     * The node that searches start from, which is on the top level.
+     */
+    abstract int entryNode();
+
+    /**
+     * Copies the neighbors of the given node on the given level to the buffer, which must be large enough to hold
+     * {@link #maxConn} nodes, and returns how many there are.
+     */
+    abstract int neighbors(int level, int node, int[] buffer) throws IOException;
+
+    /**
+     * The maximum number of neighbors of the nodes on the given level.
+     */
+    static int maxConn(int m, int level) {
+        return level == 0 ? 2 * m : m;
+    }
+}
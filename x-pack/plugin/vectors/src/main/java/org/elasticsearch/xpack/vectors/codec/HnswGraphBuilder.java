@@ -0,0 +1,125 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.elasticsearch.xpack.vectors.codec.OnHeapHnswGraph.NeighborArray;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Builds an {@link HnswGraph} by adding the vectors one by one. The neighbors of a new node are found by searching the levels it is
+ * on for its {@code efConstruction} most similar nodes, which are then diversified: a candidate is only linked if it is more similar
+ * to the new node than to any neighbor that was linked before it, so that nodes keep links towards all the directions they have
+ * neighbors in. Links are bidirectional, and neighbors that end up with too many links are diversified again.
+ */
+final class HnswGraphBuilder {
+
+    // a fixed seed, so that the graph of a given set of vectors does not change from one build to the other
+    static final long SEED = 42;
+
+    private final OffHeapVectors vectors;
+    private final OffHeapVectors candidateVectors;
+    private final OffHeapVectors neighborVectors;
+    private final VectorSimilarity similarity;
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(SEED);
+    private final OnHeapHnswGraph graph;
+    private final HnswGraphSearcher searcher;
+
+    HnswGraphBuilder(OffHeapVectors vectors, VectorSimilarity similarity, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.candidateVectors = vectors.copy();
+        this.neighborVectors = vectors.copy();
+        this.similarity = similarity;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.graph = new OnHeapHnswGraph(m, vectors.size());
+        this.searcher = new HnswGraphSearcher(graph, vectors.copy(), similarity, m);
+    }
+
+    OnHeapHnswGraph build() throws IOException {
+        for (int node = 0; node < vectors.size(); node++) {
+            addNode(node);
+        }
+        return graph;
+    }
+
+    private void addNode(int node) throws IOException {
+        float[] value = vectors.vectorValue(node).clone();
+        int level = randomLevel();
+        graph.addNode(node, level);
+
+        int[] entryPoints = new int[] { graph.entryNode() };
+        for (int l = graph.maxLevel(); l > level; l--) {
+            NeighborQueue results = searcher.searchLevel(value, 1, l, entryPoints, null, Long.MAX_VALUE);
+            entryPoints[0] = results.topNode();
+        }
+        for (int l = Math.min(level, graph.maxLevel()); l >= 0; l--) {
+            NeighborQueue results = searcher.searchLevel(value, efConstruction, l, entryPoints, null, Long.MAX_VALUE);
+            // results pop from the least to the most similar
+            int numCandidates = results.size();
+            int[] candidates = new int[numCandidates];
+            float[] scores = new float[numCandidates];
+            for (int i = numCandidates - 1; i >= 0; i--) {
+                scores[i] = results.topScore();
+                candidates[i] = results.pop();
+            }
+            entryPoints = candidates;
+            addDiverseNeighbors(l, node, candidates, scores, numCandidates);
+        }
+        if (level > graph.maxLevel()) {
+            graph.setEntryNode(node, level);
+        }
+    }
+
+    private void addDiverseNeighbors(int level, int node, int[] candidates, float[] scores, int numCandidates) throws IOException {
+        int maxConn = HnswGraph.maxConn(m, level);
+        NeighborArray neighbors = graph.getNeighbors(level, node);
+        selectDiverse(neighbors, candidates, scores, numCandidates, maxConn);
+        for (int i = 0; i < neighbors.size; i++) {
+            NeighborArray reverse = graph.getNeighbors(level, neighbors.nodes[i]);
+            reverse.add(node, neighbors.scores[i]);
+            if (reverse.size > maxConn) {
+                int[] reverseCandidates = reverse.nodes.clone();
+                float[] reverseScores = reverse.scores.clone();
+                int numReverseCandidates = reverse.size;
+                reverse.size = 0;
+                selectDiverse(reverse, reverseCandidates, reverseScores, numReverseCandidates, maxConn);
+            }
+        }
+    }
+
+    /**
+     * Adds the candidates, sorted from the most to the least similar, that are more similar to the node than to any of the
+     * neighbors selected before them.
+     */
+    private void selectDiverse(NeighborArray neighbors, int[] candidates, float[] scores, int numCandidates,
+                               int maxConn) throws IOException {
+        for (int i = 0; i < numCandidates && neighbors.size < maxConn; i++) {
+            float[] candidate = candidateVectors.vectorValue(candidates[i]);
+            boolean diverse = true;
+            for (int j = 0; j < neighbors.size; j++) {
+                if (similarity.score(candidate, neighborVectors.vectorValue(neighbors.nodes[j])) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                neighbors.add(candidates[i], scores[i]);
+            }
+        }
+    }
+
+    private int randomLevel() {
+        // 1 - nextDouble() is in (0, 1], which keeps the logarithm finite
+        return (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+
+import java.io.IOException;
+
+/**
+ * Searches the levels of an {@link HnswGraph} for the nodes that are the most similar to a query vector. A searcher keeps the
+ * state of the search, and can be reused for as many searches as needed, which is what the graph builder does, but not
+ * concurrently.
+ */
+final class HnswGraphSearcher {
+
+    private final HnswGraph graph;
+    private final OffHeapVectors vectors;
+    private final VectorSimilarity similarity;
+    private final NeighborQueue candidates = new NeighborQueue(100, false);
+    private final FixedBitSet visited;
+    private final int[] neighbors;
+    private int[] visitedNodes = new int[100];
+    private int numVisitedNodes;
+    private long visitedCount;
+
+    HnswGraphSearcher(HnswGraph graph, OffHeapVectors vectors, VectorSimilarity similarity, int m) {
+        this.graph = graph;
+        this.vectors = vectors;
+        this.similarity = similarity;
+        this.visited = new FixedBitSet(Math.max(vectors.size(), 1));
+        this.neighbors = new int[HnswGraph.maxConn(m, 0)];
+    }
+
+    /**
+     * Returns the {@code numCandidates} accepted nodes that are the most similar to the query vector, or {@code null} if the search
+     * would need to compute the similarity of more than {@code visitedLimit} vectors.
+     * @param acceptOrds the nodes that can be returned, or {@code null} if all nodes can, other nodes are still used to navigate the graph
+     */
+    NeighborQueue search(float[] query, int numCandidates, Bits acceptOrds, long visitedLimit) throws IOException {
+        if (graph.maxLevel() < 0) {
+            return new NeighborQueue(1, true);
+        }
+        visitedCount = 0;
+        int[] entryPoints = new int[] { graph.entryNode() };
+        for (int level = graph.maxLevel(); level > 0; level--) {
+            NeighborQueue results = searchLevel(query, 1, level, entryPoints, null, visitedLimit);
+            if (results == null) {
+                return null;
+            }
+            entryPoints[0] = results.topNode();
+        }
+        return searchLevel(query, numCandidates, 0, entryPoints, acceptOrds, visitedLimit);
+    }
+
+    /**
+     * Returns the {@code topK} accepted nodes of the given level that are the most similar to the query vector, starting from the
+     * given entry points, or {@code null} if the visit limit is reached. Results are popped from the least to the most similar.
+     */
+    NeighborQueue searchLevel(float[] query, int topK, int level, int[] entryPoints, Bits acceptOrds,
+                              long visitedLimit) throws IOException {
+        NeighborQueue results = new NeighborQueue(topK, true);
+        candidates.clear();
+        clearVisited();
+        for (int entryPoint : entryPoints) {
+            if (markVisited(entryPoint) == false) {
+                continue;
+            }
+            if (visitedCount++ >= visitedLimit) {
+                return null;
+            }
+            float score = similarity.score(query, vectors.vectorValue(entryPoint));
+            candidates.add(entryPoint, score);
+            if (acceptOrds == null || acceptOrds.get(entryPoint)) {
+                results.insertWithOverflow(entryPoint, score, topK);
+            }
+        }
+        while (candidates.size() > 0) {
+            // stop exploring once the best remaining candidate is worse than all results
+            if (results.size() >= topK && candidates.topScore() < results.topScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            int numNeighbors = graph.neighbors(level, candidate, neighbors);
+            for (int i = 0; i < numNeighbors; i++) {
+                int neighbor = neighbors[i];
+                if (markVisited(neighbor) == false) {
+                    continue;
+                }
+                if (visitedCount++ >= visitedLimit) {
+                    return null;
+                }
+                float score = similarity.score(query, vectors.vectorValue(neighbor));
+                if (results.size() < topK || score > results.topScore()) {
+                    candidates.add(neighbor, score);
+                    if (acceptOrds == null || acceptOrds.get(neighbor)) {
+                        results.insertWithOverflow(neighbor, score, topK);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private boolean markVisited(int node) {
+        if (visited.getAndSet(node)) {
+            return false;
+        }
+        visitedNodes = ArrayUtil.grow(visitedNodes, numVisitedNodes + 1);
+        visitedNodes[numVisitedNodes++] = node;
+        return true;
+    }
+
+    // only clears the nodes that were visited, which are a small fraction of the graph on large segments
+    private void clearVisited() {
+        for (int i = 0; i < numVisitedNodes; i++) {
+            visited.clear(visitedNodes[i]);
+        }
+        numVisitedNodes = 0;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+
+/**
+ * The binary doc values of a field of the {@link HnswDocValuesFormat}, which can additionally search the graph of the vectors of
+ * the segment for the documents that are the most similar to a query vector.
+ */
+public final class HnswVectorValues extends BinaryDocValues {
+
+    private final BinaryDocValues in;
+    private final HnswDocValuesProducer.FieldEntry entry;
+    private final OffHeapVectors vectors;
+    private final HnswGraph graph;
+
+    HnswVectorValues(BinaryDocValues in, HnswDocValuesProducer.FieldEntry entry, OffHeapVectors vectors, HnswGraph graph) {
+        this.in = in;
+        this.entry = entry;
+        this.vectors = vectors;
+        this.graph = graph;
+    }
+
+    /**
+     * The similarity that the graph was built with, and which scores the documents returned by {@link #search}.
+     */
+    public VectorSimilarity similarity() {
+        return entry.similarity;
+    }
+
+    /**
+     * Returns the {@code k} accepted documents that are the most similar to the query vector among the {@code numCandidates}
+     * approximate nearest neighbors found in the graph, sorted by decreasing score. Returns {@code null} if the search would need
+     * to compute the similarity of more than {@code visitedLimit} vectors, in which case searching the accepted documents exactly
+     * is cheaper.
+     * @param acceptDocs the documents that can be returned, or {@code null} if all documents can
+     */
+    public TopDocs search(float[] query, int k, int numCandidates, Bits acceptDocs, long visitedLimit) throws IOException {
+        if (query.length != entry.dims) {
+            throw new IllegalArgumentException("the query vector has [" + query.length + "] dimensions, but the graph has ["
+                + entry.dims + "]");
+        }
+        float[] normalized = query.clone();
+        entry.similarity.normalize(normalized);
+        Bits acceptOrds = acceptDocs == null ? null : new Bits() {
+            @Override
+            public boolean get(int index) {
+                return acceptDocs.get(entry.docs[index]);
+            }
+
+            @Override
+            public int length() {
+                return entry.size;
+            }
+        };
+        HnswGraphSearcher searcher = new HnswGraphSearcher(graph, vectors, entry.similarity.graphSimilarity(), entry.m);
+        NeighborQueue results = searcher.search(normalized, Math.max(k, numCandidates), acceptOrds, visitedLimit);
+        if (results == null) {
+            return null;
+        }
+        while (results.size() > k) {
+            results.pop();
+        }
+        ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            float score = results.topScore();
+            scoreDocs[i] = new ScoreDoc(entry.docs[results.pop()], score);
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    @Override
+    public BytesRef binaryValue() throws IOException {
+        return in.binaryValue();
+    }
+
+    @Override
+    public boolean advanceExact(int target) throws IOException {
+        return in.advanceExact(target);
+    }
+
+    @Override
+    public int docID() {
+        return in.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+        return in.nextDoc();
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+        return in.advance(target);
+    }
+
+    @Override
+    public long cost() {
+        return in.cost();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A binary heap of nodes and their scores, which are packed into longs so that no object is allocated per entry. The queue either
+ * pops the nodes with the lowest scores first, which is how the best results found so far are tracked, or the nodes with the
+ * highest scores first, which is how candidates are explored. Ties on scores are broken in favor of the lowest nodes.
+ */
+public final class NeighborQueue {
+
+    private final boolean minHeap;
+    private long[] heap;
+    private int size;
+
+    public NeighborQueue(int initialSize, boolean minHeap) {
+        this.minHeap = minHeap;
+        this.heap = new long[Math.max(initialSize, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given node to the queue.
+     */
+    public void add(int node, float score) {
+        if (size == heap.length) {
+            heap = ArrayUtil.grow(heap, size + 1);
+        }
+        heap[size] = encode(node, score);
+        upHeap(size++);
+    }
+
+    /**
+     * Adds the given node to a queue of at most {@code maxSize} entries, replacing the top of the queue if it is full and the node
+     * would be popped after it.
+     * @return whether the node was added
+     */
+    public boolean insertWithOverflow(int node, float score, int maxSize) {
+        if (size < maxSize) {
+            add(node, score);
+            return true;
+        }
+        long encoded = encode(node, score);
+        if (size > 0 && encoded > heap[0]) {
+            heap[0] = encoded;
+            downHeap(0);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the node at the top of the queue.
+     */
+    public int topNode() {
+        return decodeNode(heap[0]);
+    }
+
+    /**
+     * Returns the score of the node at the top of the queue.
+     */
+    public float topScore() {
+        return decodeScore(heap[0]);
+    }
+
+    /**
+     * Removes the top of the queue and returns its node.
+     */
+    public int pop() {
+        int node = topNode();
+        heap[0] = heap[--size];
+        downHeap(0);
+        return node;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /*
+     * Scores are encoded as sortable ints in the upper half and the complement of the nodes in the lower half, so that the encoded
+     * values of a min heap sort like the scores and then the reverse of the nodes. A max heap stores the complement of the encoding.
+     */
+    private long encode(int node, float score) {
+        long encoded = (((long) NumericUtils.floatToSortableInt(score)) << 32) | (0xFFFFFFFFL & ~node);
+        return minHeap ? encoded : ~encoded;
+    }
+
+    private int decodeNode(long encoded) {
+        return minHeap ? ~((int) encoded) : (int) encoded;
+    }
+
+    private float decodeScore(long encoded) {
+        return NumericUtils.sortableIntToFloat((int) ((minHeap ? encoded : ~encoded) >> 32));
+    }
+
+    private void upHeap(int i) {
+        long value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private void downHeap(int i) {
+        if (size == 0) {
+            return;
+        }
+        long value = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+}
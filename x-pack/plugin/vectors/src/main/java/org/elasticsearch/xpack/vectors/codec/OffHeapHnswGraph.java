@@ -0,0 +1,50 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.IndexInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * An {@link HnswGraph} that is read from a segment. The neighbors of the nodes of a level are stored in slots of
+ * {@code 1 + maxConn} ints, the number of neighbors followed by the neighbors, in the order of the nodes of the level. Only the
+ * nodes of the levels above level 0, which hold all nodes, are loaded on heap.
+ */
+final class OffHeapHnswGraph extends HnswGraph {
+
+    private final IndexInput input;
+    private final HnswDocValuesProducer.FieldEntry entry;
+
+    OffHeapHnswGraph(IndexInput input, HnswDocValuesProducer.FieldEntry entry) {
+        this.input = input;
+        this.entry = entry;
+    }
+
+    @Override
+    int maxLevel() {
+        return entry.maxLevel;
+    }
+
+    @Override
+    int entryNode() {
+        return entry.entryNode;
+    }
+
+    @Override
+    int neighbors(int level, int node, int[] buffer) throws IOException {
+        int index = level == 0 ? node : Arrays.binarySearch(entry.levelNodes[level], node);
+        assert index >= 0 : "node [" + node + "] is not on level [" + level + "]";
+        input.seek(entry.levelOffsets[level] + (long) index * (1 + maxConn(entry.m, level)) * Integer.BYTES);
+        int numNeighbors = input.readInt();
+        for (int i = 0; i < numNeighbors; i++) {
+            buffer[i] = input.readInt();
+        }
+        return numNeighbors;
+    }
+}
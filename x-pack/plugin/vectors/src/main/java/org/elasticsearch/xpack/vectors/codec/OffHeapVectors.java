@@ -0,0 +1,52 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.store.IndexInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Random access to vectors that are stored one after the other as big-endian floats, by their ordinal. The returned vector is
+ * reused by the next call, so callers that need to compare two stored vectors use a {@link #copy()}.
+ */
+final class OffHeapVectors {
+
+    private final IndexInput input;
+    private final int dims;
+    private final int size;
+    private final byte[] bytes;
+    private final float[] vector;
+
+    OffHeapVectors(IndexInput input, int dims, int size) {
+        this.input = input;
+        this.dims = dims;
+        this.size = size;
+        this.bytes = new byte[dims * Float.BYTES];
+        this.vector = new float[dims];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int dims() {
+        return dims;
+    }
+
+    float[] vectorValue(int ord) throws IOException {
+        input.seek((long) ord * bytes.length);
+        input.readBytes(bytes, 0, bytes.length);
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    OffHeapVectors copy() {
+        return new OffHeapVectors(input.clone(), dims, size);
+    }
+}
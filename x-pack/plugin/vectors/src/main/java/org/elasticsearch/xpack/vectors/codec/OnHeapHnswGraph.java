@@ -0,0 +1,136 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.util.ArrayUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An {@link HnswGraph} that is being built on heap before it is written to a segment. Nodes must be added in increasing order, so
+ * that the nodes of every level are sorted.
+ */
+final class OnHeapHnswGraph extends HnswGraph {
+
+    private final int m;
+    private final List<Level> levels = new ArrayList<>();
+    private int maxLevel = -1;
+    private int entryNode = -1;
+
+    OnHeapHnswGraph(int m, int size) {
+        this.m = m;
+        levels.add(new Level(size));
+    }
+
+    @Override
+    int maxLevel() {
+        return maxLevel;
+    }
+
+    @Override
+    int entryNode() {
+        return entryNode;
+    }
+
+    void setEntryNode(int node, int level) {
+        this.entryNode = node;
+        this.maxLevel = level;
+    }
+
+    /**
+     * Adds the given node, which must be greater than all nodes added so far, to all levels up to the given one.
+     */
+    void addNode(int node, int level) {
+        while (levels.size() <= level) {
+            levels.add(new Level(16));
+        }
+        for (int l = 0; l <= level; l++) {
+            levels.get(l).add(node, HnswGraph.maxConn(m, l));
+        }
+    }
+
+    /**
+     * Returns the number of levels that nodes were added to, which can be more than {@link #maxLevel()} {@code + 1} while the last
+     * added node has not been linked yet.
+     */
+    int numLevels() {
+        return levels.size();
+    }
+
+    /**
+     * Returns the sorted nodes of the given level.
+     */
+    int[] nodes(int level) {
+        Level l = levels.get(level);
+        return Arrays.copyOf(l.nodes, l.size);
+    }
+
+    NeighborArray getNeighbors(int level, int node) {
+        Level l = levels.get(level);
+        int index = level == 0 ? node : Arrays.binarySearch(l.nodes, 0, l.size, node);
+        assert index >= 0 && l.nodes[index] == node : "node [" + node + "] is not on level [" + level + "]";
+        return l.neighbors[index];
+    }
+
+    @Override
+    int neighbors(int level, int node, int[] buffer) {
+        NeighborArray neighbors = getNeighbors(level, node);
+        System.arraycopy(neighbors.nodes, 0, buffer, 0, neighbors.size);
+        return neighbors.size;
+    }
+
+    private static final class Level {
+        private int[] nodes;
+        private NeighborArray[] neighbors;
+        private int size;
+
+        Level(int initialSize) {
+            nodes = new int[initialSize];
+            neighbors = new NeighborArray[initialSize];
+        }
+
+        void add(int node, int maxConn) {
+            assert size == 0 || nodes[size - 1] < node;
+            if (size == nodes.length) {
+                nodes = ArrayUtil.grow(nodes, size + 1);
+                neighbors = ArrayUtil.grow(neighbors, size + 1);
+            }
+            nodes[size] = node;
+            neighbors[size] = new NeighborArray(maxConn + 1);
+            size++;
+        }
+    }
+
+    /**
+     * The neighbors of a node and their scores, sorted from the most to the least similar. It has room for one more neighbor than
+     * allowed, which is then removed when the neighbors are diversified again.
+     */
+    static final class NeighborArray {
+        final int[] nodes;
+        final float[] scores;
+        int size;
+
+        NeighborArray(int capacity) {
+            nodes = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void add(int node, float score) {
+            int i = size;
+            while (i > 0 && scores[i - 1] < score) {
+                nodes[i] = nodes[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import java.util.Locale;
+
+/**
+ * The similarity functions that indexed dense vectors can be searched with. All of them are turned into scores where higher is
+ * more similar, and that are never negative.
+ */
+public enum VectorSimilarity {
+
+    /**
+     * The euclidean distance, scored as {@code 1 / (1 + l2_norm(a, b)^2)}.
+     */
+    L2_NORM {
+        @Override
+        public float score(float[] a, float[] b) {
+            float squareSum = 0;
+            for (int i = 0; i < a.length; i++) {
+                float diff = a[i] - b[i];
+                squareSum += diff * diff;
+            }
+            return 1 / (1 + squareSum);
+        }
+    },
+
+    /**
+     * The dot product of vectors of unit length, scored as {@code (1 + dot_product(a, b)) / 2}. Both the indexed and the query vectors
+     * must be of unit length.
+     */
+    DOT_PRODUCT {
+        @Override
+        public float score(float[] a, float[] b) {
+            return Math.max((1 + dotProduct(a, b)) / 2, 0);
+        }
+    },
+
+    /**
+     * The cosine of the angle between two vectors, scored as {@code (1 + cosine(a, b)) / 2}. Vectors are normalized when they are
+     * added to the graph, which is then searched with the dot product.
+     */
+    COSINE {
+        @Override
+        public float score(float[] a, float[] b) {
+            float dotProduct = 0;
+            float aNorm = 0;
+            float bNorm = 0;
+            for (int i = 0; i < a.length; i++) {
+                dotProduct += a[i] * b[i];
+                aNorm += a[i] * a[i];
+                bNorm += b[i] * b[i];
+            }
+            float cosine = (float) (dotProduct / Math.sqrt((double) aNorm * (double) bNorm));
+            return Math.max((1 + cosine) / 2, 0);
+        }
+    };
+
+    /**
+     * Returns the score of the given vectors, higher meaning more similar.
+     */
+    public abstract float score(float[] a, float[] b);
+
+    /**
+     * Returns the similarity the vectors stored in the graph are compared with, after being {@link #normalize normalized}.
+     */
+    VectorSimilarity graphSimilarity() {
+        return this == COSINE ? DOT_PRODUCT : this;
+    }
+
+    /**
+     * Normalizes the given vector in place if this similarity compares vectors of unit length in the graph.
+     */
+    void normalize(float[] vector) {
+        if (this == COSINE) {
+            double norm = Math.sqrt(dotProduct(vector, vector));
+            if (norm > 0) {
+                for (int i = 0; i < vector.length; i++) {
+                    vector[i] /= norm;
+                }
+            }
+        }
+    }
+
+    static float dotProduct(float[] a, float[] b) {
+        float dotProduct = 0;
+        for (int i = 0; i < a.length; i++) {
+            dotProduct += a[i] * b[i];
+        }
+        return dotProduct;
+    }
+
+    public static VectorSimilarity fromString(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -7,17 +7,23 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser.Token;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.codec.DocValuesFormatProvider;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.ArraySourceValueFetcher;
 import org.elasticsearch.index.mapper.ContentPath;
+import org.elasticsearch.index.mapper.DocumentMapperParser;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.Mapper.TypeParser.ParserContext;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.ParseContext;
 import org.elasticsearch.index.mapper.TextSearchInfo;
@@ -26,6 +32,9 @@ import org.elasticsearch.index.query.QueryShardContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
 import org.elasticsearch.xpack.vectors.query.VectorIndexFieldData;
 
 import java.io.IOException;
@@ -33,18 +42,24 @@ import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
 
 /**
- * A {@link FieldMapper} for indexing a dense vector of floats.
+ * A {@link FieldMapper} for indexing a dense vector of floats. Vectors are stored in binary doc values, and fields with
+ * {@code index: true} additionally index them in a graph per segment, see {@link HnswDocValuesFormat}, which the {@code knn} query
+ * searches for approximate nearest neighbors.
  */
 public class DenseVectorFieldMapper extends FieldMapper {
 
     public static final String CONTENT_TYPE = "dense_vector";
     public static short MAX_DIMS_COUNT = 2048; //maximum allowed number of dimensions
     private static final byte INT_BYTES = 4;
+    private static final float UNIT_LENGTH_TOLERANCE = 1e-4f;
+    public static final int MAX_M = 512;
+    public static final int MAX_EF_CONSTRUCTION = 3200;
 
     private static DenseVectorFieldMapper toType(FieldMapper in) {
         return (DenseVectorFieldMapper) in;
@@ -63,6 +78,11 @@ public class DenseVectorFieldMapper extends FieldMapper {
                         "] should be in the range [1, " + MAX_DIMS_COUNT + "] but was [" + dims + "]");
                 }
             });
+        Parameter<Boolean> indexed = Parameter.indexParam(m -> toType(m).indexed, false);
+        Parameter<VectorSimilarity> similarity = new Parameter<>("similarity", false, () -> null,
+            (n, c, o) -> parseSimilarity(n, o), m -> toType(m).similarity).acceptsNull();
+        Parameter<HnswIndexOptions> indexOptions = new Parameter<>("index_options", false, () -> null,
+            DenseVectorFieldMapper::parseIndexOptions, m -> toType(m).indexOptions).acceptsNull();
         Parameter<Map<String, String>> meta = Parameter.metaParam();
 
         final Version indexVersionCreated;
@@ -74,35 +94,183 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return List.of(dims, meta);
+            return List.of(dims, indexed, similarity, indexOptions, meta);
         }
 
         @Override
         public DenseVectorFieldMapper build(ContentPath contentPath) {
+            if (indexed.getValue()) {
+                if (similarity.getValue() == null) {
+                    throw new IllegalArgumentException("Field [" + name + "] of type [" + CONTENT_TYPE + "] requires [similarity] " +
+                        "when [index] is true");
+                }
+            } else if (similarity.getValue() != null || indexOptions.getValue() != null) {
+                throw new IllegalArgumentException("Field [" + name + "] of type [" + CONTENT_TYPE + "] only allows " +
+                    "[similarity] and [index_options] when [index] is true");
+            }
+            HnswIndexOptions options = indexed.getValue() && indexOptions.getValue() == null
+                ? HnswIndexOptions.DEFAULT
+                : indexOptions.getValue();
             return new DenseVectorFieldMapper(
                 name,
-                new DenseVectorFieldType(buildFullName(contentPath), dims.getValue(), meta.getValue()),
+                new DenseVectorFieldType(buildFullName(contentPath), dims.getValue(), indexed.getValue(), similarity.getValue(),
+                    options, meta.getValue()),
                 dims.getValue(),
+                indexed.getValue(),
+                similarity.getValue(),
+                indexOptions.getValue(),
                 indexVersionCreated,
                 multiFieldsBuilder.build(this, contentPath),
                 copyTo.build());
         }
     }
 
+    private static VectorSimilarity parseSimilarity(String fieldName, Object propNode) {
+        if (propNode == null) {
+            return null;
+        }
+        try {
+            return VectorSimilarity.fromString(propNode.toString());
+        } catch (IllegalArgumentException e) {
+            throw new MapperParsingException("Unknown [similarity] [" + propNode + "] for field [" + fieldName + "], expected one of "
+                + List.of(VectorSimilarity.values()));
+        }
+    }
+
+    private static HnswIndexOptions parseIndexOptions(String fieldName, ParserContext parserContext, Object propNode) {
+        if (propNode == null) {
+            return null;
+        }
+        Map<?, ?> indexOptions = (Map<?, ?>) propNode;
+        Object type = indexOptions.remove("type");
+        if (type == null) {
+            throw new MapperParsingException("[index_options] of field [" + fieldName + "] requires [type]");
+        }
+        if (HnswIndexOptions.TYPE.equals(type.toString()) == false) {
+            throw new MapperParsingException("Unknown [index_options] type [" + type + "] for field [" + fieldName + "], expected ["
+                + HnswIndexOptions.TYPE + "]");
+        }
+        int m = XContentMapValues.nodeIntegerValue(indexOptions.remove("m"), HnswDocValuesFormat.DEFAULT_M);
+        int efConstruction = XContentMapValues.nodeIntegerValue(indexOptions.remove("ef_construction"),
+            HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION);
+        DocumentMapperParser.checkNoRemainingFields(fieldName, indexOptions, parserContext.indexVersionCreated());
+        return new HnswIndexOptions(m, efConstruction);
+    }
+
+    /**
+     * The parameters of the graph that indexed vectors are added to.
+     */
+    public static final class HnswIndexOptions implements ToXContent {
+        static final String TYPE = "hnsw";
+        static final HnswIndexOptions DEFAULT = new HnswIndexOptions(HnswDocValuesFormat.DEFAULT_M,
+            HnswDocValuesFormat.DEFAULT_EF_CONSTRUCTION);
+
+        private final int m;
+        private final int efConstruction;
+
+        HnswIndexOptions(int m, int efConstruction) {
+            if (m < 2 || m > MAX_M) {
+                throw new IllegalArgumentException("[m] must be in the range [2, " + MAX_M + "] but was [" + m + "]");
+            }
+            if (efConstruction < 1 || efConstruction > MAX_EF_CONSTRUCTION) {
+                throw new IllegalArgumentException("[ef_construction] must be in the range [1, " + MAX_EF_CONSTRUCTION
+                    + "] but was [" + efConstruction + "]");
+            }
+            this.m = m;
+            this.efConstruction = efConstruction;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("type", TYPE);
+            builder.field("m", m);
+            builder.field("ef_construction", efConstruction);
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            HnswIndexOptions that = (HnswIndexOptions) o;
+            return m == that.m && efConstruction == that.efConstruction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m, efConstruction);
+        }
+
+        @Override
+        public String toString() {
+            return "{ type=" + TYPE + ", m=" + m + ", ef_construction=" + efConstruction + " }";
+        }
+    }
+
     public static final TypeParser PARSER = new TypeParser((n, c) -> new Builder(n, c.indexVersionCreated()));
 
-    public static final class DenseVectorFieldType extends MappedFieldType {
+    public static final class DenseVectorFieldType extends MappedFieldType implements DocValuesFormatProvider {
         private final int dims;
+        private final boolean indexed;
+        private final VectorSimilarity similarity;
+        private final DocValuesFormat docValuesFormat;
 
         public DenseVectorFieldType(String name, int dims, Map<String, String> meta) {
+            this(name, dims, false, null, null, meta);
+        }
+
+        public DenseVectorFieldType(String name, int dims, boolean indexed, VectorSimilarity similarity,
+                                    HnswIndexOptions indexOptions, Map<String, String> meta) {
             super(name, false, false, true, TextSearchInfo.NONE, meta);
             this.dims = dims;
+            this.indexed = indexed;
+            this.similarity = similarity;
+            this.docValuesFormat = indexed
+                ? new HnswDocValuesFormat(dims, similarity, indexOptions.m, indexOptions.efConstruction)
+                : null;
         }
 
         int dims() {
             return dims;
         }
 
+        public boolean isIndexed() {
+            return indexed;
+        }
+
+        public VectorSimilarity similarity() {
+            return similarity;
+        }
+
+        @Override
+        public DocValuesFormat docValuesFormat() {
+            return docValuesFormat;
+        }
+
+        /**
+         * Creates a query for the {@code k} documents whose vectors are the most similar to the query vector, among the
+         * {@code numCandidates} approximate nearest neighbors found in each segment.
+         * @param filter a query that the returned documents must match, or {@code null}
+         */
+        public Query createKnnQuery(float[] queryVector, int k, int numCandidates, Query filter) {
+            if (indexed == false) {
+                throw new IllegalArgumentException("Field [" + name() + "] of type [" + typeName() + "] can only be searched with " +
+                    "[knn] queries if [index] is true");
+            }
+            if (queryVector.length != dims) {
+                throw new IllegalArgumentException("The query vector has a different number of dimensions [" + queryVector.length +
+                    "] than the document vectors [" + dims + "]");
+            }
+            double squaredMagnitude = 0;
+            for (float value : queryVector) {
+                squaredMagnitude += value * value;
+            }
+            checkMagnitude(similarity, "The query vector", (float) Math.sqrt(squaredMagnitude));
+            return new KnnVectorQuery(name(), queryVector, k, numCandidates, similarity, filter);
+        }
+
         @Override
         public String typeName() {
             return CONTENT_TYPE;
@@ -144,14 +312,32 @@ public class DenseVectorFieldMapper extends FieldMapper {
         }
     }
 
+    private static void checkMagnitude(VectorSimilarity similarity, String vectorDescription, float magnitude) {
+        if (similarity == VectorSimilarity.DOT_PRODUCT && Math.abs(magnitude - 1) > UNIT_LENGTH_TOLERANCE) {
+            throw new IllegalArgumentException(vectorDescription + " has a magnitude of [" + magnitude + "], but the [" +
+                VectorSimilarity.DOT_PRODUCT + "] similarity requires vectors of unit length");
+        }
+        if (similarity == VectorSimilarity.COSINE && magnitude == 0) {
+            throw new IllegalArgumentException(vectorDescription + " has a magnitude of [0], but the [" +
+                VectorSimilarity.COSINE + "] similarity is not defined for vectors of zero magnitude");
+        }
+    }
+
     private final Version indexCreatedVersion;
     private final int dims;
+    private final boolean indexed;
+    private final VectorSimilarity similarity;
+    private final HnswIndexOptions indexOptions;
 
-    private DenseVectorFieldMapper(String simpleName, MappedFieldType mappedFieldType, int dims,
+    private DenseVectorFieldMapper(String simpleName, MappedFieldType mappedFieldType, int dims, boolean indexed,
+                                   VectorSimilarity similarity, HnswIndexOptions indexOptions,
                                    Version indexCreatedVersion, MultiFields multiFields, CopyTo copyTo) {
         super(simpleName, mappedFieldType, multiFields, copyTo);
         this.indexCreatedVersion = indexCreatedVersion;
         this.dims = dims;
+        this.indexed = indexed;
+        this.similarity = similarity;
+        this.indexOptions = indexOptions;
     }
 
     @Override
@@ -196,9 +382,13 @@ public class DenseVectorFieldMapper extends FieldMapper {
                 "] less than defined in the mapping [" +  dims +"]");
         }
 
+        float vectorMagnitude = (float) Math.sqrt(dotProduct);
+        if (indexed) {
+            checkMagnitude(similarity, "The vector of doc [" + context.sourceToParse().id() + "] for field [" + name() + "]",
+                vectorMagnitude);
+        }
         if (indexCreatedVersion.onOrAfter(Version.V_7_5_0)) {
             // encode vector magnitude at the end
-            float vectorMagnitude = (float) Math.sqrt(dotProduct);
             byteBuffer.putFloat(vectorMagnitude);
         }
         BinaryDocValuesField field = new BinaryDocValuesField(fieldType().name(), new BytesRef(bytes));
@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The result of a rewritten {@link KnnVectorQuery}: matches the given documents of the reader it was rewritten against, with
+ * their scores.
+ */
+final class KnnScoreDocQuery extends Query {
+
+    private final int[] docs;
+    private final float[] scores;
+    // the index in docs of the first document of each segment, and the number of documents
+    private final int[] segmentStarts;
+
+    private KnnScoreDocQuery(int[] docs, float[] scores, int[] segmentStarts) {
+        this.docs = docs;
+        this.scores = scores;
+        this.segmentStarts = segmentStarts;
+    }
+
+    /**
+     * Creates a query that matches the given documents, whose doc ids are relative to the top level reader.
+     */
+    static KnnScoreDocQuery create(IndexReader reader, ScoreDoc[] scoreDocs) {
+        ScoreDoc[] sorted = scoreDocs.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+        int[] docs = new int[sorted.length];
+        float[] scores = new float[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            docs[i] = sorted[i].doc;
+            scores[i] = sorted[i].score;
+        }
+        int[] segmentStarts = new int[reader.leaves().size() + 1];
+        for (LeafReaderContext context : reader.leaves()) {
+            int index = Arrays.binarySearch(docs, context.docBase);
+            segmentStarts[context.ord] = index >= 0 ? index : -1 - index;
+        }
+        segmentStarts[reader.leaves().size()] = docs.length;
+        return new KnnScoreDocQuery(docs, scores, segmentStarts);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
+        return new Weight(this) {
+            @Override
+            public void extractTerms(Set<Term> terms) {
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) {
+                int index = Arrays.binarySearch(docs, segmentStarts[context.ord], segmentStarts[context.ord + 1], doc + context.docBase);
+                if (index < 0) {
+                    return Explanation.noMatch("not in the top k documents");
+                }
+                return Explanation.match(scores[index] * boost, "within the top k documents");
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) {
+                int lower = segmentStarts[context.ord];
+                int upper = segmentStarts[context.ord + 1];
+                if (lower == upper) {
+                    return null;
+                }
+                return new Scorer(this) {
+                    int index = lower - 1;
+
+                    @Override
+                    public DocIdSetIterator iterator() {
+                        return new DocIdSetIterator() {
+                            @Override
+                            public int docID() {
+                                return KnnScoreDocQuery.this.docID(index, lower, upper, context);
+                            }
+
+                            @Override
+                            public int nextDoc() {
+                                index++;
+                                return docID();
+                            }
+
+                            @Override
+                            public int advance(int target) {
+                                if (index >= upper) {
+                                    return DocIdSetIterator.NO_MORE_DOCS;
+                                }
+                                int found = Arrays.binarySearch(docs, Math.max(index, lower), upper, target + context.docBase);
+                                index = found >= 0 ? found : -1 - found;
+                                return docID();
+                            }
+
+                            @Override
+                            public long cost() {
+                                return upper - lower;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public float getMaxScore(int upTo) {
+                        float maxScore = 0;
+                        for (int i = lower; i < upper; i++) {
+                            maxScore = Math.max(maxScore, scores[i]);
+                        }
+                        return maxScore * boost;
+                    }
+
+                    @Override
+                    public float score() {
+                        return scores[index] * boost;
+                    }
+
+                    @Override
+                    public int docID() {
+                        return KnnScoreDocQuery.this.docID(index, lower, upper, context);
+                    }
+                };
+            }
+
+            @Override
+            public boolean isCacheable(LeafReaderContext context) {
+                // the documents are tied to the reader the query was rewritten against
+                return false;
+            }
+        };
+    }
+
+    private int docID(int index, int lower, int upper, LeafReaderContext context) {
+        if (index < lower) {
+            return -1;
+        }
+        if (index >= upper) {
+            return DocIdSetIterator.NO_MORE_DOCS;
+        }
+        return docs[index] - context.docBase;
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        visitor.visitLeaf(this);
+    }
+
+    @Override
+    public String toString(String field) {
+        return "KnnScoreDocQuery(" + docs.length + " documents)";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        KnnScoreDocQuery other = (KnnScoreDocQuery) obj;
+        return Arrays.equals(docs, other.docs)
+            && Arrays.equals(scores, other.scores)
+            && Arrays.equals(segmentStarts, other.segmentStarts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), Arrays.hashCode(docs), Arrays.hashCode(scores), Arrays.hashCode(segmentStarts));
+    }
+}
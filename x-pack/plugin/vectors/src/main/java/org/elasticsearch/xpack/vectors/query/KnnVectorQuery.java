@@ -0,0 +1,244 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FilteredDocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.xpack.vectors.codec.HnswVectorValues;
+import org.elasticsearch.xpack.vectors.codec.NeighborQueue;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Finds the {@code k} documents whose vectors are the most similar to a query vector. Each segment is searched with its
+ * {@link HnswVectorValues graph} for its {@code numCandidates} approximate nearest neighbors, of which the {@code k} best are kept,
+ * and the results of all segments are merged when the weight is created. Segments are searched exactly instead, by scoring all the
+ * documents that match the filter, if they have fewer matches than candidates, or if the graph search would compare the query
+ * vector with more vectors than there are matches. The weight matches the top {@code k} documents with their scores.
+ * <p>
+ * The search runs in {@link #createWeight} rather than when the query is rewritten so that it goes through the searcher that
+ * executes the query: the filter uses its query cache, and the segments are visited by its search loop, which checks for
+ * cancellation and timeouts before each of them.
+ */
+public class KnnVectorQuery extends Query {
+
+    private final String field;
+    private final float[] target;
+    private final int k;
+    private final int numCandidates;
+    private final VectorSimilarity similarity;
+    private final Query filter;
+
+    /**
+     * @param filter a query that the returned documents must match, or {@code null}
+     */
+    public KnnVectorQuery(String field, float[] target, int k, int numCandidates, VectorSimilarity similarity, Query filter) {
+        if (k < 1) {
+            throw new IllegalArgumentException("[k] must be greater than 0 but was [" + k + "]");
+        }
+        if (numCandidates < k) {
+            throw new IllegalArgumentException("[num_candidates] must be greater than or equal to [k] but was [" + numCandidates + "]");
+        }
+        this.field = Objects.requireNonNull(field);
+        this.target = Objects.requireNonNull(target);
+        this.k = k;
+        this.numCandidates = numCandidates;
+        this.similarity = Objects.requireNonNull(similarity);
+        this.filter = filter;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        IndexReader reader = searcher.getIndexReader();
+        BitSet[] filterMatches = filter == null ? null : filterMatches(searcher);
+        TopDocs[] perLeafResults = new TopDocs[reader.leaves().size()];
+        Arrays.fill(perLeafResults, emptyTopDocs());
+        // the leaves are visited by the searcher so that it can check for cancellation and timeouts between them
+        searcher.search(new MatchAllDocsQuery(), new Collector() {
+            @Override
+            public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+                BitSet acceptDocs = filterMatches == null ? null : filterMatches[context.ord];
+                if (filter == null || acceptDocs != null) {
+                    TopDocs results = searchLeaf(context, acceptDocs);
+                    for (ScoreDoc scoreDoc : results.scoreDocs) {
+                        scoreDoc.doc += context.docBase;
+                    }
+                    perLeafResults[context.ord] = results;
+                }
+                throw new CollectionTerminatedException();
+            }
+
+            @Override
+            public ScoreMode scoreMode() {
+                return ScoreMode.COMPLETE_NO_SCORES;
+            }
+        });
+        TopDocs topK = TopDocs.merge(k, perLeafResults);
+        return KnnScoreDocQuery.create(reader, topK.scoreDocs).createWeight(searcher, scoreMode, boost);
+    }
+
+    /**
+     * Collects the live documents that match the filter in each leaf, through the searcher so that the filter can be cached.
+     */
+    private BitSet[] filterMatches(IndexSearcher searcher) throws IOException {
+        BitSet[] filterMatches = new BitSet[searcher.getIndexReader().leaves().size()];
+        searcher.search(filter, new SimpleCollector() {
+            private BitSet leafMatches;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) {
+                leafMatches = new FixedBitSet(context.reader().maxDoc());
+                filterMatches[context.ord] = leafMatches;
+            }
+
+            @Override
+            public void collect(int doc) {
+                leafMatches.set(doc);
+            }
+
+            @Override
+            public ScoreMode scoreMode() {
+                return ScoreMode.COMPLETE_NO_SCORES;
+            }
+        });
+        return filterMatches;
+    }
+
+    private TopDocs searchLeaf(LeafReaderContext context, BitSet acceptDocs) throws IOException {
+        BinaryDocValues values = context.reader().getBinaryDocValues(field);
+        if (values == null) {
+            return emptyTopDocs();
+        }
+        if (acceptDocs == null) {
+            Bits liveDocs = context.reader().getLiveDocs();
+            if (values instanceof HnswVectorValues) {
+                return ((HnswVectorValues) values).search(target, k, numCandidates, liveDocs, Long.MAX_VALUE);
+            }
+            DocIdSetIterator iterator = liveDocs == null ? values : new FilteredDocIdSetIterator(values) {
+                @Override
+                protected boolean match(int doc) {
+                    return liveDocs.get(doc);
+                }
+            };
+            return exactSearch(iterator, values);
+        }
+
+        int cost = acceptDocs.cardinality();
+        if (cost == 0) {
+            return emptyTopDocs();
+        }
+        if (cost <= numCandidates || values instanceof HnswVectorValues == false) {
+            return exactSearch(new BitSetIterator(acceptDocs, cost), values);
+        }
+        // the graph search gives up once it has visited as many nodes as there are matches, which can then be scored exactly
+        TopDocs results = ((HnswVectorValues) values).search(target, k, numCandidates, acceptDocs, cost);
+        return results != null ? results : exactSearch(new BitSetIterator(acceptDocs, cost), values);
+    }
+
+    private TopDocs exactSearch(DocIdSetIterator iterator, BinaryDocValues values) throws IOException {
+        NeighborQueue queue = new NeighborQueue(k, true);
+        float[] vector = new float[target.length];
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            if (values.docID() == doc || values.advanceExact(doc)) {
+                BytesRef value = values.binaryValue();
+                ByteBuffer.wrap(value.bytes, value.offset, vector.length * Float.BYTES).asFloatBuffer().get(vector);
+                queue.insertWithOverflow(doc, similarity.score(target, vector), k);
+            }
+        }
+        ScoreDoc[] scoreDocs = new ScoreDoc[queue.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            float score = queue.topScore();
+            scoreDocs[i] = new ScoreDoc(queue.pop(), score);
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    private static TopDocs emptyTopDocs() {
+        return new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public float[] getTarget() {
+        return target;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getNumCandidates() {
+        return numCandidates;
+    }
+
+    public Query getFilter() {
+        return filter;
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+        if (filter != null) {
+            filter.visit(visitor.getSubVisitor(BooleanClause.Occur.FILTER, this));
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        return "KnnVectorQuery(" + this.field + "[" + target[0] + ",...]" + ", k=" + k + ", num_candidates=" + numCandidates
+            + (filter == null ? "" : ", filter=" + filter) + ")";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        KnnVectorQuery other = (KnnVectorQuery) obj;
+        return field.equals(other.field)
+            && Arrays.equals(target, other.target)
+            && k == other.k
+            && numCandidates == other.numCandidates
+            && similarity == other.similarity
+            && Objects.equals(filter, other.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), field, Arrays.hashCode(target), k, numCandidates, similarity, filter);
+    }
+}
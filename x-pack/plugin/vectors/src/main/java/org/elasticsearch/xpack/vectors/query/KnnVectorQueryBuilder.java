@@ -0,0 +1,216 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.DenseVectorFieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * A query that finds the {@code k} documents whose indexed {@code dense_vector} is the most similar to a query vector. Each shard
+ * returns its approximate top {@code k}, which is more accurate the more candidates are considered per segment.
+ */
+public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBuilder> {
+    public static final String NAME = "knn";
+    public static final int DEFAULT_K = 10;
+    public static final int DEFAULT_NUM_CANDIDATES = 100;
+    public static final int MAX_NUM_CANDIDATES = 10000;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
+    private static final ParseField K_FIELD = new ParseField("k");
+    private static final ParseField NUM_CANDIDATES_FIELD = new ParseField("num_candidates");
+    private static final ParseField FILTER_FIELD = new ParseField("filter");
+
+    private final String fieldName;
+    private final float[] queryVector;
+    private final int k;
+    private final int numCandidates;
+    private QueryBuilder filter;
+
+    public KnnVectorQueryBuilder(String fieldName, float[] queryVector, int k, int numCandidates) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a field");
+        }
+        if (queryVector == null || queryVector.length == 0) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a query vector");
+        }
+        if (k < 1) {
+            throw new IllegalArgumentException("[" + K_FIELD.getPreferredName() + "] must be greater than 0 but was [" + k + "]");
+        }
+        if (numCandidates < k || numCandidates > MAX_NUM_CANDIDATES) {
+            throw new IllegalArgumentException("[" + NUM_CANDIDATES_FIELD.getPreferredName() + "] must be in the range [k, "
+                + MAX_NUM_CANDIDATES + "] but was [" + numCandidates + "]");
+        }
+        this.fieldName = fieldName;
+        this.queryVector = queryVector;
+        this.k = k;
+        this.numCandidates = numCandidates;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public KnnVectorQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        fieldName = in.readString();
+        queryVector = in.readFloatArray();
+        k = in.readVInt();
+        numCandidates = in.readVInt();
+        filter = in.readOptionalNamedWriteable(QueryBuilder.class);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeFloatArray(queryVector);
+        out.writeVInt(k);
+        out.writeVInt(numCandidates);
+        out.writeOptionalNamedWriteable(filter);
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public float[] queryVector() {
+        return queryVector;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public int numCandidates() {
+        return numCandidates;
+    }
+
+    /**
+     * Sets a query that the returned documents must match. The {@code k} most similar documents are searched among the matches of
+     * the filter, rather than filtered after the search.
+     */
+    public KnnVectorQueryBuilder filter(QueryBuilder filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    public QueryBuilder filter() {
+        return filter;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.array(QUERY_VECTOR_FIELD.getPreferredName(), queryVector);
+        builder.field(K_FIELD.getPreferredName(), k);
+        builder.field(NUM_CANDIDATES_FIELD.getPreferredName(), numCandidates);
+        if (filter != null) {
+            builder.field(FILTER_FIELD.getPreferredName());
+            filter.toXContent(builder, params);
+        }
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    private static final ConstructingObjectParser<KnnVectorQueryBuilder, Void> PARSER = new ConstructingObjectParser<>(NAME,
+        a -> {
+            @SuppressWarnings("unchecked")
+            List<Float> vector = (List<Float>) a[1];
+            float[] queryVector = new float[vector.size()];
+            for (int i = 0; i < queryVector.length; i++) {
+                queryVector[i] = vector.get(i);
+            }
+            int k = a[2] == null ? DEFAULT_K : (Integer) a[2];
+            int numCandidates = a[3] == null ? Math.max(k, DEFAULT_NUM_CANDIDATES) : (Integer) a[3];
+            return new KnnVectorQueryBuilder((String) a[0], queryVector, k, numCandidates).filter((QueryBuilder) a[4]);
+        });
+
+    static {
+        PARSER.declareString(constructorArg(), FIELD_FIELD);
+        PARSER.declareFloatArray(constructorArg(), QUERY_VECTOR_FIELD);
+        PARSER.declareInt(optionalConstructorArg(), K_FIELD);
+        PARSER.declareInt(optionalConstructorArg(), NUM_CANDIDATES_FIELD);
+        PARSER.declareObject(optionalConstructorArg(), (p, c) -> parseInnerQueryBuilder(p), FILTER_FIELD);
+        declareStandardFields(PARSER);
+    }
+
+    public static KnnVectorQueryBuilder fromXContent(XContentParser parser) {
+        try {
+            return PARSER.apply(parser, null);
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected QueryBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
+        if (filter != null) {
+            QueryBuilder rewrittenFilter = filter.rewrite(queryRewriteContext);
+            if (rewrittenFilter != filter) {
+                return new KnnVectorQueryBuilder(fieldName, queryVector, k, numCandidates)
+                    .filter(rewrittenFilter)
+                    .boost(boost)
+                    .queryName(queryName);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected Query doToQuery(QueryShardContext context) throws IOException {
+        MappedFieldType fieldType = context.getFieldType(fieldName);
+        if (fieldType == null) {
+            return new MatchNoDocsQuery("unmapped field [" + fieldName + "]");
+        }
+        if (fieldType instanceof DenseVectorFieldType == false) {
+            throw new IllegalArgumentException("[" + NAME + "] queries are only supported on [dense_vector] fields, but field ["
+                + fieldName + "] is of type [" + fieldType.typeName() + "]");
+        }
+        Query filterQuery = filter == null ? null : filter.toQuery(context);
+        return ((DenseVectorFieldType) fieldType).createKnnQuery(queryVector, k, numCandidates, filterQuery);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, Arrays.hashCode(queryVector), k, numCandidates, filter);
+    }
+
+    @Override
+    protected boolean doEquals(KnnVectorQueryBuilder other) {
+        return Objects.equals(fieldName, other.fieldName)
+            && Arrays.equals(queryVector, other.queryVector)
+            && k == other.k
+            && numCandidates == other.numCandidates
+            && Objects.equals(filter, other.filter);
+    }
+}
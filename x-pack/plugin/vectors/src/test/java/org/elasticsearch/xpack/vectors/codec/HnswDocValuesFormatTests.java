@@ -0,0 +1,195 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.codec;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene87.Lucene87Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.TestUtil;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HnswDocValuesFormatTests extends ESTestCase {
+
+    static Codec codec(String vectorField, int dims, VectorSimilarity similarity, int m, int efConstruction) {
+        DocValuesFormat format = new HnswDocValuesFormat(dims, similarity, m, efConstruction);
+        return new Lucene87Codec() {
+            @Override
+            public DocValuesFormat getDocValuesFormatForField(String field) {
+                return vectorField.equals(field) ? format : super.getDocValuesFormatForField(field);
+            }
+        };
+    }
+
+    static BinaryDocValuesField vectorField(String field, float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate((vector.length + 1) * Float.BYTES);
+        double squaredMagnitude = 0;
+        for (float value : vector) {
+            buffer.putFloat(value);
+            squaredMagnitude += value * value;
+        }
+        buffer.putFloat((float) Math.sqrt(squaredMagnitude));
+        return new BinaryDocValuesField(field, new BytesRef(buffer.array()));
+    }
+
+    static float[] randomVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+
+    public void testReadAndSearchAfterFlushesAndMerges() throws IOException {
+        int dims = randomIntBetween(2, 16);
+        VectorSimilarity similarity = randomFrom(VectorSimilarity.L2_NORM, VectorSimilarity.COSINE);
+        int numDocs = randomIntBetween(100, 500);
+        float[][] vectors = new float[numDocs][];
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig()
+                .setCodec(codec("vector", dims, similarity, randomIntBetween(4, 16), randomIntBetween(20, 100)))
+                .setMaxBufferedDocs(randomIntBetween(20, 100))
+                .setMergePolicy(NoMergePolicy.INSTANCE);
+            try (IndexWriter writer = new IndexWriter(dir, config)) {
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    doc.add(new NumericDocValuesField("id", i));
+                    // some documents have no vector
+                    if (rarely() == false) {
+                        vectors[i] = randomVector(dims);
+                        doc.add(vectorField("vector", vectors[i]));
+                    }
+                    writer.addDocument(doc);
+                }
+                writer.commit();
+                assertVectors(dir, vectors);
+                writer.forceMerge(1);
+                writer.commit();
+                assertVectors(dir, vectors);
+            }
+            TestUtil.checkIndex(dir);
+        }
+    }
+
+    private void assertVectors(Directory dir, float[][] vectors) throws IOException {
+        try (DirectoryReader reader = DirectoryReader.open(dir)) {
+            for (LeafReaderContext context : reader.leaves()) {
+                NumericDocValues ids = context.reader().getNumericDocValues("id");
+                BinaryDocValues values = context.reader().getBinaryDocValues("vector");
+                if (values == null) {
+                    continue;
+                }
+                assertThat(values, instanceOf(HnswVectorValues.class));
+                HnswVectorValues vectorValues = (HnswVectorValues) values;
+                Set<Integer> docsWithVector = new HashSet<>();
+                for (int doc = 0; doc < context.reader().maxDoc(); doc++) {
+                    assertTrue(ids.advanceExact(doc));
+                    float[] expected = vectors[(int) ids.longValue()];
+                    if (expected == null) {
+                        continue;
+                    }
+                    docsWithVector.add(doc);
+                    assertTrue(values.advanceExact(doc));
+                    BytesRef value = values.binaryValue();
+                    float[] actual = new float[expected.length];
+                    ByteBuffer.wrap(value.bytes, value.offset, value.length).asFloatBuffer().get(actual);
+                    assertArrayEquals(expected, actual, 0f);
+                }
+
+                // the stored vectors are found by searching for themselves, and only documents with a vector are returned
+                for (int i = 0; i < 10 && docsWithVector.isEmpty() == false; i++) {
+                    int doc = randomFrom(docsWithVector);
+                    NumericDocValues docIds = context.reader().getNumericDocValues("id");
+                    assertTrue(docIds.advanceExact(doc));
+                    float[] query = vectors[(int) docIds.longValue()];
+                    TopDocs topDocs = vectorValues.search(query, 5, 50, null, Long.MAX_VALUE);
+                    assertThat(topDocs.scoreDocs.length, lessThanOrEqualTo(5));
+                    assertEquals(Math.min(5, docsWithVector.size()), topDocs.scoreDocs.length);
+                    assertEquals(1f, topDocs.scoreDocs[0].score, 1e-5f);
+                    for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                        assertTrue(docsWithVector.contains(scoreDoc.doc));
+                    }
+                    for (int j = 1; j < topDocs.scoreDocs.length; j++) {
+                        assertThat(topDocs.scoreDocs[j - 1].score, greaterThanOrEqualTo(topDocs.scoreDocs[j].score));
+                    }
+                }
+            }
+        }
+    }
+
+    public void testVisitedLimit() throws IOException {
+        int dims = 4;
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig().setCodec(codec("vector", dims, VectorSimilarity.L2_NORM, 4, 20));
+            try (IndexWriter writer = new IndexWriter(dir, config)) {
+                for (int i = 0; i < 200; i++) {
+                    Document doc = new Document();
+                    doc.add(vectorField("vector", randomVector(dims)));
+                    writer.addDocument(doc);
+                }
+                writer.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                HnswVectorValues values = (HnswVectorValues) reader.leaves().get(0).reader().getBinaryDocValues("vector");
+                assertNull(values.search(randomVector(dims), 10, 100, null, 5));
+                TopDocs topDocs = values.search(randomVector(dims), 10, 100, null, Long.MAX_VALUE);
+                assertEquals(10, topDocs.scoreDocs.length);
+            }
+        }
+    }
+
+    public void testEmptySegment() throws IOException {
+        try (Directory dir = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig().setCodec(codec("vector", 2, VectorSimilarity.L2_NORM, 16, 100));
+            try (IndexWriter writer = new IndexWriter(dir, config)) {
+                Document doc = new Document();
+                doc.add(vectorField("vector", randomVector(2)));
+                writer.addDocument(doc);
+                writer.deleteAll();
+                writer.addDocument(new Document());
+                writer.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                for (LeafReaderContext context : reader.leaves()) {
+                    BinaryDocValues values = context.reader().getBinaryDocValues("vector");
+                    if (values != null) {
+                        assertEquals(DocIdSetIterator.NO_MORE_DOCS, values.nextDoc());
+                    }
+                }
+            }
+        }
+    }
+
+    public void testWriteNeedsParameters() {
+        IllegalStateException e = expectThrows(IllegalStateException.class,
+            () -> new HnswDocValuesFormat().fieldsConsumer(null));
+        assertEquals("format [HnswVectors] needs the parameters of the field to write a segment", e.getMessage());
+    }
+}
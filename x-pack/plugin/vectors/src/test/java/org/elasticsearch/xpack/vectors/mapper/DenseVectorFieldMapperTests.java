@@ -6,17 +6,24 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.codecs.lucene87.Lucene87Codec;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperParsingException;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperTestCase;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.xpack.vectors.Vectors;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -49,6 +56,16 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         checker.registerConflictCheck("dims",
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 5)));
+        checker.registerConflictCheck("index",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")));
+        checker.registerConflictCheck("similarity",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine")));
+        checker.registerConflictCheck("index_options",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")
+                .startObject("index_options").field("type", "hnsw").field("m", 32).endObject()));
     }
 
     public void testDims() {
@@ -75,6 +92,80 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         }
     }
 
+    public void testIndexedVector() throws Exception {
+        MapperService mapperService = createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)
+            .field("index", true).field("similarity", "cosine")));
+        DenseVectorFieldMapper.DenseVectorFieldType fieldType =
+            (DenseVectorFieldMapper.DenseVectorFieldType) mapperService.fieldType("field");
+        assertTrue(fieldType.isIndexed());
+        assertEquals(VectorSimilarity.COSINE, fieldType.similarity());
+        assertThat(fieldType.docValuesFormat(), instanceOf(HnswDocValuesFormat.class));
+        assertEquals("HnswVectors(dims=3, similarity=cosine, m=16, ef_construction=100)", fieldType.docValuesFormat().toString());
+        Lucene87Codec codec = (Lucene87Codec) new CodecService(mapperService, LogManager.getLogger("test")).codec("default");
+        assertSame(fieldType.docValuesFormat(), codec.getDocValuesFormatForField("field"));
+
+        mapperService = createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)
+            .field("index", true).field("similarity", "l2_norm")
+            .startObject("index_options").field("type", "hnsw").field("m", 8).field("ef_construction", 50).endObject()));
+        fieldType = (DenseVectorFieldMapper.DenseVectorFieldType) mapperService.fieldType("field");
+        assertEquals("HnswVectors(dims=3, similarity=l2_norm, m=8, ef_construction=50)", fieldType.docValuesFormat().toString());
+        assertEquals("{\"_doc\":{\"properties\":{\"field\":{\"type\":\"dense_vector\",\"dims\":3,\"index\":true," +
+            "\"similarity\":\"l2_norm\",\"index_options\":{\"type\":\"hnsw\",\"m\":8,\"ef_construction\":50}}}}}",
+            Strings.toString(mapperService.documentMapper()));
+
+        mapperService = createMapperService(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)));
+        assertNull(((DenseVectorFieldMapper.DenseVectorFieldType) mapperService.fieldType("field")).docValuesFormat());
+    }
+
+    public void testIndexedVectorParameters() {
+        Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+            .field("type", "dense_vector").field("dims", 3).field("index", true))));
+        assertThat(e.getMessage(), containsString("Field [field] of type [dense_vector] requires [similarity] when [index] is true"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+            .field("type", "dense_vector").field("dims", 3).field("similarity", "cosine"))));
+        assertThat(e.getMessage(), containsString("only allows [similarity] and [index_options] when [index] is true"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+            .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "hamming"))));
+        assertThat(e.getMessage(), containsString("Unknown [similarity] [hamming] for field [field]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+            .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine")
+            .startObject("index_options").field("type", "flat").endObject())));
+        assertThat(e.getMessage(), containsString("Unknown [index_options] type [flat] for field [field]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+            .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine")
+            .startObject("index_options").field("type", "hnsw").field("m", 1).endObject())));
+        assertThat(e.getMessage(), containsString("[m] must be in the range [2, 512] but was [1]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> b
+            .field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine")
+            .startObject("index_options").field("type", "hnsw").field("unknown", 1).endObject())));
+        assertThat(e.getMessage(), containsString("unknown"));
+    }
+
+    public void testDotProductRequiresUnitVectors() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)
+            .field("index", true).field("similarity", "dot_product")));
+        mapper.parse(source(b -> b.array("field", new float[] { 0.6f, 0.8f, 0 })));
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> mapper.parse(source(b -> b.array("field", new float[] { 3, 4, 0 }))));
+        assertThat(e.getCause().getMessage(), containsString("has a magnitude of [5.0], but the [dot_product] similarity requires " +
+            "vectors of unit length"));
+    }
+
+    public void testCosineRejectsZeroVectors() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)
+            .field("index", true).field("similarity", "cosine")));
+        mapper.parse(source(b -> b.array("field", new float[] { 3, 4, 0 })));
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> mapper.parse(source(b -> b.array("field", new float[] { 0, 0, 0 }))));
+        assertThat(e.getCause().getMessage(), containsString("has a magnitude of [0], but the [cosine] similarity is not defined for " +
+            "vectors of zero magnitude"));
+    }
+
     public void testDefaults() throws Exception {
 
         DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)));
@@ -6,7 +6,10 @@
 
 package org.elasticsearch.xpack.vectors.mapper;
 
+import org.apache.lucene.search.Query;
 import org.elasticsearch.index.mapper.FieldTypeTestCase;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -36,6 +39,33 @@ public class DenseVectorFieldTypeTests extends FieldTypeTestCase {
         expectThrows(UnsupportedOperationException.class, () -> ft.docValueFormat(null, null));
     }
 
+    public void testCreateKnnQuery() {
+        DenseVectorFieldMapper.DenseVectorFieldType unindexed =
+            new DenseVectorFieldMapper.DenseVectorFieldType("f", 3, Collections.emptyMap());
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> unindexed.createKnnQuery(new float[] { 1, 2, 3 }, 10, 100, null));
+        assertEquals("Field [f] of type [dense_vector] can only be searched with [knn] queries if [index] is true", e.getMessage());
+
+        DenseVectorFieldMapper.DenseVectorFieldType ft = new DenseVectorFieldMapper.DenseVectorFieldType("f", 3, true,
+            VectorSimilarity.DOT_PRODUCT, DenseVectorFieldMapper.HnswIndexOptions.DEFAULT, Collections.emptyMap());
+        Query query = ft.createKnnQuery(new float[] { 0.6f, 0.8f, 0 }, 10, 100, null);
+        assertEquals(new KnnVectorQuery("f", new float[] { 0.6f, 0.8f, 0 }, 10, 100, VectorSimilarity.DOT_PRODUCT, null), query);
+
+        e = expectThrows(IllegalArgumentException.class, () -> ft.createKnnQuery(new float[] { 1, 2 }, 10, 100, null));
+        assertEquals("The query vector has a different number of dimensions [2] than the document vectors [3]", e.getMessage());
+        e = expectThrows(IllegalArgumentException.class, () -> ft.createKnnQuery(new float[] { 3, 4, 0 }, 10, 100, null));
+        assertEquals("The query vector has a magnitude of [5.0], but the [dot_product] similarity requires vectors of unit length",
+            e.getMessage());
+
+        DenseVectorFieldMapper.DenseVectorFieldType cosine = new DenseVectorFieldMapper.DenseVectorFieldType("f", 3, true,
+            VectorSimilarity.COSINE, DenseVectorFieldMapper.HnswIndexOptions.DEFAULT, Collections.emptyMap());
+        assertEquals(new KnnVectorQuery("f", new float[] { 3, 4, 0 }, 10, 100, VectorSimilarity.COSINE, null),
+            cosine.createKnnQuery(new float[] { 3, 4, 0 }, 10, 100, null));
+        e = expectThrows(IllegalArgumentException.class, () -> cosine.createKnnQuery(new float[] { 0, 0, 0 }, 10, 100, null));
+        assertEquals("The query vector has a magnitude of [0], but the [cosine] similarity is not defined for vectors of zero magnitude",
+            e.getMessage());
+    }
+
     public void testFetchSourceValue() throws IOException {
         DenseVectorFieldMapper.DenseVectorFieldType ft = new DenseVectorFieldMapper.DenseVectorFieldType("f", 5, Collections.emptyMap());
         List<Double> vector = List.of(0.0, 1.0, 2.0, 3.0, 4.0);
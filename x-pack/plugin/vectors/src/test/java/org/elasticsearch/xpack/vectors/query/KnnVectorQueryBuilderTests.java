@@ -0,0 +1,125 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.Query;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.test.AbstractQueryTestCase;
+import org.elasticsearch.test.TestGeoShapeFieldMapperPlugin;
+import org.elasticsearch.xpack.vectors.Vectors;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQueryBuilder> {
+    private static final String VECTOR_FIELD = "vector";
+    private static final int VECTOR_DIMS = 3;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return List.of(Vectors.class, TestGeoShapeFieldMapperPlugin.class);
+    }
+
+    @Override
+    protected void initializeAdditionalMappings(MapperService mapperService) throws IOException {
+        mapperService.merge("_doc", new CompressedXContent(Strings.toString(PutMappingRequest.simpleMapping(
+            VECTOR_FIELD, "type=dense_vector,dims=" + VECTOR_DIMS + ",index=true,similarity=l2_norm"))),
+            MapperService.MergeReason.MAPPING_UPDATE);
+    }
+
+    @Override
+    protected KnnVectorQueryBuilder doCreateTestQueryBuilder() {
+        float[] vector = new float[VECTOR_DIMS];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = randomFloat();
+        }
+        int k = randomIntBetween(1, 100);
+        KnnVectorQueryBuilder queryBuilder = new KnnVectorQueryBuilder(VECTOR_FIELD, vector, k, randomIntBetween(k, 1000));
+        if (randomBoolean()) {
+            queryBuilder.filter(new TermQueryBuilder(TEXT_FIELD_NAME, randomAlphaOfLength(10)));
+        }
+        return queryBuilder;
+    }
+
+    @Override
+    protected void doAssertLuceneQuery(KnnVectorQueryBuilder queryBuilder, Query query, QueryShardContext context) throws IOException {
+        assertThat(query, instanceOf(KnnVectorQuery.class));
+        KnnVectorQuery knnQuery = (KnnVectorQuery) query;
+        assertEquals(VECTOR_FIELD, knnQuery.getField());
+        assertArrayEquals(queryBuilder.queryVector(), knnQuery.getTarget(), 0f);
+        assertEquals(queryBuilder.k(), knnQuery.getK());
+        assertEquals(queryBuilder.numCandidates(), knnQuery.getNumCandidates());
+        if (queryBuilder.filter() == null) {
+            assertNull(knnQuery.getFilter());
+        } else {
+            assertEquals(queryBuilder.filter().toQuery(context), knnQuery.getFilter());
+        }
+    }
+
+    public void testFromJson() throws IOException {
+        String json = "{\n" +
+            "  \"knn\" : {\n" +
+            "    \"field\" : \"vector\",\n" +
+            "    \"query_vector\" : [\n" +
+            "      1.0,\n" +
+            "      2.0,\n" +
+            "      3.0\n" +
+            "    ],\n" +
+            "    \"k\" : 5,\n" +
+            "    \"num_candidates\" : 50,\n" +
+            "    \"boost\" : 1.0\n" +
+            "  }\n" +
+            "}";
+        KnnVectorQueryBuilder parsed = (KnnVectorQueryBuilder) parseQuery(json);
+        checkGeneratedJson(json, parsed);
+        assertEquals(5, parsed.k());
+        assertEquals(50, parsed.numCandidates());
+    }
+
+    public void testDefaults() throws IOException {
+        KnnVectorQueryBuilder parsed = (KnnVectorQueryBuilder) parseQuery("{\"knn\":{\"field\":\"vector\",\"query_vector\":[1,2,3]}}");
+        assertEquals(KnnVectorQueryBuilder.DEFAULT_K, parsed.k());
+        assertEquals(KnnVectorQueryBuilder.DEFAULT_NUM_CANDIDATES, parsed.numCandidates());
+
+        parsed = (KnnVectorQueryBuilder) parseQuery("{\"knn\":{\"field\":\"vector\",\"query_vector\":[1,2,3],\"k\":500}}");
+        assertEquals(500, parsed.numCandidates());
+    }
+
+    public void testIllegalArguments() {
+        float[] vector = new float[] { 1, 2, 3 };
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(null, vector, 10, 100));
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(VECTOR_FIELD, new float[0], 10, 100));
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(VECTOR_FIELD, vector, 0, 100));
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQueryBuilder(VECTOR_FIELD, vector, 10, 5));
+        expectThrows(IllegalArgumentException.class,
+            () -> new KnnVectorQueryBuilder(VECTOR_FIELD, vector, 10, KnnVectorQueryBuilder.MAX_NUM_CANDIDATES + 1));
+    }
+
+    public void testWrongDimensions() {
+        KnnVectorQueryBuilder queryBuilder = new KnnVectorQueryBuilder(VECTOR_FIELD, new float[] { 1, 2 }, 10, 100);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> queryBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), containsString("different number of dimensions [2] than the document vectors [3]"));
+    }
+
+    public void testWrongFieldType() {
+        KnnVectorQueryBuilder queryBuilder = new KnnVectorQueryBuilder(TEXT_FIELD_NAME, new float[] { 1, 2, 3 }, 10, 100);
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> queryBuilder.toQuery(createShardContext()));
+        assertThat(e.getMessage(), equalTo("[knn] queries are only supported on [dense_vector] fields, but field [" + TEXT_FIELD_NAME
+            + "] is of type [text]"));
+    }
+}
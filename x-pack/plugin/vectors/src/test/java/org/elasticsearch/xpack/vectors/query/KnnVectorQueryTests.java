@@ -0,0 +1,278 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License;
+ * you may not use this file except in compliance with the Elastic License.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.lucene87.Lucene87Codec;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryCachingPolicy;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.codec.HnswDocValuesFormat;
+import org.elasticsearch.xpack.vectors.codec.VectorSimilarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class KnnVectorQueryTests extends ESTestCase {
+
+    private static final String FIELD = "vector";
+
+    private int dims;
+    private VectorSimilarity similarity;
+    private float[][] vectors;
+    private String[] tags;
+
+    private Directory index(int numDocs, boolean indexed, boolean forceMerge, int numDeletes) throws IOException {
+        dims = randomIntBetween(2, 16);
+        similarity = randomFrom(VectorSimilarity.values());
+        vectors = new float[numDocs][];
+        tags = new String[numDocs];
+        Directory dir = newDirectory();
+        IndexWriterConfig config = new IndexWriterConfig().setMaxBufferedDocs(randomIntBetween(50, 200));
+        if (indexed) {
+            DocValuesFormat format = new HnswDocValuesFormat(dims, similarity, 16, 100);
+            config.setCodec(new Lucene87Codec() {
+                @Override
+                public DocValuesFormat getDocValuesFormatForField(String field) {
+                    return FIELD.equals(field) ? format : super.getDocValuesFormatForField(field);
+                }
+            });
+        }
+        try (IndexWriter writer = new IndexWriter(dir, config)) {
+            for (int i = 0; i < numDocs; i++) {
+                vectors[i] = randomVector();
+                tags[i] = randomFrom("rare", "common", "common", "common");
+                Document doc = new Document();
+                doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                doc.add(new StringField("tag", tags[i], Field.Store.NO));
+                doc.add(vectorField(vectors[i]));
+                writer.addDocument(doc);
+            }
+            for (int i = 0; i < numDeletes; i++) {
+                int id = randomIntBetween(0, numDocs - 1);
+                writer.deleteDocuments(new Term("id", Integer.toString(id)));
+                vectors[id] = null;
+            }
+            if (forceMerge) {
+                writer.forceMerge(1);
+            }
+        }
+        return dir;
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[dims];
+        double squaredMagnitude = 0;
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat() * 2 - 1;
+            squaredMagnitude += vector[i] * vector[i];
+        }
+        if (similarity == VectorSimilarity.DOT_PRODUCT) {
+            for (int i = 0; i < dims; i++) {
+                vector[i] /= Math.sqrt(squaredMagnitude);
+            }
+        }
+        return vector;
+    }
+
+    private static BinaryDocValuesField vectorField(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        for (float value : vector) {
+            buffer.putFloat(value);
+        }
+        return new BinaryDocValuesField(FIELD, new BytesRef(buffer.array()));
+    }
+
+    /**
+     * The ids of the {@code k} live documents that are the most similar to the target, among those that have the given tag if any.
+     */
+    private Set<String> exactTopK(float[] target, int k, String tag) {
+        return IntStream.range(0, vectors.length)
+            .filter(i -> vectors[i] != null && (tag == null || tag.equals(tags[i])))
+            .boxed()
+            .sorted(Comparator.comparingDouble(i -> -similarity.score(target, vectors[i])))
+            .limit(k)
+            .map(Object::toString)
+            .collect(HashSet::new, Set::add, Set::addAll);
+    }
+
+    private static Set<String> ids(IndexSearcher searcher, TopDocs topDocs) throws IOException {
+        Set<String> ids = new HashSet<>();
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            ids.add(searcher.doc(scoreDoc.doc).get("id"));
+        }
+        return ids;
+    }
+
+    public void testRecall() throws IOException {
+        int k = 10;
+        try (Directory dir = index(randomIntBetween(500, 1000), true, randomBoolean(), randomIntBetween(0, 50));
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            int numQueries = 20;
+            int found = 0;
+            for (int i = 0; i < numQueries; i++) {
+                float[] target = randomVector();
+                TopDocs topDocs = searcher.search(new KnnVectorQuery(FIELD, target, k, 100, similarity, null), k);
+                assertEquals(k, topDocs.scoreDocs.length);
+                Set<String> ids = ids(searcher, topDocs);
+                ids.retainAll(exactTopK(target, k, null));
+                found += ids.size();
+            }
+            assertThat((double) found / (numQueries * k), greaterThanOrEqualTo(0.9));
+        }
+    }
+
+    public void testMatchesExactSearchWithoutGraph() throws IOException {
+        int k = randomIntBetween(1, 20);
+        try (Directory dir = index(randomIntBetween(50, 300), false, randomBoolean(), randomIntBetween(0, 20));
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            float[] target = randomVector();
+            String tag = randomBoolean() ? null : "rare";
+            Query filter = tag == null ? null : new TermQuery(new Term("tag", tag));
+            TopDocs topDocs = searcher.search(new KnnVectorQuery(FIELD, target, k, k, similarity, filter), k);
+            assertEquals(exactTopK(target, k, tag), ids(searcher, topDocs));
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                float[] vector = vectors[Integer.parseInt(searcher.doc(scoreDoc.doc).get("id"))];
+                assertEquals(similarity.score(target, vector), scoreDoc.score, 1e-5f);
+            }
+        }
+    }
+
+    public void testRestrictiveFilterIsSearchedExactly() throws IOException {
+        int k = 5;
+        try (Directory dir = index(randomIntBetween(500, 1000), true, randomBoolean(), randomIntBetween(0, 50));
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            float[] target = randomVector();
+            // a quarter of the documents are rare, which is fewer than the candidates of a segment, so that the search is exact
+            Query query = new KnnVectorQuery(FIELD, target, k, reader.maxDoc(), similarity, new TermQuery(new Term("tag", "rare")));
+            TopDocs topDocs = searcher.search(query, k);
+            assertEquals(exactTopK(target, k, "rare"), ids(searcher, topDocs));
+        }
+    }
+
+    public void testFilter() throws IOException {
+        int k = 10;
+        try (Directory dir = index(randomIntBetween(500, 1000), true, randomBoolean(), randomIntBetween(0, 50));
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            float[] target = randomVector();
+            Query query = new KnnVectorQuery(FIELD, target, k, 50, similarity, new TermQuery(new Term("tag", "common")));
+            TopDocs topDocs = searcher.search(query, k);
+            assertEquals(k, topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                assertEquals("common", tags[Integer.parseInt(searcher.doc(scoreDoc.doc).get("id"))]);
+            }
+        }
+    }
+
+    public void testExplain() throws IOException {
+        int k = 5;
+        try (Directory dir = index(randomIntBetween(50, 300), true, false, 0);
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            Query query = new KnnVectorQuery(FIELD, randomVector(), k, 100, similarity, null);
+            assertSame(query, searcher.rewrite(query));
+
+            TopDocs topDocs = searcher.search(query, reader.maxDoc());
+            assertEquals(k, topDocs.totalHits.value);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                Explanation explanation = searcher.explain(query, scoreDoc.doc);
+                assertTrue(explanation.isMatch());
+                assertEquals(scoreDoc.score, explanation.getValue().floatValue(), 0f);
+            }
+            int[] matches = Arrays.stream(topDocs.scoreDocs).mapToInt(scoreDoc -> scoreDoc.doc).toArray();
+            for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                int d = doc;
+                if (Arrays.stream(matches).noneMatch(match -> match == d)) {
+                    assertFalse(searcher.explain(query, doc).isMatch());
+                }
+            }
+        }
+    }
+
+    public void testNoMatches() throws IOException {
+        try (Directory dir = index(randomIntBetween(10, 50), true, false, 0);
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            Query filter = new TermQuery(new Term("tag", "missing"));
+            assertEquals(0, searcher.count(new KnnVectorQuery(FIELD, randomVector(), 5, 10, similarity, filter)));
+            assertEquals(0, searcher.count(new KnnVectorQuery("missing", randomVector(), 5, 10, similarity, null)));
+        }
+    }
+
+    public void testFilterUsesQueryCache() throws IOException {
+        try (Directory dir = index(randomIntBetween(500, 1000), true, randomBoolean(), 0);
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            LRUQueryCache queryCache = new LRUQueryCache(100, Long.MAX_VALUE, context -> true, Float.POSITIVE_INFINITY);
+            searcher.setQueryCache(queryCache);
+            searcher.setQueryCachingPolicy(new QueryCachingPolicy() {
+                @Override
+                public void onUse(Query query) {}
+
+                @Override
+                public boolean shouldCache(Query query) {
+                    return true;
+                }
+            });
+            Query filter = new TermQuery(new Term("tag", "common"));
+            searcher.search(new KnnVectorQuery(FIELD, randomVector(), 10, 50, similarity, filter), 10);
+            assertEquals(reader.leaves().size(), queryCache.getCacheCount());
+            searcher.search(new KnnVectorQuery(FIELD, randomVector(), 10, 50, similarity, filter), 10);
+            assertEquals(reader.leaves().size(), queryCache.getHitCount());
+        }
+    }
+
+    public void testCancellationIsCheckedBetweenSegments() throws IOException {
+        try (Directory dir = index(randomIntBetween(50, 300), true, false, 0);
+             DirectoryReader reader = DirectoryReader.open(dir)) {
+            ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true);
+            Query filter = randomBoolean() ? null : new TermQuery(new Term("tag", "common"));
+            Query query = new KnnVectorQuery(FIELD, randomVector(), 5, 10, similarity, filter);
+            searcher.addQueryCancellation(() -> {
+                throw new TaskCancelledException("cancelled");
+            });
+            expectThrows(TaskCancelledException.class, () -> searcher.createWeight(query, ScoreMode.COMPLETE, 1f));
+        }
+    }
+
+    public void testIllegalArguments() {
+        float[] target = new float[] { 1, 2 };
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQuery(FIELD, target, 0, 10, VectorSimilarity.L2_NORM, null));
+        expectThrows(IllegalArgumentException.class, () -> new KnnVectorQuery(FIELD, target, 10, 5, VectorSimilarity.L2_NORM, null));
+    }
+}